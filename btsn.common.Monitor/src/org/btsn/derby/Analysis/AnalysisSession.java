@@ -0,0 +1,565 @@
+package org.btsn.derby.Analysis;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.apache.log4j.Logger;
+import org.btsn.constants.TokenId;
+import org.btsn.derby.Analysis.PetriNetAnalyzer.ForkJoinAnalysis;
+import org.btsn.derby.Analysis.PetriNetAnalyzer.GenealogyAnalysis;
+import org.btsn.derby.Analysis.PetriNetAnalyzer.MarkingSnapshot;
+import org.btsn.derby.Analysis.PetriNetAnalyzer.PlaceStatistics;
+import org.btsn.derby.Analysis.PetriNetAnalyzer.PriorityAnalysis;
+import org.btsn.derby.Analysis.PetriNetAnalyzer.TokenPath;
+
+/**
+ * AnalysisSession - PetriNetAnalyzer results from one load of a run's data
+ *
+ * Each PetriNetAnalyzer query method opens its own connection and runs its
+ * own SQL, so a full report set (fork/join, completeness, throughput, place
+ * statistics and capacity per place, token paths, genealogy, marking
+ * evolution per place) cost dozens of round trips per workflowBase -
+ * hasExitedWorkflow alone one per token - and the reports rebuilt the same
+ * structures one after another.
+ *
+ * A session loads a workflowBase with four queries into indexed in-memory
+ * structures (RunData):
+ *   - its transition firings, grouped by token in timestamp order
+ *   - the tokens routed to TERMINATE, from both firing tables
+ *   - its marking evolution, grouped by place
+ *   - its pre-computed place statistics
+ * and derives the analyses from them, with the same results (and order) as
+ * the query methods. The fork/join and genealogy logic is PetriNetAnalyzer's
+ * own, fed from RunData.
+ *
+ * Every analysis is a task on the session's fork/join pool, memoized per
+ * workflowBase: prefetch() starts all of a workflowBase's analyses, so they -
+ * and other workflowBases - are computed in parallel, and a later request
+ * joins the same task. Results are shared; callers must not modify them.
+ * They are a snapshot of the database when it was loaded - open a new
+ * session to see later data.
+ */
+public class AnalysisSession implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(AnalysisSession.class);
+
+    private static final String T_IN = "T_in_";
+    private static final String T_OUT = "T_out_";
+    private static final String TERMINATE = "TERMINATE";
+
+    private final PetriNetAnalyzer analyzer;
+    private final ForkJoinPool pool;
+    private final Map<String, ForkJoinTask<?>> results = new ConcurrentHashMap<>();
+
+    public AnalysisSession(PetriNetAnalyzer analyzer) {
+        this(analyzer, Runtime.getRuntime().availableProcessors());
+    }
+
+    public AnalysisSession(PetriNetAnalyzer analyzer, int parallelism) {
+        this.analyzer = analyzer;
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    // =============================================================================
+    // RUN DATA
+    // =============================================================================
+
+    private static class Firing {
+        long id;
+        long tokenId;
+        String transitionId;
+        String toPlace;
+        long timestamp;
+        String eventType;
+        int bufferSize;
+    }
+
+    private static class RunData {
+        // tokenId -> firings in timestamp order; tokens in tokenId order
+        final Map<Long, List<Firing>> firingsByToken = new LinkedHashMap<>();
+        final Set<Long> terminated = new TreeSet<>();
+        final Map<String, ArrayList<MarkingSnapshot>> markingsByPlace = new HashMap<>();
+        final Map<String, PlaceStatistics> placeStatistics = new HashMap<>();
+    }
+
+    private RunData data(long workflowBase) {
+        return result("data", workflowBase, () -> load(workflowBase));
+    }
+
+    private RunData load(long workflowBase) {
+        long start = System.currentTimeMillis();
+        RunData data = new RunData();
+        int firings = 0;
+        int markings = 0;
+
+        try (Connection conn = analyzer.getConnection()) {
+            firings = loadFirings(conn, workflowBase, data);
+            loadRawTerminations(conn, workflowBase, data);
+            markings = loadMarkings(conn, workflowBase, data);
+            loadPlaceStatistics(conn, workflowBase, data);
+        } catch (SQLException e) {
+            logger.error("Error opening connection for workflowBase=" + workflowBase, e);
+        }
+
+        logger.info("Loaded workflowBase=" + workflowBase + ": " + firings + " firings, " +
+                   data.firingsByToken.size() + " tokens, " + markings + " marking snapshots in " +
+                   (System.currentTimeMillis() - start) + "ms");
+        return data;
+    }
+
+    private int loadFirings(Connection conn, long workflowBase, RunData data) {
+        String sql =
+            "SELECT id, tokenId, transitionId, toPlace, timestamp, eventType, bufferSize " +
+            "FROM CONSOLIDATED_TRANSITION_FIRINGS " +
+            "WHERE workflowBase = ? " +
+            "ORDER BY tokenId, timestamp, id";
+
+        int count = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, workflowBase);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                Firing firing = new Firing();
+                firing.id = rs.getLong("id");
+                firing.tokenId = rs.getLong("tokenId");
+                firing.transitionId = rs.getString("transitionId");
+                firing.toPlace = rs.getString("toPlace");
+                firing.timestamp = rs.getLong("timestamp");
+                firing.eventType = rs.getString("eventType");
+                firing.bufferSize = rs.getInt("bufferSize");
+                data.firingsByToken.computeIfAbsent(firing.tokenId, k -> new ArrayList<>()).add(firing);
+                if (TERMINATE.equals(firing.toPlace)) {
+                    data.terminated.add(firing.tokenId);
+                }
+                count++;
+            }
+        } catch (SQLException e) {
+            logger.error("Error loading transition firings for workflowBase=" + workflowBase, e);
+        }
+        return count;
+    }
+
+    /**
+     * Observer services (MonitorService) record TERMINATE in TRANSITION_FIRINGS
+     */
+    private void loadRawTerminations(Connection conn, long workflowBase, RunData data) {
+        String sql =
+            "SELECT DISTINCT tokenId FROM TRANSITION_FIRINGS " +
+            "WHERE workflowBase = ? AND toPlace = 'TERMINATE'";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, workflowBase);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                data.terminated.add(rs.getLong("tokenId"));
+            }
+        } catch (SQLException e) {
+            logger.error("Error loading terminated tokens for workflowBase=" + workflowBase, e);
+        }
+    }
+
+    private int loadMarkings(Connection conn, long workflowBase, RunData data) {
+        String sql =
+            "SELECT placeName, tokenId, timestamp, marking, bufferSize, toPlace, transitionId, eventType " +
+            "FROM CONSOLIDATED_MARKING_EVOLUTION " +
+            "WHERE workflowBase = ? " +
+            "ORDER BY timestamp";
+
+        int count = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, workflowBase);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                MarkingSnapshot snapshot = new MarkingSnapshot();
+                snapshot.tokenId = rs.getLong("tokenId");
+                snapshot.timestamp = rs.getLong("timestamp");
+                snapshot.marking = rs.getInt("marking");
+                snapshot.bufferSize = rs.getInt("bufferSize");
+                snapshot.toPlace = rs.getString("toPlace");
+                snapshot.transitionId = rs.getString("transitionId");
+                snapshot.eventType = rs.getString("eventType");
+                data.markingsByPlace.computeIfAbsent(rs.getString("placeName"), k -> new ArrayList<>()).add(snapshot);
+                count++;
+            }
+        } catch (SQLException e) {
+            logger.error("Error loading marking evolution for workflowBase=" + workflowBase, e);
+        }
+        return count;
+    }
+
+    private void loadPlaceStatistics(Connection conn, long workflowBase, RunData data) {
+        String sql =
+            "SELECT placeName, tokenCount, avgResidenceTime, minResidenceTime, maxResidenceTime " +
+            "FROM CONSOLIDATED_PLACE_STATISTICS " +
+            "WHERE workflowBase = ?";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, workflowBase);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                PlaceStatistics stats = new PlaceStatistics();
+                stats.placeName = rs.getString("placeName");
+                stats.tokenCount = rs.getInt("tokenCount");
+                stats.avgResidenceTime = rs.getDouble("avgResidenceTime");
+                stats.minResidenceTime = rs.getLong("minResidenceTime");
+                stats.maxResidenceTime = rs.getLong("maxResidenceTime");
+                // The per-place query took the first row
+                data.placeStatistics.putIfAbsent(stats.placeName, stats);
+            }
+        } catch (SQLException e) {
+            logger.error("Error loading place statistics for workflowBase=" + workflowBase, e);
+        }
+    }
+
+    // =============================================================================
+    // SCHEDULING
+    // =============================================================================
+
+    /**
+     * Start every analysis of a workflowBase on the pool (non-blocking).
+     */
+    public void prefetch(long workflowBase) {
+        pool.execute(() -> analyzeForkJoin(workflowBase));
+        pool.execute(() -> getActualIncompleteTokens(workflowBase));
+        pool.execute(() -> getTerminatedTokens(workflowBase));
+        pool.execute(() -> getWorkflowThroughput(workflowBase));
+        pool.execute(() -> placeStatistics(workflowBase));
+        pool.execute(() -> getTokenPaths(workflowBase));
+        pool.execute(() -> analyzeGenealogy(workflowBase));
+        pool.execute(() -> getGeneratedEvents(workflowBase));
+    }
+
+    /**
+     * Start the cross-version priority analysis on the pool (non-blocking).
+     */
+    public void prefetchPriority() {
+        pool.execute(() -> analyzePriority());
+    }
+
+    /**
+     * The memoized result of an analysis, computing it on the pool on first
+     * request; joining from a pool thread runs or helps the task.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T result(String analysis, long workflowBase, Callable<T> compute) {
+        ForkJoinTask<?> task = results.computeIfAbsent(analysis + ":" + workflowBase, k -> pool.submit(compute));
+        return (T) task.join();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // =============================================================================
+    // ANALYSES (same results as the PetriNetAnalyzer methods of the same name)
+    // =============================================================================
+
+    public ArrayList<Long> getTerminatedTokens(long workflowBase) {
+        return result("terminated", workflowBase, () -> new ArrayList<>(data(workflowBase).terminated));
+    }
+
+    public ArrayList<TokenPath> verifyTokenCompleteness(long workflowBase) {
+        return result("incomplete", workflowBase, () -> {
+            RunData data = data(workflowBase);
+            ArrayList<TokenPath> incompletePaths = new ArrayList<>();
+
+            for (Map.Entry<Long, List<Firing>> token : data.firingsByToken.entrySet()) {
+                if (data.terminated.contains(token.getKey())) {
+                    continue;
+                }
+                for (Firing entry : token.getValue()) {
+                    if (isEntry(entry) && !hasExitAfter(entry, token.getValue())) {
+                        TokenPath path = new TokenPath();
+                        path.tokenId = token.getKey();
+                        path.entryTime = entry.timestamp;
+                        path.exitTime = 0; // Incomplete
+                        path.placeName = entry.toPlace;
+                        incompletePaths.add(path);
+                    }
+                }
+            }
+            return incompletePaths;
+        });
+    }
+
+    public ArrayList<TokenPath> getTokenPaths(long workflowBase) {
+        return result("tokenPaths", workflowBase, () -> {
+            ArrayList<TokenPath> paths = new ArrayList<>();
+
+            for (Map.Entry<Long, List<Firing>> token : data(workflowBase).firingsByToken.entrySet()) {
+                for (Firing entry : token.getValue()) {
+                    if (!isEntry(entry)) {
+                        continue;
+                    }
+                    for (Firing exit : exitsOf(entry, token.getValue())) {
+                        TokenPath path = new TokenPath();
+                        path.tokenId = token.getKey();
+                        path.placeName = entry.toPlace;
+                        path.entryTime = entry.timestamp;
+                        path.exitTime = exit.timestamp;
+                        path.residenceTime = path.exitTime - path.entryTime;
+                        paths.add(path);
+                    }
+                }
+            }
+            logger.info("Retrieved " + paths.size() + " token paths for workflowBase=" + workflowBase);
+            return paths;
+        });
+    }
+
+    public ForkJoinAnalysis analyzeForkJoin(long workflowBase) {
+        return result("forkJoin", workflowBase, () -> {
+            RunData data = data(workflowBase);
+            return analyzer.analyzeForkJoin(new ArrayList<>(data.firingsByToken.keySet()),
+                    tokenId -> hasExitedWorkflow(tokenId, data));
+        });
+    }
+
+    public ArrayList<TokenPath> getActualIncompleteTokens(long workflowBase) {
+        return result("actualIncomplete", workflowBase, () -> analyzer.getActualIncompleteTokens(
+                verifyTokenCompleteness(workflowBase), analyzeForkJoin(workflowBase)));
+    }
+
+    public double getWorkflowThroughput(long workflowBase) {
+        return result("throughput", workflowBase, () -> {
+            int tokenCount = 0;
+            long first = Long.MAX_VALUE;
+            long last = Long.MIN_VALUE;
+            for (List<Firing> firings : data(workflowBase).firingsByToken.values()) {
+                for (Firing firing : firings) {
+                    if (isExit(firing)) {
+                        tokenCount++;
+                        first = Math.min(first, firing.timestamp);
+                        last = Math.max(last, firing.timestamp);
+                    }
+                }
+            }
+            long duration = tokenCount > 0 ? last - first : 0;
+            return duration > 0 ? (tokenCount * 1000.0) / duration : 0.0; // tokens per second
+        });
+    }
+
+    public ArrayList<String> getAllPlaces(long workflowBase) {
+        return result("places", workflowBase, () -> {
+            TreeSet<String> places = new TreeSet<>();
+            for (List<Firing> firings : data(workflowBase).firingsByToken.values()) {
+                for (Firing firing : firings) {
+                    if (firing.toPlace != null && !firing.toPlace.isEmpty()) {
+                        places.add(firing.toPlace);
+                    }
+                }
+            }
+            return new ArrayList<>(places);
+        });
+    }
+
+    public PlaceStatistics getPlaceStatistics(String placeName, long workflowBase) {
+        PlaceStatistics stats = placeStatistics(workflowBase).get(placeName);
+        return stats != null ? stats : computePlaceStatisticsFromFirings(placeName, data(workflowBase));
+    }
+
+    /**
+     * Statistics of every place, pre-computed or from its firings.
+     */
+    private Map<String, PlaceStatistics> placeStatistics(long workflowBase) {
+        return result("placeStatistics", workflowBase, () -> {
+            RunData data = data(workflowBase);
+            Map<String, PlaceStatistics> statistics = new HashMap<>(data.placeStatistics);
+            for (String place : getAllPlaces(workflowBase)) {
+                statistics.computeIfAbsent(place, p -> computePlaceStatisticsFromFirings(p, data));
+            }
+            return statistics;
+        });
+    }
+
+    public boolean verifyBoundedCapacity(String placeName, long workflowBase, int expectedCapacity) {
+        int maxMarking = 0;
+        for (MarkingSnapshot snapshot : getMarkingEvolution(placeName, workflowBase)) {
+            maxMarking = Math.max(maxMarking, snapshot.marking);
+        }
+        return maxMarking <= expectedCapacity;
+    }
+
+    public ArrayList<MarkingSnapshot> getMarkingEvolution(String placeName, long workflowBase) {
+        ArrayList<MarkingSnapshot> snapshots = data(workflowBase).markingsByPlace.get(placeName);
+        return snapshots != null ? snapshots : new ArrayList<>();
+    }
+
+    public ArrayList<MarkingSnapshot> getGeneratedEvents(long workflowBase) {
+        return result("generated", workflowBase, () -> {
+            List<Firing> generated = new ArrayList<>();
+            for (List<Firing> firings : data(workflowBase).firingsByToken.values()) {
+                for (Firing firing : firings) {
+                    if ("GENERATED".equals(firing.eventType)) {
+                        generated.add(firing);
+                    }
+                }
+            }
+            // In time order, equal timestamps in the order they were recorded
+            generated.sort(Comparator.comparingLong((Firing firing) -> firing.timestamp)
+                    .thenComparingLong(firing -> firing.id));
+
+            ArrayList<MarkingSnapshot> snapshots = new ArrayList<>();
+            for (Firing firing : generated) {
+                MarkingSnapshot snapshot = new MarkingSnapshot();
+                snapshot.tokenId = firing.tokenId;
+                snapshot.timestamp = firing.timestamp;
+                snapshot.marking = 0;  // GENERATED events don't have marking
+                snapshot.bufferSize = firing.bufferSize;
+                snapshot.toPlace = firing.toPlace;
+                snapshot.transitionId = firing.transitionId;
+                snapshot.eventType = firing.eventType;
+                snapshots.add(snapshot);
+            }
+            return snapshots;
+        });
+    }
+
+    public GenealogyAnalysis analyzeGenealogy(long workflowBase) {
+        return result("genealogy", workflowBase, () -> {
+            // Built one token at a time like the query's set, so iteration order matches
+            Set<Long> allTokens = new HashSet<>();
+            for (long tokenId : data(workflowBase).firingsByToken.keySet()) {
+                allTokens.add(tokenId);
+            }
+            return analyzer.analyzeGenealogy(allTokens, workflowBase);
+        });
+    }
+
+    /**
+     * Cross-version priority analysis; not per workflowBase, so computed once
+     * per session.
+     */
+    public PriorityAnalysis analyzePriority() {
+        return result("priority", 0, analyzer::analyzePriority);
+    }
+
+    // =============================================================================
+    // HELPERS
+    // =============================================================================
+
+    private static boolean isEntry(Firing firing) {
+        return firing.transitionId != null && firing.transitionId.startsWith(T_IN);
+    }
+
+    private static boolean isExit(Firing firing) {
+        return firing.transitionId != null && firing.transitionId.startsWith(T_OUT);
+    }
+
+    private static boolean hasExitAfter(Firing entry, List<Firing> firings) {
+        if (entry.toPlace == null) {
+            return false;
+        }
+        String exitId = T_OUT + entry.toPlace;
+        for (Firing firing : firings) {
+            if (exitId.equals(firing.transitionId) && firing.timestamp >= entry.timestamp) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Exits paired with an entry, as getTokenPaths' query pairs them: the
+     * exits of its place at or after it with no other exit of that place
+     * strictly in between.
+     */
+    private static List<Firing> exitsOf(Firing entry, List<Firing> firings) {
+        if (entry.toPlace == null) {
+            return Collections.emptyList();
+        }
+        String exitId = T_OUT + entry.toPlace;
+        long next = Long.MAX_VALUE;
+        for (Firing firing : firings) {
+            if (exitId.equals(firing.transitionId) && firing.timestamp > entry.timestamp) {
+                next = Math.min(next, firing.timestamp);
+            }
+        }
+        List<Firing> exits = new ArrayList<>();
+        for (Firing firing : firings) {
+            if (exitId.equals(firing.transitionId)
+                    && (firing.timestamp == entry.timestamp || firing.timestamp == next)) {
+                exits.add(firing);
+            }
+        }
+        return exits;
+    }
+
+    /**
+     * Forked tokens exit only via TERMINATE; base tokens also by leaving
+     * every place they entered (see PetriNetAnalyzer.hasExitedWorkflow).
+     */
+    private static boolean hasExitedWorkflow(long tokenId, RunData data) {
+        if (data.terminated.contains(tokenId)) {
+            return true;
+        }
+        if (TokenId.branch(tokenId) >= 1) {
+            return false;
+        }
+        int inCount = 0;
+        int outCount = 0;
+        for (Firing firing : data.firingsByToken.getOrDefault(tokenId, Collections.emptyList())) {
+            if (isEntry(firing)) {
+                inCount++;
+            } else if (isExit(firing)) {
+                outCount++;
+            }
+        }
+        return inCount > 0 && inCount == outCount;
+    }
+
+    /**
+     * PetriNetAnalyzer.computePlaceStatisticsFromFirings over the loaded
+     * firings; the average truncates like Derby's AVG over BIGINT.
+     */
+    private static PlaceStatistics computePlaceStatisticsFromFirings(String placeName, RunData data) {
+        PlaceStatistics stats = new PlaceStatistics();
+        stats.placeName = placeName;
+
+        String entryId = T_IN + placeName;
+        long sum = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (List<Firing> firings : data.firingsByToken.values()) {
+            for (Firing entry : firings) {
+                if (!entryId.equals(entry.transitionId) || !placeName.equals(entry.toPlace)) {
+                    continue;
+                }
+                for (Firing exit : exitsOf(entry, firings)) {
+                    long residence = exit.timestamp - entry.timestamp;
+                    stats.tokenCount++;
+                    sum += residence;
+                    min = Math.min(min, residence);
+                    max = Math.max(max, residence);
+                }
+            }
+        }
+        if (stats.tokenCount > 0) {
+            stats.avgResidenceTime = sum / stats.tokenCount;
+            stats.minResidenceTime = min;
+            stats.maxResidenceTime = max;
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,642 @@
+package org.btsn.derby.Analysis;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.log4j.Logger;
+import org.btsn.constants.TokenId;
+import org.btsn.constants.VersionConstants;
+import org.btsn.rulecontroller.model.ServiceNode;
+import org.btsn.rulecontroller.model.TransitionNode;
+import org.btsn.rulecontroller.model.WorkflowDefinitionParser;
+import org.btsn.rulecontroller.model.WorkflowEdge;
+import org.btsn.rulecontroller.model.WorkflowModel;
+
+/**
+ * CapacityPredictor - Analytical capacity model of a workflow
+ *
+ * Predicts, for a given arrival rate, the throughput, bottleneck, and the
+ * utilization and expected queue length of every EventReactor, without a
+ * trial run. The model is an open queueing network built from the compiled
+ * workflow (ProcessDefinitionFolder JSON, via WorkflowDefinitionParser) and
+ * the service times measured in SERVICEMEASUREMENTS.
+ *
+ * STATIONS:
+ * One station per service:operation - the EventReactor/ServiceThread pair
+ * that serves every place bound to it - with a single server. Its service
+ * time mean S and squared coefficient of variation c2 come from
+ * publishTime - invocationTime of the measured run, so the delay
+ * distribution a BaseStochasticPetriNetPlace holds is captured as measured.
+ *
+ * ROUTING (visit ratios):
+ *   EVENT_GENERATOR -> T_in_X   external arrivals at X
+ *   T_out_X arrows              grouped by decision_value; every arrow of a
+ *                               group fires (fork), groups are alternatives
+ *                               (Decision/Xor/Gateway with no decision values:
+ *                               each arrow is an alternative)
+ *   alternative probabilities   measured visit counts of the targets, the
+ *                               rest shared by unmeasured/terminating groups;
+ *                               uniform without measurements
+ *   JoinNode T_in with k arrows one arrival per k branch tokens
+ * The traffic equations v = b + A v (b = external arrivals per generated
+ * token) are solved by Jacobi iteration, rows in parallel on the common
+ * fork/join pool; loops converge as long as they exit with some probability.
+ *
+ * PER STATION at arrival rate lambda0 (tokens/sec):
+ *   lambda = lambda0 * v,  rho = lambda * S
+ *   Lq = rho^2 (1 + c2) / (2 (1 - rho))   (M/G/1, Pollaczek-Khinchine)
+ *   Wq = Lq / lambda
+ * Saturation throughput is 1 / max(v * S); that station is the bottleneck.
+ * A station with rho >= 1 is reported as saturated - its queue is bounded
+ * only by the reactor buffer.
+ *
+ * VALIDATION:
+ * With a workflowBase the measured run is replayed through the model: the
+ * measured arrival rate at the entry places is predicted and compared, per
+ * station, with the measured rate, utilization (busy time / window) and
+ * queue length (Little: total queue time / window).
+ *
+ * Usage: CapacityPredictor <workflow.json> [workflowBase] [arrivalRate/sec]
+ */
+public class CapacityPredictor {
+
+    private static final Logger logger = Logger.getLogger(CapacityPredictor.class);
+
+    private static final int MAX_ITERATIONS = 10000;
+    private static final double TOLERANCE = 1e-12;
+
+    // Fractions of the saturation throughput reported by the sweep
+    private static final double[] SWEEP = { 0.25, 0.5, 0.75, 0.9, 0.95 };
+
+    private final WorkflowModel model;
+    private final BuildServiceAnalysisDatabase db;
+
+    // Station key (service:operation) -> measured statistics
+    private final Map<String, StationMeasurement> measurements = new LinkedHashMap<>();
+
+    // Place nodeId -> station key, in workflow order
+    private final Map<String, String> placeStations = new LinkedHashMap<>();
+
+    public CapacityPredictor(WorkflowModel model) {
+        this.model = model;
+        this.db = new BuildServiceAnalysisDatabase();
+        for (ServiceNode node : model.getServiceNodes().values()) {
+            placeStations.put(node.nodeId, stationKey(node.service, node.operation));
+        }
+    }
+
+    /**
+     * Build the model of a workflow definition file.
+     */
+    public static CapacityPredictor fromDefinition(File workflowDefinition) throws Exception {
+        WorkflowModel model = new WorkflowModel();
+        new WorkflowDefinitionParser(model).parse(workflowDefinition);
+        return new CapacityPredictor(model);
+    }
+
+    // =============================================================================
+    // MEASUREMENTS
+    // =============================================================================
+
+    /**
+     * Load the service measurements of a run (SERVICEMEASUREMENTS of the
+     * workflowBase's token family).
+     */
+    public void loadMeasurements(long workflowBase) throws Exception {
+        measurements.clear();
+        TreeMap<Integer, ArrayList<Object>> records = db.readServiceMeasurementsByWorkflowBase(workflowBase);
+        for (ArrayList<Object> record : records.values()) {
+            String key = stationKey((String) record.get(2), (String) record.get(3));
+            long arrival = (Long) record.get(4);
+            long invocation = (Long) record.get(5);
+            long publish = (Long) record.get(6);
+            measurements.computeIfAbsent(key, StationMeasurement::new).add(arrival, invocation, publish);
+        }
+        logger.info("CapacityPredictor: " + records.size() + " measurements over " + measurements.size()
+                + " stations for workflow base " + workflowBase);
+    }
+
+    /**
+     * Supply a station's service time directly (e.g. from a configured delay
+     * distribution) instead of, or before, a measured run.
+     */
+    public void setServiceTime(String service, String operation, double meanMs, double scv) {
+        StationMeasurement measurement = measurements.computeIfAbsent(stationKey(service, operation),
+                StationMeasurement::new);
+        measurement.assumedMeanMs = meanMs;
+        measurement.assumedScv = scv;
+    }
+
+    // =============================================================================
+    // TRAFFIC EQUATIONS
+    // =============================================================================
+
+    /**
+     * Visits per station for one generated token.
+     */
+    public Map<String, Double> computeVisitRatios() {
+        List<String> places = new ArrayList<>(placeStations.keySet());
+        int n = places.size();
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            index.put(places.get(i), i);
+        }
+
+        // b[p]: external arrivals; a[p][q]: arrivals at p per visit to q
+        double[] b = new double[n];
+        double[][] a = new double[n][n];
+        for (TransitionNode generator : generators()) {
+            for (WorkflowEdge edge : model.getOutgoingEdges(generator.nodeId)) {
+                String place = placeAfter(edge.toNode);
+                if (place != null && index.containsKey(place)) {
+                    b[index.get(place)] += 1.0 / joinArity(edge.toNode);
+                }
+            }
+        }
+        for (int q = 0; q < n; q++) {
+            for (TransitionNode out : outputTransitions(places.get(q))) {
+                List<List<WorkflowEdge>> groups = routingGroups(out);
+                double[] probabilities = groupProbabilities(places.get(q), groups);
+                for (int g = 0; g < groups.size(); g++) {
+                    for (WorkflowEdge edge : groups.get(g)) {
+                        String place = placeAfter(edge.toNode);
+                        if (place != null && index.containsKey(place)) {
+                            a[index.get(place)][q] += probabilities[g] / joinArity(edge.toNode);
+                        }
+                    }
+                }
+            }
+        }
+
+        double[] v = solveTraffic(a, b);
+        Map<String, Double> visits = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            visits.merge(placeStations.get(places.get(i)), v[i], Double::sum);
+        }
+        return visits;
+    }
+
+    /**
+     * Solve v = b + A v by Jacobi iteration, each sweep's rows in parallel.
+     */
+    static double[] solveTraffic(double[][] a, double[] b) {
+        int n = b.length;
+        double[] v = b.clone();
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            final double[] current = v;
+            double[] next = IntStream.range(0, n).parallel().mapToDouble(p -> {
+                double sum = b[p];
+                for (int q = 0; q < n; q++) {
+                    sum += a[p][q] * current[q];
+                }
+                return sum;
+            }).toArray();
+            double change = IntStream.range(0, n).parallel()
+                    .mapToDouble(p -> Math.abs(next[p] - current[p])).max().orElse(0.0);
+            v = next;
+            if (change < TOLERANCE) {
+                return v;
+            }
+        }
+        logger.warn("CapacityPredictor: traffic equations did not converge in " + MAX_ITERATIONS
+                + " iterations (a loop without an exit?)");
+        return v;
+    }
+
+    // =============================================================================
+    // PREDICTION
+    // =============================================================================
+
+    /**
+     * Predict every station at an arrival rate (generated tokens per second).
+     */
+    public Prediction predict(double arrivalRate) {
+        return predict(arrivalRate, computeVisitRatios());
+    }
+
+    private Prediction predict(double arrivalRate, Map<String, Double> visits) {
+        Prediction prediction = new Prediction();
+        prediction.arrivalRate = arrivalRate;
+        double maxDemand = 0.0;
+
+        // Stations are independent given lambda
+        List<StationPrediction> stations = visits.entrySet().parallelStream()
+                .map(entry -> predictStation(entry.getKey(), entry.getValue(), arrivalRate))
+                .collect(Collectors.toList());
+        for (StationPrediction station : stations) {
+            prediction.stations.put(station.station, station);
+            double demand = station.visits * station.serviceTimeMs / 1000.0;
+            if (demand > maxDemand) {
+                maxDemand = demand;
+                prediction.bottleneck = station.station;
+            }
+        }
+        prediction.saturationThroughput = maxDemand > 0 ? 1.0 / maxDemand : Double.POSITIVE_INFINITY;
+        prediction.throughput = Math.min(arrivalRate, prediction.saturationThroughput);
+        return prediction;
+    }
+
+    private StationPrediction predictStation(String station, double visits, double arrivalRate) {
+        StationPrediction prediction = new StationPrediction();
+        prediction.station = station;
+        prediction.visits = visits;
+        prediction.arrivalRate = arrivalRate * visits;
+
+        StationMeasurement measurement = measurements.get(station);
+        if (measurement == null || !measurement.hasServiceTime()) {
+            prediction.measured = false;
+            return prediction;
+        }
+        prediction.measured = true;
+        prediction.serviceTimeMs = measurement.meanServiceMs();
+        double scv = measurement.serviceScv();
+        double rho = prediction.arrivalRate * prediction.serviceTimeMs / 1000.0;
+        prediction.utilization = rho;
+        if (rho >= 1.0) {
+            prediction.saturated = true;
+            prediction.queueLength = Double.POSITIVE_INFINITY;
+            prediction.queueTimeMs = Double.POSITIVE_INFINITY;
+        } else if (prediction.arrivalRate > 0) {
+            prediction.queueLength = rho * rho * (1.0 + scv) / (2.0 * (1.0 - rho));
+            prediction.queueTimeMs = prediction.queueLength / prediction.arrivalRate * 1000.0;
+        }
+        return prediction;
+    }
+
+    /**
+     * Predictions at fractions of the saturation throughput, in parallel.
+     */
+    public List<Prediction> sweep() {
+        Map<String, Double> visits = computeVisitRatios();
+        double saturation = predict(0.0, visits).saturationThroughput;
+        if (Double.isInfinite(saturation)) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(SWEEP).parallel()
+                .mapToObj(fraction -> predict(fraction * saturation, visits))
+                .collect(Collectors.toList());
+    }
+
+    // =============================================================================
+    // VALIDATION
+    // =============================================================================
+
+    /**
+     * Predicted vs measured for the loaded run, at its measured arrival rate.
+     */
+    public String generateValidationReport() {
+        StringBuilder sb = new StringBuilder();
+        long windowStart = Long.MAX_VALUE;
+        long windowEnd = Long.MIN_VALUE;
+        for (StationMeasurement measurement : measurements.values()) {
+            if (measurement.count > 0) {
+                windowStart = Math.min(windowStart, measurement.firstArrival);
+                windowEnd = Math.max(windowEnd, measurement.lastPublish);
+            }
+        }
+        if (windowEnd <= windowStart) {
+            sb.append("No measured run to validate against\n");
+            return sb.toString();
+        }
+        double windowSec = (windowEnd - windowStart) / 1000.0;
+
+        // Measured arrival rate: arrivals at the entry stations per generated token
+        Map<String, Double> visits = computeVisitRatios();
+        double entryArrivals = 0.0;
+        double entryVisits = 0.0;
+        for (String station : entryStations()) {
+            StationMeasurement measurement = measurements.get(station);
+            if (measurement != null) {
+                entryArrivals += measurement.count;
+                entryVisits += visits.getOrDefault(station, 0.0);
+            }
+        }
+        if (entryVisits <= 0) {
+            sb.append("No measurements at the entry places\n");
+            return sb.toString();
+        }
+        double arrivalRate = entryArrivals / entryVisits / windowSec;
+        Prediction prediction = predict(arrivalRate, visits);
+
+        sb.append(String.format("Measured window: %.1fs, arrival rate %.3f tokens/sec%n", windowSec, arrivalRate));
+        sb.append(String.format("%-40s %21s %21s %21s%n", "Station", "rate/s pred|meas",
+                "util pred|meas", "Lq pred|meas"));
+        for (StationPrediction station : prediction.stations.values()) {
+            StationMeasurement measurement = measurements.get(station.station);
+            if (measurement == null || measurement.count == 0) {
+                continue;
+            }
+            double measuredRate = measurement.count / windowSec;
+            double measuredUtilization = measurement.totalServiceMs / 1000.0 / windowSec;
+            double measuredQueue = measurement.totalQueueMs / 1000.0 / windowSec;
+            sb.append(String.format("%-40s %10.3f|%-10.3f %10.3f|%-10.3f %10s|%-10.3f%n", station.station,
+                    station.arrivalRate, measuredRate, station.utilization, measuredUtilization,
+                    station.saturated ? "sat" : String.format("%.3f", station.queueLength), measuredQueue));
+        }
+        return sb.toString();
+    }
+
+    // =============================================================================
+    // REPORT
+    // =============================================================================
+
+    public String generateCapacityReport(double arrivalRate) {
+        StringBuilder sb = new StringBuilder();
+        Prediction prediction = predict(arrivalRate);
+
+        sb.append("=== CAPACITY PREDICTION ===\n");
+        sb.append(String.format("Arrival rate: %.3f tokens/sec%n", arrivalRate));
+        sb.append(String.format("Predicted throughput: %.3f tokens/sec%n", prediction.throughput));
+        sb.append(String.format("Saturation throughput: %.3f tokens/sec%n", prediction.saturationThroughput));
+        sb.append("Bottleneck: " + (prediction.bottleneck != null ? prediction.bottleneck : "none measured") + "\n\n");
+        sb.append(String.format("%-40s %8s %10s %8s %10s %10s%n", "Station", "visits", "S (ms)", "util",
+                "Lq", "Wq (ms)"));
+        for (StationPrediction station : prediction.stations.values()) {
+            if (!station.measured) {
+                sb.append(String.format("%-40s %8.3f %10s%n", station.station, station.visits, "n/a"));
+            } else if (station.saturated) {
+                sb.append(String.format("%-40s %8.3f %10.1f %8.3f %10s %10s%n", station.station, station.visits,
+                        station.serviceTimeMs, station.utilization, "saturated", "-"));
+            } else {
+                sb.append(String.format("%-40s %8.3f %10.1f %8.3f %10.3f %10.1f%n", station.station,
+                        station.visits, station.serviceTimeMs, station.utilization, station.queueLength,
+                        station.queueTimeMs));
+            }
+        }
+
+        List<Prediction> sweep = sweep();
+        if (!sweep.isEmpty()) {
+            sb.append("\n=== LOAD SWEEP ===\n");
+            for (Prediction point : sweep) {
+                StationPrediction bottleneck = point.stations.get(point.bottleneck);
+                sb.append(String.format("lambda=%.3f/s  bottleneck util=%.3f  Lq=%.3f%n", point.arrivalRate,
+                        bottleneck.utilization, bottleneck.queueLength));
+            }
+        }
+        return sb.toString();
+    }
+
+    // =============================================================================
+    // NET STRUCTURE
+    // =============================================================================
+
+    private List<TransitionNode> generators() {
+        List<TransitionNode> generators = new ArrayList<>();
+        for (TransitionNode node : model.getTransitionNodes().values()) {
+            if ("EventGenerator".equals(node.nodeType)) {
+                generators.add(node);
+            }
+        }
+        return generators;
+    }
+
+    private List<String> entryStations() {
+        List<String> entries = new ArrayList<>();
+        for (TransitionNode generator : generators()) {
+            for (WorkflowEdge edge : model.getOutgoingEdges(generator.nodeId)) {
+                String place = placeAfter(edge.toNode);
+                if (place != null && placeStations.containsKey(place)
+                        && !entries.contains(placeStations.get(place))) {
+                    entries.add(placeStations.get(place));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private List<TransitionNode> outputTransitions(String placeId) {
+        List<TransitionNode> outputs = new ArrayList<>();
+        for (WorkflowEdge edge : model.getOutgoingEdges(placeId)) {
+            TransitionNode transition = model.getTransitionNode(edge.toNode);
+            if (transition != null && !"TerminateNode".equals(transition.nodeType)) {
+                outputs.add(transition);
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * The place an input transition feeds, or null (e.g. T_in_Terminate).
+     */
+    private String placeAfter(String transitionId) {
+        for (WorkflowEdge edge : model.getOutgoingEdges(transitionId)) {
+            if (model.getServiceNode(edge.toNode) != null) {
+                return edge.toNode;
+            }
+        }
+        return null;
+    }
+
+    private int joinArity(String transitionId) {
+        TransitionNode transition = model.getTransitionNode(transitionId);
+        if (transition == null || !"JoinNode".equals(transition.nodeType)) {
+            return 1;
+        }
+        return Math.max(1, model.getIncomingEdges(transitionId).size());
+    }
+
+    /**
+     * Outgoing arrows of an output transition as alternatives, each a set of
+     * arrows that fire together.
+     */
+    private List<List<WorkflowEdge>> routingGroups(TransitionNode transition) {
+        List<WorkflowEdge> edges = model.getOutgoingEdges(transition.nodeId);
+        List<List<WorkflowEdge>> groups = new ArrayList<>();
+        if ("ForkNode".equals(transition.nodeType)) {
+            groups.add(edges);
+            return groups;
+        }
+        boolean decision = "DecisionNode".equals(transition.nodeType) || "XorNode".equals(transition.nodeType)
+                || "GatewayNode".equals(transition.nodeType);
+        Map<String, List<WorkflowEdge>> byValue = new LinkedHashMap<>();
+        for (WorkflowEdge edge : edges) {
+            String value = edge.getDecisionValue();
+            if (value == null || value.isEmpty()) {
+                if (decision) {
+                    groups.add(Collections.singletonList(edge));
+                    continue;
+                }
+                value = "";
+            }
+            byValue.computeIfAbsent(value, k -> new ArrayList<>()).add(edge);
+        }
+        groups.addAll(byValue.values());
+        return groups;
+    }
+
+    /**
+     * Probability of each alternative after a visit to a place: measured
+     * visits of its targets relative to the place's own; the remainder is
+     * shared by alternatives with no measured target (e.g. terminate).
+     */
+    private double[] groupProbabilities(String placeId, List<List<WorkflowEdge>> groups) {
+        int count = groups.size();
+        double[] probabilities = new double[count];
+        if (count == 0) {
+            return probabilities;
+        }
+        StationMeasurement source = measurements.get(placeStations.get(placeId));
+        if (count == 1 || source == null || source.count == 0) {
+            Arrays.fill(probabilities, 1.0 / count);
+            return probabilities;
+        }
+        double assigned = 0.0;
+        int unmeasured = 0;
+        for (int g = 0; g < count; g++) {
+            long targetVisits = 0;
+            for (WorkflowEdge edge : groups.get(g)) {
+                String place = placeAfter(edge.toNode);
+                StationMeasurement target = place != null ? measurements.get(placeStations.get(place)) : null;
+                if (target != null) {
+                    // Arrows of a group fire together - one of them counts the group
+                    targetVisits = Math.max(targetVisits, target.count);
+                }
+            }
+            if (targetVisits > 0) {
+                probabilities[g] = (double) targetVisits / source.count;
+                assigned += probabilities[g];
+            } else {
+                probabilities[g] = -1.0;
+                unmeasured++;
+            }
+        }
+        double rest = Math.max(0.0, 1.0 - assigned);
+        double scale = assigned > 1.0 ? 1.0 / assigned : 1.0;
+        for (int g = 0; g < count; g++) {
+            probabilities[g] = probabilities[g] < 0 ? rest / unmeasured : probabilities[g] * scale;
+        }
+        return probabilities;
+    }
+
+    private static String stationKey(String service, String operation) {
+        return service + ":" + operation;
+    }
+
+    // =============================================================================
+    // DATA CLASSES
+    // =============================================================================
+
+    private static class StationMeasurement {
+        final String station;
+        long count;
+        double totalServiceMs;
+        double totalServiceSquared;
+        double totalQueueMs;
+        long firstArrival = Long.MAX_VALUE;
+        long lastPublish = Long.MIN_VALUE;
+        double assumedMeanMs = -1.0;
+        double assumedScv = 1.0;
+
+        StationMeasurement(String station) {
+            this.station = station;
+        }
+
+        void add(long arrival, long invocation, long publish) {
+            double service = publish - invocation;
+            count++;
+            totalServiceMs += service;
+            totalServiceSquared += service * service;
+            totalQueueMs += invocation - arrival;
+            firstArrival = Math.min(firstArrival, arrival);
+            lastPublish = Math.max(lastPublish, publish);
+        }
+
+        boolean hasServiceTime() {
+            return count > 0 || assumedMeanMs >= 0;
+        }
+
+        double meanServiceMs() {
+            return count > 0 ? totalServiceMs / count : assumedMeanMs;
+        }
+
+        double serviceScv() {
+            if (count < 2) {
+                return assumedScv;
+            }
+            double mean = totalServiceMs / count;
+            double variance = Math.max(0.0, totalServiceSquared / count - mean * mean);
+            return mean > 0 ? variance / (mean * mean) : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return station + ": " + count + " measured, S=" + String.format("%.1f", meanServiceMs()) + "ms";
+        }
+    }
+
+    public static class StationPrediction {
+        public String station;        // service:operation (one EventReactor)
+        public double visits;         // visits per generated token
+        public double arrivalRate;    // tokens/sec
+        public double serviceTimeMs;
+        public double utilization;
+        public double queueLength;    // expected tokens waiting in the reactor
+        public double queueTimeMs;
+        public boolean measured;      // false: no service time known
+        public boolean saturated;     // utilization >= 1
+
+        @Override
+        public String toString() {
+            return station + ": lambda=" + String.format("%.3f", arrivalRate) + "/s, rho="
+                    + String.format("%.3f", utilization) + ", Lq=" + String.format("%.3f", queueLength);
+        }
+    }
+
+    public static class Prediction {
+        public double arrivalRate;
+        public double throughput;
+        public double saturationThroughput;
+        public String bottleneck;
+        public Map<String, StationPrediction> stations = new LinkedHashMap<>();
+
+        @Override
+        public String toString() {
+            return "Prediction[lambda=" + String.format("%.3f", arrivalRate) + ", X="
+                    + String.format("%.3f", throughput) + ", Xmax=" + String.format("%.3f", saturationThroughput)
+                    + ", bottleneck=" + bottleneck + "]";
+        }
+    }
+
+    // =============================================================================
+    // MAIN
+    // =============================================================================
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: CapacityPredictor <workflow.json> [workflowBase] [arrivalRate/sec]");
+            return;
+        }
+        try {
+            CapacityPredictor predictor = fromDefinition(new File(args[0]));
+            long workflowBase = args.length > 1 ? TokenId.parse(args[1]) : VersionConstants.V001_BASE;
+            predictor.loadMeasurements(workflowBase);
+
+            System.out.println("=".repeat(80));
+            System.out.println("WORKFLOW: " + args[0] + "  BASE: " + workflowBase + " ("
+                    + VersionConstants.getVersionFromSequenceId(workflowBase) + ")");
+            System.out.println("=".repeat(80));
+
+            if (args.length > 2) {
+                System.out.println(predictor.generateCapacityReport(Double.parseDouble(args[2])));
+            } else {
+                Prediction saturation = predictor.predict(0.0);
+                double rate = Double.isInfinite(saturation.saturationThroughput) ? 1.0
+                        : 0.8 * saturation.saturationThroughput;
+                System.out.println(predictor.generateCapacityReport(rate));
+            }
+            System.out.println("=== VALIDATION AGAINST MEASURED RUN ===");
+            System.out.println(predictor.generateValidationReport());
+        } catch (Exception e) {
+            logger.error("Capacity prediction failed", e);
+        }
+    }
+}
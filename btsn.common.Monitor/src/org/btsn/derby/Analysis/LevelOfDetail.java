@@ -0,0 +1,217 @@
+package org.btsn.derby.Analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * LevelOfDetail - pre-aggregated buckets for drawing large runs
+ *
+ * Values are summed per lane into a fixed number of buckets along one axis
+ * (time for the spatial view, completion position for the Gantt chart) and
+ * folded pairwise into coarser levels. A view asks for the level whose
+ * buckets are about one pixel wide, so a repaint reads a bounded number of
+ * buckets per lane however many rows the run holds.
+ *
+ * Rows can be added while a run is still loading. Spreading a row over the
+ * buckets it covers is O(1) (interior buckets go through a difference array)
+ * and the coarser levels are rebuilt lazily, at O(buckets) cost, the next
+ * time they are read.
+ *
+ * Not thread-safe: the views add and read on the event dispatch thread.
+ */
+public class LevelOfDetail {
+
+    private final int series;
+    private final double axisStart;
+    private final double axisEnd;
+    private final int baseBuckets;
+    private final int levelCount;
+    private final double bucketWidth;
+
+    // Per lane: levels[level][series * buckets + bucket], level 0 is the finest
+    private final List<double[][]> lanes = new ArrayList<>();
+    // Per lane: pending interior weight per base bucket, folded into level 0 on rebuild
+    private final List<double[]> pending = new ArrayList<>();
+    private double[] peakTotals;
+    private boolean stale = false;
+
+    /**
+     * @param series     number of values kept per bucket (e.g. count, queue, service)
+     * @param axisStart  first axis value covered
+     * @param axisEnd    axis value just past the last one covered
+     * @param maxBuckets upper bound on the finest level; rounded down to a power of two
+     */
+    public LevelOfDetail(int series, double axisStart, double axisEnd, int maxBuckets) {
+        this.series = series;
+        this.axisStart = axisStart;
+        this.axisEnd = axisEnd > axisStart ? axisEnd : axisStart + 1;
+        this.baseBuckets = Integer.highestOneBit(Math.max(1, maxBuckets));
+        this.levelCount = Integer.numberOfTrailingZeros(baseBuckets) + 1;
+        this.bucketWidth = (this.axisEnd - axisStart) / baseBuckets;
+    }
+
+    public double getAxisStart() {
+        return axisStart;
+    }
+
+    public double getAxisEnd() {
+        return axisEnd;
+    }
+
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    /**
+     * True if the value falls inside the axis range this instance was sized for.
+     */
+    public boolean covers(double value) {
+        return value >= axisStart && value <= axisEnd;
+    }
+
+    /**
+     * Spread weight over the base buckets covered by [start, end), in
+     * proportion to the overlap. A zero-length interval lands in one bucket.
+     * Values outside the axis are clamped to its ends.
+     */
+    public void add(int lane, int seriesIndex, double start, double end, double weight) {
+        double[] base = lane(lane)[0];
+        int offset = seriesIndex * baseBuckets;
+        double from = clamp(start);
+        double to = clamp(end);
+        stale = true;
+
+        int first = bucketOf(from);
+        int last = bucketOf(to);
+        if (last > first && bucketStart(last) >= to) {
+            last--;  // Interval ends exactly on a bucket boundary
+        }
+        if (to <= from || first == last) {
+            base[offset + first] += weight;
+            return;
+        }
+
+        double density = weight / (to - from);
+        base[offset + first] += density * (bucketStart(first + 1) - from);
+        base[offset + last] += density * (to - bucketStart(last));
+        if (last - first > 1) {
+            double[] delta = pending.get(lane);
+            delta[offset + first + 1] += density * bucketWidth;
+            delta[offset + last] -= density * bucketWidth;
+        }
+    }
+
+    /**
+     * Coarsest level that still has at least the given number of buckets,
+     * i.e. buckets no wider than a pixel when pixels is the drawn width.
+     */
+    public int levelFor(int pixels) {
+        int level = 0;
+        while (level + 1 < levelCount && buckets(level + 1) >= pixels) {
+            level++;
+        }
+        return level;
+    }
+
+    public int buckets(int level) {
+        return baseBuckets >> level;
+    }
+
+    public double value(int level, int lane, int seriesIndex, int bucket) {
+        if (lane < 0 || lane >= lanes.size()) {
+            return 0;
+        }
+        ensureLevels();
+        return lanes.get(lane)[level][seriesIndex * buckets(level) + bucket];
+    }
+
+    /**
+     * Sum of every series in one bucket.
+     */
+    public double total(int level, int lane, int bucket) {
+        double sum = 0;
+        for (int s = 0; s < series; s++) {
+            sum += value(level, lane, s, bucket);
+        }
+        return sum;
+    }
+
+    /**
+     * Largest bucket total of any lane at this level, for scaling.
+     */
+    public double peakTotal(int level) {
+        ensureLevels();
+        return peakTotals[level];
+    }
+
+    private double[][] lane(int lane) {
+        while (lanes.size() <= lane) {
+            double[][] levels = new double[levelCount][];
+            for (int level = 0; level < levelCount; level++) {
+                levels[level] = new double[series * buckets(level)];
+            }
+            lanes.add(levels);
+            pending.add(new double[series * baseBuckets]);
+            stale = true;
+        }
+        return lanes.get(lane);
+    }
+
+    private void ensureLevels() {
+        if (!stale && peakTotals != null) {
+            return;
+        }
+        peakTotals = new double[levelCount];
+        for (int l = 0; l < lanes.size(); l++) {
+            double[][] levels = lanes.get(l);
+            double[] delta = pending.get(l);
+            for (int s = 0; s < series; s++) {
+                int offset = s * baseBuckets;
+                double running = 0;
+                for (int b = 0; b < baseBuckets; b++) {
+                    running += delta[offset + b];
+                    levels[0][offset + b] += running;
+                }
+            }
+            Arrays.fill(delta, 0);
+
+            for (int level = 1; level < levelCount; level++) {
+                double[] finer = levels[level - 1];
+                double[] coarser = levels[level];
+                int buckets = buckets(level);
+                for (int s = 0; s < series; s++) {
+                    for (int b = 0; b < buckets; b++) {
+                        coarser[s * buckets + b] = finer[s * buckets * 2 + 2 * b]
+                                + finer[s * buckets * 2 + 2 * b + 1];
+                    }
+                }
+            }
+
+            for (int level = 0; level < levelCount; level++) {
+                int buckets = buckets(level);
+                for (int b = 0; b < buckets; b++) {
+                    double sum = 0;
+                    for (int s = 0; s < series; s++) {
+                        sum += levels[level][s * buckets + b];
+                    }
+                    peakTotals[level] = Math.max(peakTotals[level], sum);
+                }
+            }
+        }
+        stale = false;
+    }
+
+    private double clamp(double value) {
+        return Math.max(axisStart, Math.min(axisEnd, value));
+    }
+
+    private int bucketOf(double value) {
+        int bucket = (int) ((value - axisStart) / bucketWidth);
+        return Math.max(0, Math.min(baseBuckets - 1, bucket));
+    }
+
+    private double bucketStart(int bucket) {
+        return axisStart + bucket * bucketWidth;
+    }
+}
@@ -14,9 +14,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.LongPredicate;
 
 import org.apache.log4j.Logger;
 import org.btsn.derby.Analysis.BuildServiceAnalysisDatabase;
+import org.btsn.constants.TokenId;
 import org.btsn.constants.VersionConstants;
 
 /**
@@ -49,15 +51,17 @@ import org.btsn.constants.VersionConstants;
  * that higher priority versions (lower version numbers) receive preferential
  * queue treatment. Detects priority inversions where low priority tokens are
  * processed before competing high priority tokens.
+ * 
+ * REPORTS:
+ * The query methods each run their own SQL. The reports and main() go
+ * through an AnalysisSession instead, which loads a workflowBase once and
+ * computes the analyses in parallel, memoized for the session.
  */
 public class PetriNetAnalyzer {
 
     private static final Logger logger = Logger.getLogger(PetriNetAnalyzer.class);
     private static final String DB_URL = "jdbc:derby:./ServiceAnalysisDataBase;create=true";
     
-    // Fork/Join token ID encoding constants - use centralized VersionConstants
-    private static final int TOKEN_INCREMENT = VersionConstants.TOKEN_INCREMENT;
-    
     private BuildServiceAnalysisDatabase db;
     
     public PetriNetAnalyzer() {
@@ -77,7 +81,7 @@ public class PetriNetAnalyzer {
      * 
      * NOTE: Derby requires CAST() when comparing VARCHAR with concatenated strings.
      */
-    public ArrayList<TokenPath> verifyTokenCompleteness(int workflowBase) {
+    public ArrayList<TokenPath> verifyTokenCompleteness(long workflowBase) {
         ArrayList<TokenPath> incompletePaths = new ArrayList<>();
         
         // Find entries that don't have a corresponding exit AFTER them
@@ -113,12 +117,12 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 TokenPath path = new TokenPath();
-                path.tokenId = rs.getInt("tokenId");
+                path.tokenId = rs.getLong("tokenId");
                 path.entryTime = rs.getLong("entryTime");
                 path.exitTime = 0; // Incomplete
                 path.placeName = rs.getString("toPlace");
@@ -144,8 +148,8 @@ public class PetriNetAnalyzer {
      * TRANSITION_FIRINGS (for observer services like MonitorService). We check both
      * using a UNION query.
      */
-    public ArrayList<Integer> getTerminatedTokens(int workflowBase) {
-        ArrayList<Integer> terminatedTokens = new ArrayList<>();
+    public ArrayList<Long> getTerminatedTokens(long workflowBase) {
+        ArrayList<Long> terminatedTokens = new ArrayList<>();
         
         // Check both tables for TERMINATE records using UNION
         String sql = 
@@ -161,12 +165,12 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
-            pstmt.setInt(2, workflowBase);
+            pstmt.setLong(1, workflowBase);
+            pstmt.setLong(2, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
-                terminatedTokens.add(rs.getInt("tokenId"));
+                terminatedTokens.add(rs.getLong("tokenId"));
             }
             
             logger.info("Found " + terminatedTokens.size() + " terminated tokens (checked both tables)");
@@ -193,7 +197,7 @@ public class PetriNetAnalyzer {
      * 
      * NOTE: Derby requires CAST() when comparing VARCHAR with concatenated strings.
      */
-    public ArrayList<TokenPath> getTokenPaths(int workflowBase) {
+    public ArrayList<TokenPath> getTokenPaths(long workflowBase) {
         ArrayList<TokenPath> paths = new ArrayList<>();
         
         // FIXED: Pair each entry with its corresponding NEXT exit
@@ -224,12 +228,12 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 TokenPath path = new TokenPath();
-                path.tokenId = rs.getInt("tokenId");
+                path.tokenId = rs.getLong("tokenId");
                 path.placeName = rs.getString("toPlace");
                 path.entryTime = rs.getLong("entryTime");
                 path.exitTime = rs.getLong("exitTime");
@@ -264,8 +268,8 @@ public class PetriNetAnalyzer {
      * 
      * @return ForkJoinAnalysis containing fork/join statistics
      */
-    public ForkJoinAnalysis analyzeForkJoin(int workflowBase) {
-        ForkJoinAnalysis analysis = new ForkJoinAnalysis();
+    public ForkJoinAnalysis analyzeForkJoin(long workflowBase) {
+        ArrayList<Long> tokenIds = new ArrayList<>();
         
         // Get all unique token IDs from the workflow
         String sql = "SELECT DISTINCT tokenId FROM CONSOLIDATED_TRANSITION_FIRINGS " +
@@ -274,100 +278,111 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
-            // Group tokens by their parent (for forked tokens) or self (for base tokens)
-            Map<Integer, Set<Integer>> parentToChildren = new HashMap<>();
-            Set<Integer> allTokens = new HashSet<>();
-            
             while (rs.next()) {
-                int tokenId = rs.getInt("tokenId");
-                allTokens.add(tokenId);
+                tokenIds.add(rs.getLong("tokenId"));
+            }
+            
+        } catch (SQLException e) {
+            logger.error("Error analyzing fork/join", e);
+            return new ForkJoinAnalysis();
+        }
+        
+        return analyzeForkJoin(tokenIds, tokenId -> hasExitedWorkflow(tokenId, workflowBase));
+    }
+    
+    /**
+     * Fork/join grouping of a workflow's tokens (in tokenId order), given
+     * how to tell whether a token has exited the workflow. Shared by the
+     * query above and AnalysisSession's in-memory run data.
+     */
+    ForkJoinAnalysis analyzeForkJoin(List<Long> tokenIds, LongPredicate hasExited) {
+        ForkJoinAnalysis analysis = new ForkJoinAnalysis();
+        
+        // Group tokens by their parent (for forked tokens) or self (for base tokens)
+        Map<Long, Set<Long>> parentToChildren = new HashMap<>();
+        
+        for (long tokenId : tokenIds) {
+            // Fork children carry their branch in the TokenId (1, 2, 3... for branches, 0 for parent)
+            int branchNumber = TokenId.branch(tokenId);
+            long parentTokenId = TokenId.parent(tokenId);
+            
+            // Check if this is a forked token (branchNumber >= 1)
+            boolean isForkedToken = (branchNumber >= 1);
+            
+            if (isForkedToken) {
+                parentToChildren.computeIfAbsent(parentTokenId, k -> new HashSet<>()).add(tokenId);
+                analysis.forkedTokens.add(tokenId);
+            } else {
+                // Base token (not forked, or the parent itself)
+                analysis.baseTokens.add(tokenId);
+            }
+        }
+        
+        // Analyze each fork group
+        for (Map.Entry<Long, Set<Long>> entry : parentToChildren.entrySet()) {
+            long parentId = entry.getKey();
+            Set<Long> children = entry.getValue();
+            
+            if (children.size() >= 2) {
+                ForkGroup group = new ForkGroup();
+                group.parentTokenId = parentId;
+                group.childTokenIds = new ArrayList<>(children);
+                group.expectedCount = children.size();
                 
-                // NEW ENCODING: childTokenId = parentTokenId + branchNumber
-                // branchNumber is simply tokenId % 100 (1, 2, 3... for branches, 0 for parent)
-                int branchNumber = tokenId % 100;
-                int parentTokenId = tokenId - branchNumber;
+                // Check which children completed (have T_out from join place)
+                // In a proper JOIN with base token reset:
+                // - ALL children are consumed by the join (none complete individually)
+                // - The PARENT (base) token continues after the join
+                for (long childId : children) {
+                    if (hasExited.test(childId)) {
+                        group.completedChildren.add(childId);
+                    } else {
+                        group.joinedChildren.add(childId);
+                    }
+                }
                 
-                // Check if this is a forked token (branchNumber >= 1)
-                boolean isForkedToken = (branchNumber >= 1);
+                // A successful join can happen in two scenarios:
+                //
+                // SCENARIO 1 (Legacy - one child survives):
+                //   One child completed (the "winning" sibling), others were joined
+                //   completedChildren.size() == 1 && joinedChildren.size() == expectedCount - 1
+                //
+                // SCENARIO 2 (Base token reset - preferred):
+                //   ALL children are consumed by the join (none complete individually)
+                //   The PARENT token continues after the join and eventually terminates
+                //   completedChildren.size() == 0 && joinedChildren.size() == expectedCount
+                //   AND parent token has exited/terminated
                 
-                if (isForkedToken) {
-                    parentToChildren.computeIfAbsent(parentTokenId, k -> new HashSet<>()).add(tokenId);
-                    analysis.forkedTokens.add(tokenId);
-                } else {
-                    // Base token (not forked, or the parent itself)
-                    analysis.baseTokens.add(tokenId);
+                boolean legacyJoin = (group.completedChildren.size() == 1 && 
+                                     group.joinedChildren.size() == group.expectedCount - 1);
+                
+                boolean baseTokenResetJoin = (group.completedChildren.size() == 0 && 
+                                              group.joinedChildren.size() == group.expectedCount &&
+                                              hasExited.test(parentId));
+                
+                group.joinSuccessful = legacyJoin || baseTokenResetJoin;
+                
+                if (baseTokenResetJoin) {
+                    logger.debug("Join " + parentId + ": Base token reset pattern - all " + 
+                               group.expectedCount + " children consumed, parent exited");
                 }
-            }
-            
-            // Analyze each fork group
-            for (Map.Entry<Integer, Set<Integer>> entry : parentToChildren.entrySet()) {
-                int parentId = entry.getKey();
-                Set<Integer> children = entry.getValue();
                 
-                if (children.size() >= 2) {
-                    ForkGroup group = new ForkGroup();
-                    group.parentTokenId = parentId;
-                    group.childTokenIds = new ArrayList<>(children);
-                    group.expectedCount = children.size();
-                    
-                    // Check which children completed (have T_out from join place)
-                    // In a proper JOIN with base token reset:
-                    // - ALL children are consumed by the join (none complete individually)
-                    // - The PARENT (base) token continues after the join
-                    for (int childId : children) {
-                        if (hasExitedWorkflow(childId, workflowBase)) {
-                            group.completedChildren.add(childId);
-                        } else {
-                            group.joinedChildren.add(childId);
-                        }
-                    }
-                    
-                    // A successful join can happen in two scenarios:
-                    //
-                    // SCENARIO 1 (Legacy - one child survives):
-                    //   One child completed (the "winning" sibling), others were joined
-                    //   completedChildren.size() == 1 && joinedChildren.size() == expectedCount - 1
-                    //
-                    // SCENARIO 2 (Base token reset - preferred):
-                    //   ALL children are consumed by the join (none complete individually)
-                    //   The PARENT token continues after the join and eventually terminates
-                    //   completedChildren.size() == 0 && joinedChildren.size() == expectedCount
-                    //   AND parent token has exited/terminated
-                    
-                    boolean legacyJoin = (group.completedChildren.size() == 1 && 
-                                         group.joinedChildren.size() == group.expectedCount - 1);
-                    
-                    boolean baseTokenResetJoin = (group.completedChildren.size() == 0 && 
-                                                  group.joinedChildren.size() == group.expectedCount &&
-                                                  hasExitedWorkflow(parentId, workflowBase));
-                    
-                    group.joinSuccessful = legacyJoin || baseTokenResetJoin;
-                    
-                    if (baseTokenResetJoin) {
-                        logger.debug("Join " + parentId + ": Base token reset pattern - all " + 
-                                   group.expectedCount + " children consumed, parent exited");
-                    }
-                    
-                    analysis.forkGroups.add(group);
-                    
-                    if (group.joinSuccessful) {
-                        analysis.successfulJoins++;
-                    }
+                analysis.forkGroups.add(group);
+                
+                if (group.joinSuccessful) {
+                    analysis.successfulJoins++;
                 }
             }
-            
-            analysis.totalForks = analysis.forkGroups.size();
-            
-            logger.info("Fork/Join analysis: " + analysis.totalForks + " forks, " + 
-                       analysis.successfulJoins + " successful joins");
-            
-        } catch (SQLException e) {
-            logger.error("Error analyzing fork/join", e);
         }
         
+        analysis.totalForks = analysis.forkGroups.size();
+        
+        logger.info("Fork/Join analysis: " + analysis.totalForks + " forks, " + 
+                   analysis.successfulJoins + " successful joins");
+        
         return analysis;
     }
     
@@ -396,7 +411,7 @@ public class PetriNetAnalyzer {
      * NOTE: Termination records may be in CONSOLIDATED_TRANSITION_FIRINGS or in
      * TRANSITION_FIRINGS (for observer services like MonitorService). We check both.
      */
-    private boolean hasExitedWorkflow(int tokenId, int workflowBase) {
+    private boolean hasExitedWorkflow(long tokenId, long workflowBase) {
         // First check if this is a forked token
         boolean isForkedToken = isForkedChildToken(tokenId);
         
@@ -413,24 +428,21 @@ public class PetriNetAnalyzer {
     
     /**
      * Check if a token ID represents a forked child token
-     * NEW ENCODING: childTokenId = parentTokenId + branchNumber
-     * branchNumber is 1-99, so forked tokens have (tokenId % 100) >= 1
-     * e.g., 1000001 = parent 1000000 + branch 1
+     * Forked tokens have a branch number >= 1 in their TokenId
+     * e.g., v001/42.1 = parent v001/42, branch 1
      */
-    private boolean isForkedChildToken(int tokenId) {
-        int branchNumber = tokenId % 100;
+    private boolean isForkedChildToken(long tokenId) {
+        int branchNumber = TokenId.branch(tokenId);
         // Forked tokens have branchNumber >= 1 (e.g., 1, 2, 3...)
         return branchNumber >= 1;
     }
     
     /**
      * Extract parent token ID from a forked child token
-     * NEW ENCODING: parentTokenId = childTokenId - branchNumber
-     * e.g., 1000001 -> 1000000, 1000002 -> 1000000
+     * e.g., v001/42.1 -> v001/42, v001/42.2 -> v001/42
      */
-    private int getParentTokenId(int childTokenId) {
-        int branchNumber = childTokenId % 100;
-        return childTokenId - branchNumber;
+    private long getParentTokenId(long childTokenId) {
+        return TokenId.parent(childTokenId);
     }
     
     /**
@@ -440,7 +452,7 @@ public class PetriNetAnalyzer {
      * A forked token has "exited" only if it reached TERMINATE.
      * If T_in == T_out but no TERMINATE, it was consumed by a join.
      */
-    private boolean hasForkedTokenExited(int tokenId, int workflowBase) {
+    private boolean hasForkedTokenExited(long tokenId, long workflowBase) {
         // For forked tokens, only TERMINATE counts as "exited"
         // Equal T_in/T_out means consumed by join, not completed
         String sql = 
@@ -454,10 +466,10 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, tokenId);
-            pstmt.setInt(2, workflowBase);
-            pstmt.setInt(3, tokenId);
-            pstmt.setInt(4, workflowBase);
+            pstmt.setLong(1, tokenId);
+            pstmt.setLong(2, workflowBase);
+            pstmt.setLong(3, tokenId);
+            pstmt.setLong(4, workflowBase);
             
             ResultSet rs = pstmt.executeQuery();
             
@@ -483,7 +495,7 @@ public class PetriNetAnalyzer {
     /**
      * Check if a base (non-forked) token has exited the workflow
      */
-    private boolean hasBaseTokenExited(int tokenId, int workflowBase) {
+    private boolean hasBaseTokenExited(long tokenId, long workflowBase) {
         // Check CONSOLIDATED_TRANSITION_FIRINGS for place-based counts
         // and check BOTH tables for TERMINATE records (Monitor writes to TRANSITION_FIRINGS)
         String sql = 
@@ -501,14 +513,14 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, tokenId);
-            pstmt.setInt(2, workflowBase);
-            pstmt.setInt(3, tokenId);
-            pstmt.setInt(4, workflowBase);
-            pstmt.setInt(5, tokenId);
-            pstmt.setInt(6, workflowBase);
-            pstmt.setInt(7, tokenId);
-            pstmt.setInt(8, workflowBase);
+            pstmt.setLong(1, tokenId);
+            pstmt.setLong(2, workflowBase);
+            pstmt.setLong(3, tokenId);
+            pstmt.setLong(4, workflowBase);
+            pstmt.setLong(5, tokenId);
+            pstmt.setLong(6, workflowBase);
+            pstmt.setLong(7, tokenId);
+            pstmt.setLong(8, workflowBase);
             
             ResultSet rs = pstmt.executeQuery();
             
@@ -545,12 +557,13 @@ public class PetriNetAnalyzer {
      * Get incomplete tokens excluding those that were correctly joined
      * This filters out sibling tokens that were consumed by a join
      */
-    public ArrayList<TokenPath> getActualIncompleteTokens(int workflowBase) {
-        ArrayList<TokenPath> allIncomplete = verifyTokenCompleteness(workflowBase);
-        ForkJoinAnalysis forkJoin = analyzeForkJoin(workflowBase);
-        
+    public ArrayList<TokenPath> getActualIncompleteTokens(long workflowBase) {
+        return getActualIncompleteTokens(verifyTokenCompleteness(workflowBase), analyzeForkJoin(workflowBase));
+    }
+    
+    ArrayList<TokenPath> getActualIncompleteTokens(ArrayList<TokenPath> allIncomplete, ForkJoinAnalysis forkJoin) {
         // Collect all tokens that were joined (consumed by join, not stuck)
-        Set<Integer> joinedTokens = new HashSet<>();
+        Set<Long> joinedTokens = new HashSet<>();
         for (ForkGroup group : forkJoin.forkGroups) {
             if (group.joinSuccessful) {
                 joinedTokens.addAll(group.joinedChildren);
@@ -581,7 +594,7 @@ public class PetriNetAnalyzer {
      * FIXED: Now computes statistics from correctly paired entry/exit events
      * instead of relying on pre-computed (potentially incorrect) values.
      */
-    public PlaceStatistics getPlaceStatistics(String placeName, int workflowBase) {
+    public PlaceStatistics getPlaceStatistics(String placeName, long workflowBase) {
         PlaceStatistics stats = new PlaceStatistics();
         stats.placeName = placeName;
         
@@ -596,7 +609,7 @@ public class PetriNetAnalyzer {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, placeName);
-            pstmt.setInt(2, workflowBase);
+            pstmt.setLong(2, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
@@ -627,7 +640,7 @@ public class PetriNetAnalyzer {
      * NOTE: Derby requires CAST() when comparing VARCHAR with concatenated strings
      * (which produce LONG VARCHAR). All string concatenations use explicit CAST.
      */
-    private PlaceStatistics computePlaceStatisticsFromFirings(String placeName, int workflowBase) {
+    private PlaceStatistics computePlaceStatisticsFromFirings(String placeName, long workflowBase) {
         PlaceStatistics stats = new PlaceStatistics();
         stats.placeName = placeName;
         
@@ -659,7 +672,7 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             pstmt.setString(2, placeName);
             pstmt.setString(3, placeName);
             ResultSet rs = pstmt.executeQuery();
@@ -681,7 +694,7 @@ public class PetriNetAnalyzer {
     /**
      * Get workflow throughput (tokens per second)
      */
-    public double getWorkflowThroughput(int workflowBase) {
+    public double getWorkflowThroughput(long workflowBase) {
         String sql = 
             "SELECT COUNT(*) as tokenCount, " +
             "       MAX(timestamp) - MIN(timestamp) as duration " +
@@ -692,7 +705,7 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
@@ -721,7 +734,7 @@ public class PetriNetAnalyzer {
     /**
      * Get marking evolution over time
      */
-    public ArrayList<MarkingSnapshot> getMarkingEvolution(String placeName, int workflowBase) {
+    public ArrayList<MarkingSnapshot> getMarkingEvolution(String placeName, long workflowBase) {
         ArrayList<MarkingSnapshot> snapshots = new ArrayList<>();
         
         String sql = 
@@ -735,12 +748,12 @@ public class PetriNetAnalyzer {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, placeName);
-            pstmt.setInt(2, workflowBase);
+            pstmt.setLong(2, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 MarkingSnapshot snapshot = new MarkingSnapshot();
-                snapshot.tokenId = rs.getInt("tokenId");
+                snapshot.tokenId = rs.getLong("tokenId");
                 snapshot.timestamp = rs.getLong("timestamp");
                 snapshot.marking = rs.getInt("marking");
                 snapshot.bufferSize = rs.getInt("bufferSize");
@@ -764,7 +777,7 @@ public class PetriNetAnalyzer {
      * These events are stored in CONSOLIDATED_TRANSITION_FIRINGS with eventType='GENERATED'
      * and are needed by TokenAnimator to determine when child tokens were created.
      */
-    public ArrayList<MarkingSnapshot> getGeneratedEvents(int workflowBase) {
+    public ArrayList<MarkingSnapshot> getGeneratedEvents(long workflowBase) {
         ArrayList<MarkingSnapshot> snapshots = new ArrayList<>();
         
         String sql = 
@@ -777,12 +790,12 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 MarkingSnapshot snapshot = new MarkingSnapshot();
-                snapshot.tokenId = rs.getInt("tokenId");
+                snapshot.tokenId = rs.getLong("tokenId");
                 snapshot.timestamp = rs.getLong("timestamp");
                 snapshot.marking = 0;  // GENERATED events don't have marking
                 snapshot.bufferSize = rs.getInt("bufferSize");
@@ -804,7 +817,7 @@ public class PetriNetAnalyzer {
     /**
      * Verify bounded capacity (marking never exceeds capacity)
      */
-    public boolean verifyBoundedCapacity(String placeName, int workflowBase, int expectedCapacity) {
+    public boolean verifyBoundedCapacity(String placeName, long workflowBase, int expectedCapacity) {
         String sql = 
             "SELECT MAX(marking) as maxMarking " +
             "FROM CONSOLIDATED_MARKING_EVOLUTION " +
@@ -815,7 +828,7 @@ public class PetriNetAnalyzer {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, placeName);
-            pstmt.setInt(2, workflowBase);
+            pstmt.setLong(2, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
@@ -843,7 +856,7 @@ public class PetriNetAnalyzer {
     /**
      * Analyze inter-arrival times (how tokens arrive at place)
      */
-    public ArrayList<InterArrival> getInterArrivalTimes(String placeName, int workflowBase) {
+    public ArrayList<InterArrival> getInterArrivalTimes(String placeName, long workflowBase) {
         ArrayList<InterArrival> arrivals = new ArrayList<>();
         
         String sql = 
@@ -858,7 +871,7 @@ public class PetriNetAnalyzer {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, placeName);
-            pstmt.setInt(2, workflowBase);
+            pstmt.setLong(2, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             boolean first = true;
@@ -869,7 +882,7 @@ public class PetriNetAnalyzer {
                 }
                 
                 InterArrival arrival = new InterArrival();
-                arrival.tokenId = rs.getInt("tokenId");
+                arrival.tokenId = rs.getLong("tokenId");
                 arrival.timestamp = rs.getLong("timestamp");
                 arrival.interArrivalTime = rs.getLong("interArrival");
                 arrivals.add(arrival);
@@ -928,7 +941,7 @@ public class PetriNetAnalyzer {
             while (rs.next()) {
                 ServiceContribution sc = new ServiceContribution();
                 sc.workflowBase = rs.getLong("WORKFLOWBASE");
-                sc.sequenceId = rs.getInt("SEQUENCEID");
+                sc.sequenceId = rs.getLong("SEQUENCEID");
                 sc.serviceName = rs.getString("SERVICENAME");
                 sc.arrivalTime = rs.getLong("ARRIVALTIME");
                 sc.queueTime = rs.getLong("QUEUETIME");
@@ -939,9 +952,8 @@ public class PetriNetAnalyzer {
                 // Derive version number from serviceName (v001 -> 1, v002 -> 2)
                 sc.versionNumber = Integer.parseInt(sc.serviceName.substring(1));
                 
-                // NEW ENCODING: childTokenId = parentTokenId + branchNumber
-                // branchNumber is tokenId % 100 (1, 2, 3... for branches, 0 for parent)
-                sc.branchNumber = sc.sequenceId % 100;
+                // Branch number from the TokenId (1, 2, 3... for branches, 0 for parent)
+                sc.branchNumber = TokenId.branch(sc.sequenceId);
                 sc.joinCount = 0;  // Not embedded in new encoding
                 sc.isForkedToken = (sc.branchNumber >= 1);
                 
@@ -1083,7 +1095,7 @@ public class PetriNetAnalyzer {
             
             while (rs.next()) {
                 long wb = rs.getLong("workflowBase");
-                int tokenId = rs.getInt("tokenId");
+                long tokenId = rs.getLong("tokenId");
                 long ts = rs.getLong("timestamp");
                 String place = rs.getString("toPlace");
                 
@@ -1420,7 +1432,10 @@ public class PetriNetAnalyzer {
      * Generate priority analysis report
      */
     public String generatePriorityReport() {
-        PriorityAnalysis analysis = analyzePriority();
+        return generatePriorityReport(analyzePriority());
+    }
+    
+    public String generatePriorityReport(PriorityAnalysis analysis) {
         StringBuilder report = new StringBuilder();
         
         report.append("\n=== PRIORITY ANALYSIS REPORT ===\n\n");
@@ -1609,7 +1624,11 @@ public class PetriNetAnalyzer {
      * Print priority report to console
      */
     public void printPriorityReport() {
-        String report = generatePriorityReport();
+        printPriorityReport(analyzePriority());
+    }
+    
+    public void printPriorityReport(PriorityAnalysis analysis) {
+        String report = generatePriorityReport(analysis);
         System.out.println(report);
         logger.info("Generated priority analysis report");
     }
@@ -1623,7 +1642,7 @@ public class PetriNetAnalyzer {
      */
     public static class ServiceContribution {
         public long workflowBase;
-        public int sequenceId;
+        public long sequenceId;
         public String serviceName;
         public String placeName;  // Actual Petri net service/place (e.g., RadiologyService)
         public long arrivalTime;
@@ -1729,14 +1748,25 @@ public class PetriNetAnalyzer {
     /**
      * Generate comprehensive workflow analysis report
      */
-    public String generateWorkflowReport(int workflowBase) {
+    public String generateWorkflowReport(long workflowBase) {
+        try (AnalysisSession session = new AnalysisSession(this)) {
+            return generateWorkflowReport(workflowBase, session);
+        }
+    }
+    
+    /**
+     * Generate the workflow report from a session's run data; the sections'
+     * analyses are started together and computed in parallel.
+     */
+    public String generateWorkflowReport(long workflowBase, AnalysisSession session) {
+        session.prefetch(workflowBase);
         StringBuilder report = new StringBuilder();
         
         report.append("=== PETRI NET ANALYSIS REPORT ===\n");
         report.append("Workflow Base: ").append(workflowBase).append("\n\n");
         
         // 1. Fork/Join Analysis (do this first to filter incomplete tokens)
-        ForkJoinAnalysis forkJoin = analyzeForkJoin(workflowBase);
+        ForkJoinAnalysis forkJoin = session.analyzeForkJoin(workflowBase);
         report.append("1. FORK/JOIN ANALYSIS\n");
         if (forkJoin.totalForks == 0) {
             report.append("   No fork/join patterns detected\n");
@@ -1755,9 +1785,9 @@ public class PetriNetAnalyzer {
         report.append("\n");
         
         // 2. Token completeness (excluding correctly joined tokens and terminated tokens)
-        ArrayList<TokenPath> rawIncomplete = verifyTokenCompleteness(workflowBase);
-        ArrayList<TokenPath> actualIncomplete = getActualIncompleteTokens(workflowBase);
-        ArrayList<Integer> terminatedTokens = getTerminatedTokens(workflowBase);
+        ArrayList<TokenPath> rawIncomplete = session.verifyTokenCompleteness(workflowBase);
+        ArrayList<TokenPath> actualIncomplete = session.getActualIncompleteTokens(workflowBase);
+        ArrayList<Long> terminatedTokens = session.getTerminatedTokens(workflowBase);
         
         report.append("2. TOKEN COMPLETENESS\n");
         if (actualIncomplete.isEmpty()) {
@@ -1780,15 +1810,15 @@ public class PetriNetAnalyzer {
         report.append("\n");
         
         // 3. Throughput
-        double throughput = getWorkflowThroughput(workflowBase);
+        double throughput = session.getWorkflowThroughput(workflowBase);
         report.append("3. THROUGHPUT\n");
         report.append("   ").append(String.format("%.2f", throughput)).append(" tokens/second\n\n");
         
         // 4. Get all places and analyze each
         report.append("4. PLACE STATISTICS\n");
-        ArrayList<String> places = getAllPlaces(workflowBase);
+        ArrayList<String> places = session.getAllPlaces(workflowBase);
         for (String place : places) {
-            PlaceStatistics stats = getPlaceStatistics(place, workflowBase);
+            PlaceStatistics stats = session.getPlaceStatistics(place, workflowBase);
             report.append("   Place: ").append(place).append("\n");
             report.append("     Tokens: ").append(stats.tokenCount).append("\n");
             report.append("     Avg residence: ").append(String.format("%.1f", stats.avgResidenceTime)).append("ms\n");
@@ -1800,14 +1830,14 @@ public class PetriNetAnalyzer {
         // 5. Capacity verification
         report.append("5. CAPACITY VERIFICATION\n");
         for (String place : places) {
-            boolean bounded = verifyBoundedCapacity(place, workflowBase, 50); // Assuming capacity=50
+            boolean bounded = session.verifyBoundedCapacity(place, workflowBase, 50); // Assuming capacity=50
             report.append("   ").append(place).append(": ")
                   .append(bounded ? "[OK] BOUNDED" : "[FAIL] EXCEEDED").append("\n");
         }
         
         // 6. Data quality check
         report.append("\n6. DATA QUALITY\n");
-        ArrayList<TokenPath> allPaths = getTokenPaths(workflowBase);
+        ArrayList<TokenPath> allPaths = session.getTokenPaths(workflowBase);
         long negativePaths = allPaths.stream().filter(p -> p.residenceTime < 0).count();
         if (negativePaths == 0) {
             report.append("   [OK] All residence times are non-negative\n");
@@ -1837,7 +1867,7 @@ public class PetriNetAnalyzer {
   * @param workflowBase Workflow base ID
   * @return Complete genealogy analysis
   */
- public GenealogyAnalysis analyzeGenealogy(int workflowBase) {
+ public GenealogyAnalysis analyzeGenealogy(long workflowBase) {
      GenealogyAnalysis genealogy = new GenealogyAnalysis();
      
      try (Connection conn = getConnection();
@@ -1849,85 +1879,96 @@ public class PetriNetAnalyzer {
                       "ORDER BY tokenId";
          
          ResultSet rs = stmt.executeQuery(sql);
-         Set<Integer> allTokens = new HashSet<>();
+         Set<Long> allTokens = new HashSet<>();
          
          while (rs.next()) {
-             allTokens.add(rs.getInt("tokenId"));
+             allTokens.add(rs.getLong("tokenId"));
          }
          
-         logger.info("GENEALOGY: Found " + allTokens.size() + " tokens for workflow " + workflowBase);
+         return analyzeGenealogy(allTokens, workflowBase);
+         
+     } catch (SQLException e) {
+         logger.error("Error analyzing genealogy for workflow " + workflowBase, e);
+     }
+     
+     return genealogy;
+ }
+
+ /**
+  * Genealogy of a workflow's tokens; shared by the query above and
+  * AnalysisSession's in-memory run data.
+  */
+ GenealogyAnalysis analyzeGenealogy(Set<Long> allTokens, long workflowBase) {
+     GenealogyAnalysis genealogy = new GenealogyAnalysis();
+     
+     logger.info("GENEALOGY: Found " + allTokens.size() + " tokens for workflow " + workflowBase);
+     
+     // Build genealogy tree
+     Map<Long, TokenNode> tokenNodes = new HashMap<>();
+     
+     for (long tokenId : allTokens) {
+         TokenNode node = new TokenNode();
+         node.tokenId = tokenId;
          
-         // Build genealogy tree
-         Map<Integer, TokenNode> tokenNodes = new HashMap<>();
+         // Branch number from the TokenId (1, 2, 3... for branches, 0 for parent)
+         int branchNumber = TokenId.branch(tokenId);
          
-         for (int tokenId : allTokens) {
-             TokenNode node = new TokenNode();
-             node.tokenId = tokenId;
+         if (branchNumber >= 1) {
+             // This is a forked token
+             long parentId = TokenId.parent(tokenId);
+             node.parentTokenId = parentId;
+             node.generation = 1;  // Will be updated if parent is also forked
              
-             // NEW ENCODING: childTokenId = parentTokenId + branchNumber
-             // branchNumber is tokenId % 100 (1, 2, 3... for branches, 0 for parent)
-             int branchNumber = tokenId % 100;
+             // Extract fork info - with new encoding, we don't have joinCount embedded
+             // Just store the branch number
+             node.joinCount = 0;  // Will be computed from sibling count if needed
+             node.branchNumber = branchNumber;
              
-             if (branchNumber >= 1) {
-                 // This is a forked token
-                 int parentId = tokenId - branchNumber;
-                 node.parentTokenId = parentId;
-                 node.generation = 1;  // Will be updated if parent is also forked
-                 
-                 // Extract fork info - with new encoding, we don't have joinCount embedded
-                 // Just store the branch number
-                 node.joinCount = 0;  // Will be computed from sibling count if needed
-                 node.branchNumber = branchNumber;
-                 
-                 genealogy.forkedTokens.add(tokenId);
-             } else {
-                 // Base token (root of family tree)
-                 node.parentTokenId = -1;
-                 node.generation = 0;
-                 genealogy.rootTokens.add(tokenId);
-             }
-             
-             tokenNodes.put(tokenId, node);
+             genealogy.forkedTokens.add(tokenId);
+         } else {
+             // Base token (root of family tree)
+             node.parentTokenId = -1;
+             node.generation = 0;
+             genealogy.rootTokens.add(tokenId);
          }
          
-         // Build parent-child links
-         for (TokenNode node : tokenNodes.values()) {
-             if (node.parentTokenId != -1 && tokenNodes.containsKey(node.parentTokenId)) {
-                 TokenNode parent = tokenNodes.get(node.parentTokenId);
-                 parent.children.add(node.tokenId);
-                 node.generation = parent.generation + 1;
-                 genealogy.maxGeneration = Math.max(genealogy.maxGeneration, node.generation);
-             }
-         }
-         
-         // Build lineage paths for each token
-         for (int tokenId : allTokens) {
-             ArrayList<Integer> lineage = buildLineage(tokenId, tokenNodes);
-             genealogy.lineages.put(tokenId, lineage);
-             
-             TokenNode node = tokenNodes.get(tokenId);
-             if (node != null) {
-                 genealogy.tokensByGeneration.computeIfAbsent(node.generation, k -> new ArrayList<>()).add(tokenId);
-             }
+         tokenNodes.put(tokenId, node);
+     }
+     
+     // Build parent-child links
+     for (TokenNode node : tokenNodes.values()) {
+         if (node.parentTokenId != -1 && tokenNodes.containsKey(node.parentTokenId)) {
+             TokenNode parent = tokenNodes.get(node.parentTokenId);
+             parent.children.add(node.tokenId);
+             node.generation = parent.generation + 1;
+             genealogy.maxGeneration = Math.max(genealogy.maxGeneration, node.generation);
          }
+     }
+     
+     // Build lineage paths for each token
+     for (long tokenId : allTokens) {
+         ArrayList<Long> lineage = buildLineage(tokenId, tokenNodes);
+         genealogy.lineages.put(tokenId, lineage);
          
-         // Identify complete families
-         for (int rootId : genealogy.rootTokens) {
-             TokenFamily family = buildFamily(rootId, tokenNodes);
-             genealogy.families.add(family);
+         TokenNode node = tokenNodes.get(tokenId);
+         if (node != null) {
+             genealogy.tokensByGeneration.computeIfAbsent(node.generation, k -> new ArrayList<>()).add(tokenId);
          }
-         
-         genealogy.totalTokens = allTokens.size();
-         genealogy.tokenNodes = tokenNodes;
-         
-         logger.info("GENEALOGY: " + genealogy.rootTokens.size() + " root tokens, " +
-                    genealogy.forkedTokens.size() + " forked tokens, " +
-                    genealogy.maxGeneration + " max generation depth");
-         
-     } catch (SQLException e) {
-         logger.error("Error analyzing genealogy for workflow " + workflowBase, e);
      }
      
+     // Identify complete families
+     for (long rootId : genealogy.rootTokens) {
+         TokenFamily family = buildFamily(rootId, tokenNodes);
+         genealogy.families.add(family);
+     }
+     
+     genealogy.totalTokens = allTokens.size();
+     genealogy.tokenNodes = tokenNodes;
+     
+     logger.info("GENEALOGY: " + genealogy.rootTokens.size() + " root tokens, " +
+                genealogy.forkedTokens.size() + " forked tokens, " +
+                genealogy.maxGeneration + " max generation depth");
+     
      return genealogy;
  }
 
@@ -1935,9 +1976,9 @@ public class PetriNetAnalyzer {
   * Build lineage path from token back to root
   * Returns: [root, parent, grandparent, ..., token]
   */
- private ArrayList<Integer> buildLineage(int tokenId, Map<Integer, TokenNode> nodes) {
-     ArrayList<Integer> lineage = new ArrayList<>();
-     int currentId = tokenId;
+ private ArrayList<Long> buildLineage(long tokenId, Map<Long, TokenNode> nodes) {
+     ArrayList<Long> lineage = new ArrayList<>();
+     long currentId = tokenId;
      
      while (currentId != -1) {
          lineage.add(0, currentId);  // Add at beginning
@@ -1954,12 +1995,12 @@ public class PetriNetAnalyzer {
  /**
   * Build complete family tree starting from a root token
   */
- private TokenFamily buildFamily(int rootId, Map<Integer, TokenNode> nodes) {
+ private TokenFamily buildFamily(long rootId, Map<Long, TokenNode> nodes) {
      TokenFamily family = new TokenFamily();
      family.rootTokenId = rootId;
      
      // Traverse tree depth-first
-     Set<Integer> visited = new HashSet<>();
+     Set<Long> visited = new HashSet<>();
      collectDescendants(rootId, nodes, visited, family);
      
      family.totalMembers = visited.size();
@@ -1970,8 +2011,8 @@ public class PetriNetAnalyzer {
  /**
   * Recursively collect all descendants
   */
- private void collectDescendants(int tokenId, Map<Integer, TokenNode> nodes, 
-                                  Set<Integer> visited, TokenFamily family) {
+ private void collectDescendants(long tokenId, Map<Long, TokenNode> nodes, 
+                                  Set<Long> visited, TokenFamily family) {
      if (visited.contains(tokenId)) {
          return;
      }
@@ -1981,7 +2022,7 @@ public class PetriNetAnalyzer {
      
      TokenNode node = nodes.get(tokenId);
      if (node != null && !node.children.isEmpty()) {
-         for (int childId : node.children) {
+         for (long childId : node.children) {
              family.descendants.add(childId);
              collectDescendants(childId, nodes, visited, family);
          }
@@ -1991,8 +2032,8 @@ public class PetriNetAnalyzer {
  /**
   * Get siblings of a token (tokens with same parent)
   */
- public ArrayList<Integer> getSiblings(int tokenId, GenealogyAnalysis genealogy) {
-     ArrayList<Integer> siblings = new ArrayList<>();
+ public ArrayList<Long> getSiblings(long tokenId, GenealogyAnalysis genealogy) {
+     ArrayList<Long> siblings = new ArrayList<>();
      
      TokenNode node = genealogy.tokenNodes.get(tokenId);
      if (node == null || node.parentTokenId == -1) {
@@ -2001,7 +2042,7 @@ public class PetriNetAnalyzer {
      
      TokenNode parent = genealogy.tokenNodes.get(node.parentTokenId);
      if (parent != null) {
-         for (int siblingId : parent.children) {
+         for (long siblingId : parent.children) {
              if (siblingId != tokenId) {
                  siblings.add(siblingId);
              }
@@ -2014,8 +2055,8 @@ public class PetriNetAnalyzer {
  /**
   * Get all ancestors of a token
   */
- public ArrayList<Integer> getAncestors(int tokenId, GenealogyAnalysis genealogy) {
-     ArrayList<Integer> ancestors = new ArrayList<>();
+ public ArrayList<Long> getAncestors(long tokenId, GenealogyAnalysis genealogy) {
+     ArrayList<Long> ancestors = new ArrayList<>();
      
      TokenNode node = genealogy.tokenNodes.get(tokenId);
      while (node != null && node.parentTokenId != -1) {
@@ -2029,17 +2070,17 @@ public class PetriNetAnalyzer {
  /**
   * Get all descendants of a token
   */
- public ArrayList<Integer> getDescendants(int tokenId, GenealogyAnalysis genealogy) {
-     ArrayList<Integer> descendants = new ArrayList<>();
-     Set<Integer> visited = new HashSet<>();
+ public ArrayList<Long> getDescendants(long tokenId, GenealogyAnalysis genealogy) {
+     ArrayList<Long> descendants = new ArrayList<>();
+     Set<Long> visited = new HashSet<>();
      
      collectAllDescendants(tokenId, genealogy.tokenNodes, visited, descendants);
      
      return descendants;
  }
 
- private void collectAllDescendants(int tokenId, Map<Integer, TokenNode> nodes,
-                                    Set<Integer> visited, ArrayList<Integer> descendants) {
+ private void collectAllDescendants(long tokenId, Map<Long, TokenNode> nodes,
+                                    Set<Long> visited, ArrayList<Long> descendants) {
      TokenNode node = nodes.get(tokenId);
      if (node == null || visited.contains(tokenId)) {
          return;
@@ -2047,7 +2088,7 @@ public class PetriNetAnalyzer {
      
      visited.add(tokenId);
      
-     for (int childId : node.children) {
+     for (long childId : node.children) {
          descendants.add(childId);
          collectAllDescendants(childId, nodes, visited, descendants);
      }
@@ -2056,8 +2097,14 @@ public class PetriNetAnalyzer {
  /**
   * Print genealogy report
   */
- public void printGenealogyReport(int workflowBase) {
-     GenealogyAnalysis genealogy = analyzeGenealogy(workflowBase);
+ public void printGenealogyReport(long workflowBase) {
+     try (AnalysisSession session = new AnalysisSession(this)) {
+         printGenealogyReport(workflowBase, session);
+     }
+ }
+
+ public void printGenealogyReport(long workflowBase, AnalysisSession session) {
+     GenealogyAnalysis genealogy = session.analyzeGenealogy(workflowBase);
      
      System.out.println("\n=== TOKEN GENEALOGY REPORT ===");
      System.out.println("Workflow Base: " + workflowBase);
@@ -2070,7 +2117,7 @@ public class PetriNetAnalyzer {
      // Print generation distribution
      System.out.println("\n--- Generation Distribution ---");
      for (int gen = 0; gen <= genealogy.maxGeneration; gen++) {
-         ArrayList<Integer> tokens = genealogy.tokensByGeneration.get(gen);
+         ArrayList<Long> tokens = genealogy.tokensByGeneration.get(gen);
          if (tokens != null) {
              System.out.println("Generation " + gen + ": " + tokens.size() + " tokens");
          }
@@ -2084,8 +2131,8 @@ public class PetriNetAnalyzer {
          System.out.println("  Direct descendants: " + family.descendants.size());
          
          // Print lineages for this family
-         for (int memberId : family.allMembers) {
-             ArrayList<Integer> lineage = genealogy.lineages.get(memberId);
+         for (long memberId : family.allMembers) {
+             ArrayList<Long> lineage = genealogy.lineages.get(memberId);
              if (lineage.size() > 1) {  // Skip root (no lineage)
                  System.out.print("  Lineage: ");
                  for (int i = 0; i < lineage.size(); i++) {
@@ -2117,12 +2164,12 @@ public class PetriNetAnalyzer {
  public static class GenealogyAnalysis {
      public int totalTokens;
      public int maxGeneration;
-     public Set<Integer> rootTokens = new HashSet<>();
-     public Set<Integer> forkedTokens = new HashSet<>();
-     public Map<Integer, ArrayList<Integer>> tokensByGeneration = new HashMap<>();
-     public Map<Integer, ArrayList<Integer>> lineages = new HashMap<>();
+     public Set<Long> rootTokens = new HashSet<>();
+     public Set<Long> forkedTokens = new HashSet<>();
+     public Map<Integer, ArrayList<Long>> tokensByGeneration = new HashMap<>();
+     public Map<Long, ArrayList<Long>> lineages = new HashMap<>();
      public ArrayList<TokenFamily> families = new ArrayList<>();
-     public Map<Integer, TokenNode> tokenNodes = new HashMap<>();
+     public Map<Long, TokenNode> tokenNodes = new HashMap<>();
      
      @Override
      public String toString() {
@@ -2138,12 +2185,12 @@ public class PetriNetAnalyzer {
   * A token in the genealogy tree
   */
  public static class TokenNode {
-     public int tokenId;
-     public int parentTokenId = -1;
+     public long tokenId;
+     public long parentTokenId = -1;
      public int generation = 0;
      public int joinCount = 0;
      public int branchNumber = 0;
-     public ArrayList<Integer> children = new ArrayList<>();
+     public ArrayList<Long> children = new ArrayList<>();
      
      @Override
      public String toString() {
@@ -2158,10 +2205,10 @@ public class PetriNetAnalyzer {
   * A complete family tree (root + all descendants)
   */
  public static class TokenFamily {
-     public int rootTokenId;
+     public long rootTokenId;
      public int totalMembers;
-     public ArrayList<Integer> allMembers = new ArrayList<>();
-     public ArrayList<Integer> descendants = new ArrayList<>();
+     public ArrayList<Long> allMembers = new ArrayList<>();
+     public ArrayList<Long> descendants = new ArrayList<>();
      
      @Override
      public String toString() {
@@ -2174,8 +2221,14 @@ public class PetriNetAnalyzer {
     /**
      * Print workflow report to console
      */
-    public void printWorkflowReport(int workflowBase) {
-        String report = generateWorkflowReport(workflowBase);
+    public void printWorkflowReport(long workflowBase) {
+        try (AnalysisSession session = new AnalysisSession(this)) {
+            printWorkflowReport(workflowBase, session);
+        }
+    }
+    
+    public void printWorkflowReport(long workflowBase, AnalysisSession session) {
+        String report = generateWorkflowReport(workflowBase, session);
         System.out.println(report);
         logger.info("Generated workflow report for workflowBase=" + workflowBase);
     }
@@ -2184,7 +2237,7 @@ public class PetriNetAnalyzer {
     // HELPER METHODS
     // =============================================================================
     
-    public ArrayList<String> getAllPlaces(int workflowBase) {
+    public ArrayList<String> getAllPlaces(long workflowBase) {
         ArrayList<String> places = new ArrayList<>();
         
         String sql = 
@@ -2197,7 +2250,7 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
@@ -2211,7 +2264,7 @@ public class PetriNetAnalyzer {
         return places;
     }
     
-    private Connection getConnection() throws SQLException {
+    Connection getConnection() throws SQLException {
         return DriverManager.getConnection(DB_URL);
     }
     
@@ -2220,7 +2273,7 @@ public class PetriNetAnalyzer {
     // =============================================================================
     
     public static class TokenPath {
-        public int tokenId;
+        public long tokenId;
         public String placeName;
         public long entryTime;
         public long exitTime;
@@ -2250,7 +2303,7 @@ public class PetriNetAnalyzer {
     }
     
     public static class MarkingSnapshot {
-        public int tokenId;
+        public long tokenId;
         public long timestamp;
         public int marking;
         public int bufferSize;
@@ -2260,7 +2313,7 @@ public class PetriNetAnalyzer {
     }
     
     public static class InterArrival {
-        public int tokenId;
+        public long tokenId;
         public long timestamp;
         public long interArrivalTime;
     }
@@ -2271,8 +2324,8 @@ public class PetriNetAnalyzer {
     public static class ForkJoinAnalysis {
         public int totalForks = 0;
         public int successfulJoins = 0;
-        public Set<Integer> baseTokens = new HashSet<>();
-        public Set<Integer> forkedTokens = new HashSet<>();
+        public Set<Long> baseTokens = new HashSet<>();
+        public Set<Long> forkedTokens = new HashSet<>();
         public ArrayList<ForkGroup> forkGroups = new ArrayList<>();
         
         @Override
@@ -2286,11 +2339,11 @@ public class PetriNetAnalyzer {
      * A group of sibling tokens from a single fork
      */
     public static class ForkGroup {
-        public int parentTokenId;
-        public ArrayList<Integer> childTokenIds = new ArrayList<>();
+        public long parentTokenId;
+        public ArrayList<Long> childTokenIds = new ArrayList<>();
         public int expectedCount;
-        public ArrayList<Integer> completedChildren = new ArrayList<>();  // Exited workflow
-        public ArrayList<Integer> joinedChildren = new ArrayList<>();      // Consumed by join
+        public ArrayList<Long> completedChildren = new ArrayList<>();  // Exited workflow
+        public ArrayList<Long> joinedChildren = new ArrayList<>();      // Consumed by join
         public boolean joinSuccessful = false;
         
         @Override
@@ -2308,8 +2361,8 @@ public class PetriNetAnalyzer {
     /**
      * Get all distinct workflowBase values from the database
      */
-    public ArrayList<Integer> getAllWorkflowBases() {
-        ArrayList<Integer> workflowBases = new ArrayList<>();
+    public ArrayList<Long> getAllWorkflowBases() {
+        ArrayList<Long> workflowBases = new ArrayList<>();
         
         String sql = "SELECT DISTINCT workflowBase FROM CONSOLIDATED_TRANSITION_FIRINGS ORDER BY workflowBase";
         
@@ -2318,7 +2371,7 @@ public class PetriNetAnalyzer {
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                workflowBases.add(rs.getInt("workflowBase"));
+                workflowBases.add(rs.getLong("workflowBase"));
             }
             
             logger.info("Found " + workflowBases.size() + " distinct workflowBases: " + workflowBases);
@@ -2335,21 +2388,21 @@ public class PetriNetAnalyzer {
         
         // Check for --all flag to analyze all workflow bases
         boolean analyzeAll = false;
-        int specificWorkflowBase = -1;
+        long specificWorkflowBase = -1;
         
         for (String arg : args) {
             if ("--all".equals(arg) || "-a".equals(arg)) {
                 analyzeAll = true;
             } else {
                 try {
-                    specificWorkflowBase = Integer.parseInt(arg);
+                    specificWorkflowBase = TokenId.parse(arg);
                 } catch (NumberFormatException e) {
                     // Ignore invalid numbers
                 }
             }
         }
         
-        ArrayList<Integer> workflowBases;
+        ArrayList<Long> workflowBases;
         
         if (analyzeAll) {
             // Analyze all workflow bases found in database
@@ -2369,27 +2422,40 @@ public class PetriNetAnalyzer {
             if (workflowBases.isEmpty()) {
                 // Fallback to legacy default using VersionConstants
                 workflowBases = new ArrayList<>();
-                workflowBases.add(VersionConstants.V001_BASE);
+                workflowBases.add((long) VersionConstants.V001_BASE);
                 System.out.println("No workflow bases found, using default: " + VersionConstants.V001_BASE);
             } else {
                 System.out.println("Auto-detected " + workflowBases.size() + " workflow bases: " + workflowBases);
             }
         }
         
+        // One session for the whole run: every workflow base is loaded once,
+        // the bases and the priority analysis are computed in parallel, and
+        // the reports below are printed in order from the memoized results
+        try (AnalysisSession session = new AnalysisSession(analyzer)) {
+            for (long workflowBase : workflowBases) {
+                session.prefetch(workflowBase);
+            }
+            session.prefetchPriority();
+            printReports(analyzer, session, workflowBases);
+        }
+    }
+    
+    private static void printReports(PetriNetAnalyzer analyzer, AnalysisSession session, ArrayList<Long> workflowBases) {
         // Print report for each workflow base
-        for (int workflowBase : workflowBases) {
-            String versionStr = VersionConstants.getVersionString(workflowBase);
+        for (long workflowBase : workflowBases) {
+            String versionStr = VersionConstants.getVersionFromSequenceId(workflowBase);
             System.out.println("\n" + "=".repeat(80));
             System.out.println("WORKFLOW BASE: " + workflowBase + " (" + versionStr + ")");
             System.out.println("=".repeat(80));
             
             // Print full report (now includes fork/join analysis)
-            analyzer.printWorkflowReport(workflowBase);
-            analyzer.printGenealogyReport(workflowBase);
+            analyzer.printWorkflowReport(workflowBase, session);
+            analyzer.printGenealogyReport(workflowBase, session);
             
             // Get detailed token paths
             System.out.println("\n=== TOKEN PATHS ===");
-            ArrayList<TokenPath> paths = analyzer.getTokenPaths(workflowBase);
+            ArrayList<TokenPath> paths = session.getTokenPaths(workflowBase);
             for (TokenPath path : paths) {
                 System.out.println("Token " + path.tokenId + " at " + path.placeName + 
                                  ": residence=" + path.residenceTime + "ms");
@@ -2400,7 +2466,7 @@ public class PetriNetAnalyzer {
             
             // First, output GENERATED events from Event Generator
             // These are needed by TokenAnimator to know when child tokens were created
-            ArrayList<MarkingSnapshot> generatedEvents = analyzer.getGeneratedEvents(workflowBase);
+            ArrayList<MarkingSnapshot> generatedEvents = session.getGeneratedEvents(workflowBase);
             for (MarkingSnapshot snap : generatedEvents) {
                 // Output in same format as other marking events, with Place= showing destination
                 System.out.println("Time=" + snap.timestamp + 
@@ -2414,9 +2480,9 @@ public class PetriNetAnalyzer {
             }
             
             // Then output marking evolution for each place
-            ArrayList<String> allPlaces = analyzer.getAllPlaces(workflowBase);
+            ArrayList<String> allPlaces = session.getAllPlaces(workflowBase);
             for (String placeName : allPlaces) {
-                ArrayList<MarkingSnapshot> markings = analyzer.getMarkingEvolution(placeName, workflowBase);
+                ArrayList<MarkingSnapshot> markings = session.getMarkingEvolution(placeName, workflowBase);
                 for (MarkingSnapshot snap : markings) {
                     System.out.println("Time=" + snap.timestamp + 
                                      " Token=" + snap.tokenId + 
@@ -2434,6 +2500,6 @@ public class PetriNetAnalyzer {
         System.out.println("\n" + "=".repeat(80));
         System.out.println("CROSS-VERSION PRIORITY ANALYSIS");
         System.out.println("=".repeat(80));
-        analyzer.printPriorityReport();
+        analyzer.printPriorityReport(session.analyzePriority());
     }
 }
\ No newline at end of file
@@ -17,6 +17,7 @@ import java.util.TreeMap;
 
 import org.apache.log4j.Logger;
 import org.btsn.derby.Analysis.BuildServiceAnalysisDatabase;
+import org.btsn.constants.TokenId;
 import org.btsn.constants.VersionConstants;
 
 /**
@@ -55,9 +56,6 @@ public class PetriNetAnalyzer2 {
     private static final Logger logger = Logger.getLogger(PetriNetAnalyzer2.class);
     private static final String DB_URL = "jdbc:derby:./ServiceAnalysisDataBase;create=true";
     
-    // Fork/Join token ID encoding constants - use centralized VersionConstants
-    private static final int TOKEN_INCREMENT = VersionConstants.TOKEN_INCREMENT;
-    
     private BuildServiceAnalysisDatabase db;
     
     public PetriNetAnalyzer2() {
@@ -77,7 +75,7 @@ public class PetriNetAnalyzer2 {
      * 
      * NOTE: Derby requires CAST() when comparing VARCHAR with concatenated strings.
      */
-    public ArrayList<TokenPath> verifyTokenCompleteness(int workflowBase) {
+    public ArrayList<TokenPath> verifyTokenCompleteness(long workflowBase) {
         ArrayList<TokenPath> incompletePaths = new ArrayList<>();
         
         // Find entries that don't have a corresponding exit AFTER them
@@ -113,12 +111,12 @@ public class PetriNetAnalyzer2 {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 TokenPath path = new TokenPath();
-                path.tokenId = rs.getInt("tokenId");
+                path.tokenId = rs.getLong("tokenId");
                 path.entryTime = rs.getLong("entryTime");
                 path.exitTime = 0; // Incomplete
                 path.placeName = rs.getString("toPlace");
@@ -144,8 +142,8 @@ public class PetriNetAnalyzer2 {
      * TRANSITION_FIRINGS (for observer services like MonitorService). We check both
      * using a UNION query.
      */
-    public ArrayList<Integer> getTerminatedTokens(int workflowBase) {
-        ArrayList<Integer> terminatedTokens = new ArrayList<>();
+    public ArrayList<Long> getTerminatedTokens(long workflowBase) {
+        ArrayList<Long> terminatedTokens = new ArrayList<>();
         
         // Check both tables for TERMINATE records using UNION
         String sql = 
@@ -161,12 +159,12 @@ public class PetriNetAnalyzer2 {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
-            pstmt.setInt(2, workflowBase);
+            pstmt.setLong(1, workflowBase);
+            pstmt.setLong(2, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
-                terminatedTokens.add(rs.getInt("tokenId"));
+                terminatedTokens.add(rs.getLong("tokenId"));
             }
             
             logger.info("Found " + terminatedTokens.size() + " terminated tokens (checked both tables)");
@@ -193,7 +191,7 @@ public class PetriNetAnalyzer2 {
      * 
      * NOTE: Derby requires CAST() when comparing VARCHAR with concatenated strings.
      */
-    public ArrayList<TokenPath> getTokenPaths(int workflowBase) {
+    public ArrayList<TokenPath> getTokenPaths(long workflowBase) {
         ArrayList<TokenPath> paths = new ArrayList<>();
         
         // FIXED: Pair each entry with its corresponding NEXT exit
@@ -224,12 +222,12 @@ public class PetriNetAnalyzer2 {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 TokenPath path = new TokenPath();
-                path.tokenId = rs.getInt("tokenId");
+                path.tokenId = rs.getLong("tokenId");
                 path.placeName = rs.getString("toPlace");
                 path.entryTime = rs.getLong("entryTime");
                 path.exitTime = rs.getLong("exitTime");
@@ -264,7 +262,7 @@ public class PetriNetAnalyzer2 {
      * 
      * @return ForkJoinAnalysis containing fork/join statistics
      */
-    public ForkJoinAnalysis analyzeForkJoin(int workflowBase) {
+    public ForkJoinAnalysis analyzeForkJoin(long workflowBase) {
         ForkJoinAnalysis analysis = new ForkJoinAnalysis();
         
         // Get all unique token IDs from the workflow
@@ -274,21 +272,20 @@ public class PetriNetAnalyzer2 {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             // Group tokens by their parent (for forked tokens) or self (for base tokens)
-            Map<Integer, Set<Integer>> parentToChildren = new HashMap<>();
-            Set<Integer> allTokens = new HashSet<>();
+            Map<Long, Set<Long>> parentToChildren = new HashMap<>();
+            Set<Long> allTokens = new HashSet<>();
             
             while (rs.next()) {
-                int tokenId = rs.getInt("tokenId");
+                long tokenId = rs.getLong("tokenId");
                 allTokens.add(tokenId);
                 
-                // NEW ENCODING: childTokenId = parentTokenId + branchNumber
-                // branchNumber is simply tokenId % 100 (1, 2, 3... for branches, 0 for parent)
-                int branchNumber = tokenId % 100;
-                int parentTokenId = tokenId - branchNumber;
+                // Fork children carry their branch in the TokenId (1, 2, 3... for branches, 0 for parent)
+                int branchNumber = TokenId.branch(tokenId);
+                long parentTokenId = TokenId.parent(tokenId);
                 
                 // Check if this is a forked token (branchNumber >= 1)
                 boolean isForkedToken = (branchNumber >= 1);
@@ -303,9 +300,9 @@ public class PetriNetAnalyzer2 {
             }
             
             // Analyze each fork group
-            for (Map.Entry<Integer, Set<Integer>> entry : parentToChildren.entrySet()) {
-                int parentId = entry.getKey();
-                Set<Integer> children = entry.getValue();
+            for (Map.Entry<Long, Set<Long>> entry : parentToChildren.entrySet()) {
+                long parentId = entry.getKey();
+                Set<Long> children = entry.getValue();
                 
                 if (children.size() >= 2) {
                     ForkGroup group = new ForkGroup();
@@ -317,7 +314,7 @@ public class PetriNetAnalyzer2 {
                     // In a proper JOIN with base token reset:
                     // - ALL children are consumed by the join (none complete individually)
                     // - The PARENT (base) token continues after the join
-                    for (int childId : children) {
+                    for (long childId : children) {
                         if (hasExitedWorkflow(childId, workflowBase)) {
                             group.completedChildren.add(childId);
                         } else {
@@ -396,7 +393,7 @@ public class PetriNetAnalyzer2 {
      * NOTE: Termination records may be in CONSOLIDATED_TRANSITION_FIRINGS or in
      * TRANSITION_FIRINGS (for observer services like MonitorService). We check both.
      */
-    private boolean hasExitedWorkflow(int tokenId, int workflowBase) {
+    private boolean hasExitedWorkflow(long tokenId, long workflowBase) {
         // First check if this is a forked token
         boolean isForkedToken = isForkedChildToken(tokenId);
         
@@ -413,24 +410,21 @@ public class PetriNetAnalyzer2 {
     
     /**
      * Check if a token ID represents a forked child token
-     * NEW ENCODING: childTokenId = parentTokenId + branchNumber
-     * branchNumber is 1-99, so forked tokens have (tokenId % 100) >= 1
-     * e.g., 1000001 = parent 1000000 + branch 1
+     * Forked tokens have a branch number >= 1 in their TokenId
+     * e.g., v001/42.1 = parent v001/42, branch 1
      */
-    private boolean isForkedChildToken(int tokenId) {
-        int branchNumber = tokenId % 100;
+    private boolean isForkedChildToken(long tokenId) {
+        int branchNumber = TokenId.branch(tokenId);
         // Forked tokens have branchNumber >= 1 (e.g., 1, 2, 3...)
         return branchNumber >= 1;
     }
     
     /**
      * Extract parent token ID from a forked child token
-     * NEW ENCODING: parentTokenId = childTokenId - branchNumber
-     * e.g., 1000001 -> 1000000, 1000002 -> 1000000
+     * e.g., v001/42.1 -> v001/42, v001/42.2 -> v001/42
      */
-    private int getParentTokenId(int childTokenId) {
-        int branchNumber = childTokenId % 100;
-        return childTokenId - branchNumber;
+    private long getParentTokenId(long childTokenId) {
+        return TokenId.parent(childTokenId);
     }
     
     /**
@@ -440,7 +434,7 @@ public class PetriNetAnalyzer2 {
      * A forked token has "exited" only if it reached TERMINATE.
      * If T_in == T_out but no TERMINATE, it was consumed by a join.
      */
-    private boolean hasForkedTokenExited(int tokenId, int workflowBase) {
+    private boolean hasForkedTokenExited(long tokenId, long workflowBase) {
         // For forked tokens, only TERMINATE counts as "exited"
         // Equal T_in/T_out means consumed by join, not completed
         String sql = 
@@ -454,10 +448,10 @@ public class PetriNetAnalyzer2 {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, tokenId);
-            pstmt.setInt(2, workflowBase);
-            pstmt.setInt(3, tokenId);
-            pstmt.setInt(4, workflowBase);
+            pstmt.setLong(1, tokenId);
+            pstmt.setLong(2, workflowBase);
+            pstmt.setLong(3, tokenId);
+            pstmt.setLong(4, workflowBase);
             
             ResultSet rs = pstmt.executeQuery();
             
@@ -483,7 +477,7 @@ public class PetriNetAnalyzer2 {
     /**
      * Check if a base (non-forked) token has exited the workflow
      */
-    private boolean hasBaseTokenExited(int tokenId, int workflowBase) {
+    private boolean hasBaseTokenExited(long tokenId, long workflowBase) {
         // Check CONSOLIDATED_TRANSITION_FIRINGS for place-based counts
         // and check BOTH tables for TERMINATE records (Monitor writes to TRANSITION_FIRINGS)
         String sql = 
@@ -501,14 +495,14 @@ public class PetriNetAnalyzer2 {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, tokenId);
-            pstmt.setInt(2, workflowBase);
-            pstmt.setInt(3, tokenId);
-            pstmt.setInt(4, workflowBase);
-            pstmt.setInt(5, tokenId);
-            pstmt.setInt(6, workflowBase);
-            pstmt.setInt(7, tokenId);
-            pstmt.setInt(8, workflowBase);
+            pstmt.setLong(1, tokenId);
+            pstmt.setLong(2, workflowBase);
+            pstmt.setLong(3, tokenId);
+            pstmt.setLong(4, workflowBase);
+            pstmt.setLong(5, tokenId);
+            pstmt.setLong(6, workflowBase);
+            pstmt.setLong(7, tokenId);
+            pstmt.setLong(8, workflowBase);
             
             ResultSet rs = pstmt.executeQuery();
             
@@ -545,12 +539,12 @@ public class PetriNetAnalyzer2 {
      * Get incomplete tokens excluding those that were correctly joined
      * This filters out sibling tokens that were consumed by a join
      */
-    public ArrayList<TokenPath> getActualIncompleteTokens(int workflowBase) {
+    public ArrayList<TokenPath> getActualIncompleteTokens(long workflowBase) {
         ArrayList<TokenPath> allIncomplete = verifyTokenCompleteness(workflowBase);
         ForkJoinAnalysis forkJoin = analyzeForkJoin(workflowBase);
         
         // Collect all tokens that were joined (consumed by join, not stuck)
-        Set<Integer> joinedTokens = new HashSet<>();
+        Set<Long> joinedTokens = new HashSet<>();
         for (ForkGroup group : forkJoin.forkGroups) {
             if (group.joinSuccessful) {
                 joinedTokens.addAll(group.joinedChildren);
@@ -581,7 +575,7 @@ public class PetriNetAnalyzer2 {
      * FIXED: Now computes statistics from correctly paired entry/exit events
      * instead of relying on pre-computed (potentially incorrect) values.
      */
-    public PlaceStatistics getPlaceStatistics(String placeName, int workflowBase) {
+    public PlaceStatistics getPlaceStatistics(String placeName, long workflowBase) {
         PlaceStatistics stats = new PlaceStatistics();
         stats.placeName = placeName;
         
@@ -596,7 +590,7 @@ public class PetriNetAnalyzer2 {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, placeName);
-            pstmt.setInt(2, workflowBase);
+            pstmt.setLong(2, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
@@ -627,7 +621,7 @@ public class PetriNetAnalyzer2 {
      * NOTE: Derby requires CAST() when comparing VARCHAR with concatenated strings
      * (which produce LONG VARCHAR). All string concatenations use explicit CAST.
      */
-    private PlaceStatistics computePlaceStatisticsFromFirings(String placeName, int workflowBase) {
+    private PlaceStatistics computePlaceStatisticsFromFirings(String placeName, long workflowBase) {
         PlaceStatistics stats = new PlaceStatistics();
         stats.placeName = placeName;
         
@@ -659,7 +653,7 @@ public class PetriNetAnalyzer2 {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             pstmt.setString(2, placeName);
             pstmt.setString(3, placeName);
             ResultSet rs = pstmt.executeQuery();
@@ -681,7 +675,7 @@ public class PetriNetAnalyzer2 {
     /**
      * Get workflow throughput (tokens per second)
      */
-    public double getWorkflowThroughput(int workflowBase) {
+    public double getWorkflowThroughput(long workflowBase) {
         String sql = 
             "SELECT COUNT(*) as tokenCount, " +
             "       MAX(timestamp) - MIN(timestamp) as duration " +
@@ -692,7 +686,7 @@ public class PetriNetAnalyzer2 {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
@@ -721,7 +715,7 @@ public class PetriNetAnalyzer2 {
     /**
      * Get marking evolution over time
      */
-    public ArrayList<MarkingSnapshot> getMarkingEvolution(String placeName, int workflowBase) {
+    public ArrayList<MarkingSnapshot> getMarkingEvolution(String placeName, long workflowBase) {
         ArrayList<MarkingSnapshot> snapshots = new ArrayList<>();
         
         String sql = 
@@ -735,12 +729,12 @@ public class PetriNetAnalyzer2 {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, placeName);
-            pstmt.setInt(2, workflowBase);
+            pstmt.setLong(2, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 MarkingSnapshot snapshot = new MarkingSnapshot();
-                snapshot.tokenId = rs.getInt("tokenId");
+                snapshot.tokenId = rs.getLong("tokenId");
                 snapshot.timestamp = rs.getLong("timestamp");
                 snapshot.marking = rs.getInt("marking");
                 snapshot.bufferSize = rs.getInt("bufferSize");
@@ -764,7 +758,7 @@ public class PetriNetAnalyzer2 {
      * These events are stored in CONSOLIDATED_TRANSITION_FIRINGS with eventType='GENERATED'
      * and are needed by TokenAnimator to determine when child tokens were created.
      */
-    public ArrayList<MarkingSnapshot> getGeneratedEvents(int workflowBase) {
+    public ArrayList<MarkingSnapshot> getGeneratedEvents(long workflowBase) {
         ArrayList<MarkingSnapshot> snapshots = new ArrayList<>();
         
         String sql = 
@@ -777,12 +771,12 @@ public class PetriNetAnalyzer2 {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 MarkingSnapshot snapshot = new MarkingSnapshot();
-                snapshot.tokenId = rs.getInt("tokenId");
+                snapshot.tokenId = rs.getLong("tokenId");
                 snapshot.timestamp = rs.getLong("timestamp");
                 snapshot.marking = 0;  // GENERATED events don't have marking
                 snapshot.bufferSize = rs.getInt("bufferSize");
@@ -804,7 +798,7 @@ public class PetriNetAnalyzer2 {
     /**
      * Verify bounded capacity (marking never exceeds capacity)
      */
-    public boolean verifyBoundedCapacity(String placeName, int workflowBase, int expectedCapacity) {
+    public boolean verifyBoundedCapacity(String placeName, long workflowBase, int expectedCapacity) {
         String sql = 
             "SELECT MAX(marking) as maxMarking " +
             "FROM CONSOLIDATED_MARKING_EVOLUTION " +
@@ -815,7 +809,7 @@ public class PetriNetAnalyzer2 {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, placeName);
-            pstmt.setInt(2, workflowBase);
+            pstmt.setLong(2, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
@@ -843,7 +837,7 @@ public class PetriNetAnalyzer2 {
     /**
      * Analyze inter-arrival times (how tokens arrive at place)
      */
-    public ArrayList<InterArrival> getInterArrivalTimes(String placeName, int workflowBase) {
+    public ArrayList<InterArrival> getInterArrivalTimes(String placeName, long workflowBase) {
         ArrayList<InterArrival> arrivals = new ArrayList<>();
         
         String sql = 
@@ -858,7 +852,7 @@ public class PetriNetAnalyzer2 {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, placeName);
-            pstmt.setInt(2, workflowBase);
+            pstmt.setLong(2, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             boolean first = true;
@@ -869,7 +863,7 @@ public class PetriNetAnalyzer2 {
                 }
                 
                 InterArrival arrival = new InterArrival();
-                arrival.tokenId = rs.getInt("tokenId");
+                arrival.tokenId = rs.getLong("tokenId");
                 arrival.timestamp = rs.getLong("timestamp");
                 arrival.interArrivalTime = rs.getLong("interArrival");
                 arrivals.add(arrival);
@@ -928,7 +922,7 @@ public class PetriNetAnalyzer2 {
             while (rs.next()) {
                 ServiceContribution sc = new ServiceContribution();
                 sc.workflowBase = rs.getLong("WORKFLOWBASE");
-                sc.sequenceId = rs.getInt("SEQUENCEID");
+                sc.sequenceId = rs.getLong("SEQUENCEID");
                 sc.serviceName = rs.getString("SERVICENAME");
                 sc.arrivalTime = rs.getLong("ARRIVALTIME");
                 sc.queueTime = rs.getLong("QUEUETIME");
@@ -939,9 +933,8 @@ public class PetriNetAnalyzer2 {
                 // Derive version number from serviceName (v001 -> 1, v002 -> 2)
                 sc.versionNumber = Integer.parseInt(sc.serviceName.substring(1));
                 
-                // NEW ENCODING: childTokenId = parentTokenId + branchNumber
-                // branchNumber is tokenId % 100 (1, 2, 3... for branches, 0 for parent)
-                sc.branchNumber = sc.sequenceId % 100;
+                // Branch number from the TokenId (1, 2, 3... for branches, 0 for parent)
+                sc.branchNumber = TokenId.branch(sc.sequenceId);
                 sc.joinCount = 0;  // Not embedded in new encoding
                 sc.isForkedToken = (sc.branchNumber >= 1);
                 
@@ -1083,7 +1076,7 @@ public class PetriNetAnalyzer2 {
             
             while (rs.next()) {
                 long wb = rs.getLong("workflowBase");
-                int tokenId = rs.getInt("tokenId");
+                long tokenId = rs.getLong("tokenId");
                 long ts = rs.getLong("timestamp");
                 String place = rs.getString("toPlace");
                 
@@ -1623,7 +1616,7 @@ public class PetriNetAnalyzer2 {
      */
     public static class ServiceContribution {
         public long workflowBase;
-        public int sequenceId;
+        public long sequenceId;
         public String serviceName;
         public String placeName;  // Actual Petri net service/place (e.g., RadiologyService)
         public long arrivalTime;
@@ -1729,7 +1722,7 @@ public class PetriNetAnalyzer2 {
     /**
      * Generate comprehensive workflow analysis report
      */
-    public String generateWorkflowReport(int workflowBase) {
+    public String generateWorkflowReport(long workflowBase) {
         StringBuilder report = new StringBuilder();
         
         report.append("=== PETRI NET ANALYSIS REPORT ===\n");
@@ -1757,7 +1750,7 @@ public class PetriNetAnalyzer2 {
         // 2. Token completeness (excluding correctly joined tokens and terminated tokens)
         ArrayList<TokenPath> rawIncomplete = verifyTokenCompleteness(workflowBase);
         ArrayList<TokenPath> actualIncomplete = getActualIncompleteTokens(workflowBase);
-        ArrayList<Integer> terminatedTokens = getTerminatedTokens(workflowBase);
+        ArrayList<Long> terminatedTokens = getTerminatedTokens(workflowBase);
         
         report.append("2. TOKEN COMPLETENESS\n");
         if (actualIncomplete.isEmpty()) {
@@ -1837,7 +1830,7 @@ public class PetriNetAnalyzer2 {
   * @param workflowBase Workflow base ID
   * @return Complete genealogy analysis
   */
- public GenealogyAnalysis analyzeGenealogy(int workflowBase) {
+ public GenealogyAnalysis analyzeGenealogy(long workflowBase) {
      GenealogyAnalysis genealogy = new GenealogyAnalysis();
      
      try (Connection conn = getConnection();
@@ -1849,28 +1842,27 @@ public class PetriNetAnalyzer2 {
                       "ORDER BY tokenId";
          
          ResultSet rs = stmt.executeQuery(sql);
-         Set<Integer> allTokens = new HashSet<>();
+         Set<Long> allTokens = new HashSet<>();
          
          while (rs.next()) {
-             allTokens.add(rs.getInt("tokenId"));
+             allTokens.add(rs.getLong("tokenId"));
          }
          
          logger.info("GENEALOGY: Found " + allTokens.size() + " tokens for workflow " + workflowBase);
          
          // Build genealogy tree
-         Map<Integer, TokenNode> tokenNodes = new HashMap<>();
+         Map<Long, TokenNode> tokenNodes = new HashMap<>();
          
-         for (int tokenId : allTokens) {
+         for (long tokenId : allTokens) {
              TokenNode node = new TokenNode();
              node.tokenId = tokenId;
              
-             // NEW ENCODING: childTokenId = parentTokenId + branchNumber
-             // branchNumber is tokenId % 100 (1, 2, 3... for branches, 0 for parent)
-             int branchNumber = tokenId % 100;
+             // Branch number from the TokenId (1, 2, 3... for branches, 0 for parent)
+             int branchNumber = TokenId.branch(tokenId);
              
              if (branchNumber >= 1) {
                  // This is a forked token
-                 int parentId = tokenId - branchNumber;
+                 long parentId = TokenId.parent(tokenId);
                  node.parentTokenId = parentId;
                  node.generation = 1;  // Will be updated if parent is also forked
                  
@@ -1901,8 +1893,8 @@ public class PetriNetAnalyzer2 {
          }
          
          // Build lineage paths for each token
-         for (int tokenId : allTokens) {
-             ArrayList<Integer> lineage = buildLineage(tokenId, tokenNodes);
+         for (long tokenId : allTokens) {
+             ArrayList<Long> lineage = buildLineage(tokenId, tokenNodes);
              genealogy.lineages.put(tokenId, lineage);
              
              TokenNode node = tokenNodes.get(tokenId);
@@ -1912,7 +1904,7 @@ public class PetriNetAnalyzer2 {
          }
          
          // Identify complete families
-         for (int rootId : genealogy.rootTokens) {
+         for (long rootId : genealogy.rootTokens) {
              TokenFamily family = buildFamily(rootId, tokenNodes);
              genealogy.families.add(family);
          }
@@ -1935,9 +1927,9 @@ public class PetriNetAnalyzer2 {
   * Build lineage path from token back to root
   * Returns: [root, parent, grandparent, ..., token]
   */
- private ArrayList<Integer> buildLineage(int tokenId, Map<Integer, TokenNode> nodes) {
-     ArrayList<Integer> lineage = new ArrayList<>();
-     int currentId = tokenId;
+ private ArrayList<Long> buildLineage(long tokenId, Map<Long, TokenNode> nodes) {
+     ArrayList<Long> lineage = new ArrayList<>();
+     long currentId = tokenId;
      
      while (currentId != -1) {
          lineage.add(0, currentId);  // Add at beginning
@@ -1954,12 +1946,12 @@ public class PetriNetAnalyzer2 {
  /**
   * Build complete family tree starting from a root token
   */
- private TokenFamily buildFamily(int rootId, Map<Integer, TokenNode> nodes) {
+ private TokenFamily buildFamily(long rootId, Map<Long, TokenNode> nodes) {
      TokenFamily family = new TokenFamily();
      family.rootTokenId = rootId;
      
      // Traverse tree depth-first
-     Set<Integer> visited = new HashSet<>();
+     Set<Long> visited = new HashSet<>();
      collectDescendants(rootId, nodes, visited, family);
      
      family.totalMembers = visited.size();
@@ -1970,8 +1962,8 @@ public class PetriNetAnalyzer2 {
  /**
   * Recursively collect all descendants
   */
- private void collectDescendants(int tokenId, Map<Integer, TokenNode> nodes, 
-                                  Set<Integer> visited, TokenFamily family) {
+ private void collectDescendants(long tokenId, Map<Long, TokenNode> nodes, 
+                                  Set<Long> visited, TokenFamily family) {
      if (visited.contains(tokenId)) {
          return;
      }
@@ -1981,7 +1973,7 @@ public class PetriNetAnalyzer2 {
      
      TokenNode node = nodes.get(tokenId);
      if (node != null && !node.children.isEmpty()) {
-         for (int childId : node.children) {
+         for (long childId : node.children) {
              family.descendants.add(childId);
              collectDescendants(childId, nodes, visited, family);
          }
@@ -1991,8 +1983,8 @@ public class PetriNetAnalyzer2 {
  /**
   * Get siblings of a token (tokens with same parent)
   */
- public ArrayList<Integer> getSiblings(int tokenId, GenealogyAnalysis genealogy) {
-     ArrayList<Integer> siblings = new ArrayList<>();
+ public ArrayList<Long> getSiblings(long tokenId, GenealogyAnalysis genealogy) {
+     ArrayList<Long> siblings = new ArrayList<>();
      
      TokenNode node = genealogy.tokenNodes.get(tokenId);
      if (node == null || node.parentTokenId == -1) {
@@ -2001,7 +1993,7 @@ public class PetriNetAnalyzer2 {
      
      TokenNode parent = genealogy.tokenNodes.get(node.parentTokenId);
      if (parent != null) {
-         for (int siblingId : parent.children) {
+         for (long siblingId : parent.children) {
              if (siblingId != tokenId) {
                  siblings.add(siblingId);
              }
@@ -2014,8 +2006,8 @@ public class PetriNetAnalyzer2 {
  /**
   * Get all ancestors of a token
   */
- public ArrayList<Integer> getAncestors(int tokenId, GenealogyAnalysis genealogy) {
-     ArrayList<Integer> ancestors = new ArrayList<>();
+ public ArrayList<Long> getAncestors(long tokenId, GenealogyAnalysis genealogy) {
+     ArrayList<Long> ancestors = new ArrayList<>();
      
      TokenNode node = genealogy.tokenNodes.get(tokenId);
      while (node != null && node.parentTokenId != -1) {
@@ -2029,17 +2021,17 @@ public class PetriNetAnalyzer2 {
  /**
   * Get all descendants of a token
   */
- public ArrayList<Integer> getDescendants(int tokenId, GenealogyAnalysis genealogy) {
-     ArrayList<Integer> descendants = new ArrayList<>();
-     Set<Integer> visited = new HashSet<>();
+ public ArrayList<Long> getDescendants(long tokenId, GenealogyAnalysis genealogy) {
+     ArrayList<Long> descendants = new ArrayList<>();
+     Set<Long> visited = new HashSet<>();
      
      collectAllDescendants(tokenId, genealogy.tokenNodes, visited, descendants);
      
      return descendants;
  }
 
- private void collectAllDescendants(int tokenId, Map<Integer, TokenNode> nodes,
-                                    Set<Integer> visited, ArrayList<Integer> descendants) {
+ private void collectAllDescendants(long tokenId, Map<Long, TokenNode> nodes,
+                                    Set<Long> visited, ArrayList<Long> descendants) {
      TokenNode node = nodes.get(tokenId);
      if (node == null || visited.contains(tokenId)) {
          return;
@@ -2047,7 +2039,7 @@ public class PetriNetAnalyzer2 {
      
      visited.add(tokenId);
      
-     for (int childId : node.children) {
+     for (long childId : node.children) {
          descendants.add(childId);
          collectAllDescendants(childId, nodes, visited, descendants);
      }
@@ -2056,7 +2048,7 @@ public class PetriNetAnalyzer2 {
  /**
   * Print genealogy report
   */
- public void printGenealogyReport(int workflowBase) {
+ public void printGenealogyReport(long workflowBase) {
      GenealogyAnalysis genealogy = analyzeGenealogy(workflowBase);
      
      System.out.println("\n=== TOKEN GENEALOGY REPORT ===");
@@ -2070,7 +2062,7 @@ public class PetriNetAnalyzer2 {
      // Print generation distribution
      System.out.println("\n--- Generation Distribution ---");
      for (int gen = 0; gen <= genealogy.maxGeneration; gen++) {
-         ArrayList<Integer> tokens = genealogy.tokensByGeneration.get(gen);
+         ArrayList<Long> tokens = genealogy.tokensByGeneration.get(gen);
          if (tokens != null) {
              System.out.println("Generation " + gen + ": " + tokens.size() + " tokens");
          }
@@ -2084,8 +2076,8 @@ public class PetriNetAnalyzer2 {
          System.out.println("  Direct descendants: " + family.descendants.size());
          
          // Print lineages for this family
-         for (int memberId : family.allMembers) {
-             ArrayList<Integer> lineage = genealogy.lineages.get(memberId);
+         for (long memberId : family.allMembers) {
+             ArrayList<Long> lineage = genealogy.lineages.get(memberId);
              if (lineage.size() > 1) {  // Skip root (no lineage)
                  System.out.print("  Lineage: ");
                  for (int i = 0; i < lineage.size(); i++) {
@@ -2117,12 +2109,12 @@ public class PetriNetAnalyzer2 {
  public static class GenealogyAnalysis {
      public int totalTokens;
      public int maxGeneration;
-     public Set<Integer> rootTokens = new HashSet<>();
-     public Set<Integer> forkedTokens = new HashSet<>();
-     public Map<Integer, ArrayList<Integer>> tokensByGeneration = new HashMap<>();
-     public Map<Integer, ArrayList<Integer>> lineages = new HashMap<>();
+     public Set<Long> rootTokens = new HashSet<>();
+     public Set<Long> forkedTokens = new HashSet<>();
+     public Map<Integer, ArrayList<Long>> tokensByGeneration = new HashMap<>();
+     public Map<Long, ArrayList<Long>> lineages = new HashMap<>();
      public ArrayList<TokenFamily> families = new ArrayList<>();
-     public Map<Integer, TokenNode> tokenNodes = new HashMap<>();
+     public Map<Long, TokenNode> tokenNodes = new HashMap<>();
      
      @Override
      public String toString() {
@@ -2138,12 +2130,12 @@ public class PetriNetAnalyzer2 {
   * A token in the genealogy tree
   */
  public static class TokenNode {
-     public int tokenId;
-     public int parentTokenId = -1;
+     public long tokenId;
+     public long parentTokenId = -1;
      public int generation = 0;
      public int joinCount = 0;
      public int branchNumber = 0;
-     public ArrayList<Integer> children = new ArrayList<>();
+     public ArrayList<Long> children = new ArrayList<>();
      
      @Override
      public String toString() {
@@ -2158,10 +2150,10 @@ public class PetriNetAnalyzer2 {
   * A complete family tree (root + all descendants)
   */
  public static class TokenFamily {
-     public int rootTokenId;
+     public long rootTokenId;
      public int totalMembers;
-     public ArrayList<Integer> allMembers = new ArrayList<>();
-     public ArrayList<Integer> descendants = new ArrayList<>();
+     public ArrayList<Long> allMembers = new ArrayList<>();
+     public ArrayList<Long> descendants = new ArrayList<>();
      
      @Override
      public String toString() {
@@ -2174,7 +2166,7 @@ public class PetriNetAnalyzer2 {
     /**
      * Print workflow report to console
      */
-    public void printWorkflowReport(int workflowBase) {
+    public void printWorkflowReport(long workflowBase) {
         String report = generateWorkflowReport(workflowBase);
         System.out.println(report);
         logger.info("Generated workflow report for workflowBase=" + workflowBase);
@@ -2184,7 +2176,7 @@ public class PetriNetAnalyzer2 {
     // HELPER METHODS
     // =============================================================================
     
-    public ArrayList<String> getAllPlaces(int workflowBase) {
+    public ArrayList<String> getAllPlaces(long workflowBase) {
         ArrayList<String> places = new ArrayList<>();
         
         String sql = 
@@ -2197,7 +2189,7 @@ public class PetriNetAnalyzer2 {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
@@ -2220,7 +2212,7 @@ public class PetriNetAnalyzer2 {
     // =============================================================================
     
     public static class TokenPath {
-        public int tokenId;
+        public long tokenId;
         public String placeName;
         public long entryTime;
         public long exitTime;
@@ -2250,7 +2242,7 @@ public class PetriNetAnalyzer2 {
     }
     
     public static class MarkingSnapshot {
-        public int tokenId;
+        public long tokenId;
         public long timestamp;
         public int marking;
         public int bufferSize;
@@ -2260,7 +2252,7 @@ public class PetriNetAnalyzer2 {
     }
     
     public static class InterArrival {
-        public int tokenId;
+        public long tokenId;
         public long timestamp;
         public long interArrivalTime;
     }
@@ -2271,8 +2263,8 @@ public class PetriNetAnalyzer2 {
     public static class ForkJoinAnalysis {
         public int totalForks = 0;
         public int successfulJoins = 0;
-        public Set<Integer> baseTokens = new HashSet<>();
-        public Set<Integer> forkedTokens = new HashSet<>();
+        public Set<Long> baseTokens = new HashSet<>();
+        public Set<Long> forkedTokens = new HashSet<>();
         public ArrayList<ForkGroup> forkGroups = new ArrayList<>();
         
         @Override
@@ -2286,11 +2278,11 @@ public class PetriNetAnalyzer2 {
      * A group of sibling tokens from a single fork
      */
     public static class ForkGroup {
-        public int parentTokenId;
-        public ArrayList<Integer> childTokenIds = new ArrayList<>();
+        public long parentTokenId;
+        public ArrayList<Long> childTokenIds = new ArrayList<>();
         public int expectedCount;
-        public ArrayList<Integer> completedChildren = new ArrayList<>();  // Exited workflow
-        public ArrayList<Integer> joinedChildren = new ArrayList<>();      // Consumed by join
+        public ArrayList<Long> completedChildren = new ArrayList<>();  // Exited workflow
+        public ArrayList<Long> joinedChildren = new ArrayList<>();      // Consumed by join
         public boolean joinSuccessful = false;
         
         @Override
@@ -2308,8 +2300,8 @@ public class PetriNetAnalyzer2 {
     /**
      * Get all distinct workflowBase values from the database
      */
-    public ArrayList<Integer> getAllWorkflowBases() {
-        ArrayList<Integer> workflowBases = new ArrayList<>();
+    public ArrayList<Long> getAllWorkflowBases() {
+        ArrayList<Long> workflowBases = new ArrayList<>();
         
         String sql = "SELECT DISTINCT workflowBase FROM CONSOLIDATED_TRANSITION_FIRINGS ORDER BY workflowBase";
         
@@ -2318,7 +2310,7 @@ public class PetriNetAnalyzer2 {
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                workflowBases.add(rs.getInt("workflowBase"));
+                workflowBases.add(rs.getLong("workflowBase"));
             }
             
             logger.info("Found " + workflowBases.size() + " distinct workflowBases: " + workflowBases);
@@ -2335,21 +2327,21 @@ public class PetriNetAnalyzer2 {
         
         // Check for --all flag to analyze all workflow bases
         boolean analyzeAll = false;
-        int specificWorkflowBase = -1;
+        long specificWorkflowBase = -1;
         
         for (String arg : args) {
             if ("--all".equals(arg) || "-a".equals(arg)) {
                 analyzeAll = true;
             } else {
                 try {
-                    specificWorkflowBase = Integer.parseInt(arg);
+                    specificWorkflowBase = TokenId.parse(arg);
                 } catch (NumberFormatException e) {
                     // Ignore invalid numbers
                 }
             }
         }
         
-        ArrayList<Integer> workflowBases;
+        ArrayList<Long> workflowBases;
         
         if (analyzeAll) {
             // Analyze all workflow bases found in database
@@ -2369,7 +2361,7 @@ public class PetriNetAnalyzer2 {
             if (workflowBases.isEmpty()) {
                 // Fallback to legacy default using VersionConstants
                 workflowBases = new ArrayList<>();
-                workflowBases.add(VersionConstants.V001_BASE);
+                workflowBases.add((long) VersionConstants.V001_BASE);
                 System.out.println("No workflow bases found, using default: " + VersionConstants.V001_BASE);
             } else {
                 System.out.println("Auto-detected " + workflowBases.size() + " workflow bases: " + workflowBases);
@@ -2377,8 +2369,8 @@ public class PetriNetAnalyzer2 {
         }
         
         // Print report for each workflow base
-        for (int workflowBase : workflowBases) {
-            String versionStr = VersionConstants.getVersionString(workflowBase);
+        for (long workflowBase : workflowBases) {
+            String versionStr = VersionConstants.getVersionFromSequenceId(workflowBase);
             System.out.println("\n" + "=".repeat(80));
             System.out.println("WORKFLOW BASE: " + workflowBase + " (" + versionStr + ")");
             System.out.println("=".repeat(80));
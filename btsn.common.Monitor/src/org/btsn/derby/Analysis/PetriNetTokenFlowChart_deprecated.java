@@ -10,6 +10,7 @@ import java.util.*;
 import java.util.List;
 import java.io.*;
 import org.apache.derby.jdbc.EmbeddedDriver;
+import org.btsn.constants.TokenId;
 import org.btsn.constants.VersionConstants;
 
 // For PDF export
@@ -42,9 +43,9 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
     // Data structures
     private List<TokenPath> tokenPaths = new ArrayList<>();
     private List<TokenGenealogy> genealogy = new ArrayList<>();
-    private Map<Integer, List<TokenPath>> tokenPathsById = new HashMap<>();
+    private Map<Long, List<TokenPath>> tokenPathsById = new HashMap<>();
     private Map<Long, Color> workflowColors = new HashMap<>();
-    private Map<Integer, Color> tokenFamilyColors = new HashMap<>();
+    private Map<Long, Color> tokenFamilyColors = new HashMap<>();
     
     // Place ordering (Y-axis)
     private List<String> placeOrder = new ArrayList<>();
@@ -76,7 +77,7 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
     private boolean showExitIndicators = true;  // Show grayed exit arrows to hidden places
     
     // Exit tracking - maps token's last visible path to its exit destination
-    private Map<Integer, String> tokenExitDestinations = new HashMap<>();
+    private Map<Long, String> tokenExitDestinations = new HashMap<>();
     
     // Zoom settings
     private double zoomFactor = 1.0;
@@ -122,7 +123,7 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
      * Token path data structure
      */
     public static class TokenPath {
-        int tokenId;
+        long tokenId;
         long workflowBase;
         String placeName;
         long entryTime;
@@ -134,7 +135,7 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
         // Computed display coordinates
         int x, y, width;
         
-        public TokenPath(int tokenId, long workflowBase, String placeName,
+        public TokenPath(long tokenId, long workflowBase, String placeName,
                         long entryTime, long exitTime, long residenceTime) {
             this.tokenId = tokenId;
             this.workflowBase = workflowBase;
@@ -144,18 +145,17 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
             this.residenceTime = residenceTime;
         }
         
-        public int getTokenFamily() {
-            // NEW ENCODING: Extract parent token (workflow base)
-            // childTokenId = parentTokenId + branchNumber (branch 1-99)
-            // Example: 1000001 -> 1000000, 1000002 -> 1000000
-            return tokenId - (tokenId % 100);
+        public long getTokenFamily() {
+            // Extract parent token (workflow base)
+            // Example: v001/42.1 -> v001/42, v001/42.2 -> v001/42
+            return TokenId.parent(tokenId);
         }
         
         /**
-         * Get service version from tokenId using VersionConstants
+         * Get service version from tokenId
          */
         public int getServiceVersion() {
-            return tokenId / VersionConstants.VERSION_BLOCK_SIZE;
+            return TokenId.version(tokenId);
         }
         
         public String getServiceVersionLabel() {
@@ -167,13 +167,13 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
      * Token genealogy (fork relationship)
      */
     public static class TokenGenealogy {
-        int parentTokenId;
-        int childTokenId;
+        long parentTokenId;
+        long childTokenId;
         String forkTransitionId;
         long forkTimestamp;
         long workflowBase;
         
-        public TokenGenealogy(int parentId, int childId, String transition, 
+        public TokenGenealogy(long parentId, long childId, String transition, 
                              long timestamp, long workflowBase) {
             this.parentTokenId = parentId;
             this.childTokenId = childId;
@@ -320,7 +320,7 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
             
             while (rs.next()) {
                 TokenPath path = new TokenPath(
-                    rs.getInt("tokenId"),
+                    rs.getLong("tokenId"),
                     rs.getLong("workflowBase"),
                     rs.getString("placeName"),
                     rs.getLong("entryTime"),
@@ -382,8 +382,8 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
             
             while (rs.next()) {
                 TokenGenealogy gen = new TokenGenealogy(
-                    rs.getInt("parentTokenId"),
-                    rs.getInt("childTokenId"),
+                    rs.getLong("parentTokenId"),
+                    rs.getLong("childTokenId"),
                     rs.getString("forkTransitionId"),
                     rs.getLong("forkTimestamp"),
                     rs.getLong("workflowBase")
@@ -404,7 +404,7 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
             try {
                 rs = stmt.executeQuery(exitQuery);
                 while (rs.next()) {
-                    int tokenId = rs.getInt("tokenId");
+                    long tokenId = rs.getLong("tokenId");
                     String dest = rs.getString("toPlace");
                     // Only store if not already tracked (we want the last exit)
                     tokenExitDestinations.putIfAbsent(tokenId, dest);
@@ -444,8 +444,8 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
         terminalPlaces.add("P6_Place");  // Known terminal place for this workflow
         
         // For each token, find their last path and check if it's at a terminal place
-        for (Map.Entry<Integer, List<TokenPath>> entry : tokenPathsById.entrySet()) {
-            int tokenId = entry.getKey();
+        for (Map.Entry<Long, List<TokenPath>> entry : tokenPathsById.entrySet()) {
+            long tokenId = entry.getKey();
             List<TokenPath> paths = entry.getValue();
             if (paths.isEmpty()) continue;
             
@@ -632,7 +632,7 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
             int serviceVersion = path.getServiceVersion();
             barColor = serviceVersionColors.getOrDefault(serviceVersion, Color.GRAY);
         } else {
-            int family = path.getTokenFamily();
+            long family = path.getTokenFamily();
             barColor = tokenFamilyColors.computeIfAbsent(family, 
                 k -> workflowPalette[Math.abs(k.hashCode()) % workflowPalette.length]);
         }
@@ -671,16 +671,16 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
         g2.setStroke(new BasicStroke(1.5f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
         
         // Build a set of parent token IDs that have forks (for detecting fork gaps)
-        Set<Integer> parentTokensWithForks = new HashSet<>();
-        Map<Integer, Long> parentForkTimes = new HashMap<>();
+        Set<Long> parentTokensWithForks = new HashSet<>();
+        Map<Long, Long> parentForkTimes = new HashMap<>();
         for (TokenGenealogy gen : genealogy) {
             parentTokensWithForks.add(gen.parentTokenId);
             // Track earliest fork time for each parent
             parentForkTimes.merge(gen.parentTokenId, gen.forkTimestamp, Math::min);
         }
         
-        for (Map.Entry<Integer, List<TokenPath>> entry : tokenPathsById.entrySet()) {
-            int tokenId = entry.getKey();
+        for (Map.Entry<Long, List<TokenPath>> entry : tokenPathsById.entrySet()) {
+            long tokenId = entry.getKey();
             List<TokenPath> paths = entry.getValue();
             if (paths.size() < 2) continue;
             
@@ -773,7 +773,7 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
      * Find the parent's path at the fork point (where fork happened).
      * This is the path whose exitTime is closest to and before the forkTimestamp.
      */
-    private TokenPath findParentPathAtFork(int parentTokenId, long forkTimestamp) {
+    private TokenPath findParentPathAtFork(long parentTokenId, long forkTimestamp) {
         List<TokenPath> paths = tokenPathsById.get(parentTokenId);
         if (paths == null || paths.isEmpty()) return null;
         
@@ -808,13 +808,13 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
         g2.setStroke(new BasicStroke(2f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
         
         // Group children by parent
-        Map<Integer, List<TokenGenealogy>> childrenByParent = new HashMap<>();
+        Map<Long, List<TokenGenealogy>> childrenByParent = new HashMap<>();
         for (TokenGenealogy gen : genealogy) {
             childrenByParent.computeIfAbsent(gen.parentTokenId, k -> new ArrayList<>()).add(gen);
         }
         
-        for (Map.Entry<Integer, List<TokenGenealogy>> entry : childrenByParent.entrySet()) {
-            int parentId = entry.getKey();
+        for (Map.Entry<Long, List<TokenGenealogy>> entry : childrenByParent.entrySet()) {
+            long parentId = entry.getKey();
             List<TokenGenealogy> children = entry.getValue();
             
             if (selectedWorkflowBase > 0) {
@@ -868,7 +868,7 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
      * Find the parent's path at the join point (where parent reconstitutes after fork).
      * This is the first path whose entryTime is after the forkTimestamp.
      */
-    private TokenPath findParentPathAtJoin(int parentTokenId, long forkTimestamp) {
+    private TokenPath findParentPathAtJoin(long parentTokenId, long forkTimestamp) {
         List<TokenPath> paths = tokenPathsById.get(parentTokenId);
         if (paths == null || paths.isEmpty()) return null;
         
@@ -886,7 +886,7 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
         return best;
     }
     
-    private TokenPath findPathForToken(int tokenId, boolean lastPath) {
+    private TokenPath findPathForToken(long tokenId, boolean lastPath) {
         List<TokenPath> paths = tokenPathsById.get(tokenId);
         if (paths == null || paths.isEmpty()) return null;
         
@@ -916,8 +916,8 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
         // Group exits by destination for cleaner display
         Map<String, List<TokenPath>> exitsByDestination = new HashMap<>();
         
-        for (Map.Entry<Integer, String> exit : tokenExitDestinations.entrySet()) {
-            int tokenId = exit.getKey();
+        for (Map.Entry<Long, String> exit : tokenExitDestinations.entrySet()) {
+            long tokenId = exit.getKey();
             String destination = exit.getValue();
             
             // Only show exits to hidden places
@@ -1281,12 +1281,12 @@ public class PetriNetTokenFlowChart_deprecated extends JPanel {
             report.append("Fork Events:\n");
             report.append("-".repeat(40)).append("\n");
             
-            Map<Integer, List<TokenGenealogy>> byParent = new HashMap<>();
+            Map<Long, List<TokenGenealogy>> byParent = new HashMap<>();
             for (TokenGenealogy gen : genealogy) {
                 byParent.computeIfAbsent(gen.parentTokenId, k -> new ArrayList<>()).add(gen);
             }
             
-            for (Map.Entry<Integer, List<TokenGenealogy>> e : byParent.entrySet()) {
+            for (Map.Entry<Long, List<TokenGenealogy>> e : byParent.entrySet()) {
                 report.append(String.format("  Token %d forked into %d children: ",
                     e.getKey(), e.getValue().size()));
                 for (TokenGenealogy gen : e.getValue()) {
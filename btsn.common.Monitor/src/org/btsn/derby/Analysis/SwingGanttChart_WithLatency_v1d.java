@@ -16,7 +16,10 @@ import java.util.List;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import org.apache.derby.jdbc.EmbeddedDriver;
+import org.btsn.constants.TokenId;
 import org.btsn.constants.VersionConstants;
 
 // For PDF export - requires Apache PDFBox library
@@ -39,7 +42,27 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
     private static final String DB_NAME = "ServiceAnalysisDataBase";
     private static final String DB_URL = PROTOCOL + DB_NAME;
     
-    private int maxDisplayTasks = Integer.MAX_VALUE;
+    // Horizontal zoom in pixels per task; 0 fits the whole run to the window
+    private double pixelsPerTask = 10;
+    
+    // Below this many pixels per task, bars would overlap, so the chart
+    // draws pre-aggregated buckets instead (one column per pixel, not per task)
+    private static final double MIN_BAR_PIXELS = 8;
+    private static final int LOD_MAX_BUCKETS = 1 << 16;
+    private static final int LOD_COUNT = 0;
+    private static final int LOD_QUEUE = 1;
+    private static final int LOD_PROCESSING = 2;
+    
+    // Level-of-detail buckets per lane, in completion order and in duration order
+    private LevelOfDetail completionLod;
+    private LevelOfDetail durationLod;
+    private List<Task> durationOrder;
+    private Map<String, Integer> lodLanes = new HashMap<>();
+    
+    // Background loading state
+    private SwingWorker<Boolean, Task> loader;
+    private volatile int expectedTasks = 0;
+    private boolean loading = false;
     
     // Configurable font sizes
     private int titleFontSize = 16;
@@ -77,13 +100,13 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
     public static class Task {
         int id;
         String service;
-        int sequenceId;
+        long sequenceId;
         long processingTime;
         long queueTime;
         int serviceCount;  // Number of services in this workflow
         long elapsedTime;  // Total workflow duration from PROCESSMEASUREMENTS
         
-        public Task(int id, String service, int sequenceId, long processingTime) {
+        public Task(int id, String service, long sequenceId, long processingTime) {
             this.id = id;
             this.service = service;
             this.sequenceId = sequenceId;
@@ -139,10 +162,10 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
         StringBuilder report = new StringBuilder();
         
         // Group tasks by base sequenceID
-        Map<Integer, WorkflowSummary> summaryMap = new LinkedHashMap<>();
+        Map<Long, WorkflowSummary> summaryMap = new LinkedHashMap<>();
         
         for (Task task : tasks) {
-            int baseSeqId = (task.sequenceId / 1000) * 1000;
+            long baseSeqId = TokenId.root(task.sequenceId);
             
             WorkflowSummary summary = summaryMap.get(baseSeqId);
             if (summary == null) {
@@ -243,7 +266,7 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
             rs = stmt.executeQuery(query);
             
             while (rs.next()) {
-                int sequenceId = rs.getInt("sequenceID");
+                long sequenceId = rs.getLong("sequenceID");
                 long workflowStartTime = rs.getLong("WORKFLOWSTARTTIME");
                 
                 String version = deriveVersion(sequenceId);
@@ -291,13 +314,13 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
      * Helper class for workflow summary
      */
     private static class WorkflowSummary {
-        int baseSequenceId;
+        long baseSequenceId;
         String version;
         int serviceCount = 0;
         long totalQueueTime = 0;
         long totalServiceTime = 0;
         
-        WorkflowSummary(int baseSequenceId) {
+        WorkflowSummary(long baseSequenceId) {
             this.baseSequenceId = baseSequenceId;
         }
     }
@@ -540,7 +563,7 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
                 return;
             }
             
-            int safeMaxId = Math.max(Math.min(tasks.size(), maxDisplayTasks), 10);
+            int safeMaxId = Math.max(tasks.size(), 10);
             long safeMaxTime = Math.max(maxTime, 1);
             
             writer.println("% Gantt Chart generated from SwingGanttChart");
@@ -599,7 +622,7 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
             writer.println();
             
             writer.println("% Tasks (bars)");
-            for (int i = 0; i < Math.min(tasks.size(), maxDisplayTasks); i++) {
+            for (int i = 0; i < tasks.size(); i++) {
                 Task task = tasks.get(i);
                 Integer laneIndex;
                 String group;
@@ -649,7 +672,7 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
             writer.println("\\label{fig:gantt-chart}");
             writer.println("\\end{figure}");
             
-            System.out.println("Exported LaTeX with " + Math.min(tasks.size(), maxDisplayTasks) + " tasks");
+            System.out.println("Exported LaTeX with " + tasks.size() + " tasks");
             
             writer.println();
             writer.println("% Standalone version (compile with pdflatex):");
@@ -689,7 +712,7 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
             writer.println("\\midrule");
             writer.println("\\endhead");
             
-            for (int i = 0; i < Math.min(tasks.size(), maxDisplayTasks); i++) {
+            for (int i = 0; i < tasks.size(); i++) {
                 Task task = tasks.get(i);
                 String version = deriveVersion(task.sequenceId);
                 writer.printf("%d & %s & %s & %d & %d & %d \\\\\n",
@@ -738,7 +761,7 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
     /**
      * Derive version using VersionConstants instead of hardcoded ranges
      */
-    private String deriveVersion(int sequenceId) {
+    private String deriveVersion(long sequenceId) {
         return VersionConstants.getVersionFromSequenceId(sequenceId);
     }
     
@@ -844,7 +867,7 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
             versionColors.put(version, getVersionColor(version, i));
         }
         
-        int width = Math.max(1200, maxId * 10 + 150);
+        int width = preferredChartWidth();
         int topMargin = Math.round(80 * fontScaleFactor);
         int bottomPadding = Math.round(15 * fontScaleFactor);
         int numLanes = uniqueVersions.size();
@@ -868,7 +891,7 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
         updateFonts();
         
         if (scaleFactor > 1.5f) {
-            int width = Math.max(900, maxId * 7 + 200);
+            int width = Math.max(900, preferredChartWidth());
             int height = Math.max(600, Math.round(400 * scaleFactor));
             setPreferredSize(new Dimension(width, height));
             revalidate();
@@ -902,8 +925,8 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
      * Helper class to aggregate service times per workflow
      */
     private static class WorkflowAggregate {
-        int baseSequenceId;
-        int workflowBase;
+        long baseSequenceId;
+        long workflowBase;
         long totalQueueTime = 0;
         long totalServiceTime = 0;
         int serviceCount = 0;
@@ -911,14 +934,14 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
         // Track services by fork number for parallel execution analysis
         Map<Integer, List<ServiceTiming>> forkGroups = new HashMap<>();
         
-        WorkflowAggregate(int baseSequenceId, int workflowBase) {
+        WorkflowAggregate(long baseSequenceId, long workflowBase) {
             this.baseSequenceId = baseSequenceId;
             this.workflowBase = workflowBase;
         }
         
-        void addService(int sequenceId, long queueTime, long serviceTime) {
-            // Extract fork number (last 2 digits)
-            int forkNumber = sequenceId % 1000;
+        void addService(long sequenceId, long queueTime, long serviceTime) {
+            // Extract fork number (branch of the TokenId)
+            int forkNumber = TokenId.branch(sequenceId);
             
             List<ServiceTiming> forkServices = forkGroups.get(forkNumber);
             if (forkServices == null) {
@@ -976,7 +999,74 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
         }
     }
     
+    /**
+     * Start loading the run in a background worker.
+     *
+     * The queries run off the event dispatch thread and tasks are published
+     * as they are read, so the chart fills in chunk by chunk instead of the
+     * window freezing until the whole run is in memory.
+     */
     protected void loadDataFromDatabase() {
+        if (loader != null && !loader.isDone()) {
+            loader.cancel(true);
+        }
+        
+        tasks.clear();
+        uniqueServices.clear();
+        serviceLanes.clear();
+        serviceColors.clear();
+        lodLanes.clear();
+        completionLod = null;
+        durationLod = null;
+        durationOrder = null;
+        hoveredTask = null;
+        maxQueueTime = 1;
+        expectedTasks = 0;
+        loading = true;
+        
+        loader = new SwingWorker<Boolean, Task>() {
+            @Override
+            protected Boolean doInBackground() throws Exception {
+                return readTasks(task -> publish(task));
+            }
+            
+            @Override
+            protected void process(List<Task> chunk) {
+                if (this == loader && !isCancelled()) {
+                    addTasks(chunk);
+                }
+            }
+            
+            @Override
+            protected void done() {
+                if (this != loader || isCancelled()) {
+                    return;
+                }
+                loading = false;
+                try {
+                    finishLoading(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    System.err.println("Database connection error: " + cause.getMessage());
+                    cause.printStackTrace();
+                    repaint();
+                    JOptionPane.showMessageDialog(SwingGanttChart_WithLatency_v1d.this,
+                        "Database connection failed:\n" + cause.getMessage(),
+                        "Database Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        loader.execute();
+    }
+    
+    /**
+     * Read the run on the loader thread. Tasks are handed to the sink in
+     * completion order; nothing here touches Swing state.
+     */
+    private boolean readTasks(Consumer<Task> sink) throws SQLException {
         Connection conn = null;
         Statement stmt = null;
         ResultSet rs = null;
@@ -986,16 +1076,10 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
             conn = DriverManager.getConnection(DB_URL);
             stmt = conn.createStatement();
             
-            tasks.clear();
-            uniqueServices.clear();
-            serviceLanes.clear();
-            serviceColors.clear();
-            maxQueueTime = 1;
-            
             boolean dataLoaded = false;
             
             // First, aggregate SERVICECONTRIBUTION data by base sequenceID
-            Map<Integer, WorkflowAggregate> contributionMap = new HashMap<>();
+            Map<Long, WorkflowAggregate> contributionMap = new HashMap<>();
             try {
                 String query = "SELECT " +
                               "WORKFLOWBASE, " +
@@ -1008,13 +1092,13 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
                 rs = stmt.executeQuery(query);
                 
                 while (rs.next()) {
-                    int sequenceId = rs.getInt("SEQUENCEID");
-                    int workflowBase = rs.getInt("WORKFLOWBASE");
+                    long sequenceId = rs.getLong("SEQUENCEID");
+                    long workflowBase = rs.getLong("WORKFLOWBASE");
                     long queueTime = Math.max(0, rs.getLong("QUEUETIME"));
                     long serviceTime = Math.max(0, rs.getLong("SERVICETIME"));
                     
                     // Calculate base sequenceID
-                    int baseSequenceId = (sequenceId / 1000) * 1000;
+                    long baseSequenceId = TokenId.root(sequenceId);
                     
                     // Get or create aggregate
                     WorkflowAggregate aggregate = contributionMap.get(baseSequenceId);
@@ -1039,8 +1123,18 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
                 e.printStackTrace();
             }
             
+            // Count first, so the X-axis has its final scale while rows stream in
+            try {
+                rs = stmt.executeQuery("SELECT COUNT(*) FROM PROCESSMEASUREMENTS WHERE serviceName IS NOT NULL");
+                if (rs.next()) {
+                    expectedTasks = rs.getInt(1);
+                }
+                rs.close();
+            } catch (SQLException e) {
+                System.out.println("Error counting PROCESSMEASUREMENTS: " + e.getMessage());
+            }
+            
             // Now load PROCESSMEASUREMENTS to get arrival order and IDs
-         // Now load PROCESSMEASUREMENTS to get arrival order and IDs
             try {
                 String query = "SELECT id, serviceName, sequenceID, " +
                               "TOKENARRIVALTIME, WORKFLOWSTARTTIME, ELAPSEDTIME " +
@@ -1053,14 +1147,18 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
                 
                 boolean hasAnyAggregates = !contributionMap.isEmpty();  // Check ONCE at start
                 boolean shownWarning = false;  // Only show warning once
+                int loadedCount = 0;
                 
                 while (rs.next()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return false;  // Superseded by a newer load
+                    }
+                    
                     int id = rs.getInt("id");
-                    String serviceName = rs.getString("serviceName");
-                    int sequenceId = rs.getInt("sequenceID");
+                    long sequenceId = rs.getLong("sequenceID");
                     
                     // Calculate base sequenceID
-                    int baseSequenceId = (sequenceId / 1000) * 1000;
+                    long baseSequenceId = TokenId.root(sequenceId);
                     
                     // Look up the aggregated data from SERVICECONTRIBUTION
                     WorkflowAggregate aggregate = contributionMap.get(baseSequenceId);
@@ -1095,22 +1193,14 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
                     task.queueTime = queueTime;
                     task.serviceCount = (aggregate != null) ? aggregate.serviceCount : 0;
                     task.elapsedTime = elapsedTime;
-                    tasks.add(task);
-                    
-                    if (!uniqueServices.contains(version)) {
-                        uniqueServices.add(version);
-                    }
-                    
-                    if (id > maxId) maxId = id;
-                    if (processingTime > maxTime) maxTime = processingTime;
-                    if (queueTime > maxQueueTime) maxQueueTime = queueTime;
-                    if (elapsedTime > maxElapsedTime) maxElapsedTime = elapsedTime;
+                    sink.accept(task);
+                    loadedCount++;
                     
                     dataLoaded = true;
                 }
                 rs.close();
                 
-                System.out.println("Loaded " + tasks.size() + " tasks with real queue/service times");
+                System.out.println("Loaded " + loadedCount + " tasks with real queue/service times");
                 
             } catch (SQLException e) {
                 System.out.println("Error loading PROCESSMEASUREMENTS: " + e.getMessage());
@@ -1121,17 +1211,16 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
             // Previously this compared tasks.size() < contributionMap.size() which was wrong because
             // PROCESSMEASUREMENTS has one row per workflow completion, while contributionMap has entries
             // for every service visited. The fallback should only trigger when we have NO data from PROCESSMEASUREMENTS.
+            // Nothing has been published in that case, so there is no partial data to clear.
             if (!dataLoaded && !contributionMap.isEmpty()) {
                 System.out.println("Using SERVICECONTRIBUTION fallback (PROCESSMEASUREMENTS empty, " + 
                                   "SERVICECONTRIBUTION workflows: " + contributionMap.size() + ")...");
                 
-                // Clear any partial data from PROCESSMEASUREMENTS
-                tasks.clear();
-                uniqueServices.clear();
+                expectedTasks = contributionMap.size();
                 
                 // Sort workflows by baseSequenceId for consistent ordering
                 List<WorkflowAggregate> sortedWorkflows = new ArrayList<>(contributionMap.values());
-                sortedWorkflows.sort((a, b) -> Integer.compare(a.baseSequenceId, b.baseSequenceId));
+                sortedWorkflows.sort((a, b) -> Long.compare(a.baseSequenceId, b.baseSequenceId));
                 
                 int syntheticId = 1;
                 for (WorkflowAggregate aggregate : sortedWorkflows) {
@@ -1140,92 +1229,17 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
                     Task task = new Task(syntheticId, version, aggregate.baseSequenceId, aggregate.totalServiceTime);
                     task.queueTime = aggregate.totalQueueTime;
                     task.serviceCount = aggregate.serviceCount;
-                    tasks.add(task);
-                    
-                    if (!uniqueServices.contains(version)) {
-                        uniqueServices.add(version);
-                    }
-                    
-                    if (syntheticId > maxId) maxId = syntheticId;
-                    if (aggregate.totalServiceTime > maxTime) maxTime = aggregate.totalServiceTime;
-                    if (aggregate.totalQueueTime > maxQueueTime) maxQueueTime = aggregate.totalQueueTime;
+                    sink.accept(task);
                     
                     syntheticId++;
                 }
                 
                 dataLoaded = true;
-                System.out.println("Created " + tasks.size() + " tasks from SERVICECONTRIBUTION fallback");
-            }
-            
-            if (dataLoaded) {
-                Collections.sort(uniqueServices);
-                
-                for (int i = 0; i < uniqueServices.size(); i++) {
-                    String service = uniqueServices.get(i);
-                    serviceLanes.put(service, i);
-                    serviceColors.put(service, getVersionColor(service, i));
-                }
-                
-                System.out.println("Found " + uniqueServices.size() + " unique versions: " + uniqueServices);
-                System.out.println("Max queue time: " + maxQueueTime + " ms");
-                System.out.println("Max service time: " + maxTime + " ms");
-                System.out.println("MaxId: " + maxId);
-
-                int width = Math.max(1200, maxId * 10 + 150);
-                int height = Math.round(400 * fontScaleFactor);
-                setPreferredSize(new Dimension(width, height));
-                revalidate();
-                repaint();
-            } else {
-                System.err.println("No data found in database!");
-                JOptionPane.showMessageDialog(this, 
-                    "No data found in database.\nPlease ensure the database is populated.", 
-                    "Database Error", 
-                    JOptionPane.ERROR_MESSAGE);
+                System.out.println("Created " + sortedWorkflows.size() + " tasks from SERVICECONTRIBUTION fallback");
             }
             
-            if (dataLoaded) {
-                Collections.sort(uniqueServices);
-                
-                for (int i = 0; i < uniqueServices.size(); i++) {
-                    String service = uniqueServices.get(i);
-                    serviceLanes.put(service, i);
-                    serviceColors.put(service, getVersionColor(service, i));
-                }
-                
-                System.out.println("Loaded " + tasks.size() + " tasks from database");
-                System.out.println("Found " + uniqueServices.size() + " unique services: " + uniqueServices);
-                System.out.println("Max queue time: " + maxQueueTime + " ms");
-                
-                this.maxId = Math.max(tasks.size() + 1, 1);
+            return dataLoaded;
                 
-                if (this.maxTime <= 0) {
-                    this.maxTime = 1000;
-                    System.out.println("Warning: maxTime was invalid, setting to default 1000");
-                }
-                
-                System.out.println("MaxId: " + maxId + ", MaxTime: " + maxTime);
-
-                int width = Math.max(1200, maxId * 10 + 150);
-                int height = Math.round(400 * fontScaleFactor);
-                setPreferredSize(new Dimension(width, height));
-                revalidate();
-                repaint();
-            } else {
-                System.err.println("No data found in database!");
-                JOptionPane.showMessageDialog(this, 
-                    "No data found in database.\nPlease ensure the database is populated.", 
-                    "Database Error", 
-                    JOptionPane.ERROR_MESSAGE);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Database connection error: " + e.getMessage());
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, 
-                "Database connection failed:\n" + e.getMessage(), 
-                "Database Error", 
-                JOptionPane.ERROR_MESSAGE);
         } finally {
             try {
                 if (rs != null) rs.close();
@@ -1237,6 +1251,157 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
         }
     }
     
+    /**
+     * Append a chunk of loaded tasks and fold it into the level-of-detail
+     * buckets. Runs on the event dispatch thread.
+     */
+    private void addTasks(List<Task> chunk) {
+        boolean newLane = false;
+        for (Task task : chunk) {
+            tasks.add(task);
+            
+            if (!uniqueServices.contains(task.service)) {
+                uniqueServices.add(task.service);
+                newLane = true;
+            }
+            
+            if (task.id > maxId) maxId = task.id;
+            if (task.processingTime > maxTime) maxTime = task.processingTime;
+            if (task.queueTime > maxQueueTime) maxQueueTime = task.queueTime;
+            if (task.elapsedTime > maxElapsedTime) maxElapsedTime = task.elapsedTime;
+        }
+        
+        if (completionLod == null || completionLod.getAxisEnd() < tasks.size()) {
+            completionLod = buildLod(tasks, Math.max(expectedTasks, tasks.size()));
+        } else {
+            for (int i = tasks.size() - chunk.size(); i < tasks.size(); i++) {
+                addToLod(completionLod, tasks.get(i), i);
+            }
+        }
+        durationOrder = null;
+        durationLod = null;
+        
+        if (newLane) {
+            assignServiceLanes();
+            if (displayByVersion) {
+                groupTasksByVersion();
+            }
+        }
+        
+        setPreferredSize(new Dimension(preferredChartWidth(), getPreferredSize().height));
+        revalidate();
+        repaint();
+    }
+    
+    private void finishLoading(boolean dataLoaded) {
+        if (dataLoaded) {
+            assignServiceLanes();
+            if (displayByVersion) {
+                groupTasksByVersion();
+            }
+            
+            System.out.println("Loaded " + tasks.size() + " tasks from database");
+            System.out.println("Found " + uniqueServices.size() + " unique versions: " + uniqueServices);
+            System.out.println("Max queue time: " + maxQueueTime + " ms");
+            System.out.println("Max service time: " + maxTime + " ms");
+            
+            this.maxId = Math.max(tasks.size() + 1, 1);
+            
+            if (this.maxTime <= 0) {
+                this.maxTime = 1000;
+                System.out.println("Warning: maxTime was invalid, setting to default 1000");
+            }
+            
+            System.out.println("MaxId: " + maxId + ", MaxTime: " + maxTime);
+            
+            int height = Math.round(400 * fontScaleFactor);
+            setPreferredSize(new Dimension(preferredChartWidth(), height));
+            revalidate();
+            repaint();
+        } else {
+            repaint();
+            System.err.println("No data found in database!");
+            JOptionPane.showMessageDialog(this,
+                "No data found in database.\nPlease ensure the database is populated.",
+                "Database Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    private void assignServiceLanes() {
+        Collections.sort(uniqueServices);
+        
+        for (int i = 0; i < uniqueServices.size(); i++) {
+            String service = uniqueServices.get(i);
+            serviceLanes.put(service, i);
+            serviceColors.put(service, getVersionColor(service, i));
+        }
+    }
+    
+    private LevelOfDetail buildLod(List<Task> order, int axisCount) {
+        int axis = Math.max(1, axisCount);
+        LevelOfDetail lod = new LevelOfDetail(3, 0, axis, Math.min(LOD_MAX_BUCKETS, axis));
+        for (int i = 0; i < order.size(); i++) {
+            addToLod(lod, order.get(i), i);
+        }
+        return lod;
+    }
+    
+    private void addToLod(LevelOfDetail lod, Task task, int position) {
+        int lane = lodLanes.computeIfAbsent(task.service, k -> lodLanes.size());
+        lod.add(lane, LOD_COUNT, position, position + 1, 1);
+        lod.add(lane, LOD_QUEUE, position, position + 1, task.queueTime);
+        lod.add(lane, LOD_PROCESSING, position, position + 1, task.processingTime);
+    }
+    
+    /**
+     * Tasks in X-axis order. The duration order is sorted once per load
+     * rather than on every repaint.
+     */
+    private List<Task> getDisplayTasks() {
+        if (!sortByDuration) {
+            return tasks;
+        }
+        if (durationOrder == null) {
+            durationOrder = new ArrayList<>(tasks);
+            durationOrder.sort((a, b) -> Long.compare(a.elapsedTime, b.elapsedTime));
+        }
+        return durationOrder;
+    }
+    
+    private LevelOfDetail getDisplayLod(int axisCount) {
+        if (!sortByDuration) {
+            return completionLod;
+        }
+        if (durationLod == null) {
+            durationLod = buildLod(getDisplayTasks(), axisCount);
+        }
+        return durationLod;
+    }
+    
+    private int getAxisCount() {
+        return Math.max(1, Math.max(tasks.size(), expectedTasks));
+    }
+    
+    /**
+     * Preferred width for the current zoom. In fit mode the width stays small
+     * and the scroll pane's viewport stretches the chart to the window.
+     */
+    private int preferredChartWidth() {
+        if (pixelsPerTask <= 0) {
+            return 700;
+        }
+        long width = (long) (getAxisCount() * pixelsPerTask) + 150;
+        return (int) Math.min(Integer.MAX_VALUE / 2, Math.max(1200, width));
+    }
+    
+    private Integer getLaneIndex(Task task) {
+        if (displayByVersion) {
+            return versionLanes.get(deriveVersion(task.sequenceId));
+        }
+        return serviceLanes.get(task.service);
+    }
+    
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
@@ -1245,7 +1410,7 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
 
         if (tasks.isEmpty()) {
             g2.setFont(titleFont);
-            g2.drawString("No data to display", getWidth() / 2 - 60, getHeight() / 2);
+            g2.drawString(loading ? "Loading run data..." : "No data to display", getWidth() / 2 - 60, getHeight() / 2);
             return;
         }
 
@@ -1391,12 +1556,14 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
         g2.setColor(Color.LIGHT_GRAY);
         g2.setStroke(new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{2}, 0));
 
-        int actualMaxId = Math.min(tasks.size(), maxDisplayTasks);
-        int gridInterval = Math.max(1, actualMaxId / 10);
+        // Create display list - either original order or sorted by duration
+        List<Task> displayTasks = getDisplayTasks();
+        int axisCount = getAxisCount();
+        int gridInterval = Math.max(1, axisCount / 10);
 
         g2.setFont(axisLabelFont);
-        for (int i = 0; i <= actualMaxId + 1; i += gridInterval) {
-            int x = leftMargin + (i * chartWidth / (actualMaxId + 1));
+        for (int i = 0; i <= axisCount + 1; i += gridInterval) {
+            int x = leftMargin + (int) ((long) i * chartWidth / (axisCount + 1));
             int y = topMargin + chartHeight;
             g2.drawLine(x, topMargin, x, y);
 
@@ -1418,94 +1585,42 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
         int xLabelWidth = xfm.stringWidth(xLabel);
         g2.drawString(xLabel, (getWidth() - xLabelWidth) / 2, topMargin + chartHeight + Math.round(40 * fontScaleFactor));
 
+        if (loading) {
+            g2.setFont(axisLabelFont);
+            g2.setColor(Color.GRAY);
+            g2.drawString("Loading... " + tasks.size() + " of " + expectedTasks + " tasks",
+                leftMargin, Math.round(68 * fontScaleFactor));
+        }
+        
         g2.setStroke(new BasicStroke(1));
 
-        // Create display list - either original order or sorted by duration
-        List<Task> displayTasks;
-        if (sortByDuration) {
-            displayTasks = new ArrayList<>(tasks);
-            displayTasks.sort((a, b) -> Long.compare(a.elapsedTime, b.elapsedTime));
-        } else {
-            displayTasks = tasks;
+        // Draw tasks with linear scaling (no logarithm, no heat strips).
+        // Only the slots inside the clip are visited; once a slot is narrower
+        // than a bar, whole buckets are drawn instead, so a repaint costs
+        // O(visible pixels) however many tasks the run holds.
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
         }
-
-        // Draw tasks with linear scaling (no logarithm, no heat strips)
-        // Use actual display count to properly scale X-axis when Display Range is limited
-        int actualDisplayCount = Math.min(displayTasks.size(), maxDisplayTasks);
+        int barHeight = (int) (laneHeight * 0.75);
+        double slotWidth = (double) chartWidth / axisCount;
         
-        for (int i = 0; i < actualDisplayCount; i++) {
-            Task task = displayTasks.get(i);
-            Integer laneIndex;
-            Color barColor;
-
-            if (displayByVersion) {
-                String version = deriveVersion(task.sequenceId);
-                laneIndex = versionLanes.get(version);
-                barColor = versionColors.get(version);
-            } else {
-                laneIndex = serviceLanes.get(task.service);
-                barColor = serviceColors.get(task.service);
-            }
-
-            if (laneIndex == null) continue;
-
-            // FIX: Use task index (i) instead of database ID for X position
-            // Database IDs can be non-sequential (221, 222, etc.) which causes bars to render off-screen
-            // Use actualDisplayCount to scale properly when maxDisplayTasks is set
-            int x = leftMargin + (i * chartWidth / Math.max(1, actualDisplayCount));
-
+        if (slotWidth >= MIN_BAR_PIXELS) {
             // FIXED WIDTH - all bars same width for timeline visualization
-            // Use actualDisplayCount to scale properly when maxDisplayTasks is set
-            int barWidth = Math.max(8, (chartWidth / Math.max(1, actualDisplayCount)) - 4);
-
-        //    int barHeight = laneHeight * 2 / 5;
-            int barHeight = (int) (laneHeight * 0.75);
-            int y = topMargin + (laneIndex * laneHeight) + (
-            		laneHeight - barHeight) - 5;
-
-            // Calculate queue and execution ratio for vertical split
-            long totalTime = task.queueTime + task.processingTime;
-            double queueRatio = totalTime > 0 ? (double) task.queueTime / totalTime : 0;
-            
-            // Split bar vertically based on queue/execution ratio
-            if (showQueueTime && task.queueTime > 0 && totalTime > 0) {
-                int queueHeight = (int) (barHeight * queueRatio);
-                int execHeight = barHeight - queueHeight;
-                
-                // Draw queue time portion (top part of bar)
-                Color queueColor = getQueueTimeColor(task.queueTime, task.processingTime);
-                g2.setColor(queueColor);
-                g2.fillRoundRect(x, y, barWidth, queueHeight, 5, 5);
-                
-                // Draw execution time portion (bottom part of bar)
-                g2.setColor(barColor);
-                g2.fillRoundRect(x, y + queueHeight, barWidth, execHeight, 5, 5);
-                
-                // Draw border around entire bar
-                g2.setColor(barColor.darker());
-                g2.drawRoundRect(x, y, barWidth, barHeight, 5, 5);
-                
-                // Draw dividing line between queue and execution
-                g2.setColor(Color.BLACK);
-                g2.drawLine(x, y + queueHeight, x + barWidth, y + queueHeight);
-            } else {
-                // No queue time - draw solid execution bar
-                g2.setColor(barColor);
-                g2.fillRoundRect(x, y, barWidth, barHeight, 5, 5);
-
-                g2.setColor(barColor.darker());
-                g2.drawRoundRect(x, y, barWidth, barHeight, 5, 5);
-            }
-
-            // Add task ID for small datasets
-            if (displayTasks.size() <= 30 && barWidth > 15) {
-                g2.setColor(Color.WHITE);
-                g2.setFont(new Font("Arial", Font.PLAIN, 9));
-                String idStr = String.valueOf(task.sequenceId / 100);  // Token ID without last 2 digits
-                FontMetrics idFm = g2.getFontMetrics();
-                int textWidth = idFm.stringWidth(idStr);
-                g2.drawString(idStr, x + (barWidth - textWidth) / 2, y + barHeight / 2 + 3);
+            int barWidth = Math.max(8, (chartWidth / axisCount) - 4);
+            int first = Math.max(0, (int) Math.floor((clip.x - leftMargin - barWidth) / slotWidth));
+            int last = Math.min(displayTasks.size() - 1, (int) ((clip.x + clip.width - leftMargin) / slotWidth));
+            
+            for (int i = first; i <= last; i++) {
+                // FIX: Use task index (i) instead of database ID for X position
+                // Database IDs can be non-sequential (221, 222, etc.) which causes bars to render off-screen
+                int x = leftMargin + (int) ((long) i * chartWidth / axisCount);
+                drawTaskBar(g2, displayTasks.get(i), x, barWidth, barHeight, topMargin, laneHeight,
+                            displayTasks.size());
             }
+        } else {
+            drawTaskBuckets(g2, getDisplayLod(axisCount), axisCount, leftMargin, chartWidth,
+                            topMargin, laneHeight, barHeight, clip);
         }
 
         // Draw tooltip if hovering
@@ -1514,64 +1629,164 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
         }
     }
     
+    private void drawTaskBar(Graphics2D g2, Task task, int x, int barWidth, int barHeight,
+                             int topMargin, int laneHeight, int taskCount) {
+        Integer laneIndex = getLaneIndex(task);
+        Color barColor = displayByVersion ?
+            versionColors.get(deriveVersion(task.sequenceId)) : serviceColors.get(task.service);
+        
+        if (laneIndex == null || barColor == null) return;
+        
+        int y = topMargin + (laneIndex * laneHeight) + (laneHeight - barHeight) - 5;
+        
+        // Calculate queue and execution ratio for vertical split
+        long totalTime = task.queueTime + task.processingTime;
+        double queueRatio = totalTime > 0 ? (double) task.queueTime / totalTime : 0;
+        
+        // Split bar vertically based on queue/execution ratio
+        if (showQueueTime && task.queueTime > 0 && totalTime > 0) {
+            int queueHeight = (int) (barHeight * queueRatio);
+            int execHeight = barHeight - queueHeight;
+            
+            // Draw queue time portion (top part of bar)
+            Color queueColor = getQueueTimeColor(task.queueTime, task.processingTime);
+            g2.setColor(queueColor);
+            g2.fillRoundRect(x, y, barWidth, queueHeight, 5, 5);
+            
+            // Draw execution time portion (bottom part of bar)
+            g2.setColor(barColor);
+            g2.fillRoundRect(x, y + queueHeight, barWidth, execHeight, 5, 5);
+            
+            // Draw border around entire bar
+            g2.setColor(barColor.darker());
+            g2.drawRoundRect(x, y, barWidth, barHeight, 5, 5);
+            
+            // Draw dividing line between queue and execution
+            g2.setColor(Color.BLACK);
+            g2.drawLine(x, y + queueHeight, x + barWidth, y + queueHeight);
+        } else {
+            // No queue time - draw solid execution bar
+            g2.setColor(barColor);
+            g2.fillRoundRect(x, y, barWidth, barHeight, 5, 5);
+            
+            g2.setColor(barColor.darker());
+            g2.drawRoundRect(x, y, barWidth, barHeight, 5, 5);
+        }
+        
+        // Add task ID for small datasets
+        if (taskCount <= 30 && barWidth > 15) {
+            g2.setColor(Color.WHITE);
+            g2.setFont(new Font("Arial", Font.PLAIN, 9));
+            String idStr = String.valueOf(TokenId.instance(task.sequenceId));  // Workflow instance of the token
+            FontMetrics idFm = g2.getFontMetrics();
+            int textWidth = idFm.stringWidth(idStr);
+            g2.drawString(idStr, x + (barWidth - textWidth) / 2, y + barHeight / 2 + 3);
+        }
+    }
+    
+    /**
+     * Draw a zoomed-out lane as columns of pre-aggregated buckets, about one
+     * per pixel. Each column is split by its summed queue/processing ratio,
+     * the same way a single bar is split by its task's ratio.
+     */
+    private void drawTaskBuckets(Graphics2D g2, LevelOfDetail lod, int axisCount, int leftMargin,
+                                 int chartWidth, int topMargin, int laneHeight, int barHeight,
+                                 Rectangle clip) {
+        if (lod == null) return;
+        
+        double lodPixels = chartWidth * lod.getAxisEnd() / axisCount;
+        int level = lod.levelFor((int) Math.ceil(lodPixels));
+        int buckets = lod.buckets(level);
+        double bucketWidth = lodPixels / buckets;
+        int first = Math.max(0, (int) ((clip.x - leftMargin) / bucketWidth));
+        int last = Math.min(buckets - 1, (int) ((clip.x + clip.width - leftMargin) / bucketWidth));
+        
+        for (Map.Entry<String, Integer> entry : lodLanes.entrySet()) {
+            String service = entry.getKey();
+            int lane = entry.getValue();
+            Integer laneIndex = displayByVersion ? versionLanes.get(service) : serviceLanes.get(service);
+            Color barColor = displayByVersion ? versionColors.get(service) : serviceColors.get(service);
+            if (laneIndex == null || barColor == null) continue;
+            
+            int y = topMargin + (laneIndex * laneHeight) + (laneHeight - barHeight) - 5;
+            
+            for (int b = first; b <= last; b++) {
+                if (lod.value(level, lane, LOD_COUNT, b) <= 0) continue;
+                
+                int x = leftMargin + (int) (b * bucketWidth);
+                int width = Math.max(1, leftMargin + (int) ((b + 1) * bucketWidth) - x);
+                long queueTime = Math.round(lod.value(level, lane, LOD_QUEUE, b));
+                long processingTime = Math.round(lod.value(level, lane, LOD_PROCESSING, b));
+                long totalTime = queueTime + processingTime;
+                
+                if (showQueueTime && queueTime > 0 && totalTime > 0) {
+                    int queueHeight = (int) (barHeight * ((double) queueTime / totalTime));
+                    g2.setColor(getQueueTimeColor(queueTime, processingTime));
+                    g2.fillRect(x, y, width, queueHeight);
+                    g2.setColor(barColor);
+                    g2.fillRect(x, y + queueHeight, width, barHeight - queueHeight);
+                } else {
+                    g2.setColor(barColor);
+                    g2.fillRect(x, y, width, barHeight);
+                }
+            }
+        }
+    }
+    
     private Task getTaskAt(int mouseX, int mouseY) {
         if (tasks.isEmpty()) return null;
         
         List<String> displayGroups = displayByVersion ? uniqueVersions : uniqueServices;
-        Map<String, Integer> displayLanes = displayByVersion ? versionLanes : serviceLanes;
         
         if (displayGroups.isEmpty()) return null;
         
+        // Same geometry as paintComponent
         Graphics2D g2 = (Graphics2D) getGraphics();
         int leftMargin = calculateLeftMargin(g2, displayGroups);
         int topMargin = Math.round(80 * fontScaleFactor);
-        int rightMargin = 13;
+        int rightMargin = 50;
         int chartWidth = getWidth() - leftMargin - rightMargin;
         
         int numLanes = displayGroups.size();
-        int fullLaneHeight = (getHeight() - topMargin - 15) / numLanes;
+        int fullLaneHeight = (getHeight() - topMargin - 30) / numLanes;
         int laneHeight = (int) (fullLaneHeight * 0.80);
-        
-      //  int barHeight = laneHeight * 2 / 5;
         int barHeight = (int) (laneHeight * 0.75);
         
-        // Use actual display count to match paintComponent scaling
-        int actualDisplayCount = Math.min(tasks.size(), maxDisplayTasks);
+        if (laneHeight <= 0 || mouseY < topMargin || mouseX < leftMargin) return null;
         
-        for (int i = 0; i < actualDisplayCount; i++) {
-            Task task = tasks.get(i);
-            Integer laneIndex;
-            
-            if (displayByVersion) {
-                String version = deriveVersion(task.sequenceId);
-                laneIndex = versionLanes.get(version);
-            } else {
-                laneIndex = serviceLanes.get(task.service);
-            }
-            
-            if (laneIndex == null) continue;
+        int laneIndex = (mouseY - topMargin) / laneHeight;
+        int y = topMargin + (laneIndex * laneHeight) + (laneHeight - barHeight) - 5;
+        if (mouseY < y || mouseY > y + barHeight) return null;
             
-            // FIX: Use task index (i) instead of database ID for X position
-            // Use actualDisplayCount to match paintComponent scaling
-            int x = leftMargin + (i * chartWidth / Math.max(1, actualDisplayCount));
-            
-            // FIXED WIDTH - all bars same width for timeline visualization
-            // Use actualDisplayCount to match paintComponent scaling
-            int barWidth = Math.max(8, (chartWidth / Math.max(1, actualDisplayCount)) - 4);
-            
-            int queueBarWidth = 0;
-            if (showQueueTime && task.queueTime > 0) {
-                queueBarWidth = barWidth / 2;
-            }
-            
-            int y = topMargin + (laneIndex * laneHeight) + ((laneHeight - barHeight) / 2);
-            
-            Rectangle processRect = new Rectangle(x, y, barWidth, barHeight);
-            Rectangle queueRect = new Rectangle(x - queueBarWidth, y, queueBarWidth, barHeight);
+        // The X position gives the task index directly; only the slots under
+        // the mouse are checked instead of scanning the whole run
+        List<Task> displayTasks = getDisplayTasks();
+        int axisCount = getAxisCount();
+        double slotWidth = (double) chartWidth / axisCount;
+        int barWidth = Math.max(8, (chartWidth / axisCount) - 4);
+        
+        int first;
+        int last;
+        if (slotWidth >= MIN_BAR_PIXELS) {
+            first = (int) Math.floor((mouseX - leftMargin - barWidth) / slotWidth);
+            last = (int) ((mouseX - leftMargin) / slotWidth);
+        } else {
+            first = (int) ((mouseX - leftMargin) / slotWidth);
+            last = (int) ((mouseX + 1 - leftMargin) / slotWidth);
+        }
+        first = Math.max(0, first);
+        last = Math.min(displayTasks.size() - 1, last);
+        
+        for (int i = first; i <= last; i++) {
+            Task task = displayTasks.get(i);
+            Integer taskLane = getLaneIndex(task);
+            if (taskLane == null || taskLane != laneIndex) continue;
             
-            if (processRect.contains(mouseX, mouseY) || queueRect.contains(mouseX, mouseY)) {
-                return task;
+            if (slotWidth >= MIN_BAR_PIXELS) {
+                int x = leftMargin + (int) ((long) i * chartWidth / axisCount);
+                if (mouseX < x || mouseX > x + barWidth) continue;
             }
+            return task;
         }
         return null;
     }
@@ -1637,11 +1852,16 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
         }
     }
     
-    public void setMaxDisplayTasks(int max) {
-        this.maxDisplayTasks = max;
-        this.maxId = Math.min(tasks.size(), max) + 1;
+    /**
+     * Horizontal zoom. Every task stays on the chart at any zoom; below
+     * MIN_BAR_PIXELS per task the lanes are drawn from aggregated buckets.
+     *
+     * @param pixels pixels per task, or 0 to fit the whole run to the window
+     */
+    public void setPixelsPerTask(double pixels) {
+        this.pixelsPerTask = Math.max(0, pixels);
         
-        int width = Math.max(700, maxId * 10 + 200);
+        int width = preferredChartWidth();
         
         List<String> displayGroups = displayByVersion ? uniqueVersions : uniqueServices;
         if (displayGroups.isEmpty() && displayByVersion) {
@@ -1839,27 +2059,27 @@ public class SwingGanttChart_WithLatency_v1d extends JPanel {
         viewMenu.add(xAxisMenu);
         viewMenu.addSeparator();
         
-        JMenu truncateMenu = new JMenu("Display Range");
-        ButtonGroup truncateGroup = new ButtonGroup();
+        JMenu zoomMenu = new JMenu("Zoom");
+        ButtonGroup zoomGroup = new ButtonGroup();
         
-        int[] truncateOptions = {20, 30, 40, 60, 80, 100, Integer.MAX_VALUE};
-        String[] truncateLabels = {"First 20 Tasks", "First 30 Tasks", "First 40 Tasks", "First 60 Tasks", 
-                                   "First 80 Tasks", "First 100 Tasks", "Show All"};
+        double[] zoomOptions = {0, 1, 2, 5, 10, 25};
+        String[] zoomLabels = {"Fit Whole Run to Window", "1 px per Task", "2 px per Task", "5 px per Task",
+                               "10 px per Task (Default)", "25 px per Task"};
         
-        for (int i = 0; i < truncateOptions.length; i++) {
-            JRadioButtonMenuItem truncateItem = new JRadioButtonMenuItem(truncateLabels[i]);
-            final int maxTasks = truncateOptions[i];
+        for (int i = 0; i < zoomOptions.length; i++) {
+            JRadioButtonMenuItem zoomItem = new JRadioButtonMenuItem(zoomLabels[i]);
+            final double pixels = zoomOptions[i];
             
-            if (maxTasks == Integer.MAX_VALUE) {
-                truncateItem.setSelected(true);
+            if (pixels == 10) {
+                zoomItem.setSelected(true);
             }
             
-            truncateItem.addActionListener(e -> chart.setMaxDisplayTasks(maxTasks));
-            truncateGroup.add(truncateItem);
-            truncateMenu.add(truncateItem);
+            zoomItem.addActionListener(e -> chart.setPixelsPerTask(pixels));
+            zoomGroup.add(zoomItem);
+            zoomMenu.add(zoomItem);
         }
         
-        viewMenu.add(truncateMenu);
+        viewMenu.add(zoomMenu);
         viewMenu.addSeparator();
         
         JMenu legendMenu = new JMenu("Legend Layout");
@@ -9,7 +9,9 @@ import java.sql.*;
 import java.util.*;
 import java.util.List;
 import java.io.*;
+import java.util.function.Consumer;
 import org.apache.derby.jdbc.EmbeddedDriver;
+import org.btsn.constants.TokenId;
 import org.btsn.constants.VersionConstants;
 
 // For PDF export
@@ -32,6 +34,8 @@ import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
  * - Color coding by workflow version or token family
  * - Hover tooltips with token details
  * - PDF and LaTeX export
+ * - Background loading; large runs are drawn from per-place occupancy
+ *   buckets (LevelOfDetail) instead of one bar per token path
  */
 public class WorkflowSpatialView extends JPanel {
 
@@ -42,9 +46,9 @@ public class WorkflowSpatialView extends JPanel {
     // Data structures
     private List<TokenPath> tokenPaths = new ArrayList<>();
     private List<TokenGenealogy> genealogy = new ArrayList<>();
-    private Map<Integer, List<TokenPath>> tokenPathsById = new HashMap<>();
+    private Map<Long, List<TokenPath>> tokenPathsById = new HashMap<>();
     private Map<Long, Color> workflowColors = new HashMap<>();
-    private Map<Integer, Color> tokenFamilyColors = new HashMap<>();
+    private Map<Long, Color> tokenFamilyColors = new HashMap<>();
     
     // Place ordering (Y-axis)
     private List<String> placeOrder = new ArrayList<>();
@@ -76,7 +80,7 @@ public class WorkflowSpatialView extends JPanel {
     private boolean showExitIndicators = true;  // Show grayed exit arrows to hidden places
     
     // Exit tracking - maps token's last visible path to its exit destination
-    private Map<Integer, String> tokenExitDestinations = new HashMap<>();
+    private Map<Long, String> tokenExitDestinations = new HashMap<>();
     
     // Zoom settings
     private double zoomFactor = 1.0;
@@ -84,6 +88,28 @@ public class WorkflowSpatialView extends JPanel {
     private static final double ZOOM_MAX = 4.0;
     private static final double ZOOM_STEP = 0.1;
     
+    // Time axis stretch - widens the chart without scaling fonts or lanes
+    private int timeStretch = 1;
+    private static final int TIME_STRETCH_MAX = 256;
+    
+    // Level of detail: with more paths than pixel columns, lanes are drawn
+    // from pre-aggregated occupancy buckets instead of individual bars.
+    // One series per fixed service version colour, series 0 for any other.
+    private static final int LOD_MAX_BUCKETS = 1 << 14;
+    private static final int LOD_SERIES = 9;
+    private LevelOfDetail placeLod;
+    private boolean placeLodStale = false;
+    private Map<String, Integer> lodLanes = new HashMap<>();
+    private Map<Long, Integer> pathsPerWorkflow = new HashMap<>();
+    private Set<String> placesSeen = new LinkedHashSet<>();
+    
+    // Background loading
+    private SwingWorker<LoadedLinks, TokenPath> loader;
+    private volatile long expectedMinTime = Long.MAX_VALUE;
+    private volatile long expectedMaxTime = Long.MIN_VALUE;
+    private volatile int expectedPaths = 0;
+    private boolean loading = false;
+    
     // Font settings
     private float fontScaleFactor = 1.0f;
     private Font titleFont;
@@ -122,7 +148,7 @@ public class WorkflowSpatialView extends JPanel {
      * Token path data structure
      */
     public static class TokenPath {
-        int tokenId;
+        long tokenId;
         long workflowBase;
         String placeName;
         long entryTime;
@@ -134,7 +160,7 @@ public class WorkflowSpatialView extends JPanel {
         // Computed display coordinates
         int x, y, width;
         
-        public TokenPath(int tokenId, long workflowBase, String placeName,
+        public TokenPath(long tokenId, long workflowBase, String placeName,
                         long entryTime, long exitTime, long residenceTime) {
             this.tokenId = tokenId;
             this.workflowBase = workflowBase;
@@ -144,18 +170,17 @@ public class WorkflowSpatialView extends JPanel {
             this.residenceTime = residenceTime;
         }
         
-        public int getTokenFamily() {
-            // NEW ENCODING: Extract parent token (workflow base)
-            // childTokenId = parentTokenId + branchNumber (branch 1-99)
-            // Example: 1000001 -> 1000000, 1000002 -> 1000000
-            return tokenId - (tokenId % 100);
+        public long getTokenFamily() {
+            // Extract parent token (workflow base)
+            // Example: v001/42.1 -> v001/42, v001/42.2 -> v001/42
+            return TokenId.parent(tokenId);
         }
         
         /**
-         * Get service version from tokenId using VersionConstants
+         * Get service version from tokenId
          */
         public int getServiceVersion() {
-            return tokenId / VersionConstants.VERSION_BLOCK_SIZE;
+            return TokenId.version(tokenId);
         }
         
         public String getServiceVersionLabel() {
@@ -167,13 +192,13 @@ public class WorkflowSpatialView extends JPanel {
      * Token genealogy (fork relationship)
      */
     public static class TokenGenealogy {
-        int parentTokenId;
-        int childTokenId;
+        long parentTokenId;
+        long childTokenId;
         String forkTransitionId;
         long forkTimestamp;
         long workflowBase;
         
-        public TokenGenealogy(int parentId, int childId, String transition, 
+        public TokenGenealogy(long parentId, long childId, String transition, 
                              long timestamp, long workflowBase) {
             this.parentTokenId = parentId;
             this.childTokenId = childId;
@@ -183,6 +208,16 @@ public class WorkflowSpatialView extends JPanel {
         }
     }
 
+    /**
+     * Genealogy and exit records read by the loader, applied once all
+     * token paths are in
+     */
+    private static class LoadedLinks {
+        List<TokenGenealogy> genealogy = new ArrayList<>();
+        Map<Long, String> exitDestinations = new HashMap<>();
+        boolean exitsAvailable = false;
+    }
+    
     public WorkflowSpatialView() {
         setBackground(Color.WHITE);
         updateFonts();
@@ -191,8 +226,11 @@ public class WorkflowSpatialView extends JPanel {
             @Override
             public void mouseMoved(MouseEvent e) {
                 mousePosition = e.getPoint();
+                TokenPath previous = hoveredPath;
                 hoveredPath = getPathAt(e.getX(), e.getY());
-                repaint();
+                if (hoveredPath != null || previous != null) {
+                    repaint();
+                }
             }
         });
         
@@ -211,9 +249,12 @@ public class WorkflowSpatialView extends JPanel {
             }
         });
         
-        // Ctrl+mouse wheel for zoom
+        // Ctrl+mouse wheel for zoom, Ctrl+Shift+wheel to stretch the time axis
         addMouseWheelListener(e -> {
-            if (e.isControlDown()) {
+            if (e.isControlDown() && e.isShiftDown()) {
+                setTimeStretch(e.getWheelRotation() < 0 ? timeStretch * 2 : timeStretch / 2);
+                e.consume();
+            } else if (e.isControlDown()) {
                 int rotation = e.getWheelRotation();
                 double oldZoom = zoomFactor;
                 
@@ -275,8 +316,8 @@ public class WorkflowSpatialView extends JPanel {
     }
     
     private void calculatePreferredSize() {
-        int visiblePlaceCount = placeOrder.size() - hiddenPlaces.size();
-        int baseWidth = leftMargin + rightMargin + 800;  // Minimum width
+        int visiblePlaceCount = placeLanes.size();
+        int baseWidth = leftMargin + rightMargin + 800 * timeStretch;  // Minimum width
         int baseHeight = topMargin + bottomMargin + (visiblePlaceCount * laneHeight);
         
         // Apply zoom factor to preferred size
@@ -286,9 +327,76 @@ public class WorkflowSpatialView extends JPanel {
     }
 
     /**
-     * Load token path and genealogy data from database
+     * Load token path and genealogy data from database.
+     *
+     * The queries run in a background worker; token paths are published as
+     * they are read and drawn as each chunk arrives, genealogy and exit
+     * destinations are applied once the paths are complete.
      */
     private void loadDataFromDatabase() {
+        if (loader != null && !loader.isDone()) {
+            loader.cancel(true);
+        }
+        
+        tokenPaths.clear();
+        genealogy.clear();
+        placeOrder.clear();
+        placeLanes.clear();
+        tokenPathsById.clear();
+        presentServiceVersions.clear();
+        tokenExitDestinations.clear();
+        placesSeen.clear();
+        pathsPerWorkflow.clear();
+        lodLanes.clear();
+        placeLod = null;
+        placeLodStale = false;
+        hoveredPath = null;
+        minTime = Long.MAX_VALUE;
+        maxTime = Long.MIN_VALUE;
+        expectedMinTime = Long.MAX_VALUE;
+        expectedMaxTime = Long.MIN_VALUE;
+        expectedPaths = 0;
+        loading = true;
+        
+        loader = new SwingWorker<LoadedLinks, TokenPath>() {
+            @Override
+            protected LoadedLinks doInBackground() {
+                return readTokenPaths(path -> publish(path));
+            }
+            
+            @Override
+            protected void process(List<TokenPath> chunk) {
+                if (this == loader && !isCancelled()) {
+                    addTokenPaths(chunk);
+                }
+            }
+            
+            @Override
+            protected void done() {
+                if (this != loader || isCancelled()) {
+                    return;
+                }
+                loading = false;
+                try {
+                    finishLoading(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (java.util.concurrent.ExecutionException e) {
+                    System.err.println("Error loading data: " + e.getCause().getMessage());
+                    e.getCause().printStackTrace();
+                    repaint();
+                }
+            }
+        };
+        loader.execute();
+    }
+    
+    /**
+     * Runs on the loader thread: streams token paths to the sink and returns
+     * the genealogy and exit records. Nothing here touches Swing state.
+     */
+    private LoadedLinks readTokenPaths(Consumer<TokenPath> sink) {
+        LoadedLinks links = new LoadedLinks();
         Connection conn = null;
         Statement stmt = null;
         ResultSet rs = null;
@@ -298,12 +406,16 @@ public class WorkflowSpatialView extends JPanel {
             conn = DriverManager.getConnection(DB_URL);
             stmt = conn.createStatement();
             
-            tokenPaths.clear();
-            genealogy.clear();
-            placeOrder.clear();
-            placeLanes.clear();
-            tokenPathsById.clear();
-            presentServiceVersions.clear();
+            // Time range and size first, so the buckets and the time axis
+            // have their final scale while the paths stream in
+            rs = stmt.executeQuery(
+                "SELECT MIN(entryTime), MAX(exitTime), COUNT(*) FROM CONSOLIDATED_TOKEN_PATHS");
+            if (rs.next()) {
+                expectedMinTime = rs.getLong(1);
+                expectedMaxTime = rs.getLong(2);
+                expectedPaths = rs.getInt(3);
+            }
+            rs.close();
             
             // Load token paths from CONSOLIDATED_TOKEN_PATHS
             String pathQuery = 
@@ -315,12 +427,13 @@ public class WorkflowSpatialView extends JPanel {
             System.out.println("Loading token paths from CONSOLIDATED_TOKEN_PATHS...");
             rs = stmt.executeQuery(pathQuery);
             
-            Set<String> places = new LinkedHashSet<>();
-            Set<Long> workflows = new HashSet<>();
-            
             while (rs.next()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return links;  // Superseded by a newer load
+                }
+            
                 TokenPath path = new TokenPath(
-                    rs.getInt("tokenId"),
+                    rs.getLong("tokenId"),
                     rs.getLong("workflowBase"),
                     rs.getString("placeName"),
                     rs.getLong("entryTime"),
@@ -330,47 +443,10 @@ public class WorkflowSpatialView extends JPanel {
                 path.entryBufferSize = rs.getInt("entryBufferSize");
                 path.exitBufferSize = rs.getInt("exitBufferSize");
                 
-                tokenPaths.add(path);
-                places.add(path.placeName);
-                workflows.add(path.workflowBase);
-                presentServiceVersions.add(path.getServiceVersion());
-                
-                // Track time range
-                if (path.entryTime < minTime) minTime = path.entryTime;
-                if (path.exitTime > maxTime) maxTime = path.exitTime;
-                
-                // Group by token ID for flow line drawing
-                tokenPathsById.computeIfAbsent(path.tokenId, k -> new ArrayList<>()).add(path);
+                sink.accept(path);
             }
             rs.close();
             
-            System.out.println("Loaded " + tokenPaths.size() + " token paths");
-            System.out.println("Places found: " + places);
-            System.out.println("Workflows found: " + workflows);
-            
-            // Order places logically (P1 → P2 → P3 → P4 → Monitor)
-            String[] preferredOrder = {"P1_Place", "P2_Place", "P3_Place", "P4_Place", "MonitorService", "TERMINATE"};
-            for (String p : preferredOrder) {
-                if (places.contains(p)) {
-                    placeOrder.add(p);
-                    places.remove(p);
-                }
-            }
-            // Add any remaining places
-            placeOrder.addAll(places);
-            
-            // Assign lane indices
-            for (int i = 0; i < placeOrder.size(); i++) {
-                placeLanes.put(placeOrder.get(i), i);
-            }
-            
-            // Assign workflow colors
-            int colorIdx = 0;
-            for (Long wf : workflows) {
-                workflowColors.put(wf, workflowPalette[colorIdx % workflowPalette.length]);
-                colorIdx++;
-            }
-            
             // Load genealogy from CONSOLIDATED_TOKEN_GENEALOGY
             String genealogyQuery = 
                 "SELECT parentTokenId, childTokenId, forkTransitionId, forkTimestamp, workflowBase " +
@@ -382,20 +458,19 @@ public class WorkflowSpatialView extends JPanel {
             
             while (rs.next()) {
                 TokenGenealogy gen = new TokenGenealogy(
-                    rs.getInt("parentTokenId"),
-                    rs.getInt("childTokenId"),
+                    rs.getLong("parentTokenId"),
+                    rs.getLong("childTokenId"),
                     rs.getString("forkTransitionId"),
                     rs.getLong("forkTimestamp"),
                     rs.getLong("workflowBase")
                 );
-                genealogy.add(gen);
+                links.genealogy.add(gen);
             }
             rs.close();
             
-            System.out.println("Loaded " + genealogy.size() + " genealogy records");
+            System.out.println("Loaded " + links.genealogy.size() + " genealogy records");
             
             // Load exit destinations from CONSOLIDATED_TRANSITION_FIRINGS (tokens exiting to hidden places)
-            tokenExitDestinations.clear();
             String exitQuery = 
                 "SELECT tokenId, toPlace FROM CONSOLIDATED_TRANSITION_FIRINGS " +
                 "WHERE eventType = 'EXIT' AND toPlace IN ('MonitorService', 'TERMINATE') " +
@@ -404,18 +479,17 @@ public class WorkflowSpatialView extends JPanel {
             try {
                 rs = stmt.executeQuery(exitQuery);
                 while (rs.next()) {
-                    int tokenId = rs.getInt("tokenId");
+                    long tokenId = rs.getLong("tokenId");
                     String dest = rs.getString("toPlace");
                     // Only store if not already tracked (we want the last exit)
-                    tokenExitDestinations.putIfAbsent(tokenId, dest);
+                    links.exitDestinations.putIfAbsent(tokenId, dest);
                 }
                 rs.close();
-                System.out.println("Loaded " + tokenExitDestinations.size() + " exit destinations");
+                links.exitsAvailable = true;
+                System.out.println("Loaded " + links.exitDestinations.size() + " exit destinations");
             } catch (SQLException exitEx) {
-                // Table might not exist or be empty - fall back to deriving from paths
+                // Table might not exist or be empty - exit destinations are derived from the paths once loaded
                 System.out.println("CONSOLIDATED_TRANSITION_FIRINGS not available, deriving exit destinations from paths");
-                deriveExitDestinations();
-                System.out.println("Derived " + tokenExitDestinations.size() + " exit destinations");
             }
             
         } catch (SQLException e) {
@@ -430,6 +504,115 @@ public class WorkflowSpatialView extends JPanel {
                 // Ignore
             }
         }
+        return links;
+    }
+    
+    /**
+     * Append a chunk of loaded token paths. Runs on the event dispatch thread.
+     */
+    private void addTokenPaths(List<TokenPath> chunk) {
+        if (placeLod == null) {
+            // Use the full time range when known, so bars don't shift as chunks arrive
+            if (expectedPaths > 0 && expectedMaxTime > expectedMinTime) {
+                minTime = Math.min(minTime, expectedMinTime);
+                maxTime = Math.max(maxTime, expectedMaxTime);
+            }
+            for (TokenPath path : chunk) {
+                if (path.entryTime < minTime) minTime = path.entryTime;
+                if (path.exitTime > maxTime) maxTime = path.exitTime;
+            }
+            placeLod = new LevelOfDetail(LOD_SERIES, minTime, maxTime, LOD_MAX_BUCKETS);
+        }
+        
+        for (TokenPath path : chunk) {
+            tokenPaths.add(path);
+            placesSeen.add(path.placeName);
+            presentServiceVersions.add(path.getServiceVersion());
+            pathsPerWorkflow.merge(path.workflowBase, 1, Integer::sum);
+            
+            if (!workflowColors.containsKey(path.workflowBase)) {
+                workflowColors.put(path.workflowBase, workflowPalette[workflowColors.size() % workflowPalette.length]);
+            }
+            
+            // Track time range
+            if (path.entryTime < minTime) minTime = path.entryTime;
+            if (path.exitTime > maxTime) maxTime = path.exitTime;
+            
+            // Group by token ID for flow line drawing
+            tokenPathsById.computeIfAbsent(path.tokenId, k -> new ArrayList<>()).add(path);
+            
+            if (placeLod.covers(path.entryTime) && placeLod.covers(path.exitTime)) {
+                addToLod(placeLod, path);
+            } else {
+                placeLodStale = true;  // Range grew since it was sized; rebuilt once loading ends
+            }
+        }
+        
+        orderPlaces();
+        calculatePreferredSize();
+        revalidate();
+        repaint();
+    }
+    
+    private void finishLoading(LoadedLinks links) {
+        genealogy.clear();
+        genealogy.addAll(links.genealogy);
+        
+        tokenExitDestinations.clear();
+        if (links.exitsAvailable) {
+            tokenExitDestinations.putAll(links.exitDestinations);
+        } else {
+            deriveExitDestinations();
+            System.out.println("Derived " + tokenExitDestinations.size() + " exit destinations");
+        }
+        
+        if (placeLodStale) {
+            placeLod = new LevelOfDetail(LOD_SERIES, minTime, maxTime, LOD_MAX_BUCKETS);
+            for (TokenPath path : tokenPaths) {
+                addToLod(placeLod, path);
+            }
+            placeLodStale = false;
+        }
+        
+        System.out.println("Loaded " + tokenPaths.size() + " token paths");
+        System.out.println("Places found: " + placesSeen);
+        System.out.println("Workflows found: " + pathsPerWorkflow.keySet());
+        
+        calculatePreferredSize();
+        revalidate();
+        repaint();
+    }
+    
+    /**
+     * Order places logically (P1 → P2 → P3 → P4 → Monitor), then any others
+     * in the order they were first seen.
+     */
+    private void orderPlaces() {
+        Set<String> places = new LinkedHashSet<>(placesSeen);
+        placeOrder.clear();
+        
+        String[] preferredOrder = {"P1_Place", "P2_Place", "P3_Place", "P4_Place", "MonitorService", "TERMINATE"};
+        for (String p : preferredOrder) {
+            if (places.contains(p)) {
+                placeOrder.add(p);
+                places.remove(p);
+            }
+        }
+        // Add any remaining places
+        placeOrder.addAll(places);
+        
+        rebuildPlaceLanes();
+    }
+    
+    /**
+     * Spread a path's residence over the time buckets of its place, so each
+     * bucket holds token-milliseconds per service version.
+     */
+    private void addToLod(LevelOfDetail lod, TokenPath path) {
+        int lane = lodLanes.computeIfAbsent(path.placeName, k -> lodLanes.size());
+        int version = path.getServiceVersion();
+        int series = serviceVersionColors.containsKey(version) ? version : 0;
+        lod.add(lane, series, path.entryTime, path.exitTime, Math.max(1, path.exitTime - path.entryTime));
     }
     
     /**
@@ -444,8 +627,8 @@ public class WorkflowSpatialView extends JPanel {
         terminalPlaces.add("P6_Place");  // Known terminal place for this workflow
         
         // For each token, find their last path and check if it's at a terminal place
-        for (Map.Entry<Integer, List<TokenPath>> entry : tokenPathsById.entrySet()) {
-            int tokenId = entry.getKey();
+        for (Map.Entry<Long, List<TokenPath>> entry : tokenPathsById.entrySet()) {
+            long tokenId = entry.getKey();
             List<TokenPath> paths = entry.getValue();
             if (paths.isEmpty()) continue;
             
@@ -475,6 +658,11 @@ public class WorkflowSpatialView extends JPanel {
             return;
         }
         
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, (int)(getWidth() / zoomFactor), (int)(getHeight() / zoomFactor));
+        }
+        
         // Use unscaled dimensions for chart layout calculations
         int chartWidth = (int)(getWidth() / zoomFactor) - leftMargin - rightMargin;
         int chartHeight = placeOrder.size() * laneHeight;
@@ -520,6 +708,23 @@ public class WorkflowSpatialView extends JPanel {
         // Draw time axis
         drawTimeAxis(g2, chartWidth);
         
+        if (loading) {
+            g2.setFont(axisFont);
+            g2.setColor(Color.GRAY);
+            g2.drawString("Loading... " + tokenPaths.size() + " of " + expectedPaths + " token paths",
+                         leftMargin, 48);
+        }
+        
+        // Individual bars and flow lines while there is at most about one
+        // path per pixel column; past that each lane is drawn from the
+        // occupancy buckets, so a repaint costs O(chart width) rather than
+        // O(paths). A single workflow is always drawn in full.
+        if (isAggregated(chartWidth)) {
+            drawOccupancy(g2, chartWidth, clip);
+            drawLegend(g2, true);
+            return;
+        }
+        
         // Calculate token bar positions
         long timeRange = maxTime - minTime;
         if (timeRange <= 0) timeRange = 1;
@@ -543,7 +748,7 @@ public class WorkflowSpatialView extends JPanel {
         
         // Draw flow lines (connecting same token across places)
         if (showFlowLines) {
-            drawFlowLines(g2);
+            drawFlowLines(g2, clip);
         }
         
         // Draw fork lines
@@ -557,6 +762,9 @@ public class WorkflowSpatialView extends JPanel {
             if (selectedWorkflowBase > 0 && path.workflowBase != selectedWorkflowBase) {
                 continue;
             }
+            if (path.x > clip.x + clip.width || path.x + path.width < clip.x) {
+                continue;
+            }
             drawTokenBar(g2, path);
         }
         
@@ -569,12 +777,62 @@ public class WorkflowSpatialView extends JPanel {
         }
         
         // Draw legend
-        drawLegend(g2);
+        drawLegend(g2, false);
+    }
+    
+    private boolean isAggregated(int chartWidth) {
+        if (placeLod == null || selectedWorkflowBase > 0) {
+            return false;
+        }
+        return tokenPaths.size() > chartWidth;
+    }
+    
+    /**
+     * Zoomed-out rendering: one column per time bucket (about one per pixel)
+     * in each visible lane, its height the mean number of tokens resident in
+     * that slice of time, stacked by service version.
+     */
+    private void drawOccupancy(Graphics2D g2, int chartWidth, Rectangle clip) {
+        int level = placeLod.levelFor(chartWidth);
+        int buckets = placeLod.buckets(level);
+        double peak = placeLod.peakTotal(level);
+        if (peak <= 0) return;
+        
+        double bucketWidth = (double) chartWidth / buckets;
+        int first = Math.max(0, (int)((clip.x - leftMargin) / bucketWidth));
+        int last = Math.min(buckets - 1, (int)((clip.x + clip.width - leftMargin) / bucketWidth));
+        int columnHeight = laneHeight - 10;
+        
+        for (Map.Entry<String, Integer> lane : lodLanes.entrySet()) {
+            Integer laneIdx = placeLanes.get(lane.getKey());
+            if (laneIdx == null) continue;  // Hidden place
+            
+            int baseY = topMargin + ((laneIdx + 1) * laneHeight) - 5;
+            for (int b = first; b <= last; b++) {
+                int x = leftMargin + (int)(b * bucketWidth);
+                int width = Math.max(1, leftMargin + (int)((b + 1) * bucketWidth) - x);
+                int y = baseY;
+                for (int series = 0; series < LOD_SERIES; series++) {
+                    double value = placeLod.value(level, lane.getValue(), series, b);
+                    if (value <= 0) continue;
+                    int height = (int) Math.ceil(columnHeight * value / peak);
+                    g2.setColor(serviceVersionColors.getOrDefault(series, Color.GRAY));
+                    g2.fillRect(x, y - height, width, height);
+                    y -= height;
+                }
+            }
+        }
     }
     
     private void drawNoDataMessage(Graphics2D g2) {
         g2.setFont(titleFont);
         g2.setColor(Color.GRAY);
+        if (loading) {
+            String msg = "Loading token paths...";
+            FontMetrics fm = g2.getFontMetrics();
+            g2.drawString(msg, (getWidth() - fm.stringWidth(msg)) / 2, getHeight() / 2);
+            return;
+        }
         String msg = "No token path data available";
         FontMetrics fm = g2.getFontMetrics();
         g2.drawString(msg, (getWidth() - fm.stringWidth(msg)) / 2, getHeight() / 2);
@@ -632,7 +890,7 @@ public class WorkflowSpatialView extends JPanel {
             int serviceVersion = path.getServiceVersion();
             barColor = serviceVersionColors.getOrDefault(serviceVersion, Color.GRAY);
         } else {
-            int family = path.getTokenFamily();
+            long family = path.getTokenFamily();
             barColor = tokenFamilyColors.computeIfAbsent(family, 
                 k -> workflowPalette[Math.abs(k.hashCode()) % workflowPalette.length]);
         }
@@ -667,20 +925,20 @@ public class WorkflowSpatialView extends JPanel {
         }
     }
     
-    private void drawFlowLines(Graphics2D g2) {
+    private void drawFlowLines(Graphics2D g2, Rectangle clip) {
         g2.setStroke(new BasicStroke(1.5f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
         
         // Build a set of parent token IDs that have forks (for detecting fork gaps)
-        Set<Integer> parentTokensWithForks = new HashSet<>();
-        Map<Integer, Long> parentForkTimes = new HashMap<>();
+        Set<Long> parentTokensWithForks = new HashSet<>();
+        Map<Long, Long> parentForkTimes = new HashMap<>();
         for (TokenGenealogy gen : genealogy) {
             parentTokensWithForks.add(gen.parentTokenId);
             // Track earliest fork time for each parent
             parentForkTimes.merge(gen.parentTokenId, gen.forkTimestamp, Math::min);
         }
         
-        for (Map.Entry<Integer, List<TokenPath>> entry : tokenPathsById.entrySet()) {
-            int tokenId = entry.getKey();
+        for (Map.Entry<Long, List<TokenPath>> entry : tokenPathsById.entrySet()) {
+            long tokenId = entry.getKey();
             List<TokenPath> paths = entry.getValue();
             if (paths.size() < 2) continue;
             
@@ -718,6 +976,11 @@ public class WorkflowSpatialView extends JPanel {
                 // Use bottom-left for upward arrows, top-left for downward arrows
                 int y2 = (to.y < from.y) ? to.y + barHeight : to.y;
                 
+                // Off-screen when the time axis is stretched
+                if (Math.max(x1, x2) < clip.x || Math.min(x1, x2) > clip.x + clip.width) {
+                    continue;
+                }
+                
                 // Draw straight line
                 g2.drawLine(x1, y1, x2, y2);
                 
@@ -773,7 +1036,7 @@ public class WorkflowSpatialView extends JPanel {
      * Find the parent's path at the fork point (where fork happened).
      * This is the path whose exitTime is closest to and before the forkTimestamp.
      */
-    private TokenPath findParentPathAtFork(int parentTokenId, long forkTimestamp) {
+    private TokenPath findParentPathAtFork(long parentTokenId, long forkTimestamp) {
         List<TokenPath> paths = tokenPathsById.get(parentTokenId);
         if (paths == null || paths.isEmpty()) return null;
         
@@ -808,13 +1071,13 @@ public class WorkflowSpatialView extends JPanel {
         g2.setStroke(new BasicStroke(2f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
         
         // Group children by parent
-        Map<Integer, List<TokenGenealogy>> childrenByParent = new HashMap<>();
+        Map<Long, List<TokenGenealogy>> childrenByParent = new HashMap<>();
         for (TokenGenealogy gen : genealogy) {
             childrenByParent.computeIfAbsent(gen.parentTokenId, k -> new ArrayList<>()).add(gen);
         }
         
-        for (Map.Entry<Integer, List<TokenGenealogy>> entry : childrenByParent.entrySet()) {
-            int parentId = entry.getKey();
+        for (Map.Entry<Long, List<TokenGenealogy>> entry : childrenByParent.entrySet()) {
+            long parentId = entry.getKey();
             List<TokenGenealogy> children = entry.getValue();
             
             if (selectedWorkflowBase > 0) {
@@ -868,7 +1131,7 @@ public class WorkflowSpatialView extends JPanel {
      * Find the parent's path at the join point (where parent reconstitutes after fork).
      * This is the first path whose entryTime is after the forkTimestamp.
      */
-    private TokenPath findParentPathAtJoin(int parentTokenId, long forkTimestamp) {
+    private TokenPath findParentPathAtJoin(long parentTokenId, long forkTimestamp) {
         List<TokenPath> paths = tokenPathsById.get(parentTokenId);
         if (paths == null || paths.isEmpty()) return null;
         
@@ -886,7 +1149,7 @@ public class WorkflowSpatialView extends JPanel {
         return best;
     }
     
-    private TokenPath findPathForToken(int tokenId, boolean lastPath) {
+    private TokenPath findPathForToken(long tokenId, boolean lastPath) {
         List<TokenPath> paths = tokenPathsById.get(tokenId);
         if (paths == null || paths.isEmpty()) return null;
         
@@ -916,8 +1179,8 @@ public class WorkflowSpatialView extends JPanel {
         // Group exits by destination for cleaner display
         Map<String, List<TokenPath>> exitsByDestination = new HashMap<>();
         
-        for (Map.Entry<Integer, String> exit : tokenExitDestinations.entrySet()) {
-            int tokenId = exit.getKey();
+        for (Map.Entry<Long, String> exit : tokenExitDestinations.entrySet()) {
+            long tokenId = exit.getKey();
             String destination = exit.getValue();
             
             // Only show exits to hidden places
@@ -1030,7 +1293,7 @@ public class WorkflowSpatialView extends JPanel {
         }
     }
     
-    private void drawLegend(Graphics2D g2) {
+    private void drawLegend(Graphics2D g2, boolean aggregated) {
         int legendX = leftMargin;
         int legendY = getHeight() - 35;
         
@@ -1054,11 +1317,19 @@ public class WorkflowSpatialView extends JPanel {
         
         // Instructions
         g2.setColor(Color.GRAY);
-        String hint = "Double-click bar to filter by workflow. Double-click again to show all.";
+        String hint = aggregated ?
+            "Column height = mean tokens resident. Ctrl+Shift+wheel stretches time to show individual tokens." :
+            "Double-click bar to filter by workflow. Double-click again to show all.";
         g2.drawString(hint, getWidth() - fm.stringWidth(hint) - 20, legendY + 10);
     }
     
     private TokenPath getPathAt(int x, int y) {
+        // Aggregated view has no individual bars to hit
+        int chartWidth = (int)(getWidth() / zoomFactor) - leftMargin - rightMargin;
+        if (isAggregated(chartWidth)) {
+            return null;
+        }
+        
         // Adjust mouse coordinates for zoom
         int adjustedX = (int)(x / zoomFactor);
         int adjustedY = (int)(y / zoomFactor);
@@ -1150,6 +1421,22 @@ public class WorkflowSpatialView extends JPanel {
         return zoomFactor;
     }
     
+    /**
+     * Stretch the time axis by a power of two (1 = fit 800px). Unlike the
+     * uniform zoom this only widens the chart, so a long run can be
+     * scrolled through at token resolution.
+     */
+    public void setTimeStretch(int stretch) {
+        this.timeStretch = Math.max(1, Math.min(TIME_STRETCH_MAX, stretch));
+        calculatePreferredSize();
+        revalidate();
+        repaint();
+    }
+    
+    public int getTimeStretch() {
+        return timeStretch;
+    }
+    
     public void zoomIn() {
         setZoomFactor(zoomFactor + ZOOM_STEP);
     }
@@ -1402,12 +1689,12 @@ public class WorkflowSpatialView extends JPanel {
             report.append("Fork Events:\n");
             report.append("-".repeat(40)).append("\n");
             
-            Map<Integer, List<TokenGenealogy>> byParent = new HashMap<>();
+            Map<Long, List<TokenGenealogy>> byParent = new HashMap<>();
             for (TokenGenealogy gen : genealogy) {
                 byParent.computeIfAbsent(gen.parentTokenId, k -> new ArrayList<>()).add(gen);
             }
             
-            for (Map.Entry<Integer, List<TokenGenealogy>> e : byParent.entrySet()) {
+            for (Map.Entry<Long, List<TokenGenealogy>> e : byParent.entrySet()) {
                 report.append(String.format("  Token %d forked into %d children: ",
                     e.getKey(), e.getValue().size()));
                 for (TokenGenealogy gen : e.getValue()) {
@@ -1516,18 +1803,31 @@ public class WorkflowSpatialView extends JPanel {
         
         viewMenu.addSeparator();
         
-        // Places visibility submenu
+        // Places visibility submenu - filled when opened, as places arrive while the run loads
         JMenu placesMenu = new JMenu("Show/Hide Places");
         // Default: hide MonitorService and TERMINATE
         chart.setPlaceVisible("MonitorService", false);
         chart.setPlaceVisible("TERMINATE", false);
         
-        for (String place : chart.getAllPlaces()) {
-            boolean defaultVisible = !place.equals("MonitorService") && !place.equals("TERMINATE");
-            JCheckBoxMenuItem placeItem = new JCheckBoxMenuItem(place, defaultVisible);
-            placeItem.addActionListener(e -> chart.setPlaceVisible(place, placeItem.isSelected()));
-            placesMenu.add(placeItem);
-        }
+        placesMenu.addMenuListener(new javax.swing.event.MenuListener() {
+            @Override
+            public void menuSelected(javax.swing.event.MenuEvent e) {
+                placesMenu.removeAll();
+                for (String place : chart.getAllPlaces()) {
+                    JCheckBoxMenuItem placeItem = new JCheckBoxMenuItem(place, chart.isPlaceVisible(place));
+                    placeItem.addActionListener(ev -> chart.setPlaceVisible(place, placeItem.isSelected()));
+                    placesMenu.add(placeItem);
+                }
+            }
+            
+            @Override
+            public void menuDeselected(javax.swing.event.MenuEvent e) {
+            }
+            
+            @Override
+            public void menuCanceled(javax.swing.event.MenuEvent e) {
+            }
+        });
         viewMenu.add(placesMenu);
         
         viewMenu.addSeparator();
@@ -1581,6 +1881,21 @@ public class WorkflowSpatialView extends JPanel {
             item.addActionListener(e -> chart.setZoomFactor(zoom));
             zoomMenu.add(item);
         }
+        
+        zoomMenu.addSeparator();
+        
+        // Time axis stretch (Ctrl+Shift+wheel)
+        JMenu stretchMenu = new JMenu("Stretch Time Axis");
+        ButtonGroup stretchGroup = new ButtonGroup();
+        int[] stretches = {1, 2, 4, 8, 16, 32, 64, 128, 256};
+        for (int stretch : stretches) {
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(stretch + "x");
+            if (stretch == 1) item.setSelected(true);
+            item.addActionListener(e -> chart.setTimeStretch(stretch));
+            stretchGroup.add(item);
+            stretchMenu.add(item);
+        }
+        zoomMenu.add(stretchMenu);
         viewMenu.add(zoomMenu);
         
         menuBar.add(fileMenu);
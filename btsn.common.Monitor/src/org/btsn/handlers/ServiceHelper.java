@@ -1,14 +1,31 @@
 package org.btsn.handlers;
 
+import java.io.File;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
 
 import org.apache.log4j.Logger;
-import org.btsn.json.jsonLibrary;
+import org.btsn.base.ManagedService;
+import org.btsn.base.ServiceContext;
+import org.btsn.json.TokenDocument;
+import org.btsn.utils.ClaimCheck;
+import org.btsn.utils.LoaderSettings;
+import org.btsn.utils.SimulationClock;
+import org.btsn.utils.StringFileIO;
 import org.json.simple.JSONObject;
 
 /**
@@ -30,6 +47,39 @@ import org.json.simple.JSONObject;
  *     
  * FIX: Now properly handles JOIN nodes with multiple arguments (e.g., 3 tokens)
  * 
+ * SINGLE PARSE: Each argument is parsed once into a TokenDocument that is
+ * threaded through metadata extraction, service invocation and enrichment.
+ * Services that declare TokenDocument parameters receive the parsed form
+ * (and may return a TokenDocument); String services receive the document's
+ * text, which is the original token text when nothing was stripped. A hop
+ * does one parse and one serialization instead of five or six.
+ * 
+ * CLAIM CHECK: With <ClaimCheckSettings> enabled, large result fields
+ * (original_token, nested upstream results) are checked into the
+ * ClaimCheck store during enrichment and travel as small references, so
+ * the token no longer grows with every hop. An original_token that
+ * arrives as a reference is carried forward without being fetched.
+ * References are resolved on read by TokenDocument/JsonTokenParser, and
+ * expanded in full for services that take the token as a String.
+ * 
+ * SERVICE LIFECYCLE: A service implementing org.btsn.base.ManagedService is
+ * created and initialised once per service operation and kept for every
+ * later token - one shared instance, or a pool of instances each serving
+ * one token at a time - and closed at shutdown (closeManagedServices()).
+ * Per-token context goes in as an argument: a shared instance's
+ * (sequenceID, args...) overload is preferred, as for getInstance()
+ * singletons, and a pooled instance is bound to the token's sequenceID.
+ * Other services are still constructed for each token.
+ * 
+ * ASYNC SERVICES: With <AsyncSettings> enabled, an operation that has an
+ * <operation>Async variant with the same parameters returning a
+ * CompletionStage (e.g. CompletableFuture<String>) is invoked through
+ * processAsync(). The service method returns as soon as its work is under
+ * way and the result is enriched when the stage completes, so a place
+ * waiting on a delay or an external system does not hold its ServiceThread;
+ * ServiceThread routes the token when the future completes, with at most
+ * maxInFlight invocations outstanding per operation.
+ * 
  * @author ACameron
  */
 public class ServiceHelper {
@@ -47,6 +97,26 @@ public class ServiceHelper {
 	private static final String SERVICE_END_TIME = "service_end_time";
 	private static final String SERVICE_PROCESSING_TIME = "service_processing_time_ms";
 	
+	// Managed service instances kept between tokens, per service#operation
+	private static final Map<String, ManagedInstances> managedServices = new ConcurrentHashMap<>();
+	
+	// Async invocation (<AsyncSettings>)
+	private static final String ASYNC_SUFFIX = "Async";
+	private static boolean asyncEnabled = false;
+	private static int asyncMaxInFlight = 64;
+	// service.operation -> permits for its outstanding async invocations
+	private static final Map<String, Semaphore> asyncSlots = new ConcurrentHashMap<>();
+	
+	// Fields added by ServiceHelper itself - see isInfrastructureField()
+	private static final Set<String> INFRASTRUCTURE_FIELDS = new HashSet<>(Arrays.asList(
+		ORIGINAL_TOKEN, SERVICE_START_TIME, SERVICE_END_TIME, SERVICE_PROCESSING_TIME));
+	
+	// Fields never replaced by a claim-check reference (routing, identity, timing)
+	private static final Set<String> INLINE_FIELDS = new HashSet<>(Arrays.asList(
+		WORKFLOW_START_TIME, SERVICE_START_TIME, SERVICE_END_TIME, SERVICE_PROCESSING_TIME,
+		"routing_decision", "tokenId", "version", "notAfter", "currentPlace", "status",
+		"sequenceId", "placeId", "serviceType", "marking", "executionTime", PriorityClasses.HEADER_ELEMENT));
+	
 	// Fork/Join synchronization now uses token ID encoding instead of payload fields
 	// Token ID format: parentTokenId + (joinCount * 100) + branchNumber
 
@@ -68,6 +138,8 @@ public class ServiceHelper {
 		NAME_TO_TYPE.put("float", float.class);
 		NAME_TO_TYPE.put("double", double.class);
 		NAME_TO_TYPE.put("String", String.class);
+
+		loadAsyncConfiguration();
 	}
 
 	public static String getReturnType() {
@@ -132,57 +204,25 @@ public class ServiceHelper {
 			// ================================================================
 			
 			// FIX: Process ALL input arguments (critical for JOIN nodes with multiple inputs)
-			ArrayList<String> cleanedArguments = new ArrayList<>();
-			
-			for (int i = 0; i < inputArgs.size(); i++) {
-				String rawToken = inputArgs.get(i).toString();
-				logger.debug("Processing argument " + (i+1) + "/" + inputArgs.size() + 
-				            ", raw length: " + rawToken.length());
-				
-				// Extract infrastructure metadata (from first token primarily)
-				if (i == 0) {
-					metadata = extractMetadata(rawToken);
-					
-					// Initialize workflow start time if this is first service
-					if (metadata.workflowStartTime == null) {
-						metadata.workflowStartTime = System.currentTimeMillis();
-						logger.info("ENRICHMENT: Initialized workflow start time (first service)");
-					}
-				} else {
-					// For additional tokens (JOIN case), verify/preserve metadata consistency
-					TokenMetadata additionalMetadata = extractMetadata(rawToken);
-					if (additionalMetadata.workflowStartTime != null && metadata.workflowStartTime == null) {
-						metadata.workflowStartTime = additionalMetadata.workflowStartTime;
-						logger.debug("ENRICHMENT: Using workflow start time from token " + (i+1));
-					}
-				}
-				
-				// Extract CLEAN business data (remove all infrastructure fields)
-				String cleanBusinessData = extractBusinessData(rawToken);
-				cleanedArguments.add(cleanBusinessData);
-				logger.debug("ENRICHMENT: Cleaned argument " + (i+1) + ", length: " + cleanBusinessData.length() + 
-				            " (removed " + (rawToken.length() - cleanBusinessData.length()) + " bytes of metadata)");
-			}
-			
-			logger.info("ENRICHMENT: Extracted " + cleanedArguments.size() + 
-			           " clean business data arguments (removed infrastructure metadata)");
+			ArrayList<TokenDocument> cleanedArguments = new ArrayList<>();
+			metadata = extractArguments(inputArgs, cleanedArguments);
 			
 			// ================================================================
 			// PHASE 2: INVOKE SERVICE WITH CLEAN DATA
 			// ================================================================
 			
 			// Capture service start time
-			long serviceStartTime = System.currentTimeMillis();
+			long serviceStartTime = SimulationClock.now();
 			metadata.serviceStartTime = serviceStartTime;
 			
 			logger.info("SERVICE INVOKE: Calling " + service + "." + operation + 
 			           " with " + cleanedArguments.size() + " CLEAN business data arguments");
 			
 			// FIX: Invoke service with ALL CLEAN data arguments (supports JOIN with multiple inputs)
-			String serviceResult = invokeServiceMethod(sequenceID, service, operation, cleanedArguments, outputAttributeName);
+			Object serviceResult = invokeServiceMethod(sequenceID, service, operation, cleanedArguments, outputAttributeName);
 			
 			// Capture service end time
-			long serviceEndTime = System.currentTimeMillis();
+			long serviceEndTime = SimulationClock.now();
 			metadata.serviceEndTime = serviceEndTime;
 			
 			long processingTime = serviceEndTime - serviceStartTime;
@@ -208,6 +248,53 @@ public class ServiceHelper {
 		}
 	}
 
+	/**
+	 * PHASE 1 for every argument: parse once, extract the infrastructure
+	 * metadata (first token primarily) and add the clean business data to
+	 * cleanedArguments
+	 */
+	private TokenMetadata extractArguments(ArrayList<?> inputArgs, ArrayList<TokenDocument> cleanedArguments) {
+		TokenMetadata metadata = null;
+		
+		for (int i = 0; i < inputArgs.size(); i++) {
+			// Parsed once here - every later stage works on this document
+			TokenDocument rawToken = TokenDocument.from(inputArgs.get(i));
+			logger.debug("Processing argument " + (i+1) + "/" + inputArgs.size() + 
+			            ", raw length: " + rawToken.length());
+			
+			// Extract infrastructure metadata (from first token primarily)
+			if (i == 0) {
+				metadata = extractMetadata(rawToken);
+				
+				// Initialize workflow start time if this is first service
+				if (metadata.workflowStartTime == null) {
+					metadata.workflowStartTime = SimulationClock.now();
+					logger.info("ENRICHMENT: Initialized workflow start time (first service)");
+				}
+			} else {
+				// For additional tokens (JOIN case), verify/preserve metadata consistency
+				TokenMetadata additionalMetadata = extractMetadata(rawToken);
+				if (additionalMetadata.workflowStartTime != null && metadata.workflowStartTime == null) {
+					metadata.workflowStartTime = additionalMetadata.workflowStartTime;
+					logger.debug("ENRICHMENT: Using workflow start time from token " + (i+1));
+				}
+			}
+			
+			// Extract CLEAN business data (remove all infrastructure fields)
+			TokenDocument cleanBusinessData = extractBusinessData(rawToken);
+			cleanedArguments.add(cleanBusinessData);
+			if (logger.isDebugEnabled()) {
+				// length() serializes a stripped copy - only worth it when logging
+				logger.debug("ENRICHMENT: Cleaned argument " + (i+1) + ", length: " + cleanBusinessData.length() + 
+				            " (removed " + (rawToken.length() - cleanBusinessData.length()) + " bytes of metadata)");
+			}
+		}
+		
+		logger.info("ENRICHMENT: Extracted " + cleanedArguments.size() + 
+		           " clean business data arguments (removed infrastructure metadata)");
+		return metadata;
+	}
+
 	/**
 	 * LEGACY METHOD - for backward compatibility
 	 * Calls new enriched version with inferred outputAttributeName
@@ -223,6 +310,123 @@ public class ServiceHelper {
 		return process(sequenceID, service, operation, inputArgs, effectiveOutputAttr);
 	}
 
+	// ========================================================================
+	// ASYNC INVOCATION
+	// ========================================================================
+
+	public static boolean isAsyncEnabled() {
+		return asyncEnabled;
+	}
+
+	/**
+	 * Outstanding async invocations allowed per operation
+	 */
+	public static int getAsyncMaxInFlight() {
+		return asyncMaxInFlight;
+	}
+
+	/**
+	 * Permits for an operation's outstanding async invocations, shared by
+	 * every ServiceThread serving the operation
+	 */
+	public static Semaphore asyncSlots(String service, String operation) {
+		return asyncSlots.computeIfAbsent(service + "." + operation, key -> new Semaphore(asyncMaxInFlight));
+	}
+
+	/**
+	 * True if async invocation is enabled and the service has an
+	 * <operation>Async variant for this many arguments
+	 */
+	public boolean supportsAsync(String service, String operation, int argumentCount) {
+		if (!asyncEnabled) {
+			return false;
+		}
+		try {
+			Class<?> serviceClass = Class.forName(service);
+			for (Class<?> argumentType : new Class<?>[] { TokenDocument.class, String.class }) {
+				for (boolean withSequenceID : new boolean[] { true, false }) {
+					Method method = findOperation(serviceClass, operation + ASYNC_SUFFIX, argumentCount,
+							withSequenceID, argumentType);
+					if (method != null && CompletionStage.class.isAssignableFrom(method.getReturnType())) {
+						return true;
+					}
+				}
+			}
+		} catch (ClassNotFoundException e) {
+			// process() reports the missing service
+		}
+		return false;
+	}
+
+	/**
+	 * Asynchronous counterpart of process(): the same extract, invoke and
+	 * enrich pipeline against the <operation>Async variant. The future
+	 * completes, on the thread that completes the service's stage, with the
+	 * enriched result; a failed invocation completes it exceptionally.
+	 */
+	public CompletableFuture<ServiceResult> processAsync(String sequenceID, String service, String operation,
+	                                                     ArrayList<?> inputArgs, String outputAttributeName) {
+		String effectiveOutputAttr = outputAttributeName;
+		if (effectiveOutputAttr == null || "null".equals(effectiveOutputAttr)) {
+			effectiveOutputAttr = inferOutputAttributeName(operation);
+		}
+		final String outputAttr = effectiveOutputAttr;
+		
+		try {
+			logger.info("=== ASYNC SERVICE INVOCATION START === " + service + "." + operation + 
+			            ", sequenceID " + sequenceID);
+			
+			ArrayList<TokenDocument> cleanedArguments = new ArrayList<>();
+			TokenMetadata metadata = extractArguments(inputArgs, cleanedArguments);
+			metadata.serviceStartTime = SimulationClock.now();
+			
+			Object pending = invokeServiceMethod(sequenceID, service, operation + ASYNC_SUFFIX, 
+			                                     cleanedArguments, outputAttr);
+			if (!(pending instanceof CompletionStage)) {
+				throw new IllegalStateException(service + "." + operation + ASYNC_SUFFIX + 
+				                                " did not return a CompletionStage");
+			}
+			
+			return ((CompletionStage<?>) pending).toCompletableFuture().thenApply(serviceResult -> {
+				if (serviceResult == null) {
+					throw new IllegalStateException("Service returned null result");
+				}
+				metadata.serviceEndTime = SimulationClock.now();
+				logger.info("ASYNC SERVICE COMPLETE: " + service + "." + operation + " completed in " + 
+				            (metadata.serviceEndTime - metadata.serviceStartTime) + "ms");
+				return new ServiceResult(enrichServiceResult(serviceResult, metadata, outputAttr), "String", metadata);
+			});
+			
+		} catch (Exception e) {
+			logger.error("SERVICE ERROR: Failed to invoke " + service + "." + operation + ASYNC_SUFFIX, e);
+			CompletableFuture<ServiceResult> failed = new CompletableFuture<>();
+			failed.completeExceptionally(new RuntimeException("Service invocation failed", e));
+			return failed;
+		}
+	}
+
+	private static void loadAsyncConfiguration() {
+		try {
+			String loaderSettings = new File("./").getCanonicalPath() + "/ServiceLoaderQueries/loaderSettings.xml";
+			if (new File(loaderSettings).exists()) {
+				String xmlSettings = StringFileIO.readFileAsString(loaderSettings);
+				TreeMap<String, String> settingsMap = LoaderSettings.section(xmlSettings, "AsyncSettings");
+
+				if (settingsMap.containsKey("asyncEnabled")) {
+					asyncEnabled = Boolean.parseBoolean(settingsMap.get("asyncEnabled").trim());
+				}
+				if (settingsMap.containsKey("maxInFlight")) {
+					asyncMaxInFlight = Math.max(1, Integer.parseInt(settingsMap.get("maxInFlight").trim()));
+				}
+			}
+		} catch (Exception e) {
+			logger.info("ServiceHelper: Using default async configuration");
+		}
+		if (asyncEnabled) {
+			logger.info("ServiceHelper: async services enabled, " + asyncMaxInFlight + " in flight per operation");
+		}
+	}
+
 	// ========================================================================
 	// TOKEN ENRICHMENT METHODS
 	// ========================================================================
@@ -234,37 +438,34 @@ public class ServiceHelper {
 	 * - Direct: {"tokenId": "...", "workflow_start_time": ...}
 	 * - Wrapped: {"P1": {"tokenId": "...", "workflow_start_time": ...}}
 	 */
-	private TokenMetadata extractMetadata(String rawToken) {
+	private TokenMetadata extractMetadata(TokenDocument rawToken) {
 		TokenMetadata metadata = new TokenMetadata();
 		
 		try {
-			JSONObject tokenJson = jsonLibrary.parseString(rawToken);
-			if (tokenJson == null) {
+			if (!rawToken.isObject()) {
 				logger.warn("ENRICHMENT: Failed to parse token, creating empty metadata");
 				return metadata;
 			}
 			
 			// Unwrap place response if needed
-			JSONObject tokenData = unwrapPlaceResponse(tokenJson);
+			JSONObject tokenData = rawToken.getBody();
 			
 			// Extract original token (if exists)
 			if (tokenData.containsKey(ORIGINAL_TOKEN)) {
-				metadata.originalToken = tokenData.get(ORIGINAL_TOKEN).toString();
+				// A claim-check reference is kept as-is - it is passed on, not read
+				Object originalToken = tokenData.get(ORIGINAL_TOKEN);
+				metadata.originalToken = ClaimCheck.isReference(originalToken) ? originalToken : originalToken.toString();
 				logger.debug("ENRICHMENT: Found existing original_token to preserve");
 			} else {
 				// First service - current token becomes original token
-				metadata.originalToken = rawToken;
+				// (the text it was parsed from - no re-serialization)
+				metadata.originalToken = rawToken.toJSONString();
 				logger.debug("ENRICHMENT: First service - raw token IS original_token");
 			}
 			
 			// Extract workflow start time from unwrapped token
 			if (tokenData.containsKey(WORKFLOW_START_TIME)) {
-				Object wfStart = tokenData.get(WORKFLOW_START_TIME);
-				if (wfStart instanceof Long) {
-					metadata.workflowStartTime = (Long) wfStart;
-				} else if (wfStart != null) {
-					metadata.workflowStartTime = Long.parseLong(wfStart.toString());
-				}
+				metadata.workflowStartTime = rawToken.getLong(WORKFLOW_START_TIME);
 				logger.debug("ENRICHMENT: Extracted workflow_start_time=" + metadata.workflowStartTime);
 			}
 			
@@ -278,71 +479,21 @@ public class ServiceHelper {
 			return metadata;
 		}
 
-	/**
-	 * Unwrap place-wrapped token responses
-	 * 
-	 * Tokens flowing through the Petri Net get wrapped by each place:
-	 * - After P1: {"P1": {"workflow_start_time": ..., ...}}
-	 * - After P2: {"P2": {"workflow_start_time": ..., ...}}
-	 * 
-	 * This method detects and unwraps these to access the actual token data.
-	 * 
-	 * @param json The potentially wrapped JSON object
-	 * @return The unwrapped token data (or original if not wrapped)
-	 */
-	private JSONObject unwrapPlaceResponse(JSONObject json) {
-		if (json == null) return json;
-		
-		// Check if this looks like a place-wrapped response:
-		// - Has exactly one key
-		// - That key's value is a JSONObject
-		if (json.keySet().size() == 1) {
-			String key = json.keySet().iterator().next().toString();
-			Object value = json.get(key);
-			
-			if (value instanceof JSONObject) {
-				JSONObject inner = (JSONObject) value;
-				
-				// Verify this is a token wrapper by checking for common token fields
-				if (inner.containsKey("tokenId") || 
-				    inner.containsKey("version") || 
-				    inner.containsKey(WORKFLOW_START_TIME) ||
-				    inner.containsKey(ORIGINAL_TOKEN) ||
-				    inner.containsKey("status")) {
-					
-					logger.debug("ENRICHMENT: Unwrapped place response from key: " + key);
-					return inner;
-				}
-			}
-		}
-		
-		// Not a wrapped response, return as-is
-		return json;
-	}
-
 	/**
 	 * Extract clean business data (remove all infrastructure metadata)
+	 * 
+	 * Place-wrapped tokens ({"P1": {...}}) are unwrapped by TokenDocument.getBody()
+	 * when metadata is read; the business data keeps the wrapper and only
+	 * top-level infrastructure fields are dropped. When there are none (the
+	 * usual case) the same document - and its original text - is passed on.
 	 */
-	private String extractBusinessData(String rawToken) {
+	private TokenDocument extractBusinessData(TokenDocument rawToken) {
 		try {
-			JSONObject tokenJson = jsonLibrary.parseString(rawToken);
-			if (tokenJson == null) {
+			if (!rawToken.isObject()) {
 				logger.warn("ENRICHMENT: Failed to parse token, returning as-is");
 				return rawToken;
 			}
-			
-			// Create clean copy without infrastructure fields
-			JSONObject cleanToken = new JSONObject();
-			for (Object key : tokenJson.keySet()) {
-				String keyStr = key.toString();
-				
-				// Skip infrastructure metadata fields
-				if (!isInfrastructureField(keyStr)) {
-					cleanToken.put(keyStr, tokenJson.get(keyStr));
-				}
-			}
-			
-			return cleanToken.toJSONString();
+			return rawToken.without(INFRASTRUCTURE_FIELDS);
 			
 		} catch (Exception e) {
 			logger.error("ENRICHMENT: Error extracting business data", e);
@@ -354,13 +505,15 @@ public class ServiceHelper {
 	 * Enrich service result with infrastructure metadata
 	 */
 	@SuppressWarnings("unchecked")
-	private String enrichServiceResult(String serviceResult, TokenMetadata metadata, 
+	private String enrichServiceResult(Object serviceResult, TokenMetadata metadata, 
 	                                   String outputAttributeName) {
+		// A TokenDocument result is enriched in place - only String results are parsed
+		TokenDocument resultDocument = TokenDocument.from(serviceResult);
 		try {
-			JSONObject resultJson = jsonLibrary.parseString(serviceResult);
+			JSONObject resultJson = resultDocument.getRoot();
 			if (resultJson == null) {
 				logger.error("ENRICHMENT: Failed to parse service result");
-				return serviceResult;
+				return resultDocument.toJSONString();
 			}
 			
 			// Get the business results object
@@ -375,14 +528,14 @@ public class ServiceHelper {
 				} else {
 					logger.warn("ENRICHMENT: Output attribute '" + outputAttributeName + 
 					           "' not found in service result, cannot enrich");
-					return serviceResult;
+					return resultDocument.toJSONString();
 				}
 			}
 			
 			Object innerObj = resultJson.get(actualKey);
 			if (!(innerObj instanceof JSONObject)) {
 				logger.warn("ENRICHMENT: Inner object is not a JSONObject, cannot enrich");
-				return serviceResult;
+				return resultDocument.toJSONString();
 			}
 			
 			JSONObject businessResults = (JSONObject) innerObj;
@@ -419,14 +572,40 @@ public class ServiceHelper {
 				}
 			}
 			
+			// 6. Move large fields out of the token
+			if (ClaimCheck.isEnabled()) {
+				checkInLargeFields(enrichedResults);
+			}
+			
 			// Replace with enriched version
 			resultJson.put(actualKey, enrichedResults);
+			resultDocument.changed();
 			
-			return resultJson.toJSONString();
+			return resultDocument.toJSONString();
 			
 		} catch (Exception e) {
 			logger.error("ENRICHMENT: Error enriching result", e);
-			return serviceResult;
+			return resultDocument.toJSONString();
+		}
+	}
+
+	/**
+	 * Replace large result fields by claim-check references. Routing and
+	 * timing fields stay inline - the reactor and instrumentation read them
+	 * from the token text without resolving anything.
+	 */
+	@SuppressWarnings("unchecked")
+	private void checkInLargeFields(JSONObject enrichedResults) {
+		for (Object key : enrichedResults.keySet()) {
+			if (INLINE_FIELDS.contains(key.toString())) {
+				continue;
+			}
+			Object value = enrichedResults.get(key);
+			Object checkedIn = ClaimCheck.checkIn(value);
+			if (checkedIn != value) {
+				enrichedResults.put(key, checkedIn);
+				logger.debug("ENRICHMENT: Checked in '" + key + "' as claim " + ((JSONObject) checkedIn).get(ClaimCheck.CLAIM_KEY));
+			}
 		}
 	}
 
@@ -438,11 +617,7 @@ public class ServiceHelper {
 	 * Only fields added by ServiceHelper itself during processing are stripped.
 	 */
 	private boolean isInfrastructureField(String fieldName) {
-		return fieldName.equals(ORIGINAL_TOKEN) ||
-		       // REMOVED: fieldName.equals(WORKFLOW_START_TIME) - needed by MonitorService.acknowledgeTokenArrival
-		       fieldName.equals(SERVICE_START_TIME) ||
-		       fieldName.equals(SERVICE_END_TIME) ||
-		       fieldName.equals(SERVICE_PROCESSING_TIME);
+		return INFRASTRUCTURE_FIELDS.contains(fieldName);
 	}
 
 	/**
@@ -491,20 +666,23 @@ public class ServiceHelper {
 	 * Invoke service method via reflection
 	 * FIXED: Now handles multiple clean business data arguments for JOIN nodes
 	 * 
+	 * Methods taking TokenDocument parameters are preferred - they get the parsed
+	 * arguments directly. Otherwise the String method gets each document's text.
+	 * 
 	 * @param sequenceID Workflow sequence ID
 	 * @param service Service class name
 	 * @param operation Operation name
 	 * @param cleanedArguments List of CLEAN business data (1 for EdgeNode, 3+ for JoinNode)
 	 * @param buildVersion Build version for constructor patterns
-	 * @return Service result as String
+	 * @return Service result - a TokenDocument or any object whose toString() is the JSON result
 	 */
-	private String invokeServiceMethod(String sequenceID, String service, 
-	                                   String operation, ArrayList<String> cleanedArguments,
+	private Object invokeServiceMethod(String sequenceID, String service, 
+	                                   String operation, ArrayList<TokenDocument> cleanedArguments,
 	                                   String buildVersion) 
 			throws Exception {
 		
 		logger.debug("INVOKE: Reflecting on " + service + "." + operation);
-		logger.debug("INVOKE: Looking for method with " + cleanedArguments.size() + " String parameters");
+		logger.debug("INVOKE: Looking for method with " + cleanedArguments.size() + " TokenDocument or String parameters");
 		
 		Class<?> serviceClass = Class.forName(service);
 		
@@ -522,79 +700,129 @@ public class ServiceHelper {
 			// Not a singleton, use constructor
 		}
 		
+		// Managed service: the operation's shared instance, or a pooled one
+		// borrowed just for the call below
+		ManagedInstances managed = null;
+		if (serviceInstance == null && ManagedService.class.isAssignableFrom(serviceClass)) {
+			managed = managedInstances(serviceClass, service, operation, sequenceID, buildVersion);
+			serviceInstance = managed.shared;
+			// Shared instances take (sequenceID, args...) like singletons;
+			// pooled ones are bound to the sequenceID when borrowed
+			isSingleton = serviceInstance != null;
+		}
+		
 		// Create instance if not singleton
-		if (serviceInstance == null) {
+		if (serviceInstance == null && managed == null) {
 			serviceInstance = createServiceInstance(serviceClass, sequenceID, service, buildVersion);
 		}
 
-		// Find target method
+		// Find target method - parsed form first, then String
 		Method targetMethod = null;
-		
-		// FIX: For singleton, try (sequenceID, arg1, arg2, ...) signature first
-		if (isSingleton) {
-			int expectedParams = cleanedArguments.size() + 1; // +1 for sequenceID
-			for (Method method : serviceClass.getMethods()) {
-				if (method.getName().equals(operation)) {
-					Class<?>[] paramTypes = method.getParameterTypes();
-					// Check if all params are String and count matches
-					if (paramTypes.length == expectedParams && allParamsAreString(paramTypes)) {
-						targetMethod = method;
-						logger.debug("INVOKE: Found singleton method (sequenceID, " + cleanedArguments.size() + " args)");
-						break;
-					}
+		boolean withSequenceID = false;
+		for (Class<?> argumentType : new Class<?>[] { TokenDocument.class, String.class }) {
+			// FIX: For singleton, try (sequenceID, arg1, arg2, ...) signature first
+			if (isSingleton) {
+				targetMethod = findOperation(serviceClass, operation, cleanedArguments.size(), true, argumentType);
+				if (targetMethod != null) {
+					withSequenceID = true;
+					logger.debug("INVOKE: Found singleton method (sequenceID, " + cleanedArguments.size() + " " + 
+					            argumentType.getSimpleName() + " args)");
+					break;
 				}
 			}
-		}
-		
-		// FIX: Find method with N String parameters (standard pattern for N arguments)
-		if (targetMethod == null) {
-			for (Method method : serviceClass.getMethods()) {
-				if (method.getName().equals(operation)) {
-					Class<?>[] paramTypes = method.getParameterTypes();
-					// Check if parameter count matches and all are Strings
-					if (paramTypes.length == cleanedArguments.size() && allParamsAreString(paramTypes)) {
-						targetMethod = method;
-						logger.debug("INVOKE: Found standard method (" + cleanedArguments.size() + " String args)");
-						break;
-					}
-				}
+			
+			// FIX: Find method with N parameters (standard pattern for N arguments)
+			targetMethod = findOperation(serviceClass, operation, cleanedArguments.size(), false, argumentType);
+			if (targetMethod != null) {
+				logger.debug("INVOKE: Found standard method (" + cleanedArguments.size() + " " + 
+				            argumentType.getSimpleName() + " args)");
+				break;
 			}
 		}
 
 		if (targetMethod == null) {
 			throw new NoSuchMethodException("Operation " + operation + 
 			                               " not found in service " + service + 
-			                               " with " + cleanedArguments.size() + " String parameters");
+			                               " with " + cleanedArguments.size() + " TokenDocument or String parameters");
 		}
 
 		// Prepare arguments
-		Object[] args;
-		Class<?>[] paramTypes = targetMethod.getParameterTypes();
-		
-		if (isSingleton && paramTypes.length == cleanedArguments.size() + 1) {
+		boolean parsedForm = targetMethod.getParameterTypes()[targetMethod.getParameterCount() - 1] == TokenDocument.class;
+		int offset = withSequenceID ? 1 : 0;
+		Object[] args = new Object[cleanedArguments.size() + offset];
+		if (withSequenceID) {
 			// Singleton with (sequenceID, arg1, arg2, ...)
-			args = new Object[paramTypes.length];
 			args[0] = sequenceID;
-			for (int i = 0; i < cleanedArguments.size(); i++) {
-				args[i + 1] = cleanedArguments.get(i);
-			}
-		} else {
-			// Standard with (arg1, arg2, ...)
-			args = new Object[cleanedArguments.size()];
-			for (int i = 0; i < cleanedArguments.size(); i++) {
-				args[i] = cleanedArguments.get(i);
+		}
+		for (int i = 0; i < cleanedArguments.size(); i++) {
+			TokenDocument argument = cleanedArguments.get(i);
+			if (parsedForm) {
+				args[i + offset] = argument;
+			} else {
+				// String services read the token as text - give them the full content
+				args[i + offset] = ClaimCheck.expand(argument.toJSONString());
 			}
 		}
 
 		// Invoke method
 		logger.debug("INVOKE: Calling " + targetMethod.getName() + " with " + args.length + " arguments");
-		Object result = targetMethod.invoke(serviceInstance, args);
+		Object result;
+		if (managed != null && managed.shared == null) {
+			ManagedService pooled = borrowInstance(managed, serviceClass, sequenceID, buildVersion);
+			try {
+				result = targetMethod.invoke(pooled, args);
+			} catch (Exception e) {
+				managed.idle.offerFirst(pooled);
+				throw e;
+			}
+			if (result instanceof CompletionStage) {
+				// Still working on the token - back to the pool when it is done
+				ManagedInstances owner = managed;
+				((CompletionStage<?>) result).whenComplete((value, failure) -> owner.idle.offerFirst(pooled));
+			} else {
+				managed.idle.offerFirst(pooled);
+			}
+		} else {
+			result = targetMethod.invoke(serviceInstance, args);
+		}
 		
 		if (result == null) {
 			throw new IllegalStateException("Service returned null result");
 		}
 
-		return result.toString();
+		return result;
+	}
+	
+	/**
+	 * Find operation(argumentType x argumentCount), optionally preceded by a
+	 * String sequenceID parameter
+	 */
+	private Method findOperation(Class<?> serviceClass, String operation, int argumentCount,
+	                             boolean withSequenceID, Class<?> argumentType) {
+		int offset = withSequenceID ? 1 : 0;
+		for (Method method : serviceClass.getMethods()) {
+			if (!method.getName().equals(operation)) {
+				continue;
+			}
+			Class<?>[] paramTypes = method.getParameterTypes();
+			if (paramTypes.length != argumentCount + offset) {
+				continue;
+			}
+			if (withSequenceID && paramTypes[0] != String.class) {
+				continue;
+			}
+			boolean matches = true;
+			for (int i = offset; i < paramTypes.length; i++) {
+				if (paramTypes[i] != argumentType) {
+					matches = false;
+					break;
+				}
+			}
+			if (matches) {
+				return method;
+			}
+		}
+		return null;
 	}
 	
 	/**
@@ -654,18 +882,83 @@ public class ServiceHelper {
 		return serviceInstance;
 	}
 	
+	// ========================================================================
+	// MANAGED SERVICE INSTANCES
+	// ========================================================================
+
 	/**
-	 * Helper: Check if all parameter types are String
+	 * The instances kept for a managed service operation, created with the
+	 * first token
 	 */
-	private boolean allParamsAreString(Class<?>[] paramTypes) {
-		for (Class<?> paramType : paramTypes) {
-			if (paramType != String.class) {
-				return false;
+	private ManagedInstances managedInstances(Class<?> serviceClass, String service, String operation,
+	                                          String sequenceID, String buildVersion) throws Exception {
+		String key = service + "#" + operation;
+		ManagedInstances managed = managedServices.get(key);
+		if (managed != null) {
+			return managed;
+		}
+		synchronized (managedServices) {
+			managed = managedServices.get(key);
+			if (managed == null) {
+				ServiceContext context = new ServiceContext(service, operation, derivePlaceNameFromService(service));
+				managed = new ManagedInstances(context,
+						createManagedInstance(serviceClass, context, sequenceID, buildVersion));
+				managedServices.put(key, managed);
 			}
 		}
-		return true;
+		return managed;
 	}
-
+	
+	/**
+	 * Construct (no-arg constructor preferred, else the usual patterns) and
+	 * initialise a managed service instance
+	 */
+	private ManagedService createManagedInstance(Class<?> serviceClass, ServiceContext context,
+	                                             String sequenceID, String buildVersion) throws Exception {
+		Object instance;
+		try {
+			instance = serviceClass.getConstructor().newInstance();
+		} catch (NoSuchMethodException e) {
+			instance = createServiceInstance(serviceClass, sequenceID, context.getServiceName(), buildVersion);
+		}
+		ManagedService managedService = (ManagedService) instance;
+		managedService.init(context);
+		logger.info("MANAGED: Initialised " + (managedService.isShared() ? "shared" : "pooled") + 
+		            " instance of " + context);
+		return managedService;
+	}
+	
+	/**
+	 * An idle pooled instance bound to this token, or a new one when all are busy
+	 */
+	private ManagedService borrowInstance(ManagedInstances managed, Class<?> serviceClass,
+	                                      String sequenceID, String buildVersion) throws Exception {
+		ManagedService instance = managed.idle.pollFirst();
+		if (instance == null) {
+			instance = createManagedInstance(serviceClass, managed.context, sequenceID, buildVersion);
+			managed.all.add(instance);
+		}
+		instance.bind(sequenceID);
+		return instance;
+	}
+	
+	/**
+	 * Close every managed service instance - called at ServiceLoader shutdown
+	 */
+	public static void closeManagedServices() {
+		for (ManagedInstances managed : managedServices.values()) {
+			for (ManagedService instance : managed.all) {
+				try {
+					instance.close();
+				} catch (Exception e) {
+					logger.warn("MANAGED: Error closing " + managed.context + ": " + e.getMessage());
+				}
+			}
+			logger.info("MANAGED: Closed " + managed.all.size() + " instance(s) of " + managed.context);
+		}
+		managedServices.clear();
+	}
+	
 	/**
 	 * Derive place name from service class name
 	 * e.g., org.btsn.petrinet.services.P1_CollectorService -> P1_Place
@@ -698,6 +991,26 @@ public class ServiceHelper {
 	// INNER CLASSES
 	// ========================================================================
 
+	/**
+	 * Instances of one managed service operation: the shared instance, or
+	 * the pool (idle instances, most recently used first)
+	 */
+	private static class ManagedInstances {
+		final ServiceContext context;
+		final ManagedService shared;
+		final ConcurrentLinkedDeque<ManagedService> idle = new ConcurrentLinkedDeque<>();
+		final ConcurrentLinkedQueue<ManagedService> all = new ConcurrentLinkedQueue<>();
+
+		ManagedInstances(ServiceContext context, ManagedService first) {
+			this.context = context;
+			this.shared = first.isShared() ? first : null;
+			if (shared == null) {
+				idle.add(first);
+			}
+			all.add(first);
+		}
+	}
+
 	/**
 	 * TokenMetadata - Infrastructure metadata container
 	 * 
@@ -705,7 +1018,7 @@ public class ServiceHelper {
 	 * Token ID format: parentTokenId + (joinCount * 100) + branchNumber
 	 */
 	public static class TokenMetadata {
-		public String originalToken;
+		public Object originalToken;  // token text, or a claim-check reference
 		public Long workflowStartTime;
 		public Long serviceStartTime;
 		public Long serviceEndTime;
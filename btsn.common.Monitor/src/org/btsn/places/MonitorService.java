@@ -17,8 +17,10 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.btsn.base.BaseStochasticPetriNetPlace;
+import org.btsn.constants.TokenId;
 import org.btsn.constants.VersionConstants;
 import org.btsn.json.jsonLibrary;
+import org.btsn.utils.SimulationClock;
 
 /**
  * MonitorService - FIXED VERSION with proper workflow base calculation
@@ -71,8 +73,8 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 	/**
 	 * Calculate workflow base for a given sequence ID based on version ranges
 	 */
-	private int calculateWorkflowBase(int sequenceID) {
-		return VersionConstants.getWorkflowBase(VersionConstants.getVersionFromSequenceId(sequenceID));
+	private long calculateWorkflowBase(long sequenceID) {
+		return VersionConstants.getWorkflowBaseFromSequenceId(sequenceID);
 	}
 
 	/**
@@ -250,7 +252,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 	                    JSONObject record = (JSONObject) recordObj;
 	                    
 	                    // Extract timing information
-	                    int sequenceId = getIntValue(record, "sequenceId", 0);
+	                    long sequenceId = getLongValue(record, "sequenceId", 0);
 	                    String serviceName = getStringValue(record, "serviceName", place);
 	                    String operation = getStringValue(record, "operation", "processToken");
 	                    long arrivalTime = getLongValue(record, "arrivalTime", 0);
@@ -284,7 +286,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 	                    JSONObject record = (JSONObject) recordObj;
 	                    
 	                    // Extract marking information
-	                    int sequenceId = getIntValue(record, "sequenceId", 0);
+	                    long sequenceId = getLongValue(record, "sequenceId", 0);
 	                    String serviceName = getStringValue(record, "serviceName", place);
 	                    String operation = getStringValue(record, "operation", "processToken");
 	                    long arrivalTime = getLongValue(record, "arrivalTime", 0);
@@ -326,7 +328,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 	        String reportingService = getStringValue(metadata, "reportingService", "Unknown");
 	        String place = getStringValue(metadata, "monitoredPlace", "Unknown");
 	        String reportingChannel = getStringValue(metadata, "reportingChannel", "unknown");
-	        long analysisTime = System.currentTimeMillis();
+	        long analysisTime = SimulationClock.now();
 	        
 	        // Navigate into workflowGroups
 	        if (petriNetData.containsKey("workflowGroups")) {
@@ -828,7 +830,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 					int totalMarking = metric.containsKey("totalMarking") ? ((Long) metric.get("totalMarking")).intValue() : 0;
 
 				try {
-					writeServiceContribution((int) sequenceId, serviceName, operation, arrivalTime, queueTime,
+					writeServiceContribution(sequenceId, serviceName, operation, arrivalTime, queueTime,
 							serviceTime, totalRecordTime, workflowStartTime, bufferSize, maxQueueCapacity, totalMarking);
 
 					totalQueueTime += queueTime;
@@ -875,7 +877,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 				int totalMarking = ((Long) marking.get("totalMarking")).intValue();
 
 				try {
-					writeMarkingRecord((int) sequenceId, serviceName, operation, arrivalTime, invocationTime,
+					writeMarkingRecord(sequenceId, serviceName, operation, arrivalTime, invocationTime,
 							publishTime, workflowStartTime, bufferSize, maxQueueCapacity, totalMarking);
 
 					totalRecordsProcessed++;
@@ -1092,7 +1094,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 	        pstmt.setString(8, (String) firing.get("placeName"));
 	        pstmt.setString(9, reportingService);
 	        pstmt.setString(10, reportingChannel);
-	        pstmt.setLong(11, System.currentTimeMillis());
+	        pstmt.setLong(11, SimulationClock.now());
 
 	        pstmt.executeUpdate();
 	        
@@ -1125,7 +1127,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 	        pstmt.setInt(8, ((Long) path.get("exitBufferSize")).intValue());
 	        pstmt.setString(9, reportingService);
 	        pstmt.setString(10, reportingChannel);
-	        pstmt.setLong(11, System.currentTimeMillis());
+	        pstmt.setLong(11, SimulationClock.now());
 
 	        pstmt.executeUpdate();
 	        
@@ -1156,7 +1158,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 	        pstmt.setString(6, (String) marking.get("placeName"));
 	        pstmt.setString(7, reportingService);
 	        pstmt.setString(8, reportingChannel);
-	        pstmt.setLong(9, System.currentTimeMillis());
+	        pstmt.setLong(9, SimulationClock.now());
 
 	        pstmt.executeUpdate();
 	        
@@ -1191,7 +1193,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 	        pstmt.setInt(9, ((Long) stats.get("maxBufferSize")).intValue());
 	        pstmt.setString(10, reportingService);
 	        pstmt.setString(11, reportingChannel);
-	        pstmt.setLong(12, System.currentTimeMillis());
+	        pstmt.setLong(12, SimulationClock.now());
 
 	        pstmt.executeUpdate();
 	        
@@ -1343,7 +1345,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 	    logger.info("Token acknowledged for sequence: " + getSequenceID());
 
 	    try {
-	        int sequenceId = Integer.parseInt(getSequenceID());
+	        long sequenceId = TokenId.parse(getSequenceID());
 
 	        // BLOCK PRIMING RECORDS - don't write to PROCESSMEASUREMENTS
 	        if (sequenceId == PRIMING_ID) {
@@ -1353,7 +1355,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 
 	        Long workflowStartTime = extractWorkflowStartTime(token);
 	        if (workflowStartTime != null) {
-	            long now = System.currentTimeMillis();
+	            long now = SimulationClock.now();
 	            long elapsed = now - workflowStartTime;
 
 	            // Use VersionConstants to determine version based on sequenceID
@@ -1390,7 +1392,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 	 * Write service contribution to database - FIXED with correct workflow base
 	 * calculation
 	 */
-	private void writeServiceContribution(int sequenceID, String serviceName, String operation, long arrivalTime,
+	private void writeServiceContribution(long sequenceID, String serviceName, String operation, long arrivalTime,
 			long queueTime, long serviceTime, long totalTime, long workflowStartTime,
 			int bufferSize, int maxQueueCapacity, int totalMarking) throws SQLException {
 
@@ -1401,7 +1403,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 
 		try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(sql)) {
 
-			int workflowBase = calculateWorkflowBase(sequenceID);
+			long workflowBase = calculateWorkflowBase(sequenceID);
 			
 			// Use version instead of serviceName for consistency
 			String version = VersionConstants.getVersionFromSequenceId(sequenceID);
@@ -1416,7 +1418,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 			pstmt.setLong(8, totalTime);
 			pstmt.setDouble(9, 0.0);
 			pstmt.setLong(10, workflowStartTime);
-			pstmt.setLong(11, System.currentTimeMillis());
+			pstmt.setLong(11, SimulationClock.now());
 			pstmt.setInt(12, bufferSize);
 			pstmt.setInt(13, maxQueueCapacity);
 			pstmt.setInt(14, totalMarking);
@@ -1432,7 +1434,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 	/**
 	 * NEW: Write marking record to database
 	 */
-	private void writeMarkingRecord(int sequenceID, String serviceName, String operation, long arrivalTime,
+	private void writeMarkingRecord(long sequenceID, String serviceName, String operation, long arrivalTime,
 			long invocationTime, long publishTime, long workflowStartTime, int bufferSize, 
 			int maxQueueCapacity, int totalMarking) throws SQLException {
 
@@ -1443,7 +1445,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 
 		try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(sql)) {
 
-			int workflowBase = calculateWorkflowBase(sequenceID);
+			long workflowBase = calculateWorkflowBase(sequenceID);
 			
 			// Use version instead of serviceName for consistency
 			String version = VersionConstants.getVersionFromSequenceId(sequenceID);
@@ -1459,7 +1461,7 @@ public class MonitorService extends BaseStochasticPetriNetPlace {
 			pstmt.setInt(9, bufferSize);
 			pstmt.setInt(10, maxQueueCapacity);
 			pstmt.setInt(11, totalMarking);
-			pstmt.setLong(12, System.currentTimeMillis());
+			pstmt.setLong(12, SimulationClock.now());
 
 			pstmt.executeUpdate();
 
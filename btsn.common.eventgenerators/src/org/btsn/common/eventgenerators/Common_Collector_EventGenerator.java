@@ -7,12 +7,13 @@ import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.util.Arrays;
 
-import org.btsn.constants.VersionConstants;
+import org.btsn.constants.TokenId;
 import org.btsn.json.jsonLibrary;
 import org.btsn.rulecontroller.RuleDeployer;
 import org.btsn.utils.CopyFile;
 import org.btsn.utils.CreateDirectory;
 import org.btsn.utils.OOjdrewAPI;
+import org.btsn.utils.Replication;
 import org.btsn.utils.StringFileIO;
 import org.btsn.utils.XPathHelper;
 
@@ -46,7 +47,7 @@ public class Common_Collector_EventGenerator {
     private static String ruleBaseVersion = null;
     private static String processName = null;
     private static String queryVersion = null;  // Comma-separated versions to collect
-    private static int sequenceID = -1;
+    private static long sequenceID = -1;
     private static long timeToExpire = 10000;
     private static String status = "active";
     
@@ -117,8 +118,7 @@ public class Common_Collector_EventGenerator {
                 System.out.println("\nCollecting ALL data for version: " + versionTrimmed);
                 
                 // Get the correct workflow base for this version
-                // v001 -> 100000, v002 -> 200000, v003 -> 300000, etc.
-                int versionBase = VersionConstants.getWorkflowBase(versionTrimmed);
+                long versionBase = TokenId.workflowBase(versionTrimmed);
                 
                 // Create token: workflow_workflowBase_version
                 String simpleToken = "workflow_" + versionBase + "_" + versionTrimmed;
@@ -141,7 +141,7 @@ public class Common_Collector_EventGenerator {
             System.out.println("Collecting ALL data for single version: " + queryVersion);
             
             // Get the correct workflow base for this version
-            int versionBase = VersionConstants.getWorkflowBase(queryVersion);
+            long versionBase = TokenId.workflowBase(queryVersion);
             
             // Create token: workflow_workflowBase_version
             String simpleToken = "workflow_" + versionBase + "_" + queryVersion;
@@ -210,7 +210,7 @@ public class Common_Collector_EventGenerator {
                 case "-sequenceId":
                     if (i + 1 < args.length) {
                         try {
-                            sequenceID = Integer.parseInt(args[++i]);
+                            sequenceID = TokenId.parse(args[++i]);
                         } catch (NumberFormatException e) {
                             System.err.println("ERROR: Invalid sequenceId value: " + args[i]);
                             return false;
@@ -305,7 +305,8 @@ public class Common_Collector_EventGenerator {
             System.out.println("OOjDREW Query: " + ruleMLQuery);
             
             // Navigate to common directory - Service.ruleml is in btsn.common/RuleFolder.{version}/
-            String ruleBasePath = "../btsn.common/RuleFolder." + buildVersion + "/Service.ruleml";
+            String ruleBasePath = new File(Replication.ruleFolder(new File("../btsn.common"), buildVersion), "Service.ruleml")
+                    .getPath();
             System.out.println("Loading rule base from: " + ruleBasePath);
             
             File ruleBaseFile = new File(ruleBasePath);
@@ -434,7 +435,7 @@ public class Common_Collector_EventGenerator {
      * Fire collection event
      */
     private static void fireEvent(String xmlPayload, String resolvedChannel, 
-            String resolvedPort, int sequenceID, long timeToExpire) {
+            String resolvedPort, long sequenceID, long timeToExpire) {
         try {
             long currentTime = System.currentTimeMillis();
             
@@ -445,7 +446,7 @@ public class Common_Collector_EventGenerator {
             xmlPayload = XPathHelper.modifyXMLItem(xmlPayload, 
                 "//payload/joinAttribute/notAfter/text()", Long.toString(currentTime + timeToExpire));
             xmlPayload = XPathHelper.modifyXMLItem(xmlPayload, 
-                "//payload/header/sequenceId/text()", Integer.toString(sequenceID));
+                "//payload/header/sequenceId/text()", Long.toString(sequenceID));
 
             sendUDPEvent(xmlPayload, resolvedChannel, resolvedServicePort);
             
@@ -510,7 +511,7 @@ public class Common_Collector_EventGenerator {
             }
             
             // Calculate target port: 10000 + (channel * 1000) + basePort
-            int targetPort = 10000 + (channelNumber * 1000) + basePort;
+            int targetPort = Replication.port(10000 + (channelNumber * 1000) + basePort);
             
             System.out.println("=== SENDING EVENT ===");
             System.out.println("Target Address: " + resolvedChannel);
@@ -6,12 +6,14 @@ import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 
+import org.btsn.constants.TokenId;
 import org.btsn.json.jsonLibrary;
 import org.btsn.rulecontroller.RuleDeployer;
 import org.btsn.utils.BuildRuleBase;
 import org.btsn.utils.CopyFile;
 import org.btsn.utils.CreateDirectory;
 import org.btsn.utils.OOjdrewAPI;
+import org.btsn.utils.Replication;
 import org.btsn.utils.StringFileIO;
 import org.btsn.utils.XPathHelper;
 
@@ -41,7 +43,7 @@ public class DatabaseInitialization_EventGenerator {
     private static boolean monitorIncomingEvents = false;
     private static String ruleBaseVersion = null;
     private static String processName = null;
-    private static int sequenceID = -1;
+    private static long sequenceID = -1;
     private static long timeToExpire = 10000;
     private static String status = "active";
     private static int numberOfTokens = 1;  // Default to 1 token
@@ -189,7 +191,7 @@ public class DatabaseInitialization_EventGenerator {
                 case "-sequenceId":
                     if (i + 1 < args.length) {
                         try {
-                            sequenceID = Integer.parseInt(args[++i]);
+                            sequenceID = TokenId.parse(args[++i]);
                         } catch (NumberFormatException e) {
                             System.err.println("ERROR: Invalid sequenceId value: " + args[i]);
                             return false;
@@ -308,7 +310,7 @@ public class DatabaseInitialization_EventGenerator {
             // Master rule base is always in btsn.common/RuleFolder.{version}/
             File currentDir = new File("").getAbsoluteFile();
             File commonDir = new File(currentDir.getParent(), "btsn.common");
-            File ruleBaseFile = new File(commonDir, "RuleFolder." + buildVersion + "/Service.ruleml");
+            File ruleBaseFile = new File(Replication.ruleFolder(commonDir, buildVersion), "Service.ruleml");
             String ruleBasePath = ruleBaseFile.getAbsolutePath();
             System.out.println("Loading rule base from: " + ruleBasePath);
             oojdrew.parseKnowledgeBase(ruleBasePath, true);
@@ -425,7 +427,7 @@ public class DatabaseInitialization_EventGenerator {
      * Fire initialization event
      */
     private static void fireEvent(String xmlPayload, String resolvedChannel, 
-            String resolvedPort, int sequenceID, long timeToExpire) {
+            String resolvedPort, long sequenceID, long timeToExpire) {
         try {
             long currentTime = System.currentTimeMillis();
             
@@ -436,7 +438,7 @@ public class DatabaseInitialization_EventGenerator {
             xmlPayload = XPathHelper.modifyXMLItem(xmlPayload, 
                 "//payload/joinAttribute/notAfter/text()", Long.toString(currentTime + timeToExpire));
             xmlPayload = XPathHelper.modifyXMLItem(xmlPayload, 
-                "//payload/header/sequenceId/text()", Integer.toString(sequenceID));
+                "//payload/header/sequenceId/text()", Long.toString(sequenceID));
 
             sendUDPEvent(xmlPayload, resolvedChannel, resolvedServicePort);
             
@@ -484,7 +486,7 @@ public class DatabaseInitialization_EventGenerator {
                 throw new IOException("FATAL: Invalid port number: " + resolvedPort, e);
             }
             
-            int targetPort = 10000 + (channelNumber * 1000) + basePort;
+            int targetPort = Replication.port(10000 + (channelNumber * 1000) + basePort);
             
             System.out.println("Sending to localhost:" + targetPort + 
                 " (channel: " + resolvedChannelId + ", base: " + basePort + ")");
@@ -6,12 +6,15 @@ import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.util.TreeMap;
 
-import org.btsn.constants.VersionConstants;
+import org.btsn.constants.TokenId;
 import org.btsn.rulecontroller.RuleDeployer;
 import org.btsn.utils.BuildRuleBase;
 import org.btsn.utils.OOjdrewAPI;
+import org.btsn.utils.Replication;
+import org.btsn.utils.RoutingTable;
 import org.btsn.utils.ParseCSV;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
@@ -47,6 +50,7 @@ import org.json.simple.parser.JSONParser;
  *     <ruleBaseVersion>v001</ruleBaseVersion>
  *     <priortiseSID>true</priortiseSID>
  *     <monitorIncomingEvents>true</monitorIncomingEvents>
+ *     <workflowEntry>true</workflowEntry>
  *   </header>
  *   <service>
  *     <serviceName>TriageService</serviceName>
@@ -149,10 +153,11 @@ public class GenericHealthcareTokenGenerator {
 	private static String resolvedServiceChannel = null;
 	private static String resolvedServicePort = null;
 	private static String resolvedChannelId = null;  // "ip0", "ip1", etc.
+	private static InetSocketAddress resolvedTarget = null;  // EventReactor address, resolved on the first token
 
 	// Token generation settings - CONFIGURABLE VIA ARGS
 	private static String ruleBaseVersion = null;  // REQUIRED: Must be provided via -version
-	private static int sequenceID = -1;  // Will be set based on version (or override with -sequenceid)
+	private static long sequenceID = -1;  // Will be set based on version (or override with -sequenceid)
 	private static int numberOfTokens = 10;  // How many tokens to generate (default: 10, override with -tokens)
 	private static long timeToExpire = 120000;  // Token validity window in ms (default: 120000, override with -expire)
 	private static String tokenData = "";  // Optional custom data (use -data)
@@ -377,7 +382,7 @@ public class GenericHealthcareTokenGenerator {
 				case "-sequenceid":
 				case "--sequenceid":
 					if (i + 1 < args.length) {
-						sequenceID = Integer.parseInt(args[++i]);
+						sequenceID = TokenId.parse(args[++i]);
 						System.out.println("  Parsed -sequenceid: " + sequenceID);
 					}
 					break;
@@ -492,10 +497,10 @@ public class GenericHealthcareTokenGenerator {
 	 * Set sequenceID based on version
 	 */
 	private static void setSequenceIDBasedOnVersion() {
-		// Use VersionConstants.getWorkflowBase() to get the base sequenceID
+		// Use TokenId.workflowBase() to get the base sequenceID
 		// Only calculate if not explicitly set via -sequenceId argument
 		if (sequenceID == -1) {
-			sequenceID = VersionConstants.getWorkflowBase(ruleBaseVersion);
+			sequenceID = TokenId.workflowBase(ruleBaseVersion);
 			System.out.println("Calculated sequenceID from version: " + sequenceID);
 		} else {
 			System.out.println("Using provided sequenceID: " + sequenceID);
@@ -510,7 +515,7 @@ public class GenericHealthcareTokenGenerator {
 			// Master rule base is always in btsn.common/RuleFolder.{version}/
 			File currentDir = new File("").getAbsoluteFile();
 			File commonDir = new File(currentDir.getParent(), "btsn.common");
-			File ruleBaseFile = new File(commonDir, "RuleFolder." + version + "/Service.ruleml");
+			File ruleBaseFile = new File(Replication.ruleFolder(commonDir, version), "Service.ruleml");
 			String ruleFolder = ruleBaseFile.getAbsolutePath();
 			
 			System.out.println("DEBUG: Loading rule base from: " + ruleFolder);
@@ -627,12 +632,11 @@ public class GenericHealthcareTokenGenerator {
 	 * Generate tokens immediately (no timing file)
 	 */
 	private static void generateTokensImmediate() throws Exception {
-		int sidInc = VersionConstants.TOKEN_INCREMENT;
 		for (int i = 0; i < numberOfTokens; i++) {
 			String jsonToken = createHealthcareToken(sequenceID);
 			System.out.println("Sending token " + (i + 1) + "/" + numberOfTokens + " (seqID=" + sequenceID + ")");
 			sendToken(jsonToken, sequenceID);
-			sequenceID += sidInc;
+			sequenceID = TokenId.nextInstance(sequenceID);
 		}
 	}
 
@@ -641,7 +645,6 @@ public class GenericHealthcareTokenGenerator {
 	 */
 	private static void generateTokensWithTiming(TreeMap<Integer, Integer> tokenSequence) throws Exception {
 		int numTokens = 0;
-		int sidInc = VersionConstants.TOKEN_INCREMENT;
 		int totalTokensProcessed = 0;
 		
 		// MAIN TOKEN SEQUENCE - REAL-TIME FIRING
@@ -685,7 +688,7 @@ public class GenericHealthcareTokenGenerator {
 					// FIRE IMMEDIATELY - as fast as possible
 					sendToken(jsonToken, sequenceID);
 					
-					sequenceID += sidInc;
+					sequenceID = TokenId.nextInstance(sequenceID);
 					totalTokensProcessed++;
 				}
 				
@@ -714,7 +717,7 @@ public class GenericHealthcareTokenGenerator {
 	 * Create Healthcare JSON token using loaded format file
 	 */
 	@SuppressWarnings("unchecked")
-	private static String createHealthcareToken(int seqID) {
+	private static String createHealthcareToken(long seqID) {
 		JSONObject token = new JSONObject();
 		
 		long currentTime = System.currentTimeMillis();
@@ -743,7 +746,7 @@ public class GenericHealthcareTokenGenerator {
 	 * 4. Empty data (if no format file found)
 	 */
 	@SuppressWarnings("unchecked")
-	private static JSONObject buildTokenData(int seqID, long currentTime) {
+	private static JSONObject buildTokenData(long seqID, long currentTime) {
 		JSONObject data = new JSONObject();
 		
 		// Step 1: Start with default data from format file
@@ -802,7 +805,7 @@ public class GenericHealthcareTokenGenerator {
 	/**
 	 * Replace placeholders in token data values
 	 */
-	private static String replacePlaceholders(String value, int seqID, long currentTime) {
+	private static String replacePlaceholders(String value, long seqID, long currentTime) {
 		if (value == null) return "";
 		
 		return value
@@ -916,7 +919,7 @@ public class GenericHealthcareTokenGenerator {
 	/**
 	 * Send token to target service
 	 */
-	private static void sendToken(String jsonToken, int seqID) throws IOException {
+	private static void sendToken(String jsonToken, long seqID) throws IOException {
 		// Build XML payload wrapper (ServiceThread expects XML wrapper around token)
 		String xmlPayload = buildXMLPayload(jsonToken, seqID);
 		
@@ -927,7 +930,7 @@ public class GenericHealthcareTokenGenerator {
 	/**
 	 * Build XML payload wrapper for ServiceThread
 	 */
-	private static String buildXMLPayload(String tokenValue, int seqID) {
+	private static String buildXMLPayload(String tokenValue, long seqID) {
 		long currentTime = System.currentTimeMillis();
 		String notAfter = Long.toString(currentTime + timeToExpire);
 		
@@ -941,6 +944,8 @@ public class GenericHealthcareTokenGenerator {
 		xml.append("    <ruleBaseVersion>").append(ruleBaseVersion).append("</ruleBaseVersion>\n");
 		xml.append("    <priortiseSID>true</priortiseSID>\n");
 		xml.append("    <monitorIncomingEvents>true</monitorIncomingEvents>\n");
+		// Starts a workflow - refused by a draining ServiceLoader
+		xml.append("    <workflowEntry>true</workflowEntry>\n");
 		xml.append("  </header>\n");
 		xml.append("  <service>\n");
 		xml.append("    <serviceName>").append(targetPlaceName).append("</serviceName>\n");
@@ -990,51 +995,13 @@ public class GenericHealthcareTokenGenerator {
 				udpSocket.bind(null);  // Bind to any available port
 			}
 			
-			InetAddress targetAddress;
-			int targetPort;
-
-			// Check if remote (IP) or local (multicast)
-			if (isIPAddress(channel)) {
-				// REMOTE SERVICE
-				targetAddress = InetAddress.getByName(channel);
-				
-				// Extract channel number from channelId (e.g., "ip1" -> 1)
-				int channelNumber = 0;
-				if (resolvedChannelId != null && resolvedChannelId.startsWith("ip")) {
-					try {
-						channelNumber = Integer.parseInt(resolvedChannelId.substring(2));
-					} catch (NumberFormatException e) {
-						// Use default
-					}
-				}
-				
-				int basePort = Integer.parseInt(port);
-				targetPort = 10000 + (channelNumber * 1000) + basePort;
-				
-				System.out.println("  -> Sending to REMOTE: " + targetAddress.getHostAddress() + ":" + targetPort);
-			} else {
-				// LOCAL SERVICE
-				targetAddress = InetAddress.getLoopbackAddress();
-				
-				// Extract channel number from multicast address
-				int channelNumber = 1;
-				try {
-					String[] parts = channel.split("\\.");
-					if (parts.length >= 4) {
-						channelNumber = Integer.parseInt(parts[3]);
-					}
-				} catch (Exception e) {
-					// Use default
-				}
-				
-				int basePort = Integer.parseInt(port);
-				targetPort = 10000 + (channelNumber * 1000) + basePort;
-				
-				System.out.println("  -> Sending to LOCAL: localhost:" + targetPort);
+			// Always the resolved service target, which does not change during a run
+			if (resolvedTarget == null) {
+				resolvedTarget = resolveTarget(channel, port);
 			}
 
 			byte[] data = payload.getBytes();
-			DatagramPacket packet = new DatagramPacket(data, data.length, targetAddress, targetPort);
+			DatagramPacket packet = new DatagramPacket(data, data.length, resolvedTarget);
 			udpSocket.send(packet);
 			
 		} catch (Exception e) {
@@ -1045,6 +1012,47 @@ public class GenericHealthcareTokenGenerator {
 			throw new IOException("UDP send failed: " + e.getMessage(), e);
 		}
 	}
+	
+	/**
+	 * EventReactor address of the service target - the bound IP for a remote
+	 * service, localhost for a local (multicast) channel
+	 */
+	private static InetSocketAddress resolveTarget(String channel, String port) throws IOException {
+		InetAddress targetAddress;
+		int targetPort;
+		
+		// Check if remote (IP) or local (multicast)
+		if (isIPAddress(channel)) {
+			// REMOTE SERVICE
+			targetAddress = InetAddress.getByName(channel);
+			
+			// 10000 + channel*1000 + port, channel from the channelId (e.g., "ip1" -> 1)
+			targetPort = RoutingTable.reactorPort(resolvedChannelId, Integer.parseInt(port));
+			
+			System.out.println("  -> Sending to REMOTE: " + targetAddress.getHostAddress() + ":" + targetPort);
+		} else {
+			// LOCAL SERVICE
+			targetAddress = InetAddress.getLoopbackAddress();
+			
+			// Extract channel number from multicast address
+			int channelNumber = 1;
+			try {
+				String[] parts = channel.split("\\.");
+				if (parts.length >= 4) {
+					channelNumber = Integer.parseInt(parts[3]);
+				}
+			} catch (Exception e) {
+				// Use default
+			}
+			
+			int basePort = Integer.parseInt(port);
+			targetPort = Replication.port(10000 + (channelNumber * 1000) + basePort);
+			
+			System.out.println("  -> Sending to LOCAL: localhost:" + targetPort);
+		}
+		
+		return new InetSocketAddress(targetAddress, targetPort);
+	}
 
 	/**
 	 * Check if string is an IP address
@@ -5,14 +5,18 @@ import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.TreeMap;
 
-import org.btsn.constants.VersionConstants;
+import org.btsn.constants.TokenId;
 import org.btsn.rulecontroller.RuleDeployer;
 import org.btsn.utils.OOjdrewAPI;
 import org.btsn.utils.ParseCSV;
+import org.btsn.utils.Replication;
+import org.btsn.utils.RoutingTable;
+import org.btsn.utils.SimulationClock;
 import org.json.simple.JSONObject;
 
 /**
@@ -44,6 +48,7 @@ import org.json.simple.JSONObject;
  *     <ruleBaseVersion>v001</ruleBaseVersion>
  *     <priortiseSID>true</priortiseSID>
  *     <monitorIncomingEvents>true</monitorIncomingEvents>
+ *     <workflowEntry>true</workflowEntry>
  *   </header>
  *   <service>
  *     <serviceName>P1_Place</serviceName>
@@ -86,6 +91,12 @@ import org.json.simple.JSONObject;
  *                        so PetriNetInstrumentationHelper can track token source
  *                        (default: EVENT_GENERATOR)
  * 
+ * VIRTUAL CLOCK: with <SimulationSettings><clockMode>VIRTUAL</clockMode> in
+ * loaderSettings.xml (or -Dbtsn.clockMode=VIRTUAL) the trigger file's timing
+ * is not slept through - each batch is stamped with its scheduled time
+ * (monitorData/simTime, workflow_start_time, notAfter) and sent at once.
+ * The places must run in VIRTUAL mode too.
+ * 
  * FORK MODE ARGUMENTS (for injecting pre-forked child tokens):
  *   -forkmode            Enable fork injection mode
  *   -forkcount <n>       Number of fork branches (required if forkmode enabled)
@@ -167,10 +178,11 @@ public class GenericPetriNetTokenGenerator {
 	private static String resolvedServiceChannel = null;
 	private static String resolvedServicePort = null;
 	private static String resolvedChannelId = null;  // "ip0", "ip1", etc.
+	private static InetSocketAddress resolvedTarget = null;  // EventReactor address, resolved on the first token
 
 	// Token generation settings - CONFIGURABLE VIA ARGS
 	private static String ruleBaseVersion = null;  // REQUIRED: Must be provided via -version
-	private static int sequenceID = -1;  // Will be set based on version (or override with -sequenceid)
+	private static long sequenceID = -1;  // Will be set based on version (or override with -sequenceid)
 	private static int numberOfTokens = 10;  // How many tokens to generate (default: 10, override with -tokens)
 	private static long timeToExpire = 120000;  // Token validity window in ms (default: 120000, override with -expire)
 	private static String tokenData = "";  // Optional custom data (use -data)
@@ -181,7 +193,7 @@ public class GenericPetriNetTokenGenerator {
 	private static int forkCount = 0;  // Number of fork branches (e.g., 2 for a 2-way fork)
 	
 	// Join args - explicit token IDs (e.g., -joinargs 1000201,1000202)
-	private static List<Integer> joinArgs = new ArrayList<>();
+	private static List<Long> joinArgs = new ArrayList<>();
 	
 	// Control settings
 	private static boolean exitOnCompletion = true;
@@ -380,7 +392,7 @@ public class GenericPetriNetTokenGenerator {
 				case "-sequenceid":
 				case "--sequenceid":
 					if (i + 1 < args.length) {
-						sequenceID = Integer.parseInt(args[++i]);
+						sequenceID = TokenId.parse(args[++i]);
 						System.out.println("  Parsed -sequenceid: " + sequenceID);
 					}
 					break;
@@ -442,7 +454,7 @@ public class GenericPetriNetTokenGenerator {
 					if (i + 1 < args.length) {
 						String[] ids = args[++i].split(",");
 						for (String id : ids) {
-							joinArgs.add(Integer.parseInt(id.trim()));
+							joinArgs.add(TokenId.parse(id));
 						}
 						numberOfTokens = joinArgs.size();
 						System.out.println("  Parsed -joinargs: " + joinArgs);
@@ -509,10 +521,10 @@ public class GenericPetriNetTokenGenerator {
 	 * Set sequenceID based on version
 	 */
 	private static void setSequenceIDBasedOnVersion() {
-		// Use VersionConstants.getWorkflowBase() to get the base sequenceID
+		// Use TokenId.workflowBase() to get the base sequenceID
 		// Only calculate if not explicitly set via -sequenceId argument
 		if (sequenceID == -1) {
-			sequenceID = VersionConstants.getWorkflowBase(ruleBaseVersion);
+			sequenceID = TokenId.workflowBase(ruleBaseVersion);
 		System.out.println("Calculated sequenceID from version: " + sequenceID);
 		} else {
 			System.out.println("Using provided sequenceID: " + sequenceID);
@@ -528,7 +540,7 @@ public class GenericPetriNetTokenGenerator {
 			File currentDir = new File("").getAbsoluteFile();
 			// Go up one level to get to BTSN root, then down to common
 			File commonDir = new File(currentDir.getParent(), "btsn.common");
-			File ruleBaseFile = new File(commonDir, "RuleFolder." + version + "/Service.ruleml");
+			File ruleBaseFile = new File(Replication.ruleFolder(commonDir, version), "Service.ruleml");
 			String ruleFolder = ruleBaseFile.getAbsolutePath();
 			
 			System.out.println("DEBUG: Loading rule base from: " + ruleFolder);
@@ -608,11 +620,11 @@ public class GenericPetriNetTokenGenerator {
 	 * For each base token, generates N child tokens and sends ALL to the same target place.
 	 * The JoinNode at that place will synchronize the children.
 	 * 
-	 * Token ID encoding: parentId + (forkCount * 100) + branchNumber
+	 * Token ID encoding: TokenId.child(parentId, branchNumber)
 	 * 
-	 * Example with base 1000000 and forkCount=2:
-	 *   - Child 1000201 -> P1_Place (branch 1)
-	 *   - Child 1000202 -> P1_Place (branch 2)
+	 * Example with base v001/0 and forkCount=2:
+	 *   - Child v001/0.1 -> P1_Place (branch 1)
+	 *   - Child v001/0.2 -> P1_Place (branch 2)
 	 *   - JoinNode at P1 receives both, synchronizes, workflow proceeds
 	 */
 	private static void generateForkTokens() throws Exception {
@@ -622,19 +634,15 @@ public class GenericPetriNetTokenGenerator {
 		System.out.println("Fork count: " + forkCount);
 		System.out.println("Total child tokens: " + (numberOfTokens * forkCount));
 		
-		int baseSequenceID = sequenceID;
-		int sidInc = VersionConstants.TOKEN_INCREMENT;
+		long parentTokenId = sequenceID;
 		int totalChildTokensSent = 0;
 		
 		for (int tokenNum = 0; tokenNum < numberOfTokens; tokenNum++) {
-			int parentTokenId = baseSequenceID + (tokenNum * sidInc);
-			
 			System.out.printf("\nBase token %d (parent ID: %d):\n", tokenNum + 1, parentTokenId);
 			
 			// Generate all child tokens and send to the SAME place
 			for (int branch = 1; branch <= forkCount; branch++) {
-				// Child token ID encoding: parentId + (forkCount * 100) + branchNumber
-				int childTokenId = parentTokenId + (forkCount * 100) + branch;
+				long childTokenId = TokenId.child(parentTokenId, branch);
 				
 				System.out.printf("  -> Child %d (ID: %d) to %s\n", branch, childTokenId, targetPlaceName);
 				
@@ -644,6 +652,7 @@ public class GenericPetriNetTokenGenerator {
 				
 				totalChildTokensSent++;
 			}
+			parentTokenId = TokenId.nextInstance(parentTokenId);
 		}
 		
 		System.out.printf("\n=== FORK MODE COMPLETE ===\n");
@@ -655,10 +664,10 @@ public class GenericPetriNetTokenGenerator {
 	 * Create a fork child token with proper encoding
 	 */
 	@SuppressWarnings("unchecked")
-	private static String createForkChildToken(int childTokenId, int parentTokenId, int branchNumber) {
+	private static String createForkChildToken(long childTokenId, long parentTokenId, int branchNumber) {
 		JSONObject token = new JSONObject();
 		
-		long currentTime = System.currentTimeMillis();
+		long currentTime = SimulationClock.now();
 		
 		token.put("tokenId", String.valueOf(childTokenId));
 		token.put("parentTokenId", String.valueOf(parentTokenId));
@@ -710,7 +719,6 @@ public class GenericPetriNetTokenGenerator {
 			System.out.println("Will fire " + numberOfTokens + " token(s) from the sequence");
 			
 			int numTokens = 0;
-			int sidInc = VersionConstants.TOKEN_INCREMENT;
 			int totalTokensProcessed = 0;
 			
 			// MAIN TOKEN SEQUENCE - REAL-TIME FIRING
@@ -726,15 +734,21 @@ public class GenericPetriNetTokenGenerator {
 				
 				// Calculate exact time this batch should fire
 				long targetTime = sequenceStartTime + timeKey;
-				long currentTime = System.currentTimeMillis();
-				long sleepTime = targetTime - currentTime;
 				
-				// Wait until the exact moment to fire
-				if (sleepTime > 0) {
-					Thread.sleep(sleepTime);
-				} else if (sleepTime < -50) {  // More than 50ms behind schedule
-					System.out.printf("WARNING: Running %dms behind schedule at time %dms\n", 
-						Math.abs(sleepTime), timeKey);
+				if (SimulationClock.isVirtual()) {
+					// Virtual time - stamp the batch with its scheduled time, no waiting
+					SimulationClock.bind(targetTime);
+				} else {
+					long currentTime = System.currentTimeMillis();
+					long sleepTime = targetTime - currentTime;
+					
+					// Wait until the exact moment to fire
+					if (sleepTime > 0) {
+						Thread.sleep(sleepTime);
+					} else if (sleepTime < -50) {  // More than 50ms behind schedule
+						System.out.printf("WARNING: Running %dms behind schedule at time %dms\n", 
+							Math.abs(sleepTime), timeKey);
+					}
 				}
 				
 				// Get number of ARRIVING tokens at this time point
@@ -749,9 +763,9 @@ public class GenericPetriNetTokenGenerator {
 					
 					// FIRE ALL TOKENS IMMEDIATELY - NO DELAYS!
 					for (int j = 0; j < tokensToFire; j++) {
-						int tokenIdToUse;
+						long tokenIdToUse;
 						String tokenAttrName = attributeName;  // Default: "token"
-						int tokenJoinID = -1;  // Default: no join
+						long tokenJoinID = -1;  // Default: no join
 						
 						if (!joinArgs.isEmpty() && totalTokensProcessed < joinArgs.size()) {
 							// JOIN_NODE mode: Use explicit token IDs and branch attribute names
@@ -765,7 +779,7 @@ public class GenericPetriNetTokenGenerator {
 						} else {
 							// EDGE_NODE mode: Use sequential token IDs
 							tokenIdToUse = sequenceID;
-							sequenceID += sidInc;
+							sequenceID = TokenId.nextInstance(sequenceID);
 						}
 						
 						String jsonToken = createPetriNetToken(tokenIdToUse);
@@ -794,6 +808,10 @@ public class GenericPetriNetTokenGenerator {
 			System.out.printf("Total Tokens Processed: %d\n", totalTokensProcessed);
 			System.out.printf("Sequence Duration: Expected %dms, Actual %dms (drift: %+dms)\n", 
 				expectedDuration, actualDuration, (actualDuration - expectedDuration));
+			if (SimulationClock.isVirtual()) {
+				System.out.printf("Virtual clock: %dms of arrivals sent in %dms wall time\n", 
+					expectedDuration, actualDuration);
+			}
 			System.out.printf("=== Tokens fired according to EventTriggeringFile.csv timing ===\n");
 		}
 	}
@@ -802,10 +820,10 @@ public class GenericPetriNetTokenGenerator {
 	 * Create Petri Net JSON token
 	 */
 	@SuppressWarnings("unchecked")
-	private static String createPetriNetToken(int seqID) {
+	private static String createPetriNetToken(long seqID) {
 		JSONObject token = new JSONObject();
 		
-		long currentTime = System.currentTimeMillis();
+		long currentTime = SimulationClock.now();
 		
 		token.put("tokenId", String.valueOf(seqID));
 		token.put("version", ruleBaseVersion);
@@ -833,7 +851,7 @@ public class GenericPetriNetTokenGenerator {
 	/**
 	 * Send token to target service
 	 */
-	private static void sendToken(String jsonToken, int seqID) throws IOException {
+	private static void sendToken(String jsonToken, long seqID) throws IOException {
 		sendToken(jsonToken, seqID, attributeName, -1);
 	}
 	
@@ -841,7 +859,7 @@ public class GenericPetriNetTokenGenerator {
 	 * Send token to target service with specific attribute name.
 	 * Used for join tokens where attributeName must be token_branch1, token_branch2, etc.
 	 */
-	private static void sendToken(String jsonToken, int seqID, String attrName) throws IOException {
+	private static void sendToken(String jsonToken, long seqID, String attrName) throws IOException {
 		sendToken(jsonToken, seqID, attrName, -1);
 	}
 	
@@ -851,7 +869,7 @@ public class GenericPetriNetTokenGenerator {
 	 * - attributeName must be token_branch1, token_branch2, etc.
 	 * - joinID is the parent token ID that all children share
 	 */
-	private static void sendToken(String jsonToken, int seqID, String attrName, int joinID) throws IOException {
+	private static void sendToken(String jsonToken, long seqID, String attrName, long joinID) throws IOException {
 		// Build XML payload wrapper (ServiceThread expects XML wrapper around token)
 		String xmlPayload = buildXMLPayload(jsonToken, seqID, attrName, joinID);
 		
@@ -862,7 +880,7 @@ public class GenericPetriNetTokenGenerator {
 	/**
 	 * Build XML payload wrapper for ServiceThread
 	 */
-	private static String buildXMLPayload(String tokenValue, int seqID) {
+	private static String buildXMLPayload(String tokenValue, long seqID) {
 		return buildXMLPayload(tokenValue, seqID, attributeName, -1);
 	}
 	
@@ -872,7 +890,7 @@ public class GenericPetriNetTokenGenerator {
 	 * For EdgeNode tokens: attributeName = "token"
 	 * For JoinNode tokens: attributeName = "token_branch1", "token_branch2", etc.
 	 */
-	private static String buildXMLPayload(String tokenValue, int seqID, String attrName) {
+	private static String buildXMLPayload(String tokenValue, long seqID, String attrName) {
 		return buildXMLPayload(tokenValue, seqID, attrName, -1);
 	}
 	
@@ -882,8 +900,8 @@ public class GenericPetriNetTokenGenerator {
 	 * For EdgeNode tokens: attributeName = "token", joinID = -1 (not used)
 	 * For JoinNode tokens: attributeName = "token_branch1", "token_branch2", etc., joinID = parent token ID
 	 */
-	private static String buildXMLPayload(String tokenValue, int seqID, String attrName, int joinID) {
-		long currentTime = System.currentTimeMillis();
+	private static String buildXMLPayload(String tokenValue, long seqID, String attrName, long joinID) {
+		long currentTime = SimulationClock.now();
 		String notAfter = Long.toString(currentTime + timeToExpire);
 		
 		System.out.println("DEBUG: Building XML payload with sequenceID=" + seqID + 
@@ -898,6 +916,8 @@ public class GenericPetriNetTokenGenerator {
 		xml.append("    <ruleBaseVersion>").append(ruleBaseVersion).append("</ruleBaseVersion>\n");
 		xml.append("    <priortiseSID>true</priortiseSID>\n");
 		xml.append("    <monitorIncomingEvents>true</monitorIncomingEvents>\n");
+		// Starts a workflow - refused by a draining ServiceLoader
+		xml.append("    <workflowEntry>true</workflowEntry>\n");
 		// Add joinID for join tokens
 		if (joinID > 0) {
 			xml.append("    <joinID>").append(joinID).append("</joinID>\n");
@@ -918,6 +938,9 @@ public class GenericPetriNetTokenGenerator {
 		xml.append("    <processElapsedTime>0</processElapsedTime>\n");
 		xml.append("    <eventGeneratorTimestamp>").append(currentTime).append("</eventGeneratorTimestamp>\n");
 		xml.append("    <sourceEventGenerator>").append(eventGeneratorId).append("</sourceEventGenerator>\n");
+		if (SimulationClock.isVirtual()) {
+			xml.append("    <simTime>").append(currentTime).append("</simTime>\n");
+		}
 		xml.append("  </monitorData>\n");
 		xml.append("</payload>");
 		
@@ -951,51 +974,13 @@ public class GenericPetriNetTokenGenerator {
 				udpSocket.bind(null);  // Bind to any available port
 			}
 			
-			InetAddress targetAddress;
-			int targetPort;
-
-			// Check if remote (IP) or local (multicast)
-			if (isIPAddress(channel)) {
-				// REMOTE SERVICE
-				targetAddress = InetAddress.getByName(channel);
-				
-				// Extract channel number from channelId (e.g., "ip1" -> 1)
-				int channelNumber = 0;
-				if (resolvedChannelId != null && resolvedChannelId.startsWith("ip")) {
-					try {
-						channelNumber = Integer.parseInt(resolvedChannelId.substring(2));
-					} catch (NumberFormatException e) {
-						// Use default
-					}
-				}
-				
-				int basePort = Integer.parseInt(port);
-				targetPort = 10000 + (channelNumber * 1000) + basePort;
-				
-				System.out.println("  -> Sending to REMOTE: " + targetAddress.getHostAddress() + ":" + targetPort);
-			} else {
-				// LOCAL SERVICE
-				targetAddress = InetAddress.getLoopbackAddress();
-				
-				// Extract channel number from multicast address
-				int channelNumber = 1;
-				try {
-					String[] parts = channel.split("\\.");
-					if (parts.length >= 4) {
-						channelNumber = Integer.parseInt(parts[3]);
-					}
-				} catch (Exception e) {
-					// Use default
-				}
-				
-				int basePort = Integer.parseInt(port);
-				targetPort = 10000 + (channelNumber * 1000) + basePort;
-				
-				System.out.println("  -> Sending to LOCAL: localhost:" + targetPort);
+			// Always the resolved service target, which does not change during a run
+			if (resolvedTarget == null) {
+				resolvedTarget = resolveTarget(channel, port);
 			}
 
 			byte[] data = payload.getBytes();
-			DatagramPacket packet = new DatagramPacket(data, data.length, targetAddress, targetPort);
+			DatagramPacket packet = new DatagramPacket(data, data.length, resolvedTarget);
 			udpSocket.send(packet);
 			
 		} catch (Exception e) {
@@ -1006,6 +991,47 @@ public class GenericPetriNetTokenGenerator {
 			throw new IOException("UDP send failed: " + e.getMessage(), e);
 		}
 	}
+	
+	/**
+	 * EventReactor address of the service target - the bound IP for a remote
+	 * service, localhost for a local (multicast) channel
+	 */
+	private static InetSocketAddress resolveTarget(String channel, String port) throws IOException {
+		InetAddress targetAddress;
+		int targetPort;
+		
+		// Check if remote (IP) or local (multicast)
+		if (isIPAddress(channel)) {
+			// REMOTE SERVICE
+			targetAddress = InetAddress.getByName(channel);
+			
+			// 10000 + channel*1000 + port, channel from the channelId (e.g., "ip1" -> 1)
+			targetPort = RoutingTable.reactorPort(resolvedChannelId, Integer.parseInt(port));
+			
+			System.out.println("  -> Sending to REMOTE: " + targetAddress.getHostAddress() + ":" + targetPort);
+		} else {
+			// LOCAL SERVICE
+			targetAddress = InetAddress.getLoopbackAddress();
+			
+			// Extract channel number from multicast address
+			int channelNumber = 1;
+			try {
+				String[] parts = channel.split("\\.");
+				if (parts.length >= 4) {
+					channelNumber = Integer.parseInt(parts[3]);
+				}
+			} catch (Exception e) {
+				// Use default
+			}
+			
+			int basePort = Integer.parseInt(port);
+			targetPort = Replication.port(10000 + (channelNumber * 1000) + basePort);
+			
+			System.out.println("  -> Sending to LOCAL: localhost:" + targetPort);
+		}
+		
+		return new InetSocketAddress(targetAddress, targetPort);
+	}
 
 	/**
 	 * Check if string is an IP address
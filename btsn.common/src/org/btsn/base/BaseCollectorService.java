@@ -15,6 +15,7 @@ import java.net.DatagramSocket;
 import java.net.InetAddress;
 
 import org.apache.derby.jdbc.EmbeddedDriver;
+import org.btsn.utils.AsyncBatchWriter;
 import org.btsn.utils.OOjdrewAPI;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -155,6 +156,9 @@ public abstract class BaseCollectorService {
             this.currentRuleVersion = requestedVersions.get(0); // Use first version for compatibility
             System.out.println("Successfully parsed version(s): " + requestedVersions);
             
+            // Firings and genealogy are written in the background - write out what is queued
+            AsyncBatchWriter.flushAll();
+            
             // Collect all 5 Petri Net data types for ALL requested versions
             List<TransitionFiring> firingData = new ArrayList<>();
             List<TokenPath> pathData = new ArrayList<>();
@@ -595,12 +599,12 @@ private String extractServiceContextFromToken(String token) {
             
             while (rs.next()) {
                 TransitionFiring firing = new TransitionFiring();
-                firing.tokenId = rs.getInt("tokenId");
+                firing.tokenId = rs.getLong("tokenId");
                 firing.transitionId = rs.getString("transitionId");
                 firing.timestamp = rs.getLong("timestamp");
                 firing.toPlace = rs.getString("toPlace");
                 firing.fromPlace = rs.getString("fromPlace");
-                firing.workflowBase = rs.getInt("workflowBase");
+                firing.workflowBase = rs.getLong("workflowBase");
                 firing.bufferSize = rs.getInt("bufferSize");
                 firing.eventType = rs.getString("eventType");
                 firing.placeName = placeName;
@@ -664,12 +668,12 @@ private String extractServiceContextFromToken(String token) {
             
             while (rs.next()) {
                 TokenPath path = new TokenPath();
-                path.tokenId = rs.getInt("tokenId");
+                path.tokenId = rs.getLong("tokenId");
                 path.placeName = placeName;
                 path.entryTime = rs.getLong("entryTime");
                 path.exitTime = rs.getLong("exitTime");
                 path.residenceTime = path.exitTime - path.entryTime;
-                path.workflowBase = rs.getInt("workflowBase");
+                path.workflowBase = rs.getLong("workflowBase");
                 path.entryBufferSize = rs.getInt("entryBufferSize");
                 path.exitBufferSize = rs.getInt("exitBufferSize");
                 paths.add(path);
@@ -701,11 +705,11 @@ private String extractServiceContextFromToken(String token) {
             
             while (rs.next()) {
                 TokenGenealogy record = new TokenGenealogy();
-                record.parentTokenId = rs.getInt("parentTokenId");
-                record.childTokenId = rs.getInt("childTokenId");
+                record.parentTokenId = rs.getLong("parentTokenId");
+                record.childTokenId = rs.getLong("childTokenId");
                 record.forkTransitionId = rs.getString("forkTransitionId");
                 record.forkTimestamp = rs.getLong("forkTimestamp");
-                record.workflowBase = rs.getInt("workflowBase");
+                record.workflowBase = rs.getLong("workflowBase");
                 genealogy.add(record);
             }
             
@@ -762,10 +766,10 @@ private String extractServiceContextFromToken(String token) {
             
             while (rs.next()) {
                 MarkingSnapshot snapshot = new MarkingSnapshot();
-                snapshot.tokenId = rs.getInt("tokenId");
+                snapshot.tokenId = rs.getLong("tokenId");
                 snapshot.timestamp = rs.getLong("timestamp");
                 snapshot.marking = rs.getInt("marking");
-                snapshot.workflowBase = rs.getInt("workflowBase");
+                snapshot.workflowBase = rs.getLong("workflowBase");
                 snapshot.bufferSize = rs.getInt("bufferSize");
                 snapshot.placeName = placeName;
                 snapshot.transitionId = rs.getString("transitionId");  // T_in_X or T_out_X
@@ -834,7 +838,7 @@ private String extractServiceContextFromToken(String token) {
             while (rs.next()) {
                 PlaceStatistics stats = new PlaceStatistics();
                 stats.placeName = placeName;
-                stats.workflowBase = rs.getInt("workflowBase");
+                stats.workflowBase = rs.getLong("workflowBase");
                 stats.tokenCount = rs.getInt("tokenCount");
                 stats.avgResidenceTime = rs.getDouble("avgResidence");
                 stats.minResidenceTime = rs.getLong("minResidence");
@@ -1328,33 +1332,33 @@ private String extractServiceContextFromToken(String token) {
     }
 
     protected static class TransitionFiring {
-        int tokenId;
+        long tokenId;
         String transitionId;
         long timestamp;
         String toPlace;
         String fromPlace;
-        int workflowBase;
+        long workflowBase;
         int bufferSize;
         String placeName;
         String eventType;  // ENTER, EXIT, FORK_CONSUMED, TERMINATE
     }
 
     protected static class TokenPath {
-        int tokenId;
+        long tokenId;
         String placeName;
         long entryTime;
         long exitTime;
         long residenceTime;
-        int workflowBase;
+        long workflowBase;
         int entryBufferSize;
         int exitBufferSize;
     }
 
     protected static class MarkingSnapshot {
-        int tokenId;
+        long tokenId;
         long timestamp;
         int marking;
-        int workflowBase;
+        long workflowBase;
         int bufferSize;
         String placeName;
         String transitionId;  // T_in_X or T_out_X - identifies which transition fired
@@ -1364,7 +1368,7 @@ private String extractServiceContextFromToken(String token) {
 
     protected static class PlaceStatistics {
         String placeName;
-        int workflowBase;
+        long workflowBase;
         int tokenCount;
         double avgResidenceTime;
         long minResidenceTime;
@@ -1375,11 +1379,11 @@ private String extractServiceContextFromToken(String token) {
     }
 
     protected static class TokenGenealogy {
-        int parentTokenId;
-        int childTokenId;
+        long parentTokenId;
+        long childTokenId;
         String forkTransitionId;
         long forkTimestamp;
-        int workflowBase;
+        long workflowBase;
     }
 
     public static class InvalidTokenException extends Exception {
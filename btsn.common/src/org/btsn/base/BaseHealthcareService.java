@@ -2,6 +2,7 @@ package org.btsn.base;
 
 import org.btsn.json.JsonResponseBuilder;
 import org.btsn.json.JsonTokenParser;
+import org.btsn.json.TokenDocument;
 import org.btsn.utils.SequenceUtils;
 import org.btsn.utils.TimeStampUtils;
 import org.btsn.exceptions.ServiceProcessingException;
@@ -11,22 +12,33 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 
+import org.json.simple.JSONObject;
+
 /**
  * Abstract base class for all healthcare services
  * Handles common functionality like JSON processing, token parsing, database setup
+ * 
+ * Healthcare services are pooled ManagedServices: subclasses keep per-token
+ * state in fields, so an instance serves one token at a time, but it is
+ * reused for later tokens instead of being rebuilt - with its in-memory
+ * database - for every one. bind() moves the instance to the next token's
+ * sequenceID; staff identifiers drawn in the constructor stay with the
+ * instance.
  */
-public abstract class BaseHealthcareService {
+public abstract class BaseHealthcareService implements ManagedService {
     
-    protected final String sequenceID;
-    protected final String placeId;
+    protected String sequenceID;
+    protected String placeId;
     protected final Connection database;
-    protected final JsonTokenParser tokenParser;
+    protected JsonTokenParser tokenParser;
     protected final JsonResponseBuilder responseBuilder;
+    private final String serviceType;
     
     /**
      * Constructor that all services must implement
      */
     public BaseHealthcareService(String sequenceID, String serviceType) {
+        this.serviceType = serviceType;
         this.sequenceID = sequenceID;
         this.placeId = serviceType.toUpperCase() + "_PLACE_" + sequenceID;
         this.tokenParser = new JsonTokenParser(placeId);
@@ -40,6 +52,38 @@ public abstract class BaseHealthcareService {
             placeId, this.getClass().getSimpleName(), sequenceID);
     }
     
+    // ========== Lifecycle (ManagedService) ==========
+    
+    @Override
+    public void init(ServiceContext context) {
+        System.out.printf("[%s] %s pooled for %s\n", 
+            placeId, this.getClass().getSimpleName(), context);
+    }
+    
+    @Override
+    public boolean isShared() {
+        return false;
+    }
+    
+    /**
+     * Take the next token's sequenceID - the pool hands this instance to one
+     * token at a time
+     */
+    @Override
+    public void bind(String sequenceID) {
+        if (sequenceID == null || sequenceID.equals(this.sequenceID)) {
+            return;
+        }
+        this.sequenceID = sequenceID;
+        this.placeId = serviceType.toUpperCase() + "_PLACE_" + sequenceID;
+        this.tokenParser = new JsonTokenParser(placeId);
+    }
+    
+    @Override
+    public void close() {
+        shutdown();
+    }
+    
     /**
      * Main processing method - template method pattern
      * Each service implements processServiceSpecificAssessment()
@@ -48,10 +92,28 @@ public abstract class BaseHealthcareService {
         System.out.printf("[%s] Processing assessment for sequence %s with data: %s\n", 
             placeId, sequenceID, inputData);
         
+        // Parse incoming data using common parser
+        TokenInfo tokenInfo = tokenParser.parseIncomingToken(inputData);
+        return buildAssessmentResponse(tokenInfo).toJSONString();
+    }
+    
+    /**
+     * Main processing method for an already-parsed token
+     * 
+     * Same as processAssessment(String) but reads the token ServiceHelper
+     * parsed and returns the response as a document, so the hop does one
+     * parse and one serialization instead of re-parsing at each stage.
+     */
+    public TokenDocument processAssessment(TokenDocument input) {
+        System.out.printf("[%s] Processing assessment for sequence %s (%d bytes)\n", 
+            placeId, sequenceID, input.length());
+        
+        TokenInfo tokenInfo = tokenParser.parseIncomingToken(input);
+        return TokenDocument.of(buildAssessmentResponse(tokenInfo));
+    }
+    
+    private JSONObject buildAssessmentResponse(TokenInfo tokenInfo) {
         try {
-            // Parse incoming data using common parser
-            TokenInfo tokenInfo = tokenParser.parseIncomingToken(inputData);
-            
             System.out.printf("[%s] Extracted: Patient=%s, Indication=%s\n", 
                 placeId, tokenInfo.getPatientId(), tokenInfo.getIndication());
             
@@ -59,20 +121,21 @@ public abstract class BaseHealthcareService {
             ServiceAssessment assessment = processServiceSpecificAssessment(tokenInfo);
             
             // Build JSON response using common builder
-            String jsonResponse = responseBuilder
+            responseBuilder.reset();
+            JSONObject jsonResponse = responseBuilder
                 .setServiceType(getServiceResultsKey())
                 .setTokenInfo(tokenInfo)
                 .setAssessment(assessment)
                 .setPlaceId(placeId)
                 .setSequenceId(sequenceID)
                 .setStatus(getCompletionStatus())
-                .build();
+                .buildObject();
             
             System.out.printf("[%s] Assessment completed successfully\n", placeId);
             return jsonResponse;
             
         } catch (Exception e) {
-            String errorJson = responseBuilder.createErrorResponse(
+            JSONObject errorJson = responseBuilder.createErrorObject(
                 getServiceResultsKey(), e.getMessage(), sequenceID, placeId);
             System.err.printf("[%s] Error: %s\n", placeId, e.getMessage());
             return errorJson;
@@ -1,12 +1,19 @@
 package org.btsn.base;
 
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import org.apache.log4j.Logger;
 import org.btsn.base.TokenInfo;
 import org.btsn.logger.PetriNetEventLogger;
 import org.btsn.json.JsonResponseBuilder;
 import org.btsn.json.JsonTokenParser;
+import org.btsn.json.TokenDocument;
+import org.btsn.utils.SimulationClock;
+import org.json.simple.JSONObject;
 
 /**
  * BasePetriNetPlace - Stochastic Petri Net (SPN) Place Implementation
@@ -38,6 +45,11 @@ import org.btsn.json.JsonTokenParser;
  * - UNIFORM: Random between min and max
  * - NORMAL: Gaussian distribution (mean, stddev)
  * 
+ * Delays are held through SimulationClock: a real sleep by default, or in
+ * VIRTUAL clock mode an advance of the token's simulated time (queued
+ * behind earlier tokens still holding the place) - no thread sleeps and a
+ * scenario runs far faster than real time.
+ * 
  * GUARD EVALUATION
  * ================
  * Guards control transition enabling (true/false decisions):
@@ -59,9 +71,21 @@ import org.btsn.json.JsonTokenParser;
  * One binding works for all methods:
  *   canonicalBinding(operation, token, token)
  * 
+ * LIFECYCLE
+ * =========
+ * A place is a shared ManagedService: ServiceHelper creates one instance per
+ * operation and passes every token to it through processToken(sequenceID,
+ * token...), so the marking M(P) is the place's real marking across tokens
+ * rather than always 0 on a fresh object. A token that finds the place at
+ * capacity waits for a release. The sequenceID of the token being processed
+ * is per thread (getSequenceID()); the sequenceID given to the constructor
+ * is only the fallback for direct processToken(token) calls.
+ * processTokenAsync() is the same lifecycle with the holds scheduled rather
+ * than slept, for ServiceHelper's async invocation.
+ * 
  * @author BTSN PetriNet Team
  */
-public abstract class BaseStochasticPetriNetPlace {
+public abstract class BaseStochasticPetriNetPlace implements ManagedService {
     
     // ========== Delay Distribution Types ==========
     public enum DelayDistribution {
@@ -82,9 +106,16 @@ public abstract class BaseStochasticPetriNetPlace {
     protected final PetriNetEventLogger pnLogger;
     private static final Logger logger = Logger.getLogger(BaseStochasticPetriNetPlace.class);
     
+    // sequenceID of the token this thread is processing (shared instances)
+    private static final ThreadLocal<String> boundSequenceID = new ThreadLocal<>();
+    
+    // Response builders are stateful - one per thread, reset for each token
+    private static final ThreadLocal<JsonResponseBuilder> responseBuilders = 
+        ThreadLocal.withInitial(JsonResponseBuilder::new);
+    
     // Petri Net state
     protected final int placeCapacity;
-    protected int currentMarking;  // M(P)
+    protected volatile int currentMarking;  // M(P) - changed under the instance lock
     protected final String placeIdentifier;  // P1, P2, P3, ...
     protected final String sequenceID;
     
@@ -163,10 +194,43 @@ public abstract class BaseStochasticPetriNetPlace {
         this(sequenceID, placeIdentifier, 1, 0);
     }
     
+    // ==========================================================================
+    // LIFECYCLE (ManagedService)
+    // ==========================================================================
+    
+    @Override
+    public void init(ServiceContext context) {
+        logger.info(String.format("PN_MANAGED: place=%s serving %s, capacity=%d, distribution=%s",
+            placeIdentifier, context, placeCapacity, delayDistribution));
+    }
+    
+    @Override
+    public void close() {
+        logger.info(String.format("PN_MANAGED: place=%s closed, marking=%d",
+            placeIdentifier, currentMarking));
+    }
+    
     // ==========================================================================
     // CORE TOKEN PROCESSING
     // ==========================================================================
     
+    /**
+     * Process a token for a given sequenceID - the entry point ServiceHelper
+     * uses on the shared instance
+     * 
+     * @param sequenceID Sequence ID of this token
+     * @param token Incoming token
+     * @return Token with routing_decision
+     */
+    public TokenDocument processToken(String sequenceID, TokenDocument token) {
+        boundSequenceID.set(sequenceID);
+        try {
+            return processToken(token);
+        } finally {
+            boundSequenceID.remove();
+        }
+    }
+    
     /**
      * Process token through this place
      * 
@@ -183,7 +247,22 @@ public abstract class BaseStochasticPetriNetPlace {
      * @return Token with routing_decision
      */
     public String processToken(String token) {
-        long executionStart = System.currentTimeMillis();
+        return processToken(TokenDocument.parse(token)).toJSONString();
+    }
+    
+    /**
+     * Process a token already parsed by ServiceHelper
+     * 
+     * Same SPN semantics as processToken(String); the response is returned
+     * as a document so ServiceHelper can enrich it without parsing it again.
+     * 
+     * @param token Incoming token
+     * @return Token with routing_decision
+     */
+    public TokenDocument processToken(TokenDocument token) {
+        String sequenceID = getSequenceID();
+        long executionStart = SimulationClock.now();
+        AtomicBoolean held = new AtomicBoolean();
         
         try {
             // Parse incoming token
@@ -192,94 +271,167 @@ public abstract class BaseStochasticPetriNetPlace {
             // Log token arrival
             pnLogger.logTokenArrival(placeIdentifier, sequenceID, tokenInfo);
             
-            // Capacity check: M(P) < capacity(P)?
-            if (!checkCapacity()) {
-                String capacityError = String.format(
-                    "Place %s at capacity: M(P)=%d, capacity(P)=%d",
-                    placeIdentifier, currentMarking, placeCapacity
-                );
-                pnLogger.logCapacityViolation(placeIdentifier, sequenceID, 
-                                             currentMarking, placeCapacity);
-                return responseBuilder.createErrorResponse(
-                    placeIdentifier, capacityError, sequenceID, placeIdentifier);
-            }
-            
-            // Accept token: M(P) := M(P) + 1
-            acceptToken(tokenInfo);
+            // Capacity check M(P) < capacity(P), then accept: M(P) := M(P) + 1
+            // Time spent waiting for a full place is queueing, not execution
+            executionStart += admitToken(tokenInfo);
+            held.set(true);
             
             // Small acceptance delay
-            Thread.sleep(100);
+            SimulationClock.hold(100);
             
             // Validate token
             if (!validateToken(tokenInfo)) {
-                releaseToken(tokenInfo);
+                dischargeToken(tokenInfo, held);
                 String validationError = String.format(
                     "Token validation failed for id=%s at place=%s",
                     tokenInfo.getTokenId(), placeIdentifier
                 );
-                return responseBuilder.createErrorResponse(
-                    placeIdentifier, validationError, sequenceID, placeIdentifier);
+                return errorDocument(validationError);
             }
             
             // Hold token in place (stochastic delay)
             long holdTime = sampleDelay();
             if (holdTime > 0) {
-                Thread.sleep(holdTime);
+                // Virtual time spent waiting for the place is queueing, not execution
+                executionStart += SimulationClock.occupy(placeIdentifier, holdTime);
             }
             
-            // Evaluate guard condition
-            boolean guardResult = evaluateGuard(tokenInfo);
-            String routingPath = guardResult ? "true" : "false";
-            
-            long executionEnd = System.currentTimeMillis();
-            long executionTime = executionEnd - executionStart;
-            
-            // Log execution
-            pnLogger.logPlaceExecution(placeIdentifier, sequenceID, executionTime, "COMPLETED");
-            
-            logger.info(String.format(
-                "PN_PROCESS: place=%s, seq=%s, guard=%s, delay=%dms, total=%dms",
-                placeIdentifier, sequenceID, routingPath, holdTime, executionTime));
-            
-            // Create annotation
-            String annotation = createPlaceAnnotation(executionStart, executionEnd, 
-                                                     holdTime, routingPath);
-            
-            // Build response
-            // NOTE: Do NOT set sequenceId here - it is infrastructure data owned by XML payload
-            // Business services must not modify sequenceId; infrastructure will preserve it
-            String jsonResponse = responseBuilder
-                .setPlaceId("token")  // Generic output attribute
-                .setMarking(currentMarking)
-                .setExecutionTime(executionTime)
-                .setAnnotation(annotation)
-                .setStatus("COMPLETED")
-                .setTokenInfo(tokenInfo)
-                .setRoutingDecision(routingPath, guardResult, guardProbability)
-                .addDataValue("place", placeIdentifier)
-                .addDataValue("delayMs", String.valueOf(holdTime))  // Convert to String 
-                .addDataValue("distribution", delayDistribution.toString())
-                .build();
-            
-            // Release token: M(P) := M(P) - 1
-            releaseToken(tokenInfo);
-            
-            // Log departure
-            pnLogger.logTokenDeparture(placeIdentifier, sequenceID, tokenInfo, annotation);
-            
-            return jsonResponse;
+            // Evaluate guard, respond and release: M(P) := M(P) - 1
+            return completeToken(tokenInfo, executionStart, holdTime, held);
             
         } catch (Exception e) {
             pnLogger.logPlaceError(placeIdentifier, sequenceID, e);
             
-            if (currentMarking > 0) {
-                currentMarking--;
-                pnLogger.logMarkingChange(placeIdentifier, sequenceID, 
-                                         currentMarking, "error_release");
+            if (held.compareAndSet(true, false)) {
+                releaseOnError();
             }
             
-            return responseBuilder.createErrorResponse(
-                placeIdentifier, e.getMessage(), sequenceID, placeIdentifier);
+            return errorDocument(e.getMessage());
+        }
+    }
+    
+    /**
+     * Asynchronous processToken for ServiceHelper's async invocation
+     * (<AsyncSettings>): the same SPN semantics, but the acceptance delay and
+     * the stochastic hold are scheduled instead of slept, so the ServiceThread
+     * goes on to further tokens while this one holds the place. The future
+     * completes on the delay scheduler's thread. In VIRTUAL clock mode holds
+     * do not sleep, so the token is processed synchronously. The token is
+     * released exactly once, whichever stage fails.
+     * 
+     * @param sequenceID Sequence ID of this token
+     * @param token Incoming token
+     * @return Future of the token with routing_decision
+     */
+    public CompletableFuture<TokenDocument> processTokenAsync(String sequenceID, TokenDocument token) {
+        if (SimulationClock.isVirtual()) {
+            return CompletableFuture.completedFuture(processToken(sequenceID, token));
+        }
+        
+        TokenInfo tokenInfo;
+        long executionStart = SimulationClock.now();
+        AtomicBoolean held = new AtomicBoolean();
+        boundSequenceID.set(sequenceID);
+        try {
+            tokenInfo = tokenParser.parseIncomingToken(token);
+            pnLogger.logTokenArrival(placeIdentifier, sequenceID, tokenInfo);
+            executionStart += admitToken(tokenInfo);
+            held.set(true);
+        } catch (Exception e) {
+            pnLogger.logPlaceError(placeIdentifier, sequenceID, e);
+            return CompletableFuture.completedFuture(errorDocument(e.getMessage()));
+        } finally {
+            boundSequenceID.remove();
+        }
+        
+        final long entered = executionStart;
+        return CompletableFuture
+            .supplyAsync(() -> bound(sequenceID, () -> validateToken(tokenInfo)), 
+                         CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS))
+            .thenCompose(valid -> {
+                if (!valid) {
+                    return CompletableFuture.completedFuture(bound(sequenceID, () -> {
+                        dischargeToken(tokenInfo, held);
+                        return errorDocument(String.format("Token validation failed for id=%s at place=%s",
+                            tokenInfo.getTokenId(), placeIdentifier));
+                    }));
+                }
+                long holdTime = sampleDelay();
+                return CompletableFuture.supplyAsync(
+                    () -> bound(sequenceID, () -> completeToken(tokenInfo, entered, holdTime, held)),
+                    CompletableFuture.delayedExecutor(holdTime, TimeUnit.MILLISECONDS));
+            })
+            .exceptionally(e -> bound(sequenceID, () -> {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                pnLogger.logPlaceError(placeIdentifier, sequenceID, 
+                    cause instanceof Exception ? (Exception) cause : new Exception(cause));
+                if (held.compareAndSet(true, false)) {
+                    releaseOnError();
+                }
+                return errorDocument(cause.getMessage());
+            }));
+    }
+    
+    /**
+     * After the hold: evaluate the guard, build the response and release the
+     * token
+     */
+    private TokenDocument completeToken(TokenInfo tokenInfo, long executionStart, long holdTime,
+                                        AtomicBoolean held) {
+        String sequenceID = getSequenceID();
+        
+        // Evaluate guard condition
+        boolean guardResult = evaluateGuard(tokenInfo);
+        String routingPath = guardResult ? "true" : "false";
+        
+        long executionEnd = SimulationClock.now();
+        long executionTime = executionEnd - executionStart;
+        
+        // Log execution
+        pnLogger.logPlaceExecution(placeIdentifier, sequenceID, executionTime, "COMPLETED");
+        
+        logger.info(String.format(
+            "PN_PROCESS: place=%s, seq=%s, guard=%s, delay=%dms, total=%dms",
+            placeIdentifier, sequenceID, routingPath, holdTime, executionTime));
+        
+        // Create annotation
+        String annotation = createPlaceAnnotation(executionStart, executionEnd, 
+                                                 holdTime, routingPath);
+        
+        // Build response
+        // NOTE: Do NOT set sequenceId here - it is infrastructure data owned by XML payload
+        // Business services must not modify sequenceId; infrastructure will preserve it
+        JSONObject jsonResponse = responseBuilder()
+            .setPlaceId("token")  // Generic output attribute
+            .setMarking(currentMarking)
+            .setExecutionTime(executionTime)
+            .setAnnotation(annotation)
+            .setStatus("COMPLETED")
+            .setTokenInfo(tokenInfo)
+            .setRoutingDecision(routingPath, guardResult, guardProbability)
+            .addDataValue("place", placeIdentifier)
+            .addDataValue("delayMs", String.valueOf(holdTime))  // Convert to String 
+            .addDataValue("distribution", delayDistribution.toString())
+            .buildObject();
+        
+        // Release token: M(P) := M(P) - 1
+        dischargeToken(tokenInfo, held);
+        
+        // Log departure
+        pnLogger.logTokenDeparture(placeIdentifier, sequenceID, tokenInfo, annotation);
+        
+        return TokenDocument.of(jsonResponse);
+    }
+    
+    /**
+     * Run work with this token's sequenceID bound, on a scheduler thread
+     */
+    private <T> T bound(String sequenceID, Supplier<T> work) {
+        boundSequenceID.set(sequenceID);
+        try {
+            return work.get();
+        } finally {
+            boundSequenceID.remove();
         }
     }
     
@@ -381,7 +533,38 @@ public abstract class BaseStochasticPetriNetPlace {
      * @return Merged token with stochastic routing decision
      */
     public String processToken(String inputData1, String inputData2) {
-        long executionStart = System.currentTimeMillis();
+        return processToken(TokenDocument.parse(inputData1), TokenDocument.parse(inputData2)).toJSONString();
+    }
+    
+    /**
+     * Process two synchronized inputs for a given sequenceID - the JOIN entry
+     * point ServiceHelper uses on the shared instance
+     * 
+     * @param sequenceID Sequence ID of the joined token
+     * @param inputData1 First token
+     * @param inputData2 Second token
+     * @return Merged token with stochastic routing decision
+     */
+    public TokenDocument processToken(String sequenceID, TokenDocument inputData1, TokenDocument inputData2) {
+        boundSequenceID.set(sequenceID);
+        try {
+            return processToken(inputData1, inputData2);
+        } finally {
+            boundSequenceID.remove();
+        }
+    }
+    
+    /**
+     * Process two synchronized inputs already parsed by ServiceHelper
+     * 
+     * @param inputData1 First token
+     * @param inputData2 Second token
+     * @return Merged token with stochastic routing decision
+     */
+    public TokenDocument processToken(TokenDocument inputData1, TokenDocument inputData2) {
+        String sequenceID = getSequenceID();
+        long executionStart = SimulationClock.now();
+        boolean held = false;
         
         logger.info(String.format(
             "PN_JOIN_PROCESS: place=%s, seq=%s - Processing synchronized inputs",
@@ -399,23 +582,20 @@ public abstract class BaseStochasticPetriNetPlace {
             
             pnLogger.logTokenArrival(placeIdentifier, sequenceID, tokenInfo1);
             
-            if (!checkCapacity()) {
-                return responseBuilder.createErrorResponse(
-                    placeIdentifier, "Place at capacity", sequenceID, placeIdentifier);
-            }
-            
-            acceptToken(tokenInfo1);
+            executionStart += admitToken(tokenInfo1);
+            held = true;
             
             if (!validateToken(tokenInfo1)) {
-                releaseToken(tokenInfo1);
-                return responseBuilder.createErrorResponse(
-                    placeIdentifier, "Token validation failed", sequenceID, placeIdentifier);
+                held = false;
+                dischargeToken(tokenInfo1);
+                return errorDocument("Token validation failed");
             }
             
             // Hold token with stochastic delay
             long holdTime = sampleDelay();
             if (holdTime > 0) {
-                Thread.sleep(holdTime);
+                // Virtual time spent waiting for the place is queueing, not execution
+                executionStart += SimulationClock.occupy(placeIdentifier, holdTime);
             }
             
             // =================================================================
@@ -426,7 +606,7 @@ public abstract class BaseStochasticPetriNetPlace {
             boolean guardResult = evaluateGuard(tokenInfo1);
             String routingPath = guardResult ? "true" : "false";
             
-            long executionEnd = System.currentTimeMillis();
+            long executionEnd = SimulationClock.now();
             long executionTime = executionEnd - executionStart;
             
             pnLogger.logPlaceExecution(placeIdentifier, sequenceID, executionTime, "JOIN_COMPLETED");
@@ -441,7 +621,7 @@ public abstract class BaseStochasticPetriNetPlace {
             // Build response
             // NOTE: Do NOT set sequenceId here - it is infrastructure data owned by XML payload
             // Business services must not modify sequenceId; infrastructure will preserve it
-            String jsonResponse = responseBuilder
+            JSONObject jsonResponse = responseBuilder()
                 .setPlaceId("token")
                 .setMarking(currentMarking)
                 .setExecutionTime(executionTime)
@@ -451,22 +631,22 @@ public abstract class BaseStochasticPetriNetPlace {
                 // FIX: Use evaluated guard result and configured probability
                 // Was: .setRoutingDecision("true", true, 1.0)
                 .setRoutingDecision(routingPath, guardResult, guardProbability)
-                .build();
+                .buildObject();
             
-            releaseToken(tokenInfo1);
+            held = false;
+            dischargeToken(tokenInfo1);
             pnLogger.logTokenDeparture(placeIdentifier, sequenceID, tokenInfo1, annotation);
             
-            return jsonResponse;
+            return TokenDocument.of(jsonResponse);
             
         } catch (Exception e) {
             pnLogger.logPlaceError(placeIdentifier, sequenceID, e);
             
-            if (currentMarking > 0) {
-                currentMarking--;
+            if (held) {
+                releaseOnError();
             }
             
-            return responseBuilder.createErrorResponse(
-                placeIdentifier, e.getMessage(), sequenceID, placeIdentifier);
+            return errorDocument(e.getMessage());
         }
     }
     
@@ -474,14 +654,67 @@ public abstract class BaseStochasticPetriNetPlace {
     // HELPER METHODS
     // ==========================================================================
     
+    /**
+     * This thread's response builder, reset for a new token
+     */
+    protected JsonResponseBuilder responseBuilder() {
+        JsonResponseBuilder builder = responseBuilders.get();
+        builder.reset();
+        return builder;
+    }
+    
+    protected TokenDocument errorDocument(String errorMessage) {
+        return TokenDocument.of(responseBuilder().createErrorObject(
+            placeIdentifier, errorMessage, getSequenceID(), placeIdentifier));
+    }
+    
+    /**
+     * Wait until M(P) < capacity(P), then accept the token
+     * 
+     * @return Time spent waiting for the place (ms)
+     */
+    protected synchronized long admitToken(TokenInfo tokenInfo) throws InterruptedException {
+        long waitStart = SimulationClock.now();
+        while (!checkCapacity()) {
+            wait();
+        }
+        acceptToken(tokenInfo);
+        return SimulationClock.now() - waitStart;
+    }
+    
+    /**
+     * Release the token and wake a token waiting for the place
+     */
+    protected synchronized void dischargeToken(TokenInfo tokenInfo) {
+        releaseToken(tokenInfo);
+        notifyAll();
+    }
+    
+    /**
+     * Release the token unless it has already been released
+     */
+    private void dischargeToken(TokenInfo tokenInfo, AtomicBoolean held) {
+        if (held.compareAndSet(true, false)) {
+            dischargeToken(tokenInfo);
+        }
+    }
+    
+    private synchronized void releaseOnError() {
+        currentMarking--;
+        pnLogger.logMarkingChange(placeIdentifier, getSequenceID(), 
+                                 currentMarking, "error_release");
+        notifyAll();
+    }
+    
     protected boolean checkCapacity() {
         boolean hasCapacity = currentMarking < placeCapacity;
-        pnLogger.logCapacityCheck(placeIdentifier, sequenceID, 
+        pnLogger.logCapacityCheck(placeIdentifier, getSequenceID(), 
                                  currentMarking, placeCapacity, hasCapacity);
         return hasCapacity;
     }
     
     protected void acceptToken(TokenInfo tokenInfo) {
+        String sequenceID = getSequenceID();
         currentMarking++;
         pnLogger.logMarkingChange(placeIdentifier, sequenceID, 
                                  currentMarking, "token_accepted");
@@ -490,6 +723,7 @@ public abstract class BaseStochasticPetriNetPlace {
     }
     
     protected void releaseToken(TokenInfo tokenInfo) {
+        String sequenceID = getSequenceID();
         currentMarking--;
         pnLogger.logMarkingChange(placeIdentifier, sequenceID, 
                                  currentMarking, "token_released");
@@ -503,11 +737,11 @@ public abstract class BaseStochasticPetriNetPlace {
         
         // Time window validation
         if (tokenInfo.getNotAfter() > 0) {
-            long currentTime = System.currentTimeMillis();
+            long currentTime = SimulationClock.now();
             long notAfter = tokenInfo.getNotAfter();
             boolean timeValid = currentTime < notAfter;
             
-            pnLogger.logValidityWindowCheck(placeIdentifier, sequenceID,
+            pnLogger.logValidityWindowCheck(placeIdentifier, getSequenceID(),
                                            currentTime, notAfter, timeValid);
             
             if (!timeValid) {
@@ -627,7 +861,16 @@ public abstract class BaseStochasticPetriNetPlace {
     public boolean isAtCapacity() { return currentMarking >= placeCapacity; }
     public boolean isEmpty() { return currentMarking == 0; }
     public double getUtilization() { return (double) currentMarking / placeCapacity * 100.0; }
-    protected String getSequenceID() { return sequenceID; }
+    
+    /**
+     * sequenceID of the token being processed on this thread, or the
+     * constructor's sequenceID outside processToken(sequenceID, ...)
+     */
+    protected String getSequenceID() {
+        String bound = boundSequenceID.get();
+        return bound != null ? bound : sequenceID;
+    }
+    
     public DelayDistribution getDelayDistribution() { return delayDistribution; }
     public GuardMode getGuardMode() { return guardMode; }
     public double getGuardProbability() { return guardProbability; }
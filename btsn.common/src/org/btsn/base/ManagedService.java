@@ -0,0 +1,48 @@
+package org.btsn.base;
+
+/**
+ * Lifecycle contract for services that ServiceHelper keeps between tokens
+ *
+ * A service class that does not implement this interface is constructed for
+ * every token, as before. A ManagedService is constructed once per service
+ * operation and init() is called once; every token for that operation is
+ * then handed to the same instance (or pool of instances), and close() is
+ * called when the ServiceLoader shuts down.
+ *
+ * SHARED (isShared() true, the default): one instance serves every token of
+ * the operation, from any ServiceThread at once. The instance must be
+ * thread-safe and takes per-token context as arguments - ServiceHelper
+ * prefers an operation(String sequenceID, token...) overload when there is
+ * one.
+ *
+ * POOLED (isShared() false): an instance serves one token at a time. An
+ * invocation borrows an idle instance (a new one is created and initialised
+ * when none is idle), bind() gives it the token's sequenceID, and it is
+ * returned to the pool afterwards - for services with per-token fields or
+ * resources too costly to open per token but not safe to share.
+ */
+public interface ManagedService {
+
+    /**
+     * Called once, before the instance sees its first token
+     */
+    void init(ServiceContext context) throws Exception;
+
+    /**
+     * Called once at shutdown; release connections and other resources
+     */
+    void close();
+
+    /**
+     * True if one instance may serve concurrent tokens
+     */
+    default boolean isShared() {
+        return true;
+    }
+
+    /**
+     * Pooled instances: called before each token with its sequenceID
+     */
+    default void bind(String sequenceID) {
+    }
+}
@@ -0,0 +1,34 @@
+package org.btsn.base;
+
+/**
+ * What a ManagedService is told about itself at init()
+ *
+ * Per-token data (sequenceID, the token itself) is not here - it is passed
+ * with each invocation.
+ */
+public class ServiceContext {
+
+    private final String serviceName;
+    private final String operation;
+    private final String placeName;
+
+    public ServiceContext(String serviceName, String operation, String placeName) {
+        this.serviceName = serviceName;
+        this.operation = operation;
+        this.placeName = placeName;
+    }
+
+    /** Fully qualified service class name */
+    public String getServiceName() { return serviceName; }
+
+    /** Operation this instance serves */
+    public String getOperation() { return operation; }
+
+    /** Place name derived from the service name (e.g. P1_Place) */
+    public String getPlaceName() { return placeName; }
+
+    @Override
+    public String toString() {
+        return serviceName + "." + operation;
+    }
+}
@@ -0,0 +1,343 @@
+package org.btsn.constants;
+
+/**
+ * 64-bit hierarchical token identity.
+ *
+ * Layout (bit 63 is always 0 so IDs stay positive and sort in creation order):
+ *
+ *   bits 53-62  rule-base version   (10 bits, v001-v999)
+ *   bits 23-52  workflow instance   (30 bits, ~1.07 billion per version)
+ *   bits 21-22  fork depth          (2 bits, 0 = workflow root, max 3)
+ *   bits 0-20   branch path         (3 x 7 bits, branch 1-127 per level,
+ *                                    level 1 in the highest slot)
+ *
+ * EXAMPLES (v001, instance 42):
+ *   root         v001/42       depth 0
+ *   fork child   v001/42.2     depth 1, branch 2
+ *   nested fork  v001/42.2.1   depth 2, branch 1, parent v001/42.2
+ *
+ * LEGACY IDS:
+ *   Before this layout a token ID was an int: VersionConstants gives each
+ *   version a 1,000,000 block, each workflow TOKEN_INCREMENT (10000) of it and
+ *   fork children parent + branch (1-99), so one version held only 100
+ *   workflow instances. Any ID without version bits (id < 2^53) is a legacy
+ *   ID. Every method here accepts both forms - legacy IDs are decoded with
+ *   the old arithmetic - so rows already in the Derby database and tokens in
+ *   flight during an upgrade keep working. fromLegacy() converts a legacy ID
+ *   to this layout.
+ */
+public class TokenId {
+
+    public static final int VERSION_BITS = 10;
+    public static final int INSTANCE_BITS = 30;
+    public static final int DEPTH_BITS = 2;
+    public static final int BRANCH_BITS = 7;
+
+    /** Maximum fork nesting depth */
+    public static final int MAX_DEPTH = (1 << DEPTH_BITS) - 1;
+
+    /** Maximum branches per fork level */
+    public static final int MAX_BRANCHES = (1 << BRANCH_BITS) - 1;
+
+    public static final long MAX_INSTANCE = (1L << INSTANCE_BITS) - 1;
+    public static final int MAX_VERSION = (1 << VERSION_BITS) - 1;
+
+    private static final int PATH_BITS = BRANCH_BITS * MAX_DEPTH;
+    private static final int DEPTH_SHIFT = PATH_BITS;
+    private static final int INSTANCE_SHIFT = DEPTH_SHIFT + DEPTH_BITS;
+    private static final int VERSION_SHIFT = INSTANCE_SHIFT + INSTANCE_BITS;
+
+    private static final long BRANCH_MASK = (1L << BRANCH_BITS) - 1;
+    private static final long PATH_MASK = (1L << PATH_BITS) - 1;
+    private static final long DEPTH_MASK = ((1L << DEPTH_BITS) - 1) << DEPTH_SHIFT;
+
+    /** Legacy fork children are parent + branch, branch 1-99 */
+    private static final int LEGACY_BRANCH_MODULUS = 100;
+    private static final int LEGACY_MAX_BRANCHES = LEGACY_BRANCH_MODULUS - 1;
+
+    private TokenId() {
+    }
+
+    // ========================================================================
+    // ENCODING
+    // ========================================================================
+
+    /**
+     * Root token ID for a workflow instance.
+     *
+     * @param version Rule-base version number (e.g. 1 for v001, 999 for v999)
+     * @param instance Workflow instance number within the version (0-MAX_INSTANCE)
+     */
+    public static long of(int version, long instance) {
+        if (version < 1 || version > MAX_VERSION) {
+            throw new IllegalArgumentException("Version must be between 1 and " + MAX_VERSION + ", got: " + version);
+        }
+        if (instance < 0 || instance > MAX_INSTANCE) {
+            throw new IllegalArgumentException(
+                "Instance must be between 0 and " + MAX_INSTANCE + ", got: " + instance);
+        }
+        return ((long) version << VERSION_SHIFT) | (instance << INSTANCE_SHIFT);
+    }
+
+    /**
+     * Root token ID of instance 0 for a version string ("v001", "v999").
+     * Generators number their workflows from here.
+     *
+     * @throws IllegalArgumentException if the version string cannot be parsed
+     */
+    public static long workflowBase(String version) {
+        return of(versionNumber(version), 0);
+    }
+
+    /**
+     * Root token ID for a version string and instance number.
+     *
+     * @throws IllegalArgumentException if the version string cannot be parsed
+     */
+    public static long of(String version, long instance) {
+        return of(versionNumber(version), instance);
+    }
+
+    /**
+     * Child token ID one fork level below parentTokenId.
+     *
+     * @throws IllegalArgumentException if the branch is out of range or the
+     *         parent is already at MAX_DEPTH
+     */
+    public static long child(long parentTokenId, int branchNumber) {
+        if (isLegacy(parentTokenId)) {
+            if (branchNumber < 1 || branchNumber > LEGACY_MAX_BRANCHES) {
+                throw new IllegalArgumentException(
+                    "Branch number must be between 1 and " + LEGACY_MAX_BRANCHES + ", got: " + branchNumber);
+            }
+            return parentTokenId + branchNumber;
+        }
+        if (branchNumber < 1 || branchNumber > MAX_BRANCHES) {
+            throw new IllegalArgumentException(
+                "Branch number must be between 1 and " + MAX_BRANCHES + ", got: " + branchNumber);
+        }
+        int depth = depth(parentTokenId);
+        if (depth >= MAX_DEPTH) {
+            throw new IllegalArgumentException(
+                "Token " + format(parentTokenId) + " is already at maximum fork depth " + MAX_DEPTH);
+        }
+        return ((parentTokenId & ~DEPTH_MASK) | ((long) (depth + 1) << DEPTH_SHIFT))
+               | ((long) branchNumber << slotShift(depth + 1));
+    }
+
+    /**
+     * The token offset branches along from tokenId: a child of a root token,
+     * a later sibling of a forked token. This is the long form of the legacy
+     * "tokenId + offset" the fork handlers use, so a token that continues
+     * after a join and forks again keeps its own ID for the first branch.
+     */
+    public static long addBranch(long tokenId, int offset) {
+        if (isLegacy(tokenId)) {
+            return tokenId + offset;
+        }
+        if (offset == 0) {
+            return tokenId;
+        }
+        int depth = depth(tokenId);
+        if (depth == 0) {
+            return child(tokenId, offset);
+        }
+        return child(parent(tokenId), branch(tokenId) + offset);
+    }
+
+    /**
+     * Root token ID of the next workflow instance after rootTokenId's.
+     * Generators step through their workflows with this; a legacy ID steps
+     * by TOKEN_INCREMENT as before.
+     */
+    public static long nextInstance(long rootTokenId) {
+        if (isLegacy(rootTokenId)) {
+            return root(rootTokenId) + VersionConstants.TOKEN_INCREMENT;
+        }
+        return of(version(rootTokenId), instance(rootTokenId) + 1);
+    }
+
+    // ========================================================================
+    // DECODING
+    // ========================================================================
+
+    /**
+     * True if tokenId uses the pre-64-bit int encoding.
+     */
+    public static boolean isLegacy(long tokenId) {
+        return (tokenId >>> VERSION_SHIFT) == 0;
+    }
+
+    /**
+     * Rule-base version number (1 for v001, 999 for v999).
+     */
+    public static int version(long tokenId) {
+        if (isLegacy(tokenId)) {
+            return versionNumber(VersionConstants.getVersionFromSequenceId(tokenId));
+        }
+        return (int) (tokenId >>> VERSION_SHIFT);
+    }
+
+    /**
+     * Rule-base version string ("v001", "v999").
+     */
+    public static String versionString(long tokenId) {
+        return String.format("v%03d", version(tokenId));
+    }
+
+    /**
+     * Workflow instance number within the version.
+     */
+    public static long instance(long tokenId) {
+        if (isLegacy(tokenId)) {
+            long base = VersionConstants.getWorkflowBaseFromSequenceId(tokenId);
+            return (tokenId - base) / VersionConstants.TOKEN_INCREMENT;
+        }
+        return (tokenId >>> INSTANCE_SHIFT) & MAX_INSTANCE;
+    }
+
+    /**
+     * Fork depth: 0 for a workflow root, 1 for a fork child, and so on.
+     */
+    public static int depth(long tokenId) {
+        if (isLegacy(tokenId)) {
+            return tokenId % LEGACY_BRANCH_MODULUS == 0 ? 0 : 1;
+        }
+        return (int) ((tokenId & DEPTH_MASK) >>> DEPTH_SHIFT);
+    }
+
+    /**
+     * Branch number at the deepest fork level (0 for a root token).
+     */
+    public static int branch(long tokenId) {
+        if (isLegacy(tokenId)) {
+            return (int) (tokenId % LEGACY_BRANCH_MODULUS);
+        }
+        int depth = depth(tokenId);
+        return depth == 0 ? 0 : branchAt(tokenId, depth);
+    }
+
+    /**
+     * Branch number at a given fork level (1 = outermost fork).
+     */
+    public static int branchAt(long tokenId, int level) {
+        if (isLegacy(tokenId)) {
+            return level == 1 ? branch(tokenId) : 0;
+        }
+        if (level < 1 || level > depth(tokenId)) {
+            return 0;
+        }
+        return (int) ((tokenId >>> slotShift(level)) & BRANCH_MASK);
+    }
+
+    /**
+     * Token one fork level up; a root token is its own parent.
+     */
+    public static long parent(long tokenId) {
+        if (isLegacy(tokenId)) {
+            return tokenId - tokenId % LEGACY_BRANCH_MODULUS;
+        }
+        int depth = depth(tokenId);
+        if (depth == 0) {
+            return tokenId;
+        }
+        long cleared = tokenId & ~(BRANCH_MASK << slotShift(depth)) & ~DEPTH_MASK;
+        return cleared | ((long) (depth - 1) << DEPTH_SHIFT);
+    }
+
+    /**
+     * Root token of the workflow instance (the token family).
+     */
+    public static long root(long tokenId) {
+        if (isLegacy(tokenId)) {
+            return parent(tokenId);
+        }
+        return tokenId & ~(DEPTH_MASK | PATH_MASK);
+    }
+
+    /**
+     * Exclusive upper bound of the ID range holding every token of
+     * tokenId's workflow instance, for range queries from root(tokenId).
+     */
+    public static long familyRangeEnd(long tokenId) {
+        if (isLegacy(tokenId)) {
+            return root(tokenId) + LEGACY_BRANCH_MODULUS;
+        }
+        return root(tokenId) + (1L << INSTANCE_SHIFT);
+    }
+
+    /**
+     * True for tokens of the v999 admin/collection version.
+     */
+    public static boolean isAdmin(long tokenId) {
+        return version(tokenId) == 999;
+    }
+
+    // ========================================================================
+    // LEGACY CONVERSION
+    // ========================================================================
+
+    /**
+     * Convert a legacy int-encoded ID to this layout: version from its
+     * 1,000,000 block, instance from its TOKEN_INCREMENT slot and the
+     * parent + branch offset as a depth-1 branch. IDs already in this layout
+     * are returned unchanged.
+     */
+    public static long fromLegacy(long tokenId) {
+        if (!isLegacy(tokenId)) {
+            return tokenId;
+        }
+        long root = of(version(tokenId), instance(tokenId));
+        int branch = branch(tokenId);
+        return branch == 0 ? root : child(root, branch);
+    }
+
+    /**
+     * Compact ordering key (below 2^61) sorting tokens by version, instance
+     * and branch path, parents before their children. The depth bits are
+     * dropped (the path already implies depth) and legacy IDs are converted
+     * first, so both forms order correctly against each other and callers
+     * can add a tier offset without overflow.
+     */
+    public static long sequenceKey(long tokenId) {
+        long id = fromLegacy(tokenId);
+        return ((id >>> INSTANCE_SHIFT) << PATH_BITS) | (id & PATH_MASK);
+    }
+
+    /**
+     * Parse a token ID from a header/database string. Both forms are plain
+     * decimal longs.
+     */
+    public static long parse(String tokenId) {
+        return Long.parseLong(tokenId.trim());
+    }
+
+    /**
+     * Readable form for logs, e.g. "v001/42.2.1 (4512...)".
+     */
+    public static String format(long tokenId) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(versionString(tokenId)).append('/').append(instance(tokenId));
+        int depth = depth(tokenId);
+        for (int level = 1; level <= depth; level++) {
+            sb.append('.').append(branchAt(tokenId, level));
+        }
+        return sb.append(" (").append(tokenId).append(')').toString();
+    }
+
+    private static int slotShift(int level) {
+        return (MAX_DEPTH - level) * BRANCH_BITS;
+    }
+
+    /**
+     * Version number of a version string ("v001" -> 1).
+     *
+     * @throws IllegalArgumentException if version is not v followed by 1-4 digits
+     */
+    private static int versionNumber(String version) {
+        if (version == null || !version.trim().matches("[vV]\\d{1,4}")) {
+            throw new IllegalArgumentException("Version must be v followed by 1-4 digits (e.g. v001), got: " + version);
+        }
+        return Integer.parseInt(version.trim().substring(1));
+    }
+}
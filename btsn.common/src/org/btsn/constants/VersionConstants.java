@@ -7,10 +7,19 @@ package org.btsn.constants;
  *   childTokenId = parentTokenId + branchNumber
  *   Example: 1010000 with 2-way fork -> 1010001, 1010002
  * 
- * With TOKEN_INCREMENT = 10000, each workflow has room for:
- *   - Up to 9999 child tokens per parent (branch numbers 1-9999)
+ * With TOKEN_INCREMENT = 10000 between workflows, legacy fork children are
+ * limited by TokenId, which reads an ID that is not a multiple of 100 as
+ * parent + branch:
+ *   - Up to 99 child tokens per parent (branch numbers 1-99)
  *   - Clean separation between workflows
  * 
+ * 64-BIT TOKEN IDS:
+ *   Generators now issue TokenId (long) identities, which carry the version
+ *   in their top bits and have no per-version instance limit. The methods
+ *   below that take a sequence ID accept both forms: TokenId IDs are decoded
+ *   with TokenId, smaller values with the legacy block arithmetic, so existing
+ *   Derby data still resolves to the right version.
+ * 
  * SPECIAL VERSIONS:
  *   v999 - Admin/Collection workflows (instrumentation disabled)
  *          Used for initialization, data collection, and other admin tasks
@@ -44,15 +53,17 @@ public class VersionConstants {
     public static final int VERSION_BLOCK_SIZE = 1000000;
     
     // Token increment between workflows
-    // Child tokens use: parent + branchNumber (1, 2, 3, etc.)
-    // 10000 gives room for up to 9999 branches per parent
+    // Child tokens use: parent + branchNumber (1-99, see TokenId legacy IDs)
     public static final int TOKEN_INCREMENT = 10000;
     
     /**
      * Check if a sequence ID belongs to an admin/collection version
      * that should skip instrumentation
      */
-    public static boolean isAdminVersion(int sequenceId) {
+    public static boolean isAdminVersion(long sequenceId) {
+        if (!TokenId.isLegacy(sequenceId)) {
+            return TokenId.isAdmin(sequenceId);
+        }
         return sequenceId >= V999_BASE && sequenceId <= V999_MAX;
     }
     
@@ -66,9 +77,12 @@ public class VersionConstants {
     /**
      * Get workflow base from sequence ID directly
      * This is what ServiceThread.calculateWorkflowBase() needs
+     * (for TokenId IDs, the root of instance 0 of the version)
      */
-    public static int getWorkflowBaseFromSequenceId(int sequenceId) {
-        if (sequenceId >= V001_BASE && sequenceId <= V001_MAX) {
+    public static long getWorkflowBaseFromSequenceId(long sequenceId) {
+        if (!TokenId.isLegacy(sequenceId)) {
+            return TokenId.of(TokenId.version(sequenceId), 0);
+        } else if (sequenceId >= V001_BASE && sequenceId <= V001_MAX) {
             return V001_BASE;
         } else if (sequenceId >= V002_BASE && sequenceId <= V002_MAX) {
             return V002_BASE;
@@ -89,16 +103,21 @@ public class VersionConstants {
      * Get parent token ID from a potentially forked token ID
      * Uses TOKEN_INCREMENT to find the workflow base
      */
-    public static int getParentTokenId(int sequenceId) {
-        int remainder = sequenceId % TOKEN_INCREMENT;
+    public static long getParentTokenId(long sequenceId) {
+        if (!TokenId.isLegacy(sequenceId)) {
+            return TokenId.root(sequenceId);
+        }
+        long remainder = sequenceId % TOKEN_INCREMENT;
         return sequenceId - remainder;
     }
     
     /**
      * Determine version from sequence ID
      */
-    public static String getVersionFromSequenceId(int sequenceId) {
-        if (sequenceId >= V001_BASE && sequenceId <= V001_MAX) {
+    public static String getVersionFromSequenceId(long sequenceId) {
+        if (!TokenId.isLegacy(sequenceId)) {
+            return TokenId.versionString(sequenceId);
+        } else if (sequenceId >= V001_BASE && sequenceId <= V001_MAX) {
             return "v001";
         } else if (sequenceId >= V002_BASE && sequenceId <= V002_MAX) {
             return "v002";
@@ -111,7 +130,7 @@ public class VersionConstants {
         } else if (sequenceId >= V999_BASE && sequenceId <= V999_MAX) {
             return V999;
         } else {
-            int calculatedBase = (sequenceId / VERSION_BLOCK_SIZE) * VERSION_BLOCK_SIZE;
+            int calculatedBase = (int) (sequenceId / VERSION_BLOCK_SIZE) * VERSION_BLOCK_SIZE;
             return getVersionString(calculatedBase);
         }
     }
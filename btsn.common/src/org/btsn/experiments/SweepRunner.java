@@ -0,0 +1,648 @@
+package org.btsn.experiments;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.log4j.Logger;
+import org.btsn.utils.LoaderSettings;
+import org.btsn.utils.Replication;
+
+/**
+ * Parameter-Sweep Experiment Runner
+ *
+ * Runs an experiment build file (e.g. P1_P2_P3_P4_BuildAndRun.xml) once for
+ * every combination of the swept parameters, several replications each,
+ * with as many runs side by side as the build box has cores. Every run is
+ * an isolated replication (see org.btsn.utils.Replication): its own port
+ * block, its own Derby databases and output files under
+ * <outputDir>/<run>/, so runs cannot see each other's tokens or results.
+ *
+ * Sweep Definition (properties file):
+ * ===================================
+ *   buildFile           Ant build file, relative to the definition file
+ *   target              Ant target (default run-complete-workflow)
+ *   antCommand          Ant command line (default ant, cmd /c ant on Windows)
+ *   replications        runs per parameter combination (default 1)
+ *   parallelism         concurrent runs (default: available processors),
+ *                       at most Replication.MAX_SLOTS
+ *   clockMode           passed on as btsn.clockMode - VIRTUAL runs the
+ *                       places without sleeping (see SimulationClock)
+ *   completionMarker    Ant output line that ends the workload; the runner
+ *                       then stops the run's services (default "Services are
+ *                       still running", the last line of the build files)
+ *   runTimeoutMinutes   a run still going after this is killed (default 30)
+ *   monitorProject      project holding the analysis database
+ *                       (default btsn.common.Monitor)
+ *   set.<property>      fixed Ant property for every run
+ *   sweep.<property>    comma-separated values to sweep
+ *
+ * A property named btsn.loader.<Section>.<element> is a loaderSettings.xml
+ * setting rather than an Ant property: it is passed to every JVM of the run
+ * as a system property, which takes precedence over the element in each
+ * project's loaderSettings.xml (see org.btsn.utils.LoaderSettings).
+ *
+ * e.g.
+ *   buildFile=P1_P2_P3_P4_BuildAndRun.xml
+ *   replications=3
+ *   sweep.token.count=10,50,100
+ *   sweep.btsn.loader.ReactorSettings.maxQueue=25,100
+ *   set.token.expire=120000
+ *
+ * Each run's services are stopped by deleting their shutdown control files
+ * (ServiceLoader's .running files, kept in the run directory), which lets
+ * the build's <parallel> finish. Results are then read from the run:
+ *   - end-to-end latency (p50/p90/p99/max) and throughput from
+ *     PROCESSMEASUREMENTS in the Monitor's analysis database
+ *   - admitted and rejected tokens from the metrics snapshots ServiceLoader
+ *     writes on shutdown; the drop rate is rejected / (admitted + rejected)
+ *
+ * Reports (in outputDir):
+ *   sweep-runs.csv   one row per run
+ *   sweep-report.md  one row per parameter combination, replications
+ *                    averaged (throughput and p99 as mean +/- sd)
+ *
+ * Usage: java org.btsn.experiments.SweepRunner <sweep.properties> [outputDir]
+ * (classpath: btsn.common/bin and btsn.common/lib/*, for the Derby driver)
+ *
+ * Each run generates and deploys its rule bases into its own directory
+ * (Replication.ruleFolder), not the projects' shared RuleFolder.<version>,
+ * so parallel runs never rebuild rules another run is reading.
+ */
+public class SweepRunner {
+
+	private static final Logger logger = Logger.getLogger(SweepRunner.class);
+
+	private static final String SWEEP_PREFIX = "sweep.";
+	private static final String SET_PREFIX = "set.";
+	private static final String DATABASE_NAME = "ServiceAnalysisDataBase";
+	private static final String DEFAULT_ANT_COMMAND = System.getProperty("os.name", "").startsWith("Windows")
+			? "cmd /c ant" : "ant";
+
+	private final File buildFile;
+	private final String target;
+	private final String antCommand;
+	private final int replications;
+	private final int parallelism;
+	private final String clockMode;
+	private final String completionMarker;
+	private final long runTimeoutMinutes;
+	private final String monitorProject;
+	private final Map<String, String> fixedProperties = new LinkedHashMap<>();
+	private final Map<String, List<String>> sweptProperties = new LinkedHashMap<>();
+	private final File outputDirectory;
+
+	public SweepRunner(File definitionFile, File outputDirectory) throws IOException {
+		Properties definition = new Properties();
+		try (FileReader reader = new FileReader(definitionFile)) {
+			definition.load(reader);
+		}
+
+		String buildFileName = definition.getProperty("buildFile");
+		if (buildFileName == null) {
+			throw new IllegalArgumentException("Sweep definition has no buildFile: " + definitionFile);
+		}
+		File base = definitionFile.getAbsoluteFile().getParentFile();
+		File resolved = new File(buildFileName);
+		this.buildFile = (resolved.isAbsolute() ? resolved : new File(base, buildFileName)).getCanonicalFile();
+		this.target = definition.getProperty("target", "run-complete-workflow").trim();
+		this.antCommand = definition.getProperty("antCommand", DEFAULT_ANT_COMMAND).trim();
+		this.replications = Math.max(1, Integer.parseInt(definition.getProperty("replications", "1").trim()));
+		int cores = Runtime.getRuntime().availableProcessors();
+		int requested = Integer.parseInt(definition.getProperty("parallelism", String.valueOf(cores)).trim());
+		this.parallelism = Math.max(1, Math.min(requested, Replication.MAX_SLOTS));
+		this.clockMode = definition.getProperty("clockMode");
+		this.completionMarker = definition.getProperty("completionMarker", "Services are still running");
+		this.runTimeoutMinutes = Long.parseLong(definition.getProperty("runTimeoutMinutes", "30").trim());
+		this.monitorProject = definition.getProperty("monitorProject", "btsn.common.Monitor").trim();
+
+		for (String key : new TreeSet<>(definition.stringPropertyNames())) {
+			if (key.startsWith(SWEEP_PREFIX)) {
+				List<String> values = new ArrayList<>();
+				for (String value : definition.getProperty(key).split(",")) {
+					if (!value.trim().isEmpty()) {
+						values.add(value.trim());
+					}
+				}
+				sweptProperties.put(key.substring(SWEEP_PREFIX.length()), values);
+			} else if (key.startsWith(SET_PREFIX)) {
+				fixedProperties.put(key.substring(SET_PREFIX.length()), definition.getProperty(key).trim());
+			}
+		}
+		for (Map.Entry<String, String> fixed : fixedProperties.entrySet()) {
+			checkLoaderSetting(fixed.getKey(), Collections.singletonList(fixed.getValue()));
+		}
+		for (Map.Entry<String, List<String>> swept : sweptProperties.entrySet()) {
+			checkLoaderSetting(swept.getKey(), swept.getValue());
+		}
+
+		this.outputDirectory = outputDirectory.getAbsoluteFile();
+		this.outputDirectory.mkdirs();
+
+		if (requested > Replication.MAX_SLOTS) {
+			logger.info("SweepRunner: parallelism capped at " + Replication.MAX_SLOTS
+					+ " (port blocks available on one host)");
+		}
+	}
+
+	private static boolean isLoaderSetting(String property) {
+		return property.startsWith(LoaderSettings.PROPERTY_PREFIX);
+	}
+
+	/**
+	 * Loader settings travel in JAVA_TOOL_OPTIONS, which is split on
+	 * whitespace - reject values it would split.
+	 */
+	private static void checkLoaderSetting(String property, List<String> values) {
+		if (!isLoaderSetting(property)) {
+			return;
+		}
+		for (String value : values) {
+			if (value.isEmpty() || value.matches(".*\\s.*")) {
+				throw new IllegalArgumentException(property + " must be one non-empty word: '" + value + "'");
+			}
+		}
+	}
+
+	/**
+	 * Run every combination x replication and write the reports.
+	 */
+	public List<RunResult> run() throws InterruptedException {
+		List<Map<String, String>> combinations = expand();
+		List<RunResult> results = Collections.synchronizedList(new ArrayList<>());
+
+		// One port slot per concurrent run, handed back when the run ends
+		BlockingQueue<Integer> slots = new ArrayBlockingQueue<>(parallelism);
+		for (int slot = 0; slot < parallelism; slot++) {
+			slots.add(slot);
+		}
+
+		System.out.println("=== Parameter Sweep ===");
+		System.out.println("  Build file:     " + buildFile);
+		System.out.println("  Combinations:   " + combinations.size() + " x " + replications + " replication(s)");
+		System.out.println("  Parallel runs:  " + parallelism);
+		System.out.println("  Output:         " + outputDirectory);
+
+		ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+		List<Future<?>> futures = new ArrayList<>();
+		int runNumber = 0;
+		for (int c = 0; c < combinations.size(); c++) {
+			for (int r = 1; r <= replications; r++) {
+				String runName = String.format("run%03d-c%02d-r%02d", ++runNumber, c + 1, r);
+				Map<String, String> parameters = combinations.get(c);
+				int combination = c + 1;
+				int replication = r;
+				futures.add(pool.submit(() -> {
+					int slot;
+					try {
+						slot = slots.take();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					try {
+						results.add(runReplication(runName, combination, replication, parameters, slot));
+					} finally {
+						slots.add(slot);
+					}
+				}));
+			}
+		}
+		pool.shutdown();
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (Exception e) {
+				logger.error("SweepRunner: run failed: " + e.getMessage(), e);
+			}
+		}
+
+		List<RunResult> ordered = new ArrayList<>(results);
+		ordered.sort((a, b) -> a.runName.compareTo(b.runName));
+		writeRunsCsv(ordered);
+		writeReport(ordered);
+		System.out.println("=== Sweep complete: " + new File(outputDirectory, "sweep-report.md") + " ===");
+		return ordered;
+	}
+
+	/**
+	 * Cartesian product of the swept values (a single empty combination if
+	 * nothing is swept).
+	 */
+	private List<Map<String, String>> expand() {
+		List<Map<String, String>> combinations = new ArrayList<>();
+		combinations.add(new LinkedHashMap<>());
+		for (Map.Entry<String, List<String>> swept : sweptProperties.entrySet()) {
+			List<Map<String, String>> next = new ArrayList<>();
+			for (Map<String, String> partial : combinations) {
+				for (String value : swept.getValue()) {
+					Map<String, String> combination = new LinkedHashMap<>(partial);
+					combination.put(swept.getKey(), value);
+					next.add(combination);
+				}
+			}
+			combinations = next;
+		}
+		return combinations;
+	}
+
+	private RunResult runReplication(String runName, int combination, int replication,
+			Map<String, String> parameters, int slot) {
+		File runDirectory = new File(outputDirectory, runName);
+		runDirectory.mkdirs();
+		RunResult result = new RunResult(runName, combination, replication, parameters, slot);
+
+		List<String> command = new ArrayList<>();
+		command.addAll(Arrays.asList(antCommand.split("\\s+")));
+		command.add("-f");
+		command.add(buildFile.getPath());
+		command.add("-Doutput.dir=" + runDirectory.getPath());
+		Map<String, String> runProperties = new LinkedHashMap<>(fixedProperties);
+		runProperties.putAll(parameters);
+		Map<String, String> loaderSettings = new LinkedHashMap<>();
+		for (Map.Entry<String, String> property : runProperties.entrySet()) {
+			if (isLoaderSetting(property.getKey())) {
+				loaderSettings.put(property.getKey(), property.getValue());
+			} else {
+				command.add("-D" + property.getKey() + "=" + property.getValue());
+			}
+		}
+		command.add(target);
+
+		// The build files fork their own JVMs without passing system
+		// properties on, so the replication settings go through the
+		// environment every forked JVM reads
+		StringBuilder toolOptions = new StringBuilder();
+		String inherited = System.getenv("JAVA_TOOL_OPTIONS");
+		if (inherited != null && !inherited.trim().isEmpty()) {
+			toolOptions.append(inherited.trim()).append(' ');
+		}
+		toolOptions.append("-D").append(Replication.SLOT_PROPERTY).append('=').append(slot);
+		toolOptions.append(" -D").append(Replication.DIR_PROPERTY).append('=').append(runDirectory.getPath());
+		if (clockMode != null && !clockMode.trim().isEmpty()) {
+			toolOptions.append(" -Dbtsn.clockMode=").append(clockMode.trim());
+		}
+		for (Map.Entry<String, String> setting : loaderSettings.entrySet()) {
+			toolOptions.append(" -D").append(setting.getKey()).append('=').append(setting.getValue());
+		}
+
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.directory(buildFile.getParentFile());
+		builder.redirectErrorStream(true);
+		builder.environment().put("JAVA_TOOL_OPTIONS", toolOptions.toString());
+
+		System.out.println("[" + runName + "] slot " + slot + " " + parameters);
+		long started = System.currentTimeMillis();
+		Process process = null;
+		try (PrintWriter log = new PrintWriter(Files.newBufferedWriter(
+				new File(runDirectory, "ant.log").toPath(), StandardCharsets.UTF_8))) {
+			process = builder.start();
+			Process running = process;
+			Thread watcher = new Thread(() -> watchOutput(running, log, runDirectory, runName),
+					"SweepRunner-" + runName);
+			watcher.setDaemon(true);
+			watcher.start();
+
+			if (!process.waitFor(runTimeoutMinutes, TimeUnit.MINUTES)) {
+				result.status = "TIMEOUT";
+				stopServices(runDirectory);
+				if (!process.waitFor(30, TimeUnit.SECONDS)) {
+					process.descendants().forEach(ProcessHandle::destroyForcibly);
+					process.destroyForcibly();
+				}
+			} else {
+				result.status = process.exitValue() == 0 ? "OK" : "EXIT_" + process.exitValue();
+			}
+			watcher.join(5000);
+		} catch (IOException e) {
+			result.status = "FAILED";
+			logger.error("[" + runName + "] could not run " + command + ": " + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			result.status = "INTERRUPTED";
+			if (process != null) {
+				process.descendants().forEach(ProcessHandle::destroyForcibly);
+				process.destroyForcibly();
+			}
+		}
+		result.wallSeconds = (System.currentTimeMillis() - started) / 1000.0;
+
+		collectLatencies(result, runDirectory);
+		collectMetrics(result, runDirectory);
+		System.out.println("[" + runName + "] " + result.status + " - " + result.completed + " completed, "
+				+ String.format("%.2f", result.throughput) + " tokens/s, p99 " + result.p99 + "ms, drop "
+				+ String.format("%.1f%%", result.dropRate() * 100));
+		return result;
+	}
+
+	/**
+	 * Copy the build output to the run's log and stop the services once the
+	 * workload has finished.
+	 */
+	private void watchOutput(Process process, PrintWriter log, File runDirectory, String runName) {
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			boolean stopped = false;
+			while ((line = reader.readLine()) != null) {
+				log.println(line);
+				if (!stopped && line.contains(completionMarker)) {
+					log.flush();
+					logger.info("[" + runName + "] workload complete - stopping services");
+					stopServices(runDirectory);
+					stopped = true;
+				}
+			}
+		} catch (IOException e) {
+			logger.debug("[" + runName + "] output closed: " + e.getMessage());
+		}
+		log.flush();
+	}
+
+	/**
+	 * Delete the run's ServiceLoader control files - each ServiceLoader shuts
+	 * down when its file goes.
+	 */
+	private static void stopServices(File runDirectory) {
+		try (Stream<Path> files = Files.walk(runDirectory.toPath(), 2)) {
+			files.filter(p -> p.getFileName().toString().endsWith(".running")).forEach(p -> p.toFile().delete());
+		} catch (IOException e) {
+			logger.warn("Could not stop services in " + runDirectory + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * End-to-end latency and throughput from the Monitor's PROCESSMEASUREMENTS.
+	 */
+	private void collectLatencies(RunResult result, File runDirectory) {
+		File database = new File(new File(runDirectory, monitorProject), DATABASE_NAME);
+		if (!database.isDirectory()) {
+			logger.warn("[" + result.runName + "] no analysis database at " + database);
+			return;
+		}
+		String url = "jdbc:derby:" + database.getAbsolutePath();
+		List<Long> elapsed = new ArrayList<>();
+		long firstStart = Long.MAX_VALUE;
+		long lastArrival = Long.MIN_VALUE;
+		try (Connection connection = DriverManager.getConnection(url);
+				Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery(
+						"SELECT workflowStartTime, tokenArrivalTime, elapsedTime FROM PROCESSMEASUREMENTS")) {
+			while (rs.next()) {
+				elapsed.add(rs.getLong("elapsedTime"));
+				firstStart = Math.min(firstStart, rs.getLong("workflowStartTime"));
+				lastArrival = Math.max(lastArrival, rs.getLong("tokenArrivalTime"));
+			}
+		} catch (SQLException e) {
+			logger.warn("[" + result.runName + "] could not read " + database + ": " + e.getMessage());
+		} finally {
+			try {
+				DriverManager.getConnection(url + ";shutdown=true");
+			} catch (SQLException expected) {
+				// Derby reports a successful database shutdown as an exception
+			}
+		}
+
+		Collections.sort(elapsed);
+		result.completed = elapsed.size();
+		if (!elapsed.isEmpty()) {
+			result.p50 = percentile(elapsed, 50);
+			result.p90 = percentile(elapsed, 90);
+			result.p99 = percentile(elapsed, 99);
+			result.max = elapsed.get(elapsed.size() - 1);
+			long span = lastArrival - firstStart;
+			result.throughput = span > 0 ? elapsed.size() * 1000.0 / span : 0;
+		}
+	}
+
+	/**
+	 * Admission counts from the metrics snapshots of all the run's services.
+	 */
+	private static void collectMetrics(RunResult result, File runDirectory) {
+		try (Stream<Path> files = Files.walk(runDirectory.toPath(), 2)) {
+			List<Path> snapshots = files.filter(p -> p.getFileName().toString().matches("metrics_.*\\.prom"))
+					.collect(Collectors.toList());
+			for (Path snapshot : snapshots) {
+				for (String line : Files.readAllLines(snapshot, StandardCharsets.UTF_8)) {
+					if (line.startsWith("btsn_sched_admitted_total")) {
+						result.admitted += metricValue(line);
+					} else if (line.startsWith("btsn_sched_rejected_total")) {
+						result.rejected += metricValue(line);
+					} else if (line.startsWith("btsn_sched_deadline_missed_total")) {
+						result.deadlineMissed += metricValue(line);
+					}
+				}
+			}
+		} catch (IOException e) {
+			logger.warn("[" + result.runName + "] could not read metrics snapshots: " + e.getMessage());
+		}
+	}
+
+	private static long metricValue(String line) {
+		try {
+			return Long.parseLong(line.substring(line.lastIndexOf(' ') + 1).trim());
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Nearest-rank percentile of sorted values.
+	 */
+	static long percentile(List<Long> sorted, double percentile) {
+		int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+		return sorted.get(Math.max(0, Math.min(sorted.size() - 1, rank - 1)));
+	}
+
+	private void writeRunsCsv(List<RunResult> results) {
+		File csv = new File(outputDirectory, "sweep-runs.csv");
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csv.toPath(), StandardCharsets.UTF_8))) {
+			StringBuilder header = new StringBuilder("run,combination,replication,slot,status");
+			for (String name : sweptProperties.keySet()) {
+				header.append(',').append(name);
+			}
+			header.append(",completed,throughput_per_s,p50_ms,p90_ms,p99_ms,max_ms,admitted,rejected,"
+					+ "drop_rate,deadline_missed,wall_s");
+			out.println(header);
+			for (RunResult r : results) {
+				StringBuilder row = new StringBuilder();
+				row.append(r.runName).append(',').append(r.combination).append(',').append(r.replication)
+						.append(',').append(r.slot).append(',').append(r.status);
+				for (String name : sweptProperties.keySet()) {
+					row.append(',').append(r.parameters.get(name));
+				}
+				row.append(',').append(r.completed)
+						.append(',').append(String.format("%.3f", r.throughput))
+						.append(',').append(r.p50).append(',').append(r.p90).append(',').append(r.p99)
+						.append(',').append(r.max).append(',').append(r.admitted).append(',').append(r.rejected)
+						.append(',').append(String.format("%.4f", r.dropRate()))
+						.append(',').append(r.deadlineMissed)
+						.append(',').append(String.format("%.1f", r.wallSeconds));
+				out.println(row);
+			}
+		} catch (IOException e) {
+			logger.error("Could not write " + csv + ": " + e.getMessage());
+		}
+	}
+
+	private void writeReport(List<RunResult> results) {
+		Map<Integer, List<RunResult>> byCombination = new LinkedHashMap<>();
+		for (RunResult r : results) {
+			byCombination.computeIfAbsent(r.combination, k -> new ArrayList<>()).add(r);
+		}
+
+		File report = new File(outputDirectory, "sweep-report.md");
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(report.toPath(), StandardCharsets.UTF_8))) {
+			out.println("# Parameter Sweep - " + buildFile.getName());
+			out.println();
+			out.println("Target `" + target + "`, " + replications + " replication(s) per combination, "
+					+ parallelism + " in parallel" + (clockMode != null ? ", clock " + clockMode.trim() : "") + ".");
+			if (!fixedProperties.isEmpty()) {
+				out.println("Fixed: " + fixedProperties + ".");
+			}
+			out.println();
+
+			StringBuilder header = new StringBuilder("|");
+			StringBuilder rule = new StringBuilder("|");
+			for (String name : sweptProperties.keySet()) {
+				header.append(' ').append(name).append(" |");
+				rule.append("---|");
+			}
+			header.append(" runs | completed | throughput/s | p50 ms | p90 ms | p99 ms | max ms | drop rate |");
+			rule.append("---:|---:|---:|---:|---:|---:|---:|---:|");
+			out.println(header);
+			out.println(rule);
+
+			for (List<RunResult> runs : byCombination.values()) {
+				RunResult first = runs.get(0);
+				StringBuilder row = new StringBuilder("|");
+				for (String name : sweptProperties.keySet()) {
+					row.append(' ').append(first.parameters.get(name)).append(" |");
+				}
+				long ok = runs.stream().filter(r -> "OK".equals(r.status)).count();
+				row.append(' ').append(ok).append('/').append(runs.size()).append(" |");
+				row.append(' ').append(String.format("%.1f", mean(runs, r -> r.completed))).append(" |");
+				row.append(' ').append(meanSd(runs, r -> r.throughput, "%.2f")).append(" |");
+				row.append(' ').append(String.format("%.0f", mean(runs, r -> r.p50))).append(" |");
+				row.append(' ').append(String.format("%.0f", mean(runs, r -> r.p90))).append(" |");
+				row.append(' ').append(meanSd(runs, r -> r.p99, "%.0f")).append(" |");
+				row.append(' ').append(String.format("%.0f", mean(runs, r -> r.max))).append(" |");
+				row.append(' ').append(String.format("%.2f%%", mean(runs, RunResult::dropRate) * 100)).append(" |");
+				out.println(row);
+			}
+			out.println();
+			out.println("Per-run detail: sweep-runs.csv. Throughput is completed tokens over the span from the first "
+					+ "workflow start to the last arrival at the Monitor; latency is end-to-end elapsed time; drop rate "
+					+ "is tokens rejected by the reactors over tokens offered.");
+		} catch (IOException e) {
+			logger.error("Could not write " + report + ": " + e.getMessage());
+		}
+	}
+
+	private static double mean(List<RunResult> runs, ToDoubleFunction<RunResult> value) {
+		return runs.stream().mapToDouble(value).average().orElse(0);
+	}
+
+	private static String meanSd(List<RunResult> runs, ToDoubleFunction<RunResult> value,
+			String format) {
+		double mean = mean(runs, value);
+		if (runs.size() < 2) {
+			return String.format(format, mean);
+		}
+		double variance = runs.stream().mapToDouble(value).map(v -> (v - mean) * (v - mean)).sum() / (runs.size() - 1);
+		return String.format(format, mean) + " +/- " + String.format(format, Math.sqrt(variance));
+	}
+
+	/**
+	 * Outcome of one replication.
+	 */
+	public static class RunResult {
+		final String runName;
+		final int combination;
+		final int replication;
+		final Map<String, String> parameters;
+		final int slot;
+		String status = "NOT_RUN";
+		double wallSeconds;
+		int completed;
+		double throughput;
+		long p50;
+		long p90;
+		long p99;
+		long max;
+		long admitted;
+		long rejected;
+		long deadlineMissed;
+
+		RunResult(String runName, int combination, int replication, Map<String, String> parameters, int slot) {
+			this.runName = runName;
+			this.combination = combination;
+			this.replication = replication;
+			this.parameters = parameters;
+			this.slot = slot;
+		}
+
+		public double dropRate() {
+			long offered = admitted + rejected;
+			return offered > 0 ? (double) rejected / offered : 0;
+		}
+
+		public String getRunName() {
+			return runName;
+		}
+
+		public String getStatus() {
+			return status;
+		}
+
+		public double getThroughput() {
+			return throughput;
+		}
+
+		public long getP99() {
+			return p99;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.err.println("Usage: java org.btsn.experiments.SweepRunner <sweep.properties> [outputDir]");
+			System.exit(1);
+		}
+		File definition = new File(args[0]);
+		File output = args.length > 1 ? new File(args[1])
+				: new File(definition.getAbsoluteFile().getParentFile(),
+						"sweep-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()));
+		new SweepRunner(definition, output).run();
+	}
+}
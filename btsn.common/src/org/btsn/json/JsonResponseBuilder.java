@@ -364,8 +364,19 @@ public class JsonResponseBuilder {
      * 
      * Format: { "P1": { ... place response ... } }
      */
-    @SuppressWarnings("unchecked")
     public String build() {
+        return buildObject().toJSONString();
+    }
+    
+    /**
+     * Build the response as an object tree (same content as build())
+     * 
+     * Services that return a TokenDocument hand this to ServiceHelper, which
+     * enriches it in place and serializes once, instead of parsing the
+     * build() string again.
+     */
+    @SuppressWarnings("unchecked")
+    public JSONObject buildObject() {
         JSONObject placeResponse = new JSONObject();
         
         // NEW: Add routing_decision FIRST (for DecisionNode extraction)
@@ -469,7 +480,7 @@ public class JsonResponseBuilder {
         String responseKey = (placeId != null) ? placeId : "placeResults";
         response.put(responseKey, placeResponse);
         
-        return response.toJSONString();
+        return response;
     }
     
     /**
@@ -564,9 +575,17 @@ public class JsonResponseBuilder {
     /**
      * Build error response
      */
-    @SuppressWarnings("unchecked")
     public String createErrorResponse(String placeId, String errorMessage, 
                                       String sequenceId, String context) {
+        return createErrorObject(placeId, errorMessage, sequenceId, context).toJSONString();
+    }
+    
+    /**
+     * Build error response as an object tree (same content as createErrorResponse())
+     */
+    @SuppressWarnings("unchecked")
+    public JSONObject createErrorObject(String placeId, String errorMessage, 
+                                        String sequenceId, String context) {
         JSONObject errorResponse = new JSONObject();
         
         errorResponse.put("placeId", placeId);
@@ -580,7 +599,7 @@ public class JsonResponseBuilder {
         JSONObject response = new JSONObject();
         response.put(placeId, errorResponse);
         
-        return response.toJSONString();
+        return response;
     }
     
     /**
@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.btsn.base.TokenInfo;
+import org.btsn.utils.ClaimCheck;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 
@@ -31,11 +32,11 @@ import org.json.simple.parser.JSONParser;
 public class JsonTokenParser {
     
     private final String placeId;
-    private final JSONParser jsonParser;
     
+    // JSONParser keeps state between calls, so each parse gets its own -
+    // one JsonTokenParser may serve concurrent tokens on a shared service
     public JsonTokenParser(String placeId) {
         this.placeId = placeId;
-        this.jsonParser = new JSONParser();
     }
     
     /**
@@ -54,7 +55,7 @@ public class JsonTokenParser {
         
         try {
             // Try parsing as JSON object
-            Object parsed = jsonParser.parse(tokenData);
+            Object parsed = new JSONParser().parse(tokenData);
             
             if (parsed instanceof JSONObject) {
                 JSONObject json = (JSONObject) parsed;
@@ -71,7 +72,22 @@ public class JsonTokenParser {
         
         return info;
     }
-    
+
+    /**
+     * Parse an already-parsed token - no second parse of the token text
+     *
+     * @param token Token document from ServiceHelper
+     * @return TokenInfo object with parsed data
+     */
+    public TokenInfo parseIncomingToken(TokenDocument token) {
+        if (token == null || !token.isObject()) {
+            return parseIncomingToken(token != null ? token.toJSONString() : null);
+        }
+        TokenInfo info = new TokenInfo();
+        parseFromJsonObject(token.getRoot(), info);
+        return info;
+    }
+
     /**
      * Parse from JSON object
      * 
@@ -110,7 +126,8 @@ public class JsonTokenParser {
         // Parse data map (will be merged with top-level fields)
         Map<String, String> dataMap = new HashMap<>();
         if (tokenData.containsKey("data")) {
-            Object dataObj = tokenData.get("data");
+            // A large data map may have been checked in - resolve the reference
+            Object dataObj = ClaimCheck.resolve(tokenData.get("data"));
             if (dataObj instanceof JSONObject) {
                 JSONObject dataJson = (JSONObject) dataObj;
                 
@@ -198,7 +215,7 @@ public class JsonTokenParser {
         TokenInfo info = new TokenInfo();
         
         try {
-            Object parsed = jsonParser.parse(tokenData);
+            Object parsed = new JSONParser().parse(tokenData);
             
             if (!(parsed instanceof JSONObject)) {
                 throw new IllegalArgumentException("Token data is not a valid JSON object");
@@ -0,0 +1,256 @@
+package org.btsn.json;
+
+import java.util.Set;
+
+import org.btsn.utils.ClaimCheck;
+import org.json.simple.JSONAware;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+/**
+ * Parse-once Token Document
+ *
+ * A token as it flows through one hop of the Petri Net: parsed once when it
+ * arrives, handed to ServiceHelper's metadata extraction, to the service and
+ * to result enrichment as the same object model, and serialized once when it
+ * leaves. Before this every hop parsed the token five or six times
+ * (extractMetadata, extractBusinessData, the service's JsonTokenParser,
+ * enrichServiceResult, ...), each stage handing the next a re-serialized
+ * string.
+ *
+ * Lazy Serialization:
+ * ===================
+ * The document keeps the text it was parsed from. As long as nothing is
+ * changed, toJSONString() returns that text without walking the tree, so a
+ * service that still takes a String (or a stage that only reads) costs
+ * nothing. Changes made through put()/remove() - or in place on getRoot()/
+ * getBody() followed by changed() - drop the cached text and the next
+ * toJSONString() serializes once and caches again.
+ *
+ * TokenDocument implements JSONAware, so a document embedded as a value in
+ * another JSONObject serializes as its cached text - an untouched subtree is
+ * copied, not re-serialized.
+ *
+ * Text that is not a JSON object is kept as-is: isObject() is false,
+ * getRoot() is null and toJSONString() returns the original text, which is
+ * what the string pipeline passed on for unparsable tokens.
+ *
+ * Values checked into the ClaimCheck store travel as references; get()
+ * resolves them on read without changing the tree, so a document that is
+ * passed on unchanged keeps its references (and its small text).
+ *
+ * Not thread-safe - a document belongs to the one service invocation that
+ * parsed it.
+ *
+ * @author ACameron
+ */
+public class TokenDocument implements JSONAware {
+
+    // Fields that mark a single-key object as a place-wrapped token {"P1": {...}}
+    private static final String[] TOKEN_MARKERS = {
+        "tokenId", "version", "workflow_start_time", "original_token", "status"
+    };
+
+    private final JSONObject root;
+    private String text;
+
+    private TokenDocument(JSONObject root, String text) {
+        this.root = root;
+        this.text = text;
+    }
+
+    /**
+     * Parse token text. Never returns null - text that is empty or not a JSON
+     * object gives a document with isObject() false.
+     */
+    public static TokenDocument parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return new TokenDocument(null, text);
+        }
+        try {
+            Object parsed = new JSONParser().parse(text);
+            if (parsed instanceof JSONObject) {
+                return new TokenDocument((JSONObject) parsed, text);
+            }
+        } catch (Exception e) {
+            // Not JSON - keep the raw text
+        }
+        return new TokenDocument(null, text);
+    }
+
+    /**
+     * Wrap an object tree built in memory (serialized on first use).
+     */
+    public static TokenDocument of(JSONObject root) {
+        return new TokenDocument(root, null);
+    }
+
+    /**
+     * Parse an argument that may already be a document.
+     */
+    public static TokenDocument from(Object value) {
+        if (value instanceof TokenDocument) {
+            return (TokenDocument) value;
+        }
+        if (value instanceof JSONObject) {
+            return of((JSONObject) value);
+        }
+        return parse(value != null ? value.toString() : null);
+    }
+
+    public boolean isObject() {
+        return root != null;
+    }
+
+    /**
+     * The top-level object, or null if the text was not a JSON object.
+     * Call changed() after modifying it in place.
+     */
+    public JSONObject getRoot() {
+        return root;
+    }
+
+    /**
+     * Key of the place wrapper ({"P1": {...}}), or null if the token is not
+     * place-wrapped.
+     */
+    public String getWrapperKey() {
+        if (root == null || root.size() != 1) {
+            return null;
+        }
+        Object key = root.keySet().iterator().next();
+        Object value = root.get(key);
+        if (!(value instanceof JSONObject)) {
+            return null;
+        }
+        JSONObject inner = (JSONObject) value;
+        for (String marker : TOKEN_MARKERS) {
+            if (inner.containsKey(marker)) {
+                return key.toString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The token data: the inner object of a place-wrapped token, otherwise
+     * the root. Call changed() after modifying it in place.
+     */
+    public JSONObject getBody() {
+        String wrapperKey = getWrapperKey();
+        return wrapperKey != null ? (JSONObject) root.get(wrapperKey) : root;
+    }
+
+    /**
+     * Value from the token data (see getBody()), or null. A claim-check
+     * reference is resolved to the value it stands for.
+     */
+    public Object get(String key) {
+        JSONObject body = getBody();
+        return body != null ? ClaimCheck.resolve(body.get(key)) : null;
+    }
+
+    public String getString(String key) {
+        Object value = get(key);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Numeric value from the token data, accepting numbers and numeric
+     * strings; null if absent or not numeric.
+     */
+    public Long getLong(String key) {
+        Object value = get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Shallow copy of this document without the given top-level fields.
+     * Returns this document (and its cached text) when none of them are
+     * present, which is the usual case.
+     */
+    @SuppressWarnings("unchecked")
+    public TokenDocument without(Set<String> fields) {
+        if (root == null) {
+            return this;
+        }
+        boolean present = false;
+        for (String field : fields) {
+            if (root.containsKey(field)) {
+                present = true;
+                break;
+            }
+        }
+        if (!present) {
+            return this;
+        }
+        JSONObject copy = new JSONObject();
+        for (Object key : root.keySet()) {
+            if (!fields.contains(key.toString())) {
+                copy.put(key, root.get(key));
+            }
+        }
+        return of(copy);
+    }
+
+    /**
+     * Set a top-level field.
+     */
+    @SuppressWarnings("unchecked")
+    public TokenDocument put(String key, Object value) {
+        root.put(key, value);
+        text = null;
+        return this;
+    }
+
+    /**
+     * Remove a top-level field.
+     */
+    public Object remove(String key) {
+        Object previous = root.remove(key);
+        text = null;
+        return previous;
+    }
+
+    /**
+     * Drop the cached text after the tree was modified in place.
+     */
+    public void changed() {
+        text = null;
+    }
+
+    /**
+     * Serialized form - the original text if the document is unchanged,
+     * otherwise serialized once and cached.
+     */
+    @Override
+    public String toJSONString() {
+        if (text == null && root != null) {
+            text = root.toJSONString();
+        }
+        return text;
+    }
+
+    /**
+     * Length of the serialized form (serializes if needed).
+     */
+    public int length() {
+        String json = toJSONString();
+        return json != null ? json.length() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return toJSONString();
+    }
+}
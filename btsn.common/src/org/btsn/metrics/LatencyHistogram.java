@@ -0,0 +1,133 @@
+package org.btsn.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed log-spaced buckets (milliseconds).
+ *
+ * Recording is a single atomic increment on the matching bucket plus two
+ * LongAdder updates, so it is safe to call from the EventReactor receive
+ * threads and the ServiceThread processing loop without contention.
+ *
+ * The bucket layout follows the HDR idea of constant relative precision
+ * (1-2-5 per decade) rather than full HDR sub-bucketing - enough resolution
+ * for queue and service times in this system while staying Prometheus
+ * compatible (cumulative "le" buckets).
+ */
+public class LatencyHistogram {
+
+	// Upper bounds in ms - the final implicit bucket is +Inf
+	static final long[] BUCKET_BOUNDS = {
+			1, 2, 5, 10, 20, 50, 100, 200, 500,
+			1000, 2000, 5000, 10000, 20000, 60000 };
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong(0);
+
+	/**
+	 * Record one observation. Negative values (clock skew between hosts)
+	 * are clamped to zero rather than discarded.
+	 */
+	public void record(long valueMs) {
+		if (valueMs < 0) {
+			valueMs = 0;
+		}
+		buckets.incrementAndGet(bucketIndex(valueMs));
+		count.increment();
+		sum.add(valueMs);
+
+		long currentMax = max.get();
+		while (valueMs > currentMax && !max.compareAndSet(currentMax, valueMs)) {
+			currentMax = max.get();
+		}
+	}
+
+	private static int bucketIndex(long valueMs) {
+		for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+			if (valueMs <= BUCKET_BOUNDS[i]) {
+				return i;
+			}
+		}
+		return BUCKET_BOUNDS.length;
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getSum() {
+		return sum.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Snapshot of the per-bucket (non-cumulative) counts. The last entry is
+	 * the overflow (+Inf) bucket.
+	 */
+	public long[] getBucketCounts() {
+		long[] snapshot = new long[buckets.length()];
+		for (int i = 0; i < snapshot.length; i++) {
+			snapshot[i] = buckets.get(i);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Approximate percentile (0-100) from the bucket counts. Returns the
+	 * upper bound of the bucket containing the requested rank, or the
+	 * observed max for the overflow bucket.
+	 */
+	public long getPercentile(double percentile) {
+		long[] snapshot = getBucketCounts();
+		long total = 0;
+		for (long c : snapshot) {
+			total += c;
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		long rank = (long) Math.ceil(total * (percentile / 100.0));
+		long seen = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return i < BUCKET_BOUNDS.length ? Math.min(BUCKET_BOUNDS[i], max.get()) : max.get();
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Append this histogram in Prometheus text exposition format.
+	 *
+	 * @param out    target buffer
+	 * @param name   metric family name (without _bucket/_sum/_count suffix)
+	 * @param labels pre-rendered label pairs without braces, may be empty
+	 */
+	void appendPrometheus(StringBuilder out, String name, String labels) {
+		long[] snapshot = getBucketCounts();
+		String sep = labels.isEmpty() ? "" : ",";
+		long cumulative = 0;
+
+		for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+			cumulative += snapshot[i];
+			out.append(name).append("_bucket{").append(labels).append(sep)
+					.append("le=\"").append(BUCKET_BOUNDS[i]).append("\"} ").append(cumulative).append('\n');
+		}
+		cumulative += snapshot[BUCKET_BOUNDS.length];
+		out.append(name).append("_bucket{").append(labels).append(sep)
+				.append("le=\"+Inf\"} ").append(cumulative).append('\n');
+
+		String braced = labels.isEmpty() ? "" : "{" + labels + "}";
+		out.append(name).append("_sum").append(braced).append(' ').append(getSum()).append('\n');
+		out.append(name).append("_count").append(braced).append(' ').append(cumulative).append('\n');
+	}
+}
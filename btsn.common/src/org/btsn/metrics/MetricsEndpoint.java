@@ -0,0 +1,107 @@
+package org.btsn.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+import org.apache.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP scrape endpoint for the MetricsRegistry.
+ *
+ * Serves GET /metrics in Prometheus text format. Bound to loopback by default
+ * (0.0.0.0 when running as a remote service host) on a single daemon thread,
+ * so it never competes with the EventReactor receive pool.
+ *
+ * Several ServiceLoaders for the same version commonly run on one host (one
+ * per place project), so if the requested port is taken the next free port
+ * in a small window is used and logged.
+ */
+public class MetricsEndpoint {
+
+	private static final Logger logger = Logger.getLogger(MetricsEndpoint.class);
+	private static final int PORT_SEARCH_WINDOW = 50;
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final MetricsRegistry registry;
+	private HttpServer server;
+	private int boundPort = -1;
+
+	public MetricsEndpoint(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * Start serving. Returns the bound port, or -1 if no port in the
+	 * window could be bound (metrics stay available in-process).
+	 */
+	public int start(int requestedPort, boolean bindAllInterfaces) {
+		InetAddress bindAddress;
+		try {
+			bindAddress = bindAllInterfaces ? InetAddress.getByName("0.0.0.0") : InetAddress.getLoopbackAddress();
+		} catch (IOException e) {
+			bindAddress = InetAddress.getLoopbackAddress();
+		}
+
+		for (int port = requestedPort; port < requestedPort + PORT_SEARCH_WINDOW && port <= 65535; port++) {
+			try {
+				server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+				server.createContext("/metrics", this::handleScrape);
+				server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+					Thread t = new Thread(r, "MetricsEndpoint");
+					t.setDaemon(true);
+					return t;
+				}));
+				server.start();
+				boundPort = port;
+				logger.info("Metrics endpoint listening on http://" + bindAddress.getHostAddress() + ":" + port
+						+ "/metrics");
+				return boundPort;
+			} catch (BindException e) {
+				logger.debug("Metrics port " + port + " in use, trying next");
+			} catch (IOException e) {
+				logger.warn("Could not start metrics endpoint: " + e.getMessage());
+				return -1;
+			}
+		}
+
+		logger.warn("No free metrics port in " + requestedPort + "-" + (requestedPort + PORT_SEARCH_WINDOW - 1));
+		return -1;
+	}
+
+	private void handleScrape(HttpExchange exchange) throws IOException {
+		try {
+			if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	public int getBoundPort() {
+		return boundPort;
+	}
+
+	public void stop() {
+		if (server != null) {
+			server.stop(0);
+			server = null;
+			logger.info("Metrics endpoint stopped");
+		}
+	}
+}
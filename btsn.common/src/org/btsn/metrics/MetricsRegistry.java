@@ -0,0 +1,174 @@
+package org.btsn.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process metrics registry - one per ServiceLoader JVM.
+ *
+ * Holds three kinds of metric, each identified by family name plus label set:
+ *   - counters   : LongAdder, incremented on the hot path
+ *   - gauges     : LongSupplier sampled at scrape time (queue sizes, pending joins)
+ *   - histograms : LatencyHistogram (queue time, service time per hop)
+ *
+ * Lookups after the first registration are a single ConcurrentHashMap get,
+ * and callers are expected to cache the returned LongAdder/LatencyHistogram
+ * where they can. Rendering produces the Prometheus text exposition format
+ * so the endpoint can be scraped while a run is in progress without going
+ * through the Derby ServiceAnalysisDataBase.
+ *
+ * Labels are passed as alternating name/value pairs:
+ *   registry.counter("btsn_tokens_processed_total", "Tokens processed",
+ *                    "service", "P1_Place", "operation", "processToken");
+ */
+public class MetricsRegistry {
+
+	private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+	private static final String TYPE_COUNTER = "counter";
+	private static final String TYPE_GAUGE = "gauge";
+	private static final String TYPE_HISTOGRAM = "histogram";
+
+	// Family name -> family. Skip-list keeps the scrape output in stable order.
+	private final ConcurrentSkipListMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+	public static MetricsRegistry getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Get or create a counter.
+	 */
+	public LongAdder counter(String name, String help, String... labels) {
+		Family family = family(name, help, TYPE_COUNTER);
+		return (LongAdder) family.series.computeIfAbsent(renderLabels(labels), k -> new LongAdder());
+	}
+
+	/**
+	 * Get or create a latency histogram (milliseconds).
+	 */
+	public LatencyHistogram histogram(String name, String help, String... labels) {
+		Family family = family(name, help, TYPE_HISTOGRAM);
+		return (LatencyHistogram) family.series.computeIfAbsent(renderLabels(labels), k -> new LatencyHistogram());
+	}
+
+	/**
+	 * Register (or replace) a gauge sampled at scrape time.
+	 */
+	public void gauge(String name, String help, LongSupplier supplier, String... labels) {
+		Family family = family(name, help, TYPE_GAUGE);
+		family.series.put(renderLabels(labels), supplier);
+	}
+
+	/**
+	 * Register (or replace) a monotonically increasing value owned elsewhere
+	 * (e.g. EventReactor.lostEvents) so it is exposed with counter semantics.
+	 */
+	public void counterFunction(String name, String help, LongSupplier supplier, String... labels) {
+		Family family = family(name, help, TYPE_COUNTER);
+		family.series.put(renderLabels(labels), supplier);
+	}
+
+	/**
+	 * Remove one series, given by its family name and exactly the label pairs
+	 * it was registered with (same order). Called when a ServiceThread or
+	 * EventReactor shuts down so stale gauges do not pin it; series of other
+	 * owners are left alone even when their labels overlap.
+	 */
+	public void unregister(String name, String... labels) {
+		Family family = families.get(name);
+		if (family != null) {
+			family.series.remove(renderLabels(labels));
+		}
+	}
+
+	private Family family(String name, String help, String type) {
+		Family family = families.computeIfAbsent(name, k -> new Family(help, type));
+		if (!family.type.equals(type)) {
+			throw new IllegalArgumentException(
+					"Metric " + name + " already registered as " + family.type + ", not " + type);
+		}
+		return family;
+	}
+
+	static String renderLabels(String... labels) {
+		if (labels == null || labels.length == 0) {
+			return "";
+		}
+		if (labels.length % 2 != 0) {
+			throw new IllegalArgumentException("Labels must be name/value pairs");
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < labels.length; i += 2) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			String value = labels[i + 1] == null ? "" : labels[i + 1];
+			sb.append(labels[i]).append("=\"")
+					.append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+					.append('"');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Render all registered metrics in Prometheus text format (version 0.0.4).
+	 */
+	public String scrape() {
+		StringBuilder out = new StringBuilder(4096);
+
+		for (Map.Entry<String, Family> entry : families.entrySet()) {
+			String name = entry.getKey();
+			Family family = entry.getValue();
+			if (family.series.isEmpty()) {
+				continue;
+			}
+
+			out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+			out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+
+			for (Map.Entry<String, Object> series : new TreeMap<>(family.series).entrySet()) {
+				String labels = series.getKey();
+				Object metric = series.getValue();
+
+				if (metric instanceof LatencyHistogram) {
+					((LatencyHistogram) metric).appendPrometheus(out, name, labels);
+					continue;
+				}
+
+				long value;
+				if (metric instanceof LongAdder) {
+					value = ((LongAdder) metric).sum();
+				} else {
+					try {
+						value = ((LongSupplier) metric).getAsLong();
+					} catch (Exception e) {
+						// Source went away mid-scrape - skip rather than fail the whole page
+						continue;
+					}
+				}
+				out.append(name);
+				if (!labels.isEmpty()) {
+					out.append('{').append(labels).append('}');
+				}
+				out.append(' ').append(value).append('\n');
+			}
+		}
+		return out.toString();
+	}
+
+	private static class Family {
+		final String help;
+		final String type;
+		final ConcurrentHashMap<String, Object> series = new ConcurrentHashMap<>();
+
+		Family(String help, String type) {
+			this.help = help;
+			this.type = type;
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package org.btsn.metrics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+import org.btsn.utils.Replication;
+
+/**
+ * Local collector for TraceSpans - one per ServiceLoader JVM.
+ *
+ * emit() only queues the span's JSON line; a daemon writer thread appends
+ * queued lines to the collector file (TraceContext.getCollectorFile(), in
+ * the replication's project directory when running isolated) and flushes
+ * once the queue is empty, so a ServiceThread never waits on the file. When
+ * the writer falls QUEUE_CAPACITY spans behind, further spans are dropped
+ * and counted rather than slowing the tokens down.
+ */
+public class TraceCollector {
+
+	private static final Logger logger = Logger.getLogger(TraceCollector.class);
+
+	private static final TraceCollector INSTANCE = new TraceCollector();
+
+	private static final int QUEUE_CAPACITY = 10000;
+
+	private final BlockingQueue<String> pending = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private final LongAdder spansWritten = MetricsRegistry.getInstance().counter(
+			"btsn_trace_spans_total", "Trace spans written to the collector file");
+	private final LongAdder spansDropped = MetricsRegistry.getInstance().counter(
+			"btsn_trace_spans_dropped_total", "Trace spans dropped with the collector queue full");
+
+	private Thread writer;
+	private volatile boolean closed = false;
+
+	public static TraceCollector getInstance() {
+		return INSTANCE;
+	}
+
+	private TraceCollector() {
+	}
+
+	/**
+	 * Queue a finished span. No-op when tracing is off.
+	 */
+	public void emit(String spanJson) {
+		if (!TraceContext.isEnabled() || closed) {
+			return;
+		}
+		startWriter();
+		if (!pending.offer(spanJson)) {
+			spansDropped.increment();
+		}
+	}
+
+	/**
+	 * Write what is queued and stop the writer (ServiceLoader shutdown).
+	 */
+	public void close() {
+		Thread running;
+		synchronized (this) {
+			closed = true;
+			running = writer;
+		}
+		if (running == null) {
+			return;
+		}
+		running.interrupt();
+		try {
+			running.join(2000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private synchronized void startWriter() {
+		if (writer != null) {
+			return;
+		}
+		writer = new Thread(this::writeSpans, "TraceCollector");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	private void writeSpans() {
+		File file = collectorFile();
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		logger.info("TraceCollector: writing spans to " + file.getAbsolutePath());
+
+		List<String> batch = new ArrayList<>();
+		try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			while (true) {
+				try {
+					batch.add(pending.take());
+				} catch (InterruptedException e) {
+					// Shutdown - write whatever is still queued
+					pending.drainTo(batch);
+					write(out, batch);
+					out.flush();
+					return;
+				}
+				pending.drainTo(batch);
+				write(out, batch);
+				out.flush();
+			}
+		} catch (IOException e) {
+			logger.warn("TraceCollector: cannot write " + file.getPath() + ": " + e.getMessage());
+		}
+	}
+
+	private void write(BufferedWriter out, List<String> batch) throws IOException {
+		for (String span : batch) {
+			out.write(span);
+			out.newLine();
+		}
+		spansWritten.add(batch.size());
+		batch.clear();
+	}
+
+	private static File collectorFile() {
+		File file = new File(TraceContext.getCollectorFile());
+		if (file.isAbsolute()) {
+			return file;
+		}
+		File projectDirectory = Replication.getProjectDirectory(Replication.currentProjectName());
+		return projectDirectory != null ? new File(projectDirectory, file.getPath()) : file;
+	}
+}
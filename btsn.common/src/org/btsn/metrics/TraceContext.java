@@ -0,0 +1,216 @@
+package org.btsn.metrics;
+
+import java.io.File;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.log4j.Logger;
+import org.btsn.utils.LoaderSettings;
+import org.btsn.utils.StringFileIO;
+
+/**
+ * Trace context carried in the envelope header, so where a token spent its
+ * time can be read from the spans of its hops (see TraceSpan, TraceCollector)
+ * instead of joining SERVICEMEASUREMENTS, TRANSITION_FIRINGS and
+ * TOKEN_GENEALOGY after the run.
+ *
+ * Wire form, one header element:
+ *   <traceContext>traceId:spanId:sentAt:arrivedAt</traceContext>
+ *   traceId   - 16 hex digits, assigned at the first traced hop and kept
+ *               through forks and joins
+ *   spanId    - 16 hex digits, the hop that published the token (the
+ *               parent span of the next hop)
+ *   sentAt    - when EventPublisher sent the token (ms)
+ *   arrivedAt - when the EventReactor received it (ms)
+ *
+ * The publisher and the reactor stamp their times by splicing the payload
+ * text (stampSent/stampArrived), so neither parses the XML for it. A token
+ * handed to a reactor in the same JVM is stamped in its header map instead.
+ * ServiceThread reads the context with the rest of the header, opens a span
+ * for the hop and writes that span's id into the outgoing header.
+ *
+ * sentAt and arrivedAt are taken in different JVMs: on one host they share
+ * a clock, across hosts the network time includes the clocks' offset.
+ *
+ * Configuration (loaderSettings.xml, <TraceSettings>):
+ *   tracingEnabled - false (default) or true
+ *   collectorFile  - span file, relative to the project (default Traces/spans.jsonl)
+ */
+public final class TraceContext {
+
+	private static final Logger logger = Logger.getLogger(TraceContext.class);
+
+	/** Header element carrying the context */
+	public static final String HEADER_ELEMENT = "traceContext";
+
+	private static final String OPEN = "<" + HEADER_ELEMENT + ">";
+	private static final String CLOSE = "</" + HEADER_ELEMENT + ">";
+	private static final int SENT_AT = 2;
+	private static final int ARRIVED_AT = 3;
+
+	private static boolean enabled = false;
+	private static String collectorFile = "Traces/spans.jsonl";
+
+	private final String traceId;
+	private final String spanId;
+	private final long sentAt;
+	private final long arrivedAt;
+
+	static {
+		loadConfiguration();
+	}
+
+	TraceContext(String traceId, String spanId, long sentAt, long arrivedAt) {
+		this.traceId = traceId;
+		this.spanId = spanId;
+		this.sentAt = sentAt;
+		this.arrivedAt = arrivedAt;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static String getCollectorFile() {
+		return collectorFile;
+	}
+
+	/**
+	 * Context from a header value, or null if the token carries none (sent
+	 * by a generator, or by a project with tracing off).
+	 */
+	public static TraceContext parse(String value) {
+		if (value == null) {
+			return null;
+		}
+		String[] fields = value.trim().split(":", -1);
+		if (fields.length != 4 || fields[0].isEmpty() || fields[1].isEmpty()) {
+			return null;
+		}
+		try {
+			return new TraceContext(fields[0], fields[1], parseTime(fields[SENT_AT]), parseTime(fields[ARRIVED_AT]));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Header value; sentAt and arrivedAt are stamped on the way.
+	 */
+	public String encode() {
+		return traceId + ":" + spanId + ":" + sentAt + ":" + arrivedAt;
+	}
+
+	public String getTraceId() {
+		return traceId;
+	}
+
+	public String getSpanId() {
+		return spanId;
+	}
+
+	public long getSentAt() {
+		return sentAt;
+	}
+
+	public long getArrivedAt() {
+		return arrivedAt;
+	}
+
+	/**
+	 * EventPublisher: stamp the send time into a serialized payload.
+	 */
+	public static String stampSent(String payload, long time) {
+		return stamp(payload, SENT_AT, time);
+	}
+
+	/**
+	 * EventReactor: stamp the receive time into a serialized payload.
+	 */
+	public static String stampArrived(String payload, long time) {
+		return stamp(payload, ARRIVED_AT, time);
+	}
+
+	/**
+	 * EventPublisher: stamp the send time into a parsed header.
+	 */
+	public static void stampSent(Map<String, String> header, long time) {
+		stamp(header, SENT_AT, time);
+	}
+
+	/**
+	 * EventReactor: stamp the receive time into a parsed header.
+	 */
+	public static void stampArrived(Map<String, String> header, long time) {
+		stamp(header, ARRIVED_AT, time);
+	}
+
+	static String newId() {
+		return String.format("%016x", ThreadLocalRandom.current().nextLong());
+	}
+
+	private static String stamp(String payload, int field, long time) {
+		if (!enabled || payload == null) {
+			return payload;
+		}
+		int open = payload.indexOf(OPEN);
+		if (open < 0) {
+			return payload;
+		}
+		int start = open + OPEN.length();
+		int end = payload.indexOf(CLOSE, start);
+		if (end < 0) {
+			return payload;
+		}
+		String value = stampValue(payload.substring(start, end), field, time);
+		return value == null ? payload : payload.substring(0, start) + value + payload.substring(end);
+	}
+
+	private static void stamp(Map<String, String> header, int field, long time) {
+		if (!enabled || header == null) {
+			return;
+		}
+		String value = header.get(HEADER_ELEMENT);
+		String stamped = value == null ? null : stampValue(value, field, time);
+		if (stamped != null) {
+			header.put(HEADER_ELEMENT, stamped);
+		}
+	}
+
+	// The header value with one time field replaced, or null if it is not a context
+	private static String stampValue(String value, int field, long time) {
+		String[] fields = value.split(":", -1);
+		if (fields.length != 4) {
+			return null;
+		}
+		fields[field] = Long.toString(time);
+		return String.join(":", fields);
+	}
+
+	private static long parseTime(String value) {
+		return value.isEmpty() ? 0L : Long.parseLong(value);
+	}
+
+	private static void loadConfiguration() {
+		try {
+			String loaderSettings = new File("./").getCanonicalPath() + "/ServiceLoaderQueries/loaderSettings.xml";
+			if (new File(loaderSettings).exists()) {
+				String xmlSettings = StringFileIO.readFileAsString(loaderSettings);
+				TreeMap<String, String> settingsMap = LoaderSettings.section(xmlSettings, "TraceSettings");
+
+				if (settingsMap.containsKey("tracingEnabled")) {
+					enabled = Boolean.parseBoolean(settingsMap.get("tracingEnabled").trim());
+				}
+				if (settingsMap.containsKey("collectorFile") && !settingsMap.get("collectorFile").trim().isEmpty()) {
+					collectorFile = settingsMap.get("collectorFile").trim();
+				}
+			}
+		} catch (Exception e) {
+			logger.info("TraceContext: Using default configuration");
+		}
+		if (enabled) {
+			logger.info("TraceContext: tracing enabled, spans to " + collectorFile);
+		}
+	}
+}
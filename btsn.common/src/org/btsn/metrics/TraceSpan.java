@@ -0,0 +1,114 @@
+package org.btsn.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.simple.JSONValue;
+
+/**
+ * One hop of a token: from the EventReactor receiving it to ServiceThread
+ * publishing its successor(s).
+ *
+ * A span's parents are the contexts it arrived with - one for an ordinary
+ * hop, one per contributing branch for a join, none for the first traced
+ * hop. Every branch of a fork carries the fork's span as parent, so the
+ * spans of a trace form the token's fork/join graph and the critical path
+ * into a join is the parent with the latest arrivedAt.
+ *
+ * Times (ms) of the finished span, one JSON line per span:
+ *   parents[].sentAt / arrivedAt - published upstream / received here
+ *   dequeuedAt                   - taken from the reactor queue
+ *   startedAt / endedAt          - service invocation / publish
+ * so per-hop network time is arrivedAt - sentAt, queueing startedAt -
+ * arrivedAt (of the last parent) and service time endedAt - startedAt.
+ */
+public class TraceSpan {
+
+	private final String traceId;
+	private final String spanId;
+	private final List<TraceContext> parents = new ArrayList<>(1);
+	private final long dequeuedAt;
+
+	private TraceSpan(String traceId, long dequeuedAt) {
+		this.traceId = traceId;
+		this.spanId = TraceContext.newId();
+		this.dequeuedAt = dequeuedAt;
+	}
+
+	/**
+	 * Open the span of a hop for a token that arrived with incoming (null:
+	 * untraced so far - a new trace starts here).
+	 */
+	public static TraceSpan start(TraceContext incoming, long dequeuedAt) {
+		TraceSpan span = new TraceSpan(incoming != null ? incoming.getTraceId() : TraceContext.newId(), dequeuedAt);
+		if (incoming != null) {
+			span.parents.add(incoming);
+		}
+		return span;
+	}
+
+	/**
+	 * A join: add the contexts another input arrived with (input is the
+	 * span opened when that input was dequeued).
+	 */
+	public void addParentsOf(TraceSpan input) {
+		if (input == null || input == this) {
+			return;
+		}
+		for (TraceContext parent : input.parents) {
+			boolean known = false;
+			for (TraceContext existing : parents) {
+				known |= existing.getSpanId().equals(parent.getSpanId());
+			}
+			if (!known) {
+				parents.add(parent);
+			}
+		}
+	}
+
+	/**
+	 * Context for tokens published by this hop.
+	 */
+	public TraceContext outgoing() {
+		return new TraceContext(traceId, spanId, 0L, 0L);
+	}
+
+	public String getTraceId() {
+		return traceId;
+	}
+
+	public String getSpanId() {
+		return spanId;
+	}
+
+	/**
+	 * The finished span as one JSON line for TraceCollector.
+	 */
+	public String toJson(String service, String operation, String nodeType, long sequenceId, long startedAt,
+			long endedAt) {
+		StringBuilder json = new StringBuilder(256);
+		json.append("{\"traceId\":\"").append(traceId)
+			.append("\",\"spanId\":\"").append(spanId)
+			.append("\",\"parents\":[");
+		for (int i = 0; i < parents.size(); i++) {
+			TraceContext parent = parents.get(i);
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append("{\"traceId\":\"").append(parent.getTraceId())
+				.append("\",\"spanId\":\"").append(parent.getSpanId())
+				.append("\",\"sentAt\":").append(parent.getSentAt())
+				.append(",\"arrivedAt\":").append(parent.getArrivedAt())
+				.append('}');
+		}
+		json.append("],\"service\":\"").append(JSONValue.escape(String.valueOf(service)))
+			.append("\",\"operation\":\"").append(JSONValue.escape(String.valueOf(operation)))
+			.append("\",\"nodeType\":\"").append(JSONValue.escape(String.valueOf(nodeType)))
+			.append("\",\"sequenceId\":").append(sequenceId)
+			.append(",\"dequeuedAt\":").append(dequeuedAt)
+			.append(",\"startedAt\":").append(startedAt)
+			.append(",\"endedAt\":").append(endedAt)
+			.append('}');
+		return json.toString();
+	}
+}
@@ -21,6 +21,7 @@ import org.apache.log4j.ConsoleAppender;
 import org.apache.log4j.Logger;
 import org.apache.log4j.PatternLayout;
 import org.btsn.utils.OOjdrewAPI;
+import org.btsn.utils.Replication;
 import org.btsn.utils.StringFileIO;
 import org.btsn.utils.XPathHelper;
 
@@ -29,6 +30,7 @@ import org.btsn.rulecontroller.model.WorkflowModel;
 import org.btsn.rulecontroller.model.ServiceNode;
 import org.btsn.rulecontroller.model.TransitionNode;
 import org.btsn.rulecontroller.model.WorkflowEdge;
+import org.btsn.rulecontroller.model.WorkflowDefinitionParser;
 import org.btsn.rulecontroller.validation.ValidationResult;
 
 /**
@@ -335,217 +337,47 @@ public class RuleDeployer {
 	// ============================================================================
 
 	/**
-	 * Parse JSON workflow file from Petri net editor
-	 * REFACTORED: Added buffer attribute support for T_in and Other transitions
+	 * Parse JSON workflow file from Petri net editor.
+	 * Single pass through WorkflowDefinitionParser (shared with TopologyBindingGenerator).
 	 */
 	private void parseJsonWorkflow(String jsonContent) throws RuleDeployerException {
 	    logger.info("=== PARSING JSON WORKFLOW ===");
 	    
+	    WorkflowDefinitionParser parser = new WorkflowDefinitionParser(workflowModel);
 	    try {
-	        // Extract processType - REQUIRED field
-	        String extractedProcessType = extractJsonValue(jsonContent, "processType");
-	        if (extractedProcessType != null && !extractedProcessType.isEmpty()) {
-	            // Validate processType is a known value
-	            if (!"PetriNet".equalsIgnoreCase(extractedProcessType) && 
-	                !"SOA".equalsIgnoreCase(extractedProcessType)) {
-	                throw new RuleDeployerException(
-	                    "Invalid processType: '" + extractedProcessType + "'. " +
-	                    "Must be 'PetriNet' or 'SOA'.");
-	            }
-	            this.processType = extractedProcessType;
-	            logger.info("Process type: " + this.processType);
-	        } else {
-	            // FAIL-FAST: processType is now required
-	            throw new RuleDeployerException(
-	                "REQUIRED field 'processType' not found in workflow JSON. " +
-	                "Please add \"processType\": \"PetriNet\" or \"processType\": \"SOA\" " +
-	                "to your workflow definition file.");
-	        }
-	        
-	        // Simple JSON parser for our specific format
-	        // Parse elements section
-	        String elementsSection = extractJsonSection(jsonContent, "\"elements\"");
-	        String[] elementBlocks = splitJsonObjects(elementsSection);
-	        
-	        for (String block : elementBlocks) {
-	            if (block.trim().isEmpty()) continue;
-	            
-	            String type = extractJsonValue(block, "type");
-	            String id = extractJsonValue(block, "id");
-	            String label = extractJsonValue(block, "label");
-	            
-	            if ("PLACE".equals(type)) {
-	                // Parse place (service node)
-	                String service = extractJsonValue(block, "service");
-	                
-	                // Try to extract operations (handles array, single string, or old "operation")
-	                List<String> operationsList = new ArrayList<>();
-	                
-	                // First try "operations" (new format - can be array or string)
-	                List<String> ops = extractJsonOperations(block, "operations");
-	                if (!ops.isEmpty()) {
-	                    operationsList.addAll(ops);
-	                } else {
-	                    // Fallback to "operation" (old format - single string)
-	                    String operation = extractJsonValue(block, "operation");
-	                    if (operation != null && !operation.isEmpty()) {
-	                        operationsList.add(operation);
-	                    }
-	                }
-	                
-	                // Create ServiceNode if we have service and at least one operation
-	                if (service != null && !service.isEmpty() && !operationsList.isEmpty()) {
-	                    // Use first operation as the primary operation for the ServiceNode
-	                    String primaryOperation = operationsList.get(0);
-	                    
-	                    // Extract arguments for the primary operation from the JSON
-	                    List<String> operationArguments = extractOperationArguments(block, primaryOperation);
-	                    
-	                    // Extract return attribute for the primary operation from the JSON
-	                    String returnAttribute = extractOperationReturnAttribute(block, primaryOperation);
-	                    
-	                    // Build attributes map for ServiceNode
-	                    Map<String, String> attributes = new HashMap<>();
-	                    attributes.put("label", label != null ? label : "");
-	                    attributes.put("service", service);
-	                    attributes.put("operation", primaryOperation);
-	                    
-	                    // Store operation arguments as comma-separated string
-	                    if (!operationArguments.isEmpty()) {
-	                        attributes.put("operationArguments", String.join(",", operationArguments));
-	                        logger.info("Stored operation arguments for " + service + "." + primaryOperation + 
-	                                   ": " + operationArguments);
-	                    }
-	                    
-	                    // Store return attribute if specified
-	                    if (returnAttribute != null && !returnAttribute.isEmpty()) {
-	                        attributes.put("returnAttribute", returnAttribute);
-	                        logger.info("Stored return attribute for " + service + "." + primaryOperation + 
-	                                   ": " + returnAttribute);
-	                    }
-	                    
-	                    // If multiple operations, store them as comma-separated in "operations" attribute
-	                    if (operationsList.size() > 1) {
-	                        attributes.put("operations", String.join(",", operationsList));
-	                        multiOpServices.put(id, new ArrayList<>(operationsList)); 
-	                    }
-	                    
-	                    ServiceNode serviceNode = new ServiceNode(id, service, primaryOperation, attributes);
-	                    workflowModel.addServiceNode(serviceNode);
-	                    
-	                    String opsDisplay = operationsList.size() > 1 ? 
-	                        "[" + String.join(", ", operationsList) + "]" : primaryOperation;
-	                    String argsDisplay = operationArguments.isEmpty() ? "" : " args=" + operationArguments;
-	                    logger.debug("Parsed JSON Place: " + id + " -> " + service + ":" + opsDisplay + argsDisplay);
-	                }
-	            }
-	            else if ("TRANSITION".equals(type)) {
-	                // Parse transition
-	                String nodeType = extractJsonValue(block, "node_type");
-	                String nodeValue = extractJsonValue(block, "node_value");
-	                String transitionType = extractJsonValue(block, "transition_type");
-	                String buffer = extractJsonValue(block, "buffer");
-	                
-	                if (nodeType != null && !nodeType.isEmpty()) {
-	                    // Build attributes map for TransitionNode
-	                    Map<String, String> attributes = new HashMap<>();
-	                    attributes.put("label", label != null ? label : "");
-	                    attributes.put("node_type", nodeType);
-	                    if (nodeValue != null) {
-	                        attributes.put("node_value", nodeValue);
-	                    }
-	                    
-	                    // CRITICAL: Only capture buffer for T_in and Other transition types
-	                    if (buffer != null && !buffer.isEmpty() && transitionType != null) {
-	                        if (transitionType.equals("T_in") || transitionType.equals("Other")) {
-	                            attributes.put("buffer", buffer);
-	                            logger.info("Captured buffer=" + buffer + " for " + transitionType + 
-	                                       " transition: " + id);
-	                        } else {
-	                            logger.debug("Ignoring buffer for " + transitionType + 
-	                                        " transition (only T_in/Other supported): " + id);
-	                        }
-	                    }
-	                    
-	                    TransitionNode transitionNode = new TransitionNode(id, nodeType, 
-	                                                    nodeValue != null ? nodeValue : "", attributes);
-	                    workflowModel.addTransitionNode(transitionNode);
-	                    logger.debug("Parsed JSON Transition: " + id + " -> " + nodeType + ":" + nodeValue);
-	                }
-	            }
-            else if ("EVENT_GENERATOR".equals(type)) {
-                // EVENT_GENERATOR is NOT a service - it's a visual marker in the workflow
-                // Token generation is handled by external GenericHealthcareTokenGenerator process
-                // The label (e.g., TRIAGE_EVENTGENERATOR) is passed to the generator via -generator arg
-                // and included in token payloads for instrumentation tracking
-                
-                // Register as a TransitionNode with EventGenerator type for graph validation
-                Map<String, String> attributes = new HashMap<>();
-                attributes.put("label", label != null ? label : "");
-                attributes.put("node_type", "EventGenerator");
-                attributes.put("elementType", "EVENT_GENERATOR");
-                
-                TransitionNode transitionNode = new TransitionNode(id, "EventGenerator", "EVENT_GENERATOR", attributes);
-                workflowModel.addTransitionNode(transitionNode);
-                
-                logger.info("Registered EVENT_GENERATOR '" + id + "' as EventGenerator transition (token generation handled externally)");
-            }
-
-	        }
-	        
-	        // Parse arrows section
-	        String arrowsSection = extractJsonSection(jsonContent, "\"arrows\"");
-	        String[] arrowBlocks = splitJsonObjects(arrowsSection);
-	        
-	        for (String block : arrowBlocks) {
-	            if (block.trim().isEmpty()) continue;
-	            
-	            String sourceId = extractJsonValue(block, "source");
-	            String targetId = extractJsonValue(block, "target");
-	            String label = extractJsonValue(block, "label");
-	            // Try guardCondition first (new), fall back to condition (old) for compatibility
-	            String condition = extractJsonValue(block, "guardCondition");
-	            if (condition == null || condition.isEmpty()) {
-	                condition = extractJsonValue(block, "condition");
-	            }
-	            String decisionValue = extractJsonValue(block, "decision_value");
-	            String endpoint = extractJsonValue(block, "endpoint");
-	            
-	            if (sourceId != null && targetId != null) {
-	                Map<String, String> attributes = new HashMap<>();
-	                if (label != null && !label.isEmpty()) {
-	                    attributes.put("label", label);
-	                }
-	                if (condition != null && !condition.isEmpty()) {
-	                    attributes.put("condition", condition);
-	                }
-	                if (decisionValue != null && !decisionValue.isEmpty()) {
-	                    attributes.put("decision_value", decisionValue);
-	                }
-	                if (endpoint != null && !endpoint.isEmpty()) {
-	                    attributes.put("endpoint", endpoint);
-	                }
-	                
-	                WorkflowEdge edge = new WorkflowEdge(sourceId, targetId, attributes);
-	                workflowModel.addWorkflowEdge(edge);
-	                
-	                if (edge.isDecisionEdge()) {
-	                    logger.debug("Parsed JSON Decision Edge: " + sourceId + " -> " + targetId + 
-	                        " [" + condition + "=" + decisionValue + "]");
-	                } else {
-	                    logger.debug("Parsed JSON Edge: " + sourceId + " -> " + targetId);
-	                }
-	            }
-	        }
-	        
-	        logger.info("JSON parsing complete - " + workflowModel.getServiceNodes().size() + " services, " +
-	            workflowModel.getTransitionNodes().size() + " transitions, " + 
-	            workflowModel.getWorkflowEdges().size() + " edges");
-	            
-	    } catch (Exception e) {
+	        parser.parse(jsonContent);
+	    } catch (IOException e) {
 	        logger.error("Error parsing JSON workflow", e);
 	        throw new RuleDeployerException("Failed to parse JSON workflow: " + e.getMessage(), e);
 	    }
+	    
+	    // processType - REQUIRED field
+	    String extractedProcessType = parser.getProcessType();
+	    if (extractedProcessType != null && !extractedProcessType.isEmpty()) {
+	        // Validate processType is a known value
+	        if (!"PetriNet".equalsIgnoreCase(extractedProcessType) && 
+	            !"SOA".equalsIgnoreCase(extractedProcessType)) {
+	            throw new RuleDeployerException(
+	                "Invalid processType: '" + extractedProcessType + "'. " +
+	                "Must be 'PetriNet' or 'SOA'.");
+	        }
+	        this.processType = extractedProcessType;
+	        logger.info("Process type: " + this.processType);
+	    } else {
+	        // FAIL-FAST: processType is now required
+	        throw new RuleDeployerException(
+	            "REQUIRED field 'processType' not found in workflow JSON. " +
+	            "Please add \"processType\": \"PetriNet\" or \"processType\": \"SOA\" " +
+	            "to your workflow definition file.");
+	    }
+	    
+	    for (Map.Entry<String, List<String>> entry : parser.getMultiOperationServices().entrySet()) {
+	        multiOpServices.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+	    }
+	    
+	    logger.info("JSON parsing complete - " + workflowModel.getServiceNodes().size() + " services, " +
+	        workflowModel.getTransitionNodes().size() + " transitions, " + 
+	        workflowModel.getWorkflowEdges().size() + " edges");
 	}
 
 	/**
@@ -594,17 +426,15 @@ public class RuleDeployer {
 	    logger.debug("Searching for buffer value for service: " + serviceNode.nodeId);
 	    
 	    // Find incoming edges to this service
-	    for (WorkflowEdge edge : workflowModel.getWorkflowEdges()) {
-	        if (edge.toNode.equals(serviceNode.nodeId)) {
-	            // Check if source is a transition node with buffer attribute
-	            TransitionNode sourceTransition = workflowModel.getTransitionNode(edge.fromNode);
-	            if (sourceTransition != null) {
-	                String buffer = sourceTransition.attributes.get("buffer");
-	                if (buffer != null && !buffer.isEmpty()) {
-	                    logger.debug("Found buffer=" + buffer + " from transition: " + 
-	                               sourceTransition.nodeId);
-	                    return buffer;
-	                }
+	    for (WorkflowEdge edge : workflowModel.getIncomingEdges(serviceNode.nodeId)) {
+	        // Check if source is a transition node with buffer attribute
+	        TransitionNode sourceTransition = workflowModel.getTransitionNode(edge.fromNode);
+	        if (sourceTransition != null) {
+	            String buffer = sourceTransition.attributes.get("buffer");
+	            if (buffer != null && !buffer.isEmpty()) {
+	                logger.debug("Found buffer=" + buffer + " from transition: " + 
+	                           sourceTransition.nodeId);
+	                return buffer;
 	            }
 	        }
 	    }
@@ -614,13 +444,11 @@ public class RuleDeployer {
 	        TransitionNode transition1 = workflowModel.getTransitionNode(edge1.fromNode);
 	        if (transition1 != null && transition1.attributes.containsKey("buffer")) {
 	            // Check if this transition eventually leads to our service
-	            for (WorkflowEdge edge2 : workflowModel.getWorkflowEdges()) {
-	                if (edge2.fromNode.equals(edge1.toNode) && edge2.toNode.equals(serviceNode.nodeId)) {
-	                    String buffer = transition1.attributes.get("buffer");
-	                    logger.debug("Found buffer=" + buffer + " from two-hop transition: " + 
-	                               transition1.nodeId);
-	                    return buffer;
-	                }
+	            if (workflowModel.hasEdge(edge1.toNode, serviceNode.nodeId)) {
+	                String buffer = transition1.attributes.get("buffer");
+	                logger.debug("Found buffer=" + buffer + " from two-hop transition: " + 
+	                           transition1.nodeId);
+	                return buffer;
 	            }
 	        }
 	    }
@@ -667,424 +495,6 @@ public class RuleDeployer {
 	// ============================================================================
 	// END OF REFACTORED METHODS
 	// ============================================================================
-	/**
-	 * Extract JSON section by key (e.g., "elements" or "arrows")
-	 */
-	private String extractJsonSection(String json, String key) {
-		int start = json.indexOf(key + ": [");
-		if (start == -1) return "";
-		start = json.indexOf("[", start);
-		
-		// Count brackets to handle nested arrays
-		int bracketCount = 0;
-		int end = start;
-		for (int i = start; i < json.length(); i++) {
-			if (json.charAt(i) == '[') {
-				bracketCount++;
-			} else if (json.charAt(i) == ']') {
-				bracketCount--;
-				if (bracketCount == 0) {
-					end = i;
-					break;
-				}
-			}
-		}
-		
-		return json.substring(start + 1, end);
-	}
-	
-	/**
-	 * Split JSON array into individual objects
-	 */
-	private String[] splitJsonObjects(String section) {
-		List<String> objects = new ArrayList<>();
-		int braceCount = 0;
-		int start = 0;
-		
-		for (int i = 0; i < section.length(); i++) {
-			char c = section.charAt(i);
-			if (c == '{') {
-				if (braceCount == 0) start = i;
-				braceCount++;
-			} else if (c == '}') {
-				braceCount--;
-				if (braceCount == 0) {
-					objects.add(section.substring(start, i + 1));
-				}
-			}
-		}
-		
-		return objects.toArray(new String[0]);
-	}
-	
-	/**
-	 * Extract value from JSON object by key
-	 */
-	private String extractJsonValue(String block, String key) {
-		String pattern = "\"" + key + "\":";
-		int start = block.indexOf(pattern);
-		if (start == -1) return null;
-		
-		start = block.indexOf(":", start) + 1;
-		while (start < block.length() && Character.isWhitespace(block.charAt(start))) start++;
-		
-		if (start >= block.length()) return null;
-		
-		if (block.charAt(start) == '"') {
-			// String value
-			start++;
-			int end = start;
-			while (end < block.length()) {
-				if (block.charAt(end) == '"' && (end == start || block.charAt(end - 1) != '\\')) break;
-				end++;
-			}
-			if (end < block.length()) {
-				return block.substring(start, end)
-					.replace("\\n", "\n")
-					.replace("\\r", "\r")
-					.replace("\\t", "\t")
-					.replace("\\\"", "\"")
-					.replace("\\\\", "\\");
-			}
-		} else {
-			// Number or other value
-			int end = start;
-			while (end < block.length() && !Character.isWhitespace(block.charAt(end)) && 
-				   block.charAt(end) != ',' && block.charAt(end) != '}') {
-				end++;
-			}
-			return block.substring(start, end).trim();
-		}
-		
-		return null;
-	}
-
-	/**
-	 * Extract operations from JSON - handles both array format and single string format
-	 * Returns a list of operations (may be empty if not found)
-	 * 
-	 * Supports:
-	 * - Simple array: "operations": ["op1", "op2"]
-	 * - Object array: "operations": [{"name": "op1", ...}, {"name": "op2", ...}]
-	 * - Single string: "operation": "op1"
-	 */
-	private List<String> extractJsonOperations(String block, String key) {
-		List<String> operations = new ArrayList<>();
-		String pattern = "\"" + key + "\":";
-		int start = block.indexOf(pattern);
-		if (start == -1) return operations;
-		
-		start = block.indexOf(":", start) + 1;
-		while (start < block.length() && Character.isWhitespace(block.charAt(start))) start++;
-		
-		if (start >= block.length()) return operations;
-		
-		if (block.charAt(start) == '[') {
-			// Array format - could be strings or objects
-			start++; // skip '['
-			StringBuilder arrayContent = new StringBuilder();
-			int bracketCount = 1;
-			
-			while (start < block.length() && bracketCount > 0) {
-				char c = block.charAt(start);
-				if (c == '[') bracketCount++;
-				else if (c == ']') bracketCount--;
-				
-				if (bracketCount > 0) {
-					arrayContent.append(c);
-				}
-				start++;
-			}
-			
-			String content = arrayContent.toString().trim();
-			
-			// Check if this is an object array (starts with '{') or string array
-			if (content.startsWith("{")) {
-				// Object array format: [{"name": "op1", ...}, {"name": "op2", ...}]
-				// Extract only TOP-LEVEL "name" values from operation objects.
-				// IMPORTANT: Strip out nested "arguments":[...] blocks first so that
-				// argument names (e.g. "token") are not mistakenly picked up as operations.
-				String contentWithoutArgs = removeNestedArgumentsBlocks(content);
-				java.util.regex.Pattern namePattern = java.util.regex.Pattern.compile("\"name\"\\s*:\\s*\"([^\"]+)\"");
-				java.util.regex.Matcher matcher = namePattern.matcher(contentWithoutArgs);
-				
-				while (matcher.find()) {
-					String opName = matcher.group(1);
-					operations.add(opName);
-					logger.debug("Extracted operation name from object: " + opName);
-				}
-			} else {
-				// Simple string array format: ["op1", "op2"]
-				boolean inQuotes = false;
-				StringBuilder currentOp = new StringBuilder();
-				
-				for (int i = 0; i < content.length(); i++) {
-					char c = content.charAt(i);
-					
-					if (c == '"' && (i == 0 || content.charAt(i - 1) != '\\')) {
-						if (inQuotes) {
-							// End of string - add operation
-							String op = currentOp.toString().trim();
-							if (!op.isEmpty()) {
-								operations.add(op);
-							}
-							currentOp = new StringBuilder();
-						}
-						inQuotes = !inQuotes;
-					} else if (inQuotes) {
-						currentOp.append(c);
-					}
-				}
-			}
-		} else if (block.charAt(start) == '"') {
-			// Single string format: "operation"
-			String singleOp = extractJsonValue(block, key);
-			if (singleOp != null && !singleOp.trim().isEmpty()) {
-				operations.add(singleOp.trim());
-			}
-		}
-		
-		return operations;
-	}
-
-	/**
-	 * Extract argument names from operations array in JSON.
-	 * Parses the "arguments" array within each operation object.
-	 * 
-	 * Example JSON structure:
-	 * "operations": [
-	 *   {
-	 *     "name": "processToken",
-	 *     "arguments": [
-	 *       {"name": "token_branch1", "type": "String"},
-	 *       {"name": "token_branch2", "type": "String"}
-	 *     ]
-	 *   }
-	 * ]
-	 * 
-	 * @param block The JSON block containing the operations
-	 * @param operationName The operation name to find arguments for
-	 * @return List of argument names (may be empty if not found)
-	 */
-	private List<String> extractOperationArguments(String block, String operationName) {
-		List<String> argumentNames = new ArrayList<>();
-		
-		// Find the operations array
-		int opsStart = block.indexOf("\"operations\"");
-		if (opsStart == -1) return argumentNames;
-		
-		// Find the opening bracket of operations array
-		int arrayStart = block.indexOf("[", opsStart);
-		if (arrayStart == -1) return argumentNames;
-		
-		// Find matching closing bracket
-		int bracketCount = 1;
-		int pos = arrayStart + 1;
-		int arrayEnd = -1;
-		
-		while (pos < block.length() && bracketCount > 0) {
-			char c = block.charAt(pos);
-			if (c == '[') bracketCount++;
-			else if (c == ']') {
-				bracketCount--;
-				if (bracketCount == 0) arrayEnd = pos;
-			}
-			pos++;
-		}
-		
-		if (arrayEnd == -1) return argumentNames;
-		
-		String operationsContent = block.substring(arrayStart + 1, arrayEnd);
-		
-		// Find the operation object with matching name
-		String searchPattern = "\"name\":\\s*\"" + operationName + "\"";
-		java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(searchPattern);
-		java.util.regex.Matcher matcher = pattern.matcher(operationsContent);
-		
-		if (!matcher.find()) return argumentNames;
-		
-		// Find the arguments array for this operation
-		int opNamePos = matcher.start();
-		int argsStart = operationsContent.indexOf("\"arguments\"", opNamePos);
-		if (argsStart == -1) return argumentNames;
-		
-		// Find the opening bracket of arguments array
-		int argsArrayStart = operationsContent.indexOf("[", argsStart);
-		if (argsArrayStart == -1) return argumentNames;
-		
-		// Find matching closing bracket for arguments
-		bracketCount = 1;
-		pos = argsArrayStart + 1;
-		int argsArrayEnd = -1;
-		
-		while (pos < operationsContent.length() && bracketCount > 0) {
-			char c = operationsContent.charAt(pos);
-			if (c == '[') bracketCount++;
-			else if (c == ']') {
-				bracketCount--;
-				if (bracketCount == 0) argsArrayEnd = pos;
-			}
-			pos++;
-		}
-		
-		if (argsArrayEnd == -1) return argumentNames;
-		
-		String argumentsContent = operationsContent.substring(argsArrayStart + 1, argsArrayEnd);
-		
-		// Extract all "name" values from arguments
-		java.util.regex.Pattern argNamePattern = java.util.regex.Pattern.compile("\"name\"\\s*:\\s*\"([^\"]+)\"");
-		java.util.regex.Matcher argMatcher = argNamePattern.matcher(argumentsContent);
-		
-		while (argMatcher.find()) {
-			String argName = argMatcher.group(1);
-			argumentNames.add(argName);
-			logger.debug("Found argument: " + argName + " for operation: " + operationName);
-		}
-		
-		return argumentNames;
-	}
-
-	/**
-	 * Remove all "arguments":[...] blocks from a JSON string so that
-	 * regex matches on "name" fields only hit top-level operation names,
-	 * not argument names nested inside the arguments arrays.
-	 * 
-	 * Handles nested brackets correctly (e.g. arrays within argument objects).
-	 * 
-	 * @param content The JSON content from the operations array
-	 * @return The same content with all "arguments":[...] blocks replaced with empty string
-	 */
-	private String removeNestedArgumentsBlocks(String content) {
-		StringBuilder result = new StringBuilder();
-		int i = 0;
-		
-		while (i < content.length()) {
-			// Look for "arguments" key
-			int argsKeyStart = content.indexOf("\"arguments\"", i);
-			
-			if (argsKeyStart == -1) {
-				// No more arguments blocks - append rest and done
-				result.append(content.substring(i));
-				break;
-			}
-			
-			// Append everything before this "arguments" key
-			result.append(content, i, argsKeyStart);
-			
-			// Find the '[' that starts the arguments array value
-			int bracketStart = content.indexOf("[", argsKeyStart);
-			if (bracketStart == -1) {
-				// Malformed - no array bracket found, append rest and done
-				result.append(content.substring(argsKeyStart));
-				break;
-			}
-			
-			// Find the matching ']' using bracket counting
-			int bracketCount = 1;
-			int pos = bracketStart + 1;
-			while (pos < content.length() && bracketCount > 0) {
-				char c = content.charAt(pos);
-				if (c == '[') bracketCount++;
-				else if (c == ']') bracketCount--;
-				pos++;
-			}
-			
-			// Skip past the entire "arguments":[...] block
-			i = pos;
-		}
-		
-		return result.toString();
-	}
-
-	/**
-	 * 
-	 * Expected JSON format:
-	 * "operations": [
-	 *   {
-	 *     "name": "processClinicalDecision",
-	 *     "returnAttribute": "diagnosisResults",
-	 *     "arguments": [...]
-	 *   }
-	 * ]
-	 * 
-	 * @param block The JSON block containing the operations array
-	 * @param operationName The operation name to find returnAttribute for
-	 * @return The return attribute name, or null if not specified
-	 */
-	private String extractOperationReturnAttribute(String block, String operationName) {
-		// Find the operations array
-		int opsStart = block.indexOf("\"operations\"");
-		if (opsStart == -1) return null;
-		
-		// Find the opening bracket of operations array
-		int arrayStart = block.indexOf("[", opsStart);
-		if (arrayStart == -1) return null;
-		
-		// Find matching closing bracket
-		int bracketCount = 1;
-		int pos = arrayStart + 1;
-		int arrayEnd = -1;
-		
-		while (pos < block.length() && bracketCount > 0) {
-			char c = block.charAt(pos);
-			if (c == '[') bracketCount++;
-			else if (c == ']') {
-				bracketCount--;
-				if (bracketCount == 0) arrayEnd = pos;
-			}
-			pos++;
-		}
-		
-		if (arrayEnd == -1) return null;
-		
-		String operationsContent = block.substring(arrayStart + 1, arrayEnd);
-		
-		// Find the operation object with matching name
-		String searchPattern = "\"name\"\\s*:\\s*\"" + operationName + "\"";
-		java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(searchPattern);
-		java.util.regex.Matcher matcher = pattern.matcher(operationsContent);
-		
-		if (!matcher.find()) return null;
-		
-		// Find the returnAttribute for this operation
-		// Look for "returnAttribute" : "value" pattern after the operation name
-		int opNamePos = matcher.start();
-		
-		// Find the end of this operation object (next '}' at same level)
-		int braceCount = 0;
-		int opStart = operationsContent.lastIndexOf("{", opNamePos);
-		int opEnd = -1;
-		
-		for (int i = opStart; i < operationsContent.length(); i++) {
-			char c = operationsContent.charAt(i);
-			if (c == '{') braceCount++;
-			else if (c == '}') {
-				braceCount--;
-				if (braceCount == 0) {
-					opEnd = i;
-					break;
-				}
-			}
-		}
-		
-		if (opEnd == -1) return null;
-		
-		String opContent = operationsContent.substring(opStart, opEnd + 1);
-		
-		// Extract returnAttribute value
-		java.util.regex.Pattern returnAttrPattern = java.util.regex.Pattern.compile(
-			"\"returnAttribute\"\\s*:\\s*\"([^\"]+)\"");
-		java.util.regex.Matcher returnMatcher = returnAttrPattern.matcher(opContent);
-		
-		if (returnMatcher.find()) {
-			String returnAttr = returnMatcher.group(1);
-			logger.debug("Found returnAttribute: " + returnAttr + " for operation: " + operationName);
-			return returnAttr;
-		}
-		
-		return null;
-	}
-
 	
 	/**
 	 * Helper to write individual service entry with channel info
@@ -1190,7 +600,7 @@ public class RuleDeployer {
 	    
 	    // Extract numeric part from version string for port offset
 	    int offset = extractVersionOffset(version);
-	    int port = BASE_CONFIRMATION_PORT + offset;
+	    int port = Replication.port(BASE_CONFIRMATION_PORT + offset);
 	    
 	    logger.info("Calculated commitment listener port for version '" + version + "': " + port + 
 	                " (base: " + BASE_CONFIRMATION_PORT + ", offset: " + offset + ")");
@@ -1253,13 +663,13 @@ public class RuleDeployer {
 	    try {
 	        String numericPart = version.replaceAll("[^0-9]", "");
 	        if (!numericPart.isEmpty()) {
-	            return BASE_CONFIRMATION_PORT + Integer.parseInt(numericPart);
+	            return Replication.port(BASE_CONFIRMATION_PORT + Integer.parseInt(numericPart));
 	        }
 	    } catch (NumberFormatException e) {
 	        // Fall through to hash-based calculation
 	    }
 	    
-	    return BASE_CONFIRMATION_PORT + Math.abs(version.hashCode() % 100) + 1;
+	    return Replication.port(BASE_CONFIRMATION_PORT + Math.abs(version.hashCode() % 100) + 1);
 	}
 
 	/**
@@ -1307,7 +717,7 @@ public class RuleDeployer {
 	        logger.debug("Validating service with OOjDREW: " + serviceName + ":" + operationName + " (node: " + nodeId + ")");
 	        
 	        // Use dynamically derived common folder path
-	        oojdrew.parseKnowledgeBase("../" + Config.COMMON_FOLDER + "/RuleFolder." + buildVersion + "/Service.ruleml", true);
+	        oojdrew.parseKnowledgeBase(masterRuleBasePath(buildVersion), true);
 	        oojdrew.issueRuleMLQuery(activeServiceQuery);
 	        
 	        // If not found in activeService, try hasOperation
@@ -1398,8 +808,6 @@ public class RuleDeployer {
 	private void validateGraphConnectivity() {
 	    logger.info("Step 4: Validating graph connectivity...");
 
-	    Map<String, List<String>> adjacencyList = workflowModel.buildAdjacencyList();
-
 	    for (ServiceNode serviceNode : workflowModel.getServiceNodes().values()) {
 	        // Skip connectivity validation for floating nodes
 	        boolean isFloating = "true".equals(serviceNode.attributes.get("floating"));
@@ -1410,9 +818,8 @@ public class RuleDeployer {
 	            continue;
 	        }
 	        
-	        boolean hasIncoming = workflowModel.getWorkflowEdges().stream()
-	                .anyMatch(e -> e.toNode.equals(serviceNode.nodeId));
-	        boolean hasOutgoing = adjacencyList.containsKey(serviceNode.nodeId);
+	        boolean hasIncoming = !workflowModel.getIncomingEdges(serviceNode.nodeId).isEmpty();
+	        boolean hasOutgoing = !workflowModel.getOutgoingEdges(serviceNode.nodeId).isEmpty();
 
 	        if (!hasIncoming && !hasOutgoing) {
 	            validationResult.addError("WORKFLOW_INCOMPLETE",
@@ -1420,6 +827,14 @@ public class RuleDeployer {
 	                    serviceNode.nodeId, serviceNode.service + ":" + serviceNode.operation);
 	        }
 	    }
+
+	    List<Set<String>> feedbackLoops = workflowModel.getFeedbackLoops();
+	    if (!feedbackLoops.isEmpty()) {
+	        logger.info("Workflow has " + feedbackLoops.size() + " feedback loop(s)");
+	        for (Set<String> loop : feedbackLoops) {
+	            logger.debug("  Feedback loop: " + loop);
+	        }
+	    }
 	}
 
 	/**
@@ -1450,9 +865,7 @@ public class RuleDeployer {
 	        logger.info("Validating JoinNode: " + transition.nodeId);
 	        
 	        // Layer 2a: Count incoming edges to this JoinNode
-	        List<WorkflowEdge> incomingEdges = workflowModel.getWorkflowEdges().stream()
-	            .filter(e -> e.toNode.equals(transition.nodeId))
-	            .collect(java.util.stream.Collectors.toList());
+	        List<WorkflowEdge> incomingEdges = workflowModel.getIncomingEdges(transition.nodeId);
 	        
 	        int incomingCount = incomingEdges.size();
 	        
@@ -1509,13 +922,11 @@ public class RuleDeployer {
 	 */
 	private ServiceNode findServiceDownstreamOfTransition(TransitionNode transition) {
 	    // Find edges where this transition is the source
-	    for (WorkflowEdge edge : workflowModel.getWorkflowEdges()) {
-	        if (edge.fromNode.equals(transition.nodeId)) {
-	            // Check if target is a service node
-	            ServiceNode service = workflowModel.getServiceNodes().get(edge.toNode);
-	            if (service != null) {
-	                return service;
-	            }
+	    for (WorkflowEdge edge : workflowModel.getOutgoingEdges(transition.nodeId)) {
+	        // Check if target is a service node
+	        ServiceNode service = workflowModel.getServiceNodes().get(edge.toNode);
+	        if (service != null) {
+	            return service;
 	        }
 	    }
 	    return null;
@@ -1988,9 +1399,7 @@ public class RuleDeployer {
 		logger.info("Added NodeType: " + transition.nodeType + ":" + transition.nodeValue);
 
 		// Find ALL outgoing edges with their decision_values
-		List<WorkflowEdge> outgoingEdges = workflowModel.getWorkflowEdges().stream()
-				.filter(edge -> edge.fromNode.equals(transition.nodeId))
-				.collect(java.util.stream.Collectors.toList());
+		List<WorkflowEdge> outgoingEdges = workflowModel.getOutgoingEdges(transition.nodeId);
 
 		logger.info("GatewayNode has " + outgoingEdges.size() + " outgoing edges");
 
@@ -2095,8 +1504,8 @@ public class RuleDeployer {
 	 * Check if a transition node has decision edges
 	 */
 	private boolean hasDecisionEdges(String nodeId) {
-		for (WorkflowEdge edge : workflowModel.getWorkflowEdges()) {
-			if (edge.fromNode.equals(nodeId) && edge.isDecisionEdge()) {
+		for (WorkflowEdge edge : workflowModel.getOutgoingEdges(nodeId)) {
+			if (edge.isDecisionEdge()) {
 				logger.debug("Found decision edge from " + nodeId + ": " + edge);
 				return true;
 			}
@@ -2144,23 +1553,21 @@ public class RuleDeployer {
 		logger.debug("Finding operation for path from " + fromTransition.nodeId + " to " + toService.nodeId);
 		
 		// Look for edges from the transition that might have endpoints
-		for (WorkflowEdge edge : workflowModel.getWorkflowEdges()) {
-			if (edge.fromNode.equals(fromTransition.nodeId)) {
-				String endpoint = edge.attributes.get("endpoint");
-				if (endpoint != null) {
-					// Check if this edge eventually leads to our service
-					if (pathLeadsToService(edge.toNode, toService.nodeId)) {
-						logger.info("Found endpoint '" + endpoint + "' on path to " + toService.nodeId);
-						// Validate endpoint is valid for multi-op service
-						if (multiOpServices.containsKey(toService.nodeId)) {
-							if (multiOpServices.get(toService.nodeId).contains(endpoint)) {
-								return endpoint;
-							} else {
-								logger.warn("Endpoint " + endpoint + " not valid for " + toService.service);
-							}
+		for (WorkflowEdge edge : workflowModel.getOutgoingEdges(fromTransition.nodeId)) {
+			String endpoint = edge.attributes.get("endpoint");
+			if (endpoint != null) {
+				// Check if this edge eventually leads to our service
+				if (pathLeadsToService(edge.toNode, toService.nodeId)) {
+					logger.info("Found endpoint '" + endpoint + "' on path to " + toService.nodeId);
+					// Validate endpoint is valid for multi-op service
+					if (multiOpServices.containsKey(toService.nodeId)) {
+						if (multiOpServices.get(toService.nodeId).contains(endpoint)) {
+							return endpoint;
+						} else {
+							logger.warn("Endpoint " + endpoint + " not valid for " + toService.service);
 						}
-						return endpoint;
 					}
+					return endpoint;
 				}
 			}
 		}
@@ -2176,33 +1583,10 @@ public class RuleDeployer {
 	}
 
 	/**
-	 * Check if a path leads from one node to a service
+	 * Check if a path leads from one node to a service (direct, one or two hops)
 	 */
 	private boolean pathLeadsToService(String fromNode, String toServiceId) {
-		// Direct connection
-		if (fromNode.equals(toServiceId)) {
-			return true;
-		}
-		
-		// One hop
-		for (WorkflowEdge edge : workflowModel.getWorkflowEdges()) {
-			if (edge.fromNode.equals(fromNode) && edge.toNode.equals(toServiceId)) {
-				return true;
-			}
-		}
-		
-		// Two hops
-		for (WorkflowEdge edge1 : workflowModel.getWorkflowEdges()) {
-			if (edge1.fromNode.equals(fromNode)) {
-				for (WorkflowEdge edge2 : workflowModel.getWorkflowEdges()) {
-					if (edge2.fromNode.equals(edge1.toNode) && edge2.toNode.equals(toServiceId)) {
-						return true;
-					}
-				}
-			}
-		}
-		
-		return false;
+		return workflowModel.isReachableWithin(fromNode, toServiceId, 2);
 	}
 
 	/**
@@ -2213,8 +1597,7 @@ public class RuleDeployer {
 	    logger.info("Processing conditional fork groups for: " + decisionNode.nodeId);
 
 	    // Find all decision edges
-	    List<WorkflowEdge> decisionEdges = workflowModel.getWorkflowEdges().stream()
-	            .filter(edge -> edge.fromNode.equals(decisionNode.nodeId))
+	    List<WorkflowEdge> decisionEdges = workflowModel.getOutgoingEdges(decisionNode.nodeId).stream()
 	            .filter(WorkflowEdge::isDecisionEdge)
 	            .collect(java.util.stream.Collectors.toList());
 
@@ -2393,13 +1776,11 @@ public class RuleDeployer {
 		logger.debug("Finding service after transition: " + transition.nodeId);
 		
 		// Find edges FROM this transition TO services
-		for (WorkflowEdge edge : workflowModel.getWorkflowEdges()) {
-			if (edge.fromNode.equals(transition.nodeId)) {
-				ServiceNode service = workflowModel.getServiceNode(edge.toNode);
-				if (service != null) {
-					logger.debug("Found service after transition: " + service.service);
-					return service;
-				}
+		for (WorkflowEdge edge : workflowModel.getOutgoingEdges(transition.nodeId)) {
+			ServiceNode service = workflowModel.getServiceNode(edge.toNode);
+			if (service != null) {
+				logger.debug("Found service after transition: " + service.service);
+				return service;
 			}
 		}
 		
@@ -2421,33 +1802,27 @@ public class RuleDeployer {
 		}
 
 		// ONE-HOP: Check immediate neighbors
-		for (WorkflowEdge edge : workflowModel.getWorkflowEdges()) {
-			if (edge.fromNode.equals(startNodeId)) {
-				logger.debug("Checking immediate neighbor: " + edge.toNode);
-				ServiceNode immediateService = workflowModel.getServiceNode(edge.toNode);
-				if (immediateService != null) {
-					logger.debug("Found immediate service: " + immediateService.service + ":" + immediateService.operation);
-					return immediateService;
-				}
+		for (WorkflowEdge edge : workflowModel.getOutgoingEdges(startNodeId)) {
+			logger.debug("Checking immediate neighbor: " + edge.toNode);
+			ServiceNode immediateService = workflowModel.getServiceNode(edge.toNode);
+			if (immediateService != null) {
+				logger.debug("Found immediate service: " + immediateService.service + ":" + immediateService.operation);
+				return immediateService;
 			}
 		}
 
 		// TWO-HOP: Only if no immediate service found
 		logger.debug("No immediate service found, checking two-hop paths...");
-		for (WorkflowEdge edge1 : workflowModel.getWorkflowEdges()) {
-			if (edge1.fromNode.equals(startNodeId)) {
-				String intermediateNode = edge1.toNode;
-				logger.debug("Via intermediate: " + intermediateNode);
-
-				for (WorkflowEdge edge2 : workflowModel.getWorkflowEdges()) {
-					if (edge2.fromNode.equals(intermediateNode)) {
-						ServiceNode twoHopService = workflowModel.getServiceNode(edge2.toNode);
-						if (twoHopService != null) {
-							logger.debug("Found two-hop service: " + twoHopService.service + ":"
-									+ twoHopService.operation + " via " + intermediateNode);
-							return twoHopService;
-						}
-					}
+		for (WorkflowEdge edge1 : workflowModel.getOutgoingEdges(startNodeId)) {
+			String intermediateNode = edge1.toNode;
+			logger.debug("Via intermediate: " + intermediateNode);
+
+			for (WorkflowEdge edge2 : workflowModel.getOutgoingEdges(intermediateNode)) {
+				ServiceNode twoHopService = workflowModel.getServiceNode(edge2.toNode);
+				if (twoHopService != null) {
+					logger.debug("Found two-hop service: " + twoHopService.service + ":"
+							+ twoHopService.operation + " via " + intermediateNode);
+					return twoHopService;
 				}
 			}
 		}
@@ -2793,7 +2168,7 @@ public class RuleDeployer {
 		int channelNumber = extractChannelNumber(ruleChannel);
 		int port = Integer.parseInt(rulePort);
 		int channelOffset = channelNumber * Config.CHANNEL_OFFSET_MULTIPLIER;
-		return Config.BASE_RULE_PORT + channelOffset + port;
+		return Replication.port(Config.BASE_RULE_PORT + channelOffset + port);
 	}
 
 	private int extractChannelNumber(String rChannel) {
@@ -2857,7 +2232,7 @@ public class RuleDeployer {
 			int channelNumber = extractChannelNumberStatic(rChannel);
 			int basePort = Integer.parseInt(rPort);
 			int channelOffset = channelNumber * Config.SYNC_CHANNEL_OFFSET_MULTIPLIER;
-			int targetPort = Config.BASE_SYNC_PORT + channelOffset + (basePort % 100);
+			int targetPort = Replication.port(Config.BASE_SYNC_PORT + channelOffset + (basePort % 100));
 
 			byte[] data = buildVersion.getBytes();
 			DatagramPacket packet = new DatagramPacket(data, data.length, targetAddress, targetPort);
@@ -2906,7 +2281,7 @@ public class RuleDeployer {
 	                serviceName, operationName);
 
 	        // Use dynamically derived common folder path
-	        oojdrew.parseKnowledgeBase("../" + Config.COMMON_FOLDER + "/RuleFolder." + buildVersion + "/Service.ruleml", true);
+	        oojdrew.parseKnowledgeBase(masterRuleBasePath(buildVersion), true);
 	        oojdrew.issueRuleMLQuery(activeServiceQuery);
 
 	        if (oojdrew.rowsReturned > 0) {
@@ -2964,7 +2339,7 @@ public class RuleDeployer {
 
 	    } catch (Exception e) {
 	        throw new RuleDeployerException(String.format(
-	                "Can't find or query rule knowledge base: %s/RuleFolder.%s/Service.ruleml", Config.COMMON_FOLDER, buildVersion), e);
+	                "Can't find or query rule knowledge base: %s", masterRuleBasePath(buildVersion)), e);
 	    }
 
 	    // Validate we found something
@@ -3248,17 +2623,13 @@ public class RuleDeployer {
 	 * @return List of argument names, or null if not found
 	 */
 	private List<String> getDestinationArguments(String destServiceName) {
-		// Look up the service node in the workflow model
-		Map<String, ServiceNode> services = workflowModel.getServiceNodes();
-		
 		// Try to find by service name directly or by nodeId
-		for (ServiceNode node : services.values()) {
-			if (node.service.equals(destServiceName) || node.nodeId.equals(destServiceName)) {
-				String argsStr = node.attributes.get("operationArguments");
-				if (argsStr != null && !argsStr.isEmpty()) {
-					return Arrays.asList(argsStr.split(","));
-				}
-				break;
+		List<ServiceNode> byName = workflowModel.getServiceNodesByServiceName(destServiceName);
+		ServiceNode node = !byName.isEmpty() ? byName.get(0) : workflowModel.getServiceNode(destServiceName);
+		if (node != null) {
+			String argsStr = node.attributes.get("operationArguments");
+			if (argsStr != null && !argsStr.isEmpty()) {
+				return Arrays.asList(argsStr.split(","));
 			}
 		}
 		return null;
@@ -3374,12 +2745,21 @@ public class RuleDeployer {
 		logger.info("=== GENERATED " + generatedCount + " CANONICAL BINDING FILES ===");
 	}
 	
+	/**
+	 * The master Service.ruleml of a version in the common folder - the
+	 * replication's copy when running as part of a sweep.
+	 */
+	private static String masterRuleBasePath(String buildVersion) {
+		return new File(Replication.ruleFolder(new File("../" + Config.COMMON_FOLDER), buildVersion), "Service.ruleml")
+				.getPath();
+	}
+	
 	/**
 	 * Append canonical bindings from generated files to Service.ruleml.
 	 * Reads each binding file and inserts content before the closing </Rulebase> tag.
 	 */
 	private void appendBindingsToServiceRuleml(List<String> bindingFilePaths) throws IOException {
-		String serviceRulemlPath = "../" + Config.COMMON_FOLDER + "/RuleFolder." + buildVersion + "/Service.ruleml";
+		String serviceRulemlPath = masterRuleBasePath(buildVersion);
 		File serviceRulemlFile = new File(serviceRulemlPath);
 		
 		if (!serviceRulemlFile.exists()) {
@@ -3469,15 +2849,13 @@ public class RuleDeployer {
 		
 		// Find outgoing transition from this service (service -> T_out)
 		TransitionNode outgoingTransition = null;
-		for (WorkflowEdge edge : workflowModel.getWorkflowEdges()) {
-			if (edge.fromNode.equals(serviceNode.nodeId)) {
-				String toNodeId = edge.toNode;
-				TransitionNode transition = workflowModel.getTransitionNodes().get(toNodeId);
-				if (transition != null) {
-					outgoingTransition = transition;
-					logger.debug("RETURN-ATTR: Found edge " + serviceNode.nodeId + " -> " + toNodeId);
-					break;
-				}
+		for (WorkflowEdge edge : workflowModel.getOutgoingEdges(serviceNode.nodeId)) {
+			String toNodeId = edge.toNode;
+			TransitionNode transition = workflowModel.getTransitionNodes().get(toNodeId);
+			if (transition != null) {
+				outgoingTransition = transition;
+				logger.debug("RETURN-ATTR: Found edge " + serviceNode.nodeId + " -> " + toNodeId);
+				break;
 			}
 		}
 		
@@ -3565,28 +2943,26 @@ public class RuleDeployer {
 			List<WorkflowEdge> incomingArcs = new ArrayList<>();
 			List<WorkflowEdge> feedbackArcs = new ArrayList<>();  // Track for logging
 			
-			for (WorkflowEdge edge : workflowModel.getWorkflowEdges()) {
-				if (edge.toNode.equals(joinNodeId)) {
-					// RULE 1: Exclude EventGenerator transitions - they're token sources, not join inputs
-					// Check by transition type (more robust than string matching)
-					TransitionNode fromTransition = workflowModel.getTransitionNodes().get(edge.fromNode);
-					if (fromTransition != null && "EventGenerator".equals(fromTransition.nodeType)) {
-						logger.info("JOIN-SLOT: Skipping EventGenerator edge " + edge.fromNode + " -> " + joinNodeId);
-						continue;
-					}
-					
-					// RULE 2: Exclude feedback loops (same-suffix edges)
-					// Feedback loops are retry paths, not parallel branches to synchronize
-					if (isFeedbackLoop(edge.fromNode, joinNodeId)) {
-						logger.info("JOIN-SLOT: Excluding FEEDBACK LOOP from slot assignment: " + 
-								   edge.fromNode + " -> " + joinNodeId);
-						feedbackArcs.add(edge);
-						continue;
-					}
-					
-					// RULE 3: Valid join input - add to list
-					incomingArcs.add(edge);
+			for (WorkflowEdge edge : workflowModel.getIncomingEdges(joinNodeId)) {
+				// RULE 1: Exclude EventGenerator transitions - they're token sources, not join inputs
+				// Check by transition type (more robust than string matching)
+				TransitionNode fromTransition = workflowModel.getTransitionNodes().get(edge.fromNode);
+				if (fromTransition != null && "EventGenerator".equals(fromTransition.nodeType)) {
+					logger.info("JOIN-SLOT: Skipping EventGenerator edge " + edge.fromNode + " -> " + joinNodeId);
+					continue;
 				}
+				
+				// RULE 2: Exclude feedback loops (same-suffix edges)
+				// Feedback loops are retry paths, not parallel branches to synchronize
+				if (isFeedbackLoop(edge.fromNode, joinNodeId)) {
+					logger.info("JOIN-SLOT: Excluding FEEDBACK LOOP from slot assignment: " + 
+							   edge.fromNode + " -> " + joinNodeId);
+					feedbackArcs.add(edge);
+					continue;
+				}
+				
+				// RULE 3: Valid join input - add to list
+				incomingArcs.add(edge);
 			}
 			
 			logger.info("JoinNode " + joinNodeId + " has " + incomingArcs.size() + 
@@ -3696,24 +3072,22 @@ public class RuleDeployer {
 	private int countIncomingEdgesToTransition(TransitionNode transition) {
 		int count = 0;
 		
-		for (WorkflowEdge edge : workflowModel.getWorkflowEdges()) {
-			if (edge.toNode.equals(transition.nodeId)) {
-				// RULE 1: Skip EVENT_GENERATOR - not part of topology
-				if ("EVENT_GENERATOR".equals(edge.fromNode)) {
-					logger.debug("JOIN-COUNT: Skipping EVENT_GENERATOR edge to " + transition.nodeId);
-					continue;
-				}
-				
-				// RULE 2: Skip feedback loops (same-suffix edges / retry paths)
-				if (isFeedbackLoop(edge.fromNode, transition.nodeId)) {
-					logger.debug("JOIN-COUNT: Skipping FEEDBACK LOOP " + edge.fromNode + " -> " + transition.nodeId);
-					continue;
-				}
-				
-				// RULE 3: Count different-suffix edges (valid parallel branches)
-				logger.debug("JOIN-COUNT: Counting edge " + edge.fromNode + " -> " + transition.nodeId);
-				count++;
+		for (WorkflowEdge edge : workflowModel.getIncomingEdges(transition.nodeId)) {
+			// RULE 1: Skip EVENT_GENERATOR - not part of topology
+			if ("EVENT_GENERATOR".equals(edge.fromNode)) {
+				logger.debug("JOIN-COUNT: Skipping EVENT_GENERATOR edge to " + transition.nodeId);
+				continue;
 			}
+			
+			// RULE 2: Skip feedback loops (same-suffix edges / retry paths)
+			if (isFeedbackLoop(edge.fromNode, transition.nodeId)) {
+				logger.debug("JOIN-COUNT: Skipping FEEDBACK LOOP " + edge.fromNode + " -> " + transition.nodeId);
+				continue;
+			}
+			
+			// RULE 3: Count different-suffix edges (valid parallel branches)
+			logger.debug("JOIN-COUNT: Counting edge " + edge.fromNode + " -> " + transition.nodeId);
+			count++;
 		}
 		return Math.max(count, 1);  // At least 1 input
 	}
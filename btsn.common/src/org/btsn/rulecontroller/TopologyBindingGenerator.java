@@ -13,12 +13,14 @@ import java.util.*;
 import org.apache.log4j.ConsoleAppender;
 import org.apache.log4j.Logger;
 import org.apache.log4j.PatternLayout;
+import org.btsn.utils.Replication;
 import org.btsn.utils.StringFileIO;
 
 import org.btsn.rulecontroller.model.WorkflowModel;
 import org.btsn.rulecontroller.model.ServiceNode;
 import org.btsn.rulecontroller.model.TransitionNode;
 import org.btsn.rulecontroller.model.WorkflowEdge;
+import org.btsn.rulecontroller.model.WorkflowDefinitionParser;
 
 /**
  * TopologyBindingGenerator - Build-time canonical binding generation
@@ -194,345 +196,31 @@ public class TopologyBindingGenerator {
     private void parseJsonWorkflow(String jsonContent) throws TopologyBindingException {
         logger.info("=== PARSING JSON WORKFLOW ===");
         
+        WorkflowDefinitionParser parser = new WorkflowDefinitionParser(workflowModel);
         try {
-            // Extract processType - REQUIRED
-            String extractedProcessType = extractJsonValue(jsonContent, "processType");
-            if (extractedProcessType != null && !extractedProcessType.isEmpty()) {
-                if (!"PetriNet".equalsIgnoreCase(extractedProcessType) && 
-                    !"SOA".equalsIgnoreCase(extractedProcessType)) {
-                    throw new TopologyBindingException(
-                        "Invalid processType: '" + extractedProcessType + "'. Must be 'PetriNet' or 'SOA'.");
-                }
-                this.processType = extractedProcessType;
-                logger.info("Process type: " + this.processType);
-            } else {
-                throw new TopologyBindingException(
-                    "REQUIRED field 'processType' not found in workflow JSON.");
-            }
-            
-            // Parse elements
-            String elementsSection = extractJsonSection(jsonContent, "\"elements\"");
-            String[] elementBlocks = splitJsonObjects(elementsSection);
-            
-            for (String block : elementBlocks) {
-                if (block.trim().isEmpty()) continue;
-                
-                String type = extractJsonValue(block, "type");
-                String id = extractJsonValue(block, "id");
-                String label = extractJsonValue(block, "label");
-                
-                if ("PLACE".equals(type)) {
-                    parsePlace(block, id, label);
-                } else if ("TRANSITION".equals(type)) {
-                    parseTransition(block, id, label);
-                } else if ("EVENT_GENERATOR".equals(type)) {
-                    parseEventGenerator(block, id, label);
-                }
-            }
-            
-            // Parse arrows
-            String arrowsSection = extractJsonSection(jsonContent, "\"arrows\"");
-            String[] arrowBlocks = splitJsonObjects(arrowsSection);
-            
-            for (String block : arrowBlocks) {
-                if (block.trim().isEmpty()) continue;
-                parseArrow(block);
-            }
-            
-            logger.info("JSON parsing complete - " + workflowModel.getServiceNodes().size() + " services, " +
-                workflowModel.getTransitionNodes().size() + " transitions, " + 
-                workflowModel.getWorkflowEdges().size() + " edges");
-                
-        } catch (Exception e) {
+            parser.parse(jsonContent);
+        } catch (IOException e) {
             throw new TopologyBindingException("Failed to parse JSON workflow: " + e.getMessage(), e);
         }
-    }
-
-    private void parsePlace(String block, String id, String label) {
-        String service = extractJsonValue(block, "service");
-        
-        List<String> operationsList = new ArrayList<>();
-        List<String> ops = extractJsonOperations(block, "operations");
-        if (!ops.isEmpty()) {
-            operationsList.addAll(ops);
-        } else {
-            String operation = extractJsonValue(block, "operation");
-            if (operation != null && !operation.isEmpty()) {
-                operationsList.add(operation);
-            }
-        }
-        
-        if (service != null && !service.isEmpty() && !operationsList.isEmpty()) {
-            String primaryOperation = operationsList.get(0);
-            List<String> operationArguments = extractOperationArguments(block, primaryOperation);
-            String returnAttribute = extractOperationReturnAttribute(block, primaryOperation);
-            
-            Map<String, String> attributes = new HashMap<>();
-            attributes.put("label", label != null ? label : "");
-            attributes.put("service", service);
-            attributes.put("operation", primaryOperation);
-            
-            if (!operationArguments.isEmpty()) {
-                attributes.put("operationArguments", String.join(",", operationArguments));
-            }
-            if (returnAttribute != null && !returnAttribute.isEmpty()) {
-                attributes.put("returnAttribute", returnAttribute);
-            }
-            if (operationsList.size() > 1) {
-                attributes.put("operations", String.join(",", operationsList));
-            }
-            
-            ServiceNode serviceNode = new ServiceNode(id, service, primaryOperation, attributes);
-            workflowModel.addServiceNode(serviceNode);
-            logger.debug("Parsed Place: " + id + " -> " + service + ":" + primaryOperation);
-        }
-    }
-
-    private void parseTransition(String block, String id, String label) {
-        String nodeType = extractJsonValue(block, "node_type");
-        String nodeValue = extractJsonValue(block, "node_value");
-        String transitionType = extractJsonValue(block, "transition_type");
-        String buffer = extractJsonValue(block, "buffer");
-        
-        if (nodeType != null && !nodeType.isEmpty()) {
-            Map<String, String> attributes = new HashMap<>();
-            attributes.put("label", label != null ? label : "");
-            attributes.put("node_type", nodeType);
-            if (nodeValue != null) {
-                attributes.put("node_value", nodeValue);
-            }
-            
-            if (buffer != null && !buffer.isEmpty() && transitionType != null) {
-                if (transitionType.equals("T_in") || transitionType.equals("Other")) {
-                    attributes.put("buffer", buffer);
-                }
-            }
-            
-            TransitionNode transitionNode = new TransitionNode(id, nodeType, 
-                nodeValue != null ? nodeValue : "", attributes);
-            workflowModel.addTransitionNode(transitionNode);
-            logger.debug("Parsed Transition: " + id + " -> " + nodeType);
-        }
-    }
-
-    private void parseEventGenerator(String block, String id, String label) {
-        Map<String, String> attributes = new HashMap<>();
-        attributes.put("label", label != null ? label : "");
-        attributes.put("node_type", "EventGenerator");
-        attributes.put("elementType", "EVENT_GENERATOR");
-        
-        TransitionNode transitionNode = new TransitionNode(id, "EventGenerator", "EVENT_GENERATOR", attributes);
-        workflowModel.addTransitionNode(transitionNode);
-        logger.info("Registered EVENT_GENERATOR: " + id);
-    }
-
-    private void parseArrow(String block) {
-        String sourceId = extractJsonValue(block, "source");
-        String targetId = extractJsonValue(block, "target");
-        String label = extractJsonValue(block, "label");
-        String condition = extractJsonValue(block, "guardCondition");
-        if (condition == null || condition.isEmpty()) {
-            condition = extractJsonValue(block, "condition");
-        }
-        String decisionValue = extractJsonValue(block, "decision_value");
-        String endpoint = extractJsonValue(block, "endpoint");
-        
-        if (sourceId != null && targetId != null) {
-            Map<String, String> attributes = new HashMap<>();
-            if (label != null && !label.isEmpty()) attributes.put("label", label);
-            if (condition != null && !condition.isEmpty()) attributes.put("condition", condition);
-            if (decisionValue != null && !decisionValue.isEmpty()) attributes.put("decision_value", decisionValue);
-            if (endpoint != null && !endpoint.isEmpty()) attributes.put("endpoint", endpoint);
-            
-            WorkflowEdge edge = new WorkflowEdge(sourceId, targetId, attributes);
-            workflowModel.addWorkflowEdge(edge);
-        }
-    }
-
-    // ========================================================================
-    // JSON PARSING HELPERS
-    // ========================================================================
-
-    private String extractJsonSection(String json, String key) {
-        int keyIndex = json.indexOf(key);
-        if (keyIndex < 0) return "";
-        
-        int colonIndex = json.indexOf(":", keyIndex);
-        if (colonIndex < 0) return "";
-        
-        int bracketStart = json.indexOf("[", colonIndex);
-        if (bracketStart < 0) return "";
-        
-        int depth = 1;
-        int pos = bracketStart + 1;
-        while (pos < json.length() && depth > 0) {
-            char c = json.charAt(pos);
-            if (c == '[') depth++;
-            else if (c == ']') depth--;
-            pos++;
-        }
-        
-        return json.substring(bracketStart + 1, pos - 1);
-    }
-
-    private String[] splitJsonObjects(String section) {
-        List<String> objects = new ArrayList<>();
-        int depth = 0;
-        int start = -1;
-        
-        for (int i = 0; i < section.length(); i++) {
-            char c = section.charAt(i);
-            if (c == '{') {
-                if (depth == 0) start = i;
-                depth++;
-            } else if (c == '}') {
-                depth--;
-                if (depth == 0 && start >= 0) {
-                    objects.add(section.substring(start, i + 1));
-                    start = -1;
-                }
-            }
-        }
-        
-        return objects.toArray(new String[0]);
-    }
-
-    private String extractJsonValue(String block, String key) {
-        String searchKey = "\"" + key + "\"";
-        int keyIndex = block.indexOf(searchKey);
-        if (keyIndex < 0) return null;
-        
-        int colonIndex = block.indexOf(":", keyIndex);
-        if (colonIndex < 0) return null;
-        
-        int valueStart = colonIndex + 1;
-        while (valueStart < block.length() && Character.isWhitespace(block.charAt(valueStart))) {
-            valueStart++;
-        }
-        
-        if (valueStart >= block.length()) return null;
-        
-        char firstChar = block.charAt(valueStart);
         
-        if (firstChar == '"') {
-            int endQuote = block.indexOf("\"", valueStart + 1);
-            if (endQuote > valueStart) {
-                return block.substring(valueStart + 1, endQuote);
+        // processType - REQUIRED
+        String extractedProcessType = parser.getProcessType();
+        if (extractedProcessType != null && !extractedProcessType.isEmpty()) {
+            if (!"PetriNet".equalsIgnoreCase(extractedProcessType) && 
+                !"SOA".equalsIgnoreCase(extractedProcessType)) {
+                throw new TopologyBindingException(
+                    "Invalid processType: '" + extractedProcessType + "'. Must be 'PetriNet' or 'SOA'.");
             }
-        } else if (firstChar == '[') {
-            return null; // Array - handled separately
+            this.processType = extractedProcessType;
+            logger.info("Process type: " + this.processType);
         } else {
-            int endPos = valueStart;
-            while (endPos < block.length()) {
-                char c = block.charAt(endPos);
-                if (c == ',' || c == '}' || c == ']') break;
-                endPos++;
-            }
-            String value = block.substring(valueStart, endPos).trim();
-            if ("null".equals(value)) return null;
-            return value;
+            throw new TopologyBindingException(
+                "REQUIRED field 'processType' not found in workflow JSON.");
         }
         
-        return null;
-    }
-
-    private List<String> extractJsonOperations(String block, String key) {
-        List<String> operations = new ArrayList<>();
-        String searchKey = "\"" + key + "\"";
-        int keyIndex = block.indexOf(searchKey);
-        if (keyIndex < 0) return operations;
-        
-        int colonIndex = block.indexOf(":", keyIndex);
-        if (colonIndex < 0) return operations;
-        
-        int valueStart = colonIndex + 1;
-        while (valueStart < block.length() && Character.isWhitespace(block.charAt(valueStart))) {
-            valueStart++;
-        }
-        
-        if (valueStart >= block.length()) return operations;
-        
-        char firstChar = block.charAt(valueStart);
-        
-        if (firstChar == '"') {
-            int endQuote = block.indexOf("\"", valueStart + 1);
-            if (endQuote > valueStart) {
-                operations.add(block.substring(valueStart + 1, endQuote));
-            }
-        } else if (firstChar == '[') {
-            int bracketEnd = block.indexOf("]", valueStart);
-            if (bracketEnd > valueStart) {
-                String arrayContent = block.substring(valueStart + 1, bracketEnd);
-                String[] parts = arrayContent.split(",");
-                for (String part : parts) {
-                    String trimmed = part.trim();
-                    if (trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
-                        operations.add(trimmed.substring(1, trimmed.length() - 1));
-                    }
-                }
-            }
-        }
-        
-        return operations;
-    }
-
-    private List<String> extractOperationArguments(String block, String operationName) {
-        List<String> arguments = new ArrayList<>();
-        
-        String argsKey = "\"" + operationName + "_args\"";
-        int keyIndex = block.indexOf(argsKey);
-        if (keyIndex < 0) {
-            argsKey = "\"args\"";
-            keyIndex = block.indexOf(argsKey);
-        }
-        if (keyIndex < 0) return arguments;
-        
-        int colonIndex = block.indexOf(":", keyIndex);
-        if (colonIndex < 0) return arguments;
-        
-        int bracketStart = block.indexOf("[", colonIndex);
-        if (bracketStart < 0) return arguments;
-        
-        int bracketEnd = block.indexOf("]", bracketStart);
-        if (bracketEnd < 0) return arguments;
-        
-        String arrayContent = block.substring(bracketStart + 1, bracketEnd);
-        String[] parts = arrayContent.split(",");
-        for (String part : parts) {
-            String trimmed = part.trim();
-            if (trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
-                arguments.add(trimmed.substring(1, trimmed.length() - 1));
-            }
-        }
-        
-        return arguments;
-    }
-
-    private String extractOperationReturnAttribute(String block, String operationName) {
-        String returnKey = "\"" + operationName + "_return\"";
-        int keyIndex = block.indexOf(returnKey);
-        if (keyIndex < 0) {
-            returnKey = "\"returnAttribute\"";
-            keyIndex = block.indexOf(returnKey);
-        }
-        if (keyIndex < 0) return null;
-        
-        int colonIndex = block.indexOf(":", keyIndex);
-        if (colonIndex < 0) return null;
-        
-        int valueStart = colonIndex + 1;
-        while (valueStart < block.length() && Character.isWhitespace(block.charAt(valueStart))) {
-            valueStart++;
-        }
-        
-        if (valueStart < block.length() && block.charAt(valueStart) == '"') {
-            int endQuote = block.indexOf("\"", valueStart + 1);
-            if (endQuote > valueStart) {
-                return block.substring(valueStart + 1, endQuote);
-            }
-        }
-        
-        return null;
+        logger.info("JSON parsing complete - " + workflowModel.getServiceNodes().size() + " services, " +
+            workflowModel.getTransitionNodes().size() + " transitions, " + 
+            workflowModel.getWorkflowEdges().size() + " edges");
     }
 
     // ========================================================================
@@ -666,23 +354,21 @@ public class TopologyBindingGenerator {
             // Find incoming arcs, excluding EventGenerator and feedback loops
             List<WorkflowEdge> incomingArcs = new ArrayList<>();
             
-            for (WorkflowEdge edge : workflowModel.getWorkflowEdges()) {
-                if (edge.toNode.equals(joinNodeId)) {
-                    // Exclude EventGenerator transitions
-                    TransitionNode fromTransition = workflowModel.getTransitionNodes().get(edge.fromNode);
-                    if (fromTransition != null && "EventGenerator".equals(fromTransition.nodeType)) {
-                        logger.info("JOIN-SLOT: Skipping EventGenerator edge " + edge.fromNode + " -> " + joinNodeId);
-                        continue;
-                    }
-                    
-                    // Exclude feedback loops
-                    if (isFeedbackLoop(edge.fromNode, joinNodeId)) {
-                        logger.info("JOIN-SLOT: Excluding FEEDBACK LOOP: " + edge.fromNode + " -> " + joinNodeId);
-                        continue;
-                    }
-                    
-                    incomingArcs.add(edge);
+            for (WorkflowEdge edge : workflowModel.getIncomingEdges(joinNodeId)) {
+                // Exclude EventGenerator transitions
+                TransitionNode fromTransition = workflowModel.getTransitionNodes().get(edge.fromNode);
+                if (fromTransition != null && "EventGenerator".equals(fromTransition.nodeType)) {
+                    logger.info("JOIN-SLOT: Skipping EventGenerator edge " + edge.fromNode + " -> " + joinNodeId);
+                    continue;
                 }
+                
+                // Exclude feedback loops
+                if (isFeedbackLoop(edge.fromNode, joinNodeId)) {
+                    logger.info("JOIN-SLOT: Excluding FEEDBACK LOOP: " + edge.fromNode + " -> " + joinNodeId);
+                    continue;
+                }
+                
+                incomingArcs.add(edge);
             }
             
             logger.info("JoinNode " + joinNodeId + " has " + incomingArcs.size() + 
@@ -718,13 +404,11 @@ public class TopologyBindingGenerator {
         
         // Find outgoing transition
         TransitionNode outgoingTransition = null;
-        for (WorkflowEdge edge : workflowModel.getWorkflowEdges()) {
-            if (edge.fromNode.equals(serviceNode.nodeId)) {
-                TransitionNode transition = workflowModel.getTransitionNodes().get(edge.toNode);
-                if (transition != null) {
-                    outgoingTransition = transition;
-                    break;
-                }
+        for (WorkflowEdge edge : workflowModel.getOutgoingEdges(serviceNode.nodeId)) {
+            TransitionNode transition = workflowModel.getTransitionNodes().get(edge.toNode);
+            if (transition != null) {
+                outgoingTransition = transition;
+                break;
             }
         }
         
@@ -757,24 +441,20 @@ public class TopologyBindingGenerator {
     // ========================================================================
 
     private ServiceNode findServiceAfterTransition(TransitionNode transition) {
-        for (WorkflowEdge edge : workflowModel.getWorkflowEdges()) {
-            if (edge.fromNode.equals(transition.nodeId)) {
-                ServiceNode service = workflowModel.getServiceNodes().get(edge.toNode);
-                if (service != null) {
-                    return service;
-                }
+        for (WorkflowEdge edge : workflowModel.getOutgoingEdges(transition.nodeId)) {
+            ServiceNode service = workflowModel.getServiceNodes().get(edge.toNode);
+            if (service != null) {
+                return service;
             }
         }
         return null;
     }
 
     private List<String> getDestinationArguments(String serviceName) {
-        for (ServiceNode service : workflowModel.getServiceNodes().values()) {
-            if (service.service.equals(serviceName)) {
-                String argsStr = service.attributes.get("operationArguments");
-                if (argsStr != null && !argsStr.isEmpty()) {
-                    return Arrays.asList(argsStr.split(","));
-                }
+        for (ServiceNode service : workflowModel.getServiceNodesByServiceName(serviceName)) {
+            String argsStr = service.attributes.get("operationArguments");
+            if (argsStr != null && !argsStr.isEmpty()) {
+                return Arrays.asList(argsStr.split(","));
             }
         }
         return null;
@@ -782,18 +462,16 @@ public class TopologyBindingGenerator {
 
     private int countIncomingEdgesToTransition(TransitionNode transition) {
         int count = 0;
-        for (WorkflowEdge edge : workflowModel.getWorkflowEdges()) {
-            if (edge.toNode.equals(transition.nodeId)) {
-                // Exclude EventGenerator
-                TransitionNode fromTransition = workflowModel.getTransitionNodes().get(edge.fromNode);
-                if (fromTransition != null && "EventGenerator".equals(fromTransition.nodeType)) {
-                    continue;
-                }
-                // Exclude feedback loops
-                if (!isFeedbackLoop(edge.fromNode, transition.nodeId)) {
-                    logger.debug("JOIN-COUNT: Counting edge " + edge.fromNode + " -> " + transition.nodeId);
-                    count++;
-                }
+        for (WorkflowEdge edge : workflowModel.getIncomingEdges(transition.nodeId)) {
+            // Exclude EventGenerator
+            TransitionNode fromTransition = workflowModel.getTransitionNodes().get(edge.fromNode);
+            if (fromTransition != null && "EventGenerator".equals(fromTransition.nodeType)) {
+                continue;
+            }
+            // Exclude feedback loops
+            if (!isFeedbackLoop(edge.fromNode, transition.nodeId)) {
+                logger.debug("JOIN-COUNT: Counting edge " + edge.fromNode + " -> " + transition.nodeId);
+                count++;
             }
         }
         return count;
@@ -898,7 +576,8 @@ public class TopologyBindingGenerator {
     }
 
     private void appendBindingsToServiceRuleml(List<String> bindingFilePaths) throws IOException {
-        String serviceRulemlPath = "../" + Config.COMMON_FOLDER + "/RuleFolder." + buildVersion + "/Service.ruleml";
+        String serviceRulemlPath = new File(Replication.ruleFolder(new File("../" + Config.COMMON_FOLDER), buildVersion),
+                "Service.ruleml").getPath();
         File serviceRulemlFile = new File(serviceRulemlPath);
         
         if (!serviceRulemlFile.exists()) {
@@ -0,0 +1,379 @@
+package org.btsn.rulecontroller.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+import org.apache.log4j.Logger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Single-pass streaming loader for workflow definitions in
+ * ProcessDefinitionFolder (the JSON written by the Petri net editor).
+ *
+ * Shared by RuleDeployer and TopologyBindingGenerator. The document is read
+ * once, token by token, and the WorkflowModel is built as each element or
+ * arrow object closes - no section extraction, object splitting or
+ * per-key rescans of the text.
+ *
+ * Recognised structure (unknown fields, e.g. coordinates, waypoints and
+ * textElements, are skipped):
+ *
+ *   {
+ *     "processType": "PetriNet" | "SOA",
+ *     "elements": [
+ *       { "id", "type": "PLACE", "label", "service",
+ *         "operations": ["op", ...] | [{ "name", "returnAttribute",
+ *                                        "arguments": [{ "name", ... }] }, ...],
+ *         "operation" (old single-operation format) },
+ *       { "id", "type": "TRANSITION", "label", "node_type", "node_value",
+ *         "transition_type", "buffer" },
+ *       { "id", "type": "EVENT_GENERATOR", "label" }
+ *     ],
+ *     "arrows": [
+ *       { "source", "target", "label", "guardCondition" | "condition",
+ *         "decision_value", "endpoint" }
+ *     ]
+ *   }
+ *
+ * Scalar values are taken as text whatever their JSON type, so "buffer": 10
+ * and "buffer": "10" load the same.
+ */
+public class WorkflowDefinitionParser {
+    private static final Logger logger = Logger.getLogger(WorkflowDefinitionParser.class);
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final WorkflowModel workflowModel;
+    private String processType;
+    private final Map<String, List<String>> multiOperationServices = new LinkedHashMap<>();
+    private int elementCount;
+    private int arrowCount;
+
+    public WorkflowDefinitionParser(WorkflowModel workflowModel) {
+        this.workflowModel = workflowModel;
+    }
+
+    public void parse(String json) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            parseDocument(parser);
+        }
+    }
+
+    public void parse(Reader reader) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(reader)) {
+            parseDocument(parser);
+        }
+    }
+
+    public void parse(File file) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(file)) {
+            parseDocument(parser);
+        }
+    }
+
+    /**
+     * @return the top-level processType, or null if the document has none
+     */
+    public String getProcessType() {
+        return processType;
+    }
+
+    /**
+     * Places that declare more than one operation: place id -> operations in
+     * declaration order
+     */
+    public Map<String, List<String>> getMultiOperationServices() {
+        return Collections.unmodifiableMap(multiOperationServices);
+    }
+
+    public int getElementCount() {
+        return elementCount;
+    }
+
+    public int getArrowCount() {
+        return arrowCount;
+    }
+
+    // === DOCUMENT ===
+
+    private void parseDocument(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Workflow definition must be a JSON object");
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if ("processType".equals(field) && value.isScalarValue()) {
+                processType = parser.getText();
+            } else if ("elements".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    parseElement(parser);
+                }
+            } else if ("arrows".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    parseArrow(parser);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        logger.info("Workflow definition loaded - " + elementCount + " elements, " + arrowCount + " arrows");
+    }
+
+    // === ELEMENTS ===
+
+    /**
+     * One operation of a place: name, optional returnAttribute and argument names
+     */
+    private static class OperationDef {
+        String name;
+        String returnAttribute;
+        final List<String> arguments = new ArrayList<>();
+    }
+
+    private void parseElement(JsonParser parser) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        List<OperationDef> operations = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if ("operations".equals(field)) {
+                parseOperations(parser, value, operations);
+            } else if (value.isScalarValue()) {
+                fields.putIfAbsent(field, parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        elementCount++;
+
+        String type = fields.get("type");
+        String id = fields.get("id");
+        String label = fields.get("label");
+
+        if ("PLACE".equals(type)) {
+            addPlace(id, label, fields, operations);
+        } else if ("TRANSITION".equals(type)) {
+            addTransition(id, label, fields);
+        } else if ("EVENT_GENERATOR".equals(type)) {
+            addEventGenerator(id, label);
+        }
+    }
+
+    /**
+     * "operations" may be an array of names, an array of operation objects or
+     * a single name
+     */
+    private void parseOperations(JsonParser parser, JsonToken value, List<OperationDef> operations)
+            throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            addOperationName(operations, parser.getText());
+            return;
+        }
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+
+        JsonToken item;
+        while ((item = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (item == JsonToken.VALUE_STRING) {
+                addOperationName(operations, parser.getText());
+            } else if (item == JsonToken.START_OBJECT) {
+                OperationDef op = new OperationDef();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken opValue = parser.nextToken();
+                    if ("name".equals(field) && opValue.isScalarValue()) {
+                        op.name = parser.getText();
+                    } else if ("returnAttribute".equals(field) && opValue.isScalarValue()) {
+                        op.returnAttribute = parser.getText();
+                    } else if ("arguments".equals(field) && opValue == JsonToken.START_ARRAY) {
+                        parseArguments(parser, op.arguments);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (op.name != null && !op.name.trim().isEmpty()) {
+                    operations.add(op);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void parseArguments(JsonParser parser, List<String> arguments) throws IOException {
+        JsonToken item;
+        while ((item = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (item != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("name".equals(field) && value == JsonToken.VALUE_STRING && !parser.getText().isEmpty()) {
+                    arguments.add(parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static void addOperationName(List<OperationDef> operations, String name) {
+        if (name != null && !name.trim().isEmpty()) {
+            OperationDef op = new OperationDef();
+            op.name = name.trim();
+            operations.add(op);
+        }
+    }
+
+    private void addPlace(String id, String label, Map<String, String> fields, List<OperationDef> operations) {
+        String service = fields.get("service");
+
+        // Fallback to "operation" (old format - single string)
+        if (operations.isEmpty()) {
+            addOperationName(operations, fields.get("operation"));
+        }
+        if (service == null || service.isEmpty() || operations.isEmpty()) {
+            return;
+        }
+
+        // First operation is the primary operation for the ServiceNode
+        OperationDef primary = operations.get(0);
+        List<String> operationNames = new ArrayList<>(operations.size());
+        for (OperationDef op : operations) {
+            operationNames.add(op.name);
+        }
+
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("label", label != null ? label : "");
+        attributes.put("service", service);
+        attributes.put("operation", primary.name);
+
+        if (!primary.arguments.isEmpty()) {
+            attributes.put("operationArguments", String.join(",", primary.arguments));
+            logger.debug("Stored operation arguments for " + service + "." + primary.name + ": " + primary.arguments);
+        }
+        if (primary.returnAttribute != null && !primary.returnAttribute.isEmpty()) {
+            attributes.put("returnAttribute", primary.returnAttribute);
+            logger.debug("Stored return attribute for " + service + "." + primary.name + ": " + primary.returnAttribute);
+        }
+        if (operationNames.size() > 1) {
+            attributes.put("operations", String.join(",", operationNames));
+            multiOperationServices.put(id, operationNames);
+        }
+
+        workflowModel.addServiceNode(new ServiceNode(id, service, primary.name, attributes));
+        logger.debug("Parsed Place: " + id + " -> " + service + ":" +
+                     (operationNames.size() > 1 ? operationNames.toString() : primary.name) +
+                     (primary.arguments.isEmpty() ? "" : " args=" + primary.arguments));
+    }
+
+    private void addTransition(String id, String label, Map<String, String> fields) {
+        String nodeType = fields.get("node_type");
+        String nodeValue = fields.get("node_value");
+        String transitionType = fields.get("transition_type");
+        String buffer = fields.get("buffer");
+
+        if (nodeType == null || nodeType.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("label", label != null ? label : "");
+        attributes.put("node_type", nodeType);
+        if (nodeValue != null) {
+            attributes.put("node_value", nodeValue);
+        }
+
+        // Buffer is only valid for T_in and Other transition types
+        if (buffer != null && !buffer.isEmpty() && transitionType != null) {
+            if (transitionType.equals("T_in") || transitionType.equals("Other")) {
+                attributes.put("buffer", buffer);
+                logger.debug("Captured buffer=" + buffer + " for " + transitionType + " transition: " + id);
+            } else {
+                logger.debug("Ignoring buffer for " + transitionType + " transition (only T_in/Other supported): " + id);
+            }
+        }
+
+        workflowModel.addTransitionNode(new TransitionNode(id, nodeType, nodeValue != null ? nodeValue : "", attributes));
+        logger.debug("Parsed Transition: " + id + " -> " + nodeType + ":" + nodeValue);
+    }
+
+    /**
+     * EVENT_GENERATOR is not a service - it is registered as an EventGenerator
+     * transition for graph validation; tokens come from the external generator
+     */
+    private void addEventGenerator(String id, String label) {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("label", label != null ? label : "");
+        attributes.put("node_type", "EventGenerator");
+        attributes.put("elementType", "EVENT_GENERATOR");
+
+        workflowModel.addTransitionNode(new TransitionNode(id, "EventGenerator", "EVENT_GENERATOR", attributes));
+        logger.info("Registered EVENT_GENERATOR '" + id + "' as EventGenerator transition");
+    }
+
+    // === ARROWS ===
+
+    private void parseArrow(JsonParser parser) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value.isScalarValue()) {
+                fields.putIfAbsent(field, parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        arrowCount++;
+
+        String sourceId = fields.get("source");
+        String targetId = fields.get("target");
+        if (sourceId == null || targetId == null) {
+            return;
+        }
+
+        // guardCondition (new) takes precedence over condition (old)
+        String condition = fields.get("guardCondition");
+        if (condition == null || condition.isEmpty()) {
+            condition = fields.get("condition");
+        }
+
+        Map<String, String> attributes = new HashMap<>();
+        putIfNotEmpty(attributes, "label", fields.get("label"));
+        putIfNotEmpty(attributes, "condition", condition);
+        putIfNotEmpty(attributes, "decision_value", fields.get("decision_value"));
+        putIfNotEmpty(attributes, "endpoint", fields.get("endpoint"));
+
+        WorkflowEdge edge = new WorkflowEdge(sourceId, targetId, attributes);
+        workflowModel.addWorkflowEdge(edge);
+
+        if (edge.isDecisionEdge()) {
+            logger.debug("Parsed Decision Edge: " + sourceId + " -> " + targetId +
+                         " [" + condition + "=" + edge.getDecisionValue() + "]");
+        } else {
+            logger.debug("Parsed Edge: " + sourceId + " -> " + targetId);
+        }
+    }
+
+    private static void putIfNotEmpty(Map<String, String> attributes, String key, String value) {
+        if (value != null && !value.isEmpty()) {
+            attributes.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,703 @@
+package org.btsn.rulecontroller.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * Benchmark for WorkflowDefinitionParser.
+ *
+ * Generates an editor-format workflow definition of N places (default 5,000),
+ * each with T_in/T_out transitions, an operations array with arguments and
+ * return attributes, and arrows carrying waypoints, then times loading it
+ * with the streaming parser against the substring scanner RuleDeployer used
+ * before (extractJsonSection / splitJsonObjects / extractJsonValue, which
+ * re-scans each element block once per key).
+ *
+ * Both loaders build a WorkflowModel and the resulting services, transitions
+ * and edges (with their attributes) are compared, so the benchmark doubles as
+ * an equivalence check. -definition parses a real file instead, e.g.
+ * ProcessDefinitionFolder/petrinet/Workflow/P1_P2_P3_P4_Fork_Join_Workflow.json.
+ *
+ * Usage:
+ *   java WorkflowDefinitionParserBenchmark [-places 5000] [-iterations 3] [-definition file.json]
+ */
+public class WorkflowDefinitionParserBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int places = 5000;
+        int iterations = 3;
+        String definition = null;
+
+        for (int i = 0; i < args.length - 1; i++) {
+            switch (args[i]) {
+            case "-places":
+                places = Integer.parseInt(args[++i]);
+                break;
+            case "-iterations":
+                iterations = Integer.parseInt(args[++i]);
+                break;
+            case "-definition":
+                definition = args[++i];
+                break;
+            }
+        }
+
+        // Per-element logging would dominate the timings
+        Logger.getLogger(WorkflowDefinitionParser.class).setLevel(Level.WARN);
+
+        String json;
+        if (definition != null) {
+            json = new String(Files.readAllBytes(new File(definition).toPath()), StandardCharsets.UTF_8);
+        } else {
+            json = buildSyntheticDefinition(places);
+        }
+
+        System.out.println("=== WORKFLOW DEFINITION PARSER BENCHMARK ===");
+        System.out.println((definition != null ? definition : "Synthetic, " + places + " places") +
+                           String.format(" (%.1f KB)", json.length() / 1024.0));
+
+        String streamingModel = null;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            WorkflowModel model = new WorkflowModel();
+            new WorkflowDefinitionParser(model).parse(json);
+            long ns = System.nanoTime() - start;
+            streamingModel = describe(model);
+            System.out.println(String.format("Streaming load %d: %10.1f ms (%d services, %d transitions, %d edges)",
+                                             i + 1, ns / 1e6, model.getServiceNodes().size(),
+                                             model.getTransitionNodes().size(), model.getWorkflowEdges().size()));
+        }
+
+        long start = System.nanoTime();
+        WorkflowModel legacy = new WorkflowModel();
+        legacyLoad(json, legacy);
+        long ns = System.nanoTime() - start;
+        System.out.println(String.format("Substring load:   %10.1f ms", ns / 1e6));
+
+        if (!describe(legacy).equals(streamingModel)) {
+            System.out.println("WARNING: streaming and substring loaders built different models");
+        }
+    }
+
+    static String buildSyntheticDefinition(int places) {
+        StringBuilder sb = new StringBuilder(places * 1600);
+        sb.append("{\n  \"processType\": \"PetriNet\",\n  \"elements\": [\n");
+        for (int p = 0; p < places; p++) {
+            String place = "P" + p;
+            sb.append("    {\n      \"id\": \"").append(place).append("\",\n")
+              .append("      \"type\": \"PLACE\",\n")
+              .append("      \"label\": \"").append(place).append("_Place\",\n")
+              .append("      \"x\": ").append(100 + p % 50 * 120).append(",\n")
+              .append("      \"y\": ").append(100 + p / 50 * 120).append(",\n")
+              .append("      \"service\": \"").append(place).append("_Place\",\n")
+              .append("      \"operations\": [\n")
+              .append("        {\n          \"name\": \"processToken\",\n")
+              .append("          \"returnAttribute\": \"token\",\n")
+              .append("          \"arguments\": [\n")
+              .append("            {\"name\": \"token\", \"type\": \"String\"}");
+            if (p % 4 == 3) {
+                sb.append(",\n            {\"name\": \"token_branch2\", \"type\": \"String\"}");
+            }
+            sb.append("\n          ]\n        }");
+            if (p % 10 == 0) {
+                sb.append(",\n        {\n          \"name\": \"auditToken\",\n")
+                  .append("          \"arguments\": [ {\"name\": \"token\", \"type\": \"String\"} ]\n        }");
+            }
+            sb.append("\n      ]\n    },\n");
+
+            appendTransition(sb, "T_in_" + place, "T_in", p % 4 == 3 ? "JoinNode" : "EdgeNode", p % 2 == 0 ? "5" : null);
+            sb.append(",\n");
+            appendTransition(sb, "T_out_" + place, "T_out", p % 4 == 0 ? "ForkNode" : "EdgeNode", null);
+            sb.append(p + 1 < places ? ",\n" : "\n");
+        }
+        sb.append("  ],\n  \"arrows\": [\n");
+        for (int p = 0; p < places; p++) {
+            String place = "P" + p;
+            appendArrow(sb, "T_in_" + place, place, null);
+            sb.append(",\n");
+            appendArrow(sb, place, "T_out_" + place, null);
+            if (p + 1 < places) {
+                sb.append(",\n");
+                appendArrow(sb, "T_out_" + place, "T_in_P" + (p + 1), p % 10 == 0 ? "processToken" : null);
+                sb.append(",\n");
+            } else {
+                sb.append("\n");
+            }
+        }
+        sb.append("  ]\n}\n");
+        return sb.toString();
+    }
+
+    private static void appendTransition(StringBuilder sb, String id, String transitionType, String nodeType,
+                                         String buffer) {
+        sb.append("    {\n      \"id\": \"").append(id).append("\",\n")
+          .append("      \"type\": \"TRANSITION\",\n")
+          .append("      \"label\": \"").append(id).append("\",\n")
+          .append("      \"x\": 0,\n      \"y\": 0,\n")
+          .append("      \"transition_type\": \"").append(transitionType).append("\",\n")
+          .append("      \"node_type\": \"").append(nodeType).append("\",\n")
+          .append("      \"node_value\": \"").append(id).append("\"");
+        if (buffer != null) {
+            sb.append(",\n      \"buffer\": \"").append(buffer).append("\"");
+        }
+        sb.append("\n    }");
+    }
+
+    private static void appendArrow(StringBuilder sb, String source, String target, String endpoint) {
+        sb.append("    {\n      \"source\": \"").append(source).append("\",\n")
+          .append("      \"target\": \"").append(target).append("\",\n")
+          .append("      \"waypoints\": [ {\"x\": 10, \"y\": 20}, {\"x\": 30, \"y\": 40} ]");
+        if (endpoint != null) {
+            sb.append(",\n      \"endpoint\": \"").append(endpoint).append("\"");
+        }
+        sb.append("\n    }");
+    }
+
+    /**
+     * Canonical text form of a model, for comparing the two loaders.
+     */
+    static String describe(WorkflowModel model) {
+        StringBuilder sb = new StringBuilder();
+        for (ServiceNode s : new TreeMap<>(model.getServiceNodes()).values()) {
+            sb.append("S ").append(s.nodeId).append(' ').append(s.service).append(' ').append(s.operation)
+              .append(' ').append(new TreeMap<>(s.attributes)).append('\n');
+        }
+        for (TransitionNode t : new TreeMap<>(model.getTransitionNodes()).values()) {
+            sb.append("T ").append(t.nodeId).append(' ').append(t.nodeType).append(' ').append(t.nodeValue)
+              .append(' ').append(new TreeMap<>(t.attributes)).append('\n');
+        }
+        for (WorkflowEdge e : model.getWorkflowEdges()) {
+            sb.append("E ").append(e.fromNode).append(' ').append(e.toNode).append(' ')
+              .append(new TreeMap<>(e.attributes)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // ---------------------------------------------------------------------
+    // Substring loader - RuleDeployer.parseJsonWorkflow before the streaming
+    // parser, with logging removed
+    // ---------------------------------------------------------------------
+
+    static void legacyLoad(String jsonContent, WorkflowModel workflowModel) {
+        String[] elementBlocks = splitJsonObjects(extractJsonSection(jsonContent, "\"elements\""));
+        for (String block : elementBlocks) {
+            if (block.trim().isEmpty()) continue;
+
+            String type = extractJsonValue(block, "type");
+            String id = extractJsonValue(block, "id");
+            String label = extractJsonValue(block, "label");
+
+            if ("PLACE".equals(type)) {
+                String service = extractJsonValue(block, "service");
+                List<String> operationsList = new ArrayList<>();
+                List<String> ops = extractJsonOperations(block, "operations");
+                if (!ops.isEmpty()) {
+                    operationsList.addAll(ops);
+                } else {
+                    String operation = extractJsonValue(block, "operation");
+                    if (operation != null && !operation.isEmpty()) {
+                        operationsList.add(operation);
+                    }
+                }
+                if (service != null && !service.isEmpty() && !operationsList.isEmpty()) {
+                    String primaryOperation = operationsList.get(0);
+                    List<String> operationArguments = extractOperationArguments(block, primaryOperation);
+                    String returnAttribute = extractOperationReturnAttribute(block, primaryOperation);
+
+                    Map<String, String> attributes = new HashMap<>();
+                    attributes.put("label", label != null ? label : "");
+                    attributes.put("service", service);
+                    attributes.put("operation", primaryOperation);
+                    if (!operationArguments.isEmpty()) {
+                        attributes.put("operationArguments", String.join(",", operationArguments));
+                    }
+                    if (returnAttribute != null && !returnAttribute.isEmpty()) {
+                        attributes.put("returnAttribute", returnAttribute);
+                    }
+                    if (operationsList.size() > 1) {
+                        attributes.put("operations", String.join(",", operationsList));
+                    }
+                    workflowModel.addServiceNode(new ServiceNode(id, service, primaryOperation, attributes));
+                }
+            } else if ("TRANSITION".equals(type)) {
+                String nodeType = extractJsonValue(block, "node_type");
+                String nodeValue = extractJsonValue(block, "node_value");
+                String transitionType = extractJsonValue(block, "transition_type");
+                String buffer = extractJsonValue(block, "buffer");
+
+                if (nodeType != null && !nodeType.isEmpty()) {
+                    Map<String, String> attributes = new HashMap<>();
+                    attributes.put("label", label != null ? label : "");
+                    attributes.put("node_type", nodeType);
+                    if (nodeValue != null) {
+                        attributes.put("node_value", nodeValue);
+                    }
+                    if (buffer != null && !buffer.isEmpty() && transitionType != null
+                            && (transitionType.equals("T_in") || transitionType.equals("Other"))) {
+                        attributes.put("buffer", buffer);
+                    }
+                    workflowModel.addTransitionNode(new TransitionNode(id, nodeType,
+                                                    nodeValue != null ? nodeValue : "", attributes));
+                }
+            } else if ("EVENT_GENERATOR".equals(type)) {
+                Map<String, String> attributes = new HashMap<>();
+                attributes.put("label", label != null ? label : "");
+                attributes.put("node_type", "EventGenerator");
+                attributes.put("elementType", "EVENT_GENERATOR");
+                workflowModel.addTransitionNode(new TransitionNode(id, "EventGenerator", "EVENT_GENERATOR", attributes));
+            }
+        }
+
+        String[] arrowBlocks = splitJsonObjects(extractJsonSection(jsonContent, "\"arrows\""));
+        for (String block : arrowBlocks) {
+            if (block.trim().isEmpty()) continue;
+
+            String sourceId = extractJsonValue(block, "source");
+            String targetId = extractJsonValue(block, "target");
+            String label = extractJsonValue(block, "label");
+            String condition = extractJsonValue(block, "guardCondition");
+            if (condition == null || condition.isEmpty()) {
+                condition = extractJsonValue(block, "condition");
+            }
+            String decisionValue = extractJsonValue(block, "decision_value");
+            String endpoint = extractJsonValue(block, "endpoint");
+
+            if (sourceId != null && targetId != null) {
+                Map<String, String> attributes = new HashMap<>();
+                if (label != null && !label.isEmpty()) {
+                    attributes.put("label", label);
+                }
+                if (condition != null && !condition.isEmpty()) {
+                    attributes.put("condition", condition);
+                }
+                if (decisionValue != null && !decisionValue.isEmpty()) {
+                    attributes.put("decision_value", decisionValue);
+                }
+                if (endpoint != null && !endpoint.isEmpty()) {
+                    attributes.put("endpoint", endpoint);
+                }
+                workflowModel.addWorkflowEdge(new WorkflowEdge(sourceId, targetId, attributes));
+            }
+        }
+    }
+
+    /**
+     * Extract JSON section by key (e.g., "elements" or "arrows")
+     */
+    private static String extractJsonSection(String json, String key) {
+        int start = json.indexOf(key + ": [");
+        if (start == -1) return "";
+        start = json.indexOf("[", start);
+
+        // Count brackets to handle nested arrays
+        int bracketCount = 0;
+        int end = start;
+        for (int i = start; i < json.length(); i++) {
+            if (json.charAt(i) == '[') {
+                bracketCount++;
+            } else if (json.charAt(i) == ']') {
+                bracketCount--;
+                if (bracketCount == 0) {
+                    end = i;
+                    break;
+                }
+            }
+        }
+
+        return json.substring(start + 1, end);
+    }
+
+    /**
+     * Split JSON array into individual objects
+     */
+    private static String[] splitJsonObjects(String section) {
+        List<String> objects = new ArrayList<>();
+        int braceCount = 0;
+        int start = 0;
+
+        for (int i = 0; i < section.length(); i++) {
+            char c = section.charAt(i);
+            if (c == '{') {
+                if (braceCount == 0) start = i;
+                braceCount++;
+            } else if (c == '}') {
+                braceCount--;
+                if (braceCount == 0) {
+                    objects.add(section.substring(start, i + 1));
+                }
+            }
+        }
+
+        return objects.toArray(new String[0]);
+    }
+
+    /**
+     * Extract value from JSON object by key
+     */
+    private static String extractJsonValue(String block, String key) {
+        String pattern = "\"" + key + "\":";
+        int start = block.indexOf(pattern);
+        if (start == -1) return null;
+
+        start = block.indexOf(":", start) + 1;
+        while (start < block.length() && Character.isWhitespace(block.charAt(start))) start++;
+
+        if (start >= block.length()) return null;
+
+        if (block.charAt(start) == '"') {
+            // String value
+            start++;
+            int end = start;
+            while (end < block.length()) {
+                if (block.charAt(end) == '"' && (end == start || block.charAt(end - 1) != '\\')) break;
+                end++;
+            }
+            if (end < block.length()) {
+                return block.substring(start, end)
+                    .replace("\\n", "\n")
+                    .replace("\\r", "\r")
+                    .replace("\\t", "\t")
+                    .replace("\\\"", "\"")
+                    .replace("\\\\", "\\");
+            }
+        } else {
+            // Number or other value
+            int end = start;
+            while (end < block.length() && !Character.isWhitespace(block.charAt(end)) &&
+                   block.charAt(end) != ',' && block.charAt(end) != '}') {
+                end++;
+            }
+            return block.substring(start, end).trim();
+        }
+
+        return null;
+    }
+
+    /**
+     * Extract operations from JSON - handles both array format and single string format
+     * Returns a list of operations (may be empty if not found)
+     *
+     * Supports:
+     * - Simple array: "operations": ["op1", "op2"]
+     * - Object array: "operations": [{"name": "op1", ...}, {"name": "op2", ...}]
+     * - Single string: "operation": "op1"
+     */
+    private static List<String> extractJsonOperations(String block, String key) {
+        List<String> operations = new ArrayList<>();
+        String pattern = "\"" + key + "\":";
+        int start = block.indexOf(pattern);
+        if (start == -1) return operations;
+
+        start = block.indexOf(":", start) + 1;
+        while (start < block.length() && Character.isWhitespace(block.charAt(start))) start++;
+
+        if (start >= block.length()) return operations;
+
+        if (block.charAt(start) == '[') {
+            // Array format - could be strings or objects
+            start++; // skip '['
+            StringBuilder arrayContent = new StringBuilder();
+            int bracketCount = 1;
+
+            while (start < block.length() && bracketCount > 0) {
+                char c = block.charAt(start);
+                if (c == '[') bracketCount++;
+                else if (c == ']') bracketCount--;
+
+                if (bracketCount > 0) {
+                    arrayContent.append(c);
+                }
+                start++;
+            }
+
+            String content = arrayContent.toString().trim();
+
+            // Check if this is an object array (starts with '{') or string array
+            if (content.startsWith("{")) {
+                // Object array format: [{"name": "op1", ...}, {"name": "op2", ...}]
+                // Extract only TOP-LEVEL "name" values from operation objects.
+                // IMPORTANT: Strip out nested "arguments":[...] blocks first so that
+                // argument names (e.g. "token") are not mistakenly picked up as operations.
+                String contentWithoutArgs = removeNestedArgumentsBlocks(content);
+                java.util.regex.Pattern namePattern = java.util.regex.Pattern.compile("\"name\"\\s*:\\s*\"([^\"]+)\"");
+                java.util.regex.Matcher matcher = namePattern.matcher(contentWithoutArgs);
+
+                while (matcher.find()) {
+                    String opName = matcher.group(1);
+                    operations.add(opName);
+                }
+            } else {
+                // Simple string array format: ["op1", "op2"]
+                boolean inQuotes = false;
+                StringBuilder currentOp = new StringBuilder();
+
+                for (int i = 0; i < content.length(); i++) {
+                    char c = content.charAt(i);
+
+                    if (c == '"' && (i == 0 || content.charAt(i - 1) != '\\')) {
+                        if (inQuotes) {
+                            // End of string - add operation
+                            String op = currentOp.toString().trim();
+                            if (!op.isEmpty()) {
+                                operations.add(op);
+                            }
+                            currentOp = new StringBuilder();
+                        }
+                        inQuotes = !inQuotes;
+                    } else if (inQuotes) {
+                        currentOp.append(c);
+                    }
+                }
+            }
+        } else if (block.charAt(start) == '"') {
+            // Single string format: "operation"
+            String singleOp = extractJsonValue(block, key);
+            if (singleOp != null && !singleOp.trim().isEmpty()) {
+                operations.add(singleOp.trim());
+            }
+        }
+
+        return operations;
+    }
+
+    /**
+     * Extract argument names from operations array in JSON.
+     * Parses the "arguments" array within each operation object.
+     *
+     * Example JSON structure:
+     * "operations": [
+     *   {
+     *     "name": "processToken",
+     *     "arguments": [
+     *       {"name": "token_branch1", "type": "String"},
+     *       {"name": "token_branch2", "type": "String"}
+     *     ]
+     *   }
+     * ]
+     *
+     * @param block The JSON block containing the operations
+     * @param operationName The operation name to find arguments for
+     * @return List of argument names (may be empty if not found)
+     */
+    private static List<String> extractOperationArguments(String block, String operationName) {
+        List<String> argumentNames = new ArrayList<>();
+
+        // Find the operations array
+        int opsStart = block.indexOf("\"operations\"");
+        if (opsStart == -1) return argumentNames;
+
+        // Find the opening bracket of operations array
+        int arrayStart = block.indexOf("[", opsStart);
+        if (arrayStart == -1) return argumentNames;
+
+        // Find matching closing bracket
+        int bracketCount = 1;
+        int pos = arrayStart + 1;
+        int arrayEnd = -1;
+
+        while (pos < block.length() && bracketCount > 0) {
+            char c = block.charAt(pos);
+            if (c == '[') bracketCount++;
+            else if (c == ']') {
+                bracketCount--;
+                if (bracketCount == 0) arrayEnd = pos;
+            }
+            pos++;
+        }
+
+        if (arrayEnd == -1) return argumentNames;
+
+        String operationsContent = block.substring(arrayStart + 1, arrayEnd);
+
+        // Find the operation object with matching name
+        String searchPattern = "\"name\":\\s*\"" + operationName + "\"";
+        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(searchPattern);
+        java.util.regex.Matcher matcher = pattern.matcher(operationsContent);
+
+        if (!matcher.find()) return argumentNames;
+
+        // Find the arguments array for this operation
+        int opNamePos = matcher.start();
+        int argsStart = operationsContent.indexOf("\"arguments\"", opNamePos);
+        if (argsStart == -1) return argumentNames;
+
+        // Find the opening bracket of arguments array
+        int argsArrayStart = operationsContent.indexOf("[", argsStart);
+        if (argsArrayStart == -1) return argumentNames;
+
+        // Find matching closing bracket for arguments
+        bracketCount = 1;
+        pos = argsArrayStart + 1;
+        int argsArrayEnd = -1;
+
+        while (pos < operationsContent.length() && bracketCount > 0) {
+            char c = operationsContent.charAt(pos);
+            if (c == '[') bracketCount++;
+            else if (c == ']') {
+                bracketCount--;
+                if (bracketCount == 0) argsArrayEnd = pos;
+            }
+            pos++;
+        }
+
+        if (argsArrayEnd == -1) return argumentNames;
+
+        String argumentsContent = operationsContent.substring(argsArrayStart + 1, argsArrayEnd);
+
+        // Extract all "name" values from arguments
+        java.util.regex.Pattern argNamePattern = java.util.regex.Pattern.compile("\"name\"\\s*:\\s*\"([^\"]+)\"");
+        java.util.regex.Matcher argMatcher = argNamePattern.matcher(argumentsContent);
+
+        while (argMatcher.find()) {
+            String argName = argMatcher.group(1);
+            argumentNames.add(argName);
+        }
+
+        return argumentNames;
+    }
+
+    /**
+     * Remove all "arguments":[...] blocks from a JSON string so that
+     * regex matches on "name" fields only hit top-level operation names,
+     * not argument names nested inside the arguments arrays.
+     *
+     * Handles nested brackets correctly (e.g. arrays within argument objects).
+     *
+     * @param content The JSON content from the operations array
+     * @return The same content with all "arguments":[...] blocks replaced with empty string
+     */
+    private static String removeNestedArgumentsBlocks(String content) {
+        StringBuilder result = new StringBuilder();
+        int i = 0;
+
+        while (i < content.length()) {
+            // Look for "arguments" key
+            int argsKeyStart = content.indexOf("\"arguments\"", i);
+
+            if (argsKeyStart == -1) {
+                // No more arguments blocks - append rest and done
+                result.append(content.substring(i));
+                break;
+            }
+
+            // Append everything before this "arguments" key
+            result.append(content, i, argsKeyStart);
+
+            // Find the '[' that starts the arguments array value
+            int bracketStart = content.indexOf("[", argsKeyStart);
+            if (bracketStart == -1) {
+                // Malformed - no array bracket found, append rest and done
+                result.append(content.substring(argsKeyStart));
+                break;
+            }
+
+            // Find the matching ']' using bracket counting
+            int bracketCount = 1;
+            int pos = bracketStart + 1;
+            while (pos < content.length() && bracketCount > 0) {
+                char c = content.charAt(pos);
+                if (c == '[') bracketCount++;
+                else if (c == ']') bracketCount--;
+                pos++;
+            }
+
+            // Skip past the entire "arguments":[...] block
+            i = pos;
+        }
+
+        return result.toString();
+    }
+
+    /**
+     *
+     * Expected JSON format:
+     * "operations": [
+     *   {
+     *     "name": "processClinicalDecision",
+     *     "returnAttribute": "diagnosisResults",
+     *     "arguments": [...]
+     *   }
+     * ]
+     *
+     * @param block The JSON block containing the operations array
+     * @param operationName The operation name to find returnAttribute for
+     * @return The return attribute name, or null if not specified
+     */
+    private static String extractOperationReturnAttribute(String block, String operationName) {
+        // Find the operations array
+        int opsStart = block.indexOf("\"operations\"");
+        if (opsStart == -1) return null;
+
+        // Find the opening bracket of operations array
+        int arrayStart = block.indexOf("[", opsStart);
+        if (arrayStart == -1) return null;
+
+        // Find matching closing bracket
+        int bracketCount = 1;
+        int pos = arrayStart + 1;
+        int arrayEnd = -1;
+
+        while (pos < block.length() && bracketCount > 0) {
+            char c = block.charAt(pos);
+            if (c == '[') bracketCount++;
+            else if (c == ']') {
+                bracketCount--;
+                if (bracketCount == 0) arrayEnd = pos;
+            }
+            pos++;
+        }
+
+        if (arrayEnd == -1) return null;
+
+        String operationsContent = block.substring(arrayStart + 1, arrayEnd);
+
+        // Find the operation object with matching name
+        String searchPattern = "\"name\"\\s*:\\s*\"" + operationName + "\"";
+        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(searchPattern);
+        java.util.regex.Matcher matcher = pattern.matcher(operationsContent);
+
+        if (!matcher.find()) return null;
+
+        // Find the returnAttribute for this operation
+        // Look for "returnAttribute" : "value" pattern after the operation name
+        int opNamePos = matcher.start();
+
+        // Find the end of this operation object (next '}' at same level)
+        int braceCount = 0;
+        int opStart = operationsContent.lastIndexOf("{", opNamePos);
+        int opEnd = -1;
+
+        for (int i = opStart; i < operationsContent.length(); i++) {
+            char c = operationsContent.charAt(i);
+            if (c == '{') braceCount++;
+            else if (c == '}') {
+                braceCount--;
+                if (braceCount == 0) {
+                    opEnd = i;
+                    break;
+                }
+            }
+        }
+
+        if (opEnd == -1) return null;
+
+        String opContent = operationsContent.substring(opStart, opEnd + 1);
+
+        // Extract returnAttribute value
+        java.util.regex.Pattern returnAttrPattern = java.util.regex.Pattern.compile(
+            "\"returnAttribute\"\\s*:\\s*\"([^\"]+)\"");
+        java.util.regex.Matcher returnMatcher = returnAttrPattern.matcher(opContent);
+
+        if (returnMatcher.find()) {
+            String returnAttr = returnMatcher.group(1);
+            return returnAttr;
+        }
+
+        return null;
+    }
+}
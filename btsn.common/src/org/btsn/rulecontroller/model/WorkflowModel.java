@@ -10,10 +10,33 @@ public class WorkflowModel {
     private final Map<String, TransitionNode> transitionNodes = new HashMap<>();
     private final List<WorkflowEdge> workflowEdges = new ArrayList<>();
     
+    // === GRAPH INDEX ===
+    // Node IDs are interned to dense ints when an edge is added; edges are
+    // indexed by source and by target so lookups do not scan workflowEdges.
+    private final Map<String, Integer> nodeIndex = new HashMap<>();
+    private final List<String> nodeNames = new ArrayList<>();
+    private final List<List<WorkflowEdge>> outgoingEdges = new ArrayList<>();
+    private final List<List<WorkflowEdge>> incomingEdges = new ArrayList<>();
+    private final Set<Long> edgeKeys = new HashSet<>();
+    private final Map<String, List<ServiceNode>> serviceNodesByName = new HashMap<>();
+    
+    // Derived from the index on first use; discarded when an edge is added
+    private int[] componentOf;          // SCC id per interned node
+    private boolean[] componentCyclic;  // SCC has more than one node or a self-loop
+    private int[][] componentSuccessors; // condensation DAG
+    private final Map<Integer, BitSet> reachableComponents = new HashMap<>();
+    
     // === SERVICE NODE MANAGEMENT ===
     
     public void addServiceNode(ServiceNode serviceNode) {
-        serviceNodes.put(serviceNode.nodeId, serviceNode);
+        ServiceNode previous = serviceNodes.put(serviceNode.nodeId, serviceNode);
+        if (previous != null) {
+            List<ServiceNode> sameName = serviceNodesByName.get(previous.service);
+            if (sameName != null) {
+                sameName.remove(previous);
+            }
+        }
+        serviceNodesByName.computeIfAbsent(serviceNode.service, k -> new ArrayList<>()).add(serviceNode);
     }
     
     public Map<String, ServiceNode> getServiceNodes() {
@@ -27,6 +50,14 @@ public class WorkflowModel {
         return serviceNodes.get(nodeId);
     }
     
+    /**
+     * Get service nodes by service name (e.g. "P1_Place"), in insertion order
+     */
+    public List<ServiceNode> getServiceNodesByServiceName(String serviceName) {
+        List<ServiceNode> nodes = serviceNodesByName.get(serviceName);
+        return nodes != null ? Collections.unmodifiableList(nodes) : Collections.emptyList();
+    }
+    
     // === TRANSITION NODE MANAGEMENT ===
     
     public void addTransitionNode(TransitionNode transitionNode) {
@@ -48,12 +79,52 @@ public class WorkflowModel {
     
     public void addWorkflowEdge(WorkflowEdge workflowEdge) {
         workflowEdges.add(workflowEdge);
+        
+        int from = intern(workflowEdge.fromNode);
+        int to = intern(workflowEdge.toNode);
+        outgoingEdges.get(from).add(workflowEdge);
+        incomingEdges.get(to).add(workflowEdge);
+        edgeKeys.add(edgeKey(from, to));
+        
+        invalidateAnalysis();
     }
     
     public List<WorkflowEdge> getWorkflowEdges() {
         return Collections.unmodifiableList(workflowEdges);
     }
     
+    /**
+     * Edges leaving a node, in the order they were added
+     */
+    public List<WorkflowEdge> getOutgoingEdges(String nodeId) {
+        Integer id = nodeIndex.get(nodeId);
+        return id != null ? Collections.unmodifiableList(outgoingEdges.get(id)) : Collections.emptyList();
+    }
+    
+    /**
+     * Edges entering a node, in the order they were added
+     */
+    public List<WorkflowEdge> getIncomingEdges(String nodeId) {
+        Integer id = nodeIndex.get(nodeId);
+        return id != null ? Collections.unmodifiableList(incomingEdges.get(id)) : Collections.emptyList();
+    }
+    
+    private int intern(String nodeId) {
+        Integer id = nodeIndex.get(nodeId);
+        if (id == null) {
+            id = nodeNames.size();
+            nodeIndex.put(nodeId, id);
+            nodeNames.add(nodeId);
+            outgoingEdges.add(new ArrayList<>());
+            incomingEdges.add(new ArrayList<>());
+        }
+        return id;
+    }
+    
+    private static long edgeKey(int from, int to) {
+        return ((long) from << 32) | (to & 0xffffffffL);
+    }
+    
     // === ASSOCIATION LOGIC - FIXED ===
     
     /**
@@ -68,17 +139,15 @@ public class WorkflowModel {
         logger.info("Finding INCOMING transitions for service: " + serviceNode.nodeId);
         
         // Find edges TO this service FROM transition nodes
-        for (WorkflowEdge edge : workflowEdges) {
-            if (edge.toNode.equals(serviceNode.nodeId)) {
-                TransitionNode sourceTransition = transitionNodes.get(edge.fromNode);
-                if (sourceTransition != null) {
-                    incomingTransitions.add(sourceTransition);
-                    logger.info("Found incoming transition: " + sourceTransition.nodeId + 
-                               " → " + serviceNode.nodeId + " (" + sourceTransition.nodeType + ")");
-                } else {
-                    logger.debug("Edge " + edge.fromNode + " → " + serviceNode.nodeId + 
-                               " - source is not a transition node");
-                }
+        for (WorkflowEdge edge : getIncomingEdges(serviceNode.nodeId)) {
+            TransitionNode sourceTransition = transitionNodes.get(edge.fromNode);
+            if (sourceTransition != null) {
+                incomingTransitions.add(sourceTransition);
+                logger.info("Found incoming transition: " + sourceTransition.nodeId + 
+                           " → " + serviceNode.nodeId + " (" + sourceTransition.nodeType + ")");
+            } else {
+                logger.debug("Edge " + edge.fromNode + " → " + serviceNode.nodeId + 
+                           " - source is not a transition node");
             }
         }
         
@@ -100,17 +169,15 @@ public class WorkflowModel {
         logger.info("Finding OUTGOING transitions for service: " + serviceNode.nodeId);
         
         // Find edges FROM this service TO transition nodes
-        for (WorkflowEdge edge : workflowEdges) {
-            if (edge.fromNode.equals(serviceNode.nodeId)) {
-                TransitionNode targetTransition = transitionNodes.get(edge.toNode);
-                if (targetTransition != null) {
-                    outgoingTransitions.add(targetTransition);
-                    logger.info("Found outgoing transition: " + serviceNode.nodeId + 
-                               " → " + targetTransition.nodeId + " (" + targetTransition.nodeType + ")");
-                } else {
-                    logger.debug("Edge " + serviceNode.nodeId + " → " + edge.toNode + 
-                               " - target is not a transition node");
-                }
+        for (WorkflowEdge edge : getOutgoingEdges(serviceNode.nodeId)) {
+            TransitionNode targetTransition = transitionNodes.get(edge.toNode);
+            if (targetTransition != null) {
+                outgoingTransitions.add(targetTransition);
+                logger.info("Found outgoing transition: " + serviceNode.nodeId + 
+                           " → " + targetTransition.nodeId + " (" + targetTransition.nodeType + ")");
+            } else {
+                logger.debug("Edge " + serviceNode.nodeId + " → " + edge.toNode + 
+                           " - target is not a transition node");
             }
         }
         
@@ -145,13 +212,11 @@ public class WorkflowModel {
         }
         
         // Standard handling - find services reachable from this transition
-        for (WorkflowEdge edge : workflowEdges) {
-            if (edge.fromNode.equals(transition.nodeId)) {
-                ServiceNode targetService = findReachableService(edge.toNode);
-                if (targetService != null) {
-                    destinationServices.add(targetService);
-                    logger.debug("Found destination service: " + targetService.nodeId + " via " + edge.toNode);
-                }
+        for (WorkflowEdge edge : getOutgoingEdges(transition.nodeId)) {
+            ServiceNode targetService = findReachableService(edge.toNode);
+            if (targetService != null) {
+                destinationServices.add(targetService);
+                logger.debug("Found destination service: " + targetService.nodeId + " via " + edge.toNode);
             }
         }
         
@@ -166,8 +231,8 @@ public class WorkflowModel {
         
         logger.debug("Finding decision destination services for: " + decisionNode.nodeId);
         
-        for (WorkflowEdge edge : workflowEdges) {
-            if (edge.fromNode.equals(decisionNode.nodeId) && edge.isDecisionEdge()) {
+        for (WorkflowEdge edge : getOutgoingEdges(decisionNode.nodeId)) {
+            if (edge.isDecisionEdge()) {
                 
                 ServiceNode targetService = null;
                 
@@ -201,6 +266,10 @@ public class WorkflowModel {
      * Find a service reachable from a given node (traverse intermediate transitions)
      */
     private ServiceNode findReachableService(String startNode) {
+        return findReachableService(startNode, new HashSet<>());
+    }
+    
+    private ServiceNode findReachableService(String startNode, Set<String> visited) {
         // Direct service node
         ServiceNode directService = serviceNodes.get(startNode);
         if (directService != null) {
@@ -216,12 +285,14 @@ public class WorkflowModel {
                 return new ServiceNode("TERMINATE", "TERMINATE", "TERMINATE", new HashMap<>());
             }
             
-            for (WorkflowEdge edge : workflowEdges) {
-                if (edge.fromNode.equals(startNode)) {
-                    ServiceNode reachableService = findReachableService(edge.toNode);
-                    if (reachableService != null) {
-                        return reachableService;
-                    }
+            // Transition-only cycles (e.g. T_out_X -> T_in_X retry arcs) are walked once
+            if (!visited.add(startNode)) {
+                return null;
+            }
+            for (WorkflowEdge edge : getOutgoingEdges(startNode)) {
+                ServiceNode reachableService = findReachableService(edge.toNode, visited);
+                if (reachableService != null) {
+                    return reachableService;
                 }
             }
         }
@@ -249,8 +320,9 @@ public class WorkflowModel {
     }
     
     public boolean hasEdge(String fromNode, String toNode) {
-        return workflowEdges.stream()
-            .anyMatch(edge -> edge.fromNode.equals(fromNode) && edge.toNode.equals(toNode));
+        Integer from = nodeIndex.get(fromNode);
+        Integer to = nodeIndex.get(toNode);
+        return from != null && to != null && edgeKeys.contains(edgeKey(from, to));
     }
     
     public boolean nodeExists(String nodeId) {
@@ -267,6 +339,230 @@ public class WorkflowModel {
         return adjacencyList;
     }
     
+    // === REACHABILITY AND FEEDBACK LOOPS ===
+    
+    /**
+     * True if toNode can be reached from fromNode along workflow edges
+     * (a node always reaches itself). Answered from the strongly connected
+     * components: the set of components reachable from a source component is
+     * computed once and cached until the next edge is added.
+     */
+    public boolean canReach(String fromNode, String toNode) {
+        if (fromNode.equals(toNode)) {
+            return true;
+        }
+        Integer from = nodeIndex.get(fromNode);
+        Integer to = nodeIndex.get(toNode);
+        if (from == null || to == null) {
+            return false;
+        }
+        ensureAnalysis();
+        return reachableFrom(componentOf[from]).get(componentOf[to]);
+    }
+    
+    /**
+     * True if toNode is fromNode or is reachable in at most maxHops edges.
+     * Cheaper than a full search for the short transition -> service paths
+     * rule compilation looks for, and rejects unreachable targets up front.
+     */
+    public boolean isReachableWithin(String fromNode, String toNode, int maxHops) {
+        if (fromNode.equals(toNode)) {
+            return true;
+        }
+        if (!canReach(fromNode, toNode)) {
+            return false;
+        }
+        Set<String> frontier = Collections.singleton(fromNode);
+        Set<String> seen = new HashSet<>(frontier);
+        for (int hop = 0; hop < maxHops && !frontier.isEmpty(); hop++) {
+            Set<String> next = new HashSet<>();
+            for (String node : frontier) {
+                if (hasEdge(node, toNode)) {
+                    return true;
+                }
+                for (WorkflowEdge edge : getOutgoingEdges(node)) {
+                    if (seen.add(edge.toNode)) {
+                        next.add(edge.toNode);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return false;
+    }
+    
+    /**
+     * True if the node lies on a cycle (feedback loop)
+     */
+    public boolean isOnFeedbackLoop(String nodeId) {
+        Integer id = nodeIndex.get(nodeId);
+        if (id == null) {
+            return false;
+        }
+        ensureAnalysis();
+        return componentCyclic[componentOf[id]];
+    }
+    
+    /**
+     * True if the edge closes a cycle, i.e. both ends are in the same
+     * strongly connected component
+     */
+    public boolean isFeedbackEdge(String fromNode, String toNode) {
+        Integer from = nodeIndex.get(fromNode);
+        Integer to = nodeIndex.get(toNode);
+        if (from == null || to == null) {
+            return false;
+        }
+        ensureAnalysis();
+        return componentOf[from] == componentOf[to] && componentCyclic[componentOf[from]];
+    }
+    
+    /**
+     * Node sets of every feedback loop (cyclic strongly connected component)
+     */
+    public List<Set<String>> getFeedbackLoops() {
+        ensureAnalysis();
+        Map<Integer, Set<String>> loops = new TreeMap<>();
+        for (int node = 0; node < componentOf.length; node++) {
+            int component = componentOf[node];
+            if (componentCyclic[component]) {
+                loops.computeIfAbsent(component, k -> new LinkedHashSet<>()).add(nodeNames.get(node));
+            }
+        }
+        return new ArrayList<>(loops.values());
+    }
+    
+    public int getNodeCount() {
+        return nodeNames.size();
+    }
+    
+    private void invalidateAnalysis() {
+        componentOf = null;
+        componentCyclic = null;
+        componentSuccessors = null;
+        reachableComponents.clear();
+    }
+    
+    private void ensureAnalysis() {
+        if (componentOf == null) {
+            computeComponents();
+        }
+    }
+    
+    /**
+     * Tarjan's SCC algorithm, iterative so long generated chains do not
+     * overflow the stack. Components are numbered in reverse topological
+     * order (a component's successors always have lower numbers).
+     */
+    private void computeComponents() {
+        int n = nodeNames.size();
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        int[] component = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int[] callStack = new int[n];
+        int[] edgeCursor = new int[n];
+        Arrays.fill(index, -1);
+        
+        int nextIndex = 0;
+        int stackTop = 0;
+        int componentCount = 0;
+        
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            int callTop = 0;
+            callStack[callTop++] = root;
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackTop++] = root;
+            onStack[root] = true;
+            
+            while (callTop > 0) {
+                int node = callStack[callTop - 1];
+                List<WorkflowEdge> out = outgoingEdges.get(node);
+                if (edgeCursor[node] < out.size()) {
+                    int next = nodeIndex.get(out.get(edgeCursor[node]++).toNode);
+                    if (index[next] == -1) {
+                        index[next] = lowLink[next] = nextIndex++;
+                        stack[stackTop++] = next;
+                        onStack[next] = true;
+                        callStack[callTop++] = next;
+                    } else if (onStack[next]) {
+                        lowLink[node] = Math.min(lowLink[node], index[next]);
+                    }
+                    continue;
+                }
+                
+                callTop--;
+                if (callTop > 0) {
+                    int parent = callStack[callTop - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                }
+                if (lowLink[node] == index[node]) {
+                    int member;
+                    do {
+                        member = stack[--stackTop];
+                        onStack[member] = false;
+                        component[member] = componentCount;
+                    } while (member != node);
+                    componentCount++;
+                }
+            }
+        }
+        
+        boolean[] cyclic = new boolean[componentCount];
+        List<Set<Integer>> successors = new ArrayList<>(componentCount);
+        for (int c = 0; c < componentCount; c++) {
+            successors.add(new LinkedHashSet<>());
+        }
+        for (int node = 0; node < n; node++) {
+            for (WorkflowEdge edge : outgoingEdges.get(node)) {
+                int next = nodeIndex.get(edge.toNode);
+                if (component[next] == component[node]) {
+                    cyclic[component[node]] = true;  // internal edge, including self-loops
+                } else {
+                    successors.get(component[node]).add(component[next]);
+                }
+            }
+        }
+        
+        int[][] successorArrays = new int[componentCount][];
+        for (int c = 0; c < componentCount; c++) {
+            successorArrays[c] = successors.get(c).stream().mapToInt(Integer::intValue).toArray();
+        }
+        
+        componentOf = component;
+        componentCyclic = cyclic;
+        componentSuccessors = successorArrays;
+        
+        logger.debug("Workflow graph: " + n + " nodes, " + workflowEdges.size() + " edges, " +
+                    componentCount + " components");
+    }
+    
+    private BitSet reachableFrom(int sourceComponent) {
+        BitSet reachable = reachableComponents.get(sourceComponent);
+        if (reachable != null) {
+            return reachable;
+        }
+        reachable = new BitSet(componentSuccessors.length);
+        Deque<Integer> pending = new ArrayDeque<>();
+        reachable.set(sourceComponent);
+        pending.push(sourceComponent);
+        while (!pending.isEmpty()) {
+            int c = pending.pop();
+            for (int next : componentSuccessors[c]) {
+                if (!reachable.get(next)) {
+                    reachable.set(next);
+                    pending.push(next);
+                }
+            }
+        }
+        reachableComponents.put(sourceComponent, reachable);
+        return reachable;
+    }
+    
     // === DIAGNOSTIC METHODS ===
     
     public void debugWorkflowEdges() {
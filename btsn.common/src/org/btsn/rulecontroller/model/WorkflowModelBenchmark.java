@@ -0,0 +1,294 @@
+package org.btsn.rulecontroller.model;
+
+import java.util.*;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * Benchmark for the WorkflowModel graph index.
+ *
+ * Builds a synthetic workflow of N places (default 5,000) in repeating
+ * fork/join blocks of four:
+ *
+ *   T_out_A (ForkNode) -> T_in_B, T_in_C
+ *   T_out_B, T_out_C   -> T_in_D (JoinNode)
+ *   T_out_D (EdgeNode) -> T_in_A of the next block
+ *
+ * Every 25th block T_out_D is a DecisionNode with a retry arc back to
+ * T_in_D (feedback loop) and every 10th fork arc carries an endpoint
+ * attribute, so all the topology queries RuleDeployer and
+ * TopologyBindingGenerator make during rule compilation are exercised:
+ * incoming/outgoing transitions and destination services per place, join
+ * input counts, connectivity validation, endpoint path checks and feedback
+ * loop detection.
+ *
+ * The same compile pass is timed against the indexed model and against a
+ * linear edge-list scan (how WorkflowModel worked before it was indexed).
+ *
+ * Usage:
+ *   java WorkflowModelBenchmark [-places 5000] [-iterations 3] [-skipLinear]
+ */
+public class WorkflowModelBenchmark {
+
+    public static void main(String[] args) {
+        int places = 5000;
+        int iterations = 3;
+        boolean skipLinear = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "-places":
+                places = Integer.parseInt(args[++i]);
+                break;
+            case "-iterations":
+                iterations = Integer.parseInt(args[++i]);
+                break;
+            case "-skipLinear":
+                skipLinear = true;
+                break;
+            }
+        }
+        places = Math.max(4, places - places % 4);
+
+        // Per-query logging would dominate the timings
+        Logger.getLogger(WorkflowModel.class).setLevel(Level.WARN);
+
+        System.out.println("=== WORKFLOW MODEL BENCHMARK ===");
+
+        long t0 = System.nanoTime();
+        WorkflowModel model = buildSyntheticWorkflow(places);
+        long buildNs = System.nanoTime() - t0;
+        System.out.println("Places: " + places + ", nodes: " + model.getNodeCount() +
+                           ", edges: " + model.getWorkflowEdges().size() +
+                           String.format(" (built in %.1f ms)", buildNs / 1e6));
+
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            checksum = compileIndexed(model);
+            long ns = System.nanoTime() - start;
+            System.out.println(String.format("Indexed compile pass %d: %8.1f ms (checksum %d)",
+                                             i + 1, ns / 1e6, checksum));
+        }
+
+        if (skipLinear) {
+            return;
+        }
+        long start = System.nanoTime();
+        long linearChecksum = compileLinear(model);
+        long ns = System.nanoTime() - start;
+        System.out.println(String.format("Linear  compile pass:   %8.1f ms (checksum %d)", ns / 1e6, linearChecksum));
+        if (linearChecksum != checksum) {
+            System.out.println("WARNING: checksums differ - indexed and linear results disagree");
+        }
+    }
+
+    static WorkflowModel buildSyntheticWorkflow(int places) {
+        WorkflowModel model = new WorkflowModel();
+        Map<String, String> none = Collections.emptyMap();
+
+        for (int p = 0; p < places; p++) {
+            String place = "P" + p;
+            int position = p % 4;
+            int block = p / 4;
+
+            Map<String, String> serviceAttrs = new HashMap<>();
+            if (position == 3) {
+                serviceAttrs.put("operationArguments", "token_branch1,token_branch2");
+            }
+            model.addServiceNode(new ServiceNode(place, place + "_Place", "processToken", serviceAttrs));
+
+            String inType = position == 3 ? "JoinNode" : "EdgeNode";
+            String outType;
+            if (position == 0) {
+                outType = "ForkNode";
+            } else if (position == 3 && block % 25 == 0) {
+                outType = "DecisionNode";
+            } else {
+                outType = "EdgeNode";
+            }
+            model.addTransitionNode(new TransitionNode("T_in_" + place, inType, place, none));
+            model.addTransitionNode(new TransitionNode("T_out_" + place, outType, place, none));
+
+            model.addWorkflowEdge(new WorkflowEdge("T_in_" + place, place, none));
+            model.addWorkflowEdge(new WorkflowEdge(place, "T_out_" + place, none));
+        }
+
+        for (int p = 0; p < places; p++) {
+            int position = p % 4;
+            int block = p / 4;
+            String out = "T_out_P" + p;
+
+            if (position == 0) {
+                Map<String, String> forkAttrs = new HashMap<>();
+                if (block % 10 == 0) {
+                    forkAttrs.put("endpoint", "processToken");
+                }
+                model.addWorkflowEdge(new WorkflowEdge(out, "T_in_P" + (p + 1), forkAttrs));
+                model.addWorkflowEdge(new WorkflowEdge(out, "T_in_P" + (p + 2), none));
+            } else if (position == 1 || position == 2) {
+                model.addWorkflowEdge(new WorkflowEdge(out, "T_in_P" + (p + 3 - position), none));
+            } else {
+                String next = p + 1 < places ? "T_in_P" + (p + 1) : "END";
+                if (block % 25 == 0) {
+                    Map<String, String> pass = new HashMap<>();
+                    pass.put("condition", "DECISION_EQUAL_TO");
+                    pass.put("decision_value", "true");
+                    Map<String, String> retry = new HashMap<>();
+                    retry.put("condition", "DECISION_EQUAL_TO");
+                    retry.put("decision_value", "false");
+                    model.addWorkflowEdge(new WorkflowEdge(out, next, pass));
+                    model.addWorkflowEdge(new WorkflowEdge(out, "T_in_P" + p, retry));
+                } else {
+                    model.addWorkflowEdge(new WorkflowEdge(out, next, none));
+                }
+            }
+        }
+        return model;
+    }
+
+    /**
+     * The topology queries of one rule compilation, through the index.
+     */
+    static long compileIndexed(WorkflowModel model) {
+        long checksum = 0;
+
+        for (ServiceNode service : model.getServiceNodes().values()) {
+            // validateGraphConnectivity
+            if (model.getIncomingEdges(service.nodeId).isEmpty() && model.getOutgoingEdges(service.nodeId).isEmpty()) {
+                checksum += 1_000_000;
+            }
+            checksum += model.findIncomingTransitions(service).size();
+            for (TransitionNode outgoing : model.findOutgoingTransitions(service)) {
+                checksum += 10L * model.findDestinationServices(service, outgoing).size();
+                // findOperationForDestination / pathLeadsToService
+                for (WorkflowEdge edge : model.getOutgoingEdges(outgoing.nodeId)) {
+                    if (edge.attributes.containsKey("endpoint") && model.isReachableWithin(edge.toNode, service.nodeId, 2)) {
+                        checksum += 100;
+                    }
+                }
+            }
+        }
+
+        for (TransitionNode transition : model.getTransitionNodes().values()) {
+            if ("JoinNode".equals(transition.nodeType)) {
+                checksum += 1000L * model.getIncomingEdges(transition.nodeId).size();
+            }
+        }
+
+        checksum += 10_000L * model.getFeedbackLoops().size();
+        return checksum;
+    }
+
+    /**
+     * The same queries answered by scanning the edge list, as WorkflowModel,
+     * RuleDeployer and TopologyBindingGenerator did before the index.
+     */
+    static long compileLinear(WorkflowModel model) {
+        List<WorkflowEdge> edges = model.getWorkflowEdges();
+        Map<String, ServiceNode> services = model.getServiceNodes();
+        Map<String, TransitionNode> transitions = model.getTransitionNodes();
+        long checksum = 0;
+
+        for (ServiceNode service : services.values()) {
+            boolean hasIncoming = false;
+            boolean hasOutgoing = false;
+            int incomingTransitions = 0;
+            List<TransitionNode> outgoingTransitions = new ArrayList<>();
+            for (WorkflowEdge edge : edges) {
+                if (edge.toNode.equals(service.nodeId)) {
+                    hasIncoming = true;
+                    if (transitions.containsKey(edge.fromNode)) {
+                        incomingTransitions++;
+                    }
+                }
+                if (edge.fromNode.equals(service.nodeId)) {
+                    hasOutgoing = true;
+                    TransitionNode t = transitions.get(edge.toNode);
+                    if (t != null) {
+                        outgoingTransitions.add(t);
+                    }
+                }
+            }
+            if (!hasIncoming && !hasOutgoing) {
+                checksum += 1_000_000;
+            }
+            checksum += incomingTransitions;
+
+            for (TransitionNode outgoing : outgoingTransitions) {
+                int destinations = 0;
+                for (WorkflowEdge edge : edges) {
+                    if (!edge.fromNode.equals(outgoing.nodeId)) {
+                        continue;
+                    }
+                    boolean decision = "DecisionNode".equals(outgoing.nodeType);
+                    if ((!decision || edge.isDecisionEdge())
+                            && linearReachableService(edges, services, transitions, edge.toNode, new HashSet<>()) != null) {
+                        destinations++;
+                    }
+                    if (edge.attributes.containsKey("endpoint") && linearPathLeadsTo(edges, edge.toNode, service.nodeId)) {
+                        checksum += 100;
+                    }
+                }
+                checksum += 10L * destinations;
+            }
+        }
+
+        for (TransitionNode transition : transitions.values()) {
+            if ("JoinNode".equals(transition.nodeType)) {
+                checksum += 1000L * edges.stream().filter(e -> e.toNode.equals(transition.nodeId)).count();
+            }
+        }
+
+        // Feedback loops: the retry arcs, found by checking every edge for a path back
+        int loops = 0;
+        for (WorkflowEdge edge : edges) {
+            if (edge.fromNode.equals(edge.toNode) || linearPathLeadsTo(edges, edge.toNode, edge.fromNode)) {
+                if (edge.attributes.containsKey("condition") && "false".equals(edge.attributes.get("decision_value"))) {
+                    loops++;
+                }
+            }
+        }
+        checksum += 10_000L * loops;
+        return checksum;
+    }
+
+    private static ServiceNode linearReachableService(List<WorkflowEdge> edges, Map<String, ServiceNode> services,
+                                                      Map<String, TransitionNode> transitions, String node,
+                                                      Set<String> visited) {
+        ServiceNode direct = services.get(node);
+        if (direct != null) {
+            return direct;
+        }
+        if (transitions.containsKey(node) && visited.add(node)) {
+            for (WorkflowEdge edge : edges) {
+                if (edge.fromNode.equals(node)) {
+                    ServiceNode found = linearReachableService(edges, services, transitions, edge.toNode, visited);
+                    if (found != null) {
+                        return found;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean linearPathLeadsTo(List<WorkflowEdge> edges, String from, String to) {
+        if (from.equals(to)) {
+            return true;
+        }
+        for (WorkflowEdge edge1 : edges) {
+            if (edge1.fromNode.equals(from)) {
+                if (edge1.toNode.equals(to)) {
+                    return true;
+                }
+                for (WorkflowEdge edge2 : edges) {
+                    if (edge2.fromNode.equals(edge1.toNode) && edge2.toNode.equals(to)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,173 @@
+package org.btsn.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Background writer for records that nothing reads back on the token path
+ * (instrumentation rows such as TRANSITION_FIRINGS and TOKEN_GENEALOGY).
+ *
+ * offer() only queues the record; a daemon worker takes what is queued and
+ * hands it to the sink in batches of up to maxBatch, so a sink can write a
+ * batch with one connection and one commit instead of one insert per record.
+ *
+ * Nothing is dropped: when the worker falls capacity records behind, or the
+ * writer has been closed, offer() writes the record through the sink on the
+ * calling thread.
+ *
+ * Readers of what a writer writes call flushAll() first (collection of the
+ * analysis data) and ServiceLoader calls closeAll() at shutdown, which
+ * writes whatever is still queued.
+ */
+public class AsyncBatchWriter<T> {
+
+	private static final Logger logger = Logger.getLogger(AsyncBatchWriter.class);
+
+	/** Longest flushAll() waits on one writer */
+	private static final long FLUSH_TIMEOUT_MS = 5000;
+
+	private static final List<AsyncBatchWriter<?>> writers = new CopyOnWriteArrayList<>();
+
+	private final String name;
+	private final int maxBatch;
+	private final Consumer<List<T>> sink;
+	private final BlockingQueue<T> pending;
+	private final Thread worker;
+
+	// Records offered / handed to the sink, for flush()
+	private final Object progress = new Object();
+	private long offered = 0;
+	private long written = 0;
+
+	private volatile boolean closed = false;
+
+	public AsyncBatchWriter(String name, int capacity, int maxBatch, Consumer<List<T>> sink) {
+		this.name = name;
+		this.maxBatch = Math.max(1, maxBatch);
+		this.sink = sink;
+		this.pending = new ArrayBlockingQueue<>(Math.max(1, capacity));
+
+		worker = new Thread(this::drain, name);
+		worker.setDaemon(true);
+		worker.start();
+		writers.add(this);
+	}
+
+	/**
+	 * Queue a record, or write it inline when the queue is full or the
+	 * writer is closed.
+	 */
+	public void offer(T record) {
+		synchronized (progress) {
+			offered++;
+		}
+		if (closed || !pending.offer(record)) {
+			write(Collections.singletonList(record));
+		}
+	}
+
+	/**
+	 * Wait until everything offered so far has been written.
+	 *
+	 * @return false if timeoutMs passed first
+	 */
+	public boolean flush(long timeoutMs) {
+		long deadline = System.currentTimeMillis() + timeoutMs;
+		synchronized (progress) {
+			long target = offered;
+			while (written < target) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return false;
+				}
+				try {
+					progress.wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Write what is queued and stop the worker.
+	 */
+	public void close() {
+		closed = true;
+		worker.interrupt();
+		try {
+			worker.join(FLUSH_TIMEOUT_MS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// Records queued after the worker's last drain
+		List<T> rest = new ArrayList<>();
+		pending.drainTo(rest);
+		if (!rest.isEmpty()) {
+			write(rest);
+		}
+		writers.remove(this);
+	}
+
+	/**
+	 * Flush every writer in this JVM (before reading what they write).
+	 */
+	public static void flushAll() {
+		for (AsyncBatchWriter<?> writer : writers) {
+			if (!writer.flush(FLUSH_TIMEOUT_MS)) {
+				logger.warn("AsyncBatchWriter " + writer.name + ": records still queued after "
+						+ FLUSH_TIMEOUT_MS + "ms");
+			}
+		}
+	}
+
+	/**
+	 * Close every writer in this JVM (ServiceLoader shutdown).
+	 */
+	public static void closeAll() {
+		for (AsyncBatchWriter<?> writer : writers) {
+			writer.close();
+		}
+	}
+
+	private void drain() {
+		List<T> batch = new ArrayList<>(maxBatch);
+		while (true) {
+			try {
+				batch.add(pending.take());
+			} catch (InterruptedException e) {
+				// Closed - write whatever is still queued
+				pending.drainTo(batch);
+				if (!batch.isEmpty()) {
+					write(batch);
+				}
+				return;
+			}
+			pending.drainTo(batch, maxBatch - 1);
+			write(batch);
+			batch = new ArrayList<>(maxBatch);
+		}
+	}
+
+	private void write(List<T> batch) {
+		try {
+			sink.accept(batch);
+		} catch (RuntimeException e) {
+			logger.error("AsyncBatchWriter " + name + ": failed to write " + batch.size() + " records", e);
+		} finally {
+			synchronized (progress) {
+				written += batch.size();
+				progress.notifyAll();
+			}
+		}
+	}
+}
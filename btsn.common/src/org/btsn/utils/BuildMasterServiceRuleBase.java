@@ -177,7 +177,7 @@ public class BuildMasterServiceRuleBase {
         this.basePath = foundBasePath;
         this.commonPath = foundCommonPath;
         this.ruleBasePath = commonPath + File.separator + "RuleBase";  // Only search RuleBase directory
-        this.outputPath = commonPath + File.separator + "RuleFolder." + version;
+        this.outputPath = Replication.ruleFolder(new File(commonPath), version).getPath();
         System.out.println("DEBUG: outputPath set to: '" + outputPath + "'");
         printBuildConfiguration();
     }
@@ -734,7 +734,7 @@ public class BuildMasterServiceRuleBase {
     private void writeMasterFile() throws IOException {
         // Write to current working directory
         File currentDir = new File("").getAbsoluteFile();
-        String localOutputPath = currentDir.getAbsolutePath() + File.separator + "RuleFolder." + version;
+        String localOutputPath = Replication.ruleFolder(currentDir, version).getAbsolutePath();
         Files.createDirectories(Paths.get(localOutputPath));
         String localOutputFile = localOutputPath + File.separator + "Service.ruleml";
         Files.write(Paths.get(localOutputFile), masterContent.toString().getBytes());
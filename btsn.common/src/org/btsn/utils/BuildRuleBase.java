@@ -86,11 +86,15 @@ public class BuildRuleBase {
 
 		File appBase = new File("");
 		String path = appBase.getAbsolutePath();
-		String rulePath = path + "/RuleFolder." + buildVersion + "/";
+		String rulePath = Replication.ruleFolder(new File(path), lbuildVersion).getPath() + "/";
 		String operationRulePath = rulePath + operationName;
 		String controlNodeRuleFile = serviceName + controlFileName;
 
-		PrintWriter pw = new PrintWriter(new FileOutputStream(operationRulePath + "/Service.ruleml"));
+		// Written next to Service.ruleml and moved over it when complete, so a
+		// ServiceThread reading the rules never sees a truncated file
+		Path serviceRuleFile = Paths.get(operationRulePath, "Service.ruleml");
+		Path pendingRuleFile = Files.createTempFile(serviceRuleFile.getParent(), "Service.ruleml", ".tmp");
+		PrintWriter pw = new PrintWriter(new FileOutputStream(pendingRuleFile.toFile()));
 
 		File commonBase = new File("../");
 		String commonPath = commonBase.getCanonicalPath();
@@ -119,6 +123,8 @@ public class BuildRuleBase {
 		
 		if (allRuleFiles.isEmpty()) {
 			System.err.println("WARNING: No rule files found in " + ruleBaseDir.getPath());
+			pw.close();
+			Files.deleteIfExists(pendingRuleFile);
 			return false;
 		}
 		
@@ -132,7 +138,7 @@ public class BuildRuleBase {
 
 		// Include version number
 		pw.println("<!-- Version On -->");
-		pw.println("<Data><Atom><Rel>Version</Rel><Ind>" + buildVersion + "</Ind></Atom></Data>");
+		pw.println("<Data><Atom><Rel>Version</Rel><Ind>" + lbuildVersion + "</Ind></Atom></Data>");
 		
 		// Process all discovered rule files
 		for (File ruleFile : allRuleFiles) {
@@ -170,6 +176,7 @@ public class BuildRuleBase {
 		pw.println("</Rulebase>");
 		pw.println("</Assert>");
 		pw.close();
+		RuleSnapshot.replace(pendingRuleFile, serviceRuleFile);
 		System.out.println("All files have been concatenated into Service.ruleml");
 		return true;
 	}
@@ -396,11 +403,11 @@ public class BuildRuleBase {
 		
 		if (currentPath.contains("eventgenerators")) {
 			// Running from eventgenerators - write to btsn.common shared location
-			rulePath = commonPath + "/btsn.common/RuleFolder." + buildVersion + "/";
+			rulePath = Replication.ruleFolder(new File(commonPath, "btsn.common"), buildVersion).getPath() + "/";
 			System.err.println("BuildRuleBase: Detected eventgenerators context, writing to COMMON: " + rulePath);
 		} else {
 			// Running from service project - write locally
-			rulePath = localPath + "/RuleFolder." + buildVersion + "/";
+			rulePath = Replication.ruleFolder(new File(localPath), buildVersion).getPath() + "/";
 			System.err.println("BuildRuleBase: Detected service context, writing to LOCAL: " + rulePath);
 		}
 		
@@ -474,7 +481,7 @@ public class BuildRuleBase {
 	static public void buildCandidateRuleBase(String[] ruleNames, String buildVersion) throws java.io.IOException {
 		File appBase = new File("");
 		String path = appBase.getAbsolutePath();
-		String rulePath = path + "/RuleFolder." + buildVersion + "/";
+		String rulePath = Replication.ruleFolder(new File(path), buildVersion).getPath() + "/";
 		File folder = new File(rulePath);
 		
 		try {
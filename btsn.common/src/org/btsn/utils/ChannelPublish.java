@@ -43,7 +43,7 @@ public class ChannelPublish {
 			// EventReactor: 10000 + (channelNumber * 1000) + basePort
 			int basePort = Integer.parseInt(port);
 			int channelOffset = channelNumber * 1000; // Same as ServiceLoader
-			int targetPort = 10000 + channelOffset + basePort; // Rule-based calculation
+			int targetPort = Replication.port(10000 + channelOffset + basePort); // Rule-based calculation
 			
 			// Log the rule-consistent calculation for debugging
 			System.out.println("=== ChannelPublish Rule-Based Target Calculation ===");
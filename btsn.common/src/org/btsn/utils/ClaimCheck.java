@@ -0,0 +1,490 @@
+package org.btsn.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+import org.btsn.metrics.MetricsRegistry;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+/**
+ * Claim-check storage for large token subtrees.
+ *
+ * Healthcare tokens accumulate every upstream service's results, so without
+ * this the payload grows with path length and more hops fall into
+ * EventPublisher's chunked transfer. With claim-check enabled, ServiceHelper
+ * checks large result fields into a content-addressed blob store and the
+ * token carries a small reference in their place:
+ *
+ *   {"$claim":"<sha-256 hex>","type":"json","length":5120}
+ *
+ * type is "json" for an object/array subtree and "text" for a string value
+ * (original_token). References are resolved lazily by the consuming side
+ * (TokenDocument.get(), JsonTokenParser, or expand() for services that take
+ * the token as a String), so the wire size stays roughly constant per hop.
+ *
+ * Stores:
+ *   LOCAL  - a directory shared by the services co-hosted on one machine
+ *            (default java.io.tmpdir/btsn-claimcheck), one file per blob
+ *            under a two-character fan-out directory
+ *   REMOTE - the stand-in blob service (ClaimCheckBlobService) over HTTP,
+ *            GET/PUT <blobServiceUrl>/blob/<hash>, for services on
+ *            different hosts
+ *
+ * Blobs are immutable and named by their content hash, so writes are
+ * idempotent: a subtree that is checked in again on a later hop (e.g. the
+ * unchanged original_token) is written again and the store ignores it (a
+ * file-exists check locally, a PUT the blob service verifies and drops
+ * remotely). Blobs are never deleted by the runtime - clear the store
+ * between experiment runs.
+ *
+ * Configuration (loaderSettings.xml, <ClaimCheckSettings>):
+ *   claimCheckEnabled  - check large fields in (default false). Resolution
+ *                        is always on, so a consumer never depends on its
+ *                        own setting to read a reference
+ *   thresholdChars     - minimum serialized size of a field to check in (default 1024)
+ *   storeType          - LOCAL (default) or REMOTE
+ *   storeDirectory     - LOCAL store directory
+ *   blobServiceUrl     - REMOTE store base URL, e.g. http://192.168.1.10:38900
+ */
+public class ClaimCheck {
+
+	private static final Logger logger = Logger.getLogger(ClaimCheck.class);
+
+	public static final String CLAIM_KEY = "$claim";
+	public static final String TYPE_KEY = "type";
+	public static final String LENGTH_KEY = "length";
+	public static final String TYPE_JSON = "json";
+	public static final String TYPE_TEXT = "text";
+
+	// Cheap pre-check before parsing text for references
+	private static final String CLAIM_MARKER = "\"" + CLAIM_KEY + "\"";
+
+	private static final int DEFAULT_THRESHOLD_CHARS = 1024;
+	private static final int CACHE_ENTRIES = 256;
+	private static final int HTTP_TIMEOUT_MS = 2000;
+
+	private static boolean enabled = false;
+	private static int thresholdChars = DEFAULT_THRESHOLD_CHARS;
+	private static BlobStore store;
+
+	// Recently checked-in or resolved blobs by hash - skips repeat reads. Not
+	// consulted on check-in: a hit says nothing about whether a remote store
+	// (or a pruned local directory) still holds the blob, so every check-in
+	// writes, and the stores ignore a blob they already have.
+	private static final Map<String, String> cache = Collections.synchronizedMap(
+			new LinkedHashMap<String, String>(CACHE_ENTRIES, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+					return size() > CACHE_ENTRIES;
+				}
+			});
+
+	private static final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	});
+
+	private static final LongAdder checkIns = MetricsRegistry.getInstance().counter(
+			"btsn_claimcheck_checkins_total", "Token fields replaced by a claim-check reference");
+	private static final LongAdder bytesOffloaded = MetricsRegistry.getInstance().counter(
+			"btsn_claimcheck_offloaded_chars_total", "Characters moved out of tokens into the claim-check store");
+	private static final LongAdder resolves = MetricsRegistry.getInstance().counter(
+			"btsn_claimcheck_resolves_total", "Claim-check references resolved");
+
+	static {
+		loadConfiguration();
+	}
+
+	/**
+	 * Blob storage keyed by content hash
+	 */
+	public interface BlobStore {
+		void put(String hash, byte[] content) throws IOException;
+
+		/**
+		 * @return the content, or null if no blob has this hash
+		 */
+		byte[] get(String hash) throws IOException;
+	}
+
+	/**
+	 * Directory store shared by co-hosted services
+	 */
+	public static class LocalBlobStore implements BlobStore {
+		private final File directory;
+
+		public LocalBlobStore(File directory) {
+			this.directory = directory;
+		}
+
+		private Path pathFor(String hash) {
+			return new File(new File(directory, hash.substring(0, 2)), hash).toPath();
+		}
+
+		@Override
+		public void put(String hash, byte[] content) throws IOException {
+			Path target = pathFor(hash);
+			if (Files.exists(target)) {
+				return;
+			}
+			Files.createDirectories(target.getParent());
+			// Write then rename, so a reader never sees a partial blob
+			Path temp = Files.createTempFile(target.getParent(), hash.substring(0, 8), ".tmp");
+			try {
+				Files.write(temp, content);
+				try {
+					Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+		}
+
+		@Override
+		public byte[] get(String hash) throws IOException {
+			Path path = pathFor(hash);
+			return Files.exists(path) ? Files.readAllBytes(path) : null;
+		}
+
+		public File getDirectory() {
+			return directory;
+		}
+	}
+
+	/**
+	 * Client for the stand-in blob service (ClaimCheckBlobService)
+	 */
+	public static class RemoteBlobStore implements BlobStore {
+		private final String baseUrl;
+
+		public RemoteBlobStore(String baseUrl) {
+			this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+		}
+
+		@Override
+		public void put(String hash, byte[] content) throws IOException {
+			HttpURLConnection connection = open(hash, "PUT");
+			connection.setDoOutput(true);
+			connection.setFixedLengthStreamingMode(content.length);
+			try (OutputStream os = connection.getOutputStream()) {
+				os.write(content);
+			}
+			int status = connection.getResponseCode();
+			connection.disconnect();
+			if (status / 100 != 2) {
+				throw new IOException("Blob service PUT " + hash + " returned HTTP " + status);
+			}
+		}
+
+		@Override
+		public byte[] get(String hash) throws IOException {
+			HttpURLConnection connection = open(hash, "GET");
+			try {
+				int status = connection.getResponseCode();
+				if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+					return null;
+				}
+				if (status / 100 != 2) {
+					throw new IOException("Blob service GET " + hash + " returned HTTP " + status);
+				}
+				try (InputStream is = connection.getInputStream()) {
+					return readFully(is);
+				}
+			} catch (FileNotFoundException e) {
+				return null;
+			} finally {
+				connection.disconnect();
+			}
+		}
+
+		private HttpURLConnection open(String hash, String method) throws IOException {
+			HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/blob/" + hash).openConnection();
+			connection.setRequestMethod(method);
+			connection.setConnectTimeout(HTTP_TIMEOUT_MS);
+			connection.setReadTimeout(HTTP_TIMEOUT_MS);
+			return connection;
+		}
+	}
+
+	// ========================================================================
+	// CHECK-IN
+	// ========================================================================
+
+	/**
+	 * True if large token fields should be checked in
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static int getThresholdChars() {
+		return thresholdChars;
+	}
+
+	/**
+	 * Replace a value by a claim-check reference if it is an object, array
+	 * or string whose serialized form is at least thresholdChars long.
+	 * Returns the value unchanged if it is small, already a reference, or
+	 * the store cannot be written (the token then simply stays large).
+	 */
+	public static Object checkIn(Object value) {
+		String type;
+		String content;
+		if (value instanceof JSONObject) {
+			if (isReference(value)) {
+				return value;
+			}
+			type = TYPE_JSON;
+			content = ((JSONObject) value).toJSONString();
+		} else if (value instanceof JSONArray) {
+			type = TYPE_JSON;
+			content = ((JSONArray) value).toJSONString();
+		} else if (value instanceof String) {
+			type = TYPE_TEXT;
+			content = (String) value;
+		} else {
+			return value;
+		}
+		if (content.length() < thresholdChars) {
+			return value;
+		}
+
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		String hash = hash(bytes);
+		try {
+			store.put(hash, bytes);
+			cache.put(hash, content);
+		} catch (IOException e) {
+			logger.warn("ClaimCheck: could not store " + content.length() + " chars, keeping inline: " + e.getMessage());
+			return value;
+		}
+		checkIns.increment();
+		bytesOffloaded.add(content.length());
+		return reference(hash, type, content.length());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONObject reference(String hash, String type, int length) {
+		JSONObject reference = new JSONObject();
+		reference.put(CLAIM_KEY, hash);
+		reference.put(TYPE_KEY, type);
+		reference.put(LENGTH_KEY, length);
+		return reference;
+	}
+
+	// ========================================================================
+	// RESOLUTION
+	// ========================================================================
+
+	public static boolean isReference(Object value) {
+		return value instanceof JSONObject && ((JSONObject) value).get(CLAIM_KEY) instanceof String;
+	}
+
+	/**
+	 * True if the text may contain references (a substring test - callers
+	 * skip parsing and expand() when it is false)
+	 */
+	public static boolean mayContainReferences(String text) {
+		return text != null && text.contains(CLAIM_MARKER);
+	}
+
+	/**
+	 * The value a reference stands for (a String for "text", the parsed
+	 * object/array for "json"); any other value is returned unchanged.
+	 * Nested references inside the resolved subtree are not resolved.
+	 * If the blob cannot be read the reference itself is returned and the
+	 * failure logged.
+	 */
+	public static Object resolve(Object value) {
+		if (!isReference(value)) {
+			return value;
+		}
+		JSONObject reference = (JSONObject) value;
+		String hash = (String) reference.get(CLAIM_KEY);
+		try {
+			String content = cache.get(hash);
+			if (content == null) {
+				byte[] bytes = store.get(hash);
+				if (bytes == null) {
+					logger.error("ClaimCheck: no blob for reference " + hash + " in " + describeStore());
+					return value;
+				}
+				content = new String(bytes, StandardCharsets.UTF_8);
+				cache.put(hash, content);
+			}
+			resolves.increment();
+			if (TYPE_TEXT.equals(reference.get(TYPE_KEY))) {
+				return content;
+			}
+			return new JSONParser().parse(content);
+		} catch (Exception e) {
+			logger.error("ClaimCheck: could not resolve reference " + hash + ": " + e.getMessage());
+			return value;
+		}
+	}
+
+	/**
+	 * Token text with every reference (including nested ones) replaced by
+	 * its content - for services that take the token as a String and read it
+	 * as text. Text without references is returned as-is.
+	 */
+	public static String expand(String text) {
+		if (!mayContainReferences(text)) {
+			return text;
+		}
+		try {
+			Object parsed = new JSONParser().parse(text);
+			return serialize(expandValue(parsed));
+		} catch (Exception e) {
+			logger.warn("ClaimCheck: could not expand token text: " + e.getMessage());
+			return text;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object expandValue(Object value) {
+		Object resolved = resolve(value);
+		if (resolved != value) {
+			return expandValue(resolved);
+		}
+		if (value instanceof JSONObject) {
+			JSONObject object = (JSONObject) value;
+			for (Object key : object.keySet()) {
+				object.put(key, expandValue(object.get(key)));
+			}
+		} else if (value instanceof JSONArray) {
+			JSONArray array = (JSONArray) value;
+			for (int i = 0; i < array.size(); i++) {
+				array.set(i, expandValue(array.get(i)));
+			}
+		}
+		return value;
+	}
+
+	private static String serialize(Object value) {
+		if (value instanceof JSONObject) {
+			return ((JSONObject) value).toJSONString();
+		}
+		if (value instanceof JSONArray) {
+			return ((JSONArray) value).toJSONString();
+		}
+		return String.valueOf(value);
+	}
+
+	// ========================================================================
+	// SUPPORT
+	// ========================================================================
+
+	static String hash(byte[] content) {
+		MessageDigest digest = digests.get();
+		digest.reset();
+		byte[] hash = digest.digest(content);
+		StringBuilder sb = new StringBuilder(hash.length * 2);
+		for (byte b : hash) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	static byte[] readFully(InputStream is) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int n;
+		while ((n = is.read(buffer)) > 0) {
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	private static String describeStore() {
+		if (store instanceof LocalBlobStore) {
+			return ((LocalBlobStore) store).getDirectory().getPath();
+		}
+		return store.getClass().getSimpleName();
+	}
+
+	/**
+	 * Replace the store (e.g. an in-process store for tests or benchmarks)
+	 */
+	public static synchronized void setStore(BlobStore blobStore) {
+		store = blobStore;
+		cache.clear();
+	}
+
+	public static synchronized void setEnabled(boolean enable, int threshold) {
+		enabled = enable;
+		thresholdChars = threshold;
+	}
+
+	static File defaultStoreDirectory() {
+		return new File(System.getProperty("java.io.tmpdir"), "btsn-claimcheck");
+	}
+
+	private static void loadConfiguration() {
+		File directory = defaultStoreDirectory();
+		String storeType = "LOCAL";
+		String blobServiceUrl = null;
+		try {
+			String loaderSettings = new File("./").getCanonicalPath() + "/ServiceLoaderQueries/loaderSettings.xml";
+			if (new File(loaderSettings).exists()) {
+				String xmlSettings = StringFileIO.readFileAsString(loaderSettings);
+				TreeMap<String, String> settingsMap = LoaderSettings.section(xmlSettings, "ClaimCheckSettings");
+
+				if (settingsMap.containsKey("claimCheckEnabled")) {
+					enabled = Boolean.valueOf(settingsMap.get("claimCheckEnabled").trim());
+				}
+				if (settingsMap.containsKey("thresholdChars")) {
+					thresholdChars = Integer.valueOf(settingsMap.get("thresholdChars").trim());
+				}
+				if (settingsMap.containsKey("storeType")) {
+					storeType = settingsMap.get("storeType").trim().toUpperCase();
+				}
+				if (settingsMap.containsKey("storeDirectory") && !settingsMap.get("storeDirectory").trim().isEmpty()) {
+					directory = new File(settingsMap.get("storeDirectory").trim());
+				}
+				if (settingsMap.containsKey("blobServiceUrl")) {
+					blobServiceUrl = settingsMap.get("blobServiceUrl").trim();
+				}
+			}
+		} catch (Exception e) {
+			logger.info("ClaimCheck: Using default configuration");
+		}
+
+		if ("REMOTE".equals(storeType) && blobServiceUrl != null && !blobServiceUrl.isEmpty()) {
+			store = new RemoteBlobStore(blobServiceUrl);
+		} else {
+			store = new LocalBlobStore(directory);
+		}
+		if (enabled) {
+			logger.info("ClaimCheck: enabled, fields >= " + thresholdChars + " chars go to " + describeStore());
+		}
+	}
+}
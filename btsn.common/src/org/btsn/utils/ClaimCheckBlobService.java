@@ -0,0 +1,109 @@
+package org.btsn.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+
+import org.apache.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stand-in blob service for claim-check storage across hosts.
+ *
+ * Serves GET/PUT /blob/<sha-256 hex> from a ClaimCheck.LocalBlobStore
+ * directory, so services on different machines can share the store by
+ * setting storeType REMOTE and blobServiceUrl in <ClaimCheckSettings>.
+ * Blobs are content-addressed and immutable: a PUT whose body does not
+ * hash to the SHA-256 in its URL is rejected with 400 and nothing is
+ * stored, and a PUT for a hash already stored is accepted and ignored.
+ *
+ * Usage: java org.btsn.utils.ClaimCheckBlobService [port] [directory]
+ */
+public class ClaimCheckBlobService {
+
+	private static final Logger logger = Logger.getLogger(ClaimCheckBlobService.class);
+	private static final int DEFAULT_PORT = 38900;
+	private static final int WORKER_THREADS = 8;
+
+	private final ClaimCheck.LocalBlobStore store;
+	private HttpServer server;
+
+	public ClaimCheckBlobService(File directory) {
+		this.store = new ClaimCheck.LocalBlobStore(directory);
+	}
+
+	public void start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.createContext("/blob/", this::handleBlob);
+		server.setExecutor(Executors.newFixedThreadPool(WORKER_THREADS, r -> {
+			Thread t = new Thread(r, "ClaimCheckBlobService");
+			t.setDaemon(true);
+			return t;
+		}));
+		server.start();
+		logger.info("Claim-check blob service listening on port " + port + ", store "
+				+ store.getDirectory().getPath());
+	}
+
+	private void handleBlob(HttpExchange exchange) throws IOException {
+		try {
+			String hash = exchange.getRequestURI().getPath().substring("/blob/".length());
+			if (!hash.matches("[0-9a-f]{64}")) {
+				exchange.sendResponseHeaders(400, -1);
+				return;
+			}
+			String method = exchange.getRequestMethod();
+			if ("GET".equalsIgnoreCase(method)) {
+				byte[] content = store.get(hash);
+				if (content == null) {
+					exchange.sendResponseHeaders(404, -1);
+					return;
+				}
+				exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+				exchange.sendResponseHeaders(200, content.length);
+				try (OutputStream os = exchange.getResponseBody()) {
+					os.write(content);
+				}
+			} else if ("PUT".equalsIgnoreCase(method)) {
+				byte[] content;
+				try (InputStream is = exchange.getRequestBody()) {
+					content = ClaimCheck.readFully(is);
+				}
+				if (!hash.equals(ClaimCheck.hash(content))) {
+					logger.warn("Rejected PUT for " + hash + ": body of " + content.length
+							+ " bytes does not match the hash");
+					exchange.sendResponseHeaders(400, -1);
+					return;
+				}
+				store.put(hash, content);
+				exchange.sendResponseHeaders(204, -1);
+			} else {
+				exchange.sendResponseHeaders(405, -1);
+			}
+		} catch (IOException e) {
+			logger.error("Blob request failed: " + e.getMessage());
+			exchange.sendResponseHeaders(500, -1);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	public void stop() {
+		if (server != null) {
+			server.stop(0);
+			server = null;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		File directory = args.length > 1 ? new File(args[1]) : ClaimCheck.defaultStoreDirectory();
+		new ClaimCheckBlobService(directory).start(port);
+		Thread.currentThread().join();
+	}
+}
@@ -0,0 +1,47 @@
+package org.btsn.utils;
+
+import java.util.TreeMap;
+
+/**
+ * Sections of a project's ServiceLoaderQueries/loaderSettings.xml, with
+ * per-run overrides.
+ *
+ * The projects of an experiment share their loaderSettings.xml files, so a
+ * parameter sweep cannot vary maxQueue, poolSize and the like by editing
+ * them. A system property btsn.loader.<Section>.<element> takes precedence
+ * over (or adds) that element of the section for the JVM it is set on:
+ *   -Dbtsn.loader.ReactorSettings.maxQueue=50
+ *   -Dbtsn.loader.MonitorSettings.enableCompletedJoinPriority=false
+ * SweepRunner passes set.btsn.loader.* and sweep.btsn.loader.* parameters
+ * to every JVM of a run this way.
+ */
+public final class LoaderSettings {
+
+	/** System property prefix of an override: btsn.loader.<Section>.<element> */
+	public static final String PROPERTY_PREFIX = "btsn.loader.";
+
+	private LoaderSettings() {
+	}
+
+	/**
+	 * The elements of one section of a loaderSettings.xml payload, e.g.
+	 * section(xml, "ReactorSettings"), overrides applied.
+	 */
+	public static TreeMap<String, String> section(String xmlSettings, String section) throws Exception {
+		return withOverrides(section, new XPathHelperCommon().findMultipleXMLItems(xmlSettings, "//" + section + "/*"));
+	}
+
+	/**
+	 * Apply the btsn.loader.<section>.* system properties to a section's
+	 * elements, read from loaderSettings.xml.
+	 */
+	public static TreeMap<String, String> withOverrides(String section, TreeMap<String, String> settings) {
+		String prefix = PROPERTY_PREFIX + section + ".";
+		for (String name : System.getProperties().stringPropertyNames()) {
+			if (name.startsWith(prefix) && name.length() > prefix.length()) {
+				settings.put(name.substring(prefix.length()), System.getProperty(name).trim());
+			}
+		}
+		return settings;
+	}
+}
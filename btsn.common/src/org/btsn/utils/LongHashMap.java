@@ -0,0 +1,211 @@
+package org.btsn.utils;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+/**
+ * Open-addressing hash map keyed on primitive longs.
+ *
+ * Used for a ServiceThread's own join window map, keyed on 64-bit
+ * TokenIds. Avoids a boxed Long key and a hash node per entry, and
+ * sortedKeys() sorts a primitive array instead of streaming boxed keys.
+ *
+ * Linear probing with backward-shift deletion (no tombstones), so long
+ * runs of put/remove as tokens come and go do not degrade lookups.
+ *
+ * All methods are synchronized on the map, so it is not for state shared
+ * by every ServiceThread in the JVM (argValPriorityMap, joinContributions,
+ * joinExpectedCounts): those stay ConcurrentHashMaps, whose reads take no
+ * lock and whose writes do not contend on one.
+ */
+public class LongHashMap<V> {
+
+	private static final int DEFAULT_CAPACITY = 64;
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private long[] keys;
+	private Object[] values;
+	private boolean[] used;
+	private int size;
+	private int resizeAt;
+
+	public LongHashMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LongHashMap(int expectedSize) {
+		allocate(tableSizeFor((int) (expectedSize / LOAD_FACTOR) + 1));
+	}
+
+	@SuppressWarnings("unchecked")
+	public synchronized V get(long key) {
+		int slot = find(key);
+		return slot < 0 ? null : (V) values[slot];
+	}
+
+	public synchronized boolean containsKey(long key) {
+		return find(key) >= 0;
+	}
+
+	/**
+	 * @return the previous value, or null
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized V put(long key, V value) {
+		int slot = find(key);
+		if (slot >= 0) {
+			V previous = (V) values[slot];
+			values[slot] = value;
+			return previous;
+		}
+		insert(key, value);
+		return null;
+	}
+
+	/**
+	 * @return the existing value, or null if value was stored
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized V putIfAbsent(long key, V value) {
+		int slot = find(key);
+		if (slot >= 0) {
+			return (V) values[slot];
+		}
+		insert(key, value);
+		return null;
+	}
+
+	/**
+	 * @return the existing value, or the one created and stored
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized V computeIfAbsent(long key, LongFunction<V> factory) {
+		int slot = find(key);
+		if (slot >= 0) {
+			return (V) values[slot];
+		}
+		V value = factory.apply(key);
+		insert(key, value);
+		return value;
+	}
+
+	/**
+	 * @return the removed value, or null
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized V remove(long key) {
+		int slot = find(key);
+		if (slot < 0) {
+			return null;
+		}
+		V previous = (V) values[slot];
+		deleteSlot(slot);
+		return previous;
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	public synchronized boolean isEmpty() {
+		return size == 0;
+	}
+
+	public synchronized void clear() {
+		Arrays.fill(used, false);
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	/**
+	 * Snapshot of the keys in ascending order.
+	 */
+	public synchronized long[] sortedKeys() {
+		long[] result = new long[size];
+		int n = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (used[i]) {
+				result[n++] = keys[i];
+			}
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	private int find(long key) {
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (used[slot]) {
+			if (keys[slot] == key) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void insert(long key, Object value) {
+		if (size >= resizeAt) {
+			rehash(keys.length * 2);
+		}
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (used[slot]) {
+			slot = (slot + 1) & mask;
+		}
+		used[slot] = true;
+		keys[slot] = key;
+		values[slot] = value;
+		size++;
+	}
+
+	private void deleteSlot(int slot) {
+		int mask = keys.length - 1;
+		int gap = slot;
+		int next = (gap + 1) & mask;
+		// Shift later entries of the probe run back over the gap
+		while (used[next]) {
+			int home = hash(keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = keys[next];
+				values[gap] = values[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		used[gap] = false;
+		values[gap] = null;
+		size--;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		boolean[] oldUsed = used;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				insert(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		used = new boolean[capacity];
+		size = 0;
+		resizeAt = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int hash(long key) {
+		// TokenIds differ mostly in their middle bits - mix before masking
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private static int tableSizeFor(int n) {
+		int capacity = Integer.highestOneBit(Math.max(n, 2) - 1) << 1;
+		return Math.max(capacity, 2);
+	}
+}
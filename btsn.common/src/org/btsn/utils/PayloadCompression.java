@@ -0,0 +1,199 @@
+package org.btsn.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Preset-dictionary compression for token datagrams.
+ *
+ * Token payloads are small and highly repetitive XML (payload/header/
+ * joinAttribute/monitorData elements, the xsi namespace, attribute names from
+ * the canonical bindings). Standalone GZIP cannot exploit that redundancy in
+ * a single small packet, so each packet is instead raw-deflated against a
+ * shared preset dictionary.
+ *
+ * Wire format:
+ *   byte 0-1 : MAGIC (0xBD 0x1C) - cannot collide with GZIP (0x1f 0x8b) or
+ *              plain-text payloads ('<', '{', '#')
+ *   byte 2   : dictionary version
+ *   byte 3.. : raw deflate stream (no zlib header/trailer)
+ *
+ * Dictionary versions:
+ *   1   - built in (see buildDefaultDictionary), derived from PayLoad/payload.xml
+ *         plus field names seen in live traffic
+ *   2.. - optional, loaded from PayLoad/payload-dict-v<N>.txt as produced by
+ *         PayloadDictionaryTrainer. Every host must have the same file.
+ *
+ * Deflater/Inflater instances are reused per thread (reset, not re-created).
+ */
+public class PayloadCompression {
+
+	public static final byte MAGIC_0 = (byte) 0xBD;
+	public static final byte MAGIC_1 = (byte) 0x1C;
+	public static final int HEADER_LENGTH = 3;
+	public static final int DEFAULT_DICTIONARY_VERSION = 1;
+
+	private static final String DICTIONARY_FOLDER = "PayLoad";
+	private static final String DICTIONARY_FILE_PREFIX = "payload-dict-v";
+
+	private static final ConcurrentHashMap<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+
+	private static final ThreadLocal<Deflater> deflaters = ThreadLocal
+			.withInitial(() -> new Deflater(Deflater.BEST_COMPRESSION, true));
+	private static final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(() -> new Inflater(true));
+	private static final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[8192]);
+
+	static {
+		dictionaries.put(DEFAULT_DICTIONARY_VERSION, buildDefaultDictionary().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * True if the datagram carries a dictionary-compressed payload
+	 */
+	public static boolean isDictionaryCompressed(byte[] data, int length) {
+		return length >= HEADER_LENGTH && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+	}
+
+	/**
+	 * Compress a payload with the given dictionary version.
+	 */
+	public static byte[] compress(String payload, int dictionaryVersion) throws IOException {
+		byte[] dictionary = getDictionary(dictionaryVersion);
+		byte[] input = payload.getBytes(StandardCharsets.UTF_8);
+
+		Deflater deflater = deflaters.get();
+		deflater.reset();
+		deflater.setDictionary(dictionary);
+		deflater.setInput(input);
+		deflater.finish();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + HEADER_LENGTH + 16);
+		out.write(MAGIC_0);
+		out.write(MAGIC_1);
+		out.write(dictionaryVersion);
+
+		byte[] buffer = buffers.get();
+		while (!deflater.finished()) {
+			int n = deflater.deflate(buffer);
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decompress a datagram produced by compress(). The dictionary version is
+	 * taken from the packet header.
+	 */
+	public static String decompress(byte[] data, int length) throws IOException {
+		if (!isDictionaryCompressed(data, length)) {
+			throw new IOException("Not a dictionary-compressed payload");
+		}
+		int dictionaryVersion = data[2] & 0xff;
+		byte[] dictionary = getDictionary(dictionaryVersion);
+
+		Inflater inflater = inflaters.get();
+		inflater.reset();
+		inflater.setDictionary(dictionary);
+		inflater.setInput(data, HEADER_LENGTH, length - HEADER_LENGTH);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(length * 4);
+		byte[] buffer = buffers.get();
+		try {
+			while (!inflater.finished()) {
+				int n = inflater.inflate(buffer);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new IOException("Truncated dictionary-compressed payload");
+				}
+				out.write(buffer, 0, n);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt dictionary-compressed payload (dictionary v" + dictionaryVersion + ")", e);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Look up a dictionary version, loading PayLoad/payload-dict-v<N>.txt on first use.
+	 */
+	public static byte[] getDictionary(int version) throws IOException {
+		byte[] dictionary = dictionaries.get(version);
+		if (dictionary != null) {
+			return dictionary;
+		}
+
+		File dictionaryFile = new File(DICTIONARY_FOLDER, DICTIONARY_FILE_PREFIX + version + ".txt");
+		if (!dictionaryFile.exists()) {
+			throw new IOException("Unknown payload dictionary version " + version + " (no "
+					+ dictionaryFile.getPath() + ")");
+		}
+		String contents = StringFileIO.readFileAsString(dictionaryFile.getPath());
+		if (contents == null) {
+			throw new IOException("Could not read " + dictionaryFile.getPath());
+		}
+		dictionary = contents.getBytes(StandardCharsets.UTF_8);
+		if (dictionary.length > 32 * 1024) {
+			// Deflate only uses the last 32K of the dictionary
+			byte[] tail = new byte[32 * 1024];
+			System.arraycopy(dictionary, dictionary.length - tail.length, tail, 0, tail.length);
+			dictionary = tail;
+		}
+		dictionaries.putIfAbsent(version, dictionary);
+		return dictionaries.get(version);
+	}
+
+	/**
+	 * Register a dictionary at runtime (used by the trainer and benchmark)
+	 */
+	public static void registerDictionary(int version, byte[] dictionary) {
+		dictionaries.put(version, dictionary);
+	}
+
+	/**
+	 * Built-in dictionary version 1. Deflate favours matches near the END of
+	 * the dictionary, so the most common fragments (the payload.xml element
+	 * structure) come last. Changing this string requires a new version
+	 * number - every host must agree on version 1.
+	 */
+	static String buildDefaultDictionary() {
+		StringBuilder sb = new StringBuilder(2048);
+
+		// Token JSON field names carried in attributeValue
+		sb.append("\"workflow_start_time\":\"routing_path\":\"routing_decision\":\"guard_result\":")
+		  .append("\"executionTime\":\"annotation\":\"marking\":\"placeId\":\"currentPlace\":")
+		  .append("\"original_token\":\"Results\":\"triageResults\":\"cardiologyResults\":")
+		  .append("\"assessmentData\":\"timestamp\":\"status\":\"COMPLETED\",\"PENDING\",")
+		  .append("\"JOIN_COMPLETED\",\"version\":\"v001\",\"tokenId\":\"sequenceId\":\"data\":{\"");
+
+		// Transition / instrumentation elements
+		sb.append("<transition><previousPlace></previousPlace><transitionId></transitionId>")
+		  .append("<transitionType></transitionType><parentTokenId></parentTokenId>")
+		  .append("<forkTransition></forkTransition></transition>")
+		  .append("<eventGeneratorTimestamp></eventGeneratorTimestamp>")
+		  .append("<sourceEventGenerator></sourceEventGenerator><completedJoin>true</completedJoin>");
+
+		// PayLoad/payload.xml skeleton
+		sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>")
+		  .append("<payload xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" ")
+		  .append("xsi:noNamespaceSchemaLocation=\"payload.xsd\">\n\t<header>\n")
+		  .append("\t\t<type>process</type>\n\t\t<ruleBaseVersion>v001</ruleBaseVersion>\n")
+		  .append("\t\t<ruleBaseCommitment>0</ruleBaseCommitment>\n\t\t<sequenceId>1000000</sequenceId>\n")
+		  .append("\t\t<priortiseSID>0</priortiseSID>\n\t\t<monitorIncomingEvents>true</monitorIncomingEvents>\n")
+		  .append("\t\t<activityCount>0</activityCount>\n\t\t<status>0</status>\n\t</header>\n\n")
+		  .append("\t<service>\n\t\t<serviceName>null</serviceName>\n\t\t<operation>null</operation>\n")
+		  .append("\t</service>\n\t\n\t<joinAttribute>\n\t\t<attributeName>token</attributeName>\n")
+		  .append("\t\t<attributeValue>{\"</attributeValue>\n\t\t<notBefore>0</notBefore>\n")
+		  .append("\t\t<notAfter>0</notAfter>\n\t</joinAttribute>\n\t\n\t<monitorData>\n")
+		  .append("\t\t<callingService>0</callingService>\n\t\t<eventArrivalTime>0</eventArrivalTime>\n")
+		  .append("\t\t<taskArrivalTime>0</taskArrivalTime>\n\t\t<processStartTime>0</processStartTime>\n")
+		  .append("\t\t<processElapsedTime>0</processElapsedTime>\n\t\t<lostEvents>0</lostEvents>\n")
+		  .append("\t</monitorData>\n</payload>");
+
+		return sb.toString();
+	}
+}
@@ -0,0 +1,173 @@
+package org.btsn.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares per-packet standalone GZIP (the EventPublisher/EventReactor
+ * default) with PayloadCompression preset-dictionary deflate.
+ *
+ * Reports mean wire size, compression ratio and CPU time per packet for
+ * compress and decompress. Samples are synthetic tokens built from
+ * PayLoad/payload.xml with varying sequenceIds, timestamps and JSON
+ * attribute values, plus any captured payloads in -samples <dir>.
+ *
+ * Usage:
+ *   java PayloadCompressionBenchmark [-payload PayLoad/payload.xml] [-samples dir] [-iterations 20000] [-dictionary 1]
+ */
+public class PayloadCompressionBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		String payloadFile = "PayLoad/payload.xml";
+		String samplesDir = null;
+		int iterations = 20000;
+		int dictionaryVersion = PayloadCompression.DEFAULT_DICTIONARY_VERSION;
+
+		for (int i = 0; i < args.length - 1; i++) {
+			switch (args[i]) {
+			case "-payload":
+				payloadFile = args[++i];
+				break;
+			case "-samples":
+				samplesDir = args[++i];
+				break;
+			case "-iterations":
+				iterations = Integer.parseInt(args[++i]);
+				break;
+			case "-dictionary":
+				dictionaryVersion = Integer.parseInt(args[++i]);
+				break;
+			}
+		}
+
+		List<String> samples = buildSamples(payloadFile, samplesDir);
+		System.out.println("=== PAYLOAD COMPRESSION BENCHMARK ===");
+		System.out.println("Samples: " + samples.size() + ", iterations: " + iterations + ", dictionary v"
+				+ dictionaryVersion);
+
+		// Warm up both paths so the JIT has compiled them
+		run(samples, iterations / 4, dictionaryVersion, false);
+		run(samples, iterations, dictionaryVersion, true);
+	}
+
+	private static void run(List<String> samples, int iterations, int dictionaryVersion, boolean report)
+			throws IOException {
+		long rawBytes = 0, gzipBytes = 0, dictBytes = 0;
+		long gzipCompressNs = 0, gzipDecompressNs = 0, dictCompressNs = 0, dictDecompressNs = 0;
+
+		for (int i = 0; i < iterations; i++) {
+			String payload = samples.get(i % samples.size());
+			rawBytes += payload.getBytes(StandardCharsets.UTF_8).length;
+
+			long t0 = System.nanoTime();
+			byte[] gz = gzip(payload);
+			long t1 = System.nanoTime();
+			String gzBack = gunzip(gz);
+			long t2 = System.nanoTime();
+			byte[] dict = PayloadCompression.compress(payload, dictionaryVersion);
+			long t3 = System.nanoTime();
+			String dictBack = PayloadCompression.decompress(dict, dict.length);
+			long t4 = System.nanoTime();
+
+			if (!payload.equals(gzBack) || !payload.equals(dictBack)) {
+				throw new IllegalStateException("Round trip mismatch on sample " + (i % samples.size()));
+			}
+
+			gzipBytes += gz.length;
+			dictBytes += dict.length;
+			gzipCompressNs += t1 - t0;
+			gzipDecompressNs += t2 - t1;
+			dictCompressNs += t3 - t2;
+			dictDecompressNs += t4 - t3;
+		}
+
+		if (!report) {
+			return;
+		}
+
+		System.out.println(String.format("%-12s %10s %8s %14s %16s", "Mode", "Bytes/pkt", "Ratio",
+				"Compress us", "Decompress us"));
+		System.out.println(String.format("%-12s %10d %8s %14s %16s", "raw", rawBytes / iterations, "1.00", "-",
+				"-"));
+		System.out.println(String.format("%-12s %10d %8.2f %14.2f %16.2f", "gzip", gzipBytes / iterations,
+				(double) rawBytes / gzipBytes, gzipCompressNs / 1000.0 / iterations,
+				gzipDecompressNs / 1000.0 / iterations));
+		System.out.println(String.format("%-12s %10d %8.2f %14.2f %16.2f", "dictionary", dictBytes / iterations,
+				(double) rawBytes / dictBytes, dictCompressNs / 1000.0 / iterations,
+				dictDecompressNs / 1000.0 / iterations));
+	}
+
+	private static List<String> buildSamples(String payloadFile, String samplesDir) {
+		List<String> samples = new ArrayList<>();
+		String skeleton = new File(payloadFile).exists() ? StringFileIO.readFileAsString(payloadFile) : null;
+		if (skeleton == null) {
+			System.out.println("No " + payloadFile + " - using built-in payload skeleton");
+			String dictionary = PayloadCompression.buildDefaultDictionary();
+			skeleton = dictionary.substring(dictionary.indexOf("<?xml"));
+		}
+
+		Random random = new Random(42);
+		String[] services = { "P1_Place", "P2_Place", "TriageService", "LaboratoryService", "RadiologyService" };
+		for (int i = 0; i < 200; i++) {
+			long now = 1_700_000_000_000L + random.nextInt(10_000_000);
+			int sequenceId = 1_000_000 + (i / 4) * 10_000 + (i % 4);
+			String service = services[i % services.length];
+			String token = "{\"tokenId\":\"" + sequenceId + "\",\"version\":\"v001\",\"workflow_start_time\":" + now
+					+ ",\"currentPlace\":\"" + service + "\",\"routing_path\":\"" + service + "\",\"status\":\""
+					+ (i % 3 == 0 ? "COMPLETED" : "PENDING") + "\",\"executionTime\":" + random.nextInt(500) + "}";
+			samples.add(skeleton
+					.replace("<sequenceId>0</sequenceId>", "<sequenceId>" + sequenceId + "</sequenceId>")
+					.replace("<ruleBaseVersion>0</ruleBaseVersion>", "<ruleBaseVersion>v001</ruleBaseVersion>")
+					.replace("<serviceName>null</serviceName>", "<serviceName>" + service + "</serviceName>")
+					.replace("<attributeName>0</attributeName>", "<attributeName>token</attributeName>")
+					.replace("<attributeValue>0</attributeValue>", "<attributeValue>" + token + "</attributeValue>")
+					.replace("<notAfter>0</notAfter>", "<notAfter>" + (now + 60_000) + "</notAfter>")
+					.replace("<eventArrivalTime>0</eventArrivalTime>",
+							"<eventArrivalTime>" + (now + random.nextInt(50)) + "</eventArrivalTime>")
+					.replace("<processStartTime>0</processStartTime>",
+							"<processStartTime>" + now + "</processStartTime>"));
+		}
+
+		if (samplesDir != null) {
+			File[] files = new File(samplesDir).listFiles((dir, name) -> name.endsWith(".xml"));
+			if (files != null) {
+				for (File f : files) {
+					String captured = StringFileIO.readFileAsString(f.getPath());
+					if (captured != null) {
+						samples.add(captured);
+					}
+				}
+			}
+		}
+		return samples;
+	}
+
+	private static byte[] gzip(String payload) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzipOut = new GZIPOutputStream(baos)) {
+			gzipOut.write(payload.getBytes(StandardCharsets.UTF_8));
+			gzipOut.finish();
+		}
+		return baos.toByteArray();
+	}
+
+	private static String gunzip(byte[] data) throws IOException {
+		try (GZIPInputStream gzipIn = new GZIPInputStream(new ByteArrayInputStream(data));
+				ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+			byte[] buffer = new byte[1024];
+			int len;
+			while ((len = gzipIn.read(buffer)) != -1) {
+				baos.write(buffer, 0, len);
+			}
+			return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package org.btsn.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds a preset compression dictionary for PayloadCompression from
+ * PayLoad/payload.xml plus a directory of captured token payloads.
+ *
+ * Fragments (XML tags, JSON keys, common values) are scored by
+ * occurrences x length across the samples; the highest scoring fragments are
+ * placed at the end of the dictionary, followed by the payload.xml skeleton,
+ * since deflate favours the most recent dictionary bytes.
+ *
+ * Usage:
+ *   java PayloadDictionaryTrainer -version 2 -samples captured/ [-payload PayLoad/payload.xml] [-size 16384]
+ *
+ * Output: PayLoad/payload-dict-v<version>.txt - copy it to the PayLoad folder
+ * of every place project before selecting it with <dictionaryVersion>.
+ */
+public class PayloadDictionaryTrainer {
+
+	private static final Pattern FRAGMENT_PATTERN = Pattern.compile(
+			"</?[A-Za-z_][A-Za-z0-9_]*>|\"[A-Za-z_][A-Za-z0-9_]{1,40}\":|\"[A-Za-z_][A-Za-z0-9_ ]{2,40}\"");
+
+	public static void main(String[] args) throws Exception {
+		int version = 2;
+		String samplesDir = null;
+		String payloadFile = "PayLoad/payload.xml";
+		int maxSize = 16 * 1024;
+
+		for (int i = 0; i < args.length - 1; i++) {
+			switch (args[i]) {
+			case "-version":
+				version = Integer.parseInt(args[++i]);
+				break;
+			case "-samples":
+				samplesDir = args[++i];
+				break;
+			case "-payload":
+				payloadFile = args[++i];
+				break;
+			case "-size":
+				maxSize = Integer.parseInt(args[++i]);
+				break;
+			}
+		}
+
+		if (version <= PayloadCompression.DEFAULT_DICTIONARY_VERSION || version > 255) {
+			System.err.println("Version must be 2-255 (version 1 is built in)");
+			System.exit(1);
+		}
+
+		String skeleton = StringFileIO.readFileAsString(payloadFile);
+		if (skeleton == null) {
+			System.err.println("Could not read payload skeleton: " + payloadFile);
+			System.exit(1);
+		}
+		List<String> samples = loadSamples(samplesDir);
+		System.out.println("Training dictionary v" + version + " from " + payloadFile + " + " + samples.size()
+				+ " samples");
+
+		String dictionary = train(skeleton, samples, maxSize);
+
+		File output = new File("PayLoad", "payload-dict-v" + version + ".txt");
+		StringFileIO.writeStringToFile(dictionary, output.getPath(), dictionary.getBytes().length);
+		System.out.println("Wrote " + dictionary.getBytes().length + " bytes to " + output.getPath());
+	}
+
+	/**
+	 * Build the dictionary string from the payload skeleton and sample payloads.
+	 */
+	public static String train(String skeleton, List<String> samples, int maxSize) {
+		Map<String, Long> scores = new HashMap<>();
+		for (String sample : samples) {
+			Matcher m = FRAGMENT_PATTERN.matcher(sample);
+			while (m.find()) {
+				String fragment = m.group();
+				scores.merge(fragment, (long) fragment.length(), Long::sum);
+			}
+		}
+
+		// Highest score last; skip fragments already covered by the skeleton
+		List<Map.Entry<String, Long>> ranked = new ArrayList<>(scores.entrySet());
+		ranked.sort(Map.Entry.comparingByValue());
+
+		int budget = maxSize - skeleton.getBytes(StandardCharsets.UTF_8).length;
+		List<String> chosen = new ArrayList<>();
+		for (int i = ranked.size() - 1; i >= 0 && budget > 0; i--) {
+			String fragment = ranked.get(i).getKey();
+			if (skeleton.contains(fragment)) {
+				continue;
+			}
+			int size = fragment.getBytes(StandardCharsets.UTF_8).length;
+			if (size <= budget) {
+				chosen.add(fragment);
+				budget -= size;
+			}
+		}
+
+		StringBuilder sb = new StringBuilder(maxSize);
+		for (int i = chosen.size() - 1; i >= 0; i--) {
+			sb.append(chosen.get(i));
+		}
+		sb.append(skeleton);
+		return sb.toString();
+	}
+
+	private static List<String> loadSamples(String samplesDir) throws IOException {
+		List<String> samples = new ArrayList<>();
+		if (samplesDir == null) {
+			return samples;
+		}
+		File[] files = new File(samplesDir).listFiles((dir, name) -> name.endsWith(".xml") || name.endsWith(".txt"));
+		if (files == null) {
+			return samples;
+		}
+		for (File f : files) {
+			samples.add(StringFileIO.readFileAsString(f.getPath()));
+		}
+		return samples;
+	}
+}
@@ -0,0 +1,218 @@
+package org.btsn.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Isolation for one replication of an experiment when several run side by
+ * side on the same host (see org.btsn.experiments.SweepRunner).
+ *
+ * A replication is identified by a slot number. Every fixed port in the
+ * system - EventReactor, RuleHandler, sync, commitment confirmation,
+ * shutdown and metrics ports - is moved by slot x PORT_BLOCK through
+ * port(), so the services, generators and rule deployer of one replication
+ * only ever talk to each other. The service base ports cluster around
+ * multiples of 100 (1000-1105, 1201-1206, 2001-2006, 2100-2107, ...
+ * 4300-4305) and rule versions are v001-v00n plus v999, so any round block
+ * would move some slot's port onto another service's base port. PORT_BLOCK
+ * is chosen so that for every slot below MAX_SLOTS the offset is not the
+ * distance between any two ports of the ip0 layout - reactor, publisher,
+ * rule handler, sync, commitment, metrics and shutdown - which is the
+ * channel replications on one host bind (ip1-ip3 are other hosts). New
+ * base ports must keep that true; the block is not a guarantee for ports
+ * added later.
+ *
+ * A replication also gets its own directory. ServiceLoader points
+ * derby.system.home at <directory>/<project> before Derby loads, so every
+ * relative database name (ServiceAnalysisDataBase, ...) opens a private
+ * copy, and keeps its shutdown control file there. Rule bases are kept
+ * there too (ruleFolder()): every run of a sweep regenerates and deploys
+ * RuleFolder.<version>, and runs side by side must not rebuild the files
+ * another run is reading.
+ *
+ * Configuration (system properties - the runner passes them to every
+ * forked JVM through JAVA_TOOL_OPTIONS, so the Ant build files need no
+ * change):
+ *   btsn.replication.slot  - 0 .. MAX_SLOTS-1 (default 0: the usual ports)
+ *   btsn.replication.dir   - replication directory (default: none, the
+ *                            project directories are used as before)
+ */
+public class Replication {
+
+	private static final Logger logger = Logger.getLogger(Replication.class);
+
+	public static final String SLOT_PROPERTY = "btsn.replication.slot";
+	public static final String DIR_PROPERTY = "btsn.replication.dir";
+
+	/** A project's rule base of one version is RuleFolder.<version> */
+	public static final String RULE_FOLDER_PREFIX = "RuleFolder.";
+
+	/** Port offset per replication slot (see the class comment before changing it) */
+	public static final int PORT_BLOCK = 1711;
+
+	/** Replications that fit the port layout side by side */
+	public static final int MAX_SLOTS = 10;
+
+	private static final int slot;
+	private static final File directory;
+
+	static {
+		int configuredSlot = 0;
+		String slotValue = System.getProperty(SLOT_PROPERTY);
+		if (slotValue != null) {
+			try {
+				configuredSlot = Integer.parseInt(slotValue.trim());
+			} catch (NumberFormatException e) {
+				logger.warn("Replication: invalid " + SLOT_PROPERTY + " '" + slotValue + "', using 0");
+			}
+			if (configuredSlot < 0 || configuredSlot >= MAX_SLOTS) {
+				logger.warn("Replication: slot " + configuredSlot + " outside 0.." + (MAX_SLOTS - 1) + ", using 0");
+				configuredSlot = 0;
+			}
+		}
+		slot = configuredSlot;
+
+		String dirValue = System.getProperty(DIR_PROPERTY);
+		directory = dirValue != null && !dirValue.trim().isEmpty() ? new File(dirValue.trim()) : null;
+
+		if (slot != 0 || directory != null) {
+			logger.info("Replication: slot " + slot + " (port offset +" + getPortOffset() + ")"
+					+ (directory != null ? ", directory " + directory.getPath() : ""));
+		}
+	}
+
+	private Replication() {
+	}
+
+	public static int getSlot() {
+		return slot;
+	}
+
+	public static int getPortOffset() {
+		return slot * PORT_BLOCK;
+	}
+
+	/**
+	 * A port from the fixed layout, moved into this replication's block.
+	 */
+	public static int port(int basePort) {
+		return basePort + getPortOffset();
+	}
+
+	/**
+	 * True when running as one replication of a sweep with its own directory.
+	 */
+	public static boolean isIsolated() {
+		return directory != null;
+	}
+
+	/**
+	 * This replication's directory for a project (created if needed), or null
+	 * when not isolated.
+	 */
+	public static File getProjectDirectory(String projectName) {
+		if (directory == null) {
+			return null;
+		}
+		File projectDirectory = new File(directory, projectName);
+		projectDirectory.mkdirs();
+		return projectDirectory;
+	}
+
+	/**
+	 * Point Derby at this replication's copy of the project databases. Must
+	 * run before the Derby driver loads; an explicit derby.system.home is
+	 * left alone. No-op when not isolated.
+	 */
+	public static void isolateDerby(String projectName) {
+		File projectDirectory = getProjectDirectory(projectName);
+		if (projectDirectory == null || System.getProperty("derby.system.home") != null) {
+			return;
+		}
+		System.setProperty("derby.system.home", projectDirectory.getAbsolutePath());
+		logger.info("Replication: derby.system.home = " + projectDirectory.getAbsolutePath());
+	}
+
+	/**
+	 * A project's RuleFolder.<version>. When isolated it is under this
+	 * replication's directory for the project, and starts as a copy of the
+	 * project's own folder (rules checked in with the project), if there is
+	 * one; otherwise it is the project's own folder, as before.
+	 */
+	public static File ruleFolder(File projectDirectory, String version) {
+		File shared = new File(projectDirectory, RULE_FOLDER_PREFIX + version);
+		if (directory == null) {
+			return shared;
+		}
+		File isolated = new File(getProjectDirectory(projectName(projectDirectory)), RULE_FOLDER_PREFIX + version);
+		if (!isolated.exists() && shared.isDirectory()) {
+			seed(shared, isolated);
+		}
+		return isolated;
+	}
+
+	/**
+	 * Copy a rule folder into place whole, so a process of this replication
+	 * that looks at the same time sees no folder or all of it.
+	 */
+	private static void seed(File shared, File isolated) {
+		Path source = shared.toPath();
+		Path staging = new File(isolated.getParentFile(), isolated.getName() + ".seeding-" + ProcessHandle.current().pid())
+				.toPath();
+		try (Stream<Path> walk = Files.walk(source)) {
+			List<Path> paths = walk.collect(Collectors.toList());
+			for (Path path : paths) {
+				Files.copy(path, staging.resolve(source.relativize(path).toString()),
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+			try {
+				Files.move(staging, isolated.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(staging, isolated.toPath());
+			}
+			logger.info("Replication: rule folder " + isolated.getPath() + " seeded from " + shared.getPath());
+		} catch (IOException e) {
+			deleteQuietly(staging.toFile());
+			// Unless another process of this replication seeded it first
+			if (!isolated.exists()) {
+				logger.warn("Replication: could not seed " + isolated.getPath() + " from " + shared.getPath() + ": "
+						+ e.getMessage());
+			}
+		}
+	}
+
+	private static void deleteQuietly(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				deleteQuietly(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static String projectName(File projectDirectory) {
+		try {
+			return projectDirectory.getCanonicalFile().getName();
+		} catch (IOException e) {
+			return projectDirectory.getAbsoluteFile().getName();
+		}
+	}
+
+	/**
+	 * Name of the current working directory - the project a ServiceLoader
+	 * was started in.
+	 */
+	public static String currentProjectName() {
+		return projectName(new File(""));
+	}
+}
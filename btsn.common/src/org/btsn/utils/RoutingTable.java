@@ -0,0 +1,350 @@
+package org.btsn.utils;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Pre-resolved addresses of every active service operation, as seen by one
+ * operation's rule base in one version.
+ *
+ * Routing a token used to cost an activeService query, a boundChannel query,
+ * parsing and validating the bound IP string, an InetAddress lookup, parsing
+ * the port and the 10000 + channel*1000 + port arithmetic - on every hop.
+ * None of that changes while a version is committed, so it is done once: the
+ * table reads all activeService(service, operation, channelId, port) and
+ * boundChannel(channelId, address) facts and keeps, per service:operation, the
+ * EventReactor's InetSocketAddress. A hop is then one map lookup.
+ *
+ * Each operation has its own Service.ruleml, and the activeService facts in
+ * one operation's rules need not match another's, so tables are kept per
+ * version:operation, as RuleSnapshot keeps rules: an operation routes only
+ * by a table built from its own rules.
+ *
+ * Tables are immutable. The committed table of a version:operation is
+ * replaced as a whole (copy-on-write map behind an AtomicReference) when
+ * RuleHandler commits new rules for that operation, so a reader sees either
+ * the old or the new table, never a mix. A table is authoritative for its
+ * version:operation: a service operation missing from it has no
+ * activeService override and is routed by its publishes facts, without
+ * querying for an override again. Bound addresses are resolved once, when
+ * the table is built; an activeService fact whose address does not resolve
+ * is logged and left out.
+ */
+public final class RoutingTable {
+
+	private static final Logger logger = Logger.getLogger(RoutingTable.class);
+
+	/** Base of the EventReactor port layout: 10000 + channel*1000 + port */
+	public static final int REACTOR_BASE_PORT = 10000;
+	public static final int CHANNEL_PORT_STRIDE = 1000;
+
+	// version:operation -> committed table; the map itself is never modified, only replaced
+	private static final AtomicReference<Map<String, RoutingTable>> committed =
+			new AtomicReference<>(Collections.emptyMap());
+
+	/**
+	 * One resolved destination
+	 */
+	public static final class Route {
+		private final String service;
+		private final String operation;
+		private final String channelId;
+		private final String address;
+		private final String port;
+		private final InetSocketAddress target;
+
+		Route(String service, String operation, String channelId, String address, String port,
+				InetSocketAddress target) {
+			this.service = service;
+			this.operation = operation;
+			this.channelId = channelId;
+			this.address = address;
+			this.port = port;
+			this.target = target;
+		}
+
+		public String getService() {
+			return service;
+		}
+
+		public String getOperation() {
+			return operation;
+		}
+
+		/** Channel id from the activeService fact, e.g. "ip0" */
+		public String getChannelId() {
+			return channelId;
+		}
+
+		/** Bound IP address of the channel, as written in the boundChannel fact */
+		public String getAddress() {
+			return address;
+		}
+
+		/** Base port from the activeService fact */
+		public String getPort() {
+			return port;
+		}
+
+		/** EventReactor socket address, replication offset applied */
+		public InetSocketAddress getTarget() {
+			return target;
+		}
+
+		@Override
+		public String toString() {
+			return service + "." + operation + " -> " + channelId + " " + address + ":" + target.getPort();
+		}
+	}
+
+	private final String version;
+	// Operation whose rule base the table was built from
+	private final String operation;
+	// Service -> operation -> route
+	private final Map<String, Map<String, Route>> routes;
+	private final int size;
+
+	private RoutingTable(String version, String operation, Map<String, Map<String, Route>> routes, int size) {
+		this.version = version;
+		this.operation = operation;
+		this.routes = routes;
+		this.size = size;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	/** The operation whose rule base the table was built from */
+	public String getOperation() {
+		return operation;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * The route for a service operation, or null if it has none in this version.
+	 */
+	public Route lookup(String service, String operation) {
+		Map<String, Route> operations = routes.get(service);
+		return operations != null ? operations.get(operation) : null;
+	}
+
+	// =========================================================================
+	// COMMITTED TABLES
+	// =========================================================================
+
+	/**
+	 * The committed table of an operation in a version, or null if none has
+	 * been built yet.
+	 */
+	public static RoutingTable forOperation(String version, String operation) {
+		return version == null || operation == null ? null : committed.get().get(key(version, operation));
+	}
+
+	/**
+	 * Make a table the committed one of its operation, replacing any previous one.
+	 */
+	public static void commit(RoutingTable table) {
+		swap(table, true);
+	}
+
+	/**
+	 * Commit a table unless its operation already has one. Returns the table
+	 * that is committed afterwards.
+	 */
+	public static RoutingTable commitIfAbsent(RoutingTable table) {
+		return swap(table, false);
+	}
+
+	/**
+	 * Drop the committed table of an operation in a version; the next token
+	 * that operation routes under it builds a new one from its knowledge base.
+	 */
+	public static void discard(String version, String operation) {
+		String key = key(version, operation);
+		while (true) {
+			Map<String, RoutingTable> current = committed.get();
+			if (!current.containsKey(key)) {
+				return;
+			}
+			Map<String, RoutingTable> next = new HashMap<>(current);
+			next.remove(key);
+			if (committed.compareAndSet(current, Collections.unmodifiableMap(next))) {
+				logger.info("RoutingTable: discarded routes for " + key);
+				return;
+			}
+		}
+	}
+
+	private static RoutingTable swap(RoutingTable table, boolean replace) {
+		String key = key(table.version, table.operation);
+		while (true) {
+			Map<String, RoutingTable> current = committed.get();
+			RoutingTable existing = current.get(key);
+			if (existing != null && !replace) {
+				return existing;
+			}
+			Map<String, RoutingTable> next = new HashMap<>(current);
+			next.put(key, table);
+			if (committed.compareAndSet(current, Collections.unmodifiableMap(next))) {
+				logger.info("RoutingTable: committed " + table.size() + " routes for " + key);
+				return table;
+			}
+		}
+	}
+
+	private static String key(String version, String operation) {
+		return version + ":" + operation;
+	}
+
+	// =========================================================================
+	// BUILDING
+	// =========================================================================
+
+	/**
+	 * Parse an operation's rule base file and build its table.
+	 */
+	public static RoutingTable load(String version, String operation, String ruleBaseFile) {
+		OOjdrewAPI oojdrew = new OOjdrewAPI();
+		oojdrew.parseKnowledgeBase(ruleBaseFile, true);
+		return build(version, operation, oojdrew);
+	}
+
+	/**
+	 * Build an operation's table from its knowledge base, already parsed.
+	 * Issues its own queries, so the caller's previous query results are
+	 * overwritten.
+	 */
+	public static RoutingTable build(String version, String ruleBaseOperation, OOjdrewAPI oojdrew) {
+		Map<String, String> boundChannels = new HashMap<>();
+		oojdrew.issueRuleMLQuery("<Query><Atom><Rel>boundChannel</Rel>"
+				+ "<Var>channelId</Var><Var>address</Var></Atom></Query>");
+		while (oojdrew.rowsReturned > 0) {
+			Map<String, String> row = row(oojdrew);
+			if (row.get("?channelId") != null && row.get("?address") != null) {
+				boundChannels.putIfAbsent(row.get("?channelId"), row.get("?address"));
+			}
+			if (!oojdrew.hasNext) {
+				break;
+			}
+			oojdrew.nextSolution();
+		}
+
+		Map<String, InetAddress> addresses = new HashMap<>();
+		Map<String, Map<String, Route>> routes = new HashMap<>();
+		int size = 0;
+		oojdrew.issueRuleMLQuery("<Query><Atom><Rel>activeService</Rel><Var>service</Var><Var>operation</Var>"
+				+ "<Var>channelId</Var><Var>port</Var></Atom></Query>");
+		while (oojdrew.rowsReturned > 0) {
+			Map<String, String> row = row(oojdrew);
+			String service = row.get("?service");
+			String operation = row.get("?operation");
+			String channelId = row.get("?channelId");
+			String port = row.get("?port");
+			String address = channelId != null ? boundChannels.get(channelId) : null;
+
+			if (service != null && operation != null && port != null && address != null) {
+				try {
+					InetAddress inetAddress = addresses.computeIfAbsent(address, RoutingTable::toInetAddress);
+					int reactorPort = reactorPort(channelId, Integer.parseInt(port.trim()));
+					Map<String, Route> operations = routes.computeIfAbsent(service, k -> new HashMap<>());
+					if (!operations.containsKey(operation)) {
+						operations.put(operation, new Route(service, operation, channelId, address, port,
+								new InetSocketAddress(inetAddress, reactorPort)));
+						size++;
+					}
+				} catch (IllegalArgumentException e) {
+					logger.warn("RoutingTable: skipping " + service + "." + operation + " (" + channelId + ":"
+							+ port + "): " + e.getMessage());
+				}
+			} else if (service != null && operation != null) {
+				logger.warn("RoutingTable: skipping " + service + "." + operation + " (" + channelId + ":" + port
+						+ "): no bound address");
+			}
+			if (!oojdrew.hasNext) {
+				break;
+			}
+			oojdrew.nextSolution();
+		}
+
+		logger.debug("RoutingTable: built " + size + " routes for " + key(version, ruleBaseOperation) + " from "
+				+ boundChannels.size() + " bound channels");
+		return new RoutingTable(version, ruleBaseOperation, routes, size);
+	}
+
+	// =========================================================================
+	// ADDRESSING
+	// =========================================================================
+
+	/**
+	 * EventReactor port for a base port on a channel: 10000 + channel*1000 +
+	 * port, moved into this replication's block. Channel ids other than
+	 * "ip<N>" count as channel 0.
+	 */
+	public static int reactorPort(String channelId, int basePort) {
+		return Replication.port(REACTOR_BASE_PORT + (channelNumber(channelId) * CHANNEL_PORT_STRIDE) + basePort);
+	}
+
+	/**
+	 * N of an "ip<N>" channel id, or 0.
+	 */
+	public static int channelNumber(String channelId) {
+		if (channelId != null && channelId.startsWith("ip")) {
+			try {
+				return Integer.parseInt(channelId.substring(2));
+			} catch (NumberFormatException e) {
+				logger.warn("RoutingTable: Could not parse channel number from ID: " + channelId);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * True for a dotted-quad IPv4 address (no lookup is needed to resolve it).
+	 */
+	public static boolean isIPv4Literal(String value) {
+		if (value == null) {
+			return false;
+		}
+		String[] parts = value.split("\\.");
+		if (parts.length != 4) {
+			return false;
+		}
+		try {
+			for (String part : parts) {
+				int num = Integer.parseInt(part);
+				if (num < 0 || num > 255) {
+					return false;
+				}
+			}
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private static InetAddress toInetAddress(String address) {
+		try {
+			return InetAddress.getByName(address);
+		} catch (java.net.UnknownHostException e) {
+			throw new IllegalArgumentException("unresolvable address " + address);
+		}
+	}
+
+	private static Map<String, String> row(OOjdrewAPI oojdrew) {
+		Map<String, String> row = new HashMap<>();
+		for (int i = 0; i < oojdrew.rowsReturned; i++) {
+			row.put(String.valueOf(oojdrew.rowData[i][0]), String.valueOf(oojdrew.rowData[i][1]));
+		}
+		return row;
+	}
+}
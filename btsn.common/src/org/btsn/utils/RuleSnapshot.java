@@ -0,0 +1,176 @@
+package org.btsn.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Immutable text of one operation's Service.ruleml in one rule base version.
+ *
+ * RuleHandler rebuilds an operation's Service.ruleml on its receive thread
+ * while the operation's ServiceThread may be reading the same file for a
+ * token. Reading it once into a snapshot and committing the snapshot as a
+ * whole means a ServiceThread parses either the old rules or the new ones,
+ * never a half-written file, and does no file I/O per token.
+ *
+ * Snapshots are committed per version:operation (copy-on-write map behind an
+ * AtomicReference, as RoutingTable does per version). RuleHandler commits a
+ * new snapshot after each rebuild; a ServiceThread loads the file itself the
+ * first time a version is seen and keeps whichever snapshot was committed
+ * first. The generation tells a reader whether the rules changed since it
+ * last parsed them.
+ */
+public final class RuleSnapshot {
+
+	private static final Logger logger = Logger.getLogger(RuleSnapshot.class);
+
+	// version:operation -> committed snapshot; the map itself is never modified, only replaced
+	private static final AtomicReference<Map<String, RuleSnapshot>> committed =
+			new AtomicReference<>(Collections.emptyMap());
+	private static final AtomicLong generations = new AtomicLong();
+
+	private final String version;
+	private final String operation;
+	private final String knowledgeBase;
+	private final long generation;
+
+	private RuleSnapshot(String version, String operation, String knowledgeBase) {
+		this.version = version;
+		this.operation = operation;
+		this.knowledgeBase = knowledgeBase;
+		this.generation = generations.incrementAndGet();
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public String getOperation() {
+		return operation;
+	}
+
+	/** The rule base text, as passed to OOjdrewAPI.parseKnowledgeBase(text, false) */
+	public String getKnowledgeBase() {
+		return knowledgeBase;
+	}
+
+	/** Increases with every snapshot read in this JVM */
+	public long getGeneration() {
+		return generation;
+	}
+
+	// =========================================================================
+	// COMMITTED SNAPSHOTS
+	// =========================================================================
+
+	/**
+	 * The committed snapshot of an operation, or null if none has been read yet.
+	 */
+	public static RuleSnapshot forOperation(String version, String operation) {
+		return committed.get().get(key(version, operation));
+	}
+
+	/**
+	 * The committed snapshot of an operation; reads and commits the rule base
+	 * file if there is none. Returns null if the file cannot be read.
+	 */
+	public static RuleSnapshot forOperation(String version, String operation, String ruleBaseFile) {
+		RuleSnapshot snapshot = forOperation(version, operation);
+		if (snapshot != null) {
+			return snapshot;
+		}
+		try {
+			return swap(load(version, operation, ruleBaseFile), false);
+		} catch (IOException e) {
+			logger.error("RuleSnapshot: could not read " + ruleBaseFile + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Make a snapshot the committed one of its operation, replacing any previous one.
+	 */
+	public static void commit(RuleSnapshot snapshot) {
+		swap(snapshot, true);
+	}
+
+	/**
+	 * Drop the committed snapshot of an operation in a version; the other
+	 * operations of the version keep theirs.
+	 */
+	public static void discard(String version, String operation) {
+		String key = key(version, operation);
+		while (true) {
+			Map<String, RuleSnapshot> current = committed.get();
+			if (!current.containsKey(key)) {
+				return;
+			}
+			Map<String, RuleSnapshot> next = new HashMap<>(current);
+			next.remove(key);
+			if (committed.compareAndSet(current, Collections.unmodifiableMap(next))) {
+				logger.info("RuleSnapshot: discarded rules for " + key);
+				return;
+			}
+		}
+	}
+
+	private static RuleSnapshot swap(RuleSnapshot snapshot, boolean replace) {
+		String key = key(snapshot.version, snapshot.operation);
+		while (true) {
+			Map<String, RuleSnapshot> current = committed.get();
+			RuleSnapshot existing = current.get(key);
+			if (existing != null && !replace) {
+				return existing;
+			}
+			Map<String, RuleSnapshot> next = new HashMap<>(current);
+			next.put(key, snapshot);
+			if (committed.compareAndSet(current, Collections.unmodifiableMap(next))) {
+				logger.info("RuleSnapshot: committed " + key + " generation " + snapshot.generation + " ("
+						+ snapshot.knowledgeBase.length() + " chars)");
+				return snapshot;
+			}
+		}
+	}
+
+	// =========================================================================
+	// READING
+	// =========================================================================
+
+	/**
+	 * Read a rule base file into a snapshot (not committed).
+	 */
+	public static RuleSnapshot load(String version, String operation, String ruleBaseFile) throws IOException {
+		String knowledgeBase = new String(Files.readAllBytes(Paths.get(ruleBaseFile)), StandardCharsets.UTF_8);
+		if (knowledgeBase.isEmpty()) {
+			throw new IOException("empty rule base " + ruleBaseFile);
+		}
+		return new RuleSnapshot(version, operation, knowledgeBase);
+	}
+
+	/**
+	 * Replace a file with one written next to it, in one step where the file
+	 * system allows, so readers never see the target half-written.
+	 */
+	public static void replace(Path written, Path target) throws IOException {
+		try {
+			Files.move(written, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(written, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static String key(String version, String operation) {
+		return version + ":" + operation;
+	}
+}
@@ -33,7 +33,7 @@ public class SequenceUtils {
      * Generate a provider ID based on service type and sequence
      */
     public static String generateProviderId(String serviceType, String sequenceId) {
-        int providerNumber = Integer.parseInt(sequenceId) % 1000;
+        long providerNumber = Long.parseLong(sequenceId) % 1000;
         return String.format("DR_%s_%d", serviceType.toUpperCase().substring(0, 4), providerNumber);
     }
     
@@ -0,0 +1,257 @@
+package org.btsn.utils;
+
+import java.io.File;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Clock for place hold times, token generation and recorded timestamps.
+ *
+ * REAL (default): now() is System.currentTimeMillis() and hold() sleeps -
+ * the original behaviour, where a ten-minute scenario takes ten minutes.
+ *
+ * VIRTUAL: a discrete-event mode in which nothing sleeps. Every token
+ * carries its own virtual time in monitorData/simTime - the instant it
+ * arrived at its current stage - and the thread processing it is bound to
+ * that time. Hold times advance the bound time instead of sleeping, and
+ * every timestamp taken through now() (workflow_start_time, eventArrivalTime,
+ * invocation/publish times, instrumentation records, the analysis database)
+ * is virtual time, so the same workflows and analysis run as fast as the
+ * tokens can be passed along.
+ *
+ * Queueing in virtual time: occupy() models each place as virtualServers
+ * servers. A hold starts when the token arrives or when the earliest server
+ * is free, whichever is later (the Lindley recursion), so waiting time
+ * builds up exactly as it would in real time as long as tokens reach a
+ * place in simTime order - the generator sends them in that order and the
+ * reactor orders its queue by arrival time in this mode.
+ *
+ * Virtual time starts at the generator's wall clock when the run starts, so
+ * timestamps stay absolute epoch milliseconds and all existing analysis
+ * (which works on differences) is unchanged.
+ *
+ * Configuration (loaderSettings.xml, <SimulationSettings>, or the system
+ * property btsn.clockMode which takes precedence):
+ *   clockMode       - REAL (default) or VIRTUAL
+ *   virtualServers  - concurrent holds per place in VIRTUAL mode (default 1)
+ */
+public class SimulationClock {
+
+	private static final Logger logger = Logger.getLogger(SimulationClock.class);
+
+	/** monitorData element carrying a token's virtual time */
+	public static final String SIM_TIME = "simTime";
+
+	private static boolean virtual = false;
+	private static int virtualServers = 1;
+
+	// Per thread: {virtual time of the token being processed, queueing delay
+	// accumulated by occupy()}; null = unbound
+	private static final ThreadLocal<long[]> tokenTime = new ThreadLocal<>();
+
+	// Latest virtual time seen in this JVM - the clock for unbound threads
+	private static final AtomicLong highWater = new AtomicLong(System.currentTimeMillis());
+
+	// Per place: the virtual time at which each server becomes free
+	private static final ConcurrentHashMap<String, long[]> serverFreeAt = new ConcurrentHashMap<>();
+
+	static {
+		loadConfiguration();
+	}
+
+	private SimulationClock() {
+	}
+
+	public static boolean isVirtual() {
+		return virtual;
+	}
+
+	/**
+	 * Current time: wall clock in REAL mode, the bound token's virtual time
+	 * (or the latest virtual time seen) in VIRTUAL mode.
+	 */
+	public static long now() {
+		if (!virtual) {
+			return System.currentTimeMillis();
+		}
+		long[] time = tokenTime.get();
+		return time != null ? time[0] : highWater.get();
+	}
+
+	/**
+	 * Bind this thread to a token's virtual time. No-op in REAL mode.
+	 */
+	public static void bind(long virtualTime) {
+		if (!virtual) {
+			return;
+		}
+		long[] time = tokenTime.get();
+		if (time == null) {
+			tokenTime.set(new long[] { virtualTime, 0 });
+		} else {
+			time[0] = virtualTime;
+		}
+		observe(virtualTime);
+	}
+
+	/**
+	 * Bind this thread to the simTime carried in a token's monitorData;
+	 * a token without one is bound to the latest virtual time seen. Starts
+	 * a new token, so the queueing delay is cleared.
+	 */
+	public static void bind(String simTime) {
+		if (!virtual) {
+			return;
+		}
+		bind(parseSimTime(simTime));
+		tokenTime.get()[1] = 0;
+	}
+
+	/**
+	 * Move the bound time forward to virtualTime if it is later - e.g. a
+	 * join completes at the latest of its branches' arrival times.
+	 */
+	public static void advanceTo(long virtualTime) {
+		if (virtual && virtualTime > now()) {
+			bind(virtualTime);
+		}
+	}
+
+	public static void unbind() {
+		tokenTime.remove();
+	}
+
+	/**
+	 * Hold for ms milliseconds: sleep in REAL mode, advance the bound time
+	 * in VIRTUAL mode.
+	 */
+	public static void hold(long ms) throws InterruptedException {
+		if (ms <= 0) {
+			return;
+		}
+		if (!virtual) {
+			Thread.sleep(ms);
+			return;
+		}
+		bind(now() + ms);
+	}
+
+	/**
+	 * Hold a server of a place for ms milliseconds. In VIRTUAL mode the hold
+	 * starts when a server is free (see class comment), so the bound time
+	 * advances by the queueing delay plus ms; in REAL mode this is hold(ms)
+	 * (the reactor queue does the waiting).
+	 *
+	 * @return virtual queueing delay before the hold started (0 in REAL mode)
+	 */
+	public static long occupy(String place, long ms) throws InterruptedException {
+		if (!virtual) {
+			hold(ms);
+			return 0;
+		}
+		long arrival = now();
+		long[] servers = serverFreeAt.computeIfAbsent(place, k -> new long[virtualServers]);
+		long start;
+		synchronized (servers) {
+			int earliest = 0;
+			for (int i = 1; i < servers.length; i++) {
+				if (servers[i] < servers[earliest]) {
+					earliest = i;
+				}
+			}
+			start = Math.max(arrival, servers[earliest]);
+			servers[earliest] = start + Math.max(0, ms);
+		}
+		bind(start + Math.max(0, ms));
+		tokenTime.get()[1] += start - arrival;
+		return start - arrival;
+	}
+
+	/**
+	 * Virtual queueing delay accumulated by occupy() on this thread since
+	 * the last call, then cleared. ServiceThread moves its invocation time
+	 * by this much, so queue time and service time are split as in REAL
+	 * mode, where the waiting happens in the reactor queue.
+	 */
+	public static long takeQueueDelay() {
+		long[] time = tokenTime.get();
+		if (time == null) {
+			return 0;
+		}
+		long delay = time[1];
+		time[1] = 0;
+		return delay;
+	}
+
+	/**
+	 * Forget server occupancy, e.g. between runs of a parameter sweep.
+	 */
+	public static void reset() {
+		serverFreeAt.clear();
+		highWater.set(System.currentTimeMillis());
+	}
+
+	/**
+	 * Switch mode programmatically (e.g. a sweep runner in one JVM).
+	 */
+	public static synchronized void setVirtual(boolean enable, int servers) {
+		virtual = enable;
+		virtualServers = Math.max(1, servers);
+		serverFreeAt.clear();
+	}
+
+	private static void observe(long virtualTime) {
+		long current;
+		while (virtualTime > (current = highWater.get())) {
+			if (highWater.compareAndSet(current, virtualTime)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * A token's monitorData/simTime, or the latest virtual time seen if it
+	 * has none (REAL mode: the wall clock).
+	 */
+	public static long parseSimTime(String simTime) {
+		long fallback = virtual ? highWater.get() : System.currentTimeMillis();
+		if (simTime == null || simTime.trim().isEmpty()) {
+			return fallback;
+		}
+		try {
+			return Long.parseLong(simTime.trim());
+		} catch (NumberFormatException e) {
+			return fallback;
+		}
+	}
+
+	private static void loadConfiguration() {
+		String clockMode = null;
+		try {
+			String loaderSettings = new File("./").getCanonicalPath() + "/ServiceLoaderQueries/loaderSettings.xml";
+			if (new File(loaderSettings).exists()) {
+				String xmlSettings = StringFileIO.readFileAsString(loaderSettings);
+				TreeMap<String, String> settingsMap = LoaderSettings.section(xmlSettings, "SimulationSettings");
+
+				clockMode = settingsMap.get("clockMode");
+				if (settingsMap.containsKey("virtualServers")) {
+					virtualServers = Math.max(1, Integer.parseInt(settingsMap.get("virtualServers").trim()));
+				}
+			}
+		} catch (Exception e) {
+			logger.info("SimulationClock: Using default configuration");
+		}
+
+		String override = System.getProperty("btsn.clockMode");
+		if (override != null) {
+			clockMode = override;
+		}
+		virtual = clockMode != null && "VIRTUAL".equalsIgnoreCase(clockMode.trim());
+		if (virtual) {
+			logger.info("SimulationClock: VIRTUAL time, " + virtualServers + " server(s) per place");
+		}
+	}
+}
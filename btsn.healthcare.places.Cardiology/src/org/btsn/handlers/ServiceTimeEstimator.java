@@ -0,0 +1,56 @@
+package org.btsn.handlers;
+
+/**
+ * Exponentially weighted moving average of recent service times for one
+ * operation. Fed by ServiceThread after each token and read by the
+ * EventReactor for deadline-aware ordering and admission control.
+ *
+ * Until warmupSamples observations have been seen the estimate is 0, so
+ * admission control never sheds on a cold start.
+ */
+class ServiceTimeEstimator {
+
+	private static final double DEFAULT_ALPHA = 0.2;
+	private static final int DEFAULT_WARMUP_SAMPLES = 5;
+
+	private final double alpha;
+	private final int warmupSamples;
+
+	private double average = 0.0;
+	private long samples = 0;
+
+	ServiceTimeEstimator() {
+		this(DEFAULT_ALPHA, DEFAULT_WARMUP_SAMPLES);
+	}
+
+	ServiceTimeEstimator(double alpha, int warmupSamples) {
+		this.alpha = alpha;
+		this.warmupSamples = warmupSamples;
+	}
+
+	synchronized void record(long serviceTimeMs) {
+		if (serviceTimeMs < 0) {
+			return;
+		}
+		if (samples == 0) {
+			average = serviceTimeMs;
+		} else {
+			average = alpha * serviceTimeMs + (1.0 - alpha) * average;
+		}
+		samples++;
+	}
+
+	/**
+	 * @return estimated service time in ms, or 0 while warming up
+	 */
+	synchronized long estimate() {
+		if (samples < warmupSamples) {
+			return 0L;
+		}
+		return Math.round(average);
+	}
+
+	synchronized long getSampleCount() {
+		return samples;
+	}
+}
@@ -5,6 +5,7 @@ import org.btsn.base.BaseServiceAssessment;
 import org.btsn.base.ServiceAssessment;
 import org.btsn.base.TokenInfo;
 import org.btsn.exceptions.ServiceProcessingException;
+import org.btsn.json.TokenDocument;
 
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -47,7 +48,7 @@ public class CardiologyService extends BaseHealthcareService {
     
     private static String generateCardiologistId(String sequenceID) {
         try {
-            return "DR_CARD_" + (Integer.parseInt(sequenceID) % 1000);
+            return "DR_CARD_" + (Long.parseLong(sequenceID) % 1000);
         } catch (NumberFormatException e) {
             return "DR_CARD_" + Math.abs(sequenceID.hashCode() % 1000);
         }
@@ -78,6 +79,17 @@ public class CardiologyService extends BaseHealthcareService {
         return businessResults;
     }
     
+    /**
+     * Parsed-form entry point - ServiceHelper passes the token it already parsed
+     * and enriches the returned document without parsing it again
+     */
+    public TokenDocument processCardiacAssessment(TokenDocument cleanBusinessData) {
+        System.out.printf("[%s] ========== CARDIAC ASSESSMENT START ==========\n", getPlaceId());
+        TokenDocument businessResults = processAssessment(cleanBusinessData);
+        System.out.printf("[%s] ========== CARDIAC ASSESSMENT COMPLETE ==========\n", getPlaceId());
+        return businessResults;
+    }
+    
     // ===== FRAMEWORK IMPLEMENTATION METHODS =====
     
     @Override
@@ -146,7 +146,7 @@ public class CardiologyServiceExample {
             System.out.println("Empty data result: " + emptyResult);
             
             // Test with null
-            String nullResult = service.processCardiacAssessment(null);
+            String nullResult = service.processCardiacAssessment((String) null);
             System.out.println("Null data result: " + nullResult);
             
             // Test with valid token format
@@ -2,20 +2,32 @@ package org.btsn.handlers;
 
 import java.io.*;
 import java.net.*;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+import org.btsn.metrics.LatencyHistogram;
+import org.btsn.metrics.MetricsRegistry;
+import org.btsn.metrics.TraceContext;
+import org.btsn.utils.LoaderSettings;
+import org.btsn.utils.PayloadCompression;
+import org.btsn.utils.Replication;
+import org.btsn.utils.SimulationClock;
 import org.btsn.utils.StringFileIO;
 import org.btsn.utils.XPathHelperCommon;
 
 /**
  * Windows 7 Compatible EventReactor using UDP with GZIP Decompression
+ * ENHANCED: Also accepts preset-dictionary packets (see PayloadCompression)
  * ENHANCED: Now supports automatic chunk reassembly for large payloads
  */
 public class EventReactor extends Thread {
@@ -26,17 +38,50 @@ public class EventReactor extends Thread {
 	private static int NETWORK_SERVER_THREAD_POOL_SIZE = 2;
 	private static boolean COMPRESSION_ENABLED = true;
 
-	private TreeMap<Long, String> costKeyTokenMap = new TreeMap<Long, String>();
+	// Accepted tokens, one costKey-ordered queue per priority class (PrioritySettings)
+	private PriorityClassQueue classQueue;
 	public static ConcurrentLinkedQueue<String> tokenQueue = new ConcurrentLinkedQueue<String>();
+	// Tokens whose async service has completed, routed by the ServiceThread ahead of new tokens
+	private final ArrayDeque<Runnable> resumedTokens = new ArrayDeque<Runnable>();
 
 	private Scheduler s2 = new Scheduler();
-	private TreeMap<Long, String> dataMap = new TreeMap<Long, String>();
+	private TreeMap<Long, TokenEnvelope> dataMap = new TreeMap<Long, TokenEnvelope>();
 	private XPathHelperCommon xph = new XPathHelperCommon();
 	private static int lostEvents = 0;
 
+	// lostEvents is JVM-wide, so it is exported once, without reactor labels
+	static {
+		MetricsRegistry.getInstance().counterFunction("btsn_reactor_lost_events_total",
+				"Tokens rejected by the Scheduler (full or expired)", () -> lostEvents);
+	}
+
+	// ============================================================================
+	// SCHEDULING POLICY AND ADMISSION CONTROL
+	// ============================================================================
+
+	private SchedulingPolicy schedulingPolicy = new SchedulingPolicy.SequencePriorityPolicy();
+	private boolean admissionControlEnabled = false;
+	private final ServiceTimeEstimator serviceTimeEstimator = new ServiceTimeEstimator();
+	private long arrivalCounter = 0;
+
+	// Per-policy counters (labelled policy/port in the MetricsRegistry)
+	private LongAdder admittedCounter;
+	private LongAdder rejectedFullCounter;
+	private LongAdder rejectedExpiredCounter;
+	private LongAdder shedDeadlineCounter;
+	private LongAdder rejectedDrainingCounter;
+	private LongAdder deadlineMetCounter;
+	private LongAdder deadlineMissedCounter;
+
+	// Publish to receipt, per transport path (see LocalTransport)
+	private LatencyHistogram localHopHistogram;
+	private LatencyHistogram udpHopHistogram;
+
 	// UDP components
 	private DatagramSocket serviceSocket;
 	private volatile boolean running = true;
+	// Set while ServiceLoader drains: new workflows are refused, in-flight tokens still admitted
+	private volatile boolean draining = false;
 	private String servicePort;
 	private final Logger logger = Logger.getLogger(EventReactor.class.getName());
 	
@@ -111,7 +156,7 @@ public class EventReactor extends Thread {
 	    String loaderSettings = serviceLoaderDirectory + "loaderSettings.xml";
 	    
 	    String xmlReactorSettings = StringFileIO.readFileAsString(loaderSettings);
-	    reactorMap = xph.findMultipleXMLItems(xmlReactorSettings, "//ReactorSettings/*");
+	    reactorMap = LoaderSettings.section(xmlReactorSettings, "ReactorSettings");
 	    MAXQUEUE = Integer.valueOf(reactorMap.get("maxQueue"));
 	    NETWORK_SERVER_THREAD_POOL_SIZE = Integer.valueOf(reactorMap.get("poolSize"));
 
@@ -120,6 +165,23 @@ public class EventReactor extends Thread {
 	        COMPRESSION_ENABLED = Boolean.valueOf(reactorMap.get("compressionEnabled"));
 	    }
 
+	    // Load scheduling policy and admission control if available
+	    if (reactorMap.containsKey("schedulingPolicy")) {
+	        schedulingPolicy = SchedulingPolicy.forName(reactorMap.get("schedulingPolicy"));
+	    }
+	    if (SimulationClock.isVirtual() && schedulingPolicy instanceof SchedulingPolicy.SequencePriorityPolicy) {
+	        // Tokens reach the reactor as fast as they are produced - serve them in simulated-time order
+	        schedulingPolicy = new SchedulingPolicy.ArrivalOrderPolicy();
+	    }
+	    if (reactorMap.containsKey("admissionControl")) {
+	        admissionControlEnabled = Boolean.parseBoolean(reactorMap.get("admissionControl").trim());
+	    }
+	    registerSchedulingMetrics();
+	    classQueue = new PriorityClassQueue(schedulingPolicy.getName(), servicePort);
+	    logger.info("EventReactor: Scheduling policy " + schedulingPolicy.getName() + 
+	               ", admission control " + (admissionControlEnabled ? "enabled" : "disabled") +
+	               ", priority classes " + PriorityClasses.getClassPolicy());
+
 	    try {
 	        // FIXED: Use the port directly as calculated by ServiceLoader
 	        // ServiceLoader already calculated: 10000 + (channelNumber * 1000) + ruleBasePort
@@ -141,6 +203,9 @@ public class EventReactor extends Thread {
 	        }
 	        serviceSocket.setSoTimeout(5000); // 5 second timeout to prevent blocking
 	        
+	        // Co-located publishers hand tokens for this port straight to deliverLocal()
+	        LocalTransport.register(finalPort, this);
+	        
 	        logger.info("EventReactor: Chunk reassembly enabled (buffer expiry: " + 
 	                   CHUNK_BUFFER_EXPIRY_MS + "ms)");
 	        
@@ -163,9 +228,14 @@ public class EventReactor extends Thread {
 	}
 
 	/**
-	 * Decompress payload using GZIP decompression
+	 * Decompress payload (preset-dictionary deflate or GZIP)
 	 */
 	private String decompressPayload(byte[] compressedData, int length) throws IOException {
+	    // Preset-dictionary packets are self-describing (magic + dictionary version)
+	    if (PayloadCompression.isDictionaryCompressed(compressedData, length)) {
+	        return PayloadCompression.decompress(compressedData, length);
+	    }
+	    
 	    if (!COMPRESSION_ENABLED) {
 	        return new String(compressedData, 0, length, "UTF-8");
 	    }
@@ -265,7 +335,62 @@ public class EventReactor extends Thread {
 	}
 	
 	/**
-	 * UDP message receiving loop with decompression and chunk reassembly
+	 * Route one token payload: chunk reassembly or straight to the priority queue
+	 */
+	private void dispatchPayload(String incomingPayload) throws InterruptedException, IOException {
+	    // Check if this is a chunked message
+	    if (isChunkedPayload(incomingPayload)) {
+	        // Handle chunk - may return reassembled payload or null if still waiting
+	        String reassembledPayload = handleChunk(incomingPayload);
+	        
+	        if (reassembledPayload != null) {
+	            // All chunks received - process the complete message
+	            logger.info("EventReactor: Chunk reassembly complete, processing full payload (" + 
+	                       reassembledPayload.length() + " chars)");
+	            recordHop(udpHopHistogram, reassembledPayload);
+	            putScheduledToken(reassembledPayload);
+	        }
+	        // If null, still waiting for more chunks - continue receiving
+	        
+	    } else {
+	        // Regular (non-chunked) message - process directly
+	        logger.fine("EventReactor: Processing non-chunked payload (" + 
+	                   incomingPayload.length() + " chars)");
+	        recordHop(udpHopHistogram, incomingPayload);
+	        putScheduledToken(incomingPayload);
+	    }
+	}
+
+	/**
+	 * A token from an operation in this JVM (LocalTransport) - the publisher's
+	 * envelope joins the queue as it is, with no XML to parse.
+	 */
+	void deliverLocal(TokenEnvelope token) throws InterruptedException {
+	    recordHop(localHopHistogram, LocalTransport.publishTime(token.monitorData()));
+	    putScheduledToken(token);
+	}
+
+	/**
+	 * A payload a co-located publisher has already serialized - parsed as a
+	 * received datagram would be.
+	 */
+	public void deliverLocal(String payload) throws InterruptedException {
+	    recordHop(localHopHistogram, payload);
+	    putScheduledToken(payload);
+	}
+
+	private void recordHop(LatencyHistogram histogram, String payload) {
+	    recordHop(histogram, LocalTransport.publishTime(payload));
+	}
+
+	private void recordHop(LatencyHistogram histogram, long publishTime) {
+	    if (publishTime > 0) {
+	        histogram.record(System.currentTimeMillis() - publishTime);
+	    }
+	}
+
+	/**
+	 * UDP message receiving loop with decompression, batch unpacking and chunk reassembly
 	 */
 	private void receiveLoop() {
 	    byte[] buffer = new byte[MAX_WIRE_LENGTH];
@@ -297,24 +422,19 @@ public class EventReactor extends Thread {
 	                continue;
 	            }
 	            
-	            // Check if this is a chunked message
-	            if (isChunkedPayload(incomingPayload)) {
-	                // Handle chunk - may return reassembled payload or null if still waiting
-	                String reassembledPayload = handleChunk(incomingPayload);
-	                
-	                if (reassembledPayload != null) {
-	                    // All chunks received - process the complete message
-	                    logger.info("EventReactor: Chunk reassembly complete, processing full payload (" + 
-	                               reassembledPayload.length() + " chars)");
-	                    putScheduledToken(reassembledPayload);
+	            // Micro-batched datagram from EventPublisher - unpack and dispatch each frame
+	            if (BatchFrame.isBatch(incomingPayload)) {
+	                try {
+	                    List<String> frames = BatchFrame.decode(incomingPayload);
+	                    logger.fine("EventReactor: Unpacking batch of " + frames.size() + " tokens");
+	                    for (String frame : frames) {
+	                        dispatchPayload(frame);
+	                    }
+	                } catch (IllegalArgumentException e) {
+	                    logger.log(Level.WARNING, "EventReactor: Discarding malformed batch frame", e);
 	                }
-	                // If null, still waiting for more chunks - continue receiving
-	                
 	            } else {
-	                // Regular (non-chunked) message - process directly
-	                logger.fine("EventReactor: Processing non-chunked payload (" + 
-	                           incomingPayload.length() + " chars)");
-	                putScheduledToken(incomingPayload);
+	                dispatchPayload(incomingPayload);
 	            }
 	            
 	        } catch (SocketTimeoutException e) {
@@ -536,6 +656,7 @@ public class EventReactor extends Thread {
 	 */
 	public void shutdown() {
 		running = false;
+		LocalTransport.unregister(Integer.parseInt(servicePort), this);
 		
 		// Clear any pending chunk buffers
 		int pendingChunks = chunkBuffers.size();
@@ -544,6 +665,8 @@ public class EventReactor extends Thread {
 		}
 		chunkBuffers.clear();
 		
+		unregisterSchedulingMetrics();
+		
 		if (serviceSocket != null && !serviceSocket.isClosed()) {
 			serviceSocket.close();
 			System.out.println("EventReactor: UDP socket closed successfully");
@@ -581,7 +704,7 @@ public class EventReactor extends Thread {
 	        // EventReactor: 10000 + (channelNumber * 100) + basePort offset
 	        int basePort = Integer.parseInt(originalPort);
 	        int channelOffset = channelNumber * 100;
-	        int targetPort = 10000 + channelOffset + (basePort % 100);
+	        int targetPort = Replication.port(10000 + channelOffset + (basePort % 100));
 	        
 	        byte[] data = payload.getBytes();
 	        DatagramPacket dp = new DatagramPacket(data, data.length, targetAddress, targetPort);
@@ -601,19 +724,35 @@ public class EventReactor extends Thread {
 	// In putScheduledToken() method, add this at the beginning:
 
 	/**
-	 * Same scheduling logic as original EventReactor - WITH DEBUG
+	 * A token received over UDP - its sections are parsed here, once, into
+	 * the envelope the Scheduler, the queue and the ServiceThread share
 	 */
-	public synchronized void putScheduledToken(String servicePacket) throws InterruptedException, IOException {
+	public void putScheduledToken(String servicePacket) throws InterruptedException {
 		// === DEBUG: Show what we received ===
 	//	System.out.println("=== DEBUG: EVENTREACTOR RECEIVED ===");
 	//	System.out.println(servicePacket);
 	//	System.out.println("=== END RECEIVED PACKET ===");
 		
-		int queueAction = MAXQUEUE - costKeyTokenMap.size();
+		TokenEnvelope token;
+		try {
+			token = TokenEnvelope.parse(servicePacket);
+		} catch (Exception e) {
+			System.out.println("=== EXCEPTION in XPath parsing ===");
+			e.printStackTrace();
+			return;
+		}
+		putScheduledToken(token);
+	}
+
+	/**
+	 * Same scheduling logic as original EventReactor - WITH DEBUG
+	 */
+	synchronized void putScheduledToken(TokenEnvelope token) throws InterruptedException {
+		int queueAction = MAXQUEUE - classQueue.size();
 		ArrayList<Long> pArgs = null;
 		
 		try {
-			pArgs = s2.prioritiseToken(queueAction, servicePacket);
+			pArgs = s2.prioritiseToken(queueAction, token);
 			
 			// === ADD POST-SCHEDULER DEBUG ===
 			//System.out.println("=== POST-SCHEDULER DEBUG ===");
@@ -623,7 +762,7 @@ public class EventReactor extends Thread {
 			}
 			System.out.println("queueAction: " + queueAction);
 			System.out.println("MAXQUEUE: " + MAXQUEUE);
-			System.out.println("costKeyTokenMap size before: " + costKeyTokenMap.size());
+			System.out.println("Queue size before: " + classQueue.size());
 			
 		} catch (Exception e) {
 			System.out.println("=== EXCEPTION in prioritiseToken ===");
@@ -631,12 +770,17 @@ public class EventReactor extends Thread {
 			return;
 		}
 		
-		TreeMap<String, String> headerMap = new TreeMap<String, String>();
-		TreeMap<String, String> serviceMap = new TreeMap<String, String>();
-		TreeMap<String, String> monitorDataMap = new TreeMap<String, String>();
+		TreeMap<String, String> headerMap = token.header();
+		TreeMap<String, String> monitorDataMap = token.monitorData();
 		
-		if (pArgs.get(0) == -1) {
+		long schedulerKey = pArgs.get(0);
+		if (schedulerKey < 0) {
 			lostEvents++;
+			if (schedulerKey == Scheduler.REJECT_EXPIRED) {
+				rejectedExpiredCounter.increment();
+			} else {
+				rejectedFullCounter.increment();
+			}
 			System.err.println("Discarded number of events: " + lostEvents);
 			System.out.println("=== EVENT REJECTED BY SCHEDULER ===");
 			return;
@@ -644,72 +788,110 @@ public class EventReactor extends Thread {
 		
 		// Event accepted by Scheduler - now process it
 		long sid = pArgs.get(1);
-		long costKey = pArgs.get(0);
+		long notAfter = pArgs.get(2);
+		long arrivalTime = pArgs.get(3);
+		long costKey = schedulerKey;
 		
 		System.out.println("=== EVENT ACCEPTED - PROCESSING ===");
 		System.out.println("costKey: " + costKey);
 		System.out.println("sid: " + sid);
-		
-		try {
-			headerMap = xph.findMultipleXMLItems(servicePacket, "//header/*");
-			serviceMap = xph.findMultipleXMLItems(servicePacket, "//service/*");
-			monitorDataMap = xph.findMultipleXMLItems(servicePacket, "//monitorData/*");
 
-		} catch (Exception e) {
-			System.out.println("=== EXCEPTION in XPath parsing ===");
-			e.printStackTrace();
+		// ====================================================================
+		// DRAIN
+		// While the ServiceLoader drains, a token that would start a workflow
+		// is refused. The event generators mark those workflowEntry=true and
+		// every ServiceThread clears the mark on the tokens it publishes, so
+		// tokens already inside a workflow, and later inputs to open joins,
+		// are admitted so they can complete. A refused token is a lost event,
+		// so a drained run does not count it as completed.
+		// ====================================================================
+		if (draining && "true".equals(headerMap.get(TokenEnvelope.WORKFLOW_ENTRY))
+				&& !ServiceThread.hasOpenJoin(sid)) {
+			lostEvents++;
+			rejectedDrainingCounter.increment();
+			System.err.println("DRAIN: Refusing new workflow token seqId=" + sid + " - ServiceLoader is draining");
 			return;
 		}
 		
-		// Update monitoring data
-		monitorDataMap.put("eventArrivalTime", Long.toString(System.currentTimeMillis()));
-		monitorDataMap.put("lostEvents", Long.toString(lostEvents));
-		
-		// Modify the service packet with updated monitoring data
-		servicePacket = xph.modifyMultipleXMLItems(servicePacket, "//monitorData/*", monitorDataMap);
-		servicePacket = xph.modifyMultipleXMLItems(servicePacket, "//headerMap/*", headerMap);
-
 		// ====================================================================
-		// PRIORITY COSTKEY OVERRIDE
-		// Replaces Scheduler's costKey with a two-tier priority scheme:
+		// PRIORITY COSTKEY FROM SCHEDULING POLICY
+		// The configured SchedulingPolicy replaces the Scheduler's costKey.
+		// SEQUENCE (default) is the original two-tier scheme:
 		//   Tier 0 (highest): Completed-join tokens  (completedJoin=true)
-		//   Tier 1 (normal):  All other tokens
-		// Within each tier, tokens are ordered by sequenceID which encodes
-		// version priority naturally (v001=1xxxxxx < v002=2xxxxxx < v003=3xxxxxx).
+		//   Tier 1 (normal):  All other tokens, ordered by sequenceID
+		// EDF orders each tier by notAfter, RELATIVE_DEADLINE by notAfter - arrival.
 		// TreeMap.firstKey() always dequeues the LOWEST costKey first.
 		// ====================================================================
 		boolean isCompletedJoin = "true".equals(monitorDataMap.get("completedJoin"));
-		long priorityCostKey = costKey; // fallback to Scheduler's key
+		long estimatedServiceTime = serviceTimeEstimator.estimate();
 		try {
 		    long sequenceId = Long.parseLong(headerMap.get("sequenceId"));
-		    // Completed joins: use raw sequenceId (lowest values dequeue first)
-		    // Normal tokens:   offset by 10B so they always sort after joins
-		    priorityCostKey = isCompletedJoin ? sequenceId : (10_000_000_000L + sequenceId);
+		    long priorityCostKey = schedulingPolicy.costKey(sequenceId, notAfter, arrivalTime, isCompletedJoin,
+		            arrivalCounter++, estimatedServiceTime);
 		    
 		    System.out.println("PRIORITY: seqId=" + sequenceId + 
 		        " version=" + headerMap.get("ruleBaseVersion") +
 		        " completedJoin=" + isCompletedJoin +
+		        " policy=" + schedulingPolicy.getName() +
 		        " schedulerKey=" + costKey + " -> priorityKey=" + priorityCostKey);
+		    costKey = priorityCostKey;
 		} catch (NumberFormatException e) {
 		    System.err.println("PRIORITY: Failed to parse sequenceId, using Scheduler costKey: " + costKey);
 		}
-		costKey = priorityCostKey;
+		
+		// Priority class from the header (PriorityClasses) - selects the queue
+		int priorityClass = PriorityClasses.indexOf(headerMap.get(PriorityClasses.HEADER_ELEMENT));
+		// Rule-base version - selects the sub-queue under versionFairness (VersionShares)
+		String ruleBaseVersion = VersionShares.versionOf(headerMap.get("ruleBaseVersion"), sid);
+		
+		// Never overwrite a queued token on a key collision
+		while (classQueue.containsKey(priorityClass, costKey)) {
+			costKey++;
+		}
+
+		// ====================================================================
+		// ADMISSION CONTROL
+		// Predict completion as (tokens ahead of this one + 1) x estimated
+		// service time. Tokens that cannot finish before notAfter are shed
+		// now rather than consuming service time and expiring downstream.
+		// Tokens belonging to an open join are always admitted.
+		// ====================================================================
+		if (admissionControlEnabled && estimatedServiceTime > 0
+				&& !ServiceThread.hasOpenJoin(sid)) {
+			int tokensAhead = classQueue.tokensAhead(priorityClass, costKey);
+			long predictedCompletion = arrivalTime + (tokensAhead + 1L) * estimatedServiceTime;
+			if (predictedCompletion > notAfter) {
+				lostEvents++;
+				shedDeadlineCounter.increment();
+				System.err.println("ADMISSION: Shedding seqId=" + sid + " - predicted completion " + 
+				                   predictedCompletion + " > notAfter " + notAfter + " (ahead=" + tokensAhead + 
+				                   ", est=" + estimatedServiceTime + "ms)");
+				return;
+			}
+		}
+		admittedCounter.increment();
+		
+		// Update monitoring data - in the envelope, which is serialized only if the token leaves over UDP
+		long receivedAt = SimulationClock.isVirtual() ? arrivalTime : System.currentTimeMillis();
+		monitorDataMap.put("eventArrivalTime", Long.toString(receivedAt));
+		monitorDataMap.put("lostEvents", Long.toString(lostEvents));
+		TraceContext.stampArrived(headerMap, receivedAt);
 
 		// Add to processing queue
 		System.out.println("=== ADDING TO PROCESSING QUEUE ===");
-		System.out.println("About to add costKey " + costKey + " to costKeyTokenMap");
+		System.out.println("About to add costKey " + costKey + " to class " + PriorityClasses.name(priorityClass));
 		
-		costKeyTokenMap.put(costKey, servicePacket);
+		classQueue.put(priorityClass, ruleBaseVersion, costKey, token, System.currentTimeMillis());
 		
-		System.out.println("Successfully added to costKeyTokenMap");
-		System.out.println("costKeyTokenMap size after: " + costKeyTokenMap.size());
+		System.out.println("Successfully added to class queue");
+		System.out.println("Queue size after: " + classQueue.size());
 		System.out.println("About to call notify() to wake up ServiceThread");
 		
 		notify();
 		
 	//	System.out.println("Called notify() - ServiceThread should now wake up");
 		
-		int bufferSize = costKeyTokenMap.size();
+		int bufferSize = classQueue.size();
 		if (bufferSize > maxBufferSeen) {
 			maxBufferSeen = bufferSize;
 			System.err.println("Maximum Buffer size seen is = " + maxBufferSeen);
@@ -751,19 +933,37 @@ public class EventReactor extends Thread {
 	    return returnArgs;
 	}
 	/**
-	 * Same token retrieval logic as original EventReactor
+	 * Next token: lowest costKey, between priority classes as PriorityClassQueue.poll() chooses.
+	 * Returns an empty map when woken only for a resumed token (takeResumedToken)
 	 */
-	public synchronized TreeMap<Long, String> getScheduledToken() throws InterruptedException {
-		long costKey;
+	synchronized TreeMap<Long, TokenEnvelope> getScheduledToken() throws InterruptedException {
 		dataMap.clear();
 		notify();
-		while (costKeyTokenMap.size() == 0)
+		while (classQueue.size() == 0 && resumedTokens.isEmpty())
 			wait();
-		costKey = costKeyTokenMap.firstKey();
-		dataMap.put(costKey, costKeyTokenMap.remove(costKey));
+		if (classQueue.size() == 0)
+			return dataMap;
+		Map.Entry<Long, TokenEnvelope> next = classQueue.poll(System.currentTimeMillis());
+		dataMap.put(next.getKey(), next.getValue());
 		return dataMap;
 	}
 
+	/**
+	 * Hand a token whose async service has completed back to the ServiceThread,
+	 * which routes it on its own thread
+	 */
+	public synchronized void putResumedToken(Runnable resume) {
+		resumedTokens.add(resume);
+		notifyAll();
+	}
+
+	/**
+	 * Next resumed token, or null if there is none
+	 */
+	public synchronized Runnable takeResumedToken() {
+		return resumedTokens.poll();
+	}
+
 	/**
 	 * FIFO token retrieval
 	 */
@@ -781,7 +981,7 @@ public class EventReactor extends Thread {
 	 * @return Current number of tokens waiting in buffer
 	 */
 	public synchronized int getQueueSize() {
-		return costKeyTokenMap.size();
+		return classQueue.size();
 	}
 	
 	/**
@@ -793,6 +993,13 @@ public class EventReactor extends Thread {
 		return maxBufferSeen;
 	}
 	
+	/**
+	 * Refuse (or again accept) tokens that would start a new workflow.
+	 */
+	public void setDraining(boolean draining) {
+		this.draining = draining;
+	}
+	
 	/**
 	 * Get configured maximum queue capacity
 	 * 
@@ -810,7 +1017,94 @@ public class EventReactor extends Thread {
 	public synchronized int getLostEvents() {
 		return lostEvents;
 	}
+
+	/**
+	 * Count a token lost after admission (its async service failed)
+	 */
+	public synchronized void recordLostEvent() {
+		lostEvents++;
+	}
 	
+	/**
+	 * Register the per-policy scheduling counters
+	 */
+	private void registerSchedulingMetrics() {
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+		String policy = schedulingPolicy.getName();
+
+		admittedCounter = metrics.counter("btsn_sched_admitted_total",
+				"Tokens admitted to the reactor queue", "policy", policy, "port", servicePort);
+		rejectedFullCounter = metrics.counter("btsn_sched_rejected_total",
+				"Tokens rejected by the reactor", "policy", policy, "port", servicePort, "reason", "queue_full");
+		rejectedExpiredCounter = metrics.counter("btsn_sched_rejected_total",
+				"Tokens rejected by the reactor", "policy", policy, "port", servicePort, "reason", "expired");
+		shedDeadlineCounter = metrics.counter("btsn_sched_rejected_total",
+				"Tokens rejected by the reactor", "policy", policy, "port", servicePort, "reason", "admission");
+		rejectedDrainingCounter = metrics.counter("btsn_sched_rejected_total",
+				"Tokens rejected by the reactor", "policy", policy, "port", servicePort, "reason", "draining");
+		deadlineMetCounter = metrics.counter("btsn_sched_deadline_met_total",
+				"Tokens completed before notAfter", "policy", policy, "port", servicePort);
+		deadlineMissedCounter = metrics.counter("btsn_sched_deadline_missed_total",
+				"Tokens completed after notAfter", "policy", policy, "port", servicePort);
+		localHopHistogram = metrics.histogram("btsn_transport_hop_ms",
+				"Publish to EventReactor receipt", "path", "local", "port", servicePort);
+		udpHopHistogram = metrics.histogram("btsn_transport_hop_ms",
+				"Publish to EventReactor receipt", "path", "udp", "port", servicePort);
+		metrics.gauge("btsn_sched_estimated_service_time_ms", "EWMA service time used for admission control",
+				serviceTimeEstimator::estimate, "policy", policy, "port", servicePort);
+	}
+
+	/**
+	 * Remove exactly the series registerSchedulingMetrics and the class queue
+	 * registered for this reactor
+	 */
+	private void unregisterSchedulingMetrics() {
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+		String policy = schedulingPolicy.getName();
+
+		metrics.unregister("btsn_sched_admitted_total", "policy", policy, "port", servicePort);
+		for (String reason : new String[] { "queue_full", "expired", "admission", "draining" }) {
+			metrics.unregister("btsn_sched_rejected_total", "policy", policy, "port", servicePort, "reason", reason);
+		}
+		metrics.unregister("btsn_sched_deadline_met_total", "policy", policy, "port", servicePort);
+		metrics.unregister("btsn_sched_deadline_missed_total", "policy", policy, "port", servicePort);
+		metrics.unregister("btsn_transport_hop_ms", "path", "local", "port", servicePort);
+		metrics.unregister("btsn_transport_hop_ms", "path", "udp", "port", servicePort);
+		metrics.unregister("btsn_sched_estimated_service_time_ms", "policy", policy, "port", servicePort);
+		synchronized (this) {
+			if (classQueue != null) {
+				classQueue.unregisterMetrics();
+			}
+		}
+	}
+
+	/**
+	 * Called by ServiceThread after each token is processed. Feeds the service
+	 * time estimator and records whether the token met its deadline.
+	 * 
+	 * @param serviceTimeMs time from invocation to publish
+	 * @param completionTime publish time (ms)
+	 * @param notAfter token deadline, or 0 if unknown
+	 */
+	public void recordServiceCompletion(long serviceTimeMs, long completionTime, long notAfter) {
+		serviceTimeEstimator.record(serviceTimeMs);
+		if (notAfter <= 0) {
+			return;
+		}
+		if (completionTime <= notAfter) {
+			deadlineMetCounter.increment();
+		} else {
+			deadlineMissedCounter.increment();
+		}
+	}
+
+	/**
+	 * Get the active scheduling policy name
+	 */
+	public String getSchedulingPolicyName() {
+		return schedulingPolicy.getName();
+	}
+
 	/**
 	 * Get count of pending chunk buffers (for monitoring)
 	 * 
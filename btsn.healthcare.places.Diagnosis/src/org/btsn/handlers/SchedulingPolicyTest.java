@@ -0,0 +1,89 @@
+package org.btsn.handlers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Procedural test suite for the SchedulingPolicy implementations: the order
+ * in which each built-in policy has the reactor dequeue the same tokens.
+ */
+public class SchedulingPolicyTest {
+	private static int testsPassed = 0;
+	private static int testsFailed = 0;
+
+	public static void main(String[] args) {
+		System.out.println("Starting SchedulingPolicy Test Suite");
+		System.out.println("====================================");
+
+		testForName();
+		testEdfOrdersByAbsoluteDeadline();
+		testRelativeDeadlineDiffersFromEdf();
+		testCompletedJoinTierFirst();
+
+		System.out.println("====================================");
+		System.out.println("Test Summary: " + testsPassed + " passed, " + testsFailed + " failed");
+	}
+
+	private static void assertEquals(String testName, Object expected, Object actual) {
+		if (expected == null && actual == null || (expected != null && expected.equals(actual))) {
+			System.out.println(testName + ": PASSED");
+			testsPassed++;
+		} else {
+			System.out.println(testName + ": FAILED (Expected: " + expected + ", Actual: " + actual + ")");
+			testsFailed++;
+		}
+	}
+
+	/**
+	 * Tokens as {name, notAfter, arrivalTime}, dequeued lowest costKey first.
+	 */
+	private static List<String> order(SchedulingPolicy policy, Object[][] tokens) {
+		TreeMap<Long, String> queue = new TreeMap<>();
+		long arrivalCounter = 0;
+		for (Object[] token : tokens) {
+			long key = policy.costKey(1000100L, (Long) token[1], (Long) token[2], false, arrivalCounter++, 10L);
+			queue.put(key, (String) token[0]);
+		}
+		return new ArrayList<>(queue.values());
+	}
+
+	private static void testForName() {
+		assertEquals("testForName EDF", "EDF", SchedulingPolicy.forName("EDF").getName());
+		assertEquals("testForName RELATIVE_DEADLINE", "RELATIVE_DEADLINE",
+				SchedulingPolicy.forName("relative_deadline").getName());
+		assertEquals("testForName LRD alias", "RELATIVE_DEADLINE", SchedulingPolicy.forName("LRD").getName());
+		assertEquals("testForName unknown", "SEQUENCE", SchedulingPolicy.forName("NO_SUCH_POLICY").getName());
+	}
+
+	private static void testEdfOrdersByAbsoluteDeadline() {
+		long now = System.currentTimeMillis();
+		Object[][] tokens = { { "late", now + 300L, now }, { "early", now + 100L, now + 50L } };
+		assertEquals("testEdfOrdersByAbsoluteDeadline", "[early, late]",
+				order(SchedulingPolicy.forName("EDF"), tokens).toString());
+	}
+
+	/**
+	 * A arrives first with the earlier absolute deadline but a long window;
+	 * B arrives later, closer to a later deadline. EDF serves A, relative
+	 * deadline serves B.
+	 */
+	private static void testRelativeDeadlineDiffersFromEdf() {
+		long now = System.currentTimeMillis();
+		Object[][] tokens = { { "A", now + 1000L, now }, { "B", now + 1200L, now + 900L } };
+		assertEquals("testRelativeDeadlineDiffersFromEdf EDF", "[A, B]",
+				order(SchedulingPolicy.forName("EDF"), tokens).toString());
+		assertEquals("testRelativeDeadlineDiffersFromEdf RELATIVE_DEADLINE", "[B, A]",
+				order(SchedulingPolicy.forName("RELATIVE_DEADLINE"), tokens).toString());
+	}
+
+	private static void testCompletedJoinTierFirst() {
+		long now = System.currentTimeMillis();
+		for (String name : new String[] { "SEQUENCE", "EDF", "RELATIVE_DEADLINE", "FIFO" }) {
+			SchedulingPolicy policy = SchedulingPolicy.forName(name);
+			long normal = policy.costKey(1000100L, now + 10L, now, false, 0L, 10L);
+			long join = policy.costKey(1000200L, now + 5000L, now + 100L, true, 1L, 10L);
+			assertEquals("testCompletedJoinTierFirst " + name, true, join < normal);
+		}
+	}
+}
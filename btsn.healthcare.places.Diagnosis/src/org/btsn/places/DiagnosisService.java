@@ -47,7 +47,7 @@ public class DiagnosisService extends BaseHealthcareService {
     
     private static String generatePhysicianId(String sequenceID) {
         try {
-            return "DR_EM_" + (Integer.parseInt(sequenceID) % 1000);
+            return "DR_EM_" + (Long.parseLong(sequenceID) % 1000);
         } catch (NumberFormatException e) {
             return "DR_EM_" + Math.abs(sequenceID.hashCode() % 1000);
         }
@@ -0,0 +1,95 @@
+package org.btsn.handlers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Framing for micro-batched datagrams.
+ *
+ * EventPublisher coalesces several small token payloads bound for the same
+ * EventReactor port into one datagram, compressed once. The frame is plain
+ * text so it goes through the normal compression path unchanged:
+ *
+ *   #BTSN-BATCH:<count>\n
+ *   <charLength>\n<payload>
+ *   <charLength>\n<payload>
+ *   ...
+ *
+ * Token payloads are XML (start with '<') and chunk envelopes are JSON
+ * (start with '{'), so the '#' marker can never be confused with either.
+ */
+final class BatchFrame {
+
+	static final String BATCH_MARKER = "#BTSN-BATCH:";
+
+	/** Most payloads one frame may carry; EventPublisher's batchMaxTokens is capped to it */
+	static final int MAX_BATCH_TOKENS = 1024;
+
+	// Shortest entry: "0\n" and an empty payload
+	private static final int MIN_ENTRY_CHARS = 2;
+
+	private BatchFrame() {
+	}
+
+	static boolean isBatch(String payload) {
+		return payload != null && payload.startsWith(BATCH_MARKER);
+	}
+
+	static String encode(List<String> payloads) {
+		int capacity = BATCH_MARKER.length() + 8;
+		for (String p : payloads) {
+			capacity += p.length() + 8;
+		}
+
+		StringBuilder sb = new StringBuilder(capacity);
+		sb.append(BATCH_MARKER).append(payloads.size()).append('\n');
+		for (String p : payloads) {
+			sb.append(p.length()).append('\n').append(p);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Split a batch frame back into token payloads.
+	 *
+	 * The count is checked against MAX_BATCH_TOKENS and against the entries
+	 * the rest of the frame could hold before anything is allocated for it,
+	 * so a corrupt or hostile count cannot make the reactor allocate more
+	 * than the datagram itself.
+	 *
+	 * @throws IllegalArgumentException if the frame is truncated or malformed
+	 */
+	static List<String> decode(String frame) {
+		int pos = BATCH_MARKER.length();
+		int eol = frame.indexOf('\n', pos);
+		if (eol < 0) {
+			throw new IllegalArgumentException("Batch frame missing count");
+		}
+		int count = Integer.parseInt(frame.substring(pos, eol));
+		pos = eol + 1;
+		if (count < 0 || count > MAX_BATCH_TOKENS) {
+			throw new IllegalArgumentException("Batch frame count " + count + " outside 0-" + MAX_BATCH_TOKENS);
+		}
+		if (count > (frame.length() - pos) / MIN_ENTRY_CHARS) {
+			throw new IllegalArgumentException("Batch frame count " + count + " exceeds what its "
+					+ (frame.length() - pos) + " remaining chars can hold");
+		}
+
+		List<String> payloads = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			eol = frame.indexOf('\n', pos);
+			if (eol < 0) {
+				throw new IllegalArgumentException("Batch frame truncated at entry " + i + " of " + count);
+			}
+			int length = Integer.parseInt(frame.substring(pos, eol));
+			pos = eol + 1;
+			if (length < 0 || length > frame.length() - pos) {
+				throw new IllegalArgumentException("Batch frame entry " + i + " length " + length
+						+ " does not fit the frame");
+			}
+			payloads.add(frame.substring(pos, pos + length));
+			pos += length;
+		}
+		return payloads;
+	}
+}
@@ -0,0 +1,170 @@
+package org.btsn.handlers;
+
+import org.btsn.constants.TokenId;
+
+/**
+ * Pluggable ordering policy for the EventReactor priority queue.
+ *
+ * A policy maps an accepted token to the costKey used in costKeyTokenMap.
+ * TreeMap.firstKey() always dequeues the LOWEST costKey first.
+ *
+ * Selected via loaderSettings.xml:
+ *   <ReactorSettings>
+ *     <schedulingPolicy>EDF</schedulingPolicy>   SEQUENCE (default) | EDF | RELATIVE_DEADLINE | FIFO | fully qualified class name
+ *
+ * LRD, the earlier name of RELATIVE_DEADLINE, is still accepted.
+ *   </ReactorSettings>
+ *
+ * In VIRTUAL clock mode (SimulationClock) the default SEQUENCE policy is
+ * replaced by FIFO on the tokens' virtual arrival times, so a place serves
+ * tokens in simulated-time order.
+ *
+ * All built-in policies keep the completed-join tier: tokens that complete a
+ * join are dequeued before any other token, since they unblock waiting
+ * join windows in ServiceThread.
+ */
+public interface SchedulingPolicy {
+
+	/** Tier offset that places normal tokens after completed joins */
+	long NORMAL_TIER_OFFSET = 1L << 62;
+
+	/** Low bits reserved for the arrival counter tie-break in deadline policies */
+	int TIE_BREAK_BITS = 20;
+	long MAX_PRIMARY = (1L << (62 - TIE_BREAK_BITS)) - 1;
+
+	/**
+	 * Compute the costKey for a token.
+	 *
+	 * @param sequenceId           token sequenceId from the header
+	 * @param notAfter             absolute deadline from joinAttribute/notAfter (ms)
+	 * @param arrivalTime          time the reactor accepted the token (ms)
+	 * @param completedJoin        true if monitorData/completedJoin is set
+	 * @param arrivalCounter       monotonically increasing counter for tie-breaks
+	 * @param estimatedServiceTime current service time estimate for this operation (ms)
+	 */
+	long costKey(long sequenceId, long notAfter, long arrivalTime, boolean completedJoin, long arrivalCounter,
+			long estimatedServiceTime);
+
+	/** Short name used in logs and metric labels */
+	String getName();
+
+	/**
+	 * Resolve a policy from its configured name. Unknown names fall back to
+	 * SEQUENCE so a typo in loaderSettings.xml never stops a reactor.
+	 */
+	static SchedulingPolicy forName(String name) {
+		if (name == null || name.trim().isEmpty()) {
+			return new SequencePriorityPolicy();
+		}
+		switch (name.trim().toUpperCase()) {
+		case "SEQUENCE":
+			return new SequencePriorityPolicy();
+		case "EDF":
+			return new EarliestDeadlineFirstPolicy();
+		case "RELATIVE_DEADLINE":
+		case "LRD":
+			return new RelativeDeadlinePolicy();
+		case "FIFO":
+			return new ArrivalOrderPolicy();
+		default:
+			try {
+				return (SchedulingPolicy) Class.forName(name.trim()).getDeclaredConstructor().newInstance();
+			} catch (Exception e) {
+				System.err.println("SchedulingPolicy: Unknown policy '" + name + "', using SEQUENCE");
+				return new SequencePriorityPolicy();
+			}
+		}
+	}
+
+	/**
+	 * Pack tier, primary ordering value and tie-break counter into one key.
+	 */
+	static long packKey(boolean completedJoin, long primary, long arrivalCounter) {
+		long bounded = Math.max(0L, Math.min(primary, MAX_PRIMARY));
+		long key = (bounded << TIE_BREAK_BITS) | (arrivalCounter & ((1L << TIE_BREAK_BITS) - 1));
+		return completedJoin ? key : NORMAL_TIER_OFFSET + key;
+	}
+
+	/**
+	 * Original two-tier scheme: completed joins first, then by sequenceId.
+	 * sequenceId encodes version priority (v001 < v002), then workflow
+	 * instance and branch - TokenId.sequenceKey keeps that order in 61 bits
+	 * so the tier offset still fits.
+	 */
+	class SequencePriorityPolicy implements SchedulingPolicy {
+		@Override
+		public long costKey(long sequenceId, long notAfter, long arrivalTime, boolean completedJoin,
+				long arrivalCounter, long estimatedServiceTime) {
+			long key = TokenId.sequenceKey(sequenceId);
+			return completedJoin ? key : NORMAL_TIER_OFFSET + key;
+		}
+
+		@Override
+		public String getName() {
+			return "SEQUENCE";
+		}
+	}
+
+	/**
+	 * Earliest Deadline First: order by absolute notAfter. Deadlines are
+	 * stored relative to policy creation so they fit the packed key.
+	 */
+	class EarliestDeadlineFirstPolicy implements SchedulingPolicy {
+		private final long epoch = System.currentTimeMillis();
+
+		@Override
+		public long costKey(long sequenceId, long notAfter, long arrivalTime, boolean completedJoin,
+				long arrivalCounter, long estimatedServiceTime) {
+			return packKey(completedJoin, notAfter - epoch, arrivalCounter);
+		}
+
+		@Override
+		public String getName() {
+			return "EDF";
+		}
+	}
+
+	/**
+	 * Relative deadline: order by the time a token had left before notAfter
+	 * when it reached this reactor (notAfter - arrivalTime), fixed at arrival.
+	 * A token that arrives late in its window goes ahead of one with a later
+	 * absolute deadline that arrived early in a longer window, which EDF
+	 * would serve first.
+	 *
+	 * This is not remaining slack. Slack taken at dequeue time
+	 * (notAfter - now - estimatedServiceTime) falls by the same amount for
+	 * every queued token, and the estimate is per operation, so it orders
+	 * tokens exactly as EDF does.
+	 */
+	class RelativeDeadlinePolicy implements SchedulingPolicy {
+		@Override
+		public long costKey(long sequenceId, long notAfter, long arrivalTime, boolean completedJoin,
+				long arrivalCounter, long estimatedServiceTime) {
+			return packKey(completedJoin, notAfter - arrivalTime, arrivalCounter);
+		}
+
+		@Override
+		public String getName() {
+			return "RELATIVE_DEADLINE";
+		}
+	}
+
+	/**
+	 * First come, first served on arrival time. Arrival times are absolute
+	 * epoch milliseconds, which fit the packed key without an offset. Used
+	 * in VIRTUAL clock mode, where arrivalTime is the token's simTime and the
+	 * order tokens physically reach the reactor is not simulated-time order.
+	 */
+	class ArrivalOrderPolicy implements SchedulingPolicy {
+		@Override
+		public long costKey(long sequenceId, long notAfter, long arrivalTime, boolean completedJoin,
+				long arrivalCounter, long estimatedServiceTime) {
+			return packKey(completedJoin, arrivalTime, arrivalCounter);
+		}
+
+		@Override
+		public String getName() {
+			return "FIFO";
+		}
+	}
+}
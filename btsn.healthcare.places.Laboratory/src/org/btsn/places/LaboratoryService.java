@@ -5,6 +5,7 @@ import org.btsn.base.BaseServiceAssessment;
 import org.btsn.base.ServiceAssessment;
 import org.btsn.base.TokenInfo;
 import org.btsn.exceptions.ServiceProcessingException;
+import org.btsn.json.TokenDocument;
 
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
@@ -48,7 +49,7 @@ public class LaboratoryService extends BaseHealthcareService {
     
     private static String generateTechnicianId(String sequenceID) {
         try {
-            return "LT_" + (Integer.parseInt(sequenceID) % 1000);
+            return "LT_" + (Long.parseLong(sequenceID) % 1000);
         } catch (NumberFormatException e) {
             return "LT_" + Math.abs(sequenceID.hashCode() % 1000);
         }
@@ -79,6 +80,17 @@ public class LaboratoryService extends BaseHealthcareService {
         return businessResults;
     }
     
+    /**
+     * Parsed-form entry point - ServiceHelper passes the token it already parsed
+     * and enriches the returned document without parsing it again
+     */
+    public TokenDocument processLabRequest(TokenDocument cleanBusinessData) {
+        System.out.printf("[%s] ========== LABORATORY SERVICE EXECUTION START ==========\n", getPlaceId());
+        TokenDocument businessResults = processAssessment(cleanBusinessData);
+        System.out.printf("[%s] ========== LABORATORY ANALYSIS COMPLETE ==========\n", getPlaceId());
+        return businessResults;
+    }
+    
     // ===== FRAMEWORK IMPLEMENTATION METHODS =====
     
     @Override
@@ -50,7 +50,7 @@ public class PetriNetAnalyzer {
      * 
      * NOTE: Derby requires CAST() when comparing VARCHAR with concatenated strings.
      */
-    public ArrayList<TokenPath> verifyTokenCompleteness(int workflowBase) {
+    public ArrayList<TokenPath> verifyTokenCompleteness(long workflowBase) {
         ArrayList<TokenPath> incompletePaths = new ArrayList<>();
         
         // Find entries that don't have a corresponding exit AFTER them
@@ -72,12 +72,12 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 TokenPath path = new TokenPath();
-                path.tokenId = rs.getInt("tokenId");
+                path.tokenId = rs.getLong("tokenId");
                 path.entryTime = rs.getLong("entryTime");
                 path.exitTime = 0; // Incomplete
                 path.placeName = rs.getString("toPlace");
@@ -110,7 +110,7 @@ public class PetriNetAnalyzer {
      * 
      * NOTE: Derby requires CAST() when comparing VARCHAR with concatenated strings.
      */
-    public ArrayList<TokenPath> getTokenPaths(int workflowBase) {
+    public ArrayList<TokenPath> getTokenPaths(long workflowBase) {
         ArrayList<TokenPath> paths = new ArrayList<>();
         
         // FIXED: Pair each entry with its corresponding NEXT exit
@@ -141,12 +141,12 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 TokenPath path = new TokenPath();
-                path.tokenId = rs.getInt("tokenId");
+                path.tokenId = rs.getLong("tokenId");
                 path.placeName = rs.getString("toPlace");
                 path.entryTime = rs.getLong("entryTime");
                 path.exitTime = rs.getLong("exitTime");
@@ -179,7 +179,7 @@ public class PetriNetAnalyzer {
      * FIXED: Now computes statistics from correctly paired entry/exit events
      * instead of relying on pre-computed (potentially incorrect) values.
      */
-    public PlaceStatistics getPlaceStatistics(String placeName, int workflowBase) {
+    public PlaceStatistics getPlaceStatistics(String placeName, long workflowBase) {
         PlaceStatistics stats = new PlaceStatistics();
         stats.placeName = placeName;
         
@@ -194,7 +194,7 @@ public class PetriNetAnalyzer {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, placeName);
-            pstmt.setInt(2, workflowBase);
+            pstmt.setLong(2, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
@@ -225,7 +225,7 @@ public class PetriNetAnalyzer {
      * NOTE: Derby requires CAST() when comparing VARCHAR with concatenated strings
      * (which produce LONG VARCHAR). All string concatenations use explicit CAST.
      */
-    private PlaceStatistics computePlaceStatisticsFromFirings(String placeName, int workflowBase) {
+    private PlaceStatistics computePlaceStatisticsFromFirings(String placeName, long workflowBase) {
         PlaceStatistics stats = new PlaceStatistics();
         stats.placeName = placeName;
         
@@ -257,7 +257,7 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             pstmt.setString(2, placeName);
             pstmt.setString(3, placeName);
             ResultSet rs = pstmt.executeQuery();
@@ -279,7 +279,7 @@ public class PetriNetAnalyzer {
     /**
      * Get workflow throughput (tokens per second)
      */
-    public double getWorkflowThroughput(int workflowBase) {
+    public double getWorkflowThroughput(long workflowBase) {
         String sql = 
             "SELECT COUNT(*) as tokenCount, " +
             "       MAX(timestamp) - MIN(timestamp) as duration " +
@@ -290,7 +290,7 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
@@ -319,7 +319,7 @@ public class PetriNetAnalyzer {
     /**
      * Get marking evolution over time
      */
-    public ArrayList<MarkingSnapshot> getMarkingEvolution(String placeName, int workflowBase) {
+    public ArrayList<MarkingSnapshot> getMarkingEvolution(String placeName, long workflowBase) {
         ArrayList<MarkingSnapshot> snapshots = new ArrayList<>();
         
         String sql = 
@@ -333,12 +333,12 @@ public class PetriNetAnalyzer {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, placeName);
-            pstmt.setInt(2, workflowBase);
+            pstmt.setLong(2, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 MarkingSnapshot snapshot = new MarkingSnapshot();
-                snapshot.tokenId = rs.getInt("tokenId");
+                snapshot.tokenId = rs.getLong("tokenId");
                 snapshot.timestamp = rs.getLong("timestamp");
                 snapshot.marking = rs.getInt("marking");
                 snapshot.bufferSize = rs.getInt("bufferSize");
@@ -357,7 +357,7 @@ public class PetriNetAnalyzer {
     /**
      * Verify bounded capacity (marking never exceeds capacity)
      */
-    public boolean verifyBoundedCapacity(String placeName, int workflowBase, int expectedCapacity) {
+    public boolean verifyBoundedCapacity(String placeName, long workflowBase, int expectedCapacity) {
         String sql = 
             "SELECT MAX(marking) as maxMarking " +
             "FROM CONSOLIDATED_MARKING_EVOLUTION " +
@@ -368,7 +368,7 @@ public class PetriNetAnalyzer {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, placeName);
-            pstmt.setInt(2, workflowBase);
+            pstmt.setLong(2, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
@@ -396,7 +396,7 @@ public class PetriNetAnalyzer {
     /**
      * Analyze inter-arrival times (how tokens arrive at place)
      */
-    public ArrayList<InterArrival> getInterArrivalTimes(String placeName, int workflowBase) {
+    public ArrayList<InterArrival> getInterArrivalTimes(String placeName, long workflowBase) {
         ArrayList<InterArrival> arrivals = new ArrayList<>();
         
         String sql = 
@@ -411,7 +411,7 @@ public class PetriNetAnalyzer {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, placeName);
-            pstmt.setInt(2, workflowBase);
+            pstmt.setLong(2, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             boolean first = true;
@@ -422,7 +422,7 @@ public class PetriNetAnalyzer {
                 }
                 
                 InterArrival arrival = new InterArrival();
-                arrival.tokenId = rs.getInt("tokenId");
+                arrival.tokenId = rs.getLong("tokenId");
                 arrival.timestamp = rs.getLong("timestamp");
                 arrival.interArrivalTime = rs.getLong("interArrival");
                 arrivals.add(arrival);
@@ -444,7 +444,7 @@ public class PetriNetAnalyzer {
     /**
      * Generate comprehensive workflow analysis report
      */
-    public String generateWorkflowReport(int workflowBase) {
+    public String generateWorkflowReport(long workflowBase) {
         StringBuilder report = new StringBuilder();
         
         report.append("=== PETRI NET ANALYSIS REPORT ===\n");
@@ -509,7 +509,7 @@ public class PetriNetAnalyzer {
     /**
      * Print workflow report to console
      */
-    public void printWorkflowReport(int workflowBase) {
+    public void printWorkflowReport(long workflowBase) {
         String report = generateWorkflowReport(workflowBase);
         System.out.println(report);
         logger.info("Generated workflow report for workflowBase=" + workflowBase);
@@ -519,7 +519,7 @@ public class PetriNetAnalyzer {
     // HELPER METHODS
     // =============================================================================
     
-    private ArrayList<String> getAllPlaces(int workflowBase) {
+    private ArrayList<String> getAllPlaces(long workflowBase) {
         ArrayList<String> places = new ArrayList<>();
         
         String sql = 
@@ -532,7 +532,7 @@ public class PetriNetAnalyzer {
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, workflowBase);
+            pstmt.setLong(1, workflowBase);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
@@ -555,7 +555,7 @@ public class PetriNetAnalyzer {
     // =============================================================================
     
     public static class TokenPath {
-        public int tokenId;
+        public long tokenId;
         public String placeName;
         public long entryTime;
         public long exitTime;
@@ -585,14 +585,14 @@ public class PetriNetAnalyzer {
     }
     
     public static class MarkingSnapshot {
-        public int tokenId;
+        public long tokenId;
         public long timestamp;
         public int marking;
         public int bufferSize;
     }
     
     public static class InterArrival {
-        public int tokenId;
+        public long tokenId;
         public long timestamp;
         public long interArrivalTime;
     }
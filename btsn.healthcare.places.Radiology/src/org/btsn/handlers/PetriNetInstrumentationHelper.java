@@ -6,8 +6,11 @@ import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
+import org.btsn.constants.TokenId;
 import org.btsn.constants.VersionConstants;
 import org.btsn.derby.Analysis.BuildServiceAnalysisDatabase;
+import org.btsn.utils.AsyncBatchWriter;
+import org.btsn.utils.SimulationClock;
 import org.btsn.utils.XPathHelperCommon;
 
 /**
@@ -29,6 +32,17 @@ import org.btsn.utils.XPathHelperCommon;
  * 
  * INTEGRATION: Called by ServiceThread with ~4 method calls, zero bloat to ServiceThread
  * 
+ * TIMESTAMPS: Records are stamped with SimulationClock.now() - simulated time
+ * when the loader runs in VIRTUAL clock mode
+ * 
+ * WRITES: TRANSITION_FIRINGS and TOKEN_GENEALOGY rows are queued to one
+ * background writer per JVM and inserted in batches; nothing on the token
+ * path reads them back, and the collector flushes the writers before it
+ * does. JOIN_SYNCHRONIZATION stays synchronous - join completion updates it.
+ * 
+ * PAYLOAD: The <transition> fields are read in one pass per payload, and the
+ * BUFFERED/ENTER pair ServiceThread records for a payload shares that pass.
+ * 
  * @author BTSN Petri Net Team
  * @version 1.1 - Added buffer size tracking
  */
@@ -56,6 +70,16 @@ public class PetriNetInstrumentationHelper {
     // XML parser for extracting payload data
     private final XPathHelperCommon xph;
     
+    // <transition> fields of the last payload seen (see transitionFields)
+    private volatile ParsedTransition lastParsed;
+    
+    // Background writers for TRANSITION_FIRINGS / TOKEN_GENEALOGY - one pair per JVM,
+    // shared by the helpers of all ServiceThreads
+    private static final int WRITER_CAPACITY = 10000;
+    private static final int WRITER_BATCH = 200;
+    private static AsyncBatchWriter<TreeMap<String, String>> firingWriter;
+    private static AsyncBatchWriter<TreeMap<String, String>> genealogyWriter;
+    
     // Service identity
     private final String serviceChannel;
     private final String servicePort;
@@ -80,6 +104,7 @@ public class PetriNetInstrumentationHelper {
         this.dbWriter = new BuildServiceAnalysisDatabase();
         this.xph = new XPathHelperCommon();
         this.activeJoins = new ConcurrentHashMap<>();
+        startWriters(dbWriter);
         
         logger.info("=== PETRI NET INSTRUMENTATION INITIALIZED ===");
         logger.info("Service: " + serviceChannel + ":" + servicePort);
@@ -88,6 +113,18 @@ public class PetriNetInstrumentationHelper {
                    ", Joins=" + recordJoins);
     }
     
+    /**
+     * Start the JVM's background writers on first use
+     */
+    private static synchronized void startWriters(BuildServiceAnalysisDatabase db) {
+        if (firingWriter == null) {
+            firingWriter = new AsyncBatchWriter<>("TransitionFiringWriter", WRITER_CAPACITY, WRITER_BATCH,
+                    db::writeTransitionFirings);
+            genealogyWriter = new AsyncBatchWriter<>("TokenGenealogyWriter", WRITER_CAPACITY, WRITER_BATCH,
+                    db::writeTokenGenealogies);
+        }
+    }
+    
     // =============================================================================
     // ADMIN VERSION CHECK (v999 skip logic)
     // =============================================================================
@@ -102,7 +139,7 @@ public class PetriNetInstrumentationHelper {
      * @param tokenId The token's sequence ID
      * @return true if instrumentation should be skipped for this token
      */
-    private boolean shouldSkipInstrumentation(int tokenId) {
+    private boolean shouldSkipInstrumentation(long tokenId) {
         return VersionConstants.isAdminVersion(tokenId);
     }
     
@@ -124,7 +161,7 @@ public class PetriNetInstrumentationHelper {
      * @param eventGeneratorTimestamp The timestamp when token was generated (null if not from event generator)
      * @param sourceEventGenerator The identity of the event generator that created the token (e.g., "TRIAGE_EVENTGENERATOR")
      */
-    public void recordTokenEntering(String xmlPayload, int tokenId, String placeName, 
+    public void recordTokenEntering(String xmlPayload, long tokenId, String placeName, 
                                    String nodeType, long workflowStartTime, int bufferSize,
                                    String eventGeneratorTimestamp, String sourceEventGenerator) {
         // Skip instrumentation for admin/collection workflows (v999)
@@ -137,9 +174,10 @@ public class PetriNetInstrumentationHelper {
             logger.debug("Token " + tokenId + " entering place: " + placeName + " (buffer=" + bufferSize + ")");
             
             // Extract transition metadata from payload
-            String previousPlace = extractPreviousPlace(xmlPayload);
-            String enteringTransition = extractTransitionId(xmlPayload, buildTInTransitionId(placeName));
-            String transitionType = extractTransitionType(xmlPayload, nodeType);
+            TreeMap<String, String> transition = transitionFields(xmlPayload);
+            String previousPlace = extractPreviousPlace(transition);
+            String enteringTransition = extractTransitionId(transition, buildTInTransitionId(placeName));
+            String transitionType = extractTransitionType(transition, nodeType);
             
             // CHECK FOR EVENT GENERATOR TIMESTAMP
             // If present and non-zero, this is the first place - record GENERATED event
@@ -164,8 +202,8 @@ public class PetriNetInstrumentationHelper {
                         record.put("timestamp", Long.toString(eventGenTimestamp));
                         record.put("transitionId", generatorId);
                         record.put("transitionType", "EventGenerator");
-                        record.put("tokenId", Integer.toString(tokenId));
-                        record.put("workflowBase", Integer.toString(calculateWorkflowBase(tokenId)));
+                        record.put("tokenId", Long.toString(tokenId));
+                        record.put("workflowBase", Long.toString(calculateWorkflowBase(tokenId)));
                         record.put("fromPlace", generatorId);
                         record.put("toPlace", placeName);
                         record.put("forkDecision", "");
@@ -175,7 +213,7 @@ public class PetriNetInstrumentationHelper {
                         record.put("eventType", "GENERATED");
                         record.put("arcValue", "");
                         
-                        dbWriter.writeTransitionFiring(record);
+                        firingWriter.offer(record);
                     }
                 }
             }
@@ -197,17 +235,17 @@ public class PetriNetInstrumentationHelper {
             }
             
             // If this token is a fork child, record genealogy
-            String parentTokenIdStr = extractParentTokenId(xmlPayload);
+            String parentTokenIdStr = extractParentTokenId(transition);
             if (parentTokenIdStr != null && recordGenealogy) {
                 try {
-                    int parentTokenId = Integer.parseInt(parentTokenIdStr);
-                    String forkTransition = extractForkTransition(xmlPayload);
+                    long parentTokenId = TokenId.parse(parentTokenIdStr);
+                    String forkTransition = extractForkTransition(transition);
                     
                     recordTokenGenealogy(
                         parentTokenId,
                         tokenId,
                         forkTransition,
-                        System.currentTimeMillis(),
+                        SimulationClock.now(),
                         calculateWorkflowBase(tokenId)
                     );
                     
@@ -236,7 +274,7 @@ public class PetriNetInstrumentationHelper {
      * @deprecated Use the overload with bufferSize, eventGeneratorTimestamp, and sourceEventGenerator parameters instead
      */
     @Deprecated
-    public void recordTokenEntering(String xmlPayload, int tokenId, String placeName, 
+    public void recordTokenEntering(String xmlPayload, long tokenId, String placeName, 
                                    String nodeType, long workflowStartTime) {
         recordTokenEntering(xmlPayload, tokenId, placeName, nodeType, workflowStartTime, -1, null, null);
     }
@@ -264,7 +302,7 @@ public class PetriNetInstrumentationHelper {
      * @param firstPlaceName The first place the token will travel to (e.g., "P1_Place")
      * @param workflowStartTime The workflow instance start time
      */
-    public void recordTokenGenerated(int tokenId, String eventGeneratorId,
+    public void recordTokenGenerated(long tokenId, String eventGeneratorId,
                                      String firstPlaceName, long workflowStartTime) {
         // Skip instrumentation for admin/collection workflows (v999)
         if (shouldSkipInstrumentation(tokenId)) {
@@ -283,11 +321,11 @@ public class PetriNetInstrumentationHelper {
             // Record the GENERATED event
             if (recordTransitions) {
                 TreeMap<String, String> record = new TreeMap<>();
-                record.put("timestamp", Long.toString(System.currentTimeMillis()));
+                record.put("timestamp", Long.toString(SimulationClock.now()));
                 record.put("transitionId", transitionId);
                 record.put("transitionType", "EventGenerator");
-                record.put("tokenId", Integer.toString(tokenId));
-                record.put("workflowBase", Integer.toString(calculateWorkflowBase(tokenId)));
+                record.put("tokenId", Long.toString(tokenId));
+                record.put("workflowBase", Long.toString(calculateWorkflowBase(tokenId)));
                 record.put("fromPlace", transitionId);  // Token comes FROM event generator
                 record.put("toPlace", firstPlaceName != null ? firstPlaceName : "");
                 record.put("forkDecision", "");
@@ -297,7 +335,7 @@ public class PetriNetInstrumentationHelper {
                 record.put("eventType", "GENERATED");
                 record.put("arcValue", "");
                 
-                dbWriter.writeTransitionFiring(record);
+                firingWriter.offer(record);
                 
                 logger.info("GENERATED: Token " + tokenId + " created at " + transitionId +
                            " -> " + firstPlaceName);
@@ -316,8 +354,8 @@ public class PetriNetInstrumentationHelper {
      * @param tokenId The newly created token's sequence ID
      * @param firstPlaceName The first place the token will travel to
      */
-    public void recordTokenGenerated(int tokenId, String firstPlaceName) {
-        recordTokenGenerated(tokenId, "EVENT_GENERATOR", firstPlaceName, System.currentTimeMillis());
+    public void recordTokenGenerated(long tokenId, String firstPlaceName) {
+        recordTokenGenerated(tokenId, "EVENT_GENERATOR", firstPlaceName, SimulationClock.now());
     }
     
     /**
@@ -342,7 +380,7 @@ public class PetriNetInstrumentationHelper {
      * @param workflowStartTime The workflow instance start time
      * @param bufferSize The transition buffer size (queue depth when token arrived)
      */
-    public void recordTokenBuffered(String xmlPayload, int tokenId, String placeName, 
+    public void recordTokenBuffered(String xmlPayload, long tokenId, String placeName, 
             String nodeType, long workflowStartTime, int bufferSize,
             String eventGeneratorTimestamp, String sourceEventGenerator) {     // Skip instrumentation for admin/collection workflows (v999)
         if (shouldSkipInstrumentation(tokenId)) {
@@ -354,9 +392,10 @@ public class PetriNetInstrumentationHelper {
             logger.debug("Token " + tokenId + " buffered at T_in_" + placeName + " (buffer=" + bufferSize + ")");
             
             // Extract transition metadata from payload
-            String previousPlace = extractPreviousPlace(xmlPayload);
-            String enteringTransition = extractTransitionId(xmlPayload, buildTInTransitionId(placeName));
-            String transitionType = extractTransitionType(xmlPayload, nodeType);
+            TreeMap<String, String> transition = transitionFields(xmlPayload);
+            String previousPlace = extractPreviousPlace(transition);
+            String enteringTransition = extractTransitionId(transition, buildTInTransitionId(placeName));
+            String transitionType = extractTransitionType(transition, nodeType);
             
             // CHECK FOR EVENT GENERATOR TIMESTAMP
             // If present, this token came directly from an Event Generator
@@ -380,8 +419,8 @@ public class PetriNetInstrumentationHelper {
                             record.put("timestamp", Long.toString(eventGenTimestamp));
                             record.put("transitionId", sourceEventGenerator);
                             record.put("transitionType", "EventGenerator");
-                            record.put("tokenId", Integer.toString(tokenId));
-                            record.put("workflowBase", Integer.toString(calculateWorkflowBase(tokenId)));
+                            record.put("tokenId", Long.toString(tokenId));
+                            record.put("workflowBase", Long.toString(calculateWorkflowBase(tokenId)));
                             record.put("fromPlace", sourceEventGenerator);
                             record.put("toPlace", placeName);
                             record.put("forkDecision", "");
@@ -391,7 +430,7 @@ public class PetriNetInstrumentationHelper {
                             record.put("eventType", "GENERATED");
                             record.put("arcValue", "");
                             
-                            dbWriter.writeTransitionFiring(record);
+                            firingWriter.offer(record);
                         }
                     }
                 } catch (NumberFormatException e) {
@@ -417,17 +456,17 @@ public class PetriNetInstrumentationHelper {
             }
             
             // If this token is a fork child, record genealogy
-            String parentTokenIdStr = extractParentTokenId(xmlPayload);
+            String parentTokenIdStr = extractParentTokenId(transition);
             if (parentTokenIdStr != null && recordGenealogy) {
                 try {
-                    int parentTokenId = Integer.parseInt(parentTokenIdStr);
-                    String forkTransition = extractForkTransition(xmlPayload);
+                    long parentTokenId = TokenId.parse(parentTokenIdStr);
+                    String forkTransition = extractForkTransition(transition);
                     
                     recordTokenGenealogy(
                         parentTokenId,
                         tokenId,
                         forkTransition,
-                        System.currentTimeMillis(),
+                        SimulationClock.now(),
                         calculateWorkflowBase(tokenId)
                     );
                     
@@ -460,7 +499,7 @@ public class PetriNetInstrumentationHelper {
      * @param nodeType The node type
      * @param workflowStartTime The workflow instance start time
      */
-    public void recordTokenEnteredPlace(int tokenId, String placeName, 
+    public void recordTokenEnteredPlace(long tokenId, String placeName, 
                                         String nodeType, long workflowStartTime) {
         // Skip instrumentation for admin/collection workflows (v999)
         if (shouldSkipInstrumentation(tokenId)) {
@@ -508,8 +547,8 @@ public class PetriNetInstrumentationHelper {
      * @param continuationTokenId The token that continues (for reference)
      * @param workflowStartTime The workflow instance start time
      */
-    public void recordTokenConsumedAtJoin(int tokenId, String placeName, 
-                                          int continuationTokenId, long workflowStartTime) {
+    public void recordTokenConsumedAtJoin(long tokenId, String placeName, 
+                                          long continuationTokenId, long workflowStartTime) {
         // Skip instrumentation for admin/collection workflows (v999)
         if (shouldSkipInstrumentation(tokenId)) {
             return;
@@ -556,7 +595,7 @@ public class PetriNetInstrumentationHelper {
      * @param decisionValueCollection Fork decision values (if applicable)
      * @return Enhanced XML payload with transition metadata (for future use)
      */
-    public String recordTokenExiting(int tokenId, String fromPlace, String toPlace, 
+    public String recordTokenExiting(long tokenId, String fromPlace, String toPlace, 
                                     String toOperation, String nodeType,
                                     TreeMap<Integer, String> decisionValueCollection) {
         return recordTokenExitingWithArc(tokenId, fromPlace, toPlace, toOperation, nodeType, 
@@ -578,7 +617,7 @@ public class PetriNetInstrumentationHelper {
      * @param arcValue The actual arc/guard value taken (for EDGE/XOR routing) - can be null
      * @return Enhanced XML payload with transition metadata (for future use)
      */
-    public String recordTokenExitingWithArc(int tokenId, String fromPlace, String toPlace, 
+    public String recordTokenExitingWithArc(long tokenId, String fromPlace, String toPlace, 
                                             String toOperation, String nodeType,
                                             TreeMap<Integer, String> decisionValueCollection,
                                             String arcValue) {
@@ -648,7 +687,7 @@ public class PetriNetInstrumentationHelper {
      * @param childTokenId The child token ID (after fork)
      * @param forkTransition The transition where fork occurred (e.g., "T_out_P1_Place")
      */
-    public void recordForkGenealogy(int parentTokenId, int childTokenId, 
+    public void recordForkGenealogy(long parentTokenId, long childTokenId, 
                                     String forkTransition) {
         // Skip instrumentation for admin/collection workflows (v999)
         if (shouldSkipInstrumentation(parentTokenId) || shouldSkipInstrumentation(childTokenId)) {
@@ -661,17 +700,17 @@ public class PetriNetInstrumentationHelper {
         }
         
         try {
-            int workflowBase = calculateWorkflowBase(parentTokenId);
-            long forkTimestamp = System.currentTimeMillis();
+            long workflowBase = calculateWorkflowBase(parentTokenId);
+            long forkTimestamp = SimulationClock.now();
             
             TreeMap<String, String> record = new TreeMap<>();
-            record.put("parentTokenId", Integer.toString(parentTokenId));
-            record.put("childTokenId", Integer.toString(childTokenId));
+            record.put("parentTokenId", Long.toString(parentTokenId));
+            record.put("childTokenId", Long.toString(childTokenId));
             record.put("forkTransitionId", forkTransition);
             record.put("forkTimestamp", Long.toString(forkTimestamp));
-            record.put("workflowBase", Integer.toString(workflowBase));
+            record.put("workflowBase", Long.toString(workflowBase));
             
-            dbWriter.writeTokenGenealogy(record);
+            genealogyWriter.offer(record);
             
             logger.info("GENEALOGY: Recorded fork " + parentTokenId + " -> " + childTokenId + 
                        " via " + forkTransition + " (workflowBase=" + workflowBase + ")");
@@ -695,9 +734,9 @@ public class PetriNetInstrumentationHelper {
      * Record FORK event when a child token is created.
      * This gives the animation the "birth" event it needs to spawn the token visual.
      */
-    private void recordChildTokenCreated(int parentTokenId, int childTokenId,
+    private void recordChildTokenCreated(long parentTokenId, long childTokenId,
                                          String forkTransition, long timestamp,
-                                         int workflowBase) {
+                                         long workflowBase) {
         // Extract place name from transition (T_out_P1_Place -> P1_Place)
         String placeName = "";
         if (forkTransition != null && forkTransition.startsWith("T_out_")) {
@@ -712,8 +751,8 @@ public class PetriNetInstrumentationHelper {
         record.put("timestamp", Long.toString(timestamp));
         record.put("transitionId", normalizedTransitionId);  // T_out_P1 (not T_out_P1_Place)
         record.put("transitionType", "ForkNode");
-        record.put("tokenId", Integer.toString(childTokenId));
-        record.put("workflowBase", Integer.toString(workflowBase));
+        record.put("tokenId", Long.toString(childTokenId));
+        record.put("workflowBase", Long.toString(workflowBase));
         record.put("fromPlace", nodeLabel);
         record.put("toPlace", nodeLabel);
         record.put("forkDecision", "");
@@ -723,7 +762,7 @@ public class PetriNetInstrumentationHelper {
         record.put("eventType", "FORK");
         
         try {
-            dbWriter.writeTransitionFiring(record);
+            firingWriter.offer(record);
             logger.info("FORK: Child token " + childTokenId + " created from parent " + 
                        parentTokenId + " at " + normalizedTransitionId);
         } catch (Exception e) {
@@ -741,7 +780,7 @@ public class PetriNetInstrumentationHelper {
      * Record that a parent token was consumed by a fork
      * Only records once per parent per fork transition
      */
-    private void recordParentTokenConsumed(int parentTokenId, String forkTransition, int workflowBase) {
+    private void recordParentTokenConsumed(long parentTokenId, String forkTransition, long workflowBase) {
         // Create a unique key for this parent at this fork
         String key = parentTokenId + "_" + forkTransition;
         
@@ -760,11 +799,11 @@ public class PetriNetInstrumentationHelper {
         // Record the FORK_CONSUMED event
         // This tells the animator that this token no longer exists
         TreeMap<String, String> record = new TreeMap<>();
-        record.put("timestamp", Long.toString(System.currentTimeMillis()));
+        record.put("timestamp", Long.toString(SimulationClock.now()));
         record.put("transitionId", forkTransition);
         record.put("transitionType", "ForkConsumed");
-        record.put("tokenId", Integer.toString(parentTokenId));
-        record.put("workflowBase", Integer.toString(workflowBase));
+        record.put("tokenId", Long.toString(parentTokenId));
+        record.put("workflowBase", Long.toString(workflowBase));
         record.put("fromPlace", fromPlace);
         record.put("toPlace", "FORK_CONSUMED");  // Special marker
         record.put("forkDecision", "");
@@ -774,7 +813,7 @@ public class PetriNetInstrumentationHelper {
         record.put("eventType", "FORK_CONSUMED");
         
         try {
-            dbWriter.writeTransitionFiring(record);
+            firingWriter.offer(record);
             logger.info("FORK_CONSUMED: Parent token " + parentTokenId + 
                        " consumed at " + forkTransition + " (workflowBase=" + workflowBase + ")");
         } catch (Exception e) {
@@ -792,7 +831,7 @@ public class PetriNetInstrumentationHelper {
      * @param requiredCount How many tokens must arrive before join completes
      * @return true if this token should continue, false if consumed by join
      */
-    public boolean handleJoinSynchronization(String joinPlace, int tokenId, int requiredCount) {
+    public boolean handleJoinSynchronization(String joinPlace, long tokenId, int requiredCount) {
         // Skip instrumentation for admin/collection workflows (v999)
         // Still return true so the token continues through the workflow
         if (shouldSkipInstrumentation(tokenId)) {
@@ -802,7 +841,7 @@ public class PetriNetInstrumentationHelper {
         
         try {
             String joinTransition = buildTInTransitionId(joinPlace);
-            int workflowBase = calculateWorkflowBase(tokenId);
+            long workflowBase = calculateWorkflowBase(tokenId);
             String joinKey = joinTransition + "_" + workflowBase;
             
             logger.info("Join synchronization: Token " + tokenId + 
@@ -830,7 +869,7 @@ public class PetriNetInstrumentationHelper {
             
             if (isComplete) {
                 // Join complete - get continuation token (lowest ID)
-                int continuationToken = joinState.getContinuationToken();
+                long continuationToken = joinState.getContinuationToken();
                 
                 logger.info("Join COMPLETE at " + joinTransition + 
                            " for workflowBase " + workflowBase + 
@@ -884,17 +923,17 @@ public class PetriNetInstrumentationHelper {
      * @param arcValue The actual arc/guard value taken (for EDGE/XOR routing decisions)
      */
     private void recordTransitionFiring(String transitionId, String transitionType,
-                                       int tokenId, String fromPlace, String toPlace,
+                                       long tokenId, String fromPlace, String toPlace,
                                        String forkDecision, String joinState,
                                        long workflowStartTime, int bufferSize, String ruleVersion,
                                        String eventType, String arcValue) {
         try {
             TreeMap<String, String> record = new TreeMap<>();
-            record.put("timestamp", Long.toString(System.currentTimeMillis()));
+            record.put("timestamp", Long.toString(SimulationClock.now()));
             record.put("transitionId", transitionId);
             record.put("transitionType", transitionType != null ? transitionType : "EdgeNode");
-            record.put("tokenId", Integer.toString(tokenId));
-            record.put("workflowBase", Integer.toString(calculateWorkflowBase(tokenId)));
+            record.put("tokenId", Long.toString(tokenId));
+            record.put("workflowBase", Long.toString(calculateWorkflowBase(tokenId)));
             record.put("fromPlace", fromPlace != null ? fromPlace : "");
             record.put("toPlace", toPlace != null ? toPlace : "");
             record.put("forkDecision", forkDecision != null ? forkDecision : "");
@@ -904,7 +943,7 @@ public class PetriNetInstrumentationHelper {
             record.put("eventType", eventType != null ? eventType : "");
             record.put("arcValue", arcValue != null ? arcValue : "");
             
-            dbWriter.writeTransitionFiring(record);
+            firingWriter.offer(record);
             
             logger.debug("Recorded transition: " + transitionId + 
                         " (" + transitionType + ") " +
@@ -923,7 +962,7 @@ public class PetriNetInstrumentationHelper {
      * Record a transition firing event (backward compatible - no arcValue)
      */
     private void recordTransitionFiring(String transitionId, String transitionType,
-                                       int tokenId, String fromPlace, String toPlace,
+                                       long tokenId, String fromPlace, String toPlace,
                                        String forkDecision, String joinState,
                                        long workflowStartTime, int bufferSize, String ruleVersion,
                                        String eventType) {
@@ -936,7 +975,7 @@ public class PetriNetInstrumentationHelper {
      * Record a transition firing event (backward compatible - defaults eventType based on transition)
      */
     private void recordTransitionFiring(String transitionId, String transitionType,
-                                       int tokenId, String fromPlace, String toPlace,
+                                       long tokenId, String fromPlace, String toPlace,
                                        String forkDecision, String joinState,
                                        long workflowStartTime, int bufferSize, String ruleVersion) {
         recordTransitionFiringWithArc(transitionId, transitionType, tokenId, fromPlace, toPlace,
@@ -948,7 +987,7 @@ public class PetriNetInstrumentationHelper {
      * This is the preferred method for recording T_out transitions with arc values
      */
     private void recordTransitionFiringWithArc(String transitionId, String transitionType,
-                                       int tokenId, String fromPlace, String toPlace,
+                                       long tokenId, String fromPlace, String toPlace,
                                        String forkDecision, String joinState,
                                        long workflowStartTime, int bufferSize, String ruleVersion,
                                        String arcValue) {
@@ -972,18 +1011,18 @@ public class PetriNetInstrumentationHelper {
     /**
      * Record token genealogy (parent-child relationship from fork)
      */
-    private void recordTokenGenealogy(int parentTokenId, int childTokenId,
+    private void recordTokenGenealogy(long parentTokenId, long childTokenId,
                                      String forkTransition, long timestamp,
-                                     int workflowBase) {
+                                     long workflowBase) {
         try {
             TreeMap<String, String> record = new TreeMap<>();
-            record.put("parentTokenId", Integer.toString(parentTokenId));
-            record.put("childTokenId", Integer.toString(childTokenId));
+            record.put("parentTokenId", Long.toString(parentTokenId));
+            record.put("childTokenId", Long.toString(childTokenId));
             record.put("forkTransitionId", forkTransition);
             record.put("forkTimestamp", Long.toString(timestamp));
-            record.put("workflowBase", Integer.toString(workflowBase));
+            record.put("workflowBase", Long.toString(workflowBase));
             
-            dbWriter.writeTokenGenealogy(record);
+            genealogyWriter.offer(record);
             
             logger.debug("Recorded genealogy: parent=" + parentTokenId + 
                         " -> child=" + childTokenId + 
@@ -998,15 +1037,15 @@ public class PetriNetInstrumentationHelper {
     /**
      * Register a token's contribution to a join
      */
-    private void registerJoinContribution(String joinTransitionId, int workflowBase,
-                                         int tokenId, int requiredCount, 
+    private void registerJoinContribution(String joinTransitionId, long workflowBase,
+                                         long tokenId, int requiredCount, 
                                          int currentCount, String status) {
         try {
             TreeMap<String, String> record = new TreeMap<>();
             record.put("joinTransitionId", joinTransitionId);
-            record.put("workflowBase", Integer.toString(workflowBase));
-            record.put("tokenId", Integer.toString(tokenId));
-            record.put("arrivalTimestamp", Long.toString(System.currentTimeMillis()));
+            record.put("workflowBase", Long.toString(workflowBase));
+            record.put("tokenId", Long.toString(tokenId));
+            record.put("arrivalTimestamp", Long.toString(SimulationClock.now()));
             record.put("requiredCount", Integer.toString(requiredCount));
             record.put("currentCount", Integer.toString(currentCount));
             record.put("status", status);
@@ -1028,9 +1067,9 @@ public class PetriNetInstrumentationHelper {
     /**
      * Record join completion with continuation token
      */
-    private void recordJoinCompletion(String joinTransitionId, int workflowBase,
-                                     List<Integer> contributingTokens, 
-                                     int continuationToken) {
+    private void recordJoinCompletion(String joinTransitionId, long workflowBase,
+                                     List<Long> contributingTokens, 
+                                     long continuationToken) {
         try {
             // Update all contributing tokens' records with continuation token
             dbWriter.updateJoinCompletion(joinTransitionId, workflowBase, continuationToken);
@@ -1052,10 +1091,10 @@ public class PetriNetInstrumentationHelper {
     /**
      * Handle token arrival at a join point
      */
-    private void handleJoinArrival(String joinTransition, int tokenId, 
+    private void handleJoinArrival(String joinTransition, long tokenId, 
                                   String placeName, long workflowStartTime) {
         try {
-            int workflowBase = calculateWorkflowBase(tokenId);
+            long workflowBase = calculateWorkflowBase(tokenId);
             
             // Query how many tokens are required for this join (from DOT metadata)
             // For now, default to 3 (can be enhanced to read from DOT)
@@ -1075,100 +1114,75 @@ public class PetriNetInstrumentationHelper {
     // =============================================================================
     
     /**
-     * Extract the previous place from XML payload
+     * The <transition> fields of a payload, from one parse.
+     * 
+     * ServiceThread hands the same payload string to recordTokenBuffered and
+     * recordTokenEntering, so the last result is kept and reused while the
+     * payload is the same object. A payload without a <transition> element
+     * is not parsed at all.
      */
-    private String extractPreviousPlace(String xmlPayload) {
-        try {
-            String previous = xph.findXMLItem(xmlPayload, "//transition/previousPlace");
-            return previous != null ? previous : "";
-        } catch (Exception e) {
-            logger.debug("Could not extract previousPlace from payload");
-            return "";
+    private TreeMap<String, String> transitionFields(String xmlPayload) {
+        ParsedTransition parsed = lastParsed;
+        if (parsed != null && parsed.payload == xmlPayload) {
+            return parsed.fields;
+        }
+        TreeMap<String, String> fields = new TreeMap<>();
+        if (xmlPayload != null && xmlPayload.contains("<transition>")) {
+            try {
+                fields = xph.findMultipleXMLItems(xmlPayload, "//transition/*");
+            } catch (Exception e) {
+                logger.debug("Could not extract transition fields from payload");
+            }
         }
+        lastParsed = new ParsedTransition(xmlPayload, fields);
+        return fields;
     }
     
     /**
-     * Extract transition ID from XML payload (with fallback)
+     * A transition field, or null if absent or empty
      */
-    private String extractTransitionId(String xmlPayload, String fallback) {
-        try {
-            String transitionId = xph.findXMLItem(xmlPayload, "//transition/transitionId");
-            return transitionId != null ? transitionId : fallback;
-        } catch (Exception e) {
-            return fallback;
-        }
+    private static String transitionField(TreeMap<String, String> transition, String name) {
+        String value = transition.get(name);
+        return value != null && !value.trim().isEmpty() ? value.trim() : null;
     }
     
     /**
-     * Extract transition type from XML payload (with fallback)
+     * Extract the previous place from the payload's transition fields
      */
-    private String extractTransitionType(String xmlPayload, String fallback) {
-        try {
-            String type = xph.findXMLItem(xmlPayload, "//transition/transitionType");
-            return type != null ? type : fallback;
-        } catch (Exception e) {
-            return fallback;
-        }
+    private String extractPreviousPlace(TreeMap<String, String> transition) {
+        String previous = transitionField(transition, "previousPlace");
+        return previous != null ? previous : "";
     }
     
     /**
-     * Extract parent token ID (for fork children)
+     * Extract transition ID from the payload's transition fields (with fallback)
      */
-    private String extractParentTokenId(String xmlPayload) {
-        try {
-            return xph.findXMLItem(xmlPayload, "//transition/parentTokenId");
-        } catch (Exception e) {
-            return null;
-        }
+    private String extractTransitionId(TreeMap<String, String> transition, String fallback) {
+        String transitionId = transitionField(transition, "transitionId");
+        return transitionId != null ? transitionId : fallback;
     }
     
     /**
-     * Extract fork transition that created this child token
+     * Extract transition type from the payload's transition fields (with fallback)
      */
-    private String extractForkTransition(String xmlPayload) {
-        try {
-            String forkTrans = xph.findXMLItem(xmlPayload, "//transition/forkTransition");
-            return forkTrans != null ? forkTrans : "UNKNOWN_FORK";
-        } catch (Exception e) {
-            return "UNKNOWN_FORK";
-        }
+    private String extractTransitionType(TreeMap<String, String> transition, String fallback) {
+        String type = transitionField(transition, "transitionType");
+        return type != null ? type : fallback;
     }
     
     /**
-     * Extract eventGeneratorTimestamp from payload.
-     * This timestamp indicates when the token was created at the Event Generator.
-     * Used to record accurate GENERATED events for animation.
+     * Extract parent token ID (for fork children)
      */
-    private String extractEventGeneratorTimestamp(String xmlPayload) {
-        try {
-            return xph.findXMLItem(xmlPayload, "//monitorData/eventGeneratorTimestamp");
-        } catch (Exception e) {
-            return null;
-        }
+    private String extractParentTokenId(TreeMap<String, String> transition) {
+        return transitionField(transition, "parentTokenId");
     }
     
     /**
-     * DEPRECATED: sourceEventGenerator is now passed as a parameter from ServiceThread
-     * which extracts it from monitorDataMap. This method is kept for backward compatibility
-     * but should not be used for new code.
-     * 
-     * Extract sourceEventGenerator from payload.
-     * This identifies which event generator created the token (e.g., TRIAGE_EVENTGENERATOR).
-     * Used to track token source for workflows with multiple event generators.
+     * Extract fork transition that created this child token
      */
-    @Deprecated
-    private String extractSourceEventGenerator(String xmlPayload) {
-        try {
-            String source = xph.findXMLItem(xmlPayload, "//monitorData/sourceEventGenerator");
-            if (source == null || source.isEmpty()) {
-                logger.warn("extractSourceEventGenerator: sourceEventGenerator not found in payload - use parameter from ServiceThread instead");
-                return "EVENT_GENERATOR";
-            }
-            return source;
-        } catch (Exception e) {
-            logger.warn("extractSourceEventGenerator failed: " + e.getMessage());
-            return "EVENT_GENERATOR";
-        }
+    private String extractForkTransition(TreeMap<String, String> transition) {
+        String forkTrans = transitionField(transition, "forkTransition");
+        return forkTrans != null ? forkTrans : "UNKNOWN_FORK";
     }
     
     /**
@@ -1302,7 +1316,7 @@ public class PetriNetInstrumentationHelper {
     /**
      * Calculate workflow base from sequence ID (version-aware)
      */
-    private int calculateWorkflowBase(int sequenceID) {
+    private long calculateWorkflowBase(long sequenceID) {
         return VersionConstants.getWorkflowBaseFromSequenceId(sequenceID);
     }
     
@@ -1321,7 +1335,7 @@ public class PetriNetInstrumentationHelper {
     /**
      * Build transition metadata for XML payload enrichment
      */
-    private String buildTransitionMetadata(int tokenId, String fromPlace, String toPlace) {
+    private String buildTransitionMetadata(long tokenId, String fromPlace, String toPlace) {
         // Future enhancement: build XML fragment with transition metadata
         // to be inserted into outgoing payload
         return "";
@@ -1353,14 +1367,24 @@ public class PetriNetInstrumentationHelper {
     /**
      * Tracks the state of a join synchronization point
      */
+    private static class ParsedTransition {
+        final String payload;
+        final TreeMap<String, String> fields;
+        
+        ParsedTransition(String payload, TreeMap<String, String> fields) {
+            this.payload = payload;
+            this.fields = fields;
+        }
+    }
+    
     private static class JoinState {
         private final String joinTransitionId;
-        private final int workflowBase;
+        private final long workflowBase;
         private final int requiredCount;
-        private final List<Integer> arrivedTokens;
+        private final List<Long> arrivedTokens;
         private final long createdTimestamp;
         
-        public JoinState(String joinTransitionId, int workflowBase, int requiredCount) {
+        public JoinState(String joinTransitionId, long workflowBase, int requiredCount) {
             this.joinTransitionId = joinTransitionId;
             this.workflowBase = workflowBase;
             this.requiredCount = requiredCount;
@@ -1372,7 +1396,7 @@ public class PetriNetInstrumentationHelper {
          * Add a token to this join
          * @return true if join is now complete
          */
-        public synchronized boolean addToken(int tokenId) {
+        public synchronized boolean addToken(long tokenId) {
             if (!arrivedTokens.contains(tokenId)) {
                 arrivedTokens.add(tokenId);
             }
@@ -1382,18 +1406,18 @@ public class PetriNetInstrumentationHelper {
         /**
          * Get the continuation token (lowest ID)
          */
-        public synchronized int getContinuationToken() {
+        public synchronized long getContinuationToken() {
             if (arrivedTokens.isEmpty()) {
                 throw new IllegalStateException("No tokens at join");
             }
-            return arrivedTokens.stream().min(Integer::compare).orElse(arrivedTokens.get(0));
+            return arrivedTokens.stream().min(Long::compare).orElse(arrivedTokens.get(0));
         }
         
         public synchronized int getTokenCount() {
             return arrivedTokens.size();
         }
         
-        public synchronized List<Integer> getAllTokens() {
+        public synchronized List<Long> getAllTokens() {
             return new ArrayList<>(arrivedTokens);
         }
         
@@ -8,6 +8,8 @@ import java.net.InetAddress;
 import java.util.Scanner;
 import java.util.TreeMap;
 
+import org.btsn.utils.RoutingTable;
+
 /**
  * ServiceThreadDebugger - Refactored for current ServiceThread implementation
  * 
@@ -593,5 +595,12 @@ public class ServiceThreadDebugger {
             
             return true;
         }
+        
+        @Override
+        public boolean publishServiceEvent(String serviceName, String operationName, 
+                String xmlPayload, RoutingTable.Route route, String ruleVersion) {
+            return publishServiceEvent(serviceName, operationName, xmlPayload, route.getAddress(), 
+                    route.getPort(), ruleVersion, route.getChannelId());
+        }
     }
 }
\ No newline at end of file
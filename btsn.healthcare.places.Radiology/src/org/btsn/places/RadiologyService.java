@@ -5,6 +5,7 @@ import org.btsn.base.BaseServiceAssessment;
 import org.btsn.base.ServiceAssessment;
 import org.btsn.base.TokenInfo;
 import org.btsn.exceptions.ServiceProcessingException;
+import org.btsn.json.TokenDocument;
 
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -50,7 +51,7 @@ public class RadiologyService extends BaseHealthcareService {
     
     private static String generateRadiologistId(String sequenceID) {
         try {
-            return "DR_RAD_" + (Integer.parseInt(sequenceID) % 1000);
+            return "DR_RAD_" + (Long.parseLong(sequenceID) % 1000);
         } catch (NumberFormatException e) {
             return "DR_RAD_" + Math.abs(sequenceID.hashCode() % 1000);
         }
@@ -76,6 +77,15 @@ public class RadiologyService extends BaseHealthcareService {
         return businessResults;
     }
     
+    /**
+     * Parsed-form entry point - ServiceHelper passes the token it already parsed
+     * and enriches the returned document without parsing it again
+     */
+    public TokenDocument processImagingRequest(TokenDocument cleanBusinessData) {
+        System.out.printf("[%s] Processing imaging request for sequenceID: %s\n", getPlaceId(), getSequenceID());
+        return processAssessment(cleanBusinessData);
+    }
+    
     /**
      * Federated radiology request - BUSINESS LOGIC ONLY
      * 
@@ -2,12 +2,27 @@ package org.btsn.handlers;
 
 import java.io.*;
 import java.net.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPOutputStream;
 
+import org.btsn.metrics.MetricsRegistry;
+import org.btsn.metrics.TraceContext;
+import org.btsn.utils.LoaderSettings;
+import org.btsn.utils.PayloadCompression;
+import org.btsn.utils.RoutingTable;
+import org.btsn.utils.SimulationClock;
 import org.btsn.utils.StringFileIO;
 import org.btsn.utils.XPathHelperCommon;
 
@@ -15,9 +30,11 @@ import java.util.zip.GZIPInputStream;
 
 /**
  * EventPublisher with local/remote support and automatic chunking
- * Expects ServiceThread to resolve "ip0" to actual IP addresses
+ * Expects ServiceThread to resolve "ip0" to actual IP addresses, or to pass a
+ * pre-resolved RoutingTable route
  * 
  * ENHANCED: Now automatically chunks large payloads that exceed MAX_WIRE_LENGTH
+ * ENHANCED: Optional adaptive micro-batching of small payloads per destination
  */
 public class EventPublisher {
 
@@ -28,6 +45,11 @@ public class EventPublisher {
 	private static int SOCKET_TIMEOUT_MS = 5000;
 	private static boolean COMPRESSION_ENABLED = true;
 	
+	// Compression mode: GZIP (standalone per packet, default) or DICTIONARY
+	// (preset-dictionary deflate, see PayloadCompression). Receivers accept both.
+	private static boolean DICTIONARY_COMPRESSION = false;
+	private static int DICTIONARY_VERSION = PayloadCompression.DEFAULT_DICTIONARY_VERSION;
+	
 	// Chunking configuration
 	// Reserve space for chunk envelope (JSON wrapper with metadata)
 	// Envelope adds: {"chunkIndex":X,"totalChunks":XX,"correlationId":"UUID","chunkData":"..."}
@@ -42,13 +64,75 @@ public class EventPublisher {
 	// Configuration helpers
 	private XPathHelperCommon xph = new XPathHelperCommon();
 
+	// ============================================================================
+	// ADAPTIVE MICRO-BATCHING (opt-in via <PublisherSettings><batchingEnabled>)
+	// ============================================================================
+	// A publish to a destination that has been idle for longer than the latency
+	// budget is sent immediately. Publishes that arrive within the budget of the
+	// previous send (e.g. FORK fan-out, saturation) are coalesced into one framed
+	// datagram (see BatchFrame), compressed once, and flushed when the budget
+	// expires, the batch is full, or the wire limit would be exceeded.
+	private static boolean BATCHING_ENABLED = false;
+	private static int BATCH_LATENCY_MS = 2;
+	private static int BATCH_MAX_TOKENS = 16;
+
+	private final Object batchLock = new Object();
+	private final Map<String, PendingBatch> pendingBatches = new HashMap<>();
+	private final Map<String, Long> lastSendNanos = new HashMap<>();
+	private ScheduledExecutorService batchFlusher = null;
+
+	private final LongAdder datagramsSent = MetricsRegistry.getInstance().counter(
+			"btsn_publisher_datagrams_total", "Datagrams sent by EventPublisher");
+	private final LongAdder tokensBatched = MetricsRegistry.getInstance().counter(
+			"btsn_publisher_batched_tokens_total", "Tokens sent inside a multi-token batch");
+	private final LongAdder batchesSent = MetricsRegistry.getInstance().counter(
+			"btsn_publisher_batches_total", "Multi-token batch datagrams sent");
+	private final LongAdder batchedTokensFailed = MetricsRegistry.getInstance().counter(
+			"btsn_publisher_batch_send_failures_total", "Batched tokens whose datagram could not be sent");
+
+	// In-JVM delivery to co-located operations (see LocalTransport)
+	private static boolean LOCAL_DELIVERY = true;
+	private final LongAdder localDeliveries = MetricsRegistry.getInstance().counter(
+			"btsn_publisher_local_deliveries_total", "Tokens handed to an EventReactor in this JVM");
+
+	/**
+	 * Tokens waiting to be sent to one destination
+	 */
+	private static class PendingBatch {
+		final InetAddress address;
+		final int port;
+		final List<String> payloads = new ArrayList<>();
+		int rawChars = 0;
+		ScheduledFuture<?> flushTask;
+
+		PendingBatch(InetAddress address, int port) {
+			this.address = address;
+			this.port = port;
+		}
+
+		void add(String payload) {
+			payloads.add(payload);
+			rawChars += payload.length();
+		}
+	}
+
 	public EventPublisher() throws Exception {
 		logger.info("=== Initializing EventPublisher ===");
 		loadPublisherConfiguration();
 		logger.info("EventPublisher: Ready for local/remote publishing");
-		logger.info("EventPublisher: Compression enabled: " + COMPRESSION_ENABLED);
+		logger.info("EventPublisher: Compression enabled: " + COMPRESSION_ENABLED + 
+				(DICTIONARY_COMPRESSION ? " (dictionary v" + DICTIONARY_VERSION + ")" : " (gzip)"));
 		logger.info("EventPublisher: Max wire length: " + MAX_WIRE_LENGTH + " bytes");
 		logger.info("EventPublisher: Chunking enabled for payloads > " + MAX_WIRE_LENGTH + " bytes");
+		if (BATCHING_ENABLED) {
+			batchFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "EventPublisher-BatchFlusher");
+				t.setDaemon(true);
+				return t;
+			});
+			logger.info("EventPublisher: Micro-batching enabled (budget " + BATCH_LATENCY_MS + "ms, max "
+					+ BATCH_MAX_TOKENS + " tokens)");
+		}
 	}
 
 	/**
@@ -61,31 +145,133 @@ public class EventPublisher {
 			String targetChannel, String targetPort, String ruleVersion, String originalChannelId) {
 		try {
 			String eventId = generateEventId(serviceType, operationName);
+			eventPayload = TraceContext.stampSent(eventPayload, SimulationClock.now());
 
 			logger.info("EventPublisher: Publishing " + eventId + " to " + targetChannel + ":" + targetPort);
 
-			// Check if payload needs chunking BEFORE compression
-			// We check the raw payload size to determine if chunking is needed
-			byte[] rawPayloadBytes = eventPayload.getBytes("UTF-8");
-			
-			if (rawPayloadBytes.length > getEffectivePayloadLimit()) {
-				// Large payload - use chunking
-				logger.info("EventPublisher: Payload size (" + rawPayloadBytes.length + 
-				           " bytes) exceeds limit, using chunked transfer");
-				return publishChunked(serviceType, operationName, eventPayload, 
-				                      targetChannel, targetPort, eventId, originalChannelId);
-			} else {
-				// Small payload - send directly
-				return publishDirectly(serviceType, operationName, eventPayload, 
-				                       targetChannel, targetPort, eventId, originalChannelId);
+			int finalPort = reactorPort(targetPort, originalChannelId);
+			if (deliverLocally(eventPayload, targetChannel, finalPort, eventId)) {
+				return true;
 			}
 
+			// SIMPLIFIED: Only handle IP addresses now
+			if (!isIPAddress(targetChannel)) {
+				logger.severe("EventPublisher: Invalid target channel (must be IP address): " + targetChannel);
+				return false;
+			}
+			InetSocketAddress target = new InetSocketAddress(InetAddress.getByName(targetChannel), finalPort);
+			
+			logger.fine("EventPublisher: Target " + targetChannel + ":" + finalPort + " (from " + originalChannelId + ")");
+			return send(serviceType, operationName, eventPayload, target, eventId);
+
 		} catch (Exception e) {
 			logger.log(Level.SEVERE, "EventPublisher: Error publishing event", e);
 			return false;
 		}
 	}
 	
+	/**
+	 * Publish to a route of the committed RoutingTable - the address and
+	 * EventReactor port were resolved when the rules were committed, so no
+	 * parsing or lookup happens here.
+	 */
+	public boolean publishServiceEvent(String serviceType, String operationName, String eventPayload,
+			RoutingTable.Route route, String ruleVersion) {
+		try {
+			String eventId = generateEventId(serviceType, operationName);
+			eventPayload = TraceContext.stampSent(eventPayload, SimulationClock.now());
+			
+			logger.info("EventPublisher: Publishing " + eventId + " to " + route.getAddress() + ":" + route.getPort());
+			
+			if (deliverLocally(eventPayload, route.getAddress(), route.getTarget().getPort(), eventId)) {
+				return true;
+			}
+			return send(serviceType, operationName, eventPayload, route.getTarget(), eventId);
+		
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "EventPublisher: Error publishing event", e);
+			return false;
+		}
+	}
+	
+	/**
+	 * The EventReactor in this JVM a token for this target is delivered to,
+	 * or null if it goes over UDP (see LocalTransport)
+	 */
+	EventReactor localReactor(String targetChannel, String targetPort, String originalChannelId) {
+		if (!LOCAL_DELIVERY) {
+			return null;
+		}
+		try {
+			return LocalTransport.lookup(targetChannel, reactorPort(targetPort, originalChannelId));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	EventReactor localReactor(RoutingTable.Route route) {
+		return LOCAL_DELIVERY ? LocalTransport.lookup(route.getAddress(), route.getTarget().getPort()) : null;
+	}
+
+	/**
+	 * Hand a token to a co-located operation (localReactor()) as its envelope -
+	 * nothing is serialized, and the reactor parses nothing
+	 */
+	boolean publishLocal(String serviceType, String operationName, TokenEnvelope token, EventReactor localReactor) {
+		try {
+			String eventId = generateEventId(serviceType, operationName);
+			TraceContext.stampSent(token.header(), SimulationClock.now());
+			localReactor.deliverLocal(token);
+			localDeliveries.increment();
+			logger.fine("EventPublisher: Delivered " + eventId + " in-JVM");
+			return true;
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "EventPublisher: Error delivering event in-JVM", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Hand a serialized payload to a co-located operation, if there is one on the target port
+	 */
+	private boolean deliverLocally(String eventPayload, String targetChannel, int finalPort, String eventId)
+			throws InterruptedException, IOException {
+		if (LOCAL_DELIVERY) {
+			// Co-located operation - no serialization to the wire, no datagram
+			EventReactor localReactor = LocalTransport.lookup(targetChannel, finalPort);
+			if (localReactor != null) {
+				localReactor.deliverLocal(eventPayload);
+				localDeliveries.increment();
+				logger.fine("EventPublisher: Delivered " + eventId + " in-JVM");
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Send a payload to a resolved EventReactor address - chunked, batched or as one datagram
+	 */
+	private boolean send(String serviceType, String operationName, String eventPayload,
+			InetSocketAddress target, String eventId) throws IOException {
+		// Check if payload needs chunking BEFORE compression
+		// We check the raw payload size to determine if chunking is needed
+		byte[] rawPayloadBytes = eventPayload.getBytes("UTF-8");
+		
+		if (rawPayloadBytes.length > getEffectivePayloadLimit()) {
+			// Large payload - use chunking
+			logger.info("EventPublisher: Payload size (" + rawPayloadBytes.length + 
+			           " bytes) exceeds limit, using chunked transfer");
+			return publishChunked(serviceType, operationName, eventPayload, target, eventId);
+		} else if (BATCHING_ENABLED) {
+			// Small payload - may be coalesced with others bound for the same port
+			return publishBatched(eventPayload, target, eventId);
+		} else {
+			// Small payload - send directly
+			return publishDirectly(serviceType, operationName, eventPayload, target, eventId);
+		}
+	}
+	
 	/**
 	 * Calculate effective payload limit accounting for compression overhead
 	 * Compression typically achieves 3-5x reduction on JSON, so we're conservative
@@ -105,7 +291,7 @@ public class EventPublisher {
 	 * Each chunk is wrapped with metadata for reassembly on the receiver side
 	 */
 	private boolean publishChunked(String serviceType, String operationName, String eventPayload,
-			String targetChannel, String targetPort, String eventId, String originalChannelId) {
+			InetSocketAddress target, String eventId) {
 		
 		try {
 			// Generate a unique correlation ID for this chunked transfer
@@ -139,8 +325,7 @@ public class EventPublisher {
 				
 				// Send this chunk
 				boolean sent = publishDirectly(serviceType, operationName, chunkPayload,
-				                               targetChannel, targetPort, 
-				                               eventId + "_chunk" + chunkIndex, originalChannelId);
+				                               target, eventId + "_chunk" + chunkIndex);
 				
 				if (!sent) {
 					logger.severe("EventPublisher: Failed to send chunk " + chunkIndex + "/" + totalChunks);
@@ -237,27 +422,11 @@ public class EventPublisher {
 	}
 
 	private boolean publishDirectly(String serviceType, String operationName, String eventPayload, 
-	        String targetChannel, String targetPort, String eventId, String originalChannelId) {
+	        InetSocketAddress target, String eventId) {
 
 	    try {
-	        InetAddress targetAddress;
-	        int finalPort;
-
-	        // SIMPLIFIED: Only handle IP addresses now
-	        if (!isIPAddress(targetChannel)) {
-	            logger.severe("EventPublisher: Invalid target channel (must be IP address): " + targetChannel);
-	            return false;
-	        }
-	        
-	        targetAddress = InetAddress.getByName(targetChannel);
-	        int basePort = Integer.parseInt(targetPort);
-	        
-	        // Extract channel number from original channel ID
-	        int channelNumber = extractChannelNumberFromId(originalChannelId);
-	        finalPort = 10000 + (channelNumber * 1000) + basePort;
-	        
-	        logger.fine("EventPublisher: Target " + targetAddress.getHostAddress() + ":" + finalPort + 
-	                   " (from " + originalChannelId + ")");
+	        InetAddress targetAddress = target.getAddress();
+	        int finalPort = target.getPort();
 
 	        // Compress payload
 	        byte[] payloadBytes = preparePayload(eventPayload, eventId);
@@ -271,18 +440,7 @@ public class EventPublisher {
 	            return false;
 	        }
 
-	        // Use shared socket (thread-safe) - avoids rapid socket creation issues with FORK
-	        synchronized (socketLock) {
-	            if (sharedSocket == null || sharedSocket.isClosed()) {
-	                sharedSocket = new DatagramSocket();
-	                sharedSocket.setSoTimeout(SOCKET_TIMEOUT_MS);
-	                logger.info("EventPublisher: Created shared socket on port " + sharedSocket.getLocalPort());
-	            }
-
-	            // Send packet
-	            DatagramPacket packet = new DatagramPacket(payloadBytes, payloadBytes.length, targetAddress, finalPort);
-	            sharedSocket.send(packet);
-	        }
+	        sendDatagram(payloadBytes, targetAddress, finalPort);
 
 	        logger.fine("EventPublisher: Sent " + eventId + " to " + targetAddress.getHostAddress() + ":" + finalPort
 	                + " (" + payloadBytes.length + " bytes)");
@@ -294,33 +452,205 @@ public class EventPublisher {
 	    }
 	}
 	
-	private int extractChannelNumberFromId(String channelId) {
-		if (channelId != null && channelId.startsWith("ip")) {
-			try {
-				return Integer.parseInt(channelId.substring(2));
-			} catch (NumberFormatException e) {
-				logger.warning("EventPublisher: Could not parse channel number from ID: " + channelId);
-			}
-		}
-		return 0;
+	/**
+	 * EventReactor port for a target: 10000 + channel*1000 + port, moved into
+	 * this replication's block (see RoutingTable.reactorPort)
+	 */
+	private int reactorPort(String targetPort, String originalChannelId) {
+	    return RoutingTable.reactorPort(originalChannelId, Integer.parseInt(targetPort));
 	}
 
-	private boolean isIPAddress(String value) {
-	    if (value == null) return false;
+	/**
+	 * Send one datagram on the shared socket
+	 */
+	private void sendDatagram(byte[] payloadBytes, InetAddress targetAddress, int finalPort) throws IOException {
+	    // Use shared socket (thread-safe) - avoids rapid socket creation issues with FORK
+	    synchronized (socketLock) {
+	        if (sharedSocket == null || sharedSocket.isClosed()) {
+	            sharedSocket = new DatagramSocket();
+	            sharedSocket.setSoTimeout(SOCKET_TIMEOUT_MS);
+	            logger.info("EventPublisher: Created shared socket on port " + sharedSocket.getLocalPort());
+	        }
+
+	        // Send packet
+	        DatagramPacket packet = new DatagramPacket(payloadBytes, payloadBytes.length, targetAddress, finalPort);
+	        sharedSocket.send(packet);
+	    }
+	    datagramsSent.increment();
+	}
 
-	    String[] parts = value.split("\\.");
-	    if (parts.length != 4) return false;
+	// ============================================================================
+	// MICRO-BATCHING
+	// ============================================================================
 
+	/**
+	 * Queue a small payload for its destination, or send it immediately if the
+	 * destination has been idle for longer than the latency budget.
+	 * 
+	 * Returns false if the token could not be queued, or if it was sent at
+	 * once and the send failed. A token that fails later, when its batch is
+	 * flushed, is counted in btsn_publisher_batch_send_failures_total and
+	 * logged by flushBatch.
+	 */
+	private boolean publishBatched(String eventPayload, InetSocketAddress target, String eventId) {
+	    // Earlier tokens detached for sending, and the batch holding this token if it goes now
+	    PendingBatch readyBatch = null;
+	    PendingBatch ownBatch = null;
 	    try {
-	        for (String part : parts) {
-	            int num = Integer.parseInt(part);
-	            if (num < 0 || num > 255) return false;
+	        InetAddress targetAddress = target.getAddress();
+	        int finalPort = target.getPort();
+	        String key = targetAddress.getHostAddress() + ":" + finalPort;
+
+	        long now = System.nanoTime();
+	        long budgetNanos = TimeUnit.MILLISECONDS.toNanos(BATCH_LATENCY_MS);
+	        int charLimit = getEffectivePayloadLimit();
+	        boolean sendNow = false;
+	        // Most urgent priority class (PriorityClasses) - never waits out the budget
+	        boolean expedite = PriorityClasses.isEnabled() && PriorityClasses.ofPayload(eventPayload) == 0;
+
+	        synchronized (batchLock) {
+	            PendingBatch batch = pendingBatches.get(key);
+
+	            if (batch == null) {
+	                Long lastSend = lastSendNanos.get(key);
+	                if (expedite || lastSend == null || now - lastSend > budgetNanos) {
+	                    // Destination idle - no batching benefit, don't add latency
+	                    lastSendNanos.put(key, now);
+	                    sendNow = true;
+	                } else {
+	                    batch = openBatch(key, targetAddress, finalPort);
+	                }
+	            } else if (batch.rawChars + eventPayload.length() > charLimit) {
+	                // Would overflow the wire limit - flush what we have and start again
+	                readyBatch = closeBatch(key);
+	                batch = openBatch(key, targetAddress, finalPort);
+	            }
+
+	            if (!sendNow) {
+	                batch.add(eventPayload);
+	                if (expedite || batch.payloads.size() >= BATCH_MAX_TOKENS) {
+	                    // Urgent or full - goes now, with whatever was already waiting for this port
+	                    ownBatch = closeBatch(key);
+	                }
+	            }
+	        }
+
+	        if (readyBatch != null) {
+	            PendingBatch earlier = readyBatch;
+	            readyBatch = null;
+	            flushBatch(earlier);
+	        }
+	        if (ownBatch != null) {
+	            return flushBatch(ownBatch);
+	        }
+	        if (sendNow) {
+	            byte[] payloadBytes = preparePayload(eventPayload, eventId);
+	            sendDatagram(payloadBytes, targetAddress, finalPort);
 	        }
 	        return true;
-	    } catch (NumberFormatException e) {
+
+	    } catch (Exception e) {
+	        logger.log(Level.SEVERE, "EventPublisher: Failed to queue " + eventId + " for batching", e);
+	        if (readyBatch != null) {
+	            // Detached before the failure - still owed a send
+	            flushBatch(readyBatch);
+	        }
 	        return false;
 	    }
 	}
+
+	/**
+	 * Open a new pending batch and schedule its latency-budget flush. Caller holds batchLock.
+	 */
+	private PendingBatch openBatch(String key, InetAddress address, int port) {
+	    PendingBatch batch = new PendingBatch(address, port);
+	    // Scheduled before the batch is visible: if the flusher has shut down
+	    // the caller fails, and no later token joins a batch nothing would flush
+	    batch.flushTask = batchFlusher.schedule(() -> {
+	        PendingBatch due;
+	        synchronized (batchLock) {
+	            due = pendingBatches.get(key) == batch ? closeBatch(key) : null;
+	        }
+	        if (due != null) {
+	            flushBatch(due);
+	        }
+	    }, BATCH_LATENCY_MS, TimeUnit.MILLISECONDS);
+	    pendingBatches.put(key, batch);
+	    return batch;
+	}
+
+	/**
+	 * Detach a pending batch for sending. Caller holds batchLock.
+	 */
+	private PendingBatch closeBatch(String key) {
+	    PendingBatch batch = pendingBatches.remove(key);
+	    if (batch != null) {
+	        if (batch.flushTask != null) {
+	            batch.flushTask.cancel(false);
+	        }
+	        lastSendNanos.put(key, System.nanoTime());
+	    }
+	    return batch;
+	}
+
+	/**
+	 * Frame, compress once and send a batch. Falls back to individual
+	 * datagrams if the compressed frame does not fit the wire limit.
+	 * Tokens that could not be sent are counted and logged; returns true
+	 * only if every token in the batch was sent.
+	 */
+	private boolean flushBatch(PendingBatch batch) {
+	    int unsent = batch.payloads.size();
+	    try {
+	        if (batch.payloads.size() == 1) {
+	            sendDatagram(preparePayload(batch.payloads.get(0), "batch"), batch.address, batch.port);
+	            return true;
+	        }
+
+	        byte[] frameBytes = preparePayload(BatchFrame.encode(batch.payloads), "batch");
+	        if (frameBytes.length <= MAX_WIRE_LENGTH) {
+	            sendDatagram(frameBytes, batch.address, batch.port);
+	            batchesSent.increment();
+	            tokensBatched.add(batch.payloads.size());
+	            logger.fine("EventPublisher: Sent batch of " + batch.payloads.size() + " tokens to " + 
+	                       batch.address.getHostAddress() + ":" + batch.port + " (" + frameBytes.length + " bytes)");
+	            return true;
+	        }
+
+	        logger.fine("EventPublisher: Batch frame too large (" + frameBytes.length + 
+	                   " bytes), sending tokens individually");
+	        for (String payload : batch.payloads) {
+	            sendDatagram(preparePayload(payload, "batch"), batch.address, batch.port);
+	            unsent--;
+	        }
+	        return true;
+	    } catch (Exception e) {
+	        batchedTokensFailed.add(unsent);
+	        logger.log(Level.SEVERE, "EventPublisher: Failed to flush batch to " + 
+	                  batch.address.getHostAddress() + ":" + batch.port + " - " + unsent + " of " +
+	                  batch.payloads.size() + " tokens lost", e);
+	        return false;
+	    }
+	}
+
+	/**
+	 * Send every pending batch now (used at shutdown)
+	 */
+	private void flushAllBatches() {
+	    List<PendingBatch> remaining = new ArrayList<>();
+	    synchronized (batchLock) {
+	        for (String key : new ArrayList<>(pendingBatches.keySet())) {
+	            remaining.add(closeBatch(key));
+	        }
+	    }
+	    for (PendingBatch batch : remaining) {
+	        flushBatch(batch);
+	    }
+	}
+	
+	private boolean isIPAddress(String value) {
+	    return RoutingTable.isIPv4Literal(value);
+	}
 	
 	private int extractChannelNumber(String channel) {
 		try {
@@ -335,6 +665,15 @@ public class EventPublisher {
 	}
 
 	private byte[] preparePayload(String eventPayload, String eventId) throws IOException {
+		if (COMPRESSION_ENABLED && DICTIONARY_COMPRESSION) {
+			try {
+				// Per-thread Deflater with preset dictionary - no round-trip validation needed,
+				// the dictionary version travels in the packet header
+				return PayloadCompression.compress(eventPayload, DICTIONARY_VERSION);
+			} catch (IOException e) {
+				logger.warning("EventPublisher: Dictionary compression failed (" + e.getMessage() + "), using GZIP");
+			}
+		}
 		if (COMPRESSION_ENABLED) {
 			try {
 				byte[] compressed = compressPayload(eventPayload);
@@ -387,7 +726,7 @@ public class EventPublisher {
 			String loaderSettings = serviceLoaderDirectory + "loaderSettings.xml";
 
 			String xmlSettings = StringFileIO.readFileAsString(loaderSettings);
-			TreeMap<String, String> settingsMap = xph.findMultipleXMLItems(xmlSettings, "//PublisherSettings/*");
+			TreeMap<String, String> settingsMap = LoaderSettings.section(xmlSettings, "PublisherSettings");
 
 			if (settingsMap.containsKey("maxWireLength")) {
 				MAX_WIRE_LENGTH = Integer.valueOf(settingsMap.get("maxWireLength"));
@@ -398,6 +737,26 @@ public class EventPublisher {
 			if (settingsMap.containsKey("compressionEnabled")) {
 				COMPRESSION_ENABLED = Boolean.valueOf(settingsMap.get("compressionEnabled"));
 			}
+			if (settingsMap.containsKey("compressionMode")) {
+				DICTIONARY_COMPRESSION = "DICTIONARY".equalsIgnoreCase(settingsMap.get("compressionMode").trim());
+			}
+			if (settingsMap.containsKey("dictionaryVersion")) {
+				DICTIONARY_VERSION = Integer.valueOf(settingsMap.get("dictionaryVersion").trim());
+			}
+			if (settingsMap.containsKey("batchingEnabled")) {
+				BATCHING_ENABLED = Boolean.valueOf(settingsMap.get("batchingEnabled").trim());
+			}
+			if (settingsMap.containsKey("batchLatencyMs")) {
+				BATCH_LATENCY_MS = Integer.valueOf(settingsMap.get("batchLatencyMs").trim());
+			}
+			if (settingsMap.containsKey("batchMaxTokens")) {
+				// The reactor rejects frames of more than BatchFrame.MAX_BATCH_TOKENS
+				BATCH_MAX_TOKENS = Math.min(Integer.valueOf(settingsMap.get("batchMaxTokens").trim()),
+						BatchFrame.MAX_BATCH_TOKENS);
+			}
+			if (settingsMap.containsKey("localDelivery")) {
+				LOCAL_DELIVERY = Boolean.valueOf(settingsMap.get("localDelivery").trim());
+			}
 
 			logger.info("EventPublisher: Config - MaxWireLength: " + MAX_WIRE_LENGTH + ", SocketTimeout: "
 					+ SOCKET_TIMEOUT_MS + "ms");
@@ -407,6 +766,8 @@ public class EventPublisher {
 			MAX_WIRE_LENGTH = 4096;
 			SOCKET_TIMEOUT_MS = 5000;
 			COMPRESSION_ENABLED = true;
+			DICTIONARY_COMPRESSION = false;
+			BATCHING_ENABLED = false;
 		}
 	}
 
@@ -416,6 +777,10 @@ public class EventPublisher {
 	}
 
 	public void shutdown() {
+		if (batchFlusher != null) {
+			flushAllBatches();
+			batchFlusher.shutdown();
+		}
 		synchronized (socketLock) {
 			if (sharedSocket != null && !sharedSocket.isClosed()) {
 				sharedSocket.close();
@@ -7,6 +7,9 @@ import java.net.*;
 import org.btsn.utils.BuildRuleBase;
 import org.btsn.utils.CreateDirectory;
 import org.btsn.utils.CreateFile;
+import org.btsn.utils.Replication;
+import org.btsn.utils.RoutingTable;
+import org.btsn.utils.RuleSnapshot;
 import org.btsn.utils.StringFileIO;
 import org.btsn.utils.XPathHelper;
 
@@ -172,7 +175,7 @@ public class RuleHandler {
             String commitmentCount = XPathHelper.findXMLItem(incomingXMLrulePayLoad, commitmentPath);
             
             String path = new File("").getAbsolutePath();
-            String rulePath = path + "/RuleFolder." + ruleBaseVersion;
+            String rulePath = Replication.ruleFolder(new File(path), ruleBaseVersion).getPath();
             String operationRulePath = rulePath + "/" + operationName;
 
             String ruleFileName = serviceName + controlFileName;
@@ -187,6 +190,27 @@ public class RuleHandler {
 
             BuildRuleBase.buildOperationRuleBase(serviceName, operationName, ruleBaseVersion);
 
+            // Hand the rebuilt rules to the ServiceThread as one snapshot; it
+            // switches to them on its next token instead of rereading the file
+            try {
+                RuleSnapshot.commit(RuleSnapshot.load(ruleBaseVersion, operationName,
+                        operationRulePath + "/Service.ruleml"));
+            } catch (IOException e) {
+                System.err.println("RuleHandler: Could not read rebuilt rules for " + ruleBaseVersion + ":"
+                        + operationName + ": " + e.getMessage());
+                RuleSnapshot.discard(ruleBaseVersion, operationName);
+            }
+            
+            // Resolve this operation's routes once, before any token is routed under it
+            try {
+                RoutingTable.commit(RoutingTable.load(ruleBaseVersion, operationName,
+                        operationRulePath + "/Service.ruleml"));
+            } catch (Exception e) {
+                System.err.println("RuleHandler: Could not build routing table for " + ruleBaseVersion + ":"
+                        + operationName + ": " + e.getMessage());
+                RoutingTable.discard(ruleBaseVersion, operationName);
+            }
+            
             // FIXED: Send commitment with version and count
          //   String commitmentMessage = "CONFIRMED:" + ruleBaseVersion + ":" + commitmentCount;
             String commitmentMessage = "<?xml version=\"1.0\"?>" +
@@ -291,7 +315,7 @@ public class RuleHandler {
             String numericPart = version.replaceAll("[^0-9]", "");
             if (!numericPart.isEmpty()) {
                 int versionNumber = Integer.parseInt(numericPart);
-                return BASE_CONFIRMATION_PORT + versionNumber;
+                return Replication.port(BASE_CONFIRMATION_PORT + versionNumber);
             }
         } catch (NumberFormatException e) {
             System.err.println("Could not parse version number from: " + version);
@@ -299,7 +323,7 @@ public class RuleHandler {
         
         // Fallback: use hash-based offset
         int hashOffset = Math.abs(version.hashCode() % 100) + 1;
-        return BASE_CONFIRMATION_PORT + hashOffset;
+        return Replication.port(BASE_CONFIRMATION_PORT + hashOffset);
     }
     
     /**
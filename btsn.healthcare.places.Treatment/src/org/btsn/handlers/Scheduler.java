@@ -1,38 +1,41 @@
 package org.btsn.handlers;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.TreeMap;
 
-import org.btsn.utils.XPathHelperCommon;
+import org.btsn.constants.TokenId;
+import org.btsn.utils.SimulationClock;
 
 public class Scheduler {
 
-	public ArrayList<Long> prioritiseToken(int queueAction, String servicePacket) throws IOException {
+	/** Rejected because the reactor queue is full and the token is not part of an open join */
+	public static final long REJECT_QUEUE_FULL = -1L;
+	/** Rejected because joinAttribute/notAfter has already passed */
+	public static final long REJECT_EXPIRED = -2L;
+
+	ArrayList<Long> prioritiseToken(int queueAction, TokenEnvelope token) {
 		long costKey = 0;
 
 		ArrayList<Long> returnArgs = new ArrayList<Long>();
 
-		TreeMap<String, String> headerMap = new TreeMap<String, String>();
-		XPathHelperCommon xph = new XPathHelperCommon();
-		TreeMap<String, String> attrMap = new TreeMap<String, String>();
+		// Sections parsed once on arrival (TokenEnvelope) - not re-read from the XML here
+		TreeMap<String, String> headerMap = token.header();
+		TreeMap<String, String> attrMap = token.joinAttribute();
 		/*
 		 * Determine if Least Remaining Deadline is to be used
 		 */
 		try {
-			headerMap = xph.findMultipleXMLItems(servicePacket, "//header/*");
-			attrMap = xph.findMultipleXMLItems(servicePacket, "//joinAttribute/*");
 			boolean priorityOrder = Boolean.parseBoolean(headerMap.get("priortiseSID"));
 
 			/*
 			 * If the queue is full and a token is not available, then ditch the packet and do nothing. The advantage of
 			 * this approach is that the queue can grow if the reactor has already received one argument in a join.
 			 */
-			int sid = Integer.parseInt(headerMap.get("sequenceId"));
+			long sid = TokenId.parse(headerMap.get("sequenceId"));
 
 			if (!(queueAction > 0)) {
-				if (!ServiceThread.argValPriorityMap.containsKey(sid)) {
-					costKey = -1;
+				if (!ServiceThread.hasOpenJoin(sid)) {
+					costKey = REJECT_QUEUE_FULL;
 					returnArgs.add(costKey);
 					return returnArgs;
 				}
@@ -41,12 +44,14 @@ public class Scheduler {
 			 * sequenceID is used to prioritise the queue if LRD is selected - first check to see if token has expired
 			 */
 
-			long timeofArrival = System.currentTimeMillis();
+			// In VIRTUAL clock mode the token arrives at the simulated time it carries
+			long timeofArrival = SimulationClock.isVirtual()
+					? SimulationClock.parseSimTime(token.monitorData().get(SimulationClock.SIM_TIME))
+					: System.currentTimeMillis();
 			long notAfter = Long.parseLong(attrMap.get("notAfter"));
 
-			attrMap = xph.findMultipleXMLItems(servicePacket, "//joinAttribute/*");
 			if (timeofArrival > notAfter) {
-				costKey = -1;
+				costKey = REJECT_EXPIRED;
 				returnArgs.add(costKey);
 				return returnArgs;
 			}
@@ -62,7 +67,9 @@ public class Scheduler {
 			 */
 			//costKey = sid;
 			//costKey = (sid * 1000L) + (System.currentTimeMillis() % 1000);
-			costKey = (sid * 1000L) + (System.currentTimeMillis() % 1000);
+			// 64-bit TokenIds leave no room for the millisecond suffix; the reactor
+			// resolves equal keys itself
+			costKey = TokenId.sequenceKey(sid);
 
 			/* if (!priorityOrder) { */
 			/*
@@ -83,10 +90,14 @@ public class Scheduler {
 			 * priority based on notAfter is set, and costKey is notAfter, and returnArgs(2) = timeofArrival and
 			 * returnArgs(3) is notAfter to assist
 			 */
+			/*
+			 * returnArgs(2) = notAfter, returnArgs(3) = timeofArrival so the reactor's SchedulingPolicy can order
+			 * and admit on deadline without re-parsing the packet
+			 */
 			returnArgs.add(costKey);
-			returnArgs.add((long) sid);
-			// returnArgs.add(System.currentTimeMillis()); // This is eventStartTime
-			// returnArgs.add(notAfter);
+			returnArgs.add(sid);
+			returnArgs.add(notAfter);
+			returnArgs.add(timeofArrival);
 
 		} catch (Exception e1) {
 			// TODO Auto-generated catch block
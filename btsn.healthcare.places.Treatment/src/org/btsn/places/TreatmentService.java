@@ -71,7 +71,7 @@ public class TreatmentService extends BaseHealthcareService {
     
     private static String generateNurseId(String sequenceID) {
         try {
-            return "RN_TREAT_" + (Integer.parseInt(sequenceID) % 1000);
+            return "RN_TREAT_" + (Long.parseLong(sequenceID) % 1000);
         } catch (NumberFormatException e) {
             return "RN_TREAT_" + Math.abs(sequenceID.hashCode() % 1000);
         }
@@ -5,6 +5,7 @@ import org.btsn.base.BaseServiceAssessment;
 import org.btsn.base.ServiceAssessment;
 import org.btsn.base.TokenInfo;
 import org.btsn.exceptions.ServiceProcessingException;
+import org.btsn.json.TokenDocument;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -83,6 +84,23 @@ public class TriageService extends BaseHealthcareService {
         return businessResults;
     }
     
+    /**
+     * Parsed-form entry point - ServiceHelper passes the token it already parsed
+     * and enriches the returned document without parsing it again
+     */
+    public TokenDocument processTriageAssessment(TokenDocument cleanBusinessData) {
+        System.out.printf("[%s] ========== TRIAGE SERVICE EXECUTION START ==========\n", getPlaceId());
+        
+        // Condition patterns match the token text - unchanged documents return it without serializing
+        this.currentCondition = extractConditionFromRawToken(cleanBusinessData.toJSONString());
+        System.out.printf("[%s] Extracted condition: [%s]\n", getPlaceId(), currentCondition);
+        
+        TokenDocument businessResults = processAssessment(cleanBusinessData);
+        
+        System.out.printf("[%s] ========== TRIAGE ASSESSMENT COMPLETE ==========\n", getPlaceId());
+        return businessResults;
+    }
+    
     // ===== FRAMEWORK IMPLEMENTATION METHODS =====
     
     @Override
@@ -685,6 +703,8 @@ public class TriageService extends BaseHealthcareService {
             
             json.append(jsonField("triage_nurse", "RN_TRIAGE")).append(",");
             json.append(jsonField("triage_priority", triagePriority)).append(",");
+            // Acuity as the token's priority class - the reactors serve CRITICAL patients first
+            json.append(jsonField("priorityClass", triagePriority)).append(",");
             json.append(jsonField("pain_score", painScore + "/10")).append(",");
             
             if (actualCondition != null && !actualCondition.equals("unknown")) {
@@ -15,7 +15,9 @@ import java.util.TreeMap;
 import org.apache.derby.jdbc.EmbeddedDriver;
 import org.apache.log4j.Logger;
 import org.apache.log4j.PropertyConfigurator;
+import org.btsn.constants.TokenId;
 import org.btsn.constants.VersionConstants;
+import org.btsn.utils.SimulationClock;
 import org.json.simple.JSONObject;
 
 /**
@@ -49,6 +51,10 @@ import org.json.simple.JSONObject;
  * 
  * TOTAL: 13 TABLES
  * 
+ * Timestamps written here come from SimulationClock (via ServiceThread and
+ * the instrumentation helper), so in VIRTUAL clock mode every table holds
+ * simulated time and the analysis reads it unchanged.
+ * 
  * @version 2.0
  * @author BTSN Team
  */
@@ -691,7 +697,7 @@ public class BuildServiceAnalysisDatabase {
 	/**
 	 * Write marking record to MARKINGS table - Direct parameter version
 	 */
-	public void writeMarkingRecord(int workflowBase, int sequenceID, String serviceName, 
+	public void writeMarkingRecord(long workflowBase, long sequenceID, String serviceName, 
 									String operation, long arrivalTime, long invocationTime, 
 									long publishTime, long workflowStartTime, int bufferSize, 
 									int maxQueueCapacity, int totalMarking) throws SQLException {
@@ -715,7 +721,7 @@ public class BuildServiceAnalysisDatabase {
 			pstmt.setInt(9, bufferSize);
 			pstmt.setInt(10, maxQueueCapacity);
 			pstmt.setInt(11, totalMarking);
-			pstmt.setLong(12, System.currentTimeMillis());
+			pstmt.setLong(12, SimulationClock.now());
 
 			pstmt.executeUpdate();
 
@@ -729,9 +735,8 @@ public class BuildServiceAnalysisDatabase {
 	 * Write marking record using Map (for compatibility with existing write methods)
 	 */
 	public void writeMarkingRecord(Map<String, String> markingData) throws SQLException {
-		int sequenceID = parseIntValue(markingData.get("sequenceID"), 0);
-		int workflowBase = VersionConstants.getWorkflowBase(
-			VersionConstants.getVersionFromSequenceId(sequenceID));
+		long sequenceID = parseLongValue(markingData.get("sequenceID"), 0L);
+		long workflowBase = VersionConstants.getWorkflowBaseFromSequenceId(sequenceID);
 		
 		String serviceName = markingData.get("serviceName");
 		String operation = markingData.get("operation");
@@ -757,6 +762,17 @@ public class BuildServiceAnalysisDatabase {
 	 * Records when a transition fires (token moves from place to place)
 	 */
 	public void writeTransitionFiring(TreeMap<String, String> record) {
+		writeTransitionFirings(Arrays.asList(record));
+	}
+	
+	/**
+	 * Write a batch of transition firing records - one connection, one commit
+	 * (PetriNetInstrumentationHelper's background writer)
+	 */
+	public void writeTransitionFirings(List<TreeMap<String, String>> records) {
+		if (records.isEmpty()) {
+			return;
+		}
 		String sql = "INSERT INTO " + TRANSITION_FIRINGS_TABLE + 
 				" (timestamp, transitionId, transitionType, tokenId, workflowBase, " +
 				"fromPlace, toPlace, forkDecision, joinState, bufferSize, ruleVersion, eventType) " +
@@ -767,49 +783,57 @@ public class BuildServiceAnalysisDatabase {
 		
 		try {
 			conn = getConnection();
+			conn.setAutoCommit(false);
 			pstmt = conn.prepareStatement(sql);
 			
-			pstmt.setLong(1, parseLongValue(record.get("timestamp"), 0));
-			pstmt.setString(2, record.get("transitionId"));
-			pstmt.setString(3, record.get("transitionType"));
-			pstmt.setLong(4, parseLongValue(record.get("tokenId"), 0));
-			pstmt.setLong(5, parseLongValue(record.get("workflowBase"), 0));
-			pstmt.setString(6, record.get("fromPlace"));
-			pstmt.setString(7, record.get("toPlace"));
-			pstmt.setString(8, record.get("forkDecision"));
-			pstmt.setString(9, record.get("joinState"));
-			
-			// Handle bufferSize and ruleVersion
-			String bufferSizeStr = record.get("bufferSize");
-			if (bufferSizeStr != null && !bufferSizeStr.isEmpty()) {
-				pstmt.setInt(10, parseIntValue(bufferSizeStr, 0));
-			} else {
-				pstmt.setNull(10, java.sql.Types.INTEGER);
-			}
-			
-			String ruleVersionStr = record.get("ruleVersion");
-			if (ruleVersionStr != null && !ruleVersionStr.isEmpty()) {
-				pstmt.setString(11, ruleVersionStr);
-			} else {
-				pstmt.setNull(11, java.sql.Types.VARCHAR);
-			}
-			
-			// Handle eventType
-			String eventTypeStr = record.get("eventType");
-			if (eventTypeStr != null && !eventTypeStr.isEmpty()) {
-				pstmt.setString(12, eventTypeStr);
-			} else {
-				pstmt.setNull(12, java.sql.Types.VARCHAR);
+			for (TreeMap<String, String> record : records) {
+				pstmt.setLong(1, parseLongValue(record.get("timestamp"), 0));
+				pstmt.setString(2, record.get("transitionId"));
+				pstmt.setString(3, record.get("transitionType"));
+				pstmt.setLong(4, parseLongValue(record.get("tokenId"), 0));
+				pstmt.setLong(5, parseLongValue(record.get("workflowBase"), 0));
+				pstmt.setString(6, record.get("fromPlace"));
+				pstmt.setString(7, record.get("toPlace"));
+				pstmt.setString(8, record.get("forkDecision"));
+				pstmt.setString(9, record.get("joinState"));
+				
+				// Handle bufferSize and ruleVersion
+				String bufferSizeStr = record.get("bufferSize");
+				if (bufferSizeStr != null && !bufferSizeStr.isEmpty()) {
+					pstmt.setInt(10, parseIntValue(bufferSizeStr, 0));
+				} else {
+					pstmt.setNull(10, java.sql.Types.INTEGER);
+				}
+				
+				String ruleVersionStr = record.get("ruleVersion");
+				if (ruleVersionStr != null && !ruleVersionStr.isEmpty()) {
+					pstmt.setString(11, ruleVersionStr);
+				} else {
+					pstmt.setNull(11, java.sql.Types.VARCHAR);
+				}
+				
+				// Handle eventType
+				String eventTypeStr = record.get("eventType");
+				if (eventTypeStr != null && !eventTypeStr.isEmpty()) {
+					pstmt.setString(12, eventTypeStr);
+				} else {
+					pstmt.setNull(12, java.sql.Types.VARCHAR);
+				}
+				
+				pstmt.addBatch();
 			}
 			
-			pstmt.executeUpdate();
+			pstmt.executeBatch();
+			conn.commit();
 			
-			logger.debug("Wrote transition firing: " + record.get("transitionId") + 
-						" token=" + record.get("tokenId") + 
-						" eventType=" + record.get("eventType"));
+			logger.debug("Wrote " + records.size() + " transition firing(s), last: " + 
+						records.get(records.size() - 1).get("transitionId") + 
+						" token=" + records.get(records.size() - 1).get("tokenId"));
 			
 		} catch (SQLException e) {
-			logger.error("Failed to write transition firing: " + record.get("transitionId"), e);
+			rollback(conn);
+			logger.error("Failed to write " + records.size() + " transition firing(s), first: " + 
+					records.get(0).get("transitionId"), e);
 		} finally {
 			close(null, pstmt, conn);
 		}
@@ -819,6 +843,16 @@ public class BuildServiceAnalysisDatabase {
 	 * Write token genealogy record (parent-child relationship from fork)
 	 */
 	public void writeTokenGenealogy(TreeMap<String, String> record) {
+		writeTokenGenealogies(Arrays.asList(record));
+	}
+	
+	/**
+	 * Write a batch of token genealogy records - one connection, one commit
+	 */
+	public void writeTokenGenealogies(List<TreeMap<String, String>> records) {
+		if (records.isEmpty()) {
+			return;
+		}
 		String sql = "INSERT INTO " + TOKEN_GENEALOGY_TABLE + 
 				" (parentTokenId, childTokenId, forkTransitionId, forkTimestamp, workflowBase) " +
 				"VALUES (?, ?, ?, ?, ?)";
@@ -828,21 +862,26 @@ public class BuildServiceAnalysisDatabase {
 		
 		try {
 			conn = getConnection();
+			conn.setAutoCommit(false);
 			pstmt = conn.prepareStatement(sql);
 			
-			pstmt.setLong(1, parseLongValue(record.get("parentTokenId"), 0));
-			pstmt.setLong(2, parseLongValue(record.get("childTokenId"), 0));
-			pstmt.setString(3, record.get("forkTransitionId"));
-			pstmt.setLong(4, parseLongValue(record.get("forkTimestamp"), 0));
-			pstmt.setLong(5, parseLongValue(record.get("workflowBase"), 0));
+			for (TreeMap<String, String> record : records) {
+				pstmt.setLong(1, parseLongValue(record.get("parentTokenId"), 0));
+				pstmt.setLong(2, parseLongValue(record.get("childTokenId"), 0));
+				pstmt.setString(3, record.get("forkTransitionId"));
+				pstmt.setLong(4, parseLongValue(record.get("forkTimestamp"), 0));
+				pstmt.setLong(5, parseLongValue(record.get("workflowBase"), 0));
+				pstmt.addBatch();
+			}
 			
-			pstmt.executeUpdate();
+			pstmt.executeBatch();
+			conn.commit();
 			
-			logger.debug("Wrote token genealogy: parent=" + record.get("parentTokenId") + 
-						" -> child=" + record.get("childTokenId"));
+			logger.debug("Wrote " + records.size() + " token genealogy record(s)");
 			
 		} catch (SQLException e) {
-			logger.error("Failed to write token genealogy", e);
+			rollback(conn);
+			logger.error("Failed to write " + records.size() + " token genealogy record(s)", e);
 		} finally {
 			close(null, pstmt, conn);
 		}
@@ -896,8 +935,8 @@ public class BuildServiceAnalysisDatabase {
 	/**
 	 * Update join records with continuation token when join completes
 	 */
-	public void updateJoinCompletion(String joinTransitionId, int workflowBase, 
-									int continuationTokenId) {
+	public void updateJoinCompletion(String joinTransitionId, long workflowBase, 
+									long continuationTokenId) {
 		String sql = "UPDATE " + JOIN_SYNCHRONIZATION_TABLE + 
 				" SET continuationTokenId = ?, status = 'COMPLETE' " +
 				"WHERE joinTransitionId = ? AND workflowBase = ?";
@@ -930,7 +969,7 @@ public class BuildServiceAnalysisDatabase {
 	/**
 	 * Get the number of tokens that have arrived at a join
 	 */
-	public int getJoinTokenCount(String joinTransitionId, int workflowBase) {
+	public int getJoinTokenCount(String joinTransitionId, long workflowBase) {
 		String sql = "SELECT COUNT(*) as tokenCount FROM " + JOIN_SYNCHRONIZATION_TABLE + 
 				" WHERE joinTransitionId = ? AND workflowBase = ?";
 		
@@ -962,8 +1001,8 @@ public class BuildServiceAnalysisDatabase {
 	/**
 	 * Get all tokens that have contributed to a join
 	 */
-	public ArrayList<Integer> getContributingTokens(String joinTransitionId, int workflowBase) {
-		ArrayList<Integer> tokens = new ArrayList<>();
+	public ArrayList<Long> getContributingTokens(String joinTransitionId, long workflowBase) {
+		ArrayList<Long> tokens = new ArrayList<>();
 		
 		String sql = "SELECT tokenId FROM " + JOIN_SYNCHRONIZATION_TABLE + 
 				" WHERE joinTransitionId = ? AND workflowBase = ? " +
@@ -982,7 +1021,7 @@ public class BuildServiceAnalysisDatabase {
 			
 			rs = pstmt.executeQuery();
 			while (rs.next()) {
-				tokens.add((int) rs.getLong("tokenId"));
+				tokens.add(rs.getLong("tokenId"));
 			}
 			
 		} catch (SQLException e) {
@@ -1002,7 +1041,7 @@ public class BuildServiceAnalysisDatabase {
 	 * Read service measurements filtered by workflow base
 	 * This prevents mixing different test runs
 	 */
-	public TreeMap<Integer, ArrayList<Object>> readServiceMeasurementsByWorkflowBase(int workflowBase)
+	public TreeMap<Integer, ArrayList<Object>> readServiceMeasurementsByWorkflowBase(long workflowBase)
 			throws SQLException {
 		TreeMap<Integer, ArrayList<Object>> measurements = new TreeMap<>();
 
@@ -1016,7 +1055,7 @@ public class BuildServiceAnalysisDatabase {
 			 PreparedStatement pstmt = conn.prepareStatement(query)) {
 			
 			pstmt.setLong(1, workflowBase);
-			pstmt.setLong(2, workflowBase + 100); // Next workflow base
+			pstmt.setLong(2, TokenId.familyRangeEnd(workflowBase)); // Next workflow base
 
 			ResultSet rs = pstmt.executeQuery();
 
@@ -1048,7 +1087,7 @@ public class BuildServiceAnalysisDatabase {
 	/**
 	 * Read service measurements for a specific sequence ID
 	 */
-	public TreeMap<Integer, ArrayList<Object>> readServiceMeasurementsBySequenceId(int sequenceId) 
+	public TreeMap<Integer, ArrayList<Object>> readServiceMeasurementsBySequenceId(long sequenceId) 
 			throws SQLException {
 		TreeMap<Integer, ArrayList<Object>> measurements = new TreeMap<>();
 
@@ -1090,14 +1129,14 @@ public class BuildServiceAnalysisDatabase {
 	/**
 	 * Read service measurements (all for a workflow base)
 	 */
-	public TreeMap<Integer, ArrayList<Object>> readServiceMeasurements(int workflowBase) throws SQLException {
+	public TreeMap<Integer, ArrayList<Object>> readServiceMeasurements(long workflowBase) throws SQLException {
 		return readServiceMeasurementsByWorkflowBase(workflowBase);
 	}
 
 	/**
 	 * Read marking data filtered by workflow base
 	 */
-	public TreeMap<Integer, ArrayList<Object>> readMarkingsByWorkflowBase(int workflowBase) 
+	public TreeMap<Integer, ArrayList<Object>> readMarkingsByWorkflowBase(long workflowBase) 
 			throws SQLException {
 		TreeMap<Integer, ArrayList<Object>> markings = new TreeMap<>();
 
@@ -1109,7 +1148,7 @@ public class BuildServiceAnalysisDatabase {
 			 PreparedStatement pstmt = conn.prepareStatement(query)) {
 			
 			pstmt.setLong(1, workflowBase);
-			pstmt.setLong(2, workflowBase + 100); // Next workflow base
+			pstmt.setLong(2, TokenId.familyRangeEnd(workflowBase)); // Next workflow base
 
 			ResultSet rs = pstmt.executeQuery();
 
@@ -1143,7 +1182,7 @@ public class BuildServiceAnalysisDatabase {
 	/**
 	 * Read marking data for a specific sequence ID
 	 */
-	public TreeMap<Integer, ArrayList<Object>> readMarkingsBySequenceId(int sequenceId) 
+	public TreeMap<Integer, ArrayList<Object>> readMarkingsBySequenceId(long sequenceId) 
 			throws SQLException {
 		TreeMap<Integer, ArrayList<Object>> markings = new TreeMap<>();
 
@@ -1638,6 +1677,16 @@ public class BuildServiceAnalysisDatabase {
 		closeConnection(conn);
 	}
 
+	private static void rollback(Connection conn) {
+		if (conn != null) {
+			try {
+				conn.rollback();
+			} catch (SQLException e) {
+				// Silent rollback
+			}
+		}
+	}
+
 	private static void closeResultSet(ResultSet rs) {
 		if (rs != null) {
 			try {
@@ -0,0 +1,210 @@
+package org.btsn.handlers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.btsn.utils.SimulationClock;
+
+/**
+ * Serialize-once envelope for fork fan-out.
+ *
+ * A ForkNode (or a GatewayNode that matches several arcs) sends the same
+ * token to N destinations. Only a handful of fields differ per branch - the
+ * child sequenceId, the destination service/operation and the attributeName
+ * it is bound to, the tokenId/sequenceId echoed in the JSON body, and the
+ * publish and simulated times stamped into monitorData as each branch is
+ * sent. The rest of the payload is identical, so the DOM
+ * parse/modify/serialize of XPathHelperCommon.modifyMultipleXMLItems is done
+ * once for the first branch and the resulting text is kept as a template
+ * with the offsets of those fields recorded as slots:
+ *
+ *   header/sequenceId          - SEQUENCE_ID
+ *   service/serviceName        - SERVICE_NAME
+ *   service/operation          - OPERATION
+ *   joinAttribute/attributeName - ATTRIBUTE_NAME
+ *   "tokenId":"n" / "sequenceId":"n" in the body - PAYLOAD_TOKEN_ID
+ *   monitorData/publishTime    - PUBLISH_TIME
+ *   monitorData/simTime        - SIM_TIME (virtual clock only)
+ *
+ * Child token IDs of one fork differ only in their low branch bits and so
+ * almost always share a decimal width, as do millisecond timestamps, so in
+ * the common case every branch is a copy of the template with a few
+ * characters overwritten in place. When a slot value has a different width
+ * (e.g. routes to services with different name lengths) the branch is spliced
+ * into a single pre-sized buffer instead - still one linear copy, no parse.
+ */
+final class ForkEnvelope {
+
+	static final int SEQUENCE_ID = 0;
+	static final int SERVICE_NAME = 1;
+	static final int OPERATION = 2;
+	static final int ATTRIBUTE_NAME = 3;
+	static final int PAYLOAD_TOKEN_ID = 4;
+	static final int PUBLISH_TIME = 5;
+	static final int SIM_TIME = 6;
+	private static final int SLOT_KINDS = 7;
+
+	private static final Pattern PAYLOAD_ID_PATTERN = Pattern.compile("\"(?:tokenId|sequenceId)\":\"(\\d+)\"");
+
+	private final char[] template;
+	// Slots sorted by start offset
+	private final int[] slotKind;
+	private final int[] slotStart;
+	private final int[] slotEnd;
+
+	private ForkEnvelope(char[] template, int[] slotKind, int[] slotStart, int[] slotEnd) {
+		this.template = template;
+		this.slotKind = slotKind;
+		this.slotStart = slotStart;
+		this.slotEnd = slotEnd;
+	}
+
+	/**
+	 * Build an envelope from a fully serialized payload.
+	 *
+	 * @return the envelope, or null if any of the XML slots cannot be located
+	 *         (e.g. an element serialized as empty), or the simTime slot in
+	 *         virtual-clock mode - callers then fall back to the per-branch
+	 *         DOM path
+	 */
+	static ForkEnvelope of(String serialized) {
+		if (serialized == null) {
+			return null;
+		}
+		List<int[]> slots = new ArrayList<>();
+		if (!addElementSlot(slots, serialized, "header", "sequenceId", SEQUENCE_ID)
+				|| !addElementSlot(slots, serialized, "service", "serviceName", SERVICE_NAME)
+				|| !addElementSlot(slots, serialized, "service", "operation", OPERATION)
+				|| !addElementSlot(slots, serialized, "joinAttribute", "attributeName", ATTRIBUTE_NAME)
+				|| !addElementSlot(slots, serialized, "monitorData", LocalTransport.PUBLISH_TIME, PUBLISH_TIME)) {
+			return null;
+		}
+		if (SimulationClock.isVirtual()
+				&& !addElementSlot(slots, serialized, "monitorData", SimulationClock.SIM_TIME, SIM_TIME)) {
+			return null;
+		}
+
+		Matcher m = PAYLOAD_ID_PATTERN.matcher(serialized);
+		while (m.find()) {
+			slots.add(new int[] { PAYLOAD_TOKEN_ID, m.start(1), m.end(1) });
+		}
+
+		slots.sort((a, b) -> Integer.compare(a[1], b[1]));
+		int[] kind = new int[slots.size()];
+		int[] start = new int[slots.size()];
+		int[] end = new int[slots.size()];
+		for (int i = 0; i < slots.size(); i++) {
+			kind[i] = slots.get(i)[0];
+			start[i] = slots.get(i)[1];
+			end[i] = slots.get(i)[2];
+		}
+		return new ForkEnvelope(serialized.toCharArray(), kind, start, end);
+	}
+
+	/**
+	 * Produce the payload for one branch. A null value (or a null
+	 * monitorData map) leaves that slot as it was in the template.
+	 */
+	String render(String sequenceId, String serviceName, String operation, String attributeName,
+			String payloadTokenId, Map<String, String> monitorData) {
+		String[] values = new String[SLOT_KINDS];
+		values[SEQUENCE_ID] = sequenceId;
+		values[SERVICE_NAME] = escape(serviceName);
+		values[OPERATION] = escape(operation);
+		values[ATTRIBUTE_NAME] = escape(attributeName);
+		values[PAYLOAD_TOKEN_ID] = payloadTokenId;
+		if (monitorData != null) {
+			values[PUBLISH_TIME] = escape(monitorData.get(LocalTransport.PUBLISH_TIME));
+			values[SIM_TIME] = escape(monitorData.get(SimulationClock.SIM_TIME));
+		}
+
+		boolean fixedWidth = true;
+		int length = template.length;
+		for (int i = 0; i < slotKind.length; i++) {
+			String value = values[slotKind[i]];
+			if (value != null) {
+				int delta = value.length() - (slotEnd[i] - slotStart[i]);
+				if (delta != 0) {
+					fixedWidth = false;
+					length += delta;
+				}
+			}
+		}
+
+		if (fixedWidth) {
+			char[] out = template.clone();
+			for (int i = 0; i < slotKind.length; i++) {
+				String value = values[slotKind[i]];
+				if (value != null) {
+					value.getChars(0, value.length(), out, slotStart[i]);
+				}
+			}
+			return new String(out);
+		}
+
+		StringBuilder sb = new StringBuilder(length);
+		int pos = 0;
+		for (int i = 0; i < slotKind.length; i++) {
+			String value = values[slotKind[i]];
+			if (value == null) {
+				continue;
+			}
+			sb.append(template, pos, slotStart[i] - pos).append(value);
+			pos = slotEnd[i];
+		}
+		sb.append(template, pos, template.length - pos);
+		return sb.toString();
+	}
+
+	int getSlotCount() {
+		return slotKind.length;
+	}
+
+	/**
+	 * A branch's JSON body with its PAYLOAD_TOKEN_ID slots set, for a branch
+	 * handed to a co-located reactor without being serialized.
+	 */
+	static String patchPayloadTokenId(String body, String payloadTokenId) {
+		Matcher m = PAYLOAD_ID_PATTERN.matcher(body);
+		StringBuilder sb = null;
+		int pos = 0;
+		while (m.find()) {
+			if (sb == null) {
+				sb = new StringBuilder(body.length());
+			}
+			sb.append(body, pos, m.start(1)).append(payloadTokenId);
+			pos = m.end(1);
+		}
+		return sb == null ? body : sb.append(body, pos, body.length()).toString();
+	}
+
+	private static boolean addElementSlot(List<int[]> slots, String xml, String section, String element, int kind) {
+		int sectionStart = xml.indexOf("<" + section + ">");
+		int sectionEnd = xml.indexOf("</" + section + ">", sectionStart + 1);
+		if (sectionStart < 0 || sectionEnd < 0) {
+			return false;
+		}
+		String open = "<" + element + ">";
+		int valueStart = xml.indexOf(open, sectionStart);
+		if (valueStart < 0 || valueStart > sectionEnd) {
+			return false;
+		}
+		valueStart += open.length();
+		int valueEnd = xml.indexOf("</" + element + ">", valueStart);
+		if (valueEnd < 0 || valueEnd > sectionEnd) {
+			return false;
+		}
+		slots.add(new int[] { kind, valueStart, valueEnd });
+		return true;
+	}
+
+	private static String escape(String value) {
+		if (value == null || (value.indexOf('&') < 0 && value.indexOf('<') < 0 && value.indexOf('>') < 0)) {
+			return value;
+		}
+		return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+}
@@ -5,16 +5,27 @@ import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
 import org.apache.log4j.Logger;
+import org.btsn.metrics.MetricsEndpoint;
+import org.btsn.metrics.MetricsRegistry;
+import org.btsn.metrics.TraceCollector;
+import org.btsn.utils.AsyncBatchWriter;
 import org.btsn.utils.BuildRuleBase;
+import org.btsn.utils.LoaderSettings;
 import org.btsn.utils.OOjdrewAPI;
+import org.btsn.utils.Replication;
 import org.btsn.utils.StringFileIO;
 import org.btsn.utils.BuildRuleBase.FileExtensionFilter;
 
@@ -38,7 +49,8 @@ public class ServiceLoader {
     private OOjdrewAPI oojdrew;
     private static String buildVersion = null;  // Must be explicitly provided via command line
     private static String serviceFilter = null; // NEW: If set, only load services matching this name
-    private static final List<String> VALID_RULE_SET = new ArrayList<>();
+    // Written by RuleHandler threads, read on every token
+    private static final Set<String> VALID_RULE_SET = ConcurrentHashMap.newKeySet();
     public static final Logger logger = Logger.getLogger(ServiceLoader.class);
 
     private static final String SERVICE_LOADER_QUERIES_DIRECTORY = "ServiceLoaderQueries";
@@ -61,6 +73,24 @@ public class ServiceLoader {
     private static final int SHUTDOWN_PORT_BASE = 39000;
     private static DatagramSocket shutdownSocket = null;
     
+    // Drain: refuse new workflows, let queued tokens and open joins finish
+    // (at most drainTimeoutMs), then shut down. Configured via <DrainSettings>
+    private static final AtomicBoolean drainRequested = new AtomicBoolean(false);
+    private static File drainControlFile = null;
+    private static long drainTimeoutMs = 30000;
+    private static final long DRAIN_POLL_MS = 100;
+    // A token between two places is in no queue for a moment, so the drain
+    // only ends after this many empty polls in a row
+    private static final int DRAIN_QUIET_POLLS = 5;
+    private static volatile long lastDrainTimeMs = 0;
+    private static volatile long drainTokensLeft = 0;
+
+    // ==================== METRICS ENDPOINT ====================
+    // Prometheus-format scrape endpoint (base + version offset), configured via
+    // <MetricsSettings> in loaderSettings.xml
+    private static final int METRICS_PORT_BASE = 38000;
+    private static MetricsEndpoint metricsEndpoint = null;
+    
     /**
      * Check if shutdown has been requested
      */
@@ -88,12 +118,115 @@ public class ServiceLoader {
             shutdownSocket.close();
         }
         
+        // Leave the final counters with the replication's results
+        if (Replication.isIsolated()) {
+            writeMetricsSnapshot();
+        }
+        
+        // Stop metrics endpoint
+        if (metricsEndpoint != null) {
+            metricsEndpoint.stop();
+        }
+        
+        // Write out the instrumentation records still queued
+        AsyncBatchWriter.closeAll();
+        
+        // Close managed service instances (pooled databases, shared places)
+        ServiceHelper.closeManagedServices();
+        
+        // Write out the spans still queued for the trace collector
+        TraceCollector.getInstance().close();
+        
         // Clean up control file
         if (shutdownControlFile != null && shutdownControlFile.exists()) {
             shutdownControlFile.delete();
         }
     }
     
+    /**
+     * Check if a drain is in progress
+     */
+    public static boolean isDraining() {
+        return drainRequested.get() && !shutdownRequested.get();
+    }
+    
+    /**
+     * Drain, then shut down. Runs on a thread of its own so the shutdown
+     * listener can still take a SHUTDOWN while the drain waits.
+     */
+    public static void requestDrain() {
+        if (shutdownRequested.get() || !drainRequested.compareAndSet(false, true)) {
+            return;
+        }
+        Thread drainThread = new Thread(ServiceLoader::drainAndShutdown, "ServiceLoader-Drain-" + buildVersion);
+        drainThread.setDaemon(true);
+        drainThread.start();
+    }
+    
+    /**
+     * Stop the reactors admitting new workflows, wait until no token is
+     * queued, in service or waiting in a join, and shut down. Tokens still
+     * held when drainTimeoutMs runs out are logged and left to the shutdown.
+     */
+    private static void drainAndShutdown() {
+        logger.info("=== DRAIN REQUESTED (timeout " + drainTimeoutMs + "ms) ===");
+        long started = System.currentTimeMillis();
+        ServiceThread.setDraining(true);
+        
+        int tokens = ServiceThread.tokensInFlight();
+        int joins = ServiceThread.pendingJoins();
+        int quietPolls = 0;
+        while (quietPolls < DRAIN_QUIET_POLLS && !shutdownRequested.get()
+                && System.currentTimeMillis() - started < drainTimeoutMs) {
+            try {
+                Thread.sleep(DRAIN_POLL_MS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            tokens = ServiceThread.tokensInFlight();
+            joins = ServiceThread.pendingJoins();
+            quietPolls = (tokens == 0 && joins == 0) ? quietPolls + 1 : 0;
+        }
+        
+        lastDrainTimeMs = System.currentTimeMillis() - started;
+        drainTokensLeft = tokens + joins;
+        if (tokens == 0 && joins == 0) {
+            logger.info("=== DRAIN COMPLETE in " + lastDrainTimeMs + "ms ===");
+        } else {
+            logger.warn("=== DRAIN ENDED after " + lastDrainTimeMs + "ms with " + tokens
+                    + " tokens queued or in service and " + joins + " open joins "
+                    + ServiceThread.pendingJoinIds(10) + " ===");
+        }
+        
+        if (!shutdownRequested.get()) {
+            requestShutdown();
+        }
+    }
+    
+    /**
+     * Read <DrainSettings> from loaderSettings.xml and register the drain
+     * gauges (kept in the final metrics snapshot of a replication).
+     */
+    private static void configureDrain() {
+        try {
+            String loaderSettings = new File(SERVICE_LOADER_QUERIES_DIRECTORY, "loaderSettings.xml").getCanonicalPath();
+            String xmlLoaderSettings = StringFileIO.readFileAsString(loaderSettings);
+            TreeMap<String, String> drainSettingsMap = LoaderSettings.section(xmlLoaderSettings, "DrainSettings");
+            
+            if (drainSettingsMap.containsKey("drainTimeoutMs")) {
+                drainTimeoutMs = Long.parseLong(drainSettingsMap.get("drainTimeoutMs").trim());
+            }
+        } catch (Exception e) {
+            logger.debug("No DrainSettings in loaderSettings.xml, using defaults: " + e.getMessage());
+        }
+        
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.gauge("btsn_drain_time_ms", "Duration of the last drain",
+                () -> lastDrainTimeMs, "version", buildVersion);
+        registry.gauge("btsn_drain_tokens_left", "Tokens and open joins the last drain ended with",
+                () -> drainTokensLeft, "version", buildVersion);
+    }
+    
     /**
      * Register a thread for management (shutdown tracking)
      */
@@ -109,12 +242,15 @@ public class ServiceLoader {
             // Create a control file that signals "running"
             // Include service filter in filename if specified
             String filePrefix = serviceFilter != null ? serviceFilter : "all_services";
-            shutdownControlFile = new File(filePrefix + "_" + buildVersion + ".running");
+            shutdownControlFile = new File(controlDirectory(), filePrefix + "_" + buildVersion + ".running");
             shutdownControlFile.createNewFile();
             shutdownControlFile.deleteOnExit();
+            drainControlFile = new File(controlDirectory(), filePrefix + "_" + buildVersion + ".drain");
+            drainControlFile.delete();
             
             logger.info("Created shutdown control file: " + shutdownControlFile.getAbsolutePath());
             logger.info("DELETE this file to trigger graceful shutdown");
+            logger.info("CREATE " + drainControlFile.getName() + " to drain in-flight tokens, then shut down");
             
             Thread watcherThread = new Thread(() -> {
                 while (!shutdownRequested.get()) {
@@ -126,6 +262,12 @@ public class ServiceLoader {
                             requestShutdown();
                             break;
                         }
+                        
+                        if (drainControlFile.exists() && !drainRequested.get()) {
+                            logger.info("Drain control file created - draining");
+                            drainControlFile.delete();
+                            requestDrain();
+                        }
                     } catch (InterruptedException e) {
                         break;
                     }
@@ -146,12 +288,12 @@ public class ServiceLoader {
     private static void startShutdownListener() {
         try {
             int versionNum = extractVersionNumber(buildVersion);
-            int shutdownPort = SHUTDOWN_PORT_BASE + versionNum;
+            int shutdownPort = Replication.port(SHUTDOWN_PORT_BASE + versionNum);
             
             shutdownSocket = new DatagramSocket(shutdownPort);
             
             logger.info("Shutdown listener started on port " + shutdownPort);
-            logger.info("Send 'SHUTDOWN' to this port to stop services");
+            logger.info("Send 'SHUTDOWN' to this port to stop services, 'DRAIN' to finish in-flight tokens first");
             
             Thread listenerThread = new Thread(() -> {
                 byte[] buffer = new byte[256];
@@ -168,6 +310,11 @@ public class ServiceLoader {
                             requestShutdown();
                             break;
                         }
+                        
+                        if ("DRAIN".equalsIgnoreCase(message)) {
+                            logger.info("Received DRAIN command via UDP");
+                            requestDrain();
+                        }
                     } catch (IOException e) {
                         if (!shutdownRequested.get()) {
                             // Only log if not during shutdown
@@ -219,6 +366,82 @@ public class ServiceLoader {
     }
     // ==================== END SHUTDOWN MECHANISM ====================
 
+    /**
+     * Directory for the shutdown control file: the replication's copy of
+     * this project when running as part of a sweep, else the working
+     * directory.
+     */
+    private static File controlDirectory() {
+        File directory = Replication.getProjectDirectory(Replication.currentProjectName());
+        return directory != null ? directory : new File("").getAbsoluteFile();
+    }
+
+    /**
+     * This project's Service.ruleml for the build version - the
+     * replication's copy when running as part of a sweep.
+     */
+    private static String localRuleBasePath() {
+        return new File(Replication.ruleFolder(new File("."), buildVersion), "Service.ruleml").getPath();
+    }
+
+    /**
+     * Write the final metrics scrape next to the replication's databases so
+     * the sweep runner can read admission and rejection counts after the
+     * services have gone.
+     */
+    private static void writeMetricsSnapshot() {
+        File snapshot = new File(controlDirectory(), "metrics_" + buildVersion
+                + (serviceFilter != null ? "_" + serviceFilter : "") + ".prom");
+        try {
+            Files.write(snapshot.toPath(), MetricsRegistry.getInstance().scrape().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warn("Could not write metrics snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Start the local metrics scrape endpoint.
+     * 
+     * Reads optional settings from loaderSettings.xml:
+     *   <MetricsSettings>
+     *     <metricsEnabled>true</metricsEnabled>
+     *     <metricsPort>38001</metricsPort>   (default 38000 + version number)
+     *   </MetricsSettings>
+     * 
+     * Binds to all interfaces in remote mode so a central scraper can reach it.
+     */
+    private static void startMetricsEndpoint() {
+        boolean metricsEnabled = true;
+        int metricsPort = Replication.port(METRICS_PORT_BASE + extractVersionNumber(buildVersion));
+        
+        try {
+            String loaderSettings = new File(SERVICE_LOADER_QUERIES_DIRECTORY, "loaderSettings.xml").getCanonicalPath();
+            String xmlLoaderSettings = StringFileIO.readFileAsString(loaderSettings);
+            TreeMap<String, String> metricsSettingsMap = LoaderSettings.section(xmlLoaderSettings, "MetricsSettings");
+            
+            if (metricsSettingsMap.containsKey("metricsEnabled")) {
+                metricsEnabled = Boolean.parseBoolean(metricsSettingsMap.get("metricsEnabled"));
+            }
+            if (metricsSettingsMap.containsKey("metricsPort")) {
+                metricsPort = Replication.port(Integer.parseInt(metricsSettingsMap.get("metricsPort").trim()));
+            }
+        } catch (Exception e) {
+            logger.debug("No MetricsSettings in loaderSettings.xml, using defaults: " + e.getMessage());
+        }
+        
+        if (!metricsEnabled) {
+            logger.info("Metrics endpoint disabled by configuration");
+            return;
+        }
+        
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.gauge("btsn_managed_threads", "Threads registered with this ServiceLoader",
+                managedThreads::size, "version", buildVersion);
+        
+        metricsEndpoint = new MetricsEndpoint(registry);
+        metricsEndpoint.start(metricsPort, isRemoteMode);
+    }
+
     /**
      * Parse command-line arguments to extract version and other parameters
      * 
@@ -324,7 +547,7 @@ public class ServiceLoader {
             
             // Use the configurable build version instead of hardcoded BUILD_VERSION
             OOjdrewAPI checker = new OOjdrewAPI();
-            checker.parseKnowledgeBase("RuleFolder." + buildVersion + "/Service.ruleml", true);
+            checker.parseKnowledgeBase(localRuleBasePath(), true);
             
             // Query ALL boundChannel facts to see if any map to our IP
             String boundChannelQuery = "<Query><Atom><Rel>boundChannel</Rel>" +
@@ -364,7 +587,7 @@ public class ServiceLoader {
                     logger.info("Checking for services using channel: " + channelId);
 
                     OOjdrewAPI activeChecker = new OOjdrewAPI();
-                    activeChecker.parseKnowledgeBase("RuleFolder." + buildVersion + "/Service.ruleml", true);
+                    activeChecker.parseKnowledgeBase(localRuleBasePath(), true);
                     activeChecker.issueRuleMLQuery(activeQuery);
                     
                     if (activeChecker.rowsReturned > 0) {
@@ -450,6 +673,9 @@ public class ServiceLoader {
     public static void main(String[] args) throws Exception {
         logger.info("=== Starting Rule-Driven ServiceLoader ===");
         
+        // A sweep replication gets private databases - before anything loads Derby
+        Replication.isolateDerby(Replication.currentProjectName());
+        
         // Parse command-line arguments first
         parseArguments(args);
         
@@ -462,6 +688,7 @@ public class ServiceLoader {
         installShutdownHook();
         
         // Start shutdown mechanisms
+        configureDrain();
         startShutdownFileWatcher();
         startShutdownListener();
         
@@ -484,6 +711,8 @@ public class ServiceLoader {
         // NOW check for remote mode after building
         logger.info("=== Checking for remote deployment mode ===");
         checkRemoteMode();
+        
+        startMetricsEndpoint();
 
         // Load service configurations from Query Directory
         File extendedCommonBase = new File("");
@@ -529,7 +758,7 @@ public class ServiceLoader {
                         queryServiceName);
                     
                     OOjdrewAPI allOperationsChecker = new OOjdrewAPI();
-                    allOperationsChecker.parseKnowledgeBase("RuleFolder." + buildVersion + "/Service.ruleml", true);
+                    allOperationsChecker.parseKnowledgeBase(localRuleBasePath(), true);
                     allOperationsChecker.issueRuleMLQuery(findAllQuery);
                     
                     // Collect all operations for this service
@@ -583,7 +812,7 @@ public class ServiceLoader {
                 }
                 
                 // NORMAL SINGLE-OPERATION PROCESSING (existing code)
-                oojdrew2.parseKnowledgeBase("RuleFolder." + buildVersion + "/Service.ruleml", true);
+                oojdrew2.parseKnowledgeBase(localRuleBasePath(), true);
                 oojdrew2.issueRuleMLQuery(ruleMLQuery);
                 servicesLoaded++;
                 
@@ -626,12 +855,18 @@ public class ServiceLoader {
         
         // Calculate and display shutdown port
         int versionNum = extractVersionNumber(buildVersion);
-        int shutdownPort = SHUTDOWN_PORT_BASE + versionNum;
+        int shutdownPort = Replication.port(SHUTDOWN_PORT_BASE + versionNum);
         
         logger.info("=== Shutdown Options ===");
         logger.info("  1. Delete file: " + (shutdownControlFile != null ? shutdownControlFile.getName() : "N/A"));
         logger.info("  2. Send 'SHUTDOWN' to UDP port: " + shutdownPort);
-        logger.info("  3. Kill the process");
+        logger.info("  3. Send 'DRAIN' to UDP port " + shutdownPort + " (or create "
+                + (drainControlFile != null ? drainControlFile.getName() : "the .drain file")
+                + ") to finish in-flight tokens first");
+        logger.info("  4. Kill the process");
+        if (metricsEndpoint != null && metricsEndpoint.getBoundPort() > 0) {
+            logger.info("=== Metrics: http://localhost:" + metricsEndpoint.getBoundPort() + "/metrics ===");
+        }
         
         // Keep main thread alive while services run
         while (!shutdownRequested.get()) {
@@ -770,14 +1005,14 @@ public class ServiceLoader {
      * Calculate EventReactor port (where services listen for events)
      */
     private static int calculateEventReactorPort(int channelNumber, int basePort) {
-        return 10000 + (channelNumber * 1000) + basePort;
+        return Replication.port(10000 + (channelNumber * 1000) + basePort);
     }
 
     /**
      * Calculate RuleHandler port (where rule processing happens)
      */
     private static int calculateRuleHandlerPort(int channelNumber, int basePort) {
-        return 20000 + (channelNumber * 1000) + basePort;
+        return Replication.port(20000 + (channelNumber * 1000) + basePort);
     }
 }
 
@@ -0,0 +1,105 @@
+package org.btsn.handlers;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-JVM transport between service operations hosted by the same
+ * ServiceLoader (e.g. several entries of a serviceList query).
+ *
+ * Every EventReactor registers under the UDP port it listens on, which is
+ * the 10000 + channel*1000 + port arithmetic EventPublisher already uses to
+ * address it. A token ServiceThread would publish to a local address on a
+ * registered port is handed to that reactor as a TokenEnvelope instead - the
+ * sections as maps, not XML: no DOM serialization, InetAddress lookup,
+ * compression, datagram, decompression, chunking, batching or XPath parse.
+ * Scheduling, admission and the ServiceThread read the envelope's maps
+ * whichever way the token came. Remote targets, and ports with no reactor in
+ * this JVM, go over UDP as before.
+ *
+ * Each path's hop latency (monitorData/publishTime to reactor receipt) is
+ * recorded as btsn_transport_hop_ms{path="local"|"udp"}.
+ *
+ * Configuration (loaderSettings.xml, <PublisherSettings>):
+ *   localDelivery - true (default), or false to send every token over UDP
+ */
+final class LocalTransport {
+
+	/** monitorData element stamped when ServiceThread serializes a token */
+	static final String PUBLISH_TIME = "publishTime";
+
+	private static final String PUBLISH_TIME_OPEN = "<" + PUBLISH_TIME + ">";
+	private static final String PUBLISH_TIME_CLOSE = "</" + PUBLISH_TIME + ">";
+
+	// Reactor port -> reactor listening on it in this JVM
+	private static final ConcurrentHashMap<Integer, EventReactor> reactors = new ConcurrentHashMap<>();
+
+	// Target channel (IP string) -> whether it is an address of this host
+	private static final ConcurrentHashMap<String, Boolean> localChannels = new ConcurrentHashMap<>();
+
+	private LocalTransport() {
+	}
+
+	static void register(int port, EventReactor reactor) {
+		reactors.put(port, reactor);
+	}
+
+	static void unregister(int port, EventReactor reactor) {
+		reactors.remove(port, reactor);
+	}
+
+	/**
+	 * The co-located reactor for a target, or null to use UDP.
+	 */
+	static EventReactor lookup(String targetChannel, int port) {
+		EventReactor reactor = reactors.get(port);
+		if (reactor == null || targetChannel == null) {
+			return null;
+		}
+		return localChannels.computeIfAbsent(targetChannel, LocalTransport::isLocalAddress) ? reactor : null;
+	}
+
+	/**
+	 * monitorData/publishTime of a serialized token, or -1 if it has none.
+	 */
+	static long publishTime(String payload) {
+		int open = payload.indexOf(PUBLISH_TIME_OPEN);
+		if (open < 0) {
+			return -1L;
+		}
+		int start = open + PUBLISH_TIME_OPEN.length();
+		int end = payload.indexOf(PUBLISH_TIME_CLOSE, start);
+		if (end < 0) {
+			return -1L;
+		}
+		return parseTime(payload.substring(start, end));
+	}
+
+	/**
+	 * publishTime of a token's monitorData map, or -1 if it has none.
+	 */
+	static long publishTime(Map<String, String> monitorData) {
+		String value = monitorData.get(PUBLISH_TIME);
+		return value == null ? -1L : parseTime(value);
+	}
+
+	private static long parseTime(String value) {
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			return -1L;
+		}
+	}
+
+	private static boolean isLocalAddress(String channel) {
+		try {
+			InetAddress address = InetAddress.getByName(channel);
+			return address.isLoopbackAddress() || address.isAnyLocalAddress()
+					|| NetworkInterface.getByInetAddress(address) != null;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+}
@@ -6,6 +6,7 @@ import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
+import org.btsn.constants.TokenId;
 import org.btsn.constants.VersionConstants;
 import org.btsn.derby.Analysis.BuildServiceAnalysisDatabase;
 import org.btsn.utils.XPathHelperCommon;
@@ -102,7 +103,7 @@ public class PetriNetInstrumentationHelper2 {
      * @param tokenId The token's sequence ID
      * @return true if instrumentation should be skipped for this token
      */
-    private boolean shouldSkipInstrumentation(int tokenId) {
+    private boolean shouldSkipInstrumentation(long tokenId) {
         return VersionConstants.isAdminVersion(tokenId);
     }
     
@@ -122,7 +123,7 @@ public class PetriNetInstrumentationHelper2 {
      * @param workflowStartTime The workflow instance start time
      * @param bufferSize The transition buffer size (queue depth when token was dequeued)
      */
-    public void recordTokenEntering(String xmlPayload, int tokenId, String placeName, 
+    public void recordTokenEntering(String xmlPayload, long tokenId, String placeName, 
                                    String nodeType, long workflowStartTime, int bufferSize) {
         // Skip instrumentation for admin/collection workflows (v999)
         if (shouldSkipInstrumentation(tokenId)) {
@@ -158,7 +159,7 @@ public class PetriNetInstrumentationHelper2 {
             String parentTokenIdStr = extractParentTokenId(xmlPayload);
             if (parentTokenIdStr != null && recordGenealogy) {
                 try {
-                    int parentTokenId = Integer.parseInt(parentTokenIdStr);
+                    long parentTokenId = TokenId.parse(parentTokenIdStr);
                     String forkTransition = extractForkTransition(xmlPayload);
                     
                     recordTokenGenealogy(
@@ -194,7 +195,7 @@ public class PetriNetInstrumentationHelper2 {
      * @deprecated Use the overload with bufferSize parameter instead
      */
     @Deprecated
-    public void recordTokenEntering(String xmlPayload, int tokenId, String placeName, 
+    public void recordTokenEntering(String xmlPayload, long tokenId, String placeName, 
                                    String nodeType, long workflowStartTime) {
         recordTokenEntering(xmlPayload, tokenId, placeName, nodeType, workflowStartTime, -1);
     }
@@ -217,7 +218,7 @@ public class PetriNetInstrumentationHelper2 {
      * @param workflowStartTime The workflow instance start time
      * @param bufferSize The transition buffer size (queue depth when token arrived)
      */
-    public void recordTokenBuffered(String xmlPayload, int tokenId, String placeName, 
+    public void recordTokenBuffered(String xmlPayload, long tokenId, String placeName, 
                                     String nodeType, long workflowStartTime, int bufferSize) {
         // Skip instrumentation for admin/collection workflows (v999)
         if (shouldSkipInstrumentation(tokenId)) {
@@ -254,7 +255,7 @@ public class PetriNetInstrumentationHelper2 {
             String parentTokenIdStr = extractParentTokenId(xmlPayload);
             if (parentTokenIdStr != null && recordGenealogy) {
                 try {
-                    int parentTokenId = Integer.parseInt(parentTokenIdStr);
+                    long parentTokenId = TokenId.parse(parentTokenIdStr);
                     String forkTransition = extractForkTransition(xmlPayload);
                     
                     recordTokenGenealogy(
@@ -294,7 +295,7 @@ public class PetriNetInstrumentationHelper2 {
      * @param nodeType The node type
      * @param workflowStartTime The workflow instance start time
      */
-    public void recordTokenEnteredPlace(int tokenId, String placeName, 
+    public void recordTokenEnteredPlace(long tokenId, String placeName, 
                                         String nodeType, long workflowStartTime) {
         // Skip instrumentation for admin/collection workflows (v999)
         if (shouldSkipInstrumentation(tokenId)) {
@@ -342,8 +343,8 @@ public class PetriNetInstrumentationHelper2 {
      * @param continuationTokenId The token that continues (for reference)
      * @param workflowStartTime The workflow instance start time
      */
-    public void recordTokenConsumedAtJoin(int tokenId, String placeName, 
-                                          int continuationTokenId, long workflowStartTime) {
+    public void recordTokenConsumedAtJoin(long tokenId, String placeName, 
+                                          long continuationTokenId, long workflowStartTime) {
         // Skip instrumentation for admin/collection workflows (v999)
         if (shouldSkipInstrumentation(tokenId)) {
             return;
@@ -390,7 +391,7 @@ public class PetriNetInstrumentationHelper2 {
      * @param decisionValueCollection Fork decision values (if applicable)
      * @return Enhanced XML payload with transition metadata (for future use)
      */
-    public String recordTokenExiting(int tokenId, String fromPlace, String toPlace, 
+    public String recordTokenExiting(long tokenId, String fromPlace, String toPlace, 
                                     String toOperation, String nodeType,
                                     TreeMap<Integer, String> decisionValueCollection) {
         // Skip instrumentation for admin/collection workflows (v999)
@@ -456,7 +457,7 @@ public class PetriNetInstrumentationHelper2 {
      * @param childTokenId The child token ID (after fork)
      * @param forkTransition The transition where fork occurred (e.g., "T_out_P1_Place")
      */
-    public void recordForkGenealogy(int parentTokenId, int childTokenId, 
+    public void recordForkGenealogy(long parentTokenId, long childTokenId, 
                                     String forkTransition) {
         // Skip instrumentation for admin/collection workflows (v999)
         if (shouldSkipInstrumentation(parentTokenId) || shouldSkipInstrumentation(childTokenId)) {
@@ -469,14 +470,14 @@ public class PetriNetInstrumentationHelper2 {
         }
         
         try {
-            int workflowBase = calculateWorkflowBase(parentTokenId);
+            long workflowBase = calculateWorkflowBase(parentTokenId);
             
             TreeMap<String, String> record = new TreeMap<>();
-            record.put("parentTokenId", Integer.toString(parentTokenId));
-            record.put("childTokenId", Integer.toString(childTokenId));
+            record.put("parentTokenId", Long.toString(parentTokenId));
+            record.put("childTokenId", Long.toString(childTokenId));
             record.put("forkTransitionId", forkTransition);
             record.put("forkTimestamp", Long.toString(System.currentTimeMillis()));
-            record.put("workflowBase", Integer.toString(workflowBase));
+            record.put("workflowBase", Long.toString(workflowBase));
             
             dbWriter.writeTokenGenealogy(record);
             
@@ -504,7 +505,7 @@ public class PetriNetInstrumentationHelper2 {
      * Record that a parent token was consumed by a fork
      * Only records once per parent per fork transition
      */
-    private void recordParentTokenConsumed(int parentTokenId, String forkTransition, int workflowBase) {
+    private void recordParentTokenConsumed(long parentTokenId, String forkTransition, long workflowBase) {
         // Create a unique key for this parent at this fork
         String key = parentTokenId + "_" + forkTransition;
         
@@ -526,8 +527,8 @@ public class PetriNetInstrumentationHelper2 {
         record.put("timestamp", Long.toString(System.currentTimeMillis()));
         record.put("transitionId", forkTransition);
         record.put("transitionType", "ForkConsumed");
-        record.put("tokenId", Integer.toString(parentTokenId));
-        record.put("workflowBase", Integer.toString(workflowBase));
+        record.put("tokenId", Long.toString(parentTokenId));
+        record.put("workflowBase", Long.toString(workflowBase));
         record.put("fromPlace", fromPlace);
         record.put("toPlace", "FORK_CONSUMED");  // Special marker
         record.put("forkDecision", "");
@@ -555,7 +556,7 @@ public class PetriNetInstrumentationHelper2 {
      * @param requiredCount How many tokens must arrive before join completes
      * @return true if this token should continue, false if consumed by join
      */
-    public boolean handleJoinSynchronization(String joinPlace, int tokenId, int requiredCount) {
+    public boolean handleJoinSynchronization(String joinPlace, long tokenId, int requiredCount) {
         // Skip instrumentation for admin/collection workflows (v999)
         // Still return true so the token continues through the workflow
         if (shouldSkipInstrumentation(tokenId)) {
@@ -565,7 +566,7 @@ public class PetriNetInstrumentationHelper2 {
         
         try {
             String joinTransition = buildTInTransitionId(joinPlace);
-            int workflowBase = calculateWorkflowBase(tokenId);
+            long workflowBase = calculateWorkflowBase(tokenId);
             String joinKey = joinTransition + "_" + workflowBase;
             
             logger.info("Join synchronization: Token " + tokenId + 
@@ -593,7 +594,7 @@ public class PetriNetInstrumentationHelper2 {
             
             if (isComplete) {
                 // Join complete - get continuation token (lowest ID)
-                int continuationToken = joinState.getContinuationToken();
+                long continuationToken = joinState.getContinuationToken();
                 
                 logger.info("Join COMPLETE at " + joinTransition + 
                            " for workflowBase " + workflowBase + 
@@ -646,7 +647,7 @@ public class PetriNetInstrumentationHelper2 {
      * @param eventType The type of event: ENTER, EXIT, FORK_CONSUMED, TERMINATE
      */
     private void recordTransitionFiring(String transitionId, String transitionType,
-                                       int tokenId, String fromPlace, String toPlace,
+                                       long tokenId, String fromPlace, String toPlace,
                                        String forkDecision, String joinState,
                                        long workflowStartTime, int bufferSize, String ruleVersion,
                                        String eventType) {
@@ -655,8 +656,8 @@ public class PetriNetInstrumentationHelper2 {
             record.put("timestamp", Long.toString(System.currentTimeMillis()));
             record.put("transitionId", transitionId);
             record.put("transitionType", transitionType != null ? transitionType : "EdgeNode");
-            record.put("tokenId", Integer.toString(tokenId));
-            record.put("workflowBase", Integer.toString(calculateWorkflowBase(tokenId)));
+            record.put("tokenId", Long.toString(tokenId));
+            record.put("workflowBase", Long.toString(calculateWorkflowBase(tokenId)));
             record.put("fromPlace", fromPlace != null ? fromPlace : "");
             record.put("toPlace", toPlace != null ? toPlace : "");
             record.put("forkDecision", forkDecision != null ? forkDecision : "");
@@ -683,7 +684,7 @@ public class PetriNetInstrumentationHelper2 {
      * Record a transition firing event (backward compatible - defaults eventType based on transition)
      */
     private void recordTransitionFiring(String transitionId, String transitionType,
-                                       int tokenId, String fromPlace, String toPlace,
+                                       long tokenId, String fromPlace, String toPlace,
                                        String forkDecision, String joinState,
                                        long workflowStartTime, int bufferSize, String ruleVersion) {
         // Determine eventType from transitionId
@@ -706,16 +707,16 @@ public class PetriNetInstrumentationHelper2 {
     /**
      * Record token genealogy (parent-child relationship from fork)
      */
-    private void recordTokenGenealogy(int parentTokenId, int childTokenId,
+    private void recordTokenGenealogy(long parentTokenId, long childTokenId,
                                      String forkTransition, long timestamp,
-                                     int workflowBase) {
+                                     long workflowBase) {
         try {
             TreeMap<String, String> record = new TreeMap<>();
-            record.put("parentTokenId", Integer.toString(parentTokenId));
-            record.put("childTokenId", Integer.toString(childTokenId));
+            record.put("parentTokenId", Long.toString(parentTokenId));
+            record.put("childTokenId", Long.toString(childTokenId));
             record.put("forkTransitionId", forkTransition);
             record.put("forkTimestamp", Long.toString(timestamp));
-            record.put("workflowBase", Integer.toString(workflowBase));
+            record.put("workflowBase", Long.toString(workflowBase));
             
             dbWriter.writeTokenGenealogy(record);
             
@@ -732,14 +733,14 @@ public class PetriNetInstrumentationHelper2 {
     /**
      * Register a token's contribution to a join
      */
-    private void registerJoinContribution(String joinTransitionId, int workflowBase,
-                                         int tokenId, int requiredCount, 
+    private void registerJoinContribution(String joinTransitionId, long workflowBase,
+                                         long tokenId, int requiredCount, 
                                          int currentCount, String status) {
         try {
             TreeMap<String, String> record = new TreeMap<>();
             record.put("joinTransitionId", joinTransitionId);
-            record.put("workflowBase", Integer.toString(workflowBase));
-            record.put("tokenId", Integer.toString(tokenId));
+            record.put("workflowBase", Long.toString(workflowBase));
+            record.put("tokenId", Long.toString(tokenId));
             record.put("arrivalTimestamp", Long.toString(System.currentTimeMillis()));
             record.put("requiredCount", Integer.toString(requiredCount));
             record.put("currentCount", Integer.toString(currentCount));
@@ -762,9 +763,9 @@ public class PetriNetInstrumentationHelper2 {
     /**
      * Record join completion with continuation token
      */
-    private void recordJoinCompletion(String joinTransitionId, int workflowBase,
-                                     List<Integer> contributingTokens, 
-                                     int continuationToken) {
+    private void recordJoinCompletion(String joinTransitionId, long workflowBase,
+                                     List<Long> contributingTokens, 
+                                     long continuationToken) {
         try {
             // Update all contributing tokens' records with continuation token
             dbWriter.updateJoinCompletion(joinTransitionId, workflowBase, continuationToken);
@@ -786,10 +787,10 @@ public class PetriNetInstrumentationHelper2 {
     /**
      * Handle token arrival at a join point
      */
-    private void handleJoinArrival(String joinTransition, int tokenId, 
+    private void handleJoinArrival(String joinTransition, long tokenId, 
                                   String placeName, long workflowStartTime) {
         try {
-            int workflowBase = calculateWorkflowBase(tokenId);
+            long workflowBase = calculateWorkflowBase(tokenId);
             
             // Query how many tokens are required for this join (from DOT metadata)
             // For now, default to 3 (can be enhanced to read from DOT)
@@ -999,7 +1000,7 @@ public class PetriNetInstrumentationHelper2 {
     /**
      * Calculate workflow base from sequence ID (version-aware)
      */
-    private int calculateWorkflowBase(int sequenceID) {
+    private long calculateWorkflowBase(long sequenceID) {
         return VersionConstants.getWorkflowBaseFromSequenceId(sequenceID);
     }
     
@@ -1018,7 +1019,7 @@ public class PetriNetInstrumentationHelper2 {
     /**
      * Build transition metadata for XML payload enrichment
      */
-    private String buildTransitionMetadata(int tokenId, String fromPlace, String toPlace) {
+    private String buildTransitionMetadata(long tokenId, String fromPlace, String toPlace) {
         // Future enhancement: build XML fragment with transition metadata
         // to be inserted into outgoing payload
         return "";
@@ -1052,12 +1053,12 @@ public class PetriNetInstrumentationHelper2 {
      */
     private static class JoinState {
         private final String joinTransitionId;
-        private final int workflowBase;
+        private final long workflowBase;
         private final int requiredCount;
-        private final List<Integer> arrivedTokens;
+        private final List<Long> arrivedTokens;
         private final long createdTimestamp;
         
-        public JoinState(String joinTransitionId, int workflowBase, int requiredCount) {
+        public JoinState(String joinTransitionId, long workflowBase, int requiredCount) {
             this.joinTransitionId = joinTransitionId;
             this.workflowBase = workflowBase;
             this.requiredCount = requiredCount;
@@ -1069,7 +1070,7 @@ public class PetriNetInstrumentationHelper2 {
          * Add a token to this join
          * @return true if join is now complete
          */
-        public synchronized boolean addToken(int tokenId) {
+        public synchronized boolean addToken(long tokenId) {
             if (!arrivedTokens.contains(tokenId)) {
                 arrivedTokens.add(tokenId);
             }
@@ -1079,18 +1080,18 @@ public class PetriNetInstrumentationHelper2 {
         /**
          * Get the continuation token (lowest ID)
          */
-        public synchronized int getContinuationToken() {
+        public synchronized long getContinuationToken() {
             if (arrivedTokens.isEmpty()) {
                 throw new IllegalStateException("No tokens at join");
             }
-            return arrivedTokens.stream().min(Integer::compare).orElse(arrivedTokens.get(0));
+            return arrivedTokens.stream().min(Long::compare).orElse(arrivedTokens.get(0));
         }
         
         public synchronized int getTokenCount() {
             return arrivedTokens.size();
         }
         
-        public synchronized List<Integer> getAllTokens() {
+        public synchronized List<Long> getAllTokens() {
             return new ArrayList<>(arrivedTokens);
         }
         
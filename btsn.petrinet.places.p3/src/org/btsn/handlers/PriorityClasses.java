@@ -0,0 +1,183 @@
+package org.btsn.handlers;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+import org.btsn.utils.LoaderSettings;
+import org.btsn.utils.StringFileIO;
+
+/**
+ * Priority classes carried in the envelope header, e.g. patient acuity.
+ *
+ * A service classifies its token by including a priorityClass field in its
+ * result ("priorityClass":"CRITICAL" - TriageService does this with its
+ * triage priority). ServiceThread copies the class into the outgoing header,
+ * <priorityClass>CRITICAL</priorityClass>, and every later hop inherits it,
+ * forks included. Tokens without a class, or with a name not configured,
+ * belong to the default class.
+ *
+ * The EventReactor keeps one queue per class (PriorityClassQueue) and
+ * chooses the next token between the classes by classPolicy; within a class
+ * the configured SchedulingPolicy orders tokens as before. Completed-join
+ * tokens still go first. The EventPublisher sends tokens of the first class
+ * without waiting out the micro-batching latency budget.
+ *
+ * Configuration (loaderSettings.xml, <PrioritySettings>):
+ *   classes     - class names, most urgent first (default CRITICAL,URGENT,STANDARD)
+ *   classPolicy - NONE (default: one order over all classes, as before),
+ *                 STRICT (a class is served only when all more urgent ones
+ *                 are empty) or WFQ (classes share service by weight)
+ *   weights     - WFQ shares, in class order (default 8,4,1; missing ones 1)
+ *   maxWaitMs   - starvation guard: a token queued longer than this is served
+ *                 next whatever its class (default 5000, 0 = off)
+ */
+final class PriorityClasses {
+
+	private static final Logger logger = Logger.getLogger(PriorityClasses.class);
+
+	/** Header element carrying the class */
+	static final String HEADER_ELEMENT = "priorityClass";
+
+	static final String NONE = "NONE";
+	static final String STRICT = "STRICT";
+	static final String WFQ = "WFQ";
+
+	private static final String HEADER_OPEN = "<" + HEADER_ELEMENT + ">";
+	private static final String HEADER_CLOSE = "</" + HEADER_ELEMENT + ">";
+	private static final String RESULT_FIELD = "\"" + HEADER_ELEMENT + "\":\"";
+
+	private static List<String> classes = new ArrayList<>(List.of("CRITICAL", "URGENT", "STANDARD"));
+	private static int[] weights = { 8, 4, 1 };
+	private static String classPolicy = NONE;
+	private static long maxWaitMs = 5000;
+
+	static {
+		loadConfiguration();
+	}
+
+	private PriorityClasses() {
+	}
+
+	static int count() {
+		return classes.size();
+	}
+
+	static String name(int index) {
+		return classes.get(index);
+	}
+
+	static String getClassPolicy() {
+		return classPolicy;
+	}
+
+	static boolean isEnabled() {
+		return !NONE.equals(classPolicy);
+	}
+
+	static long getMaxWaitMs() {
+		return maxWaitMs;
+	}
+
+	static int weight(int index) {
+		return index < weights.length ? weights[index] : 1;
+	}
+
+	/**
+	 * Index of a class name (0 = most urgent); unknown or missing names give
+	 * the default (last) class.
+	 */
+	static int indexOf(String name) {
+		if (name != null) {
+			int index = classes.indexOf(name.trim().toUpperCase(Locale.ROOT));
+			if (index >= 0) {
+				return index;
+			}
+		}
+		return classes.size() - 1;
+	}
+
+	/**
+	 * Class of a serialized payload, read from its header without parsing it.
+	 */
+	static int ofPayload(String payload) {
+		return indexOf(between(payload, HEADER_OPEN, HEADER_CLOSE));
+	}
+
+	/**
+	 * Class a service set in its result, or null if it set none.
+	 */
+	static String fromResult(String result) {
+		if (result == null) {
+			return null;
+		}
+		int field = result.lastIndexOf(RESULT_FIELD);
+		if (field < 0) {
+			return null;
+		}
+		int start = field + RESULT_FIELD.length();
+		int end = result.indexOf('"', start);
+		if (end <= start) {
+			return null;
+		}
+		return result.substring(start, end).trim().toUpperCase(Locale.ROOT);
+	}
+
+	private static String between(String text, String open, String close) {
+		if (text == null) {
+			return null;
+		}
+		int at = text.indexOf(open);
+		if (at < 0) {
+			return null;
+		}
+		int start = at + open.length();
+		int end = text.indexOf(close, start);
+		return end < 0 ? null : text.substring(start, end);
+	}
+
+	private static void loadConfiguration() {
+		try {
+			String loaderSettings = new File("./").getCanonicalPath() + "/ServiceLoaderQueries/loaderSettings.xml";
+			if (new File(loaderSettings).exists()) {
+				String xmlSettings = StringFileIO.readFileAsString(loaderSettings);
+				TreeMap<String, String> settingsMap = LoaderSettings.section(xmlSettings, "PrioritySettings");
+
+				if (settingsMap.containsKey("classes")) {
+					List<String> configured = new ArrayList<>();
+					for (String name : settingsMap.get("classes").split(",")) {
+						if (!name.trim().isEmpty()) {
+							configured.add(name.trim().toUpperCase(Locale.ROOT));
+						}
+					}
+					if (!configured.isEmpty()) {
+						classes = configured;
+					}
+				}
+				if (settingsMap.containsKey("classPolicy")) {
+					String policy = settingsMap.get("classPolicy").trim().toUpperCase(Locale.ROOT);
+					classPolicy = STRICT.equals(policy) || WFQ.equals(policy) ? policy : NONE;
+				}
+				if (settingsMap.containsKey("weights")) {
+					String[] values = settingsMap.get("weights").split(",");
+					int[] configured = new int[values.length];
+					for (int i = 0; i < values.length; i++) {
+						configured[i] = Math.max(1, Integer.parseInt(values[i].trim()));
+					}
+					weights = configured;
+				}
+				if (settingsMap.containsKey("maxWaitMs")) {
+					maxWaitMs = Math.max(0L, Long.parseLong(settingsMap.get("maxWaitMs").trim()));
+				}
+			}
+		} catch (Exception e) {
+			logger.info("PriorityClasses: Using default configuration");
+		}
+		if (isEnabled()) {
+			logger.info("PriorityClasses: " + classPolicy + " over " + classes + ", maxWait " + maxWaitMs + "ms");
+		}
+	}
+}
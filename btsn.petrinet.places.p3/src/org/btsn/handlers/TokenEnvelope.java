@@ -0,0 +1,130 @@
+package org.btsn.handlers;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.btsn.json.TokenDocument;
+import org.btsn.utils.XPathHelperCommon;
+
+/**
+ * A token as the EventReactor queues it and the ServiceThread takes it: the
+ * header, service, joinAttribute and monitorData sections of the payload as
+ * maps, and the joinAttribute/attributeValue body as a TokenDocument.
+ *
+ * A token that arrives over UDP is parsed once, by XPath, when it is
+ * received (parse()) - the Scheduler, the reactor and the ServiceThread all
+ * read the same maps. A token published to a reactor in the same JVM (see
+ * LocalTransport) is the publishing ServiceThread's maps written over the
+ * envelope it took (forward()): it is neither serialized nor parsed, and its
+ * body is parsed once, when the service first asks for it.
+ *
+ * The envelope keeps the XML text it descends from, the last payload
+ * received over UDP. forward() merges the maps the way ServiceThread has
+ * always written them over that text (modifyMultipleXMLItems: elements are
+ * updated or appended, never removed), so a token that leaves over UDP after
+ * in-JVM hops serializes (writeTo()) as if every hop had been over UDP.
+ *
+ * Not thread-safe - an envelope belongs to the reactor queue holding it and
+ * then to the one ServiceThread that takes it.
+ */
+final class TokenEnvelope {
+
+	static final String HEADER = "header";
+	static final String SERVICE = "service";
+	static final String JOIN_ATTRIBUTE = "joinAttribute";
+	static final String MONITOR_DATA = "monitorData";
+
+	/**
+	 * Header element the event generators set to "true" on a token that
+	 * starts a workflow; ServiceThread sets it to "false" on what it publishes.
+	 */
+	static final String WORKFLOW_ENTRY = "workflowEntry";
+
+	private final String text;
+	private final TreeMap<String, String> header;
+	private final TreeMap<String, String> service;
+	private final TreeMap<String, String> joinAttribute;
+	private final TreeMap<String, String> monitorData;
+	private TokenDocument body;
+
+	private TokenEnvelope(String text, TreeMap<String, String> header, TreeMap<String, String> service,
+			TreeMap<String, String> joinAttribute, TreeMap<String, String> monitorData) {
+		this.text = text;
+		this.header = header;
+		this.service = service;
+		this.joinAttribute = joinAttribute;
+		this.monitorData = monitorData;
+	}
+
+	/**
+	 * Parse a payload received over UDP.
+	 */
+	static TokenEnvelope parse(String xml) throws Exception {
+		XPathHelperCommon xph = new XPathHelperCommon();
+		return new TokenEnvelope(xml, xph.findMultipleXMLItems(xml, "//" + HEADER + "/*"),
+				xph.findMultipleXMLItems(xml, "//" + SERVICE + "/*"),
+				xph.findMultipleXMLItems(xml, "//" + JOIN_ATTRIBUTE + "/*"),
+				xph.findMultipleXMLItems(xml, "//" + MONITOR_DATA + "/*"));
+	}
+
+	/**
+	 * The envelope a ServiceThread publishes after taking this one: each
+	 * section updated, and extended, by the thread's map for it.
+	 */
+	TokenEnvelope forward(Map<String, String> header, Map<String, String> service,
+			Map<String, String> joinAttribute, Map<String, String> monitorData) {
+		return new TokenEnvelope(text, merge(this.header, header), merge(this.service, service),
+				merge(this.joinAttribute, joinAttribute), merge(this.monitorData, monitorData));
+	}
+
+	TreeMap<String, String> header() {
+		return header;
+	}
+
+	TreeMap<String, String> service() {
+		return service;
+	}
+
+	TreeMap<String, String> joinAttribute() {
+		return joinAttribute;
+	}
+
+	TreeMap<String, String> monitorData() {
+		return monitorData;
+	}
+
+	/**
+	 * joinAttribute/attributeValue, parsed on first use.
+	 */
+	TokenDocument body() {
+		if (body == null) {
+			body = TokenDocument.parse(joinAttribute.get("attributeValue"));
+		}
+		return body;
+	}
+
+	/**
+	 * The XML this envelope descends from - the last payload received over
+	 * UDP. Its sections may be older than the maps.
+	 */
+	String text() {
+		return text;
+	}
+
+	/**
+	 * Write the four sections over a payload.
+	 */
+	String writeTo(String xml) {
+		XPathHelperCommon xph = new XPathHelperCommon();
+		xml = xph.modifyMultipleXMLItems(xml, "//" + HEADER + "/*", header);
+		xml = xph.modifyMultipleXMLItems(xml, "//" + SERVICE + "/*", service);
+		xml = xph.modifyMultipleXMLItems(xml, "//" + JOIN_ATTRIBUTE + "/*", joinAttribute);
+		return xph.modifyMultipleXMLItems(xml, "//" + MONITOR_DATA + "/*", monitorData);
+	}
+
+	private static TreeMap<String, String> merge(TreeMap<String, String> section, Map<String, String> update) {
+		TreeMap<String, String> merged = new TreeMap<>(section);
+		merged.putAll(update);
+		return merged;
+	}
+}
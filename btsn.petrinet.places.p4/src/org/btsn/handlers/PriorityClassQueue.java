@@ -0,0 +1,299 @@
+package org.btsn.handlers;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.btsn.metrics.LatencyHistogram;
+import org.btsn.metrics.MetricsRegistry;
+
+/**
+ * The EventReactor's token queue: one queue per priority class (see
+ * PriorityClasses), each split into costKey-ordered sub-queues per rule-base
+ * version when versionFairness is on (see VersionShares). Not thread-safe -
+ * EventReactor calls it from its synchronized methods.
+ *
+ * poll() chooses the next token:
+ *   1. a completed-join token (costKey in the join tier), most urgent class first
+ *   2. the longest-waiting token, if it has waited more than maxWaitMs
+ *   3. by classPolicy:
+ *        NONE   - the lowest costKey over all classes (the single-map order)
+ *        STRICT - the lowest costKey of the most urgent non-empty class
+ *        WFQ    - stride scheduling: each class advances its pass by
+ *                 STRIDE / weight when served and the non-empty class with
+ *                 the lowest pass is served, so under saturation class i
+ *                 gets weight(i) / sum(weights) of the dequeues. A class
+ *                 that was empty rejoins at the current pass, without
+ *                 credit for the time it was idle.
+ *      With versionFairness, step 3 first lets deficit round robin choose a
+ *      version backlogged in the chosen class (in any class for NONE) and
+ *      serves that version's lowest costKey.
+ *
+ * Time from put() to poll() is recorded per class as
+ * btsn_reactor_queue_ms{class=...}, and dequeues per version as
+ * btsn_reactor_version_dequeued_total{version=...}.
+ */
+final class PriorityClassQueue {
+
+	private static final long STRIDE = 1L << 20;
+
+	/** The one sub-queue of a class when versionFairness is off */
+	private static final String ALL_VERSIONS = "*";
+
+	private static class Queued {
+		final TokenEnvelope payload;
+		final String version;
+		final long enqueuedAt;
+
+		Queued(TokenEnvelope payload, String version, long enqueuedAt) {
+			this.payload = payload;
+			this.version = version;
+			this.enqueuedAt = enqueuedAt;
+		}
+	}
+
+	// A queued token's position
+	private static class Slot {
+		final int priorityClass;
+		final String subQueue;
+		final long costKey;
+
+		Slot(int priorityClass, String subQueue, long costKey) {
+			this.priorityClass = priorityClass;
+			this.subQueue = subQueue;
+			this.costKey = costKey;
+		}
+	}
+
+	// Per class: sub-queue (version) -> tokens by costKey; empty sub-queues are removed
+	private final List<TreeMap<String, TreeMap<Long, Queued>>> queues = new ArrayList<>();
+	private final int[] classSize;
+	private final long[] pass;
+	private final LatencyHistogram[] queueTime;
+	private final LongAdder starvationPromotions;
+	private final Map<String, LongAdder> versionDequeues = new HashMap<>();
+	private final VersionShares shares = new VersionShares();
+	private final String policyLabel;
+	private final String port;
+	private long currentPass = 0;
+	private int size = 0;
+
+	PriorityClassQueue(String policyLabel, String port) {
+		this.policyLabel = policyLabel;
+		this.port = port;
+		int count = PriorityClasses.count();
+		classSize = new int[count];
+		pass = new long[count];
+		queueTime = new LatencyHistogram[count];
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+		for (int i = 0; i < count; i++) {
+			queues.add(new TreeMap<>());
+			queueTime[i] = metrics.histogram("btsn_reactor_queue_ms", "Time tokens wait in the reactor queue",
+					"policy", policyLabel, "port", port, "class", PriorityClasses.name(i));
+		}
+		starvationPromotions = metrics.counter("btsn_reactor_starvation_promotions_total",
+				"Tokens served by the maxWaitMs starvation guard", "policy", policyLabel, "port", port);
+	}
+
+	/**
+	 * Remove the series this queue registered, exactly as registered
+	 */
+	void unregisterMetrics() {
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+		for (int i = 0; i < queueTime.length; i++) {
+			metrics.unregister("btsn_reactor_queue_ms", "policy", policyLabel, "port", port, "class",
+					PriorityClasses.name(i));
+		}
+		metrics.unregister("btsn_reactor_starvation_promotions_total", "policy", policyLabel, "port", port);
+		for (String version : versionDequeues.keySet()) {
+			metrics.unregister("btsn_reactor_version_dequeued_total", "policy", policyLabel, "port", port,
+					"version", version);
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean containsKey(int priorityClass, long costKey) {
+		for (TreeMap<Long, Queued> queue : queues.get(priorityClass).values()) {
+			if (queue.containsKey(costKey)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	void put(int priorityClass, String version, long costKey, TokenEnvelope payload, long now) {
+		if (classSize[priorityClass] == 0) {
+			pass[priorityClass] = Math.max(pass[priorityClass], currentPass);
+		}
+		String subQueue = ALL_VERSIONS;
+		if (VersionShares.isEnabled()) {
+			subQueue = version;
+			shares.add(version);
+		}
+		queues.get(priorityClass).computeIfAbsent(subQueue, v -> new TreeMap<>())
+				.put(costKey, new Queued(payload, version, now));
+		classSize[priorityClass]++;
+		size++;
+	}
+
+	/**
+	 * Tokens that would be served before a token of this class and costKey
+	 * if nothing else arrived (admission control). Exact for NONE and
+	 * STRICT; for WFQ it counts as STRICT, an upper bound for urgent classes.
+	 * Counts by costKey over all versions, so with versionFairness it is an
+	 * estimate.
+	 */
+	int tokensAhead(int priorityClass, long costKey) {
+		if (!PriorityClasses.isEnabled()) {
+			int ahead = 0;
+			for (int i = 0; i < queues.size(); i++) {
+				ahead += countBelow(i, costKey);
+			}
+			return ahead;
+		}
+		int ahead = countBelow(priorityClass, costKey);
+		for (int i = 0; i < priorityClass; i++) {
+			ahead += classSize[i];
+		}
+		return ahead;
+	}
+
+	/**
+	 * Remove and return the next token (costKey, envelope), or null if empty.
+	 */
+	Map.Entry<Long, TokenEnvelope> poll(long now) {
+		if (size == 0) {
+			return null;
+		}
+
+		// 1. Completed joins unblock waiting join windows
+		Slot chosen = null;
+		for (int i = 0; i < queues.size() && chosen == null; i++) {
+			Slot first = lowest(i, i + 1, null);
+			if (first != null && first.costKey < SchedulingPolicy.NORMAL_TIER_OFFSET) {
+				chosen = first;
+			}
+		}
+
+		// 2. Starvation guard: a token that has waited maxWaitMs goes next
+		long maxWait = PriorityClasses.getMaxWaitMs();
+		if (chosen == null && maxWait > 0 && PriorityClasses.isEnabled()) {
+			Slot oldest = null;
+			long oldestAt = Long.MAX_VALUE;
+			for (int i = 0; i < queues.size(); i++) {
+				for (Map.Entry<String, TreeMap<Long, Queued>> queue : queues.get(i).entrySet()) {
+					for (Map.Entry<Long, Queued> entry : queue.getValue().entrySet()) {
+						if (entry.getValue().enqueuedAt < oldestAt) {
+							oldestAt = entry.getValue().enqueuedAt;
+							oldest = new Slot(i, queue.getKey(), entry.getKey());
+						}
+					}
+				}
+			}
+			if (oldest != null && now - oldestAt > maxWait) {
+				chosen = oldest;
+				starvationPromotions.increment();
+			}
+		}
+
+		// 3. Class policy, then version shares within the chosen class(es)
+		if (chosen == null) {
+			int from = 0;
+			int to = queues.size();
+			if (PriorityClasses.isEnabled()) {
+				from = selectByPolicy();
+				to = from + 1;
+			}
+			String version = null;
+			if (VersionShares.isEnabled()) {
+				final int first = from;
+				final int last = to;
+				version = shares.next(v -> backlogged(first, last, v));
+			}
+			chosen = lowest(from, to, version);
+		}
+
+		TreeMap<String, TreeMap<Long, Queued>> classQueues = queues.get(chosen.priorityClass);
+		TreeMap<Long, Queued> queue = classQueues.get(chosen.subQueue);
+		Queued queued = queue.remove(chosen.costKey);
+		if (queue.isEmpty()) {
+			classQueues.remove(chosen.subQueue);
+		}
+		classSize[chosen.priorityClass]--;
+		size--;
+		if (PriorityClasses.WFQ.equals(PriorityClasses.getClassPolicy())) {
+			currentPass = pass[chosen.priorityClass];
+			pass[chosen.priorityClass] += STRIDE / PriorityClasses.weight(chosen.priorityClass);
+		}
+		queueTime[chosen.priorityClass].record(Math.max(0L, now - queued.enqueuedAt));
+		versionDequeues.computeIfAbsent(queued.version,
+				v -> MetricsRegistry.getInstance().counter("btsn_reactor_version_dequeued_total",
+						"Tokens dequeued by the reactor per rule-base version", "policy", policyLabel, "port",
+						port, "version", v))
+				.increment();
+		return new AbstractMap.SimpleEntry<>(chosen.costKey, queued.payload);
+	}
+
+	/**
+	 * STRICT or WFQ choice of a non-empty class.
+	 */
+	private int selectByPolicy() {
+		int chosen = -1;
+		for (int i = 0; i < queues.size(); i++) {
+			if (classSize[i] == 0) {
+				continue;
+			}
+			if (PriorityClasses.STRICT.equals(PriorityClasses.getClassPolicy())) {
+				return i;
+			}
+			if (chosen < 0 || pass[i] < pass[chosen]) {
+				chosen = i;
+			}
+		}
+		return chosen;
+	}
+
+	/**
+	 * Lowest-costKey token in classes [from, to), of one version or of any
+	 * (null); on equal keys the more urgent class.
+	 */
+	private Slot lowest(int from, int to, String version) {
+		Slot lowest = null;
+		for (int i = from; i < to; i++) {
+			for (Map.Entry<String, TreeMap<Long, Queued>> queue : queues.get(i).entrySet()) {
+				if (version != null && !version.equals(queue.getKey())) {
+					continue;
+				}
+				long first = queue.getValue().firstKey();
+				if (lowest == null || first < lowest.costKey) {
+					lowest = new Slot(i, queue.getKey(), first);
+				}
+			}
+		}
+		return lowest;
+	}
+
+	private boolean backlogged(int from, int to, String version) {
+		for (int i = from; i < to; i++) {
+			if (queues.get(i).containsKey(version)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int countBelow(int priorityClass, long costKey) {
+		int below = 0;
+		for (TreeMap<Long, Queued> queue : queues.get(priorityClass).values()) {
+			below += queue.headMap(costKey).size();
+		}
+		return below;
+	}
+}
@@ -10,28 +10,45 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import org.apache.log4j.Level;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
+import org.btsn.constants.TokenId;
 import org.btsn.constants.VersionConstants;
 import org.btsn.derby.Analysis.BuildServiceAnalysisDatabase;
 import org.btsn.handlers.PetriNetInstrumentationHelper;
 import org.btsn.json.jsonLibrary;
+import org.btsn.metrics.LatencyHistogram;
+import org.btsn.metrics.MetricsRegistry;
+import org.btsn.metrics.TraceCollector;
+import org.btsn.metrics.TraceContext;
+import org.btsn.metrics.TraceSpan;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.JSONArray;
 import org.btsn.utils.ChannelPublish;
+import org.btsn.utils.LoaderSettings;
+import org.btsn.utils.LongHashMap;
 import org.btsn.utils.OOjdrewAPI;
+import org.btsn.utils.Replication;
+import org.btsn.utils.RoutingTable;
+import org.btsn.utils.RuleSnapshot;
+import org.btsn.utils.SimulationClock;
 import org.btsn.utils.StringFileIO;
 import org.btsn.utils.XPathHelperCommon;
 
@@ -53,8 +70,8 @@ class ServiceThread implements Runnable {
 	private String serviceName;
 	private String returnAttributeName;
 	private String ruleBaseVersion;
-	private Integer sequenceID;
-	private Integer phaseSequenceID;
+	private long sequenceID;
+	private long phaseSequenceID;
 	protected long taskArrivalTime;
 	// Service identity - set during construction
 	private final String myServiceName;
@@ -65,7 +82,7 @@ class ServiceThread implements Runnable {
 
 	private String nodeType;
 	private ArrayList<String> inputCollection = new ArrayList<String>();
-	private ArrayList<String> inputArgs = new ArrayList<String>();
+	private ArrayList<Object> inputArgs = new ArrayList<Object>();
 
 	private String basePath;
 
@@ -109,7 +126,7 @@ class ServiceThread implements Runnable {
 	private ArrayList<String> nextOperationCollection = new ArrayList<String>();
 	private ArrayList<String> nextChannelCollection = new ArrayList<String>();
 	private ArrayList<String> nextPortCollection = new ArrayList<String>();
-	private ArrayList<Integer> keyRemovalCollection = new ArrayList<Integer>();
+	private ArrayList<Long> keyRemovalCollection = new ArrayList<Long>();
 
 	private boolean enableCompletedJoinPriority = true;
 	private boolean loadJoinProcessingSettings = true;
@@ -121,10 +138,11 @@ class ServiceThread implements Runnable {
 
 	private EventPublisher eventPublisher;
 	private ChannelPublish publish = new ChannelPublish();
-	private static TreeMap<Integer, String> nextServiceMap = new TreeMap<Integer, String>();
+	private TreeMap<Integer, String> nextServiceMap = new TreeMap<Integer, String>();
 
-	private TreeMap<Integer, Long> sequenceIDJoinWindow = new TreeMap<Integer, Long>();
-	public static ConcurrentHashMap<Integer, ConcurrentSkipListMap<String, String>> argValPriorityMap = new ConcurrentHashMap<Integer, ConcurrentSkipListMap<String, String>>();
+	// Join state keyed on the join's parent TokenId (see TokenIdManager)
+	private LongHashMap<Long> sequenceIDJoinWindow = new LongHashMap<Long>();
+	public static ConcurrentHashMap<Long, ConcurrentSkipListMap<String, String>> argValPriorityMap = new ConcurrentHashMap<Long, ConcurrentSkipListMap<String, String>>();
 
 	private static String DECISION_GREATER_THAN = "DECISION_GREATER_THAN";
 	private static String DECISION_LESS_THAN = "DECISION_LESS_THAN";
@@ -132,17 +150,27 @@ class ServiceThread implements Runnable {
 	private static String DECISION_EQUAL_TO = "DECISION_EQUAL_TO";
 	private static String DECISION_TRUE = "DECISION_TRUE";
 	private static String DECISION_FALSE = "DECISION_FALSE";
-	protected static String incomingXMLPayLoad;
-	private static String outgoingXMLPayLoad;
-	protected TreeMap<Long, String> dataMap = new TreeMap<Long, String>();
+	// The token being processed, as the reactor queued it, and the XML it descends from
+	private TokenEnvelope incomingEnvelope;
+	protected String incomingXMLPayLoad;
+	private String outgoingXMLPayLoad;
+	// Fork fan-out: payload serialized once, then patched per branch (see ForkEnvelope)
+	private boolean forkFanOut = false;
+	private ForkEnvelope forkEnvelope = null;
+	private String forkPayloadTokenId = null;
+	protected TreeMap<Long, TokenEnvelope> dataMap = new TreeMap<Long, TokenEnvelope>();
 	// Track fork contributions for join coordination
-	private static ConcurrentHashMap<Integer, List<JoinContribution>> joinContributions = new ConcurrentHashMap<>();
+	private static ConcurrentHashMap<Long, List<JoinContribution>> joinContributions = new ConcurrentHashMap<>();
 	
 	// FIX: Store expected join count PER JOIN, not as instance variable
 	// Key = joinID (base token ID), Value = expected number of inputs
-	private static ConcurrentHashMap<Integer, Integer> joinExpectedCounts = new ConcurrentHashMap<>();
+	private static ConcurrentHashMap<Long, Integer> joinExpectedCounts = new ConcurrentHashMap<>();
 
+	// ServiceThreads running in this JVM, for ServiceLoader's drain
+	private static final Set<ServiceThread> liveThreads = ConcurrentHashMap.newKeySet();
+	
 	private String workingRuleBaseVersion = "vzzz";
+	private long workingRuleGeneration = 0;  // RuleSnapshot the working rule base came from
 
 	private TreeMap<Integer, String> decisionValueCollection = new TreeMap<Integer, String>();
 
@@ -184,6 +212,25 @@ class ServiceThread implements Runnable {
 	private AtomicInteger eventCounter = new AtomicInteger(0);
 	private static final int STATS_LOG_INTERVAL = 100;
 
+	// Live metrics (scraped via ServiceLoader's MetricsEndpoint) - cached per operation
+	private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+	
+	// Async services (ServiceHelper <AsyncSettings>): a token whose service is
+	// still running is parked in a TokenState. When the service completes the
+	// token is handed back through the reactor (putResumedToken) and routed
+	// on this thread, so only this thread touches the per-token fields.
+	// tokenLock is held while a token is processed (see tokensInFlight).
+	private final ReentrantLock tokenLock = new ReentrantLock();
+	private final AtomicInteger parkedTokens = new AtomicInteger();
+	private ServiceHelper.ServiceResult completedServiceResult = null;
+
+	// Span of the token being processed (TraceSettings); null when tracing is off
+	private TraceSpan traceSpan = null;
+	private String[] metricLabels;
+	private LatencyHistogram queueTimeHistogram;
+	private LatencyHistogram serviceTimeHistogram;
+	private LongAdder tokensProcessedCounter;
+
 	static {
 		System.setProperty("java.net.preferIPv4Stack", "true");
 		System.setProperty("java.net.preferIPv6Addresses", "false");
@@ -192,6 +239,15 @@ class ServiceThread implements Runnable {
 		System.setProperty("jdk.net.useExclusiveBind", "false");
 	}
 
+	// Join state is JVM-wide (static maps), so its gauges are registered once, without labels
+	static {
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+		metrics.gauge("btsn_pending_joins", "Join windows waiting in argValPriorityMap",
+				() -> argValPriorityMap.size());
+		metrics.gauge("btsn_pending_join_contributions", "Join windows tracked in joinContributions",
+				() -> joinContributions.size());
+	}
+
 	ServiceThread(String serviceChannel, String rulePort, EventPublisher eventPublisher, String myServiceName,
 			String myOperationName) {
 		this.serviceChannel = serviceChannel;
@@ -235,7 +291,7 @@ class ServiceThread implements Runnable {
 			String loaderSettings = serviceLoaderDirectory + "loaderSettings.xml";
 			String xmlLoaderSettings = StringFileIO.readFileAsString(loaderSettings);
 
-			monitorSettingsMap = xph.findMultipleXMLItems(xmlLoaderSettings, "//MonitorSettings/*");
+			monitorSettingsMap = LoaderSettings.section(xmlLoaderSettings, "MonitorSettings");
 			monitorIncomingEvents = Boolean.parseBoolean(monitorSettingsMap.get("monitorIncomingEvents"));
 
 			if (loadJoinProcessingSettings) {
@@ -293,6 +349,13 @@ class ServiceThread implements Runnable {
 				}
 			}
 
+			registerMetrics(rulePort);
+			
+			liveThreads.add(this);
+			if (ServiceLoader.isDraining()) {
+				thread.setDraining(true);
+			}
+
 			System.out.println("=== SERVICE ORCHESTRATOR READY ===");
 
 		} catch (Exception e) {
@@ -301,6 +364,70 @@ class ServiceThread implements Runnable {
 		}
 	}
 
+	/**
+	 * Register live metrics for this operation. Reactor state is exposed as
+	 * gauges sampled at scrape time, so nothing is added to the receive path.
+	 * JVM-wide state (join maps, EventReactor.lostEvents) is registered once
+	 * in static initializers, not per operation.
+	 */
+	private void registerMetrics(String rulePort) {
+		String[] labels = { "service", myServiceName, "operation", myOperationName, "port", rulePort };
+		metricLabels = labels;
+		final EventReactor reactor = thread;
+
+		metrics.gauge("btsn_reactor_queue_size", "Tokens waiting in the EventReactor priority queue",
+				reactor::getQueueSize, labels);
+		metrics.gauge("btsn_reactor_queue_capacity", "Configured EventReactor maxQueue",
+				reactor::getMaxQueueCapacity, labels);
+		metrics.gauge("btsn_reactor_max_buffer_seen", "High-water mark of the EventReactor queue",
+				reactor::getMaxBufferSeen, labels);
+		metrics.gauge("btsn_reactor_pending_chunks", "Partially received chunked messages",
+				reactor::getPendingChunkCount, labels);
+
+		queueTimeHistogram = metrics.histogram("btsn_hop_queue_time_ms",
+				"Per-hop queue time: EventReactor arrival to service invocation", labels);
+		serviceTimeHistogram = metrics.histogram("btsn_hop_service_time_ms",
+				"Per-hop service time: invocation to publish", labels);
+		tokensProcessedCounter = metrics.counter("btsn_tokens_processed_total",
+				"Tokens processed by this operation", labels);
+	}
+
+	/**
+	 * Record per-hop queue and service time for the live metrics endpoint.
+	 * Independent of monitorIncomingEvents - this never touches Derby.
+	 * Also feeds the EventReactor's service time estimate used by the
+	 * deadline-aware scheduling policies and admission control.
+	 */
+	private void recordHopMetrics() {
+		if (queueTimeHistogram == null) {
+			return;
+		}
+		long arrivalTime = taskArrivalTime;
+		String trueArrivalTime = monitorDataMap.get("eventArrivalTime");
+		if (trueArrivalTime != null) {
+			try {
+				arrivalTime = Long.parseLong(trueArrivalTime.trim());
+			} catch (NumberFormatException e) {
+				// keep ServiceThread dequeue time
+			}
+		}
+		queueTimeHistogram.record(serviceInvocationTime - arrivalTime);
+		serviceTimeHistogram.record(servicePublishTime - serviceInvocationTime);
+		tokensProcessedCounter.increment();
+
+		// Feed the reactor's service time estimator and deadline counters
+		long notAfter = 0L;
+		String notAfterValue = attrMap.get("notAfter");
+		if (notAfterValue != null) {
+			try {
+				notAfter = Long.parseLong(notAfterValue.trim());
+			} catch (NumberFormatException e) {
+				// deadline unknown - estimator still updated
+			}
+		}
+		thread.recordServiceCompletion(servicePublishTime - serviceInvocationTime, servicePublishTime, notAfter);
+	}
+
 	/**
 	 * Validate timing data to ensure all timestamps are present and logical
 	 */
@@ -382,8 +509,8 @@ class ServiceThread implements Runnable {
 	}
 
 	// Then replace the workflow base calculation with:
-	private int calculateWorkflowBase(long sequenceId) {
-	    return VersionConstants.getWorkflowBaseFromSequenceId((int) sequenceId);
+	private long calculateWorkflowBase(long sequenceId) {
+	    return VersionConstants.getWorkflowBaseFromSequenceId(sequenceId);
 	}
 
 	public void shutdown() {
@@ -398,11 +525,20 @@ class ServiceThread implements Runnable {
 		}
 
 		isShutdown = true;
+		liveThreads.remove(this);
 
 		if (statsExecutor != null) {
 			statsExecutor.shutdown();
 		}
 
+		if (metricLabels != null) {
+			for (String name : new String[] { "btsn_reactor_queue_size", "btsn_reactor_queue_capacity",
+					"btsn_reactor_max_buffer_seen", "btsn_reactor_pending_chunks", "btsn_hop_queue_time_ms",
+					"btsn_hop_service_time_ms", "btsn_tokens_processed_total" }) {
+				metrics.unregister(name, metricLabels);
+			}
+		}
+
 		if (thread != null) {
 			try {
 				thread.shutdown();
@@ -433,6 +569,11 @@ class ServiceThread implements Runnable {
 				
 		         // Get token FIRST (this blocks if queue is empty)
 	            dataMap = thread.getScheduledToken();
+	            // Tokens whose async service has completed are routed first
+	            resumeParkedTokens();
+	            if (dataMap.isEmpty()) {
+	                continue;
+	            }
 	            // MARKING CAPTURE: Get buffer state AFTER dequeuing
 	            // This captures "tokens still waiting" not "tokens including this one"
 	            // In a cyclic workflow, this prevents phantom accumulation
@@ -451,7 +592,8 @@ class ServiceThread implements Runnable {
 					break;
 				}
 
-				taskArrivalTime = System.currentTimeMillis();
+				tokenLock.lock();
+				taskArrivalTime = SimulationClock.now();
 				attrMap.clear();
 				
 				// FIX: Reset per-message state that should NOT persist between messages
@@ -462,11 +604,27 @@ class ServiceThread implements Runnable {
 				costKey = dataMap.firstKey();
 				jsonAttributes = new jsonLibrary();
 
-				incomingXMLPayLoad = dataMap.remove(costKey);
-				headerMap = xph.findMultipleXMLItems(incomingXMLPayLoad, "//header/*");
-				attrMap = xph.findMultipleXMLItems(incomingXMLPayLoad, "//joinAttribute/*");
-				serviceMap = xph.findMultipleXMLItems(incomingXMLPayLoad, "//service/*");
-				monitorDataMap = xph.findMultipleXMLItems(incomingXMLPayLoad, "//monitorData/*");
+				// Parsed by the reactor on a UDP arrival, or handed over in-JVM - nothing to parse here.
+				// Copied: the outgoing token is these maps written over the envelope (forward())
+				incomingEnvelope = dataMap.remove(costKey);
+				incomingXMLPayLoad = incomingEnvelope.text();
+				headerMap = new TreeMap<>(incomingEnvelope.header());
+				attrMap = new TreeMap<>(incomingEnvelope.joinAttribute());
+				serviceMap = new TreeMap<>(incomingEnvelope.service());
+				monitorDataMap = new TreeMap<>(incomingEnvelope.monitorData());
+
+				if (SimulationClock.isVirtual()) {
+					// Process the token at the simulated time it arrived, not when it was dequeued
+					SimulationClock.bind(monitorDataMap.get(SimulationClock.SIM_TIME));
+					taskArrivalTime = SimulationClock.now();
+				}
+
+				if (TraceContext.isEnabled()) {
+					// Tokens published from this hop carry its span as their parent
+					traceSpan = TraceSpan.start(TraceContext.parse(headerMap.get(TraceContext.HEADER_ELEMENT)),
+							taskArrivalTime);
+					headerMap.put(TraceContext.HEADER_ELEMENT, traceSpan.outgoing().encode());
+				}
 
 				// PRIORITY FIX: Clear completedJoin flag on arrival.
 				// This flag is set by the PREVIOUS service when publishing after a join completion.
@@ -493,6 +651,10 @@ class ServiceThread implements Runnable {
 			} catch (Exception e) {
 				logger.error("Error in ServiceThread main loop", e);
 				continue;
+			} finally {
+				if (tokenLock.isHeldByCurrentThread()) {
+					tokenLock.unlock();
+				}
 			}
 		}
 
@@ -514,7 +676,7 @@ class ServiceThread implements Runnable {
 	    }
 
 	    outgoingXMLPayLoad = incomingXMLPayLoad;
-	    phaseSequenceID = Integer.parseInt(headerMap.get("sequenceId"));
+	    phaseSequenceID = TokenId.parse(headerMap.get("sequenceId"));
 	    
 	    // CRITICAL FIX: Capture workflowStartTime immediately - before any other event can arrive
 	    String workflowStartTimeStr = monitorDataMap.get("processStartTime");
@@ -532,7 +694,7 @@ class ServiceThread implements Runnable {
 
 
 	    monitorIncomingEvents |= Boolean.parseBoolean(headerMap.get("monitorIncomingEvents"));
-	    int joinID = mapFromSequenceID(phaseSequenceID);
+	    long joinID = mapFromSequenceID(phaseSequenceID);
 	    
 	    logger.info("Incoming Sequence ID = " + phaseSequenceID);
 	    logger.info("MonitorIncomingEvents+ = " + monitorIncomingEvents);
@@ -577,8 +739,8 @@ class ServiceThread implements Runnable {
 	    // The sender derives attribute names from token ID (token_branch1, token_branch2, etc.)
 	    // based on the branch number encoded in the token ID. The payloadAttributeName arrives
 	    // with the correct name so no receiver-side derivation is needed.
-	    argValPriorityMap.putIfAbsent(joinID, new ConcurrentSkipListMap<>());
-	    ConcurrentSkipListMap<String, String> currentJoinMap = argValPriorityMap.get(joinID);
+	    ConcurrentSkipListMap<String, String> currentJoinMap = argValPriorityMap.computeIfAbsent(joinID,
+	            k -> new ConcurrentSkipListMap<>());
 	    if (currentJoinMap != null) {
 	        currentJoinMap.putIfAbsent(payloadAttributeName, payloadAttributeValue);
 	        
@@ -588,19 +750,24 @@ class ServiceThread implements Runnable {
 
 	    sequenceIDJoinWindow.put(joinID, AdjustJoinWindow(joinID, Long.parseLong(attrMap.get("notAfter"))));
 
-	    String ruleBaseLocation = basePath + "/RuleFolder." + ruleBaseVersion + "/" + operationName + "/Service.ruleml";
+	    String ruleBaseLocation = Replication.ruleFolder(new File(basePath), ruleBaseVersion).getPath() + "/" + operationName
+				+ "/Service.ruleml";
 	    String knowledgeBase = null;
 
 	    logger.info("DEBUG: Loading rule base for operation: " + operationName);
 	    logger.info("DEBUG: Rule base location: " + ruleBaseLocation);
 
 	    try {
-	        if ((workingRuleBaseVersion.equals(ruleBaseVersion))) {
+	        // Committed snapshot of the rules: RuleHandler replaces it whole when it
+	        // rebuilds them, so a token never reads Service.ruleml mid-rewrite
+	        RuleSnapshot snapshot = RuleSnapshot.forOperation(ruleBaseVersion, operationName, ruleBaseLocation);
+	        if (snapshot != null && workingRuleBaseVersion.equals(ruleBaseVersion)
+	                && workingRuleGeneration == snapshot.getGeneration()) {
 	            knowledgeBase = knowledgeBaseMap.get(ruleBaseVersion);
 	            logger.info("DEBUG: Using cached knowledge base for version: " + ruleBaseVersion);
 	        } else {
 	            logger.info("DEBUG: Loading fresh knowledge base from: " + ruleBaseLocation);
-	            knowledgeBase = oojdrew.getRuleBaset(ruleBaseLocation);
+	            knowledgeBase = snapshot != null ? snapshot.getKnowledgeBase() : null;
 
 	            if (knowledgeBase == null || knowledgeBase.isEmpty()) {
 	                logger.error("DEBUG: Knowledge base is null or empty!");
@@ -613,6 +780,7 @@ class ServiceThread implements Runnable {
 
 	            knowledgeBaseMap.put(ruleBaseVersion, knowledgeBase);
 	            workingRuleBaseVersion = ruleBaseVersion;
+	            workingRuleGeneration = snapshot.getGeneration();
 	            ruleBaseLoaded = false;
 	        }
 
@@ -684,8 +852,7 @@ class ServiceThread implements Runnable {
 	            logger.info("ORCHESTRATOR: TerminateNode " + serviceName + ":" + operationName + " - no routing needed");
 	            sequenceID = joinID;
 	            inputArgs.clear();
-	            String attributeValue = attrMap.get("attributeValue");
-	            inputArgs.add(attributeValue);
+	            inputArgs.add(attributeValueArgument());
 	            processControlNode();
 	            return;
 	        } else {
@@ -712,8 +879,7 @@ class ServiceThread implements Runnable {
 	            
 	            sequenceID = joinID;
 	            inputArgs.clear();
-	            String attributeValue = attrMap.get("attributeValue");
-	            inputArgs.add(attributeValue);
+	            inputArgs.add(attributeValueArgument());
 
 	            logger.info("ORCHESTRATOR: Zero-input service " + serviceName + ":" + operationName + 
 	                       " executing with trigger token (no workflow data required)");
@@ -734,8 +900,7 @@ class ServiceThread implements Runnable {
 	            
 	            sequenceID = joinID;
 	            inputArgs.clear();
-	            String attributeValue = attrMap.get("attributeValue");
-	            inputArgs.add(attributeValue);
+	            inputArgs.add(attributeValueArgument());
 
 	            logger.info("ORCHESTRATOR: ANYOF service " + serviceName + ":" + operationName
 	                    + " executing with attribute '" + payloadAttributeName + "' (sequence ID: " + sequenceID + ")");
@@ -813,8 +978,7 @@ class ServiceThread implements Runnable {
 	            // All validations passed - execute immediately with single input
 	            sequenceID = joinID;
 	            inputArgs.clear();
-	            String attributeValue = attrMap.get("attributeValue");
-	            inputArgs.add(attributeValue);
+	            inputArgs.add(attributeValueArgument());
 	            
 	            logger.info("ORCHESTRATOR: " + nodeType + " " + serviceName + ":" + operationName + 
 	                       " executing immediately with single input '" + requiredAttribute + 
@@ -871,16 +1035,17 @@ class ServiceThread implements Runnable {
 	            keyRemovalCollection.clear();
 
 	            // Track this fork's contribution with workflow timing
-	            int currentForkNumber = phaseSequenceID;
+	            long currentForkNumber = phaseSequenceID;
 	            
-	            joinContributions.putIfAbsent(joinID, new ArrayList<>());
-	            List<JoinContribution> contributions = joinContributions.get(joinID);
+	            List<JoinContribution> contributions = joinContributions.computeIfAbsent(joinID, k -> new ArrayList<>());
 	            
 	            JoinContribution contribution = contributions.stream()
 	                .filter(c -> c.forkNumber == currentForkNumber)
 	                .findFirst()
 	                .orElseGet(() -> {
 	                    JoinContribution newContrib = new JoinContribution(currentForkNumber, currentWorkflowStartTime);
+	                    newContrib.simTime = SimulationClock.now();
+	                    newContrib.traceSpan = traceSpan;
 	                    contributions.add(newContrib);
 	                    logger.debug("TRACK: Fork " + currentForkNumber + " workflowStartTime=" + currentWorkflowStartTime);
 	                    return newContrib;
@@ -889,23 +1054,23 @@ class ServiceThread implements Runnable {
 	            contribution.attributes.put(payloadAttributeName, payloadAttributeValue);
 
 	            // Process joins based on configuration (OPTIMIZED or SEQUENTIAL mode)
-	            List<Integer> sortedKeys = argValPriorityMap.keySet().stream().sorted().collect(Collectors.toList());
+	            long[] sortedKeys = sortedJoinKeys();
 
 	            if (enableCompletedJoinPriority) {
 	                // OPTIMIZED MODE: Process any complete join immediately
-	                Integer readyJoinKey = null;
+	                Long readyJoinKey = null;
 
-	                logger.debug("ORCHESTRATOR [OPTIMIZED]: Checking " + sortedKeys.size()
+	                logger.debug("ORCHESTRATOR [OPTIMIZED]: Checking " + sortedKeys.length
 	                        + " joins for completeness in sequence ID order");
 
-	                if (logger.isDebugEnabled() && !sortedKeys.isEmpty()) {
+	                if (logger.isDebugEnabled() && sortedKeys.length > 0) {
 	                    logger.debug("ORCHESTRATOR [OPTIMIZED]: Sequence ID sorted join order:");
-	                    for (Integer key : sortedKeys.subList(0, Math.min(5, sortedKeys.size()))) {
-	                        logger.debug("  - Sequence " + key);
+	                    for (int i = 0; i < Math.min(5, sortedKeys.length); i++) {
+	                        logger.debug("  - Sequence " + sortedKeys[i]);
 	                    }
 	                }
 
-	                for (Integer key : sortedKeys) {
+	                for (long key : sortedKeys) {
 	                    if (isShutdown) {
 	                        return;
 	                    }
@@ -933,17 +1098,17 @@ class ServiceThread implements Runnable {
 	                if (readyJoinKey != null) {
 	                    processCompleteJoinSafely(readyJoinKey);
 	                } else {
-	                    logger.debug("ORCHESTRATOR [OPTIMIZED]: No complete joins found in " + sortedKeys.size()
+	                    logger.debug("ORCHESTRATOR [OPTIMIZED]: No complete joins found in " + sortedKeys.length
 	                            + " pending joins - waiting for more inputs");
 	                }
 
 	            } else {
 	                // SEQUENTIAL MODE: Process only lowest sequence ID when complete
-	                logger.debug("ORCHESTRATOR [SEQUENTIAL]: Processing " + sortedKeys.size()
+	                logger.debug("ORCHESTRATOR [SEQUENTIAL]: Processing " + sortedKeys.length
 	                        + " joins in sequence ID order");
 
-	                if (!sortedKeys.isEmpty()) {
-	                    Integer lowestSequenceKey = sortedKeys.get(0);
+	                if (sortedKeys.length > 0) {
+	                    long lowestSequenceKey = sortedKeys[0];
 
 	                    Long windowTime = sequenceIDJoinWindow.get(lowestSequenceKey);
 	                    if (windowTime == null || AdjustJoinWindow(lowestSequenceKey, windowTime) == 0L) {
@@ -960,8 +1125,8 @@ class ServiceThread implements Runnable {
 	                                    + " is incomplete - BLOCKING until complete");
 
 	                            if (logger.isDebugEnabled()) {
-	                                for (int i = 1; i < sortedKeys.size(); i++) {
-	                                    Integer blockedKey = sortedKeys.get(i);
+	                                for (int i = 1; i < sortedKeys.length; i++) {
+	                                    long blockedKey = sortedKeys[i];
 	                                    if (isJoinComplete(blockedKey)) {
 	                                        logger.debug("ORCHESTRATOR [SEQUENTIAL]: [WARNING] Complete join " + blockedKey
 	                                                + " is BLOCKED by incomplete lower sequence join "
@@ -1023,7 +1188,7 @@ class ServiceThread implements Runnable {
 	 * AGNOSTIC: Uses per-join expected count from joinExpectedCounts map
 	 * which is populated from inputCollection.size() (canonical bindings)
 	 */
-	private boolean isJoinComplete(Integer key) {
+	private boolean isJoinComplete(long key) {
 		ConcurrentSkipListMap<String, String> argVal = argValPriorityMap.get(key);
 		if (argVal == null) {
 			return false;
@@ -1064,7 +1229,7 @@ class ServiceThread implements Runnable {
 	 * AGNOSTIC: Collects inputs by canonical binding names from inputCollection
 	 * Works for all workflow types - purely binding-driven
 	 */
-	private void processCompleteJoinSafely(Integer joinKey) {
+	private void processCompleteJoinSafely(long joinKey) {
 	    // Get the join data atomically
 	    ConcurrentSkipListMap<String, String> argVal = argValPriorityMap.get(joinKey);
 	    if (argVal == null) {
@@ -1108,13 +1273,15 @@ class ServiceThread implements Runnable {
 
 	    // Find the lowest fork number AND preserve its workflowStartTime
 	    List<JoinContribution> contributions = joinContributions.get(joinKey);
-	    int lowestForkNumber = joinKey;  // Default to base if no contributions tracked
+	    advanceToJoinTime(contributions);
+	    joinTraceParents(contributions);
+	    long lowestForkNumber = joinKey;  // Default to base if no contributions tracked
 	    long preservedWorkflowStartTime = currentWorkflowStartTime;  // Default to current
 	    
 	    if (contributions != null && !contributions.isEmpty()) {
 	        // Find the contribution with the lowest fork number
 	        JoinContribution lowestContribution = contributions.stream()
-	            .min(Comparator.comparingInt(c -> c.forkNumber))
+	            .min(Comparator.comparingLong(c -> c.forkNumber))
 	            .orElse(null);
 	            
 	        if (lowestContribution != null) {
@@ -1133,7 +1300,7 @@ class ServiceThread implements Runnable {
 	    
 	    // After JOIN completes, continue with the LOWEST child token ID
 	    // All other participants are consumed - the lowest child survives
-	    int continuingTokenId = lowestForkNumber;
+	    long continuingTokenId = lowestForkNumber;
 	    
 	    logger.info("JOIN-CONTINUE: Token " + continuingTokenId + " continues after JOIN at " + serviceName);
 	    logger.info("ORCHESTRATOR: Preserving workflowStartTime: " + preservedWorkflowStartTime);
@@ -1143,10 +1310,10 @@ class ServiceThread implements Runnable {
 	    
 	    // Use the lowest child token ID for continuation
 	    sequenceID = continuingTokenId;
-	    headerMap.put("sequenceId", Integer.toString(continuingTokenId));
+	    headerMap.put("sequenceId", Long.toString(continuingTokenId));
 	    
 	    // Record join completion - continuing token ENTERS, others CONSUMED
-	    List<Integer> participantTokenIds = new ArrayList<>();
+	    List<Long> participantTokenIds = new ArrayList<>();
 	    if (contributions != null) {
 	        for (JoinContribution contrib : contributions) {
 	            participantTokenIds.add(contrib.forkNumber);
@@ -1167,7 +1334,7 @@ class ServiceThread implements Runnable {
 	/**
 	 * Thread-safe cleanup of a single join
 	 */
-	private void safeCleanupJoin(Integer joinKey) {
+	private void safeCleanupJoin(long joinKey) {
 	    argValPriorityMap.remove(joinKey);
 	    sequenceIDJoinWindow.remove(joinKey);
 	    joinContributions.remove(joinKey);  // Clean up fork tracking
@@ -1179,7 +1346,7 @@ class ServiceThread implements Runnable {
 	 * Thread-safe cleanup of expired joins
 	 */
 	private void safeCleanupExpiredJoins() {
-		for (Integer rkey : keyRemovalCollection) {
+		for (long rkey : keyRemovalCollection) {
 			safeCleanupJoin(rkey);
 		}
 		keyRemovalCollection.clear();
@@ -1193,9 +1360,9 @@ class ServiceThread implements Runnable {
 				+ (enableCompletedJoinPriority ? "OPTIMIZED" : "SEQUENTIAL") + "):");
 
 		// Create snapshot of current state
-		List<Integer> statusKeys = argValPriorityMap.keySet().stream().sorted().collect(Collectors.toList());
+		long[] statusKeys = sortedJoinKeys();
 
-		for (Integer key : statusKeys) {
+		for (long key : statusKeys) {
 			ConcurrentSkipListMap<String, String> argVal = argValPriorityMap.get(key);
 			int currentInputs = argVal != null ? argVal.size() : 0;
 			int requiredInputs = inputCollection.size();
@@ -1206,7 +1373,7 @@ class ServiceThread implements Runnable {
 
 	
 
-	private void processCompleteJoin(Integer joinKey) {
+	private void processCompleteJoin(long joinKey) {
 		ConcurrentSkipListMap<String, String> argVal = argValPriorityMap.get(joinKey);
 
 		keyRemovalCollection.add(joinKey);
@@ -1221,7 +1388,9 @@ class ServiceThread implements Runnable {
 					+ serviceName + "." + operationName);
 
 			sequenceID = joinKey;
-			headerMap.put("sequenceId", joinKey.toString());
+			headerMap.put("sequenceId", Long.toString(joinKey));
+			advanceToJoinTime(joinContributions.get(joinKey));
+			joinTraceParents(joinContributions.get(joinKey));
 			
 			// PRIORITY FIX: Signal that this token has completed a join (SEQUENTIAL mode).
 			monitorDataMap.put("completedJoin", "true");
@@ -1234,8 +1403,34 @@ class ServiceThread implements Runnable {
 		}
 	}
 
-	private Long AdjustJoinWindow(Integer keyID, Long notAfter) {
-		long ctime = System.currentTimeMillis();
+	/**
+	 * In VIRTUAL clock mode a join fires when its last input arrives in
+	 * simulated time, which need not be the input that completed it here.
+	 */
+	private void advanceToJoinTime(List<JoinContribution> contributions) {
+		if (!SimulationClock.isVirtual() || contributions == null) {
+			return;
+		}
+		for (JoinContribution contribution : contributions) {
+			SimulationClock.advanceTo(contribution.simTime);
+		}
+	}
+
+	/**
+	 * A join's span has every input as a parent, not only the input that
+	 * completed it here.
+	 */
+	private void joinTraceParents(List<JoinContribution> contributions) {
+		if (traceSpan == null || contributions == null) {
+			return;
+		}
+		for (JoinContribution contribution : contributions) {
+			traceSpan.addParentsOf(contribution.traceSpan);
+		}
+	}
+
+	private Long AdjustJoinWindow(long keyID, Long notAfter) {
+		long ctime = SimulationClock.now();
 		if (notAfter == null) {
 			logger.debug("ServiceThread : notAfter is null");
 			return 0L;
@@ -1254,66 +1449,281 @@ class ServiceThread implements Runnable {
 				logger.info("ORCHESTRATOR: Processing " + nodeType + " for " + serviceName + "." + operationName);
 
 				// Capture invocation time before service execution
-				serviceInvocationTime = System.currentTimeMillis();
+				serviceInvocationTime = SimulationClock.now();
 
-				switch (nodeType) {
-				case "DecisionNode":
-					nodeTypeProcessor.processDecisionType(serviceName, operationName, inputArgs);
-					break;
-				case "TerminateNode":
-					nodeTypeProcessor.processTerminateType(serviceName, operationName, inputArgs);
-					break;
-				case "XorNode":
-					// XorNode - Conditional routing (picks path(s) based on decision value)
-					nodeTypeProcessor.processXorType(serviceName, operationName, inputArgs);
-					break;
-				case "GatewayNode":
-					// GatewayNode - Dynamic routing strategy based on service response
-					// Service returns: "FORK:target1,target2" or "EDGE:target"
-					nodeTypeProcessor.processGatewayType(serviceName, operationName, inputArgs);
-					break;
-				case "ForkNode":
-					// ForkNode - Unconditional parallel split (ALL paths)
-					nodeTypeProcessor.processForkType(serviceName, operationName, inputArgs);
-					break;
-				case "FeedFwdNode":
-					nodeTypeProcessor.processFeedFwdNode(serviceName, operationName, inputArgs);
-					break;
-				case "EdgeNode":
-					nodeTypeProcessor.processEdgeType(serviceName, operationName, inputArgs);
-					break;
-				case "JoinNode":
-					nodeTypeProcessor.processJoinType(serviceName, operationName, inputArgs);
-					break;
-				case "MergeNode":
-					// MergeNode is functionally identical to EdgeNode (single input XOR-MERGE)
-					nodeTypeProcessor.processEdgeType(serviceName, operationName, inputArgs);
-					break;
-				case "MonitorNode":
-					nodeTypeProcessor.processMonitorNodeType(sequenceID);
-					break;
-				case "Expired":
-					nodeTypeProcessor.processExpiredType(serviceName, operationName, inputArgs);
-					break;
-				default:
-					logger.warn("Unknown node type: " + nodeType);
-					break;
-				}
-
-				// Capture publish time after service execution
-				servicePublishTime = System.currentTimeMillis();
-
-				logger.error("monitorIncomingEvents: " + monitorIncomingEvents);
-				if (monitorIncomingEvents) {
-					putServicePerformanceData(sequenceID);
+				if (suspendForAsyncService()) {
+					// Routed by resumeAsyncService() when the service completes
+					return;
 				}
+				dispatchControlNode();
 
 			} catch (Exception e) {
 				logger.error("Error processing control node of type: " + nodeType, e);
+			} finally {
+				completedServiceResult = null;
 			}
 		}
 	}
 
+	/**
+	 * Invoke the service (unless already run asynchronously) and route the
+	 * token by node type, then record the hop
+	 */
+	private void dispatchControlNode() {
+		switch (nodeType) {
+		case "DecisionNode":
+			nodeTypeProcessor.processDecisionType(serviceName, operationName, inputArgs);
+			break;
+		case "TerminateNode":
+			nodeTypeProcessor.processTerminateType(serviceName, operationName, inputArgs);
+			break;
+		case "XorNode":
+			// XorNode - Conditional routing (picks path(s) based on decision value)
+			nodeTypeProcessor.processXorType(serviceName, operationName, inputArgs);
+			break;
+		case "GatewayNode":
+			// GatewayNode - Dynamic routing strategy based on service response
+			// Service returns: "FORK:target1,target2" or "EDGE:target"
+			nodeTypeProcessor.processGatewayType(serviceName, operationName, inputArgs);
+			break;
+		case "ForkNode":
+			// ForkNode - Unconditional parallel split (ALL paths)
+			nodeTypeProcessor.processForkType(serviceName, operationName, inputArgs);
+			break;
+		case "FeedFwdNode":
+			nodeTypeProcessor.processFeedFwdNode(serviceName, operationName, inputArgs);
+			break;
+		case "EdgeNode":
+			nodeTypeProcessor.processEdgeType(serviceName, operationName, inputArgs);
+			break;
+		case "JoinNode":
+			nodeTypeProcessor.processJoinType(serviceName, operationName, inputArgs);
+			break;
+		case "MergeNode":
+			// MergeNode is functionally identical to EdgeNode (single input XOR-MERGE)
+			nodeTypeProcessor.processEdgeType(serviceName, operationName, inputArgs);
+			break;
+		case "MonitorNode":
+			nodeTypeProcessor.processMonitorNodeType(sequenceID);
+			break;
+		case "Expired":
+			nodeTypeProcessor.processExpiredType(serviceName, operationName, inputArgs);
+			break;
+		default:
+			logger.warn("Unknown node type: " + nodeType);
+			break;
+		}
+
+		// Capture publish time after service execution
+		servicePublishTime = SimulationClock.now();
+		// Virtual time a place spent waiting for a free server is queue time
+		serviceInvocationTime += SimulationClock.takeQueueDelay();
+		recordHopMetrics();
+		if (traceSpan != null) {
+			TraceCollector.getInstance().emit(traceSpan.toJson(serviceName, operationName, nodeType, sequenceID,
+					serviceInvocationTime, servicePublishTime));
+		}
+
+		logger.error("monitorIncomingEvents: " + monitorIncomingEvents);
+		if (monitorIncomingEvents) {
+			putServicePerformanceData(sequenceID);
+		}
+	}
+
+	/**
+	 * Start this token's service through its async variant, if it has one.
+	 * 
+	 * @return true if the token is parked until the service completes; false
+	 *         to route it now - no async variant, a join, VIRTUAL time, or
+	 *         maxInFlight invocations of the operation already outstanding
+	 *         (the service is then invoked synchronously)
+	 */
+	private boolean suspendForAsyncService() {
+		if (!ServiceHelper.isAsyncEnabled() || SimulationClock.isVirtual() || !invokesService()
+				|| inputCollection.size() > 1 || ruleBaseVersion == null) {
+			return false;
+		}
+		String fullClassName = SERVICE_PACKAGE + "." + serviceName;
+		ArrayList<?> args = serviceArguments(serviceName, operationName, inputArgs);
+		if (!serviceHelper.supportsAsync(fullClassName, operationName, args.size())) {
+			return false;
+		}
+		Semaphore slots = ServiceHelper.asyncSlots(fullClassName, operationName);
+		if (!slots.tryAcquire()) {
+			logger.info("ASYNC: " + serviceName + "." + operationName + " has " + ServiceHelper.getAsyncMaxInFlight()
+					+ " invocations in flight - invoking sequence ID " + sequenceID + " synchronously");
+			return false;
+		}
+
+		CompletableFuture<ServiceHelper.ServiceResult> future = serviceHelper.processAsync(
+				Long.toString(sequenceID), fullClassName, operationName, args, returnAttributeName);
+		if (future.isDone() && !future.isCompletedExceptionally()) {
+			slots.release();
+			completedServiceResult = future.join();
+			return false;
+		}
+
+		logger.info("ASYNC: " + serviceName + "." + operationName + " sequence ID " + sequenceID
+				+ " parked while the service runs (" + slots.availablePermits() + " slots left)");
+		parkedTokens.incrementAndGet();
+		TokenState parked = new TokenState();
+		future.whenComplete((result, failure) -> {
+			slots.release();
+			thread.putResumedToken(() -> resumeAsyncService(parked, result, failure));
+		});
+		return true;
+	}
+
+	/**
+	 * Route the tokens whose async service has completed, each under tokenLock
+	 * as a token taken from the reactor is
+	 */
+	private void resumeParkedTokens() {
+		Runnable resumed;
+		while ((resumed = thread.takeResumedToken()) != null) {
+			tokenLock.lock();
+			try {
+				resumed.run();
+			} finally {
+				tokenLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Route a parked token once its async service has completed. Runs on this
+	 * ServiceThread (resumeParkedTokens). A failed service ends the token: it
+	 * is counted with the reactor's lost events; the place has already
+	 * released its marking.
+	 */
+	private void resumeAsyncService(TokenState parked, ServiceHelper.ServiceResult result, Throwable failure) {
+		parkedTokens.decrementAndGet();
+		if (isShutdown) {
+			return;
+		}
+		try {
+			parked.restore();
+			if (failure != null) {
+				logger.error("Async service " + serviceName + "." + operationName + " failed for sequence ID "
+						+ sequenceID + " - token lost", failure);
+				thread.recordLostEvent();
+				return;
+			}
+			completedServiceResult = result;
+			dispatchControlNode();
+		} catch (Exception e) {
+			logger.error("Error routing async result for node type: " + nodeType, e);
+		} finally {
+			completedServiceResult = null;
+		}
+	}
+
+	/**
+	 * Node types whose processing invokes the service
+	 */
+	private boolean invokesService() {
+		switch (nodeType) {
+		case "DecisionNode":
+		case "XorNode":
+		case "GatewayNode":
+		case "EdgeNode":
+		case "MergeNode":
+		case "JoinNode":
+			return true;
+		case "ForkNode":
+			return serviceName != null && !serviceName.isEmpty() && !serviceName.equals("null");
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Per-token state of a token parked on an async service, restored into
+	 * the ServiceThread, on its own thread, to route it. Everything saved is
+	 * this ServiceThread's instance state, so another operation's thread
+	 * cannot change it between park and resume
+	 */
+	private class TokenState {
+		private final String operationName = ServiceThread.this.operationName;
+		private final String serviceName = ServiceThread.this.serviceName;
+		private final String returnAttributeName = ServiceThread.this.returnAttributeName;
+		private final String ruleBaseVersion = ServiceThread.this.ruleBaseVersion;
+		private final long sequenceID = ServiceThread.this.sequenceID;
+		private final long phaseSequenceID = ServiceThread.this.phaseSequenceID;
+		private final long taskArrivalTime = ServiceThread.this.taskArrivalTime;
+		private final long serviceInvocationTime = ServiceThread.this.serviceInvocationTime;
+		private final String nodeType = ServiceThread.this.nodeType;
+		private final ArrayList<String> inputCollection = new ArrayList<>(ServiceThread.this.inputCollection);
+		private final ArrayList<Object> inputArgs = new ArrayList<>(ServiceThread.this.inputArgs);
+		private final ArrayList<String> nextServiceCollection = new ArrayList<>(ServiceThread.this.nextServiceCollection);
+		private final ArrayList<String> nextOperationCollection = new ArrayList<>(ServiceThread.this.nextOperationCollection);
+		private final ArrayList<String> nextChannelCollection = new ArrayList<>(ServiceThread.this.nextChannelCollection);
+		private final ArrayList<String> nextPortCollection = new ArrayList<>(ServiceThread.this.nextPortCollection);
+		private final TreeMap<Integer, String> nextServiceMap = new TreeMap<>(ServiceThread.this.nextServiceMap);
+		private final TreeMap<Integer, String> decisionValueCollection = new TreeMap<>(ServiceThread.this.decisionValueCollection);
+		private final TreeMap<String, String> headerMap = new TreeMap<>(ServiceThread.this.headerMap);
+		private final TreeMap<String, String> attrMap = new TreeMap<>(ServiceThread.this.attrMap);
+		private final TreeMap<String, String> serviceMap = new TreeMap<>(ServiceThread.this.serviceMap);
+		private final TreeMap<String, String> monitorDataMap = new TreeMap<>(ServiceThread.this.monitorDataMap);
+		private final jsonLibrary jsonAttributes = ServiceThread.this.jsonAttributes;
+		private final TokenEnvelope incomingEnvelope = ServiceThread.this.incomingEnvelope;
+		private final String incomingXMLPayLoad = ServiceThread.this.incomingXMLPayLoad;
+		private final String outgoingXMLPayLoad = ServiceThread.this.outgoingXMLPayLoad;
+		private final long costKey = ServiceThread.this.costKey;
+		private final long currentWorkflowStartTime = ServiceThread.this.currentWorkflowStartTime;
+		private final int bufferSizeAtDequeue = ServiceThread.this.bufferSizeAtDequeue;
+		private final boolean monitorIncomingEvents = ServiceThread.this.monitorIncomingEvents;
+		private final TraceSpan traceSpan = ServiceThread.this.traceSpan;
+
+		void restore() {
+			ServiceThread.this.operationName = operationName;
+			ServiceThread.this.serviceName = serviceName;
+			ServiceThread.this.returnAttributeName = returnAttributeName;
+			ServiceThread.this.ruleBaseVersion = ruleBaseVersion;
+			ServiceThread.this.sequenceID = sequenceID;
+			ServiceThread.this.phaseSequenceID = phaseSequenceID;
+			ServiceThread.this.taskArrivalTime = taskArrivalTime;
+			ServiceThread.this.serviceInvocationTime = serviceInvocationTime;
+			ServiceThread.this.nodeType = nodeType;
+			replace(ServiceThread.this.inputCollection, inputCollection);
+			replace(ServiceThread.this.inputArgs, inputArgs);
+			replace(ServiceThread.this.nextServiceCollection, nextServiceCollection);
+			replace(ServiceThread.this.nextOperationCollection, nextOperationCollection);
+			replace(ServiceThread.this.nextChannelCollection, nextChannelCollection);
+			replace(ServiceThread.this.nextPortCollection, nextPortCollection);
+			ServiceThread.this.nextServiceMap.clear();
+			ServiceThread.this.nextServiceMap.putAll(nextServiceMap);
+			ServiceThread.this.decisionValueCollection.clear();
+			ServiceThread.this.decisionValueCollection.putAll(decisionValueCollection);
+			ServiceThread.this.headerMap = new TreeMap<>(headerMap);
+			ServiceThread.this.attrMap = new TreeMap<>(attrMap);
+			ServiceThread.this.serviceMap = new TreeMap<>(serviceMap);
+			ServiceThread.this.monitorDataMap = new TreeMap<>(monitorDataMap);
+			ServiceThread.this.jsonAttributes = jsonAttributes;
+			ServiceThread.this.incomingEnvelope = incomingEnvelope;
+			ServiceThread.this.incomingXMLPayLoad = incomingXMLPayLoad;
+			ServiceThread.this.outgoingXMLPayLoad = outgoingXMLPayLoad;
+			ServiceThread.this.costKey = costKey;
+			ServiceThread.this.currentWorkflowStartTime = currentWorkflowStartTime;
+			ServiceThread.this.bufferSizeAtDequeue = bufferSizeAtDequeue;
+			ServiceThread.this.monitorIncomingEvents = monitorIncomingEvents;
+			ServiceThread.this.traceSpan = traceSpan;
+
+			// Routing queries the rule base - make it this token's version again
+			String knowledgeBase = knowledgeBaseMap.get(ruleBaseVersion);
+			if (knowledgeBase != null && !ruleBaseVersion.equals(workingRuleBaseVersion)) {
+				oojdrew.parseKnowledgeBase(knowledgeBase, false);
+				workingRuleBaseVersion = ruleBaseVersion;
+			}
+			ruleBaseLoaded = false;
+		}
+
+		private <T> void replace(ArrayList<T> target, ArrayList<T> values) {
+			target.clear();
+			target.addAll(values);
+		}
+	}
+
 
 	void setAttributeValidity(String returnAttrName, String returnAttrValue) {
 		if (returnAttrName != null) {
@@ -1359,7 +1769,7 @@ class ServiceThread implements Runnable {
 	 * @return The attribute name to use
 	 * @throws IllegalStateException if attribute cannot be determined
 	 */
-	String deriveAttributeNameForRouting(int tokenId, int explicitBranch, String destService, String destOperation) {
+	String deriveAttributeNameForRouting(long tokenId, int explicitBranch, String destService, String destOperation) {
 		// Self-feedback - publish what I expect as input (from my canonical binding)
 		if (destService.equals(serviceName)) {
 			logger.debug("ROUTING-DEBUG: Self-feedback detected, querying binding for operation='" + operationName + "'");
@@ -1528,7 +1938,7 @@ class ServiceThread implements Runnable {
 	/**
 	 * Convenience overload for non-fork routing.
 	 */
-	String deriveAttributeNameForRouting(int tokenId, String destService, String destOperation) {
+	String deriveAttributeNameForRouting(long tokenId, String destService, String destOperation) {
 		return deriveAttributeNameForRouting(tokenId, 0, destService, destOperation);
 	}
 
@@ -1591,10 +2001,12 @@ class ServiceThread implements Runnable {
 	 */
 	void reloadKnowledgeBase() {
 		try {
-			String ruleBaseLocation = basePath + "/RuleFolder." + ruleBaseVersion + "/" + operationName + "/Service.ruleml";
+			String ruleBaseLocation = Replication.ruleFolder(new File(basePath), ruleBaseVersion).getPath() + "/" + operationName
+				+ "/Service.ruleml";
 
-			// Get fresh knowledge base content instead of parsing file path directly
-			String knowledgeBase = oojdrew.getRuleBaset(ruleBaseLocation);
+			// Committed snapshot content instead of the file RuleHandler may be rewriting
+			RuleSnapshot snapshot = RuleSnapshot.forOperation(ruleBaseVersion, operationName, ruleBaseLocation);
+			String knowledgeBase = snapshot != null ? snapshot.getKnowledgeBase() : null;
 
 			if (knowledgeBase != null && !knowledgeBase.isEmpty()) {
 				oojdrew.parseKnowledgeBase(knowledgeBase, false);
@@ -1752,50 +2164,20 @@ class ServiceThread implements Runnable {
 	}
 
 	private boolean checkAndRouteActiveService(ServiceRoute route, String attributeValue) {
-		try {
-			String query = String.format(
-					"<Query><Atom><Rel>activeService</Rel><Ind>%s</Ind><Ind>%s</Ind>"
-							+ "<Var>channelId</Var><Var>port</Var></Atom></Query>",
-					route.serviceName, route.operationName);
-
-			oojdrew.issueRuleMLQuery(query);
-
-			if (oojdrew.rowsReturned > 0) {
-				String channelId = null;
-				String port = null;
-
-				for (int i = 0; i < oojdrew.rowsReturned; i++) {
-					String key = String.valueOf(oojdrew.rowData[i][0]);
-					String value = String.valueOf(oojdrew.rowData[i][1]);
-
-					if ("?channelId".equals(key)) {
-						channelId = value;
-					} else if ("?port".equals(key)) {
-						port = value;
-					}
-				}
-
-				if (channelId != null && port != null) {
-					String originalChannelId = channelId;
-					String ipAddress = resolveChannelToIP(channelId);
-					if (ipAddress != null) {
-						serviceMap.put("serviceName", route.serviceName);
-						serviceMap.put("operation", route.operationName);
-
-						// PETRI NET: Record token exiting
-						int outgoingTokenId = Integer.parseInt(headerMap.get("sequenceId"));
-						instrumentTokenExit(outgoingTokenId, serviceName, route.serviceName, route.operationName, nodeType, null);
-
-						publishToService(route.serviceName, route.operationName, ipAddress, port, originalChannelId);
-
-						logger.info("FORK: Routed to " + route.serviceName + " via activeService on " + ipAddress + ":"
-								+ port);
-						return true;
-					}
-				}
-			}
-		} catch (Exception e) {
-			logger.debug("FORK: No activeService entry for " + route.serviceName);
+		RoutingTable.Route target = lookupRoute(route.serviceName, route.operationName);
+		if (target != null) {
+			serviceMap.put("serviceName", route.serviceName);
+			serviceMap.put("operation", route.operationName);
+			
+			// PETRI NET: Record token exiting
+			long outgoingTokenId = TokenId.parse(headerMap.get("sequenceId"));
+			instrumentTokenExit(outgoingTokenId, serviceName, route.serviceName, route.operationName, nodeType, null);
+			
+			publishToService(route.serviceName, route.operationName, target, 0, null);
+			
+			logger.info("FORK: Routed to " + route.serviceName + " via routing table on " + target.getAddress() + ":"
+					+ target.getPort());
+			return true;
 		}
 
 		return false;
@@ -1830,7 +2212,7 @@ class ServiceThread implements Runnable {
 					serviceMap.put("operation", route.operationName);
 
 					// PETRI NET: Record token exiting
-					int outgoingTokenId = Integer.parseInt(headerMap.get("sequenceId"));
+					long outgoingTokenId = TokenId.parse(headerMap.get("sequenceId"));
 					instrumentTokenExit(outgoingTokenId, serviceName, route.serviceName, route.operationName, nodeType, null);
 
 					publishToService(route.serviceName, route.operationName, channel, port, channel);
@@ -1889,48 +2271,18 @@ class ServiceThread implements Runnable {
 	}
 	
 	private boolean checkAndRouteActiveServiceNoRecord(ServiceRoute route, String attributeValue, int branchNumber, String explicitAttrName) {
-		try {
-			String query = String.format(
-					"<Query><Atom><Rel>activeService</Rel><Ind>%s</Ind><Ind>%s</Ind>"
-							+ "<Var>channelId</Var><Var>port</Var></Atom></Query>",
-					route.serviceName, route.operationName);
-
-			oojdrew.issueRuleMLQuery(query);
-
-			if (oojdrew.rowsReturned > 0) {
-				String channelId = null;
-				String port = null;
-
-				for (int i = 0; i < oojdrew.rowsReturned; i++) {
-					String key = String.valueOf(oojdrew.rowData[i][0]);
-					String value = String.valueOf(oojdrew.rowData[i][1]);
-
-					if ("?channelId".equals(key)) {
-						channelId = value;
-					} else if ("?port".equals(key)) {
-						port = value;
-					}
-				}
-
-				if (channelId != null && port != null) {
-					String originalChannelId = channelId;
-					String ipAddress = resolveChannelToIP(channelId);
-					if (ipAddress != null) {
-						serviceMap.put("serviceName", route.serviceName);
-						serviceMap.put("operation", route.operationName);
-
-						// NOTE: No instrumentTokenExit - caller has already recorded
-
-						publishToService(route.serviceName, route.operationName, ipAddress, port, originalChannelId, branchNumber, explicitAttrName);
-
-						logger.info("FORK: Routed to " + route.serviceName + " via activeService on " + ipAddress + ":"
-								+ port + " (no T_out record)");
-						return true;
-					}
-				}
-			}
-		} catch (Exception e) {
-			logger.debug("FORK: No activeService entry for " + route.serviceName);
+		RoutingTable.Route target = lookupRoute(route.serviceName, route.operationName);
+		if (target != null) {
+			serviceMap.put("serviceName", route.serviceName);
+			serviceMap.put("operation", route.operationName);
+			
+			// NOTE: No instrumentTokenExit - caller has already recorded
+			
+			publishToService(route.serviceName, route.operationName, target, branchNumber, explicitAttrName);
+			
+			logger.info("FORK: Routed to " + route.serviceName + " via routing table on " + target.getAddress() + ":"
+					+ target.getPort() + " (no T_out record)");
+			return true;
 		}
 
 		return false;
@@ -2017,12 +2369,32 @@ class ServiceThread implements Runnable {
 	 */
 	private void publishToService(String nextServiceName, String nextOperationName, 
 	                               String channel, String port, String originalChannelId, int branchNumber, String explicitAttrName) {
+		publishToService(nextServiceName, nextOperationName, channel, port, originalChannelId, branchNumber,
+				explicitAttrName, null);
+	}
+	
+	/**
+	 * Core method to publish a message to a service at a pre-resolved route.
+	 * 
+	 * @param target Route from the committed RoutingTable
+	 * @param branchNumber Fork branch number (for logging only)
+	 * @param explicitAttrName If non-null, use this attribute name instead of deriving it
+	 */
+	private void publishToService(String nextServiceName, String nextOperationName, RoutingTable.Route target,
+	                               int branchNumber, String explicitAttrName) {
+		publishToService(nextServiceName, nextOperationName, target.getAddress(), target.getPort(),
+				target.getChannelId(), branchNumber, explicitAttrName, target);
+	}
+	
+	private void publishToService(String nextServiceName, String nextOperationName, String channel, String port,
+	                               String originalChannelId, int branchNumber, String explicitAttrName,
+	                               RoutingTable.Route target) {
 		// Derive attribute name based on destination's canonical binding
 		String seqIdStr = headerMap.get("sequenceId");
 		if (seqIdStr == null) {
 			throw new IllegalStateException("ROUTING ERROR: headerMap.sequenceId is null");
 		}
-		int tokenId = Integer.parseInt(seqIdStr);
+		long tokenId = TokenId.parse(seqIdStr);
 		
 		// Use explicit attribute name if provided, otherwise derive it
 		String mappedAttrName;
@@ -2036,27 +2408,49 @@ class ServiceThread implements Runnable {
 					   " to " + nextServiceName + "." + nextOperationName);
 		}
 		attrMap.put("attributeName", mappedAttrName);
-		
-		outgoingXMLPayLoad = xph.modifyMultipleXMLItems(outgoingXMLPayLoad, "//header/*", headerMap);
-		outgoingXMLPayLoad = xph.modifyMultipleXMLItems(outgoingXMLPayLoad, "//service/*", serviceMap);
-		outgoingXMLPayLoad = xph.modifyMultipleXMLItems(outgoingXMLPayLoad, "//joinAttribute/*", attrMap);
-		outgoingXMLPayLoad = xph.modifyMultipleXMLItems(outgoingXMLPayLoad, "//monitorData/*", monitorDataMap);
 
-		boolean published = eventPublisher.publishServiceEvent(nextServiceName, nextOperationName, 
-		        outgoingXMLPayLoad, channel, port, ruleBaseVersion, originalChannelId);
+		boolean published = publishOutgoing(nextServiceName, nextOperationName, channel, port, originalChannelId,
+				target);
 
 		if (!published) {
 			logger.error("PUBLISH FAILED: " + nextServiceName + "." + nextOperationName);
 		}
 	}
 
+	/**
+	 * Publish the outgoing token: as an envelope to an EventReactor in this
+	 * JVM (no XML is written), otherwise serialized and sent over UDP.
+	 */
+	private boolean publishOutgoing(String nextServiceName, String nextOperationName, String channel, String port,
+	                                String originalChannelId, RoutingTable.Route target) {
+		EventReactor localReactor = target != null ? eventPublisher.localReactor(target)
+				: eventPublisher.localReactor(channel, port, originalChannelId);
+		if (localReactor != null) {
+			return eventPublisher.publishLocal(nextServiceName, nextOperationName, outgoingEnvelope(), localReactor);
+		}
+
+		serializeOutgoingPayload();
+		return target != null
+				? eventPublisher.publishServiceEvent(nextServiceName, nextOperationName, outgoingXMLPayLoad, target,
+						ruleBaseVersion)
+				: eventPublisher.publishServiceEvent(nextServiceName, nextOperationName, outgoingXMLPayLoad, channel,
+						port, ruleBaseVersion, originalChannelId);
+	}
+
 	/**
 	 * Update the sequenceId in the JSON payload body to match the header sequenceId.
 	 * This ensures consistency between XML header and JSON body for forked tokens.
 	 * 
 	 * @param newSequenceId The new sequence ID to set in the payload
 	 */
-	void updateSequenceIdInPayload(int newSequenceId) {
+	void updateSequenceIdInPayload(long newSequenceId) {
+		if (forkFanOut) {
+			// Applied as a slot patch when the branch is serialized
+			forkPayloadTokenId = Long.toString(newSequenceId);
+			if (forkEnvelope != null) {
+				return;
+			}
+		}
 		try {
 			// Find and update tokenId in JSON payload
 			String tokenIdPattern = "\"tokenId\":\"\\d+\"";
@@ -2074,45 +2468,125 @@ class ServiceThread implements Runnable {
 		}
 	}
 
-	private String resolveChannelToIP(String channelId) {
-		if (channelId == null || !channelId.startsWith("ip")) {
-			return null;
-		}
+	// =============================================================================
+	// FORK FAN-OUT
+	// =============================================================================
 
-		try {
-			String query = String.format(
-					"<Query><Atom><Rel>boundChannel</Rel><Ind>%s</Ind><Var>address</Var></Atom></Query>", channelId);
+	/**
+	 * Start a fork fan-out. Until endForkFanOut() the outgoing payload is
+	 * serialized through the DOM once (first branch) and every further branch
+	 * is produced by patching the sequenceId, service, operation, attributeName,
+	 * JSON tokenId and monitorData publishTime/simTime slots of that
+	 * serialization. Callers must only vary those fields between branches.
+	 */
+	void beginForkFanOut() {
+		forkFanOut = true;
+		forkEnvelope = null;
+		forkPayloadTokenId = null;
+	}
 
-			oojdrew.issueRuleMLQuery(query);
+	void endForkFanOut() {
+		forkFanOut = false;
+		forkEnvelope = null;
+		forkPayloadTokenId = null;
+	}
 
-			if (oojdrew.rowsReturned > 0) {
-				for (int i = 0; i < oojdrew.rowsReturned; i++) {
-					String key = String.valueOf(oojdrew.rowData[i][0]);
-					String value = String.valueOf(oojdrew.rowData[i][1]);
+	/**
+	 * Write headerMap, serviceMap, attrMap and monitorDataMap into
+	 * outgoingXMLPayLoad.
+	 */
+	private void serializeOutgoingPayload() {
+		stampOutgoing();
+		if (forkFanOut && forkEnvelope != null) {
+			outgoingXMLPayLoad = forkEnvelope.render(headerMap.get("sequenceId"), serviceMap.get("serviceName"),
+					serviceMap.get("operation"), attrMap.get("attributeName"), forkPayloadTokenId, monitorDataMap);
+			return;
+		}
 
-					if ("?address".equals(key)) {
-						return value;
-					}
+		// The arrived sections (with the reactor's updates) under this thread's maps
+		outgoingXMLPayLoad = incomingEnvelope.forward(headerMap, serviceMap, attrMap, monitorDataMap)
+				.writeTo(outgoingXMLPayLoad);
+
+		if (forkFanOut) {
+			forkEnvelope = ForkEnvelope.of(outgoingXMLPayLoad);
+			if (forkEnvelope == null) {
+				logger.warn("FORK: Could not locate envelope slots - serializing each branch");
+				forkFanOut = false;
+			} else {
+				logger.debug("FORK: Envelope template built with " + forkEnvelope.getSlotCount() + " slots");
+				if (forkPayloadTokenId != null) {
+					outgoingXMLPayLoad = forkEnvelope.render(null, null, null, null, forkPayloadTokenId, null);
 				}
 			}
-		} catch (Exception e) {
-			logger.error("FORK: Failed to resolve channel " + channelId + ": " + e.getMessage());
 		}
+	}
 
-		return null;
+	/**
+	 * The outgoing token for a co-located reactor - what
+	 * serializeOutgoingPayload() would write, as maps.
+	 */
+	private TokenEnvelope outgoingEnvelope() {
+		stampOutgoing();
+		TokenEnvelope outgoing = incomingEnvelope.forward(headerMap, serviceMap, attrMap, monitorDataMap);
+		if (forkFanOut && forkPayloadTokenId != null) {
+			// The JSON body's tokenId/sequenceId, as the fork template patches them
+			outgoing.joinAttribute().computeIfPresent("attributeValue",
+					(name, value) -> ForkEnvelope.patchPayloadTokenId(value, forkPayloadTokenId));
+		}
+		return outgoing;
 	}
 
+	private void stampOutgoing() {
+		// What this thread publishes continues a workflow, it does not start one (see EventReactor DRAIN)
+		if (headerMap.containsKey(TokenEnvelope.WORKFLOW_ENTRY)) {
+			headerMap.put(TokenEnvelope.WORKFLOW_ENTRY, "false");
+		}
+		if (SimulationClock.isVirtual()) {
+			// The next hop receives the token at the simulated time it leaves this one
+			monitorDataMap.put(SimulationClock.SIM_TIME, Long.toString(SimulationClock.now()));
+		}
+		// Transport hop latency is measured from here (see LocalTransport)
+		monitorDataMap.put(LocalTransport.PUBLISH_TIME, Long.toString(System.currentTimeMillis()));
+	}
+	
+	/**
+	 * Pre-resolved route of a service operation in the table of this token's
+	 * rule base version and operation, or null if the operation has no
+	 * activeService override there. The table is authoritative: an operation
+	 * missing from it is not queried for again. It is built from the knowledge
+	 * base this thread has loaded, which is that operation's own, only when
+	 * RuleHandler has not committed one yet.
+	 */
+	private RoutingTable.Route lookupRoute(String service, String operation) {
+		RoutingTable table = RoutingTable.forOperation(ruleBaseVersion, operationName);
+		if (table == null) {
+			try {
+				table = RoutingTable.build(ruleBaseVersion, operationName, oojdrew);
+			} catch (Exception e) {
+				logger.warn("ROUTING: Could not build routing table for " + ruleBaseVersion + ":" + operationName
+						+ ": " + e.getMessage());
+				return null;
+			}
+			// Without a version there is nothing to key the table by; it serves this hop only
+			if (ruleBaseVersion != null) {
+				table = RoutingTable.commitIfAbsent(table);
+			}
+		}
+		return table.lookup(service, operation);
+	}
 
 	/**
 	 * Tracks which fork number contributed which attributes to a join
 	 * NOW ALSO TRACKS workflowStartTime to prevent corruption
 	 */
 	private static class JoinContribution {
-	    int forkNumber;
+	    long forkNumber;
 	    long workflowStartTime; 
+	    long simTime;  // virtual arrival time (VIRTUAL clock mode)
+	    TraceSpan traceSpan;  // span opened for this input (TraceSettings)
 	    Map<String, String> attributes;
 	    
-	    JoinContribution(int forkNumber, long workflowStartTime) {  
+	    JoinContribution(long forkNumber, long workflowStartTime) {  
 	        this.forkNumber = forkNumber;
 	        this.workflowStartTime = workflowStartTime;  
 	        this.attributes = new HashMap<>();
@@ -2122,15 +2596,41 @@ class ServiceThread implements Runnable {
 	
 	ServiceHelper.ServiceResult callServiceWithCanonicalBinding(String service, String operation,
 			ArrayList<?> sargs, String returnAttrName) {
+		ServiceHelper.ServiceResult result = invokeServiceWithCanonicalBinding(service, operation, sargs,
+				returnAttrName);
+		adoptPriorityClass(result);
+		return result;
+	}
+
+	/**
+	 * A service classifies its token by a priorityClass field in its result;
+	 * the class goes into the header and stays with the token (PriorityClasses)
+	 */
+	private void adoptPriorityClass(ServiceHelper.ServiceResult result) {
+		String priorityClass = result != null ? PriorityClasses.fromResult(result.getResult()) : null;
+		if (priorityClass != null && !priorityClass.equals(headerMap.get(PriorityClasses.HEADER_ELEMENT))) {
+			headerMap.put(PriorityClasses.HEADER_ELEMENT, priorityClass);
+			logger.info("PRIORITY: Token " + sequenceID + " classified " + priorityClass);
+		}
+	}
+
+	private ServiceHelper.ServiceResult invokeServiceWithCanonicalBinding(String service, String operation,
+			ArrayList<?> sargs, String returnAttrName) {
+		if (completedServiceResult != null) {
+			// Already invoked asynchronously for this token (suspendForAsyncService)
+			ServiceHelper.ServiceResult result = completedServiceResult;
+			completedServiceResult = null;
+			return result;
+		}
+
 		String currentAttribute = attrMap.get("attributeName");
 
 		if (hasCanonicalBinding(service, operation, currentAttribute)) {
 			logger.info("ORCHESTRATOR: Found single-input canonical binding - calling " + service + "." + operation
 					+ " immediately");
 
-			String attributeValue = attrMap.get("attributeValue");
-			ArrayList<String> singleParam = new ArrayList<>();
-			singleParam.add(attributeValue);
+			ArrayList<Object> singleParam = new ArrayList<>();
+			singleParam.add(attributeValueArgument());
 
 			logger.info(
 					"ORCHESTRATOR: Invoking " + service + "." + operation + " via ServiceHelper (canonical binding)");
@@ -2142,7 +2642,7 @@ class ServiceThread implements Runnable {
 			}
 			
 			// Pass returnAttrName parameter for token enrichment
-		return serviceHelper.process(sequenceID.toString(), fullClassName, operation, singleParam, returnAttrName, ruleBaseVersion);
+		return serviceHelper.process(Long.toString(sequenceID), fullClassName, operation, singleParam, returnAttrName, ruleBaseVersion);
 		}
 
 		logger.debug("ORCHESTRATOR: No single-input canonical binding - proceeding with normal service call");
@@ -2156,10 +2656,38 @@ class ServiceThread implements Runnable {
 		}
 		
 		// Pass returnAttrName parameter for token enrichment
-	return serviceHelper.process(sequenceID.toString(), fullClassName, operation, sargs, returnAttrName, ruleBaseVersion);
+	return serviceHelper.process(Long.toString(sequenceID), fullClassName, operation, sargs, returnAttrName, ruleBaseVersion);
 	}
 
 	
+	/**
+	 * Arguments a service call passes: the current attribute value alone for
+	 * a single-input canonical binding, otherwise sargs (as in
+	 * callServiceWithCanonicalBinding)
+	 */
+	private ArrayList<?> serviceArguments(String service, String operation, ArrayList<?> sargs) {
+		if (hasCanonicalBinding(service, operation, attrMap.get("attributeName"))) {
+			ArrayList<Object> singleParam = new ArrayList<>();
+			singleParam.add(attributeValueArgument());
+			return singleParam;
+		}
+		return sargs;
+	}
+
+	/**
+	 * joinAttribute/attributeValue as a service argument: the arrived token's
+	 * parsed body (TokenEnvelope.body()) while attrMap still holds it, so
+	 * ServiceHelper does not parse it again.
+	 */
+	private Object attributeValueArgument() {
+		String attributeValue = attrMap.get("attributeValue");
+		if (attributeValue != null && incomingEnvelope != null
+				&& attributeValue.equals(incomingEnvelope.joinAttribute().get("attributeValue"))) {
+			return incomingEnvelope.body();
+		}
+		return attributeValue;
+	}
+
 	/**
 	 * Handle individual workflow timing data requests
 	 */
@@ -2177,7 +2705,7 @@ class ServiceThread implements Runnable {
 					+ requestedServiceName);
 
 			TreeMap<Integer, ArrayList<Object>> measurements = serviceMeasures
-					.readServiceMeasurementsBySequenceId(sequenceId.intValue());
+					.readServiceMeasurementsBySequenceId(sequenceId);
 
 			if (measurements.isEmpty()) {
 				logger.debug("No timing data found for sequence " + sequenceId);
@@ -2258,8 +2786,8 @@ class ServiceThread implements Runnable {
 			logger.info("Handling version timing data request for version " + version + " from service "
 					+ requestedServiceName);
 
-			// Use VersionConstants to get workflow base
-			int workflowBase = VersionConstants.getWorkflowBase(version);
+			// First workflow instance of the version
+			long workflowBase = TokenId.workflowBase(version);
 
 			// Query local service measurements database for this workflow base
 			TreeMap<Integer, ArrayList<Object>> allMeasurements = serviceMeasures.readServiceMeasurements(workflowBase);
@@ -2665,77 +3193,13 @@ class ServiceThread implements Runnable {
 
 		String originalChannelId = nextChannelName;
 
-		// Try activeService override
-		try {
-			String activeServiceQuery = String.format("<Query><Atom><Rel>activeService</Rel><Ind>%s</Ind><Ind>%s</Ind>"
-					+ "<Var>channelId</Var><Var>port</Var></Atom></Query>", nextServiceName, nextOperationName);
-
-			logger.info("DEBUG: Querying activeService for " + nextServiceName + "." + nextOperationName);
-			oojdrew.issueRuleMLQuery(activeServiceQuery);
-			logger.info("DEBUG: ActiveService query returned " + oojdrew.rowsReturned + " rows");
-
-			if (oojdrew.rowsReturned > 0) {
-				String foundChannelId = null;
-				String foundPort = null;
-
-				// Extract the activeService results
-				for (int i = 0; i < oojdrew.rowsReturned; i++) {
-					String key = String.valueOf(oojdrew.rowData[i][0]);
-					String value = String.valueOf(oojdrew.rowData[i][1]);
-
-					logger.info("DEBUG: ActiveService result - " + key + " = " + value);
-
-					if ("?channelId".equals(key)) {
-						foundChannelId = value;
-					} else if ("?port".equals(key)) {
-						foundPort = value;
-					}
-				}
-
-				// Apply activeService override if we found both values
-				if (foundChannelId != null && foundPort != null) {
-					logger.info("ORCHESTRATOR: APPLYING activeService override - Channel: " + foundChannelId
-							+ ", Port: " + foundPort);
-
-					// Override the routing variables
-					nextChannelName = foundChannelId;
-					nextPortNumber = foundPort;
-					originalChannelId = foundChannelId;
-
-					// If it's an IP channel, resolve to actual IP address
-					if (nextChannelName != null && nextChannelName.startsWith("ip")) {
-						String boundChannelQuery = String.format(
-								"<Query><Atom><Rel>boundChannel</Rel><Ind>%s</Ind><Var>address</Var></Atom></Query>",
-								nextChannelName);
-
-						oojdrew.issueRuleMLQuery(boundChannelQuery);
-
-						if (oojdrew.rowsReturned > 0) {
-							for (int i = 0; i < oojdrew.rowsReturned; i++) {
-								String key = String.valueOf(oojdrew.rowData[i][0]);
-								String value = String.valueOf(oojdrew.rowData[i][1]);
-
-								if ("?address".equals(key)) {
-									String ipAddress = value;
-									logger.info("ORCHESTRATOR: Resolved " + nextChannelName + " to IP " + ipAddress);
-									nextChannelName = ipAddress;
-									break;
-								}
-							}
-						} else {
-							logger.warn("ORCHESTRATOR: Could not resolve " + foundChannelId + " to IP address");
-						}
-					}
-				} else {
-					logger.warn("ORCHESTRATOR: ActiveService query incomplete - missing channelId or port");
-				}
-			} else {
-				logger.info("ORCHESTRATOR: No activeService override found for " + nextServiceName + "."
-						+ nextOperationName);
-			}
-		} catch (Exception e) {
-			logger.error("ORCHESTRATOR: Error querying activeService for " + nextServiceName + "." + nextOperationName,
-					e);
+		// activeService override, pre-resolved when the rules were committed
+		RoutingTable.Route target = lookupRoute(nextServiceName, nextOperationName);
+		if (target != null) {
+			nextChannelName = target.getAddress();
+			nextPortNumber = target.getPort();
+			originalChannelId = target.getChannelId();
+			logger.info("ORCHESTRATOR: Routing table override - " + target);
 		}
 
 		// Update service map
@@ -2747,7 +3211,7 @@ class ServiceThread implements Runnable {
 		if (seqIdStr == null) {
 			throw new IllegalStateException("ROUTING ERROR: headerMap.sequenceId is null in callNextOperation");
 		}
-		int tokenId = Integer.parseInt(seqIdStr);
+		long tokenId = TokenId.parse(seqIdStr);
 		
 		String mappedAttrName = deriveAttributeNameForRouting(tokenId, branchNumber, nextServiceName, nextOperationName);
 		attrMap.put("attributeName", mappedAttrName);
@@ -2755,16 +3219,10 @@ class ServiceThread implements Runnable {
 				   (branchNumber > 0 ? " (fork branch " + branchNumber + ")" : "") +
 				   " to " + nextServiceName + "." + nextOperationName);
 
-		// Update XML payload
-		outgoingXMLPayLoad = xph.modifyMultipleXMLItems(outgoingXMLPayLoad, "//header/*", headerMap);
-		outgoingXMLPayLoad = xph.modifyMultipleXMLItems(outgoingXMLPayLoad, "//service/*", serviceMap);
-		outgoingXMLPayLoad = xph.modifyMultipleXMLItems(outgoingXMLPayLoad, "//joinAttribute/*", attrMap);
-
-		monitorDataMap.put("processElapsedTime", Long.toString(System.currentTimeMillis()));
+		// Update XML payload (during a fork fan-out processElapsedTime is the first branch's)
+		monitorDataMap.put("processElapsedTime", Long.toString(SimulationClock.now()));
 		monitorDataMap.put("callingService ", serviceName);
 
-		outgoingXMLPayLoad = xph.modifyMultipleXMLItems(outgoingXMLPayLoad, "//monitorData/*", monitorDataMap);
-
 		if (nextServiceName.equals("null") || nextOperationName.equals("null")) {
 			logger.info("ORCHESTRATOR: WORKFLOW TERMINATION - Next service is null");
 			return;
@@ -2772,6 +3230,7 @@ class ServiceThread implements Runnable {
 
 		try {
 			if (sequenceID == 0) {
+				serializeOutgoingPayload();
 				publish.ruleCommitmentPublish(outgoingXMLPayLoad);
 			}
 
@@ -2783,8 +3242,8 @@ class ServiceThread implements Runnable {
 			// NOTE: Token exit recording (instrumentTokenExit) should be done by caller before calling this method
 			// This allows callers to control whether/when to record (e.g., fork children vs parent)
 
-			boolean published = eventPublisher.publishServiceEvent(nextServiceName, nextOperationName,
-					outgoingXMLPayLoad, nextChannelName, nextPortNumber, ruleBaseVersion, originalChannelId);
+			boolean published = publishOutgoing(nextServiceName, nextOperationName, nextChannelName,
+					nextPortNumber, originalChannelId, target);
 			logger.info(
 					"ORCHESTRATOR: Completed callNextOperation for " + nextServiceName + ", published=" + published);
 
@@ -2799,12 +3258,12 @@ class ServiceThread implements Runnable {
 		}
 	}
 
-	public void putServicePerformanceData(int sequenceID) {
+	public void putServicePerformanceData(long sequenceID) {
 	    try {
 	        serviceMeasuresDBMap.clear();
 
 	        // Write the exact fields needed for workflow timing
-	        serviceMeasuresDBMap.put("sequenceID", Integer.toString(phaseSequenceID));
+	        serviceMeasuresDBMap.put("sequenceID", Long.toString(phaseSequenceID));
 	        serviceMeasuresDBMap.put("serviceName", serviceName);
 	        serviceMeasuresDBMap.put("operation", operationName);
 	        
@@ -2886,7 +3345,7 @@ class ServiceThread implements Runnable {
 		try {
 			// Use readServiceMeasurements instead of readEventResponseData
 			TreeMap<Integer, ArrayList<Object>> timingData = serviceMeasures
-					.readServiceMeasurements(phaseSequenceID / 100 * 100); // Get workflow base
+					.readServiceMeasurements(TokenId.root(phaseSequenceID)); // Get workflow base
 
 			if (timingData.isEmpty()) {
 				logger.info("No timing data available yet.");
@@ -2930,14 +3389,74 @@ class ServiceThread implements Runnable {
 		}
 	}
 
-	private Integer mapFromSequenceID(Integer sqID) {
-		// NEW ENCODING: childTokenId = parentTokenId + branchNumber
-		// branchNumber is 1-99, so parent = sqID - (sqID % 100)
-		// Example: 1000001 -> parent is 1000000
-		int branchNumber = sqID % 100;
-		return sqID - branchNumber;
+	private long mapFromSequenceID(long sqID) {
+		// Joins are keyed on the parent token: v001/42.2 -> v001/42
+		// (legacy IDs: 1000001 -> 1000000)
+		return TokenIdManager.getParentTokenId(sqID);
 	}
 
+	/**
+	 * True if a join window is already open for this token's parent, i.e. the
+	 * token is a later input to a join this place is waiting on. Used by the
+	 * reactor to admit such tokens even when the queue is full.
+	 */
+	static boolean hasOpenJoin(long tokenId) {
+		return argValPriorityMap.containsKey(TokenIdManager.getParentTokenId(tokenId));
+	}
+
+	/**
+	 * Tokens held by this JVM's ServiceThreads: queued in a reactor, being
+	 * processed, or parked while an async service runs. ServiceLoader's drain
+	 * waits for this and pendingJoins() to reach zero.
+	 */
+	static int tokensInFlight() {
+		int tokens = 0;
+		for (ServiceThread serviceThread : liveThreads) {
+			tokens += serviceThread.thread.getQueueSize();
+			tokens += serviceThread.tokenLock.isLocked() ? 1 : 0;
+			tokens += serviceThread.parkedTokens.get();
+		}
+		return tokens;
+	}
+	
+	/**
+	 * Join windows still waiting for inputs.
+	 */
+	static int pendingJoins() {
+		return argValPriorityMap.size();
+	}
+	
+	/**
+	 * Snapshot of the open join windows' keys in ascending order.
+	 */
+	private static long[] sortedJoinKeys() {
+		return argValPriorityMap.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+	}
+
+	/**
+	 * The first max open join windows, lowest token first, for logging.
+	 */
+	static List<String> pendingJoinIds(int max) {
+		List<String> ids = new ArrayList<>();
+		for (long joinId : sortedJoinKeys()) {
+			if (ids.size() == max) {
+				break;
+			}
+			ids.add(TokenId.format(joinId));
+		}
+		return ids;
+	}
+	
+	/**
+	 * Stop (or resume) admitting tokens that would start a new workflow at
+	 * this JVM's reactors. Tokens already inside a workflow are still taken.
+	 */
+	static void setDraining(boolean draining) {
+		for (ServiceThread serviceThread : liveThreads) {
+			serviceThread.thread.setDraining(draining);
+		}
+	}
+	
 	private String cleanQuotes(String value) {
 		if (value != null && value.startsWith("\"") && value.endsWith("\"") && value.length() > 1) {
 			return value.substring(1, value.length() - 1);
@@ -2986,7 +3505,7 @@ class ServiceThread implements Runnable {
 		return nodeType;
 	}
 
-	Integer getSequenceID() {
+	long getSequenceID() {
 		return sequenceID;
 	}
 
@@ -2995,7 +3514,7 @@ class ServiceThread implements Runnable {
 	 * This is the forked child token ID, not the parent token ID.
 	 * Use this for EXIT recording at EdgeNodes where the token that entered is the one that exits.
 	 */
-	Integer getPhaseSequenceID() {
+	long getPhaseSequenceID() {
 		return phaseSequenceID;
 	}
 
@@ -3076,7 +3595,7 @@ class ServiceThread implements Runnable {
 	 * @param bufferSize The buffer size at dequeue
 	 * @param needsInputSynchronization True if this place requires multiple inputs (T_in is a join)
 	 */
-	void instrumentTokenEnter(int tokenId, String placeName, String nodeType, 
+	void instrumentTokenEnter(long tokenId, String placeName, String nodeType, 
 	                          long workflowStartTime, int bufferSize, boolean needsInputSynchronization) {
 	    if (petriNetHelper == null) return;
 	    
@@ -3092,8 +3611,8 @@ class ServiceThread implements Runnable {
 	    
 	    // Determine if this is a child token at a join point
 	    // needsInputSynchronization = true means T_in expects multiple inputs (join behavior)
-	    // tokenId % 100 != 0 means this is a child token (forked)
-	    boolean isChildAtJoin = needsInputSynchronization && (tokenId % 100) != 0;
+	    // A forked child token has a non-zero branch number
+	    boolean isChildAtJoin = needsInputSynchronization && TokenIdManager.isForkedToken(tokenId);
 	    
 	    if (isChildAtJoin) {
 	        // JoinNode: Record BUFFERED only - ENTER recorded later when join completes
@@ -3121,7 +3640,7 @@ class ServiceThread implements Runnable {
 	 * Record token entering a place (backward compatible overload).
 	 * Assumes no input synchronization - use for non-join entry points.
 	 */
-	void instrumentTokenEnter(int tokenId, String placeName, String nodeType, 
+	void instrumentTokenEnter(long tokenId, String placeName, String nodeType, 
 	                          long workflowStartTime, int bufferSize) {
 	    instrumentTokenEnter(tokenId, placeName, nodeType, workflowStartTime, bufferSize, false);
 	}
@@ -3130,7 +3649,7 @@ class ServiceThread implements Runnable {
 	 * Note: eventGeneratorTimestamp is null for reconstituted tokens since they weren't
 	 * directly generated - they're created when child tokens merge at a JoinNode.
 	 */
-	void instrumentTokenEnterSimple(int tokenId, String placeName, String nodeType, 
+	void instrumentTokenEnterSimple(long tokenId, String placeName, String nodeType, 
 	                                long workflowStartTime) {
 		if (petriNetHelper == null) return;
 		
@@ -3142,7 +3661,7 @@ class ServiceThread implements Runnable {
 	/**
 	 * Record token exiting a place to next destination.
 	 */
-	void instrumentTokenExit(int tokenId, String fromPlace, String toService, 
+	void instrumentTokenExit(long tokenId, String fromPlace, String toService, 
 	                         String toOperation, String nodeType, String arcValue) {
 		if (petriNetHelper == null) return;
 		
@@ -3155,7 +3674,7 @@ class ServiceThread implements Runnable {
 	/**
 	 * Record token exiting without arc value (for simple edge routing).
 	 */
-	void instrumentTokenExitSimple(int tokenId, String fromPlace, String toService, 
+	void instrumentTokenExitSimple(long tokenId, String fromPlace, String toService, 
 	                               String toOperation, String nodeType) {
 		if (petriNetHelper == null) return;
 		
@@ -3168,7 +3687,7 @@ class ServiceThread implements Runnable {
 	/**
 	 * Record fork creating a child token from parent.
 	 */
-	void instrumentForkChild(int parentTokenId, int childTokenId, String forkPlace) {
+	void instrumentForkChild(long parentTokenId, long childTokenId, String forkPlace) {
 		if (petriNetHelper == null) return;
 		
 		String forkTransition = "T_out_" + forkPlace;
@@ -3181,7 +3700,7 @@ class ServiceThread implements Runnable {
 	 * Record join completion: continuing token ENTERS, others are CONSUMED.
 	 * 
 	 * With lowest-child-continues model:
-	 * - All tokens BUFFER on arrival at JOIN (children have tokenId % 100 != 0)
+	 * - All tokens BUFFER on arrival at JOIN (children have a non-zero branch number)
 	 * - When JOIN fires, the lowest child ID continues (ENTERS the place)
 	 * - Other participants are CONSUMED
 	 * 
@@ -3190,7 +3709,7 @@ class ServiceThread implements Runnable {
 	 * @param participantTokenIds The token IDs that synchronized at this join
 	 * @param workflowStartTime The workflow start time to preserve
 	 */
-	void instrumentJoinComplete(int continuingTokenId, String joinPlace, List<Integer> participantTokenIds, 
+	void instrumentJoinComplete(long continuingTokenId, String joinPlace, List<Long> participantTokenIds, 
 	                            long workflowStartTime) {
 		if (petriNetHelper == null) return;
 		
@@ -3200,7 +3719,7 @@ class ServiceThread implements Runnable {
 		logger.debug("PETRI-NET: JOIN complete - token " + continuingTokenId + " ENTER at " + joinPlace);
 		
 		// Record CONSUMED for all other participants
-		for (Integer participantId : participantTokenIds) {
+		for (long participantId : participantTokenIds) {
 			if (participantId != continuingTokenId) {
 				petriNetHelper.recordTokenConsumedAtJoin(participantId, joinPlace, 
 				                                         continuingTokenId, workflowStartTime);
@@ -3212,7 +3731,7 @@ class ServiceThread implements Runnable {
 	/**
 	 * Record token termination (workflow end).
 	 */
-	void instrumentTokenTerminate(int tokenId, String fromPlace, String nodeType) {
+	void instrumentTokenTerminate(long tokenId, String fromPlace, String nodeType) {
 		if (petriNetHelper == null) return;
 		
 		petriNetHelper.recordTokenExiting(tokenId, fromPlace, "TERMINATE", "TERMINATE",
@@ -8,6 +8,7 @@ import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
 import org.btsn.json.jsonLibrary;
+import org.btsn.utils.SimulationClock;
 import org.json.simple.JSONObject;
 
 /**
@@ -393,14 +394,14 @@ class TransitionHandler {
 
         boolean isMultiMatch = matchingBranchIndices.size() > 1;
         int joinCount = matchingBranchIndices.size();
-        int parentTokenId = serviceThread.getSequenceID();
+        long parentTokenId = serviceThread.getSequenceID();
         
         // Calculate the BASE parent (workflow base) for genealogy
-        int baseParentId = parentTokenId - (parentTokenId % 100);
+        long baseParentId = TokenIdManager.getParentTokenId(parentTokenId);
         
-        // If parent token (ends in 00), start at 1 to create children
+        // If parent token (depth 0), start at 1 to create children
         // If child token (from join), start at 0 to preserve winner's ID
-        int branchNumber = (parentTokenId % 100 == 0) ? 1 : 0;
+        int branchNumber = TokenIdManager.firstBranchOffset(parentTokenId);
 
         ArrayList<String> nextOperationCollection = serviceThread.getNextOperationCollection();
         ArrayList<String> nextChannelCollection = serviceThread.getNextChannelCollection();
@@ -419,8 +420,9 @@ class TransitionHandler {
             // Create child token ID for fork, OR preserve actual token ID for single-match
             // FIX: For single-match, use phaseSequenceID (actual incoming token) not parentTokenId
             // This ensures retry loops correctly track the same token through iterations
-            int newSequenceId = isMultiMatch ? (parentTokenId + branchNumber) : serviceThread.getPhaseSequenceID();
-            serviceThread.getHeaderMap().put("sequenceId", Integer.toString(newSequenceId));
+            long newSequenceId = isMultiMatch ? TokenIdManager.createBranchTokenId(parentTokenId, branchNumber)
+                                              : serviceThread.getPhaseSequenceID();
+            serviceThread.getHeaderMap().put("sequenceId", Long.toString(newSequenceId));
 
             String nextService = nextServiceCollection.get(branchIndex);
             String nextOp = nextOperationCollection.get(branchIndex);
@@ -546,7 +548,7 @@ class TransitionHandler {
      */
     private void executeGatewayForkByIndices(List<Integer> matchingIndices, String attributeValue, String arcValue) {
         int joinCount = matchingIndices.size();
-        int parentTokenId = serviceThread.getSequenceID();
+        long parentTokenId = serviceThread.getSequenceID();
         logger.info("GATEWAY-FORK: Parallel split to " + joinCount + " destinations, parent token " + parentTokenId + " [arc=" + arcValue + "]");
 
         ArrayList<String> nextServiceCollection = serviceThread.getNextServiceCollection();
@@ -563,36 +565,41 @@ class TransitionHandler {
                                           firstService, firstOp, "ForkNode", arcValue);
 
         // Calculate the BASE parent (workflow base) for genealogy
-        int baseParentId = parentTokenId - (parentTokenId % 100);
+        long baseParentId = TokenIdManager.getParentTokenId(parentTokenId);
 
-        // If parent token (ends in 00), start at 1 to create children
+        // If parent token (depth 0), start at 1 to create children
         // If child token (from join), start at 0 to preserve winner's ID
-        int branchNumber = (parentTokenId % 100 == 0) ? 1 : 0;
-        for (int branchIndex : matchingIndices) {
-            // Create child token ID for fork (inline - no TokenIdManager dependency)
-            int childTokenId = parentTokenId + branchNumber;
-            serviceThread.getHeaderMap().put("sequenceId", Integer.toString(childTokenId));
+        int branchNumber = TokenIdManager.firstBranchOffset(parentTokenId);
+        serviceThread.beginForkFanOut();
+        try {
+            for (int branchIndex : matchingIndices) {
+                // Create child token ID for fork
+                long childTokenId = TokenIdManager.createBranchTokenId(parentTokenId, branchNumber);
+                serviceThread.getHeaderMap().put("sequenceId", Long.toString(childTokenId));
 
-            String nextService = nextServiceCollection.get(branchIndex);
-            String nextOp = nextOperationCollection.get(branchIndex);
-            String channel = nextChannelCollection.get(branchIndex);
-            String port = nextPortCollection.get(branchIndex);
+                String nextService = nextServiceCollection.get(branchIndex);
+                String nextOp = nextOperationCollection.get(branchIndex);
+                String channel = nextChannelCollection.get(branchIndex);
+                String port = nextPortCollection.get(branchIndex);
 
-            logger.info("GATEWAY-FORK: Routing child token " + childTokenId + " to " + nextService + "." + nextOp +
-                       " (encoded: branch=" + branchNumber + ")");
+                logger.info("GATEWAY-FORK: Routing child token " + childTokenId + " to " + nextService + "." + nextOp +
+                           " (encoded: branch=" + branchNumber + ")");
 
-            serviceThread.getServiceMap().put("serviceName", nextService);
-            serviceThread.getServiceMap().put("operation", nextOp);
+                serviceThread.getServiceMap().put("serviceName", nextService);
+                serviceThread.getServiceMap().put("operation", nextOp);
 
-            // PETRI NET: Record fork child genealogy and exit (use BASE parent)
-            serviceThread.instrumentForkChild(baseParentId, childTokenId, serviceThread.getServiceName());
-            serviceThread.instrumentTokenExit(childTokenId, serviceThread.getServiceName(),
-                                              nextService, nextOp, "ForkNode", arcValue);
+                // PETRI NET: Record fork child genealogy and exit (use BASE parent)
+                serviceThread.instrumentForkChild(baseParentId, childTokenId, serviceThread.getServiceName());
+                serviceThread.instrumentTokenExit(childTokenId, serviceThread.getServiceName(),
+                                                  nextService, nextOp, "ForkNode", arcValue);
 
-            serviceThread.updateSequenceIdInPayload(childTokenId);
-            serviceThread.callNextOperation(attributeValue, branchIndex, false);
+                serviceThread.updateSequenceIdInPayload(childTokenId);
+                serviceThread.callNextOperation(attributeValue, branchIndex, false);
 
-            branchNumber++;
+                branchNumber++;
+            }
+        } finally {
+            serviceThread.endForkFanOut();
         }
 
         logger.info("GATEWAY-FORK: Created " + joinCount + " child tokens from parent " + parentTokenId);
@@ -690,11 +697,11 @@ class TransitionHandler {
         serviceThread.setAttributeValidity(serviceThread.getReturnAttributeName(), val);
 
         int joinCount = allServices.size();
-        int sequenceID = serviceThread.getSequenceID();
+        long sequenceID = serviceThread.getSequenceID();
         
         // Calculate the BASE parent (workflow base) for genealogy
-        // e.g., 1000001 -> 1000000, 1000000 -> 1000000
-        int baseParentId = sequenceID - (sequenceID % 100);
+        // e.g., v001/42.1 -> v001/42, v001/42 -> v001/42
+        long baseParentId = TokenIdManager.getParentTokenId(sequenceID);
 
         logger.info("FORK: Parallel split to " + joinCount + " service(s)");
         
@@ -711,31 +718,37 @@ class TransitionHandler {
             return;
         }
 
-        // If parent token (ends in 00), start at 1 to create children
+        // If parent token (depth 0), start at 1 to create children
         // If child token (from join), start at 0 to preserve winner's ID
-        int branchNumber = (sequenceID % 100 == 0) ? 1 : 0;
+        int branchNumber = TokenIdManager.firstBranchOffset(sequenceID);
         
-        for (ServiceThread.ServiceRoute route : allServices) {
-            // Create child token ID for fork (inline - no TokenIdManager dependency)
-            int childTokenId = sequenceID + branchNumber;
-            serviceThread.getHeaderMap().put("sequenceId", Integer.toString(childTokenId));
+        // One serialization for the fan-out; each branch patches its own slots
+        serviceThread.beginForkFanOut();
+        try {
+            for (ServiceThread.ServiceRoute route : allServices) {
+                // Create child token ID for fork
+                long childTokenId = TokenIdManager.createBranchTokenId(sequenceID, branchNumber);
+                serviceThread.getHeaderMap().put("sequenceId", Long.toString(childTokenId));
 
-            logger.info("FORK: Routing child token " + childTokenId + " to " + route.serviceName +
-                       "." + route.operationName + " with attribute '" + forkAttribute + "'" +
-                       " (branch=" + branchNumber + ")");
+                logger.info("FORK: Routing child token " + childTokenId + " to " + route.serviceName +
+                           "." + route.operationName + " with attribute '" + forkAttribute + "'" +
+                           " (branch=" + branchNumber + ")");
 
-            // PETRI NET: Record fork child genealogy (use BASE parent, not current token)
-            serviceThread.instrumentForkChild(baseParentId, childTokenId, serviceThread.getServiceName());
+                // PETRI NET: Record fork child genealogy (use BASE parent, not current token)
+                serviceThread.instrumentForkChild(baseParentId, childTokenId, serviceThread.getServiceName());
             
-            // PETRI NET: Record EXIT event for this child token showing its specific destination
-            // This allows the animator to trace each forked token to its target place
-            serviceThread.instrumentTokenExit(childTokenId, serviceThread.getServiceName(),
-                                              route.serviceName, route.operationName,
-                                              "ForkNode", forkAttribute);
-
-            // Route with the return attribute from canonical binding
-            serviceThread.routeToServiceNoRecord(route, val, branchNumber, forkAttribute);
-            branchNumber++;
+                // PETRI NET: Record EXIT event for this child token showing its specific destination
+                // This allows the animator to trace each forked token to its target place
+                serviceThread.instrumentTokenExit(childTokenId, serviceThread.getServiceName(),
+                                                  route.serviceName, route.operationName,
+                                                  "ForkNode", forkAttribute);
+
+                // Route with the return attribute from canonical binding
+                serviceThread.routeToServiceNoRecord(route, val, branchNumber, forkAttribute);
+                branchNumber++;
+            }
+        } finally {
+            serviceThread.endForkFanOut();
         }
 
         logger.info("FORK: Parallel routing complete - " + joinCount + " child tokens created");
@@ -840,7 +853,7 @@ class TransitionHandler {
             }
 
             ServiceHelper.ServiceResult serviceResult = serviceThread.getServiceHelper().process(
-                    serviceThread.getSequenceID().toString(),
+                    Long.toString(serviceThread.getSequenceID()),
                     fullClassName, operation, inputArgs2, 
                     serviceThread.getReturnAttributeName(), 
                     serviceThread.getRuleBaseVersion());
@@ -878,7 +891,7 @@ class TransitionHandler {
         }
 
         ServiceHelper.ServiceResult serviceResult = serviceThread.getServiceHelper().process(
-                serviceThread.getSequenceID().toString(), fullClassName,
+                Long.toString(serviceThread.getSequenceID()), fullClassName,
                 operation, sargs, serviceThread.getReturnAttributeName(), 
                 serviceThread.getRuleBaseVersion());
         String val = serviceResult.getResult();
@@ -888,8 +901,8 @@ class TransitionHandler {
         
         int fid = 1;
         int solutionIndex = 0;
-        int currentSequenceId = serviceThread.getSequenceID();
-        int newSequenceId = currentSequenceId + fid;
+        long currentSequenceId = serviceThread.getSequenceID();
+        long newSequenceId = TokenIdManager.createBranchTokenId(currentSequenceId, fid);
         
         serviceThread.setAttributeValidity(serviceThread.getReturnAttributeName(), val);
         
@@ -904,7 +917,7 @@ class TransitionHandler {
                                               nextService, nextOp, "FeedFwdNode", null);
         }
         
-        serviceThread.getHeaderMap().put("sequenceId", Integer.toString(newSequenceId));
+        serviceThread.getHeaderMap().put("sequenceId", Long.toString(newSequenceId));
         serviceThread.callNextOperation(val, solutionIndex, false);
     }
 
@@ -912,14 +925,14 @@ class TransitionHandler {
     // MONITOR NODE PROCESSING
     // ========================================================================
 
-    void processMonitorNodeType(int sequenceID) {
+    void processMonitorNodeType(long sequenceID) {
         logger.info("ORCHESTRATOR: Monitor node - sequenceID = " + sequenceID);
 
         try {
             TreeMap<String, String> monitorDataMap = serviceThread.getMonitorDataMap();
             long processStartTime = Long.parseLong(monitorDataMap.get("processStartTime"));
             long eventArrivalTime = Long.parseLong(monitorDataMap.get("eventArrivalTime"));
-            long currentTime = System.currentTimeMillis();
+            long currentTime = SimulationClock.now();
 
             long elapsedTime = currentTime - processStartTime;
             long totalProcessTime = currentTime - eventArrivalTime;
@@ -393,14 +393,14 @@ class TransitionHandler2 {
 
         boolean isMultiMatch = matchingBranchIndices.size() > 1;
         int joinCount = matchingBranchIndices.size();
-        int parentTokenId = serviceThread.getSequenceID();
+        long parentTokenId = serviceThread.getSequenceID();
         
         // Calculate the BASE parent (workflow base) for genealogy
-        int baseParentId = parentTokenId - (parentTokenId % 100);
+        long baseParentId = TokenIdManager.getParentTokenId(parentTokenId);
         
-        // If parent token (ends in 00), start at 1 to create children
+        // If parent token (depth 0), start at 1 to create children
         // If child token (from join), start at 0 to preserve winner's ID
-        int branchNumber = (parentTokenId % 100 == 0) ? 1 : 0;
+        int branchNumber = TokenIdManager.firstBranchOffset(parentTokenId);
 
         ArrayList<String> nextOperationCollection = serviceThread.getNextOperationCollection();
         ArrayList<String> nextChannelCollection = serviceThread.getNextChannelCollection();
@@ -416,9 +416,9 @@ class TransitionHandler2 {
         }
 
         for (int branchIndex : matchingBranchIndices) {
-            // Create child token ID for fork (inline - no TokenIdManager dependency)
-            int newSequenceId = isMultiMatch ? (parentTokenId + branchNumber) : parentTokenId;
-            serviceThread.getHeaderMap().put("sequenceId", Integer.toString(newSequenceId));
+            // Create child token ID for fork
+            long newSequenceId = isMultiMatch ? TokenIdManager.createBranchTokenId(parentTokenId, branchNumber) : parentTokenId;
+            serviceThread.getHeaderMap().put("sequenceId", Long.toString(newSequenceId));
 
             String nextService = nextServiceCollection.get(branchIndex);
             String nextOp = nextOperationCollection.get(branchIndex);
@@ -542,7 +542,7 @@ class TransitionHandler2 {
      */
     private void executeGatewayForkByIndices(List<Integer> matchingIndices, String attributeValue, String arcValue) {
         int joinCount = matchingIndices.size();
-        int parentTokenId = serviceThread.getSequenceID();
+        long parentTokenId = serviceThread.getSequenceID();
         logger.info("GATEWAY-FORK: Parallel split to " + joinCount + " destinations, parent token " + parentTokenId + " [arc=" + arcValue + "]");
 
         ArrayList<String> nextServiceCollection = serviceThread.getNextServiceCollection();
@@ -559,15 +559,15 @@ class TransitionHandler2 {
                                           firstService, firstOp, "ForkNode", arcValue);
 
         // Calculate the BASE parent (workflow base) for genealogy
-        int baseParentId = parentTokenId - (parentTokenId % 100);
+        long baseParentId = TokenIdManager.getParentTokenId(parentTokenId);
 
-        // If parent token (ends in 00), start at 1 to create children
+        // If parent token (depth 0), start at 1 to create children
         // If child token (from join), start at 0 to preserve winner's ID
-        int branchNumber = (parentTokenId % 100 == 0) ? 1 : 0;
+        int branchNumber = TokenIdManager.firstBranchOffset(parentTokenId);
         for (int branchIndex : matchingIndices) {
-            // Create child token ID for fork (inline - no TokenIdManager dependency)
-            int childTokenId = parentTokenId + branchNumber;
-            serviceThread.getHeaderMap().put("sequenceId", Integer.toString(childTokenId));
+            // Create child token ID for fork
+            long childTokenId = TokenIdManager.createBranchTokenId(parentTokenId, branchNumber);
+            serviceThread.getHeaderMap().put("sequenceId", Long.toString(childTokenId));
 
             String nextService = nextServiceCollection.get(branchIndex);
             String nextOp = nextOperationCollection.get(branchIndex);
@@ -686,11 +686,11 @@ class TransitionHandler2 {
         serviceThread.setAttributeValidity(serviceThread.getReturnAttributeName(), val);
 
         int joinCount = allServices.size();
-        int sequenceID = serviceThread.getSequenceID();
+        long sequenceID = serviceThread.getSequenceID();
         
         // Calculate the BASE parent (workflow base) for genealogy
-        // e.g., 1000001 -> 1000000, 1000000 -> 1000000
-        int baseParentId = sequenceID - (sequenceID % 100);
+        // e.g., v001/42.1 -> v001/42, v001/42 -> v001/42
+        long baseParentId = TokenIdManager.getParentTokenId(sequenceID);
 
         logger.info("FORK: Parallel split to " + joinCount + " service(s)");
         
@@ -707,14 +707,14 @@ class TransitionHandler2 {
             return;
         }
 
-        // If parent token (ends in 00), start at 1 to create children
+        // If parent token (depth 0), start at 1 to create children
         // If child token (from join), start at 0 to preserve winner's ID
-        int branchNumber = (sequenceID % 100 == 0) ? 1 : 0;
+        int branchNumber = TokenIdManager.firstBranchOffset(sequenceID);
         
         for (ServiceThread.ServiceRoute route : allServices) {
-            // Create child token ID for fork (inline - no TokenIdManager dependency)
-            int childTokenId = sequenceID + branchNumber;
-            serviceThread.getHeaderMap().put("sequenceId", Integer.toString(childTokenId));
+            // Create child token ID for fork
+            long childTokenId = TokenIdManager.createBranchTokenId(sequenceID, branchNumber);
+            serviceThread.getHeaderMap().put("sequenceId", Long.toString(childTokenId));
 
             logger.info("FORK: Routing child token " + childTokenId + " to " + route.serviceName +
                        "." + route.operationName + " with attribute '" + forkAttribute + "'" +
@@ -836,7 +836,7 @@ class TransitionHandler2 {
             }
 
             ServiceHelper.ServiceResult serviceResult = serviceThread.getServiceHelper().process(
-                    serviceThread.getSequenceID().toString(),
+                    Long.toString(serviceThread.getSequenceID()),
                     fullClassName, operation, inputArgs2, 
                     serviceThread.getReturnAttributeName(), 
                     serviceThread.getRuleBaseVersion());
@@ -874,7 +874,7 @@ class TransitionHandler2 {
         }
 
         ServiceHelper.ServiceResult serviceResult = serviceThread.getServiceHelper().process(
-                serviceThread.getSequenceID().toString(), fullClassName,
+                Long.toString(serviceThread.getSequenceID()), fullClassName,
                 operation, sargs, serviceThread.getReturnAttributeName(), 
                 serviceThread.getRuleBaseVersion());
         String val = serviceResult.getResult();
@@ -884,8 +884,8 @@ class TransitionHandler2 {
         
         int fid = 1;
         int solutionIndex = 0;
-        int currentSequenceId = serviceThread.getSequenceID();
-        int newSequenceId = currentSequenceId + fid;
+        long currentSequenceId = serviceThread.getSequenceID();
+        long newSequenceId = TokenIdManager.createBranchTokenId(currentSequenceId, fid);
         
         serviceThread.setAttributeValidity(serviceThread.getReturnAttributeName(), val);
         
@@ -900,7 +900,7 @@ class TransitionHandler2 {
                                               nextService, nextOp, "FeedFwdNode", null);
         }
         
-        serviceThread.getHeaderMap().put("sequenceId", Integer.toString(newSequenceId));
+        serviceThread.getHeaderMap().put("sequenceId", Long.toString(newSequenceId));
         serviceThread.callNextOperation(val, solutionIndex, false);
     }
 
@@ -908,7 +908,7 @@ class TransitionHandler2 {
     // MONITOR NODE PROCESSING
     // ========================================================================
 
-    void processMonitorNodeType(int sequenceID) {
+    void processMonitorNodeType(long sequenceID) {
         logger.info("ORCHESTRATOR: Monitor node - sequenceID = " + sequenceID);
 
         try {
@@ -0,0 +1,163 @@
+package org.btsn.handlers;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import org.apache.log4j.Logger;
+import org.btsn.constants.VersionConstants;
+import org.btsn.utils.LoaderSettings;
+import org.btsn.utils.StringFileIO;
+
+/**
+ * Deficit round robin between the rule-base versions live on a place.
+ *
+ * Without it the reactor serves the lowest costKey, and every built-in
+ * SchedulingPolicy orders by sequenceId somewhere - v001 (1xxxxxx) sorts
+ * before v002 (2xxxxxx), so under load an older version starves a newer one
+ * (the inversion PetriNetAnalyzer.analyzePriority reports). With
+ * versionFairness on, PriorityClassQueue keeps a sub-queue per version and
+ * asks next() which version to serve: each backlogged version in turn gets
+ * its weight as quantum and is served while its deficit lasts, one token
+ * costing 1. Under saturation version v therefore gets weight(v) /
+ * sum(weights of backlogged versions) of the dequeues, whatever its
+ * sequenceIds; within a version the costKey order is unchanged.
+ *
+ * Admin v999 (initialization and collection workflows) has its own quantum,
+ * adminWeight, so it keeps a reserved share next to any number of
+ * workflow versions.
+ *
+ * Configuration (loaderSettings.xml, <VersionShareSettings>):
+ *   versionFairness - false (default: one costKey order over all versions) or true
+ *   weights         - version:weight pairs, e.g. v001:1,v002:2 (unlisted versions 1)
+ *   adminWeight     - quantum of v999 (default 1)
+ *
+ * Not thread-safe - used from EventReactor's synchronized methods.
+ */
+final class VersionShares {
+
+	private static final Logger logger = Logger.getLogger(VersionShares.class);
+
+	private static boolean enabled = false;
+	private static Map<String, Integer> weights = new HashMap<>();
+	private static int adminWeight = 1;
+
+	static {
+		loadConfiguration();
+	}
+
+	// Versions in round order (first seen first) and their deficits
+	private final List<String> ring = new ArrayList<>();
+	private final Map<String, Integer> deficits = new HashMap<>();
+	private int cursor = 0;
+	private boolean quantumGranted = false;
+
+	static boolean isEnabled() {
+		return enabled;
+	}
+
+	static int weight(String version) {
+		if (VersionConstants.V999.equals(version)) {
+			return adminWeight;
+		}
+		Integer weight = weights.get(version);
+		return weight != null ? weight : 1;
+	}
+
+	/**
+	 * Version label of a token: the header's ruleBaseVersion, or the block its
+	 * sequenceId falls in.
+	 */
+	static String versionOf(String ruleBaseVersion, long sequenceId) {
+		if (ruleBaseVersion != null && !ruleBaseVersion.trim().isEmpty()) {
+			return ruleBaseVersion.trim().toLowerCase(Locale.ROOT);
+		}
+		return VersionConstants.getVersionFromSequenceId(sequenceId);
+	}
+
+	/**
+	 * Make a version known to the round (on its first token).
+	 */
+	void add(String version) {
+		if (!deficits.containsKey(version)) {
+			ring.add(version);
+			deficits.put(version, 0);
+		}
+	}
+
+	/**
+	 * The version to serve next among those backlogged, charging it one
+	 * token; null if none is backlogged.
+	 */
+	String next(Predicate<String> backlogged) {
+		boolean any = false;
+		for (String version : ring) {
+			any |= backlogged.test(version);
+		}
+		if (!any) {
+			return null;
+		}
+		while (true) {
+			String version = ring.get(cursor);
+			if (!backlogged.test(version)) {
+				// An idle version keeps no credit
+				deficits.put(version, 0);
+				advance();
+				continue;
+			}
+			if (!quantumGranted) {
+				deficits.merge(version, weight(version), Integer::sum);
+				quantumGranted = true;
+			}
+			int deficit = deficits.get(version);
+			if (deficit >= 1) {
+				deficits.put(version, deficit - 1);
+				return version;
+			}
+			advance();
+		}
+	}
+
+	private void advance() {
+		cursor = (cursor + 1) % ring.size();
+		quantumGranted = false;
+	}
+
+	private static void loadConfiguration() {
+		try {
+			String loaderSettings = new File("./").getCanonicalPath() + "/ServiceLoaderQueries/loaderSettings.xml";
+			if (new File(loaderSettings).exists()) {
+				String xmlSettings = StringFileIO.readFileAsString(loaderSettings);
+				TreeMap<String, String> settingsMap = LoaderSettings.section(xmlSettings, "VersionShareSettings");
+
+				if (settingsMap.containsKey("versionFairness")) {
+					enabled = Boolean.parseBoolean(settingsMap.get("versionFairness").trim());
+				}
+				if (settingsMap.containsKey("weights")) {
+					Map<String, Integer> configured = new HashMap<>();
+					for (String pair : settingsMap.get("weights").split(",")) {
+						String[] parts = pair.split(":");
+						if (parts.length == 2) {
+							configured.put(parts[0].trim().toLowerCase(Locale.ROOT),
+									Math.max(1, Integer.parseInt(parts[1].trim())));
+						}
+					}
+					weights = configured;
+				}
+				if (settingsMap.containsKey("adminWeight")) {
+					adminWeight = Math.max(1, Integer.parseInt(settingsMap.get("adminWeight").trim()));
+				}
+			}
+		} catch (Exception e) {
+			logger.info("VersionShares: Using default configuration");
+		}
+		if (enabled) {
+			logger.info("VersionShares: deficit round robin, weights " + weights + ", v999 " + adminWeight);
+		}
+	}
+}
@@ -65,6 +65,7 @@ import org.btsn.base.BaseStochasticPetriNetPlace;
  * ==========================================
  * - processToken(token)              → Single token processing with SPN semantics
  * - processToken(token1, token2)     → JOIN: Synchronized dual-input processing
+ * - processToken(sequenceID, token...) → Same, on the shared managed instance
  * 
  * @see BaseStochasticPetriNetPlace for full SPN implementation details
  * @author BTSN PetriNet Team
@@ -82,6 +83,14 @@ public class P4_Place extends BaseStochasticPetriNetPlace {
         super(sequenceID, PLACE_IDENTIFIER);
     }
     
+    /**
+     * Managed constructor - the shared instance ServiceHelper keeps for
+     * every token of an operation (default capacity (1), no delay)
+     */
+    public P4_Place() {
+        super(null, PLACE_IDENTIFIER);
+    }
+    
     /**
      * Constructor with capacity and delay
      * 
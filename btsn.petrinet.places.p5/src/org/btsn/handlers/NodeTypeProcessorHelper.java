@@ -8,6 +8,7 @@ import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
 import org.btsn.json.jsonLibrary;
+import org.btsn.utils.SimulationClock;
 import org.json.simple.JSONObject;
 
 /**
@@ -388,8 +389,8 @@ class NodeTypeProcessorHelper {
         
         // FIX: Use phaseSequenceID - the actual token that entered this place (from XML payload)
         // getSequenceID() returns joinID which is WRONG for instrumentation
-        int actualTokenId = serviceThread.getPhaseSequenceID();
-        int workflowBase = (actualTokenId / 100) * 100;  // Parent for fork operations
+        long actualTokenId = serviceThread.getPhaseSequenceID();
+        long workflowBase = TokenIdManager.getParentTokenId(actualTokenId);  // Parent for fork operations
         
         // For fork: always start at branch 1; for single-match: not used
         int branchNumber = 1;
@@ -409,8 +410,8 @@ class NodeTypeProcessorHelper {
 
         for (int branchIndex : matchingBranchIndices) {
             // For fork: create child token ID; for single-match: same token continues
-            int newSequenceId = isMultiMatch ? (workflowBase + branchNumber) : actualTokenId;
-            serviceThread.getHeaderMap().put("sequenceId", Integer.toString(newSequenceId));
+            long newSequenceId = isMultiMatch ? TokenIdManager.createChildTokenId(workflowBase, branchNumber) : actualTokenId;
+            serviceThread.getHeaderMap().put("sequenceId", Long.toString(newSequenceId));
 
             String nextService = nextServiceCollection.get(branchIndex);
             String nextOp = nextOperationCollection.get(branchIndex);
@@ -529,8 +530,8 @@ class NodeTypeProcessorHelper {
         
         // FIX: Use phaseSequenceID - the actual token that entered this place (from XML payload)
         // getSequenceID() returns joinID which is WRONG for instrumentation
-        int actualTokenId = serviceThread.getPhaseSequenceID();
-        int workflowBase = (actualTokenId / 100) * 100;  // Parent for fork operations
+        long actualTokenId = serviceThread.getPhaseSequenceID();
+        long workflowBase = TokenIdManager.getParentTokenId(actualTokenId);  // Parent for fork operations
         
         logger.info("GATEWAY-FORK: Parallel split to " + joinCount + " destinations, parent token " + workflowBase + " [arc=" + arcValue + "]");
 
@@ -551,8 +552,8 @@ class NodeTypeProcessorHelper {
         int branchNumber = 1;
         for (int branchIndex : matchingIndices) {
             // Create child token ID for fork
-            int childTokenId = workflowBase + branchNumber;
-            serviceThread.getHeaderMap().put("sequenceId", Integer.toString(childTokenId));
+            long childTokenId = TokenIdManager.createChildTokenId(workflowBase, branchNumber);
+            serviceThread.getHeaderMap().put("sequenceId", Long.toString(childTokenId));
 
             String nextService = nextServiceCollection.get(branchIndex);
             String nextOp = nextOperationCollection.get(branchIndex);
@@ -653,8 +654,8 @@ class NodeTypeProcessorHelper {
         
         // FIX: Use phaseSequenceID - the actual token that entered this place (from XML payload)
         // getSequenceID() returns joinID which is WRONG for instrumentation
-        int actualTokenId = serviceThread.getPhaseSequenceID();
-        int workflowBase = (actualTokenId / 100) * 100;  // Parent for fork operations
+        long actualTokenId = serviceThread.getPhaseSequenceID();
+        long workflowBase = TokenIdManager.getParentTokenId(actualTokenId);  // Parent for fork operations
 
         logger.info("FORK: Parallel split to " + joinCount + " service(s)");
 
@@ -670,8 +671,8 @@ class NodeTypeProcessorHelper {
         int branchNumber = 1;
         for (ServiceThread.ServiceRoute route : allServices) {
             // Create child token ID for fork
-            int childTokenId = workflowBase + branchNumber;
-            serviceThread.getHeaderMap().put("sequenceId", Integer.toString(childTokenId));
+            long childTokenId = TokenIdManager.createChildTokenId(workflowBase, branchNumber);
+            serviceThread.getHeaderMap().put("sequenceId", Long.toString(childTokenId));
 
             logger.info("FORK: Routing child token " + childTokenId + " to " + route.serviceName +
                        " (encoded: branch=" + branchNumber + ")");
@@ -785,7 +786,7 @@ class NodeTypeProcessorHelper {
             }
 
             ServiceHelper.ServiceResult serviceResult = serviceThread.getServiceHelper().process(
-                    serviceThread.getSequenceID().toString(),
+                    Long.toString(serviceThread.getSequenceID()),
                     fullClassName, operation, inputArgs2, 
                     serviceThread.getReturnAttributeName(), 
                     serviceThread.getRuleBaseVersion());
@@ -823,7 +824,7 @@ class NodeTypeProcessorHelper {
         }
 
         ServiceHelper.ServiceResult serviceResult = serviceThread.getServiceHelper().process(
-                serviceThread.getSequenceID().toString(), fullClassName,
+                Long.toString(serviceThread.getSequenceID()), fullClassName,
                 operation, sargs, serviceThread.getReturnAttributeName(), 
                 serviceThread.getRuleBaseVersion());
         String val = serviceResult.getResult();
@@ -833,8 +834,8 @@ class NodeTypeProcessorHelper {
         
         int fid = 1;
         int solutionIndex = 0;
-        int currentSequenceId = serviceThread.getSequenceID();
-        int newSequenceId = currentSequenceId + fid;
+        long currentSequenceId = serviceThread.getSequenceID();
+        long newSequenceId = TokenIdManager.createBranchTokenId(currentSequenceId, fid);
         
         serviceThread.setAttributeValidity(serviceThread.getReturnAttributeName(), val);
         
@@ -849,7 +850,7 @@ class NodeTypeProcessorHelper {
                                               nextService, nextOp, "FeedFwdNode", null);
         }
         
-        serviceThread.getHeaderMap().put("sequenceId", Integer.toString(newSequenceId));
+        serviceThread.getHeaderMap().put("sequenceId", Long.toString(newSequenceId));
         serviceThread.callNextOperation(val, solutionIndex, false);
     }
 
@@ -857,14 +858,14 @@ class NodeTypeProcessorHelper {
     // MONITOR NODE PROCESSING
     // ========================================================================
 
-    void processMonitorNodeType(int sequenceID) {
+    void processMonitorNodeType(long sequenceID) {
         logger.info("ORCHESTRATOR: Monitor node - sequenceID = " + sequenceID);
 
         try {
             TreeMap<String, String> monitorDataMap = serviceThread.getMonitorDataMap();
             long processStartTime = Long.parseLong(monitorDataMap.get("processStartTime"));
             long eventArrivalTime = Long.parseLong(monitorDataMap.get("eventArrivalTime"));
-            long currentTime = System.currentTimeMillis();
+            long currentTime = SimulationClock.now();
 
             long elapsedTime = currentTime - processStartTime;
             long totalProcessTime = currentTime - eventArrivalTime;
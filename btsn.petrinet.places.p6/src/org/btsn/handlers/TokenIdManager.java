@@ -1,5 +1,7 @@
 package org.btsn.handlers;
 
+import org.btsn.constants.TokenId;
+
 /**
  * TokenIdManager - Centralized token ID encoding/decoding for workflow systems.
  * 
@@ -7,19 +9,24 @@ package org.btsn.handlers;
  * All token ID manipulation should go through this class to ensure consistency.
  * 
  * ENCODING SCHEME:
- *   childTokenId = parentTokenId + branchNumber
+ *   Token IDs are 64-bit TokenIds (org.btsn.constants.TokenId) packing
+ *   version, workflow instance, fork depth and branch path:
+ *   
+ *   - Parent tokens: depth 0 (e.g., v001/42)
+ *   - Child tokens: one branch level below (e.g., v001/42.1, v001/42.2)
+ *   - Maximum TokenId.MAX_BRANCHES branches per fork
  *   
- *   - Parent tokens: end in 00 (e.g., 1000000, 2000000)
- *   - Child tokens: branch 1-99 (e.g., 1000001, 1000002, ..., 1000099)
- *   - Maximum 99 branches per fork
+ *   Legacy int IDs (childTokenId = parentTokenId + branchNumber, branch
+ *   1-99) are still decoded, so tokens created before the 64-bit IDs and
+ *   rows already in the database keep their parent/branch meaning.
  *   
  * EXAMPLES:
- *   Parent 1000000 forks to 2 branches:
- *     - Branch 1: 1000001
- *     - Branch 2: 1000002
+ *   Parent v001/42 forks to 2 branches:
+ *     - Branch 1: v001/42.1
+ *     - Branch 2: v001/42.2
  *   
- *   Decoding 1000002:
- *     - Parent: 1000000
+ *   Decoding v001/42.2:
+ *     - Parent: v001/42
  *     - Branch: 2
  *     - IsForked: true
  * 
@@ -30,11 +37,8 @@ package org.btsn.handlers;
  */
 public class TokenIdManager {
     
-    /** Maximum number of branches supported per fork (1-99) */
-    public static final int MAX_BRANCHES = 99;
-    
-    /** Modulus used for branch encoding */
-    private static final int BRANCH_MODULUS = 100;
+    /** Maximum number of branches supported per fork */
+    public static final int MAX_BRANCHES = TokenId.MAX_BRANCHES;
     
     // ========================================================================
     // ENCODING - Creating child token IDs from parent
@@ -43,17 +47,35 @@ public class TokenIdManager {
     /**
      * Create a child token ID for a fork branch.
      * 
-     * @param parentTokenId The parent token ID (must end in 00)
+     * @param parentTokenId The parent token ID
      * @param branchNumber The branch number (1 to MAX_BRANCHES)
      * @return The child token ID
      * @throws IllegalArgumentException if branchNumber is out of range
      */
-    public static int createChildTokenId(int parentTokenId, int branchNumber) {
-        if (branchNumber < 1 || branchNumber > MAX_BRANCHES) {
-            throw new IllegalArgumentException(
-                "Branch number must be between 1 and " + MAX_BRANCHES + ", got: " + branchNumber);
-        }
-        return parentTokenId + branchNumber;
+    public static long createChildTokenId(long parentTokenId, int branchNumber) {
+        return TokenId.child(parentTokenId, branchNumber);
+    }
+    
+    /**
+     * Token ID for the Nth branch of a fork started by forkingTokenId.
+     * A parent token forks into children starting at branch 1; a child token
+     * (the survivor of a join) forks into siblings starting at its own ID, so
+     * the winner keeps its identity through the next fork.
+     * 
+     * @param forkingTokenId The token being forked
+     * @param offset 1-based branch for a parent token, 0-based for a child
+     * @return The branch token ID
+     */
+    public static long createBranchTokenId(long forkingTokenId, int offset) {
+        return TokenId.addBranch(forkingTokenId, offset);
+    }
+    
+    /**
+     * First branch offset for createBranchTokenId: 1 for a parent token,
+     * 0 for a child token so its own ID is reused.
+     */
+    public static int firstBranchOffset(long forkingTokenId) {
+        return isParentToken(forkingTokenId) ? 1 : 0;
     }
     
     // ========================================================================
@@ -67,8 +89,8 @@ public class TokenIdManager {
      * @param tokenId Any token ID
      * @return The parent token ID
      */
-    public static int getParentTokenId(int tokenId) {
-        return tokenId - getBranchNumber(tokenId);
+    public static long getParentTokenId(long tokenId) {
+        return TokenId.parent(tokenId);
     }
     
     /**
@@ -76,10 +98,10 @@ public class TokenIdManager {
      * Returns 0 for parent tokens.
      * 
      * @param tokenId Any token ID
-     * @return Branch number (0 for parent, 1-99 for children)
+     * @return Branch number (0 for parent, 1-MAX_BRANCHES for children)
      */
-    public static int getBranchNumber(int tokenId) {
-        return tokenId % BRANCH_MODULUS;
+    public static int getBranchNumber(long tokenId) {
+        return TokenId.branch(tokenId);
     }
     
     /**
@@ -88,7 +110,7 @@ public class TokenIdManager {
      * @param tokenId Any token ID
      * @return true if this is a forked child token (branch > 0)
      */
-    public static boolean isForkedToken(int tokenId) {
+    public static boolean isForkedToken(long tokenId) {
         return getBranchNumber(tokenId) > 0;
     }
     
@@ -98,7 +120,7 @@ public class TokenIdManager {
      * @param tokenId Any token ID
      * @return true if this is a parent token (branch == 0)
      */
-    public static boolean isParentToken(int tokenId) {
+    public static boolean isParentToken(long tokenId) {
         return getBranchNumber(tokenId) == 0;
     }
     
@@ -115,7 +137,7 @@ public class TokenIdManager {
      * @param attributeName The base attribute name (e.g., "token")
      * @return Storage key (e.g., "token" or "token_branch1")
      */
-    public static String getStorageKey(int tokenId, String attributeName) {
+    public static String getStorageKey(long tokenId, String attributeName) {
         int branchNumber = getBranchNumber(tokenId);
         if (branchNumber > 0) {
             return attributeName + "_branch" + branchNumber;
@@ -128,28 +150,24 @@ public class TokenIdManager {
     // ========================================================================
     
     /**
-     * Get the token family (workflow base) for grouping related tokens.
-     * This is equivalent to getParentTokenId but named for clarity in
-     * visualization/reporting contexts.
+     * Get the token family (workflow instance root) for grouping related
+     * tokens. For single-level forks this is the same as getParentTokenId;
+     * for nested forks it is the outermost parent.
      * 
      * @param tokenId Any token ID
-     * @return The token family ID (same as parent token ID)
+     * @return The token family ID (the depth-0 root token ID)
      */
-    public static int getTokenFamily(int tokenId) {
-        return getParentTokenId(tokenId);
+    public static long getTokenFamily(long tokenId) {
+        return TokenId.root(tokenId);
     }
     
     /**
      * Format a token ID for logging/display, showing parent and branch.
      * 
      * @param tokenId Any token ID
-     * @return Formatted string (e.g., "1000001 (parent=1000000, branch=1)")
+     * @return Formatted string (e.g., "v001/42.1 (9007199609176064)")
      */
-    public static String formatTokenId(int tokenId) {
-        int branch = getBranchNumber(tokenId);
-        if (branch > 0) {
-            return tokenId + " (parent=" + getParentTokenId(tokenId) + ", branch=" + branch + ")";
-        }
-        return tokenId + " (parent)";
+    public static String formatTokenId(long tokenId) {
+        return TokenId.format(tokenId);
     }
 }
\ No newline at end of file
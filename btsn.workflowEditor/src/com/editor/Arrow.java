@@ -599,6 +599,13 @@ public class Arrow {
         return lastLabelBounds != null && lastLabelBounds.contains(x, y);
     }
     
+    /**
+     * Label bounds from the last draw (hit area), or null if it has no label
+     */
+    public Rectangle getLabelBounds() {
+        return lastLabelBounds;
+    }
+    
     /**
      * Get the current label anchor point (the point on the arrow line where the leader line attaches)
      */
@@ -7,12 +7,15 @@ import com.editor.animator.*;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Canvas panel for drawing Petri net elements with multi-selection support
@@ -116,6 +119,31 @@ public class Canvas extends JPanel {
     private static final double ZOOM_MAX = 3.0;
     private static final double ZOOM_STEP = 0.1;
     
+    // Bumped by repaint() - every diagram change ends with one
+    private int diagramVersion = 0;
+    
+    // Static layer cached offscreen for the zoom level and visible area it was
+    // drawn for; animation frames draw only the overlay on top of it
+    private BufferedImage staticLayer = null;
+    private int staticLayerVersion = -1;
+    private double staticLayerZoom = 0;
+    private Rectangle staticLayerArea = null;
+    private static final int DRAW_MARGIN = 100;
+    
+    // Grid indexes for hit-testing and rubber-band selection
+    private static final int INDEX_CELL_SIZE = 128;
+    private static final int ARROW_HIT_DISTANCE = 15;
+    private final SpatialIndex<ProcessElement> elementIndex = new SpatialIndex<>(INDEX_CELL_SIZE);
+    private final SpatialIndex<Arrow> arrowIndex = new SpatialIndex<>(INDEX_CELL_SIZE);
+    private final SpatialIndex<TextElement> textIndex = new SpatialIndex<>(INDEX_CELL_SIZE);
+    private int indexVersion = -1;
+    
+    // Element and arrow lookups by name for the animation overlay (per token,
+    // per frame), valid until the diagram changes
+    private final Map<String, ProcessElement> elementLookups = new HashMap<>();
+    private final Map<ProcessElement, List<Arrow>> arrowsBySource = new HashMap<>();
+    private int lookupVersion = -1;
+    
     public interface SelectionListener {
         void onSelectionChanged(Object selection);
     }
@@ -319,8 +347,8 @@ public class Canvas extends JPanel {
             @Override
             public void mouseMoved(MouseEvent e) {
                 mousePos = toCanvasPoint(e.getPoint());
-                if (connectMode && connectionSource != null) {
-                    repaint();
+                if ((connectMode || clickConnectMode) && connectionSource != null) {
+                    repaintOverlay();
                 }
             }
         });
@@ -435,13 +463,7 @@ public class Canvas extends JPanel {
             repaint();
         } else if (connectMode || clickConnectMode) {
             // Handle connection modes
-            ProcessElement clickedElement = null;
-            for (ProcessElement element : elements) {
-                if (element.contains(canvasX, canvasY)) {
-                    clickedElement = element;
-                    break;
-                }
-            }
+            ProcessElement clickedElement = findElementAt(canvasX, canvasY);
             
             if (clickConnectMode) {
                 // Click-to-connect mode: click source, click waypoints, click target
@@ -487,7 +509,7 @@ public class Canvas extends JPanel {
             }
             
             // Check if clicking on a waypoint
-            for (Arrow arrow : arrows) {
+            for (Arrow arrow : arrowsNear(canvasX, canvasY)) {
                 // First check if clicking on the arrow's label (for dragging)
                 if (arrow.isPointOnLabel(canvasX, canvasY)) {
                     saveUndoState();
@@ -556,13 +578,7 @@ public class Canvas extends JPanel {
             }
             
             // Check if clicking on an element (not already selected)
-            ProcessElement clickedElement = null;
-            for (ProcessElement element : elements) {
-                if (element.contains(canvasX, canvasY)) {
-                    clickedElement = element;
-                    break;
-                }
-            }
+            ProcessElement clickedElement = findElementAt(canvasX, canvasY);
             
             if (clickedElement != null) {
                 // Element clicked
@@ -616,13 +632,7 @@ public class Canvas extends JPanel {
             }
             
             // Check if clicking on a text element
-            TextElement clickedText = null;
-            for (TextElement textElement : textElements) {
-                if (textElement.contains(canvasX, canvasY)) {
-                    clickedText = textElement;
-                    break;
-                }
-            }
+            TextElement clickedText = findTextElementAt(canvasX, canvasY);
             
             if (clickedText != null) {
                 saveUndoState();  // Save before any changes
@@ -858,7 +868,7 @@ public class Canvas extends JPanel {
             int width = Math.abs(canvasX - rubberBandStart.x);
             int height = Math.abs(canvasY - rubberBandStart.y);
             rubberBandRect = new Rectangle(x, y, width, height);
-            repaint();
+            repaintOverlay();
         }
     }
     
@@ -905,7 +915,8 @@ public class Canvas extends JPanel {
             draggedElement = null;
         } else if (connectMode && connectionSource != null) {
             // Complete connection
-            for (ProcessElement element : elements) {
+            ensureIndex();
+            for (ProcessElement element : elementIndex.query(canvasX, canvasY)) {
                 if (element.contains(canvasX, canvasY) && element != connectionSource) {
                     // Validate: T_in transitions can ONLY connect to Places
                     if (connectionSource.getType() == ProcessElement.Type.TRANSITION) {
@@ -983,16 +994,17 @@ public class Canvas extends JPanel {
             repaint();
         } else if (rubberBandStart != null && rubberBandRect != null) {
             // Finalize rubber band selection
+            ensureIndex();
             if (e.isControlDown()) {
                 // Add to existing selection
-                for (ProcessElement element : elements) {
+                for (ProcessElement element : elementIndex.query(rubberBandRect)) {
                     Point center = element.getCenter();
                     if (rubberBandRect.contains(center)) {
                         selectedElements.add(element);
                     }
                 }
                 // Also select text elements
-                for (TextElement textElement : textElements) {
+                for (TextElement textElement : textIndex.query(rubberBandRect)) {
                     Point textCenter = new Point(textElement.getX(), textElement.getY());
                     if (rubberBandRect.contains(textCenter)) {
                         selectedTextElements.add(textElement);
@@ -1002,14 +1014,14 @@ public class Canvas extends JPanel {
                 // Replace selection
                 selectedElements.clear();
                 selectedTextElements.clear();
-                for (ProcessElement element : elements) {
+                for (ProcessElement element : elementIndex.query(rubberBandRect)) {
                     Point center = element.getCenter();
                     if (rubberBandRect.contains(center)) {
                         selectedElements.add(element);
                     }
                 }
                 // Also select text elements
-                for (TextElement textElement : textElements) {
+                for (TextElement textElement : textIndex.query(rubberBandRect)) {
                     Point textCenter = new Point(textElement.getX(), textElement.getY());
                     if (rubberBandRect.contains(textCenter)) {
                         selectedTextElements.add(textElement);
@@ -1034,23 +1046,21 @@ public class Canvas extends JPanel {
         int canvasY = toCanvasY(e.getY());
         
         // Check if double-clicked on a text element
-        for (TextElement textElement : textElements) {
-            if (textElement.contains(canvasX, canvasY)) {
-                showTextEditDialog(textElement);
-                return;
-            }
+        TextElement clickedText = findTextElementAt(canvasX, canvasY);
+        if (clickedText != null) {
+            showTextEditDialog(clickedText);
+            return;
         }
         
         // Check if double-clicked on an element
-        for (ProcessElement element : elements) {
-            if (element.contains(canvasX, canvasY)) {
-                showPropertiesDialog(element);
-                return;
-            }
+        ProcessElement clickedElement = findElementAt(canvasX, canvasY);
+        if (clickedElement != null) {
+            showPropertiesDialog(clickedElement);
+            return;
         }
         
         // Check if double-clicked on a waypoint - delete it
-        for (Arrow arrow : arrows) {
+        for (Arrow arrow : arrowsNear(canvasX, canvasY)) {
             Point wp = arrow.findWaypointAt(canvasX, canvasY);
             if (wp != null) {
                 // Double-clicked on waypoint - delete it
@@ -1079,7 +1089,7 @@ public class Canvas extends JPanel {
         int canvasY = toCanvasY(e.getY());
         
         // Check if right-clicked on a waypoint
-        for (Arrow arrow : arrows) {
+        for (Arrow arrow : arrowsNear(canvasX, canvasY)) {
             Point wp = arrow.findWaypointAt(canvasX, canvasY);
             if (wp != null) {
                 showWaypointMenu(e, arrow, wp);
@@ -1098,16 +1108,14 @@ public class Canvas extends JPanel {
         }
         
         // Check if right-clicked on an element
-        for (ProcessElement element : elements) {
-            if (element.contains(canvasX, canvasY)) {
-                if (!selectedElements.contains(element)) {
-                    selectedElements.clear();
-                    selectedElements.add(element);
-                }
-                showElementContextMenu(e);
-                repaint();
-                return;
+        ProcessElement clickedElement = findElementAt(canvasX, canvasY);
+        if (clickedElement != null) {
+            if (!selectedElements.contains(clickedElement)) {
+                selectedElements.clear();
+                selectedElements.add(clickedElement);
             }
+            showElementContextMenu(e);
+            repaint();
         }
     }
     
@@ -1407,10 +1415,10 @@ public class Canvas extends JPanel {
     }
     
     private Arrow findClosestArrow(int x, int y) {
-        double minDistance = 15; // Threshold for selection (increased for easier clicking)
+        double minDistance = ARROW_HIT_DISTANCE; // Threshold for selection (increased for easier clicking)
         Arrow closest = null;
         
-        for (Arrow arrow : arrows) {
+        for (Arrow arrow : arrowsNear(x, y)) {
             Point sourceCenter = arrow.getSource().getCenter();
             Point targetCenter = arrow.getTarget().getCenter();
             
@@ -1492,37 +1500,172 @@ public class Canvas extends JPanel {
         notifySelectionChanged(null);
     }
     
+    /**
+     * Every change to the diagram ends with repaint(), so it also marks the
+     * static layer, the hit-test indexes and the name lookups stale.
+     * Animation and previews use repaintOverlay(), which keeps them.
+     */
+    @Override
+    public void repaint() {
+        diagramVersion++;
+        super.repaint();
+    }
+    
+    /**
+     * Repaint only the dynamic overlay (tokens, rubber band, connection preview)
+     */
+    private void repaintOverlay() {
+        super.repaint();
+    }
+    
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         Graphics2D g2 = (Graphics2D) g;
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         
+        Rectangle visible = getVisibleRect();
+        if (visible.isEmpty()) {
+            return;
+        }
+        
+        // Static net (grid, arrows, elements, text, selection) from the offscreen layer
+        paintStaticLayer(g2, visible);
+        
         // Apply zoom transformation
         g2.scale(zoomScale, zoomScale);
         
-        // Calculate visible area in canvas coordinates for grid drawing
-        int visibleWidth = (int) (getWidth() / zoomScale) + GRID_SIZE;
-        int visibleHeight = (int) (getHeight() / zoomScale) + GRID_SIZE;
+        // Draw rubber band selection rectangle
+        if (rubberBandRect != null) {
+            g2.setColor(new Color(100, 100, 255, 50));  // Semi-transparent blue
+            g2.fill(rubberBandRect);
+            g2.setColor(new Color(100, 100, 255, 150));  // Darker blue border
+            g2.setStroke(new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[]{5.0f}, 0.0f));
+            g2.draw(rubberBandRect);
+            g2.setStroke(new BasicStroke(1));
+        }
+        
+        // Draw connection line if in connect mode (drag mode)
+        if (connectMode && connectionSource != null && mousePos != null) {
+            g2.setColor(Color.BLUE);
+            g2.setStroke(new BasicStroke(2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[]{10.0f}, 0.0f));
+            Point sourceCenter = connectionSource.getCenter();
+            g2.drawLine(sourceCenter.x, sourceCenter.y, mousePos.x, mousePos.y);
+            g2.setStroke(new BasicStroke(1));
+        }
+        
+        // Draw click-connect preview with waypoints
+        if (clickConnectMode && connectionSource != null) {
+            g2.setColor(Color.BLUE);
+            g2.setStroke(new BasicStroke(2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[]{10.0f}, 0.0f));
+            
+            Point prevPoint = connectionSource.getCenter();
+            
+            // Draw lines through all waypoints
+            for (Point wp : clickConnectWaypoints) {
+                g2.drawLine(prevPoint.x, prevPoint.y, wp.x, wp.y);
+                prevPoint = wp;
+            }
+            
+            // Draw line to current mouse position
+            if (mousePos != null) {
+                g2.drawLine(prevPoint.x, prevPoint.y, mousePos.x, mousePos.y);
+            }
+            
+            g2.setStroke(new BasicStroke(1));
+            
+            // Draw waypoint markers
+            g2.setColor(new Color(0, 100, 255));
+            for (Point wp : clickConnectWaypoints) {
+                g2.fillOval(wp.x - 4, wp.y - 4, 8, 8);
+            }
+            
+            // Draw source highlight
+            g2.setColor(new Color(0, 150, 0, 100));
+            Point sc = connectionSource.getCenter();
+            g2.fillOval(sc.x - 8, sc.y - 8, 16, 16);
+        }
+        
+        // Draw animated tokens on top of everything
+        if (!animatedTokenStates.isEmpty()) {
+            drawAnimatedTokens(g2);
+        }
+    }
+    
+    /**
+     * Draw the static layer for the visible area, rendering it again only if
+     * the diagram, zoom level or visible area changed since it was cached.
+     * The image is kept at device resolution (HiDPI scale included).
+     */
+    private void paintStaticLayer(Graphics2D g2, Rectangle visible) {
+        double deviceScale = g2.getTransform().getScaleX();
+        int width = Math.max(1, (int) Math.ceil(visible.width * deviceScale));
+        int height = Math.max(1, (int) Math.ceil(visible.height * deviceScale));
+        
+        boolean stale = staticLayer == null || staticLayerVersion != diagramVersion
+                || staticLayerZoom != zoomScale || !visible.equals(staticLayerArea)
+                || staticLayer.getWidth() != width || staticLayer.getHeight() != height;
+        if (stale) {
+            if (staticLayer == null || staticLayer.getWidth() != width || staticLayer.getHeight() != height) {
+                staticLayer = g2.getDeviceConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+            }
+            Graphics2D layer = staticLayer.createGraphics();
+            layer.setComposite(AlphaComposite.Clear);
+            layer.fillRect(0, 0, width, height);
+            layer.setComposite(AlphaComposite.SrcOver);
+            layer.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            layer.scale(deviceScale, deviceScale);
+            layer.translate(-visible.x, -visible.y);
+            layer.scale(zoomScale, zoomScale);
+            
+            Rectangle area = new Rectangle(
+                (int) Math.floor(visible.x / zoomScale), (int) Math.floor(visible.y / zoomScale),
+                (int) Math.ceil(visible.width / zoomScale) + 1, (int) Math.ceil(visible.height / zoomScale) + 1);
+            drawStaticLayer(layer, area);
+            layer.dispose();
+            
+            staticLayerVersion = diagramVersion;
+            staticLayerZoom = zoomScale;
+            staticLayerArea = new Rectangle(visible);
+        }
+        g2.drawImage(staticLayer, visible.x, visible.y, visible.width, visible.height, null);
+    }
+    
+    /**
+     * Grid, arrows, elements, warnings, handles and text elements that reach
+     * into the area (canvas coordinates), in that order.
+     */
+    private void drawStaticLayer(Graphics2D g2, Rectangle area) {
+        // Anything that can draw outside its hit bounds (rotation, indicators, arrowheads)
+        Rectangle drawArea = new Rectangle(area);
+        drawArea.grow(DRAW_MARGIN, DRAW_MARGIN);
         
         // Draw grid lines
         g2.setColor(new Color(173, 216, 230, 100)); // Light blue, semi-transparent
         g2.setStroke(new BasicStroke((float)(0.5f / zoomScale)));  // Keep grid lines thin regardless of zoom
         
+        int gridLeft = Math.floorDiv(area.x, GRID_SIZE) * GRID_SIZE;
+        int gridTop = Math.floorDiv(area.y, GRID_SIZE) * GRID_SIZE;
+        int gridRight = area.x + area.width + GRID_SIZE;
+        int gridBottom = area.y + area.height + GRID_SIZE;
+        
         // Vertical lines
-        for (int x = 0; x < visibleWidth; x += GRID_SIZE) {
-            g2.drawLine(x, 0, x, visibleHeight);
+        for (int x = Math.max(0, gridLeft); x < gridRight; x += GRID_SIZE) {
+            g2.drawLine(x, Math.max(0, gridTop), x, gridBottom);
         }
         
         // Horizontal lines
-        for (int y = 0; y < visibleHeight; y += GRID_SIZE) {
-            g2.drawLine(0, y, visibleWidth, y);
+        for (int y = Math.max(0, gridTop); y < gridBottom; y += GRID_SIZE) {
+            g2.drawLine(Math.max(0, gridLeft), y, gridRight, y);
         }
         
         g2.setStroke(new BasicStroke(1));
         
         // Draw arrows first (behind elements)
         for (Arrow arrow : arrows) {
+            if (!arrowBounds(arrow).intersects(drawArea)) {
+                continue;
+            }
             boolean isSelected = (arrow == selectedArrow);
             boolean connectsSelected = selectedElements.contains(arrow.getSource()) && 
                                        selectedElements.contains(arrow.getTarget()) &&
@@ -1541,15 +1684,23 @@ public class Canvas extends JPanel {
             }
         }
         
-        // Draw elements
+        // Elements in the area (warnings and handles below draw the same ones)
+        List<ProcessElement> visibleElements = new ArrayList<>();
         for (ProcessElement element : elements) {
+            if (elementBounds(element).intersects(drawArea)) {
+                visibleElements.add(element);
+            }
+        }
+        
+        // Draw elements
+        for (ProcessElement element : visibleElements) {
             boolean isSelected = selectedElements.contains(element);
             element.draw(g2, isSelected);
         }
         
         // Draw warning indicators for incomplete Places
         g2.setStroke(new BasicStroke(2));
-        for (ProcessElement element : elements) {
+        for (ProcessElement element : visibleElements) {
             if (element.getType() == ProcessElement.Type.PLACE) {
                 String service = element.getService();
                 List<String> operations = element.getOperations();
@@ -1575,7 +1726,7 @@ public class Canvas extends JPanel {
         g2.setStroke(new BasicStroke(1));
         
         // Draw handles AFTER all elements (so they appear on top)
-        for (ProcessElement element : elements) {
+        for (ProcessElement element : visibleElements) {
             if (selectedElements.contains(element) && element.getType() == ProcessElement.Type.TRANSITION) {
                 element.drawHandles(g2);
             }
@@ -1583,65 +1734,108 @@ public class Canvas extends JPanel {
         
         // Draw text elements
         for (TextElement textElement : textElements) {
+            if (!textElement.getBounds().intersects(drawArea)) {
+                continue;
+            }
             boolean isSelected = (textElement == selectedTextElement) || selectedTextElements.contains(textElement);
             textElement.draw(g2, isSelected);
         }
-        
-        // Draw rubber band selection rectangle
-        if (rubberBandRect != null) {
-            g2.setColor(new Color(100, 100, 255, 50));  // Semi-transparent blue
-            g2.fill(rubberBandRect);
-            g2.setColor(new Color(100, 100, 255, 150));  // Darker blue border
-            g2.setStroke(new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[]{5.0f}, 0.0f));
-            g2.draw(rubberBandRect);
-            g2.setStroke(new BasicStroke(1));
+    }
+    
+    // =========================================================================
+    // HIT-TEST INDEX
+    // =========================================================================
+    
+    /**
+     * Rebuild the hit-test indexes if the diagram changed since they were built
+     */
+    private void ensureIndex() {
+        if (indexVersion == diagramVersion) {
+            return;
         }
-        
-        // Draw connection line if in connect mode (drag mode)
-        if (connectMode && connectionSource != null && mousePos != null) {
-            g2.setColor(Color.BLUE);
-            g2.setStroke(new BasicStroke(2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[]{10.0f}, 0.0f));
-            Point sourceCenter = connectionSource.getCenter();
-            g2.drawLine(sourceCenter.x, sourceCenter.y, mousePos.x, mousePos.y);
-            g2.setStroke(new BasicStroke(1));
+        elementIndex.clear();
+        for (ProcessElement element : elements) {
+            elementIndex.insert(element, elementBounds(element));
         }
-        
-        // Draw click-connect preview with waypoints
-        if (clickConnectMode && connectionSource != null) {
-            g2.setColor(Color.BLUE);
-            g2.setStroke(new BasicStroke(2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[]{10.0f}, 0.0f));
-            
-            Point prevPoint = connectionSource.getCenter();
-            
-            // Draw lines through all waypoints
-            for (Point wp : clickConnectWaypoints) {
-                g2.drawLine(prevPoint.x, prevPoint.y, wp.x, wp.y);
-                prevPoint = wp;
-            }
-            
-            // Draw line to current mouse position
-            if (mousePos != null) {
-                g2.drawLine(prevPoint.x, prevPoint.y, mousePos.x, mousePos.y);
-            }
-            
-            g2.setStroke(new BasicStroke(1));
-            
-            // Draw waypoint markers
-            g2.setColor(new Color(0, 100, 255));
-            for (Point wp : clickConnectWaypoints) {
-                g2.fillOval(wp.x - 4, wp.y - 4, 8, 8);
+        arrowIndex.clear();
+        for (Arrow arrow : arrows) {
+            arrowIndex.insert(arrow, arrowBounds(arrow));
+        }
+        textIndex.clear();
+        for (TextElement textElement : textElements) {
+            textIndex.insert(textElement, textElement.getBounds());
+        }
+        indexVersion = diagramVersion;
+    }
+    
+    /**
+     * Shape and label area of an element - everything contains() accepts
+     */
+    private Rectangle elementBounds(ProcessElement element) {
+        Rectangle bounds = new Rectangle(element.getX(), element.getY(), element.getWidth(), element.getHeight());
+        Rectangle labelBounds = element.getLabelBounds();
+        if (labelBounds != null) {
+            bounds.add(labelBounds);
+        }
+        return bounds;
+    }
+    
+    /**
+     * Path (source, waypoints, target), the same path moved by the label
+     * offset, and the last drawn label, grown by the arrow click threshold
+     */
+    private Rectangle arrowBounds(Arrow arrow) {
+        Rectangle bounds = new Rectangle(arrow.getSource().getCenter());
+        for (Point wp : arrow.getWaypoints()) {
+            bounds.add(wp);
+        }
+        bounds.add(arrow.getTarget().getCenter());
+        Point offset = arrow.getLabelOffset();
+        if (offset != null) {
+            Rectangle shifted = new Rectangle(bounds);
+            shifted.translate(offset.x, offset.y);
+            bounds.add(shifted);
+        }
+        Rectangle labelBounds = arrow.getLabelBounds();
+        if (labelBounds != null) {
+            bounds.add(labelBounds);
+        }
+        bounds.grow(ARROW_HIT_DISTANCE, ARROW_HIT_DISTANCE);
+        return bounds;
+    }
+    
+    /**
+     * First element (in drawing order) containing the point, or null
+     */
+    private ProcessElement findElementAt(int x, int y) {
+        ensureIndex();
+        for (ProcessElement element : elementIndex.query(x, y)) {
+            if (element.contains(x, y)) {
+                return element;
             }
-            
-            // Draw source highlight
-            g2.setColor(new Color(0, 150, 0, 100));
-            Point sc = connectionSource.getCenter();
-            g2.fillOval(sc.x - 8, sc.y - 8, 16, 16);
         }
-        
-        // Draw animated tokens on top of everything
-        if (!animatedTokenStates.isEmpty()) {
-            drawAnimatedTokens(g2);
+        return null;
+    }
+    
+    /**
+     * First text element containing the point, or null
+     */
+    private TextElement findTextElementAt(int x, int y) {
+        ensureIndex();
+        for (TextElement textElement : textIndex.query(x, y)) {
+            if (textElement.contains(x, y)) {
+                return textElement;
+            }
         }
+        return null;
+    }
+    
+    /**
+     * Arrows whose path, waypoints or label may be under the point
+     */
+    private List<Arrow> arrowsNear(int x, int y) {
+        ensureIndex();
+        return arrowIndex.query(x, y);
     }
     
     /**
@@ -2022,7 +2216,10 @@ public class Canvas extends JPanel {
      */
     public ProcessElement findEventGeneratorByLabel(String label) {
         if (label == null) return null;
-        
+        return memoizedLookup("eventGenerator", label, this::scanEventGeneratorByLabel);
+    }
+    
+    private ProcessElement scanEventGeneratorByLabel(String label) {
         for (ProcessElement element : elements) {
             if (element.getType() == ProcessElement.Type.EVENT_GENERATOR) {
                 if (label.equals(element.getLabel())) {
@@ -2038,7 +2235,10 @@ public class Canvas extends JPanel {
      */
     public ProcessElement findTerminateNodeByLabel(String label) {
         if (label == null) return null;
-        
+        return memoizedLookup("terminate", label, this::scanTerminateNodeByLabel);
+    }
+    
+    private ProcessElement scanTerminateNodeByLabel(String label) {
         for (ProcessElement element : elements) {
             // Check if element is a Terminate node by its label or node_type/node_value
             String nodeType = element.getNodeType();
@@ -2068,14 +2268,43 @@ public class Canvas extends JPanel {
      * Find an arrow connecting source element to target element
      */
     private Arrow findArrowBetween(ProcessElement source, ProcessElement target) {
-        for (Arrow arrow : arrows) {
-            if (arrow.getSource() == source && arrow.getTarget() == target) {
+        ensureLookups();
+        if (arrowsBySource.isEmpty()) {
+            for (Arrow arrow : arrows) {
+                arrowsBySource.computeIfAbsent(arrow.getSource(), k -> new ArrayList<>()).add(arrow);
+            }
+        }
+        for (Arrow arrow : arrowsBySource.getOrDefault(source, Collections.emptyList())) {
+            if (arrow.getTarget() == target) {
                 return arrow;
             }
         }
         return null;
     }
     
+    /**
+     * Result of a name lookup, scanning the elements only the first time a
+     * name is looked up after a diagram change
+     */
+    private ProcessElement memoizedLookup(String kind, String name, Function<String, ProcessElement> scan) {
+        ensureLookups();
+        String key = kind + ':' + name;
+        if (elementLookups.containsKey(key)) {
+            return elementLookups.get(key);
+        }
+        ProcessElement found = scan.apply(name);
+        elementLookups.put(key, found);
+        return found;
+    }
+    
+    private void ensureLookups() {
+        if (lookupVersion != diagramVersion) {
+            elementLookups.clear();
+            arrowsBySource.clear();
+            lookupVersion = diagramVersion;
+        }
+    }
+    
     /**
      * Interpolate along an arrow's full path (source -> waypoints -> target)
      * @param arrow The arrow to follow
@@ -2289,7 +2518,7 @@ public class Canvas extends JPanel {
     public void setAnimatedTokenStates(Map<String, TokenAnimState> states, Map<String, Color> colors) {
         this.animatedTokenStates = states != null ? states : new HashMap<>();
         this.tokenColors = colors != null ? colors : new HashMap<>();
-        repaint();
+        repaintOverlay();
     }
     
     /**
@@ -2298,7 +2527,7 @@ public class Canvas extends JPanel {
      */
     public void setTInBufferStates(Map<String, List<BufferedToken>> bufferStates) {
         this.tInBufferStates = bufferStates != null ? bufferStates : new HashMap<>();
-        repaint();
+        repaintOverlay();
     }
     
     /**
@@ -2327,7 +2556,7 @@ public class Canvas extends JPanel {
             }
         }
         
-        repaint();
+        repaintOverlay();
     }
     
     /**
@@ -2349,7 +2578,7 @@ public class Canvas extends JPanel {
         // Convert to new format - just put tokens at places
         this.animatedTokenStates.clear();
         this.tokenColors = colors != null ? colors : new HashMap<>();
-        repaint();
+        repaintOverlay();
     }
     
     /**
@@ -2360,7 +2589,7 @@ public class Canvas extends JPanel {
         this.tokenColors.clear();
         this.tInBufferStates.clear();
         this.terminatedTokenStates.clear();
-        repaint();
+        repaintOverlay();
     }
     
     /**
@@ -2375,7 +2604,10 @@ public class Canvas extends JPanel {
      */
     public ProcessElement findPlaceByName(String name) {
         if (name == null) return null;
-        
+        return memoizedLookup("place", name, this::scanPlaceByName);
+    }
+    
+    private ProcessElement scanPlaceByName(String name) {
         for (ProcessElement element : elements) {
             if (element.getType() == ProcessElement.Type.PLACE) {
                 String service = element.getService();
@@ -2426,7 +2658,10 @@ public class Canvas extends JPanel {
      */
     public ProcessElement findTransitionByLabel(String label) {
         if (label == null) return null;
-        
+        return memoizedLookup("transition", label, this::scanTransitionByLabel);
+    }
+    
+    private ProcessElement scanTransitionByLabel(String label) {
         // First try exact match
         for (ProcessElement element : elements) {
             if (element.getType() == ProcessElement.Type.TRANSITION) {
@@ -2481,7 +2716,10 @@ public class Canvas extends JPanel {
      */
     public ProcessElement findElementByIdOrLabel(String idOrLabel) {
         if (idOrLabel == null || idOrLabel.isEmpty()) return null;
-        
+        return memoizedLookup("element", idOrLabel, this::scanElementByIdOrLabel);
+    }
+    
+    private ProcessElement scanElementByIdOrLabel(String idOrLabel) {
         for (ProcessElement element : elements) {
             // Exact ID match
             if (idOrLabel.equals(element.getId())) {
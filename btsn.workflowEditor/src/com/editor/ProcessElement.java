@@ -4,6 +4,8 @@ import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.swing.JLabel;
+
 /**
  * Represents a Petri net element (Place, Transition, or Event Generator) on the canvas
  */
@@ -277,12 +279,22 @@ public class ProcessElement {
         }
     }
     
+    // Label font metrics for hit testing - shared, as every contains() asks for them
+    private static final Font LABEL_FONT = new Font("SansSerif", Font.PLAIN, 12);
+    private static FontMetrics labelMetrics;
+    
+    private static FontMetrics labelMetrics() {
+        if (labelMetrics == null) {
+            labelMetrics = new JLabel().getFontMetrics(LABEL_FONT);
+        }
+        return labelMetrics;
+    }
+    
     /**
      * Get the bounding rectangle of the label area (for hit testing)
      */
     public Rectangle getLabelBounds() {
-        Font font = new Font("SansSerif", Font.PLAIN, 12);
-        FontMetrics fm = new Canvas().getFontMetrics(font);
+        FontMetrics fm = labelMetrics();
         
         int cx = x + width / 2;
         int labelTopY;
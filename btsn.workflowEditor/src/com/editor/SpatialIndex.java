@@ -0,0 +1,118 @@
+package com.editor;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Uniform grid over canvas coordinates for hit-testing and area queries.
+ *
+ * Each item is registered in every cell its bounds overlap; a query looks at
+ * the cells under the point or rectangle only, so its cost depends on how
+ * crowded that spot is, not on the size of the diagram.
+ *
+ * Results come back in insertion order, so callers that take "the first
+ * element under the mouse" keep the same element as a scan of the list.
+ * Bounds are candidates only - callers still confirm with contains().
+ */
+public class SpatialIndex<T> {
+
+    private static class Entry<T> {
+        final T item;
+        final int order;
+        final Rectangle bounds;
+
+        Entry(T item, int order, Rectangle bounds) {
+            this.item = item;
+            this.order = order;
+            this.bounds = bounds;
+        }
+    }
+
+    private final int cellSize;
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+    private int size = 0;
+
+    public SpatialIndex(int cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public void clear() {
+        cells.clear();
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(T item, Rectangle bounds) {
+        Entry<T> entry = new Entry<>(item, size++, new Rectangle(bounds));
+        int x0 = cell(bounds.x);
+        int y0 = cell(bounds.y);
+        int x1 = cell(bounds.x + bounds.width);
+        int y1 = cell(bounds.y + bounds.height);
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cy = y0; cy <= y1; cy++) {
+                cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>()).add(entry);
+            }
+        }
+    }
+
+    /**
+     * Items whose bounds contain the point, in insertion order.
+     */
+    public List<T> query(int x, int y) {
+        List<Entry<T>> cell = cells.get(key(cell(x), cell(y)));
+        List<T> result = new ArrayList<>();
+        if (cell != null) {
+            // Entries of one cell are already in insertion order
+            for (Entry<T> entry : cell) {
+                if (entry.bounds.contains(x, y)) {
+                    result.add(entry.item);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Items whose bounds intersect the area, in insertion order.
+     */
+    public List<T> query(Rectangle area) {
+        Map<Integer, Entry<T>> found = new TreeMap<>();
+        int x0 = cell(area.x);
+        int y0 = cell(area.y);
+        int x1 = cell(area.x + area.width);
+        int y1 = cell(area.y + area.height);
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cy = y0; cy <= y1; cy++) {
+                List<Entry<T>> cell = cells.get(key(cx, cy));
+                if (cell == null) {
+                    continue;
+                }
+                for (Entry<T> entry : cell) {
+                    if (!found.containsKey(entry.order) && entry.bounds.intersects(area)) {
+                        found.put(entry.order, entry);
+                    }
+                }
+            }
+        }
+        List<T> result = new ArrayList<>(found.size());
+        for (Entry<T> entry : found.values()) {
+            result.add(entry.item);
+        }
+        return result;
+    }
+
+    private int cell(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+}
@@ -30,8 +30,10 @@ import static com.editor.animator.AnimationConstants.*;
  * and interpolate based on segment type.
  * 
  * TOKEN ID CONVENTION:
- * - Parent tokens: 1000000, 1010000, 1020000, ... (divisible by 100)
- * - Child tokens: 1030001, 1030002 (parent 1030000 + suffix 01, 02)
+ * - 64-bit IDs (see org.btsn.constants.TokenId): version in bits 53-62,
+ *   fork depth in bits 21-22, branch path in bits 0-20
+ * - Legacy IDs: parent tokens 1000000, 1010000, ... (divisible by 100),
+ *   child tokens 1030001, 1030002 (parent 1030000 + suffix 01, 02)
  * 
  * EVENT TYPES:
  * - ENTER: Token enters a place
@@ -2891,10 +2893,25 @@ public class TokenAnimator {
     
     // ==================== Utility Methods ====================
     
+    // TokenId layout (org.btsn.constants.TokenId) - the editor does not
+    // depend on btsn.common, so the few fields it needs are decoded here
+    private static final int TOKEN_VERSION_SHIFT = 53;
+    private static final int TOKEN_DEPTH_SHIFT = 21;
+    private static final int TOKEN_BRANCH_BITS = 7;
+    private static final int TOKEN_MAX_DEPTH = 3;
+    
+    private static boolean isLegacyTokenId(long id) {
+        return (id >>> TOKEN_VERSION_SHIFT) == 0;
+    }
+    
+    private static int tokenDepth(long id) {
+        return (int) ((id >>> TOKEN_DEPTH_SHIFT) & TOKEN_MAX_DEPTH);
+    }
+    
     private String getVersionFromTokenId(String tokenId) {
         try {
             long id = Long.parseLong(tokenId);
-            int versionNum = (int)(id / 1000000);
+            int versionNum = isLegacyTokenId(id) ? (int)(id / 1000000) : (int)(id >>> TOKEN_VERSION_SHIFT);
             return String.format("v%03d", versionNum);
         } catch (NumberFormatException e) {
             return "v001";
@@ -2903,8 +2920,11 @@ public class TokenAnimator {
     
     private static boolean isChildToken(String tokenId) {
         try {
-            int id = Integer.parseInt(tokenId);
-            int suffix = id % 100;
+            long id = Long.parseLong(tokenId);
+            if (!isLegacyTokenId(id)) {
+                return tokenDepth(id) > 0;
+            }
+            long suffix = id % 100;
             return suffix >= 1 && suffix <= 99;
         } catch (NumberFormatException e) {
             return false;
@@ -2913,8 +2933,17 @@ public class TokenAnimator {
     
     private static String getParentTokenId(String childTokenId) {
         try {
-            int id = Integer.parseInt(childTokenId);
-            int parentId = (id / 100) * 100;
+            long id = Long.parseLong(childTokenId);
+            if (!isLegacyTokenId(id)) {
+                int depth = tokenDepth(id);
+                if (depth == 0) {
+                    return String.valueOf(id);
+                }
+                long slot = ((1L << TOKEN_BRANCH_BITS) - 1) << ((TOKEN_MAX_DEPTH - depth) * TOKEN_BRANCH_BITS);
+                long depthBits = (long) TOKEN_MAX_DEPTH << TOKEN_DEPTH_SHIFT;
+                return String.valueOf((id & ~slot & ~depthBits) | ((long) (depth - 1) << TOKEN_DEPTH_SHIFT));
+            }
+            long parentId = (id / 100) * 100;
             return String.valueOf(parentId);
         } catch (NumberFormatException e) {
             return null;